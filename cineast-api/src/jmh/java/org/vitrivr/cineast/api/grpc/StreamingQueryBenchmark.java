@@ -0,0 +1,162 @@
+package org.vitrivr.cineast.api.grpc;
+
+import io.grpc.CallOptions;
+import io.grpc.Context;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCalls;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.vitrivr.cineast.api.grpc.data.QueryResultChunk;
+import org.vitrivr.cineast.core.config.ReadableQueryConfig;
+import org.vitrivr.cineast.core.data.StringDoublePair;
+import org.vitrivr.cineast.core.data.score.ScoreElement;
+import org.vitrivr.cineast.core.data.score.SegmentScoreElement;
+import org.vitrivr.cineast.core.data.segments.SegmentContainer;
+import org.vitrivr.cineast.core.db.DBSelectorSupplier;
+import org.vitrivr.cineast.core.db.setup.EntityCreator;
+import org.vitrivr.cineast.core.features.retriever.Retriever;
+
+/**
+ * Measures the latency until the first result of a streamed query reaches the client, compared to the latency of the fused result, which is all the unary {@link CineastQueryService#getMediaSegmentScores(CineastGrpc.Query, io.grpc.stub.StreamObserver)} can return. The retrieval is synthetic: the retrievers finish one after the other, each after the given latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StreamingQueryBenchmark {
+
+  /**
+   * Number of retrievers of the category.
+   */
+  @Param({"4", "16"})
+  public int retrievers;
+
+  /**
+   * Time in ms between two retrievers finishing.
+   */
+  @Param({"5"})
+  public int latency;
+
+  /**
+   * Number of results per retriever.
+   */
+  @Param({"1000"})
+  public int results;
+
+  private CineastStreamingQueryService service;
+  private Server server;
+  private ManagedChannel channel;
+  private CineastGrpc.Query query;
+
+  @Setup
+  public void setup() throws IOException {
+    final List<ScoreElement> partial = new ArrayList<>(this.results);
+    final List<StringDoublePair> fused = new ArrayList<>(this.results);
+    for (int i = 0; i < this.results; i++) {
+      partial.add(new SegmentScoreElement("v_" + i + "_1", 1.0 - (double) i / this.results));
+      fused.add(new StringDoublePair("v_" + i + "_1", 1.0 - (double) i / this.results));
+    }
+    final Retriever retriever = new SyntheticRetriever();
+    this.service = new CineastStreamingQueryService((container, config, category, listener) -> {
+      for (int i = 0; i < this.retrievers; i++) {
+        try {
+          Thread.sleep(this.latency);
+        } catch (InterruptedException e) {
+          throw new CancellationException();
+        }
+        if (listener.isCancelled()) {
+          throw new CancellationException();
+        }
+        listener.onPartialResult(retriever, partial);
+      }
+      return fused;
+    });
+
+    final String name = InProcessServerBuilder.generateName();
+    this.server = InProcessServerBuilder.forName(name).addService(this.service).build().start();
+    this.channel = InProcessChannelBuilder.forName(name).build();
+
+    final Supplier<CineastGrpc.QueryConfig> config = () -> CineastGrpc.QueryConfig.newBuilder().setQueryId(CineastGrpc.QueryId.newBuilder().setId("query")).setMaxResults(this.results).build();
+    this.query = CineastGrpc.Query.newBuilder().addStages(CineastGrpc.QueryStage.newBuilder().setConfig(config.get()).addTerms(
+        CineastGrpc.QueryTerm.newBuilder().setTextQueryContainer(CineastGrpc.TextQueryContainer.newBuilder().setText("text")).setConfig(config.get()).setWeight(1f).addCategory("category")
+    )).build();
+  }
+
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    this.channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    this.server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    this.service.shutdown();
+  }
+
+  /**
+   * Time until the first partial result arrives; the call is cancelled afterwards.
+   */
+  @Benchmark
+  public QueryResultChunk firstChunk() throws Exception {
+    final Context.CancellableContext context = Context.current().withCancellation();
+    try {
+      return context.call(() -> ClientCalls.blockingServerStreamingCall(this.channel, CineastStreamingQueryService.STREAM_MEDIA_SEGMENT_SCORES, CallOptions.DEFAULT, this.query).next());
+    } finally {
+      context.cancel(null);
+    }
+  }
+
+  /**
+   * Time until the fused result arrives.
+   */
+  @Benchmark
+  public QueryResultChunk fusedResult() {
+    final Iterator<QueryResultChunk> iterator = ClientCalls.blockingServerStreamingCall(this.channel, CineastStreamingQueryService.STREAM_MEDIA_SEGMENT_SCORES, CallOptions.DEFAULT, this.query);
+    QueryResultChunk chunk = null;
+    while (iterator.hasNext()) {
+      chunk = iterator.next();
+    }
+    return chunk;
+  }
+
+  private static class SyntheticRetriever implements Retriever {
+
+    @Override
+    public void init(DBSelectorSupplier selectorSupply) {
+    }
+
+    @Override
+    public List<ScoreElement> getSimilar(SegmentContainer sc, ReadableQueryConfig qc) {
+      return List.of();
+    }
+
+    @Override
+    public List<ScoreElement> getSimilar(String segmentId, ReadableQueryConfig qc) {
+      return List.of();
+    }
+
+    @Override
+    public void finish() {
+    }
+
+    @Override
+    public void initalizePersistentLayer(Supplier<EntityCreator> supply) {
+    }
+
+    @Override
+    public void dropPersistentLayer(Supplier<EntityCreator> supply) {
+    }
+  }
+}
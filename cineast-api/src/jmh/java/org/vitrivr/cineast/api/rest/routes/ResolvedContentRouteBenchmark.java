@@ -0,0 +1,127 @@
+package org.vitrivr.cineast.api.rest.routes;
+
+import io.javalin.Javalin;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.vitrivr.cineast.api.rest.resolvers.FileSystemThumbnailResolver;
+import org.vitrivr.cineast.api.rest.resolvers.IndexedThumbnailResolver;
+import org.vitrivr.cineast.api.rest.resolvers.Resolver;
+
+/**
+ * Load test for the thumbnail route: Serves a local directory of generated thumbnails through a {@link ResolvedContentRoute} and measures requests per second issued by concurrent HTTP clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class ResolvedContentRouteBenchmark {
+
+  private static final int OBJECTS = 200;
+  private static final int SEGMENTS_PER_OBJECT = 50;
+
+  /**
+   * The {@link Resolver} implementation to use.
+   */
+  @Param({"filesystem", "indexed"})
+  public String resolver;
+
+  /**
+   * Size of the hot-bytes cache in MB; 0 disables the cache.
+   */
+  @Param({"0", "64"})
+  public int cacheSize;
+
+  private Path directory;
+  private Javalin server;
+  private HttpClient client;
+  private String base;
+  private IndexedThumbnailResolver indexed;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException, InterruptedException {
+    this.directory = Files.createTempDirectory("cineast-thumbnails");
+    final SplittableRandom random = new SplittableRandom(42L);
+    for (int o = 0; o < OBJECTS; o++) {
+      final Path folder = Files.createDirectories(this.directory.resolve("v_" + o));
+      for (int s = 1; s <= SEGMENTS_PER_OBJECT; s++) {
+        final byte[] bytes = new byte[8 * 1024 + random.nextInt(24 * 1024)];
+        random.nextBytes(bytes);
+        Files.write(folder.resolve("v_" + o + "_" + s + ".jpg"), bytes);
+      }
+    }
+
+    final Resolver r;
+    if (this.resolver.equals("indexed")) {
+      this.indexed = new IndexedThumbnailResolver(this.directory.toFile());
+      while (!this.indexed.isReady()) {
+        Thread.sleep(10);
+      }
+      r = this.indexed;
+    } else {
+      r = new FileSystemThumbnailResolver(this.directory.toFile());
+    }
+
+    final ResolvedContentRoute route = new ResolvedContentRoute(r, this.cacheSize * 1024L * 1024L, ResolvedContentRoute.DEFAULT_MAX_CACHED_FILE_SIZE);
+    this.server = Javalin.create().get("/thumbnails/{id}", route).start(0);
+    this.base = "http://localhost:" + this.server.port() + "/thumbnails/";
+    this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() throws IOException {
+    this.server.stop();
+    if (this.indexed != null) {
+      this.indexed.close();
+    }
+    try (Stream<Path> paths = Files.walk(this.directory)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+  }
+
+  private URI randomThumbnail() {
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    return URI.create(this.base + "v_" + random.nextInt(OBJECTS) + "_" + (random.nextInt(SEGMENTS_PER_OBJECT) + 1));
+  }
+
+  @Benchmark
+  public int fullGet() throws IOException, InterruptedException {
+    final HttpRequest request = HttpRequest.newBuilder(this.randomThumbnail()).GET().build();
+    return this.client.send(request, HttpResponse.BodyHandlers.ofByteArray()).body().length;
+  }
+
+  @Benchmark
+  public int conditionalGet() throws IOException, InterruptedException {
+    final URI uri = this.randomThumbnail();
+    final HttpResponse<Void> head = this.client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.discarding());
+    final String etag = head.headers().firstValue("ETag").orElse("*");
+    return this.client.send(HttpRequest.newBuilder(uri).header("If-None-Match", etag).GET().build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+  }
+
+  @Benchmark
+  public int rangeGet() throws IOException, InterruptedException {
+    final HttpRequest request = HttpRequest.newBuilder(this.randomThumbnail()).header("Range", "bytes=0-4095").GET().build();
+    return this.client.send(request, HttpResponse.BodyHandlers.ofByteArray()).body().length;
+  }
+}
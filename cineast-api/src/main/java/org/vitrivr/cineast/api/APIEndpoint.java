@@ -5,6 +5,7 @@
 import io.javalin.plugin.openapi.OpenApiPlugin;
 import io.javalin.plugin.openapi.dsl.OpenApiBuilder;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -57,6 +58,8 @@
 import org.vitrivr.cineast.api.rest.handlers.interfaces.PutRestHandler;
 import org.vitrivr.cineast.api.rest.resolvers.FileSystemObjectResolver;
 import org.vitrivr.cineast.api.rest.resolvers.FileSystemThumbnailResolver;
+import org.vitrivr.cineast.api.rest.resolvers.IndexedThumbnailResolver;
+import org.vitrivr.cineast.api.rest.resolvers.ThumbnailResolver;
 import org.vitrivr.cineast.api.rest.routes.ResolvedContentRoute;
 import org.vitrivr.cineast.api.websocket.WebsocketAPI;
 import org.vitrivr.cineast.core.db.dao.reader.MediaObjectReader;
@@ -116,6 +119,10 @@ public class APIEndpoint {
    * The Javalin OpenAPI plugin that generates the specification and serves the Swagger-UI
    */
   private OpenApiPlugin openApi;
+  /**
+   * The {@link ThumbnailResolver} used to serve thumbnails (if enabled).
+   */
+  private ThumbnailResolver thumbnailResolver;
 
   private APIEndpoint() {
     registerRestOperations();
@@ -222,6 +229,13 @@ public void shutdown() {
     if (Config.sharedConfig().getApi().getEnableWebsocket()) {
       webSocketApi.shutdown();
     }
+    if (this.thumbnailResolver instanceof AutoCloseable) {
+      try {
+        ((AutoCloseable) this.thumbnailResolver).close();
+      } catch (Exception e) {
+        LOGGER.warn("Failed to close thumbnail resolver.", e);
+      }
+    }
   }
 
   /**
@@ -431,15 +445,36 @@ private void registerRestOperations() {
     ));
   }
 
+  /**
+   * Returns the {@link ThumbnailResolver} shared by the HTTP and HTTPS services, creating it upon first invocation.
+   */
+  private synchronized ThumbnailResolver getThumbnailResolver(final APIConfig config) {
+    if (this.thumbnailResolver == null) {
+      final File thumbnails = new File(config.getThumbnailLocation());
+      if (config.getIndexThumbnails()) {
+        try {
+          final File indexFile = config.getThumbnailIndexLocation().isEmpty() ? null : new File(config.getThumbnailIndexLocation());
+          this.thumbnailResolver = new IndexedThumbnailResolver(thumbnails, indexFile);
+        } catch (IOException e) {
+          LOGGER.error("Failed to set up thumbnail index for {}; falling back to file system lookup.", thumbnails, e);
+          this.thumbnailResolver = new FileSystemThumbnailResolver(thumbnails);
+        }
+      } else {
+        this.thumbnailResolver = new FileSystemThumbnailResolver(thumbnails);
+      }
+    }
+    return this.thumbnailResolver;
+  }
+
   /**
    * If configured, this registers two special routes that serve the media objects as media content and additionally a thumbnails endpoint for them.
    */
   private void registerServingRoutes(final Javalin service, final APIConfig config) {
     if (config.getServeContent()) {
       LOGGER.info("Serving content is enabled");
-      service.get("/thumbnails/{id}", new ResolvedContentRoute(
-          new FileSystemThumbnailResolver(
-              new File(Config.sharedConfig().getApi().getThumbnailLocation()))));
+      final long cacheSize = config.getContentCacheSize() * 1024L * 1024L;
+      final int maxCachedFileSize = config.getContentCacheMaxFileSize() * 1024;
+      service.get("/thumbnails/{id}", new ResolvedContentRoute(this.getThumbnailResolver(config), cacheSize, maxCachedFileSize));
 
       /* The VBS database in-use is broken, this is the hack to circumvent object paths being wrong */
       FileSystemObjectResolver fsor;
@@ -460,7 +495,7 @@ private void registerServingRoutes(final Javalin service, final APIConfig config
                 Config.sharedConfig().getDatabase().getSelectorSupplier().get()));
       }
 
-      service.get("/objects/{id}", new ResolvedContentRoute(fsor));
+      service.get("/objects/{id}", new ResolvedContentRoute(fsor, cacheSize, maxCachedFileSize));
     }
   }
 
@@ -10,12 +10,14 @@
 import org.vitrivr.cineast.api.grpc.CineastExtractionService;
 import org.vitrivr.cineast.api.grpc.CineastManagementService;
 import org.vitrivr.cineast.api.grpc.CineastQueryService;
+import org.vitrivr.cineast.api.grpc.CineastStreamingQueryService;
 import org.vitrivr.cineast.standalone.config.Config;
 
 public class GRPCEndpoint {
 
   private static final Logger LOGGER = LogManager.getLogger();
   private static Server server;
+  private static CineastStreamingQueryService streamingQueryService;
 
   public static void start() throws IOException {
 
@@ -26,7 +28,9 @@ public static void start() throws IOException {
     int port = Config.sharedConfig().getApi().getGrpcPort();
 
     LOGGER.info("Starting GRPC Endpoint at port {}", port);
+    streamingQueryService = new CineastStreamingQueryService(APIEndpoint.retrievalLogic);
     server = ServerBuilder.forPort(port).addService(new CineastQueryService(APIEndpoint.retrievalLogic)) //FIXME this should come from a more reasonable location
+        .addService(streamingQueryService)
         .addService(new CineastExtractionService()).addService(new CineastManagementService()).build();
     server.start();
   }
@@ -44,5 +48,6 @@ public static void stop() {
       e.printStackTrace();
     }
     server.shutdownNow();
+    streamingQueryService.shutdown();
   }
 }
@@ -10,6 +10,7 @@
 import org.vitrivr.cineast.core.render.lwjgl.util.fsm.abstractworker.JobControlCommand;
 import org.vitrivr.cineast.standalone.cli.CineastCli;
 import org.vitrivr.cineast.standalone.config.Config;
+import org.vitrivr.cineast.standalone.config.ConfigReloader;
 import org.vitrivr.cineast.standalone.monitoring.PrometheusServer;
 import org.vitrivr.cineast.standalone.util.CLI;
 
@@ -38,6 +39,18 @@ public static void main(String[] args) {
       }
     }
 
+    /* Watch the config file for changes to the retriever configuration. */
+    ConfigReloader reloader = null;
+    if (Config.sharedConfig().getApi().getEnableConfigReload()) {
+      try {
+        reloader = ConfigReloader.start(args.length == 0 ? DEFAULT_CONFIG_PATH : args[0]);
+      } catch (Throwable e) {
+        e.printStackTrace();
+        System.err.println("Failed to watch the Cineast configuration due to an exception: " + e.getMessage());
+      }
+    }
+    final ConfigReloader configReloader = reloader;
+
     /* Start API endpoint. */
     try {
       APIEndpoint.getInstance().start();
@@ -66,6 +79,9 @@ public static void main(String[] args) {
       APIEndpoint.stop();
       GRPCEndpoint.stop();
       PrometheusServer.stopServer();
+      if (configReloader != null) {
+        configReloader.close();
+      }
       if (RenderWorker.getRenderJobQueue() != null) {
         RenderWorker.getRenderJobQueue().add(new RenderJob(JobControlCommand.SHUTDOWN_WORKER));
       }
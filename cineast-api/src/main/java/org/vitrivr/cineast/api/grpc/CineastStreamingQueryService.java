@@ -0,0 +1,287 @@
+package org.vitrivr.cineast.api.grpc;
+
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.vitrivr.cineast.api.grpc.data.QueryResultChunk;
+import org.vitrivr.cineast.api.grpc.data.QueryStage;
+import org.vitrivr.cineast.api.grpc.data.QueryTerm;
+import org.vitrivr.cineast.api.grpc.util.QueryContainerUtil;
+import org.vitrivr.cineast.api.util.QueryUtil;
+import org.vitrivr.cineast.core.config.QueryConfig;
+import org.vitrivr.cineast.core.config.ReadableQueryConfig;
+import org.vitrivr.cineast.core.data.StringDoublePair;
+import org.vitrivr.cineast.core.data.query.containers.AbstractQueryTermContainer;
+import org.vitrivr.cineast.core.data.score.ScoreElement;
+import org.vitrivr.cineast.core.features.retriever.Retriever;
+import org.vitrivr.cineast.core.util.LogHelper;
+import org.vitrivr.cineast.standalone.runtime.RetrievalListener;
+import org.vitrivr.cineast.standalone.util.ContinuousRetrievalLogic;
+
+/**
+ * Server-streaming variant of {@link CineastQueryService#getMediaSegmentScores(CineastGrpc.Query, StreamObserver)}: the query is staged the same way, but for the last stage the results of every retriever are sent as soon as they are available, followed by the fused result of each query term and category.
+ * <p>
+ * Every {@link QueryResultChunk} carries a sequence number, the category and, for partial results, the name of the retriever. The stream respects the flow control of the client: at most {@link #MAX_BUFFERED_CHUNKS} chunks are buffered, after which the retrieval waits until the client is ready again. If the client cancels the call, the running retrieval tasks are interrupted.
+ * <p>
+ * Since the service definitions in cineast-proto cannot be extended from here, the service and its method are defined by hand.
+ */
+public class CineastStreamingQueryService implements BindableService {
+
+  public static final String SERVICE_NAME = "org.vitrivr.cineast.api.grpc.CineastStreamingQuery";
+
+  /**
+   * Maximum number of chunks buffered per call while the client is not ready.
+   */
+  static final int MAX_BUFFERED_CHUNKS = 16;
+
+  private static final MethodDescriptor.Marshaller<CineastGrpc.Query> QUERY_MARSHALLER = new MethodDescriptor.Marshaller<>() {
+    @Override
+    public InputStream stream(CineastGrpc.Query value) {
+      return value.toByteString().newInput();
+    }
+
+    @Override
+    public CineastGrpc.Query parse(InputStream stream) {
+      try {
+        return CineastGrpc.Query.parseFrom(stream);
+      } catch (IOException e) {
+        throw Status.INTERNAL.withDescription("Invalid query.").withCause(e).asRuntimeException();
+      }
+    }
+  };
+
+  public static final MethodDescriptor<CineastGrpc.Query, QueryResultChunk> STREAM_MEDIA_SEGMENT_SCORES = MethodDescriptor.<CineastGrpc.Query, QueryResultChunk>newBuilder()
+      .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+      .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, "StreamMediaSegmentScores"))
+      .setRequestMarshaller(QUERY_MARSHALLER)
+      .setResponseMarshaller(QueryResultChunk.MARSHALLER)
+      .build();
+
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  private final Retrieval retrieval;
+
+  /**
+   * Queries run on their own threads, so that the flow control and cancellation callbacks of the call are not blocked by the retrieval. Shut down by {@link #shutdown()}.
+   */
+  private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+    Thread thread = new Thread(r, "grpc-streaming-query");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public CineastStreamingQueryService(ContinuousRetrievalLogic continuousRetrievalLogic) {
+    this((container, config, category, listener) -> QueryUtil.retrieve(continuousRetrievalLogic, container, config, category, listener));
+  }
+
+  CineastStreamingQueryService(Retrieval retrieval) {
+    this.retrieval = retrieval;
+  }
+
+  @Override
+  public ServerServiceDefinition bindService() {
+    return ServerServiceDefinition.builder(SERVICE_NAME)
+        .addMethod(STREAM_MEDIA_SEGMENT_SCORES, ServerCalls.asyncServerStreamingCall(this::streamMediaSegmentScores))
+        .build();
+  }
+
+  /**
+   * Interrupts the queries that are still running and releases their threads. To be called once the server this service is bound to has been shut down.
+   */
+  public void shutdown() {
+    final List<Runnable> pending = this.executor.shutdownNow();
+    if (!pending.isEmpty()) {
+      LOGGER.warn("{} streaming queries were not started before shutdown.", pending.size());
+    }
+  }
+
+  public void streamMediaSegmentScores(CineastGrpc.Query query, StreamObserver<QueryResultChunk> responseObserver) {
+    final ChunkSender sender = new ChunkSender((ServerCallStreamObserver<QueryResultChunk>) responseObserver);
+    this.executor.execute(() -> this.run(query, sender));
+  }
+
+  private void run(CineastGrpc.Query query, ChunkSender sender) {
+    try {
+      List<QueryStage> stages = QueryContainerUtil.query(query);
+
+      HashSet<String> relevantSegments = new HashSet<>();
+
+      stages:
+      for (int i = 0; i < stages.size(); ++i) {
+
+        QueryStage stage = stages.get(i);
+        boolean lastStage = i == stages.size() - 1;
+
+        QueryConfig stageConfig = QueryConfig.clone(stage.getQueryConfig());
+        stageConfig.addRelevantSegmentIds(relevantSegments);
+        relevantSegments.clear();
+
+        for (QueryTerm term : stage.getQueryTerms()) {
+
+          for (String category : term.getCategories()) {
+
+            ReadableQueryConfig queryConfig = stageConfig.withChangesFrom(term.getQueryConfig());
+            String queryId = term.getQueryConfig().getQueryId();
+
+            List<StringDoublePair> results = this.retrieval.retrieve(term.getContainer(), queryConfig, category, sender.listener(queryId, category, lastStage));
+
+            if (lastStage) {
+              sender.send(queryId, category, "", true, results);
+            } else {
+
+              if (results.isEmpty()) { //no more results left
+                break stages;
+              }
+
+              results.forEach(x -> relevantSegments.add(x.key()));
+            }
+          }
+        }
+      }
+      sender.complete();
+    } catch (CancellationException e) {
+      LOGGER.debug("Streaming query was cancelled by the client.");
+    } catch (Exception e) {
+      LOGGER.error("Error during streaming query: {}", LogHelper.getStackTrace(e));
+      sender.fail(Status.INTERNAL.withDescription(e.getMessage()).withCause(e).asRuntimeException());
+    }
+  }
+
+  /**
+   * Converts the raw results of a retriever, sorted by descending score. Results with a score that is not finite are dropped, like in the fused results.
+   */
+  static List<StringDoublePair> pairs(List<ScoreElement> results) {
+    List<StringDoublePair> pairs = new ArrayList<>(results.size());
+    for (ScoreElement element : results) {
+      double score = element.getScore();
+      if (Double.isInfinite(score) || Double.isNaN(score)) {
+        continue;
+      }
+      pairs.add(new StringDoublePair(element.getId(), score));
+    }
+    pairs.sort(StringDoublePair.COMPARATOR);
+    return pairs;
+  }
+
+  /**
+   * Retrieves the fused results of a query term container for one category, see {@link QueryUtil#retrieve(ContinuousRetrievalLogic, AbstractQueryTermContainer, ReadableQueryConfig, String, RetrievalListener)}.
+   */
+  @FunctionalInterface
+  interface Retrieval {
+
+    List<StringDoublePair> retrieve(AbstractQueryTermContainer container, ReadableQueryConfig config, String category, RetrievalListener listener);
+  }
+
+  /**
+   * Buffers the chunks of a call and hands them to gRPC whenever the call is ready.
+   */
+  private static final class ChunkSender {
+
+    private final ServerCallStreamObserver<QueryResultChunk> observer;
+
+    private final Deque<QueryResultChunk> buffer = new ArrayDeque<>();
+
+    private long sequence = 0;
+
+    private boolean completed = false;
+
+    private boolean closed = false;
+
+    private volatile boolean cancelled = false;
+
+    private ChunkSender(ServerCallStreamObserver<QueryResultChunk> observer) {
+      this.observer = observer;
+      this.observer.setOnReadyHandler(this::drain);
+      this.observer.setOnCancelHandler(this::cancel);
+    }
+
+    /**
+     * Returns a listener that sends the partial results of the retrievers, if requested, and cancels the retrieval once the call is cancelled.
+     */
+    private RetrievalListener listener(String queryId, String category, boolean partials) {
+      return new RetrievalListener() {
+        @Override
+        public void onPartialResult(Retriever retriever, List<ScoreElement> results) {
+          if (partials) {
+            ChunkSender.this.send(queryId, category, retriever.getClass().getSimpleName(), false, pairs(results));
+          }
+        }
+
+        @Override
+        public boolean isCancelled() {
+          return ChunkSender.this.cancelled;
+        }
+      };
+    }
+
+    /**
+     * Enqueues a chunk, waiting while the buffer is full.
+     *
+     * @throws CancellationException If the call was cancelled.
+     */
+    private void send(String queryId, String category, String retriever, boolean last, List<StringDoublePair> results) {
+      final CineastGrpc.SimilarityQueryResult result = QueryContainerUtil.similarityQueryResult(queryId, category, results);
+      synchronized (this) {
+        try {
+          while (this.buffer.size() >= MAX_BUFFERED_CHUNKS && !this.cancelled) {
+            this.wait();
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new CancellationException("Interrupted while waiting for the client.");
+        }
+        if (this.cancelled) {
+          throw new CancellationException("The call was cancelled.");
+        }
+        this.buffer.add(new QueryResultChunk(this.sequence++, category, retriever, last, result));
+        this.drain();
+      }
+    }
+
+    private synchronized void drain() {
+      while (!this.cancelled && !this.buffer.isEmpty() && this.observer.isReady()) {
+        this.observer.onNext(this.buffer.poll());
+      }
+      if (this.completed && this.buffer.isEmpty() && !this.closed && !this.cancelled) {
+        this.closed = true;
+        this.observer.onCompleted();
+      }
+      this.notifyAll();
+    }
+
+    private synchronized void complete() {
+      this.completed = true;
+      this.drain();
+    }
+
+    private synchronized void fail(Throwable t) {
+      if (!this.closed && !this.cancelled) {
+        this.closed = true;
+        this.buffer.clear();
+        this.observer.onError(t);
+      }
+    }
+
+    private synchronized void cancel() {
+      this.cancelled = true;
+      this.buffer.clear();
+      this.notifyAll();
+    }
+  }
+}
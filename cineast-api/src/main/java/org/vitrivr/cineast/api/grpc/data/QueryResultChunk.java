@@ -0,0 +1,171 @@
+package org.vitrivr.cineast.api.grpc.data;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.vitrivr.cineast.api.grpc.CineastGrpc;
+
+/**
+ * A chunk of a streamed similarity query result: either the partial result of a single retriever or the fused result of a query term and category, in which case {@link #isFinal()} is true.
+ * <p>
+ * The service definitions of Cineast are generated in the cineast-proto artifact, so this message is encoded by hand. The encoding is wire-compatible with
+ * <pre>
+ * message QueryResultChunk {
+ *   uint64 sequence = 1;
+ *   string category = 2;
+ *   string retriever = 3;
+ *   bool final = 4;
+ *   SimilarityQueryResult result = 5;
+ * }
+ * </pre>
+ */
+public class QueryResultChunk {
+
+  public static final MethodDescriptor.Marshaller<QueryResultChunk> MARSHALLER = new MethodDescriptor.Marshaller<>() {
+    @Override
+    public InputStream stream(QueryResultChunk value) {
+      return new ByteArrayInputStream(value.toByteArray());
+    }
+
+    @Override
+    public QueryResultChunk parse(InputStream stream) {
+      try {
+        return parseFrom(stream);
+      } catch (IOException e) {
+        throw Status.INTERNAL.withDescription("Invalid query result chunk.").withCause(e).asRuntimeException();
+      }
+    }
+  };
+
+  private static final int SEQUENCE_FIELD = 1;
+  private static final int CATEGORY_FIELD = 2;
+  private static final int RETRIEVER_FIELD = 3;
+  private static final int FINAL_FIELD = 4;
+  private static final int RESULT_FIELD = 5;
+
+  private final long sequence;
+  private final String category;
+  private final String retriever;
+  private final boolean last;
+  private final CineastGrpc.SimilarityQueryResult result;
+
+  /**
+   * @param sequence  Position of the chunk in the stream, starting at 0.
+   * @param category  Category the results belong to.
+   * @param retriever Name of the retriever for partial results, empty for fused results.
+   * @param last      Whether this chunk holds the fused result of the category.
+   * @param result    The results.
+   */
+  public QueryResultChunk(long sequence, String category, String retriever, boolean last, CineastGrpc.SimilarityQueryResult result) {
+    this.sequence = sequence;
+    this.category = category == null ? "" : category;
+    this.retriever = retriever == null ? "" : retriever;
+    this.last = last;
+    this.result = result == null ? CineastGrpc.SimilarityQueryResult.getDefaultInstance() : result;
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  public String getCategory() {
+    return category;
+  }
+
+  public String getRetriever() {
+    return retriever;
+  }
+
+  public boolean isFinal() {
+    return last;
+  }
+
+  public CineastGrpc.SimilarityQueryResult getResult() {
+    return result;
+  }
+
+  public int getSerializedSize() {
+    int size = 0;
+    if (this.sequence != 0) {
+      size += CodedOutputStream.computeUInt64Size(SEQUENCE_FIELD, this.sequence);
+    }
+    if (!this.category.isEmpty()) {
+      size += CodedOutputStream.computeStringSize(CATEGORY_FIELD, this.category);
+    }
+    if (!this.retriever.isEmpty()) {
+      size += CodedOutputStream.computeStringSize(RETRIEVER_FIELD, this.retriever);
+    }
+    if (this.last) {
+      size += CodedOutputStream.computeBoolSize(FINAL_FIELD, true);
+    }
+    return size + CodedOutputStream.computeMessageSize(RESULT_FIELD, this.result);
+  }
+
+  public byte[] toByteArray() {
+    final byte[] bytes = new byte[getSerializedSize()];
+    final CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+    try {
+      if (this.sequence != 0) {
+        out.writeUInt64(SEQUENCE_FIELD, this.sequence);
+      }
+      if (!this.category.isEmpty()) {
+        out.writeString(CATEGORY_FIELD, this.category);
+      }
+      if (!this.retriever.isEmpty()) {
+        out.writeString(RETRIEVER_FIELD, this.retriever);
+      }
+      if (this.last) {
+        out.writeBool(FINAL_FIELD, true);
+      }
+      out.writeMessage(RESULT_FIELD, this.result);
+      out.checkNoSpaceLeft();
+    } catch (IOException e) {
+      throw new IllegalStateException("Serializing to a byte array threw an IOException.", e);
+    }
+    return bytes;
+  }
+
+  public static QueryResultChunk parseFrom(InputStream stream) throws IOException {
+    final CodedInputStream in = CodedInputStream.newInstance(stream);
+    long sequence = 0;
+    String category = "";
+    String retriever = "";
+    boolean last = false;
+    CineastGrpc.SimilarityQueryResult result = null;
+    int tag;
+    while ((tag = in.readTag()) != 0) {
+      switch (WireFormat.getTagFieldNumber(tag)) {
+        case SEQUENCE_FIELD:
+          sequence = in.readUInt64();
+          break;
+        case CATEGORY_FIELD:
+          category = in.readStringRequireUtf8();
+          break;
+        case RETRIEVER_FIELD:
+          retriever = in.readStringRequireUtf8();
+          break;
+        case FINAL_FIELD:
+          last = in.readBool();
+          break;
+        case RESULT_FIELD:
+          result = CineastGrpc.SimilarityQueryResult.parseFrom(in.readBytes());
+          break;
+        default:
+          if (!in.skipField(tag)) {
+            return new QueryResultChunk(sequence, category, retriever, last, result);
+          }
+      }
+    }
+    return new QueryResultChunk(sequence, category, retriever, last, result);
+  }
+
+  @Override
+  public String toString() {
+    return "QueryResultChunk{sequence=" + sequence + ", category='" + category + "', retriever='" + retriever + "', final=" + last + ", results=" + result.getResultsCount() + "}";
+  }
+}
@@ -3,6 +3,7 @@
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.Arrays;
+import java.util.List;
 import org.apache.logging.log4j.LogManager;
 
 public class FileSystemThumbnailResolver implements ThumbnailResolver {
@@ -14,6 +15,34 @@ public FileSystemThumbnailResolver(File baseFolder) {
     this.baseFolder = baseFolder;
   }
 
+  /**
+   * Returns the paths (relative to the thumbnail folder and separated by '/') at which the thumbnail for the given segment ID may be found, in order of preference.
+   *
+   * @param segmentId The segment ID to generate candidates for.
+   * @return List of candidate paths; empty, if the segment ID is invalid.
+   */
+  public static List<String> candidates(String segmentId) {
+    String[] split = segmentId.split("_");
+    if (split.length < 3) {
+      return List.of();
+    }
+    String joined = split[0] + "_" + String.join("_", Arrays.copyOfRange(split, 1, split.length - 1));
+    return List.of(
+        split[0] + "_" + split[1] + "/" + split[2] + ".jpg",
+        split[0] + "_" + split[1] + "/" + segmentId + ".jpg",
+        joined + "/" + segmentId + ".jpg",
+        joined + "/" + segmentId + ".png",
+        split[0] + "_" + split[1] + "/" + split[2] + ".png",
+        split[0] + "_" + split[1] + "/" + segmentId + ".png",
+        split[1] + "/" + split[2] + ".jpg",
+        split[1] + "/" + split[2] + ".png",
+        split[1] + "/" + split[1] + "_" + split[2] + ".jpg",
+        split[1] + "/" + split[1] + "_" + split[2] + ".png",
+        split[1] + "/shot" + split[1] + "_" + split[2] + ".jpg",
+        split[1] + "/shot" + split[1] + "_" + split[2] + ".png"
+    );
+  }
+
   @Override
   public ResolutionResult resolve(String segmentId) {
 
@@ -22,28 +51,14 @@ public ResolutionResult resolve(String segmentId) {
       return null;
     }
 
-    String[] split = segmentId.split("_");
-    if (split.length < 3) {
+    List<String> candidates = candidates(segmentId);
+    if (candidates.isEmpty()) {
       LOGGER.error("invalid segment id {}", segmentId);
       return null;
     }
 
-    File[] candidates = new File[]{
-        new File(baseFolder, split[0] + "_" + split[1] + "/" + split[2] + ".jpg"),
-        new File(baseFolder, split[0] + "_" + split[1] + "/" + segmentId + ".jpg"),
-        new File(baseFolder, split[0] + "_" + String.join("_", Arrays.copyOfRange(split, 1, split.length - 1)) + "/" + segmentId + ".jpg"),
-        new File(baseFolder, split[0] + "_" + String.join("_", Arrays.copyOfRange(split, 1, split.length - 1)) + "/" + segmentId + ".png"),
-        new File(baseFolder, split[0] + "_" + split[1] + "/" + split[2] + ".png"),
-        new File(baseFolder, split[0] + "_" + split[1] + "/" + segmentId + ".png"),
-        new File(baseFolder, split[1] + "/" + split[2] + ".jpg"),
-        new File(baseFolder, split[1] + "/" + split[2] + ".png"),
-        new File(baseFolder, split[1] + "/" + split[1] + "_" + split[2] + ".jpg"),
-        new File(baseFolder, split[1] + "/" + split[1] + "_" + split[2] + ".png"),
-        new File(baseFolder, split[1] + "/shot" + split[1] + "_" + split[2] + ".jpg"),
-        new File(baseFolder, split[1] + "/shot" + split[1] + "_" + split[2] + ".png"),
-    };
-
-    for (File candidate : candidates) {
+    for (String path : candidates) {
+      File candidate = new File(baseFolder, path);
       if (candidate.exists() && candidate.canRead()) {
         try {
           return new ResolutionResult(candidate);
@@ -0,0 +1,348 @@
+package org.vitrivr.cineast.api.rest.resolvers;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A {@link ThumbnailResolver} that resolves thumbnails against an in-memory index of the thumbnail folder instead of probing the file system for every request.
+ * <p>
+ * The index maps the path of every thumbnail (relative to the thumbnail folder) to its size and time of last modification. It is built by a directory scan upon startup and maintained incrementally through a {@link WatchService}. Segment IDs are resolved by looking up the same candidate paths as {@link FileSystemThumbnailResolver} (in the same order) in the index. Optionally, the index can be persisted to disk upon {@link #close()}, so that a restarted instance can serve requests while the initial scan is still running.
+ */
+public class IndexedThumbnailResolver implements ThumbnailResolver, AutoCloseable {
+
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * The folder containing the thumbnails.
+   */
+  private final Path baseFolder;
+
+  /**
+   * Optional file the index is persisted to. May be null.
+   */
+  private final Path indexFile;
+
+  /**
+   * The index; maps relative paths to {@link IndexEntry}s.
+   */
+  private final ConcurrentHashMap<String, IndexEntry> index = new ConcurrentHashMap<>();
+
+  /**
+   * Fallback used until the initial scan has completed.
+   */
+  private final FileSystemThumbnailResolver fallback;
+
+  /**
+   * The {@link WatchService} used to keep the index up to date.
+   */
+  private final WatchService watchService;
+
+  /**
+   * Directories registered with the {@link WatchService}. Only accessed by the watcher thread.
+   */
+  private final Map<WatchKey, Path> directories = new HashMap<>();
+
+  /**
+   * The thread that scans the folder and processes file system events.
+   */
+  private final Thread watcher;
+
+  /**
+   * Flag indicating whether the initial scan has completed.
+   */
+  private volatile boolean ready = false;
+
+  public IndexedThumbnailResolver(File baseFolder) throws IOException {
+    this(baseFolder, null);
+  }
+
+  /**
+   * Constructor for {@link IndexedThumbnailResolver}.
+   *
+   * @param baseFolder The folder containing the thumbnails.
+   * @param indexFile  Optional file the index is loaded from and persisted to. May be null.
+   * @throws IOException If the {@link WatchService} could not be created.
+   */
+  public IndexedThumbnailResolver(File baseFolder, File indexFile) throws IOException {
+    this(baseFolder, indexFile, r -> {
+      final Thread thread = new Thread(r, "thumbnail-index-watcher");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Constructor for {@link IndexedThumbnailResolver}.
+   *
+   * @param baseFolder The folder containing the thumbnails.
+   * @param indexFile  Optional file the index is loaded from and persisted to. May be null.
+   * @param threads    Creates the thread that scans the folder and processes file system events.
+   * @throws IOException If the {@link WatchService} could not be created.
+   */
+  IndexedThumbnailResolver(File baseFolder, File indexFile, ThreadFactory threads) throws IOException {
+    this.baseFolder = baseFolder.toPath().toAbsolutePath().normalize();
+    this.indexFile = indexFile == null ? null : indexFile.toPath();
+    this.fallback = new FileSystemThumbnailResolver(baseFolder);
+    if (this.indexFile != null && Files.isRegularFile(this.indexFile)) {
+      this.load();
+    }
+    this.watchService = this.baseFolder.getFileSystem().newWatchService();
+    this.watcher = threads.newThread(this::watch);
+    this.watcher.start();
+  }
+
+  @Override
+  public ResolutionResult resolve(String segmentId) {
+    if (segmentId == null) {
+      LOGGER.error("no segment id provided");
+      return null;
+    }
+
+    List<String> candidates = FileSystemThumbnailResolver.candidates(segmentId);
+    if (candidates.isEmpty()) {
+      LOGGER.error("invalid segment id {}", segmentId);
+      return null;
+    }
+
+    for (String path : candidates) {
+      IndexEntry entry = this.index.get(path);
+      if (entry != null) {
+        return new ResolutionResult(this.baseFolder.resolve(path).toFile(), entry.size(), entry.lastModified());
+      }
+    }
+
+    /* Until the initial scan has completed, the index may be incomplete. */
+    if (!this.ready) {
+      return this.fallback.resolve(segmentId);
+    }
+    LOGGER.error("no thumbnail found for segment id {}", segmentId);
+    return null;
+  }
+
+  /**
+   * Returns the number of files currently contained in the index.
+   */
+  public int size() {
+    return this.index.size();
+  }
+
+  /**
+   * Returns true once the initial scan of the thumbnail folder has completed.
+   */
+  public boolean isReady() {
+    return this.ready;
+  }
+
+  @Override
+  public void close() {
+    try {
+      this.watchService.close();
+    } catch (IOException e) {
+      LOGGER.warn("Failed to close watch service for {}: {}", this.baseFolder, e.getMessage());
+    }
+    try {
+      this.watcher.join(1000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (this.indexFile != null && this.ready) {
+      this.persist();
+    }
+  }
+
+  /**
+   * Main loop of the watcher thread: Performs the initial scan and processes file system events thereafter.
+   */
+  private void watch() {
+    final long start = System.currentTimeMillis();
+    this.rescan();
+    this.ready = true;
+    LOGGER.info("Indexed {} thumbnails in {} in {} ms.", this.index.size(), this.baseFolder, System.currentTimeMillis() - start);
+
+    while (true) {
+      final WatchKey key;
+      try {
+        key = this.watchService.take();
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+      final Path directory = this.directories.get(key);
+      for (WatchEvent<?> event : key.pollEvents()) {
+        if (event.kind() == OVERFLOW) {
+          LOGGER.debug("Watch service overflow for {}; rescanning.", this.baseFolder);
+          this.rescan();
+          continue;
+        }
+        if (directory == null) {
+          continue;
+        }
+        final Path child = directory.resolve((Path) event.context());
+        if (event.kind() == ENTRY_DELETE) {
+          this.remove(child);
+        } else if (event.kind() == ENTRY_CREATE || event.kind() == ENTRY_MODIFY) {
+          if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+            if (event.kind() == ENTRY_CREATE) {
+              this.scan(child, this.index);
+            }
+          } else {
+            this.update(child);
+          }
+        }
+      }
+      if (!key.reset()) {
+        this.directories.remove(key);
+      }
+    }
+  }
+
+  /**
+   * Rescans the entire thumbnail folder and replaces the content of the index.
+   */
+  private void rescan() {
+    final Map<String, IndexEntry> scanned = new HashMap<>();
+    this.scan(this.baseFolder, scanned);
+    this.index.keySet().retainAll(scanned.keySet());
+    this.index.putAll(scanned);
+  }
+
+  /**
+   * Scans the provided directory recursively, registers all directories with the {@link WatchService} and adds all thumbnails to the provided map.
+   */
+  private void scan(Path directory, Map<String, IndexEntry> target) {
+    try {
+      Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+          try {
+            directories.put(dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+          } catch (IOException | ClosedWatchServiceException e) {
+            LOGGER.warn("Failed to watch {}: {}", dir, e.getMessage());
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          if (attrs.isRegularFile() && isThumbnail(file)) {
+            target.put(relativize(file), new IndexEntry(attrs.size(), attrs.lastModifiedTime().toMillis()));
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+          LOGGER.debug("Failed to index {}: {}", file, exc.getMessage());
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException e) {
+      LOGGER.error("Failed to scan thumbnail folder {}: {}", directory, e.getMessage());
+    }
+  }
+
+  /**
+   * Updates the index entry for a single file.
+   */
+  private void update(Path file) {
+    if (!isThumbnail(file)) {
+      return;
+    }
+    try {
+      final BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+      if (attrs.isRegularFile()) {
+        this.index.put(this.relativize(file), new IndexEntry(attrs.size(), attrs.lastModifiedTime().toMillis()));
+      }
+    } catch (IOException e) {
+      this.index.remove(this.relativize(file));
+    }
+  }
+
+  /**
+   * Removes a file or all files below a directory from the index.
+   */
+  private void remove(Path path) {
+    final String relative = this.relativize(path);
+    if (this.index.remove(relative) == null) {
+      final String prefix = relative + "/";
+      this.index.keySet().removeIf(k -> k.startsWith(prefix));
+    }
+  }
+
+  /**
+   * Converts an absolute path into the '/'-separated path relative to the thumbnail folder.
+   */
+  private String relativize(Path path) {
+    final String relative = this.baseFolder.relativize(path).toString();
+    return File.separatorChar == '/' ? relative : relative.replace(File.separatorChar, '/');
+  }
+
+  /**
+   * Loads a previously persisted index.
+   */
+  private void load() {
+    try (BufferedReader reader = Files.newBufferedReader(this.indexFile, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        final String[] split = line.split("\t", 3);
+        if (split.length == 3) {
+          this.index.put(split[2], new IndexEntry(Long.parseLong(split[0]), Long.parseLong(split[1])));
+        }
+      }
+      LOGGER.info("Loaded {} thumbnails from index {}.", this.index.size(), this.indexFile);
+    } catch (IOException | NumberFormatException e) {
+      LOGGER.warn("Failed to load thumbnail index {}: {}", this.indexFile, e.getMessage());
+      this.index.clear();
+    }
+  }
+
+  /**
+   * Persists the index to the configured index file.
+   */
+  private void persist() {
+    try (BufferedWriter writer = Files.newBufferedWriter(this.indexFile, StandardCharsets.UTF_8)) {
+      for (Map.Entry<String, IndexEntry> e : this.index.entrySet()) {
+        writer.write(e.getValue().size() + "\t" + e.getValue().lastModified() + "\t" + e.getKey());
+        writer.newLine();
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Failed to persist thumbnail index {}: {}", this.indexFile, e.getMessage());
+    }
+  }
+
+  private static boolean isThumbnail(Path file) {
+    final String name = file.getFileName().toString();
+    return name.endsWith(".jpg") || name.endsWith(".png");
+  }
+
+  /**
+   * Size and time of last modification of an indexed thumbnail.
+   */
+  private record IndexEntry(long size, long lastModified) {
+
+  }
+}
@@ -9,17 +9,78 @@
 public class ResolutionResult {
 
   public final String mimeType;
+
+  /**
+   * The content as {@link InputStream}. Is null for results backed by a {@link File}, use {@link #openStream()} instead.
+   */
   public final InputStream stream;
 
+  /**
+   * The {@link File} backing this {@link ResolutionResult} or null, if the content is only available as stream.
+   */
+  public final File file;
+
+  /**
+   * Size of the content in bytes or -1 if unknown.
+   */
+  public final long length;
+
+  /**
+   * Time of last modification in milliseconds since the epoch or -1 if unknown.
+   */
+  public final long lastModified;
+
   public ResolutionResult(String mimeType, InputStream stream) {
     this.mimeType = mimeType;
     this.stream = stream;
+    this.file = null;
+    this.length = -1L;
+    this.lastModified = -1L;
+  }
+
+  /**
+   * Creates a {@link ResolutionResult} for a {@link File} whose size and time of last modification are already known (e.g. from an index).
+   *
+   * @param file         The {@link File} to serve.
+   * @param length       Size of the file in bytes.
+   * @param lastModified Time of last modification in milliseconds since the epoch.
+   */
+  public ResolutionResult(File file, long length, long lastModified) {
+    this.mimeType = MimeTypeHelper.getContentType(file);
+    this.stream = null;
+    this.file = file;
+    this.length = length;
+    this.lastModified = lastModified;
   }
 
   public ResolutionResult(File file) throws FileNotFoundException {
-    this(
-        MimeTypeHelper.getContentType(file),
-        new FileInputStream(file)
-    );
+    this(checkReadable(file), file.length(), file.lastModified());
+  }
+
+  /**
+   * Returns true if this {@link ResolutionResult} is backed by a {@link File} of known size and time of last modification.
+   */
+  public boolean isFileBacked() {
+    return this.file != null;
+  }
+
+  /**
+   * Opens and returns an {@link InputStream} for the content of this {@link ResolutionResult}.
+   *
+   * @return {@link InputStream}
+   * @throws FileNotFoundException If the backing file no longer exists.
+   */
+  public InputStream openStream() throws FileNotFoundException {
+    if (this.stream != null) {
+      return this.stream;
+    }
+    return new FileInputStream(this.file);
+  }
+
+  private static File checkReadable(File file) throws FileNotFoundException {
+    if (!file.isFile() || !file.canRead()) {
+      throw new FileNotFoundException(file.getPath() + " (not a readable file)");
+    }
+    return file;
   }
 }
@@ -1,17 +1,79 @@
 package org.vitrivr.cineast.api.rest.routes;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.ByteStreams;
 import io.javalin.http.Context;
 import io.javalin.http.Handler;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.vitrivr.cineast.api.rest.resolvers.ResolutionResult;
 import org.vitrivr.cineast.api.rest.resolvers.Resolver;
 
+/**
+ * Serves the content resolved by a {@link Resolver}.
+ * <p>
+ * Content backed by a file is served with ETag and Last-Modified headers, supports conditional GET (If-None-Match, If-Modified-Since) and single byte-range requests, optionally conditional on If-Range. Small files are kept in a bounded in-memory cache of hot bytes.
+ */
 public class ResolvedContentRoute implements Handler {
 
-  private Resolver resolver;
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * Default size of the hot-bytes cache in bytes.
+   */
+  public static final long DEFAULT_CACHE_SIZE = 64L * 1024L * 1024L;
+
+  /**
+   * Default size of the largest file that is eligible for the hot-bytes cache in bytes.
+   */
+  public static final int DEFAULT_MAX_CACHED_FILE_SIZE = 256 * 1024;
+
+  private final Resolver resolver;
+
+  /**
+   * Cache of file contents, keyed by path, size and time of last modification. Null if caching is disabled.
+   */
+  private final Cache<String, byte[]> cache;
+
+  /**
+   * Size of the largest file that is eligible for the cache.
+   */
+  private final int maxCachedFileSize;
 
   public ResolvedContentRoute(Resolver resolver) {
+    this(resolver, DEFAULT_CACHE_SIZE, DEFAULT_MAX_CACHED_FILE_SIZE);
+  }
+
+  /**
+   * Constructor for {@link ResolvedContentRoute}.
+   *
+   * @param resolver          The {@link Resolver} used to resolve IDs.
+   * @param cacheSize         Maximum size of the hot-bytes cache in bytes. A value <= 0 disables caching.
+   * @param maxCachedFileSize Size of the largest file that is eligible for caching in bytes.
+   */
+  public ResolvedContentRoute(Resolver resolver, long cacheSize, int maxCachedFileSize) {
     this.resolver = resolver;
+    this.maxCachedFileSize = maxCachedFileSize;
+    if (cacheSize > 0 && maxCachedFileSize > 0) {
+      this.cache = CacheBuilder.newBuilder().maximumWeight(cacheSize).<String, byte[]>weigher((k, v) -> v.length).build();
+    } else {
+      this.cache = null;
+    }
   }
 
   @Override
@@ -37,7 +99,220 @@ public void handle(Context ctx) throws Exception {
     }
 
     ctx.header("Cache-Control", "public, max-age=86400");
-    ctx.seekableStream(rresult.stream, rresult.mimeType);
-    ctx.status(200);
+    if (!rresult.isFileBacked()) {
+      ctx.seekableStream(rresult.stream, rresult.mimeType);
+      ctx.status(200);
+      return;
+    }
+
+    try {
+      try {
+        this.serve(ctx, rresult);
+      } catch (StaleFileException e) {
+        /* The size and time of last modification were resolved from an outdated index; serve the file as it is now. */
+        LOGGER.debug("Resolved file for {} changed after it was resolved; re-reading its attributes.", id);
+        this.serve(ctx, new ResolutionResult(rresult.file));
+      }
+    } catch (FileNotFoundException e) {
+      LOGGER.warn("Resolved file for {} is no longer available: {}", id, e.getMessage());
+      ctx.status(404);
+      ctx.result("Not found");
+    } catch (StaleFileException e) {
+      LOGGER.warn("Resolved file for {} is being modified.", id);
+      ctx.header("Retry-After", "1");
+      ctx.status(503);
+      ctx.result("Service unavailable");
+    }
+  }
+
+  /**
+   * Serves a file-backed {@link ResolutionResult}, answering conditional and range requests.
+   *
+   * @throws StaleFileException If the file no longer has the size and time of last modification it was resolved with; no content has been set in that case.
+   */
+  private void serve(Context ctx, ResolutionResult rresult) throws IOException {
+    /* Validators for conditional requests. */
+    final String etag = "\"" + Long.toHexString(rresult.length) + "-" + Long.toHexString(rresult.lastModified) + "\"";
+    ctx.header("ETag", etag);
+    ctx.header("Last-Modified", formatDate(rresult.lastModified));
+    ctx.header("Accept-Ranges", "bytes");
+    if (isNotModified(ctx, etag, rresult.lastModified)) {
+      ctx.status(304);
+      return;
+    }
+
+    /* Determine requested range (if any). */
+    final long length = rresult.length;
+    long[] range = null;
+    if (isRangeApplicable(ctx.header("If-Range"), etag, rresult.lastModified)) {
+      range = parseRange(ctx.header("Range"), length);
+      if (range != null && range.length == 0) {
+        ctx.header("Content-Range", "bytes */" + length);
+        ctx.status(416);
+        return;
+      }
+    }
+
+    if (range == null) {
+      final InputStream stream = this.open(rresult, 0, length);
+      ctx.contentType(rresult.mimeType);
+      ctx.result(stream);
+      ctx.status(200);
+    } else {
+      final InputStream stream = this.open(rresult, range[0], range[1] - range[0] + 1);
+      ctx.contentType(rresult.mimeType);
+      ctx.header("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+      ctx.result(stream);
+      ctx.status(206);
+    }
+  }
+
+  /**
+   * Opens an {@link InputStream} for the given section of the resolved file, using the hot-bytes cache where possible.
+   *
+   * @throws StaleFileException If the file has changed since it was resolved.
+   */
+  private InputStream open(ResolutionResult rresult, long offset, long count) throws IOException {
+    if (this.cache != null && rresult.length <= this.maxCachedFileSize) {
+      final String key = rresult.file.getPath() + ":" + rresult.length + ":" + rresult.lastModified;
+      try {
+        final byte[] bytes = this.cache.get(key, () -> read(rresult));
+        return new ByteArrayInputStream(bytes, (int) offset, (int) count);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        } else {
+          throw new IOException(e.getCause());
+        }
+      }
+    }
+    return stream(rresult, offset, count);
+  }
+
+  /**
+   * Opens an {@link InputStream} for the given section of the resolved file, bypassing the hot-bytes cache.
+   *
+   * @throws StaleFileException If the file has shrunk below the given offset since it was resolved.
+   */
+  static InputStream stream(ResolutionResult rresult, long offset, long count) throws IOException {
+    final InputStream stream = rresult.openStream();
+    try {
+      ByteStreams.skipFully(stream, offset);
+    } catch (EOFException e) {
+      stream.close();
+      throw new StaleFileException();
+    }
+    return ByteStreams.limit(stream, count);
+  }
+
+  /**
+   * Reads the resolved file for the hot-bytes cache. The file is checked against the size and time of last modification it was resolved with after reading, since the bytes are cached under these values.
+   *
+   * @throws StaleFileException If the file has changed since it was resolved.
+   */
+  static byte[] read(ResolutionResult rresult) throws IOException {
+    final Path path = rresult.file.toPath();
+    final byte[] bytes = Files.readAllBytes(path);
+    if (bytes.length != rresult.length || Files.getLastModifiedTime(path).toMillis() != rresult.lastModified) {
+      throw new StaleFileException();
+    }
+    return bytes;
+  }
+
+  /**
+   * Evaluates the If-Range header of the request, which is either an entity tag or an HTTP date. The range is only served if the validator matches the current representation exactly: a strong ETag or the date of last modification (at the resolution of HTTP dates).
+   *
+   * @return True if the Range header should be evaluated, false if the whole resource should be served.
+   */
+  static boolean isRangeApplicable(String ifRange, String etag, long lastModified) {
+    if (ifRange == null) {
+      return true;
+    }
+    final String validator = ifRange.trim();
+    if (validator.startsWith("\"") || validator.startsWith("W/")) {
+      return validator.equals(etag);
+    }
+    try {
+      final long date = ZonedDateTime.parse(validator, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+      return date / 1000 == lastModified / 1000;
+    } catch (DateTimeParseException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Evaluates the If-None-Match and If-Modified-Since headers of the request. If-None-Match takes precedence.
+   */
+  private static boolean isNotModified(Context ctx, String etag, long lastModified) {
+    final String ifNoneMatch = ctx.header("If-None-Match");
+    if (ifNoneMatch != null) {
+      for (String tag : ifNoneMatch.split(",")) {
+        final String trimmed = tag.trim();
+        if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    final String ifModifiedSince = ctx.header("If-Modified-Since");
+    if (ifModifiedSince != null) {
+      try {
+        final long since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        return lastModified / 1000 <= since / 1000;
+      } catch (DateTimeParseException e) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Parses a Range header for a resource of the given length. Only single ranges are supported, other requests are served in full.
+   *
+   * @return Null if the whole resource should be served, an empty array if the range is not satisfiable and an array [first, last] (inclusive) otherwise.
+   */
+  static long[] parseRange(String header, long length) {
+    if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+      return null;
+    }
+    final String spec = header.substring(6).trim();
+    final int dash = spec.indexOf('-');
+    if (dash < 0) {
+      return null;
+    }
+    try {
+      final String first = spec.substring(0, dash).trim();
+      final String last = spec.substring(dash + 1).trim();
+      if (first.isEmpty()) {
+        /* Suffix range: The last n bytes. */
+        final long suffix = Long.parseLong(last);
+        if (suffix <= 0) {
+          return new long[0];
+        }
+        return new long[]{Math.max(0, length - suffix), length - 1};
+      }
+      final long start = Long.parseLong(first);
+      final long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+      if (start >= length || start > end) {
+        return new long[0];
+      }
+      return new long[]{start, end};
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  static String formatDate(long millis) {
+    return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC));
+  }
+
+  /**
+   * Signals that a file changed between its resolution and reading it.
+   */
+  static final class StaleFileException extends IOException {
+
+    private StaleFileException() {
+      super("File changed after it was resolved.");
+    }
   }
 }
@@ -27,6 +27,7 @@
 import org.vitrivr.cineast.core.data.Pair;
 import org.vitrivr.cineast.core.data.StringDoublePair;
 import org.vitrivr.cineast.core.data.TemporalObject;
+import org.vitrivr.cineast.core.data.TopKCollector;
 import org.vitrivr.cineast.core.data.providers.primitive.PrimitiveTypeProvider;
 import org.vitrivr.cineast.core.data.providers.primitive.StringTypeProvider;
 import org.vitrivr.cineast.core.data.query.containers.AbstractQueryTermContainer;
@@ -41,6 +42,7 @@
 import org.vitrivr.cineast.core.util.math.MathHelper;
 import org.vitrivr.cineast.standalone.config.Config;
 import org.vitrivr.cineast.standalone.config.RetrievalRuntimeConfig;
+import org.vitrivr.cineast.standalone.runtime.RetrievalListener;
 import org.vitrivr.cineast.standalone.util.ContinuousRetrievalLogic;
 
 //TODO maybe this should be moved to core?
@@ -186,33 +188,33 @@ public static List<StringDoublePair> retrieveCategory(ContinuousRetrievalLogic c
 
       float weight = MathHelper.limit(qc.getWeight(), -1f, 1f);
 
-      retrieveAndWeight(continuousRetrievalLogic, category, scoreBySegmentId, qc, qconf, weight);
+      retrieveAndWeight(continuousRetrievalLogic, category, scoreBySegmentId, qc, qconf, weight, RetrievalListener.NONE);
 
     }
-    final List<StringDoublePair> list = new ArrayList<>(scoreBySegmentId.size());
+    // FIXME: Using an arbitrary query config to limit results is prone to errors
+    final int MAX_RESULTS = queryContainers.get(0).second.getMaxResults().orElse(Config.sharedConfig().getRetriever().getMaxResults());
+    final TopKCollector<StringDoublePair> results = TopKCollector.largest(Math.max(0, Math.min(MAX_RESULTS, scoreBySegmentId.size())));
     scoreBySegmentId.forEach((ObjectDoublePredicate<? super String>) (segmentId, score) -> {
-      if (score > 0) {
-        list.add(new StringDoublePair(segmentId, score));
+      if (score > 0 && results.accepts(score)) {
+        results.offer(score, new StringDoublePair(segmentId, score));
       }
       return true;
     });
-
-    list.sort(StringDoublePair.COMPARATOR);
-
-    // FIXME: Using an arbitrary query config to limit results is prone to errors
-    final int MAX_RESULTS = queryContainers.get(0).second.getMaxResults().orElse(Config.sharedConfig().getRetriever().getMaxResults());
-    List<StringDoublePair> resultList = list;
-    if (list.size() > MAX_RESULTS) {
-      resultList = resultList.subList(0, MAX_RESULTS);
-    }
-    return resultList;
+    return results.sortedPayloads();
   }
 
   public static List<StringDoublePair> retrieve(ContinuousRetrievalLogic continuousRetrievalLogic, AbstractQueryTermContainer queryTermContainer, ReadableQueryConfig config, String category) {
+    return retrieve(continuousRetrievalLogic, queryTermContainer, config, category, RetrievalListener.NONE);
+  }
+
+  /**
+   * Retrieves the weighted results for a single query term container and category, reporting the raw results of every retriever to the given {@link RetrievalListener} as they become available.
+   */
+  public static List<StringDoublePair> retrieve(ContinuousRetrievalLogic continuousRetrievalLogic, AbstractQueryTermContainer queryTermContainer, ReadableQueryConfig config, String category, RetrievalListener listener) {
     float weight = MathHelper.limit(queryTermContainer.getWeight(), -1f, 1f);
     ObjectDoubleHashMap<String> scoreBySegmentId = new ObjectDoubleHashMap<>();
 
-    retrieveAndWeight(continuousRetrievalLogic, category, scoreBySegmentId, queryTermContainer, config, weight);
+    retrieveAndWeight(continuousRetrievalLogic, category, scoreBySegmentId, queryTermContainer, config, weight, listener);
 
     final List<StringDoublePair> list = new ArrayList<>(scoreBySegmentId.size());
     scoreBySegmentId.forEach((ObjectDoublePredicate<? super String>) (segmentId, score) -> {
@@ -225,12 +227,12 @@ public static List<StringDoublePair> retrieve(ContinuousRetrievalLogic continuou
     return list;
   }
 
-  private static void retrieveAndWeight(ContinuousRetrievalLogic continuousRetrievalLogic, String category, ObjectDoubleHashMap<String> scoreBySegmentId, AbstractQueryTermContainer qc, ReadableQueryConfig qconf, float weight) {
+  private static void retrieveAndWeight(ContinuousRetrievalLogic continuousRetrievalLogic, String category, ObjectDoubleHashMap<String> scoreBySegmentId, AbstractQueryTermContainer qc, ReadableQueryConfig qconf, float weight, RetrievalListener listener) {
     List<SegmentScoreElement> scoreResults;
     if (qc.hasId()) {
-      scoreResults = continuousRetrievalLogic.retrieve(qc.getId(), category, qconf);
+      scoreResults = continuousRetrievalLogic.retrieve(qc.getId(), category, qconf, listener);
     } else {
-      scoreResults = continuousRetrievalLogic.retrieve(qc, category, qconf);
+      scoreResults = continuousRetrievalLogic.retrieve(qc, category, qconf, listener);
     }
 
     for (SegmentScoreElement element : scoreResults) {
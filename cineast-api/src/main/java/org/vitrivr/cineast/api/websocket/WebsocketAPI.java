@@ -4,9 +4,6 @@
 import java.util.HashMap;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -20,6 +17,8 @@
 import org.vitrivr.cineast.api.messages.general.AnyMessage;
 import org.vitrivr.cineast.api.messages.interfaces.Message;
 import org.vitrivr.cineast.api.messages.interfaces.MessageType;
+import org.vitrivr.cineast.api.messages.interfaces.Query;
+import org.vitrivr.cineast.api.messages.result.QueryError;
 import org.vitrivr.cineast.api.websocket.handlers.StatusMessageHandler;
 import org.vitrivr.cineast.api.websocket.handlers.interfaces.WebsocketMessageHandler;
 import org.vitrivr.cineast.api.websocket.handlers.queries.MoreLikeThisQueryMessageHandler;
@@ -48,9 +47,14 @@ public class WebsocketAPI {
   private static final Queue<Session> SESSIONS = new ConcurrentLinkedQueue<>();
 
   /**
-   * A cached ThreadPoolExecutor used to execute tasks submitted and handled by the WebSocket API
+   * The {@link WebsocketQueryExecutor} used to execute queries submitted through the WebSocket API. Limits the number of concurrent queries globally and per session.
    */
-  private static final ExecutorService EXECUTORS = new ThreadPoolExecutor(2, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>());
+  private static final WebsocketQueryExecutor EXECUTOR = new WebsocketQueryExecutor(
+      Config.sharedConfig().getApi().getWebsocketQueryThreads(),
+      Config.sharedConfig().getApi().getWebsocketMaxQueriesPerSession(),
+      Config.sharedConfig().getApi().getWebsocketQueryQueueSize(),
+      Config.sharedConfig().getApi().getWebsocketAdmissionTimeout()
+  );
 
   /**
    * List of stateless {@link WebsocketMessageHandler} classes for the API.
@@ -69,16 +73,10 @@ public class WebsocketAPI {
   private JacksonJsonProvider reader = new JacksonJsonProvider();
 
   /**
-   * Shuts down this WebsocketAPIs ThreadPoolExecutor.
+   * Shuts down this WebsocketAPIs {@link WebsocketQueryExecutor}.
    */
   public void shutdown() {
-    EXECUTORS.shutdown();
-    try {
-      EXECUTORS.awaitTermination(10, TimeUnit.SECONDS);
-    } catch (InterruptedException e) {
-      e.printStackTrace();
-    }
-    EXECUTORS.shutdownNow();
+    EXECUTOR.shutdown(10, TimeUnit.SECONDS);
   }
 
   /**
@@ -102,6 +100,8 @@ public void connected(Session session) {
   @OnWebSocketClose
   public void closed(Session session, int statusCode, String reason) {
     SESSIONS.remove(session);
+    EXECUTOR.closed(session);
+    WebsocketSessionWriter.closed(session);
     LOGGER.debug("Connection of session closed (Code: {}, Reason: {}).", statusCode, reason);
   }
 
@@ -114,7 +114,7 @@ public void onWebSocketException(Session session, Throwable error) {
   }
 
   /**
-   * Handles incoming messages. This method determines the message-type of the message. If that type is known, the message is routed to a pre-registered message handler.
+   * Handles incoming messages. This method determines the message-type of the message. If that type is known, the message is routed to a pre-registered message handler. Queries are subject to admission control by the {@link WebsocketQueryExecutor}; rejected queries are answered with a {@link QueryError}.
    *
    * @param session Session the message belongs to.
    * @param message String message.
@@ -126,9 +126,19 @@ public void message(Session session, String message) throws IOException {
     if (testMessage != null) {
       final MessageType type = testMessage.messageType();
       final WebsocketMessageHandler handler = STATELESS_HANDLERS.get(type);
-      if (handler != null) {
-        EXECUTORS.execute(() -> handler.handle(session, this.reader.toObject(message, type.getMessageClass())));
+      if (handler == null) {
+        return;
+      }
+      final Message typedMessage = this.reader.toObject(message, type.getMessageClass());
+      if (!(typedMessage instanceof Query query)) {
+        handler.handle(session, typedMessage);
+        return;
       }
+      EXECUTOR.submit(session, () -> handler.handle(session, query), reason -> {
+        final String queryId = query.config() == null ? null : query.config().getQueryId();
+        LOGGER.warn("Rejected query {} of type {} ({}).", queryId, type, reason);
+        WebsocketSessionWriter.forSession(session).send(new QueryError(queryId, "Query was rejected by the server: " + reason));
+      });
     }
   }
 }
@@ -0,0 +1,341 @@
+package org.vitrivr.cineast.api.websocket;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.jetty.websocket.api.Session;
+import org.vitrivr.cineast.standalone.monitoring.WebsocketMonitor;
+
+/**
+ * Executes the queries submitted through the {@link WebsocketAPI} on a bounded number of threads.
+ * <p>
+ * At most as many queries execute at the same time as there are threads, and every session may only have a limited number of those. Queries beyond either limit wait in a FIFO for at most the admission timeout, after which they are rejected. The number of waiting queries is bounded as well; once that bound is reached, new queries are rejected immediately.
+ */
+public class WebsocketQueryExecutor {
+
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * Reasons reported to the rejection callback (and as metric label).
+   */
+  public static final String REJECTED_QUEUE_FULL = "queue_full";
+  public static final String REJECTED_TIMEOUT = "timeout";
+  public static final String REJECTED_SHUTDOWN = "shutdown";
+
+  /**
+   * The thread pool executing the queries. Only admitted queries are handed to it and at most as many queries are admitted as it has threads, so its queue never holds more than that number of tasks.
+   */
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * Used to expire waiting queries.
+   */
+  private final ScheduledExecutorService timer;
+
+  /**
+   * Used to notify clients about queries that expired, so that a slow client does not hold up the timer.
+   */
+  private final ExecutorService notifier;
+
+  /**
+   * Per-session state of admission control. The states are guarded by {@link #lock}.
+   */
+  private final ConcurrentHashMap<Session, SessionState> sessions = new ConcurrentHashMap<>();
+
+  /**
+   * Queries waiting for admission (across all sessions) in the order of their submission. Guarded by {@link #lock}.
+   */
+  private final LinkedList<Admission> waiting = new LinkedList<>();
+
+  /**
+   * Number of queries admitted (across all sessions), i.e. handed to the thread pool and not yet finished. Guarded by {@link #lock}.
+   */
+  private int admitted = 0;
+
+  private final Object lock = new Object();
+
+  private final int threads;
+  private final int maxQueriesPerSession;
+  private final int maxWaiting;
+  private final long admissionTimeout;
+
+  /**
+   * Number of queries currently executing and waiting (across all sessions), for monitoring.
+   */
+  private final AtomicInteger running = new AtomicInteger();
+  private final AtomicInteger waitingCount = new AtomicInteger();
+
+  /**
+   * Constructor for {@link WebsocketQueryExecutor}.
+   *
+   * @param threads              Number of threads executing queries.
+   * @param maxQueriesPerSession Maximum number of queries executing concurrently per session.
+   * @param maxWaiting           Maximum number of queries waiting for admission (across all sessions).
+   * @param admissionTimeout     Time in milliseconds a query may wait for admission.
+   */
+  public WebsocketQueryExecutor(int threads, int maxQueriesPerSession, int maxWaiting, long admissionTimeout) {
+    this.threads = threads;
+    this.maxQueriesPerSession = maxQueriesPerSession;
+    this.maxWaiting = maxWaiting;
+    this.admissionTimeout = admissionTimeout;
+    final AtomicInteger counter = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+      Thread thread = new Thread(r, "ws-query-" + counter.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "ws-query-admission");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.notifier = Executors.newSingleThreadExecutor(r -> {
+      Thread thread = new Thread(r, "ws-query-rejection");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Submits a query for execution. The query is either started right away, queued or rejected. In the latter case, the rejection callback is invoked with the reason for rejection (possibly later and on another thread, if the query times out while waiting).
+   *
+   * @param session  The {@link Session} the query belongs to.
+   * @param query    The query to execute.
+   * @param rejected Callback invoked if the query is rejected.
+   * @return True if the query was started or queued, false if it was rejected right away.
+   */
+  public boolean submit(Session session, Runnable query, RejectionHandler rejected) {
+    final Admission admission;
+    boolean start = false;
+    synchronized (this.lock) {
+      final SessionState state = this.sessions.computeIfAbsent(session, s -> new SessionState());
+      admission = new Admission(state, query, rejected);
+      if (this.executor.isShutdown()) {
+        admission.rejected = REJECTED_SHUTDOWN;
+      } else if (this.admissible(state)) {
+        this.admit(admission);
+        start = true;
+      } else if (this.waiting.size() < this.maxWaiting) {
+        this.waiting.add(admission);
+        admission.timeout = this.timer.schedule(() -> this.expire(admission), this.admissionTimeout, TimeUnit.MILLISECONDS);
+      } else {
+        admission.rejected = REJECTED_QUEUE_FULL;
+      }
+      this.waitingCount.set(this.waiting.size());
+    }
+    if (start) {
+      this.start(admission);
+    }
+    this.report();
+    if (admission.rejected != null) {
+      this.reject(admission);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Removes all state associated with the given {@link Session} and drops the queries still waiting for it. Queries currently executing are not interrupted.
+   *
+   * @param session The {@link Session} that was closed.
+   */
+  public void closed(Session session) {
+    final List<Admission> dropped = new ArrayList<>();
+    synchronized (this.lock) {
+      final SessionState state = this.sessions.remove(session);
+      if (state == null) {
+        return;
+      }
+      final Iterator<Admission> iterator = this.waiting.iterator();
+      while (iterator.hasNext()) {
+        final Admission admission = iterator.next();
+        if (admission.state == state) {
+          iterator.remove();
+          dropped.add(admission);
+        }
+      }
+      this.waitingCount.set(this.waiting.size());
+    }
+    for (Admission admission : dropped) {
+      admission.timeout.cancel(false);
+    }
+    this.report();
+  }
+
+  /**
+   * Returns the number of queries currently executing.
+   */
+  public int getRunning() {
+    return this.running.get();
+  }
+
+  /**
+   * Returns the number of queries currently waiting for admission.
+   */
+  public int getWaiting() {
+    return this.waitingCount.get();
+  }
+
+  /**
+   * Shuts down this {@link WebsocketQueryExecutor}, waiting up to the given time for running queries to finish.
+   */
+  public void shutdown(long timeout, TimeUnit unit) {
+    this.timer.shutdownNow();
+    this.executor.shutdown();
+    try {
+      this.executor.awaitTermination(timeout, unit);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    this.executor.shutdownNow();
+    this.notifier.shutdownNow();
+  }
+
+  /**
+   * Returns true if a query of the given session may be admitted right now. Must be called while holding {@link #lock}.
+   */
+  private boolean admissible(SessionState state) {
+    return this.admitted < this.threads && state.running < this.maxQueriesPerSession;
+  }
+
+  /**
+   * Accounts for a query that is about to be handed to the thread pool. Must be called while holding {@link #lock}.
+   */
+  private void admit(Admission admission) {
+    this.admitted += 1;
+    admission.state.running += 1;
+  }
+
+  /**
+   * Hands an admitted query to the thread pool.
+   */
+  private void start(Admission admission) {
+    try {
+      this.executor.execute(() -> {
+        this.running.incrementAndGet();
+        this.report();
+        try {
+          admission.query.run();
+        } catch (Throwable t) {
+          LOGGER.error("Unhandled error during execution of WebSocket query.", t);
+        } finally {
+          this.running.decrementAndGet();
+          this.release(admission);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      admission.rejected = REJECTED_SHUTDOWN;
+      synchronized (this.lock) {
+        this.admitted -= 1;
+        admission.state.running -= 1;
+      }
+      this.reject(admission);
+    }
+  }
+
+  /**
+   * Releases the slot of a finished query and admits the oldest waiting queries that may now run.
+   */
+  private void release(Admission finished) {
+    final List<Admission> next = new ArrayList<>();
+    synchronized (this.lock) {
+      this.admitted -= 1;
+      finished.state.running -= 1;
+      final Iterator<Admission> iterator = this.waiting.iterator();
+      while (this.admitted < this.threads && iterator.hasNext()) {
+        final Admission admission = iterator.next();
+        if (this.admissible(admission.state)) {
+          iterator.remove();
+          admission.timeout.cancel(false);
+          this.admit(admission);
+          next.add(admission);
+        }
+      }
+      this.waitingCount.set(this.waiting.size());
+    }
+    for (Admission admission : next) {
+      this.start(admission);
+    }
+    this.report();
+  }
+
+  /**
+   * Rejects a query that waited for longer than the admission timeout. The client is notified on the {@link #notifier}, since sending may block.
+   */
+  private void expire(Admission admission) {
+    synchronized (this.lock) {
+      if (!this.waiting.remove(admission)) {
+        return; /* Already admitted or dropped. */
+      }
+      admission.rejected = REJECTED_TIMEOUT;
+      this.waitingCount.set(this.waiting.size());
+    }
+    this.report();
+    try {
+      this.notifier.execute(() -> this.reject(admission));
+    } catch (RejectedExecutionException e) {
+      LOGGER.debug("Not notifying client about expired query during shutdown.");
+    }
+  }
+
+  private void reject(Admission admission) {
+    WebsocketMonitor.reportRejectedQuery(admission.rejected);
+    try {
+      admission.handler.rejected(admission.rejected);
+    } catch (Throwable t) {
+      LOGGER.warn("Failed to notify client about rejected query: {}", t.getMessage());
+    }
+  }
+
+  private void report() {
+    WebsocketMonitor.reportQueries(this.running.get(), this.waitingCount.get());
+  }
+
+  /**
+   * Callback invoked when a query is rejected.
+   */
+  @FunctionalInterface
+  public interface RejectionHandler {
+
+    void rejected(String reason);
+  }
+
+  /**
+   * Admission state of a single session. Guarded by the executor's lock.
+   */
+  private static final class SessionState {
+
+    private int running = 0;
+  }
+
+  /**
+   * A query submitted for execution.
+   */
+  private static final class Admission {
+
+    private final SessionState state;
+    private final Runnable query;
+    private final RejectionHandler handler;
+    private ScheduledFuture<?> timeout;
+    private volatile String rejected;
+
+    private Admission(SessionState state, Runnable query, RejectionHandler handler) {
+      this.state = state;
+      this.query = query;
+      this.handler = handler;
+    }
+  }
+}
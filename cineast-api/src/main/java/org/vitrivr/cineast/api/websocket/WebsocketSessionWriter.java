@@ -0,0 +1,341 @@
+package org.vitrivr.cineast.api.websocket;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.vitrivr.cineast.api.messages.interfaces.Message;
+import org.vitrivr.cineast.api.messages.interfaces.MessageType;
+import org.vitrivr.cineast.api.messages.result.MediaObjectMetadataQueryResult;
+import org.vitrivr.cineast.api.messages.result.MediaObjectQueryResult;
+import org.vitrivr.cineast.api.messages.result.MediaSegmentMetadataQueryResult;
+import org.vitrivr.cineast.api.messages.result.MediaSegmentQueryResult;
+import org.vitrivr.cineast.api.messages.result.SimilarityQueryResult;
+import org.vitrivr.cineast.api.messages.result.TemporalQueryResult;
+import org.vitrivr.cineast.core.util.json.JacksonJsonProvider;
+import org.vitrivr.cineast.core.util.json.JsonWriter;
+import org.vitrivr.cineast.standalone.config.Config;
+import org.vitrivr.cineast.standalone.monitoring.WebsocketMonitor;
+
+/**
+ * Outbound message queue of a single WebSocket {@link Session}.
+ * <p>
+ * Messages are sent one at a time in the order they were enqueued. The queue is bounded: Once it is full, producers block until the client has consumed enough messages (or until the send timeout elapses, in which case the message is dropped). While waiting in the queue, consecutive result chunks of the same query (and category) are coalesced into a single message, up to {@link #MAX_COALESCED_SIZE} entries.
+ */
+public final class WebsocketSessionWriter {
+
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * Maximum number of entries a coalesced result message may contain. Corresponds to the stride used when chunking results.
+   */
+  public static final int MAX_COALESCED_SIZE = 50_000;
+
+  /**
+   * The {@link WebsocketSessionWriter}s of all active sessions.
+   */
+  private static final ConcurrentHashMap<Session, WebsocketSessionWriter> WRITERS = new ConcurrentHashMap<>();
+
+  /**
+   * Total number of messages waiting to be sent (across all sessions).
+   */
+  private static final AtomicInteger PENDING = new AtomicInteger();
+
+  /**
+   * JsonWriter used to serialize messages to a JSON representation.
+   */
+  private static final JsonWriter JSON = new JacksonJsonProvider();
+
+  private final Session session;
+  private final int capacity;
+  private final long timeout;
+
+  /**
+   * Messages waiting to be sent. Guarded by this.
+   */
+  private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+
+  /**
+   * True while a message is being transmitted. Guarded by this.
+   */
+  private boolean inFlight = false;
+
+  /**
+   * True while a thread is draining the queue. Guarded by this.
+   */
+  private boolean pumping = false;
+
+  /**
+   * True once the session has been closed. Guarded by this.
+   */
+  private boolean closed = false;
+
+  /**
+   * Constructor for {@link WebsocketSessionWriter}.
+   *
+   * @param session  The {@link Session} to write to.
+   * @param capacity Maximum number of messages waiting to be sent.
+   * @param timeout  Time in milliseconds a producer blocks on a full queue.
+   */
+  public WebsocketSessionWriter(Session session, int capacity, long timeout) {
+    this.session = session;
+    this.capacity = capacity;
+    this.timeout = timeout;
+  }
+
+  /**
+   * Returns the {@link WebsocketSessionWriter} for the given {@link Session}, creating it if necessary.
+   */
+  public static WebsocketSessionWriter forSession(Session session) {
+    return forSession(session, Config.sharedConfig().getApi().getWebsocketMaxPendingMessages(), Config.sharedConfig().getApi().getWebsocketSendTimeout());
+  }
+
+  /**
+   * Returns the {@link WebsocketSessionWriter} for the given {@link Session}, creating it with the given settings if necessary. Sessions that are no longer open get a closed writer that is not registered: Queries may still produce results after {@link #closed(Session)} removed the writer of their session.
+   */
+  static WebsocketSessionWriter forSession(Session session, int capacity, long timeout) {
+    final WebsocketSessionWriter writer = WRITERS.computeIfAbsent(session, s -> s.isOpen() ? new WebsocketSessionWriter(s, capacity, timeout) : null);
+    if (writer != null) {
+      return writer;
+    }
+    final WebsocketSessionWriter closed = new WebsocketSessionWriter(session, capacity, timeout);
+    closed.close();
+    return closed;
+  }
+
+  /**
+   * Returns the number of sessions that have a {@link WebsocketSessionWriter}.
+   */
+  static int sessions() {
+    return WRITERS.size();
+  }
+
+  /**
+   * Closes and removes the {@link WebsocketSessionWriter} for the given {@link Session}. Messages still waiting are dropped.
+   */
+  public static void closed(Session session) {
+    final WebsocketSessionWriter writer = WRITERS.remove(session);
+    if (writer != null) {
+      writer.close();
+    }
+  }
+
+  /**
+   * Enqueues a message for transmission. Blocks while the queue is full.
+   *
+   * @param message The {@link Message} to send.
+   * @return {@link CompletableFuture} that completes once the message (or the message it was coalesced into) has been sent.
+   */
+  public CompletableFuture<Void> send(Message message) {
+    final Pending pending;
+    final boolean pump;
+    synchronized (this) {
+      /* Try to coalesce with the last message that is still waiting. */
+      final Pending tail = this.queue.peekLast();
+      if (tail != null && !this.closed) {
+        final Message coalesced = coalesce(tail.message, message);
+        if (coalesced != null) {
+          tail.message = coalesced;
+          return tail.future;
+        }
+      }
+
+      /* Backpressure: Wait for the client to catch up. */
+      final long deadline = System.currentTimeMillis() + this.timeout;
+      while (this.queue.size() >= this.capacity && !this.closed) {
+        final long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          WebsocketMonitor.reportDroppedMessage();
+          LOGGER.warn("Dropping {} message: Client did not consume messages within {} ms.", message.messageType(), this.timeout);
+          return CompletableFuture.failedFuture(new TimeoutException("Outbound queue of WebSocket session is full."));
+        }
+        try {
+          this.wait(remaining);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return CompletableFuture.failedFuture(e);
+        }
+      }
+      if (this.closed) {
+        WebsocketMonitor.reportDroppedMessage();
+        return CompletableFuture.failedFuture(new IllegalStateException("WebSocket session has been closed."));
+      }
+
+      pending = new Pending(message);
+      this.queue.add(pending);
+      WebsocketMonitor.reportOutboundQueueDepth(PENDING.incrementAndGet());
+      pump = !this.inFlight && !this.pumping;
+      if (pump) {
+        this.pumping = true;
+      }
+    }
+    if (pump) {
+      this.pump();
+    }
+    return pending.future;
+  }
+
+  /**
+   * Returns the number of messages currently waiting to be sent.
+   */
+  public synchronized int size() {
+    return this.queue.size();
+  }
+
+  /**
+   * Drains the queue as long as transmissions complete synchronously. Returns as soon as a transmission is in flight; the completion callback takes over from there.
+   */
+  private void pump() {
+    while (true) {
+      final Pending next;
+      synchronized (this) {
+        if (this.inFlight || this.queue.isEmpty() || this.closed) {
+          this.pumping = false;
+          return;
+        }
+        next = this.queue.poll();
+        WebsocketMonitor.reportOutboundQueueDepth(PENDING.decrementAndGet());
+        this.inFlight = true;
+        this.notifyAll();
+      }
+      this.transmit(next);
+    }
+  }
+
+  /**
+   * Serializes and transmits a single message.
+   */
+  private void transmit(Pending pending) {
+    final String json;
+    try {
+      json = JSON.toJson(pending.message);
+    } catch (Throwable t) {
+      pending.future.completeExceptionally(t);
+      this.completed();
+      return;
+    }
+    try {
+      this.session.getRemote().sendString(json, new WriteCallback() {
+        @Override
+        public void writeFailed(Throwable x) {
+          pending.future.completeExceptionally(x);
+          LOGGER.error("Failed to write {} message to WebSocket stream: {}", pending.message.messageType(), x.getMessage());
+          WebsocketSessionWriter.this.completed();
+        }
+
+        @Override
+        public void writeSuccess() {
+          if (pending.message.messageType() != MessageType.PING) {
+            WebsocketMonitor.reportSendLatency(System.currentTimeMillis() - pending.enqueued);
+          }
+          pending.future.complete(null);
+          WebsocketSessionWriter.this.completed();
+        }
+      });
+    } catch (Throwable t) {
+      pending.future.completeExceptionally(t);
+      this.completed();
+    }
+  }
+
+  /**
+   * Invoked once a transmission has completed (successfully or not).
+   */
+  private void completed() {
+    final boolean pump;
+    synchronized (this) {
+      this.inFlight = false;
+      pump = !this.pumping;
+      if (pump) {
+        this.pumping = true;
+      }
+    }
+    if (pump) {
+      this.pump();
+    }
+  }
+
+  /**
+   * Closes this {@link WebsocketSessionWriter}, failing all messages that are still waiting.
+   */
+  private void close() {
+    final List<Pending> dropped;
+    synchronized (this) {
+      this.closed = true;
+      dropped = new ArrayList<>(this.queue);
+      this.queue.clear();
+      WebsocketMonitor.reportOutboundQueueDepth(PENDING.addAndGet(-dropped.size()));
+      this.notifyAll();
+    }
+    for (Pending pending : dropped) {
+      WebsocketMonitor.reportDroppedMessage();
+      pending.future.completeExceptionally(new IllegalStateException("WebSocket session has been closed."));
+    }
+  }
+
+  /**
+   * Tries to coalesce two result messages of the same query into one.
+   *
+   * @return The coalesced {@link Message} or null, if the messages cannot be coalesced.
+   */
+  static Message coalesce(Message first, Message second) {
+    if (first instanceof SimilarityQueryResult a && second instanceof SimilarityQueryResult b) {
+      if (a.queryId().equals(b.queryId()) && a.category().equals(b.category()) && a.containerId() == b.containerId() && fits(a.content(), b.content())) {
+        return new SimilarityQueryResult(a.queryId(), concat(a.content(), b.content()), a.category(), a.containerId());
+      }
+    } else if (first instanceof MediaSegmentQueryResult a && second instanceof MediaSegmentQueryResult b) {
+      if (a.queryId().equals(b.queryId()) && fits(a.content(), b.content())) {
+        return new MediaSegmentQueryResult(a.queryId(), concat(a.content(), b.content()));
+      }
+    } else if (first instanceof MediaObjectQueryResult a && second instanceof MediaObjectQueryResult b) {
+      if (a.queryId().equals(b.queryId()) && fits(a.content(), b.content())) {
+        return new MediaObjectQueryResult(a.queryId(), concat(a.content(), b.content()));
+      }
+    } else if (first instanceof TemporalQueryResult a && second instanceof TemporalQueryResult b) {
+      if (a.queryId().equals(b.queryId()) && fits(a.content(), b.content())) {
+        return new TemporalQueryResult(a.queryId(), concat(a.content(), b.content()));
+      }
+    } else if (first instanceof MediaSegmentMetadataQueryResult a && second instanceof MediaSegmentMetadataQueryResult b) {
+      if (a.queryId().equals(b.queryId()) && fits(a.content(), b.content())) {
+        return new MediaSegmentMetadataQueryResult(a.queryId(), concat(a.content(), b.content()));
+      }
+    } else if (first instanceof MediaObjectMetadataQueryResult a && second instanceof MediaObjectMetadataQueryResult b) {
+      if (a.queryId().equals(b.queryId()) && fits(a.content(), b.content())) {
+        return new MediaObjectMetadataQueryResult(a.queryId(), concat(a.content(), b.content()));
+      }
+    }
+    return null;
+  }
+
+  private static boolean fits(List<?> a, List<?> b) {
+    return a != null && b != null && a.size() + b.size() <= MAX_COALESCED_SIZE;
+  }
+
+  private static <T> List<T> concat(List<T> a, List<T> b) {
+    final List<T> list = new ArrayList<>(a.size() + b.size());
+    list.addAll(a);
+    list.addAll(b);
+    return list;
+  }
+
+  /**
+   * A message waiting to be sent.
+   */
+  private static final class Pending {
+
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private final long enqueued = System.currentTimeMillis();
+    private Message message;
+
+    private Pending(Message message) {
+      this.message = message;
+    }
+  }
+}
@@ -5,14 +5,14 @@
 import com.google.common.collect.Lists;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.time.StopWatch;
 import org.apache.logging.log4j.Level;
@@ -54,6 +54,15 @@
 
   private static final Logger LOGGER = LogManager.getLogger();
 
+  /**
+   * Executor shared by all query handlers to load and transmit metadata in the background. Bounded, so that concurrent queries cannot spawn an unlimited number of threads.
+   */
+  private static final ExecutorService METADATA_EXECUTOR = Executors.newFixedThreadPool(Math.max(2, Config.sharedConfig().getApi().getWebsocketQueryThreads()), r -> {
+    Thread thread = new Thread(r, "metadata-load-write");
+    thread.setDaemon(true);
+    return thread;
+  });
+
   /**
    * {@link MediaSegmentReader} instance used to read segments from the storage layer.
    */
@@ -169,7 +178,7 @@ protected List<MediaObjectDescriptor> loadObjects(List<String> objectIds, String
    * @param objectIds          List of object IDs for which to lookup metadata.
    * @param metadataAccessSpec if this parameter is null, no metadata is fetched
    */
-  protected synchronized List<Thread> loadAndWriteObjectMetadata(Session session, String queryId, List<String> objectIds, Collection<String> objectIdsForWhichMetadataIsFetched, List<MetadataAccessSpecification> metadataAccessSpec) {
+  protected synchronized List<CompletableFuture<Void>> loadAndWriteObjectMetadata(Session session, String queryId, List<String> objectIds, Collection<String> objectIdsForWhichMetadataIsFetched, List<MetadataAccessSpecification> metadataAccessSpec) {
     if (objectIds.isEmpty()) {
       return new ArrayList<>();
     }
@@ -178,7 +187,7 @@ protected synchronized List<Thread> loadAndWriteObjectMetadata(Session session,
     if (objectIds.size() > 100_000) {
       return Lists.partition(objectIds, 100_000).stream().map(list -> loadAndWriteObjectMetadata(session, queryId, list, objectIdsForWhichMetadataIsFetched, metadataAccessSpec)).flatMap(Collection::stream).collect(Collectors.toList());
     }
-    Thread thread = new Thread(() -> {
+    return Lists.newArrayList(CompletableFuture.runAsync(() -> {
       final List<MediaObjectMetadataDescriptor> objectMetadata = this.objectMetadataReader.findBySpec(objectIds, metadataAccessSpec, queryId);
       if (objectMetadata.isEmpty()) {
         return;
@@ -189,10 +198,7 @@ protected synchronized List<Thread> loadAndWriteObjectMetadata(Session session,
       List<CompletableFuture<Void>> futures = new ArrayList<>();
       Lists.partition(objectMetadata, 100_000).forEach(list -> futures.add(this.write(session, new MediaObjectMetadataQueryResult(queryId, list))));
       futures.forEach(CompletableFuture::join);
-    });
-    thread.setName("metadata-retrieval-objects");
-    thread.start();
-    return Collections.singletonList(thread);
+    }, METADATA_EXECUTOR));
   }
 
   /**
@@ -204,7 +210,7 @@ protected synchronized List<Thread> loadAndWriteObjectMetadata(Session session,
    * @param segmentIdsForWhichMetadataIsFetched segmentids for which metadata is already fetched
    * @param metadataAccessSpec                  if this parameter is null, no metadata is fetched.
    */
-  synchronized List<Thread> loadAndWriteSegmentMetadata(Session session, String queryId, List<String> segmentIds, Collection<String> segmentIdsForWhichMetadataIsFetched, List<MetadataAccessSpecification> metadataAccessSpec) {
+  synchronized List<CompletableFuture<Void>> loadAndWriteSegmentMetadata(Session session, String queryId, List<String> segmentIds, Collection<String> segmentIdsForWhichMetadataIsFetched, List<MetadataAccessSpecification> metadataAccessSpec) {
     if (segmentIds.isEmpty()) {
       return new ArrayList<>();
     }
@@ -214,32 +220,15 @@ synchronized List<Thread> loadAndWriteSegmentMetadata(Session session, String qu
     if (segmentIds.size() > 100_000) {
       return Lists.partition(segmentIds, 100_000).stream().map(list -> loadAndWriteSegmentMetadata(session, queryId, list, segmentIdsForWhichMetadataIsFetched, metadataAccessSpec)).flatMap(Collection::stream).collect(Collectors.toList());
     }
-    Thread fetching = new Thread(() -> {
+    return Lists.newArrayList(CompletableFuture.runAsync(() -> {
       final List<MediaSegmentMetadataDescriptor> segmentMetadata = this.segmentMetadataReader.findBySpec(segmentIds, metadataAccessSpec, queryId);
       if (segmentMetadata.isEmpty()) {
         return;
       }
-      List<Thread> threads = new ArrayList<>();
-      AtomicInteger i = new AtomicInteger(0);
-      Lists.partition(segmentMetadata, 100_000).forEach(list -> {
-        Thread writing = new Thread(() -> {
-          this.write(session, new MediaSegmentMetadataQueryResult(queryId, list)).join();
-        });
-        writing.setName("metadata-ws-write-queryId" + i.getAndIncrement());
-        writing.start();
-        threads.add(writing);
-      });
-      for (Thread thread : threads) {
-        try {
-          thread.join();
-        } catch (InterruptedException e) {
-          LOGGER.error(e);
-        }
-      }
-    });
-    fetching.setName("metadata-load-write-" + queryId);
-    fetching.start();
-    return Lists.newArrayList(fetching);
+      List<CompletableFuture<Void>> futures = new ArrayList<>();
+      Lists.partition(segmentMetadata, 100_000).forEach(list -> futures.add(this.write(session, new MediaSegmentMetadataQueryResult(queryId, list))));
+      futures.forEach(CompletableFuture::join);
+    }, METADATA_EXECUTOR));
   }
 
   /**
@@ -295,16 +284,16 @@ void submitSegmentAndObjectInformationFromIds(Session session, String queryId, L
    * @param segmentIdsForWhichMetadataIsFetched Segment IDs for which the metadata was fetched and transferred.
    * @param metadataAccessSpec                  if this param is null, all metadata is fetched
    */
-  protected List<Thread> submitMetadata(Session session, String queryId, List<String> segmentIds, List<String> objectIds, Collection<String> segmentIdsForWhichMetadataIsFetched, Collection<String> objectIdsForWhichMetadataIsFetched, List<MetadataAccessSpecification> metadataAccessSpec) {
+  protected List<CompletableFuture<Void>> submitMetadata(Session session, String queryId, List<String> segmentIds, List<String> objectIds, Collection<String> segmentIdsForWhichMetadataIsFetched, Collection<String> objectIdsForWhichMetadataIsFetched, List<MetadataAccessSpecification> metadataAccessSpec) {
     // this ensures maximum backwards compatibility. The API should probably include a NONE option
     if (metadataAccessSpec == null) {
       metadataAccessSpec = ACCESS_ALL_METADATA;
     }
     /* Load and transmit segment & object metadata. */
-    List<Thread> segmentThreads = this.loadAndWriteSegmentMetadata(session, queryId, segmentIds, segmentIdsForWhichMetadataIsFetched, metadataAccessSpec);
-    List<Thread> objectThreads = this.loadAndWriteObjectMetadata(session, queryId, objectIds, objectIdsForWhichMetadataIsFetched, metadataAccessSpec);
-    segmentThreads.addAll(objectThreads);
-    return segmentThreads;
+    List<CompletableFuture<Void>> segmentFutures = this.loadAndWriteSegmentMetadata(session, queryId, segmentIds, segmentIdsForWhichMetadataIsFetched, metadataAccessSpec);
+    List<CompletableFuture<Void>> objectFutures = this.loadAndWriteObjectMetadata(session, queryId, objectIds, objectIdsForWhichMetadataIsFetched, metadataAccessSpec);
+    segmentFutures.addAll(objectFutures);
+    return segmentFutures;
   }
 
   /**
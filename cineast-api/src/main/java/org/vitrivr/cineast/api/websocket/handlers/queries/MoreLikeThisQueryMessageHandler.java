@@ -37,7 +37,7 @@ public void execute(Session session, QueryConfig qconf, MoreLikeThisQuery messag
     final String queryId = qconf.getQueryId();
     final HashSet<String> categoryMap = new HashSet<>(message.categories());
 
-    List<Thread> threads = new ArrayList<>();
+    List<CompletableFuture<Void>> metadataFutures = new ArrayList<>();
     List<CompletableFuture<Void>> futures = new ArrayList<>();
     /* Retrieve per-category results and return them. */
     for (String category : categoryMap) {
@@ -53,12 +53,9 @@ public void execute(Session session, QueryConfig qconf, MoreLikeThisQuery messag
       futures.addAll(this.finalizeAndSubmitResults(session, queryId, category, -1, results));
 
       // TODO Possibly add metadata specification to mlt-handler
-      List<Thread> _threads = this.submitMetadata(session, queryId, segmentIds, objectIds, segmentIdsForWhichMetadataIsFetched, objectIdsForWhichMetadataIsFetched, message.metadataAccessSpec());
-      threads.addAll(_threads);
+      metadataFutures.addAll(this.submitMetadata(session, queryId, segmentIds, objectIds, segmentIdsForWhichMetadataIsFetched, objectIdsForWhichMetadataIsFetched, message.metadataAccessSpec()));
     }
     futures.forEach(CompletableFuture::join);
-    for (Thread thread : threads) {
-      thread.join();
-    }
+    metadataFutures.forEach(CompletableFuture::join);
   }
 }
@@ -48,18 +48,14 @@ public void execute(Session session, QueryConfig qconf, SegmentQuery message, Se
     }
 
     List<CompletableFuture<Void>> futures = new ArrayList<>();
-    List<Thread> threads = new ArrayList<>();
 
     /* Write segments and objects to results stream. */
     futures.add(this.write(session, new MediaSegmentQueryResult(uuid, segment)));
     futures.add(this.write(session, new MediaObjectQueryResult(uuid, object)));
 
     /* Load and transmit segment & object metadata. */
-    threads.addAll(this.loadAndWriteSegmentMetadata(session, uuid, segmentId, segmentIdsForWhichMetadataIsFetched, message.metadataAccessSpec()));
-    threads.addAll(this.loadAndWriteObjectMetadata(session, uuid, objectId, objectIdsForWhichMetadataIsFetched, message.metadataAccessSpec()));
-    for (Thread thread : threads) {
-      thread.join();
-    }
+    futures.addAll(this.loadAndWriteSegmentMetadata(session, uuid, segmentId, segmentIdsForWhichMetadataIsFetched, message.metadataAccessSpec()));
+    futures.addAll(this.loadAndWriteObjectMetadata(session, uuid, objectId, objectIdsForWhichMetadataIsFetched, message.metadataAccessSpec()));
     futures.forEach(CompletableFuture::join);
   }
 }
@@ -48,7 +48,7 @@ public void execute(Session session, QueryConfig qconf, TemporalQuery message, S
     final int resultsPerModule = Math.min(qconf.getRawResultsPerModule() == -1 ? Config.sharedConfig().getRetriever().getMaxResultsPerModule() : qconf.getResultsPerModule(), Config.sharedConfig().getRetriever().getMaxResultsPerModule());
     qconf.setResultsPerModule(resultsPerModule);
 
-    List<Thread> metadataRetrievalThreads = new ArrayList<>();
+    List<CompletableFuture<Void>> metadataRetrievalFutures = new ArrayList<>();
     List<CompletableFuture<Void>> futures = new ArrayList<>();
     List<Thread> cleanupThreads = new ArrayList<>();
 
@@ -161,8 +161,8 @@ public void execute(Session session, QueryConfig qconf, TemporalQuery message, S
                 sentObjectIds.addAll(limitedObjectIds);
                 LOGGER.trace("Queueing finalization and result submission for last stage, container {}", lambdaFinalContainerIdx);
                 futures.addAll(this.finalizeAndSubmitResults(session, uuid, category, lambdaFinalContainerIdx, limitedResults));
-                List<Thread> _threads = this.submitMetadata(session, uuid, limitedSegmentIds, limitedObjectIds, segmentIdsForWhichMetadataIsFetched, objectIdsForWhichMetadataIsFetched, message.metadataAccessSpec());
-                metadataRetrievalThreads.addAll(_threads);
+                List<CompletableFuture<Void>> _futures = this.submitMetadata(session, uuid, limitedSegmentIds, limitedObjectIds, segmentIdsForWhichMetadataIsFetched, objectIdsForWhichMetadataIsFetched, message.metadataAccessSpec());
+                metadataRetrievalFutures.addAll(_futures);
               }
             }
           }
@@ -214,7 +214,7 @@ public void execute(Session session, QueryConfig qconf, TemporalQuery message, S
     /* You can skip the computation of temporal objects in the config if you wish simply to execute all queries independently (e.g. for evaluation)*/
     if (!message.config().computeTemporalObjects) {
       LOGGER.debug("Not computing temporal objects due to query config");
-      finish(metadataRetrievalThreads, cleanupThreads);
+      finish(metadataRetrievalFutures, cleanupThreads);
       return;
     }
 
@@ -252,8 +252,8 @@ public void execute(Session session, QueryConfig qconf, TemporalQuery message, S
       this.submitSegmentAndObjectInformationFromIds(session, uuid, segmentIds, objectIds);
 
       /* Retrieve and send metadata for items not already sent */
-      List<Thread> _threads = this.submitMetadata(session, uuid, segmentIds, objectIds, segmentIdsForWhichMetadataIsFetched, objectIdsForWhichMetadataIsFetched, message.metadataAccessSpec());
-      metadataRetrievalThreads.addAll(_threads);
+      List<CompletableFuture<Void>> _futures = this.submitMetadata(session, uuid, segmentIds, objectIds, segmentIdsForWhichMetadataIsFetched, objectIdsForWhichMetadataIsFetched, message.metadataAccessSpec());
+      metadataRetrievalFutures.addAll(_futures);
     }
 
     /* Send scoring results to the frontend */
@@ -262,17 +262,15 @@ public void execute(Session session, QueryConfig qconf, TemporalQuery message, S
       futures.forEach(CompletableFuture::join);
     }
 
-    finish(metadataRetrievalThreads, cleanupThreads);
+    finish(metadataRetrievalFutures, cleanupThreads);
   }
 
-  private void finish(List<Thread> metadataRetrievalThreads, List<Thread> cleanupThreads) throws InterruptedException {
+  private void finish(List<CompletableFuture<Void>> metadataRetrievalFutures, List<Thread> cleanupThreads) throws InterruptedException {
     for (Thread cleanupThread : cleanupThreads) {
       cleanupThread.join();
     }
 
-    for (Thread thread : metadataRetrievalThreads) {
-      thread.join();
-    }
+    metadataRetrievalFutures.forEach(CompletableFuture::join);
   }
 
 }
@@ -0,0 +1,145 @@
+package org.vitrivr.cineast.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.carrotsearch.hppc.ObjectDoubleHashMap;
+import com.carrotsearch.hppc.cursors.ObjectDoubleCursor;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.core.features.retriever.Retriever;
+import org.vitrivr.cineast.standalone.config.Config;
+import org.vitrivr.cineast.standalone.config.ConfigReloader;
+import org.vitrivr.cineast.standalone.config.RetrievalRuntimeConfig;
+
+/**
+ * Reloads the retriever weights from a config file while queries read them concurrently. The queries obtain their retrievers and weights the same way as the retrieval logic does, so no database is required.
+ */
+public class ConfigReloadTest {
+
+  private static final int QUERY_THREADS = 4;
+  private static final int RELOADS = 4;
+  private static final String CATEGORY = "globalcolor";
+
+  private Path directory;
+  private Path file;
+  private ConfigReloader reloader;
+
+  @BeforeEach
+  public void setup() throws IOException {
+    this.directory = Files.createTempDirectory("cineast-config-reload");
+    this.file = this.directory.resolve("cineast.json");
+    write(config("AverageColor", 1.0));
+    assertNotNull(Config.loadConfig(this.file.toString()));
+    this.reloader = ConfigReloader.start(this.file.toString());
+  }
+
+  @AfterEach
+  public void teardown() throws IOException {
+    this.reloader.close();
+    Files.deleteIfExists(this.file);
+    Files.deleteIfExists(this.directory);
+  }
+
+  @Test
+  @DisplayName("Weights are swapped atomically under concurrent queries")
+  public void testReloadUnderConcurrentQueries() throws Exception {
+    final AtomicBoolean running = new AtomicBoolean(true);
+    final AtomicInteger queries = new AtomicInteger();
+    final List<String> errors = new CopyOnWriteArrayList<>();
+    final List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < QUERY_THREADS; t++) {
+      final Thread thread = new Thread(() -> {
+        while (running.get()) {
+          /* A query reads the snapshot once and keeps it until it is done. */
+          final RetrievalRuntimeConfig snapshot = Config.sharedConfig().getRetriever();
+          final double before = weight(snapshot.getRetrieversByCategory(CATEGORY));
+          Thread.yield();
+          final double after = weight(snapshot.getRetrieversByCategory(CATEGORY));
+          if (Double.isNaN(before) || before != after) {
+            errors.add("Inconsistent weights within one query: " + before + " and " + after);
+          }
+          queries.incrementAndGet();
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+
+    long version = Config.sharedConfig().getVersion();
+    for (int i = 2; i < RELOADS + 2; i++) {
+      final double weight = i;
+      write(config("AverageColor", weight));
+      assertTrue(await(() -> this.reloader.getStatus() == ConfigReloader.Status.RELOADED && weight(Config.sharedConfig().getRetriever().getRetrieversByCategory(CATEGORY)) == weight), "Weight " + weight + " was not reloaded.");
+      assertTrue(Config.sharedConfig().getVersion() > version);
+      version = Config.sharedConfig().getVersion();
+    }
+
+    /* An invalid file is rejected and leaves the shared config untouched. */
+    write(config("NoSuchRetriever", 42.0));
+    assertTrue(await(() -> this.reloader.getStatus() == ConfigReloader.Status.INVALID), "Invalid config was not rejected.");
+    assertEquals(version, Config.sharedConfig().getVersion());
+    assertEquals(RELOADS + 1, weight(Config.sharedConfig().getRetriever().getRetrieversByCategory(CATEGORY)));
+
+    running.set(false);
+    for (Thread thread : threads) {
+      thread.join(5000);
+    }
+    assertTrue(errors.isEmpty(), String.join("\n", errors));
+    assertTrue(queries.get() > 0);
+  }
+
+  /**
+   * Returns the common weight of all retrievers of a category, NaN if they differ.
+   */
+  private static double weight(ObjectDoubleHashMap<Retriever> retrievers) {
+    double weight = Double.NaN;
+    for (ObjectDoubleCursor<Retriever> cursor : retrievers) {
+      if (Double.isNaN(weight)) {
+        weight = cursor.value;
+      } else if (weight != cursor.value) {
+        return Double.NaN;
+      }
+    }
+    return weight;
+  }
+
+  private static String config(String feature, double weight) {
+    return "{\"retriever\": {\"features\": {\"" + CATEGORY + "\": ["
+        + "{\"feature\": \"" + feature + "\", \"weight\": " + weight + "}, "
+        + "{\"feature\": \"MedianColor\", \"weight\": " + weight + "}"
+        + "]}}}";
+  }
+
+  /**
+   * Replaces the config file atomically, like most editors do.
+   */
+  private void write(String content) throws IOException {
+    final Path temp = Files.writeString(this.directory.resolve("cineast.json.tmp"), content);
+    Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static boolean await(BooleanSupplier condition) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + 10_000;
+    while (System.currentTimeMillis() < deadline) {
+      if (condition.getAsBoolean()) {
+        return true;
+      }
+      Thread.sleep(20);
+    }
+    return false;
+  }
+}
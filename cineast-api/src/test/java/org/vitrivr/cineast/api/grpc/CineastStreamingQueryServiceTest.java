@@ -0,0 +1,222 @@
+package org.vitrivr.cineast.api.grpc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.grpc.CallOptions;
+import io.grpc.Context;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ClientResponseObserver;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.api.grpc.data.QueryResultChunk;
+import org.vitrivr.cineast.core.config.ReadableQueryConfig;
+import org.vitrivr.cineast.core.data.StringDoublePair;
+import org.vitrivr.cineast.core.data.score.ScoreElement;
+import org.vitrivr.cineast.core.data.score.SegmentScoreElement;
+import org.vitrivr.cineast.core.data.segments.SegmentContainer;
+import org.vitrivr.cineast.core.db.DBSelectorSupplier;
+import org.vitrivr.cineast.core.db.setup.EntityCreator;
+import org.vitrivr.cineast.core.features.retriever.Retriever;
+
+/**
+ * Runs the {@link CineastStreamingQueryService} on an in-process gRPC server with a synthetic retrieval, so no database is required.
+ */
+public class CineastStreamingQueryServiceTest {
+
+  private CineastStreamingQueryService service;
+  private Server server;
+  private ManagedChannel channel;
+
+  @AfterEach
+  public void teardown() throws InterruptedException {
+    this.channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    this.server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    this.service.shutdown();
+  }
+
+  @Test
+  @DisplayName("Partial results precede the fused result of every category")
+  public void testPartialAndFinalChunks() throws IOException {
+    this.start((container, config, category, listener) -> {
+      for (int i = 0; i < 3; i++) {
+        listener.onPartialResult(new SyntheticRetriever(), List.<ScoreElement>of(new SegmentScoreElement("s" + i, 0.25), new SegmentScoreElement("t" + i, 0.75)));
+      }
+      return List.of(new StringDoublePair("fused", 1.0));
+    });
+
+    final List<QueryResultChunk> chunks = new ArrayList<>();
+    ClientCalls.blockingServerStreamingCall(this.channel, CineastStreamingQueryService.STREAM_MEDIA_SEGMENT_SCORES, CallOptions.DEFAULT, query("a", "b")).forEachRemaining(chunks::add);
+
+    assertEquals(8, chunks.size());
+    for (int i = 0; i < chunks.size(); i++) {
+      final QueryResultChunk chunk = chunks.get(i);
+      final boolean last = i % 4 == 3;
+      assertEquals(i, chunk.getSequence());
+      assertEquals(i < 4 ? "a" : "b", chunk.getCategory());
+      assertEquals(i < 4 ? "a" : "b", chunk.getResult().getCategory());
+      assertEquals("query", chunk.getResult().getQueryId().getId());
+      assertEquals(last, chunk.isFinal());
+      if (last) {
+        assertEquals("", chunk.getRetriever());
+        assertEquals(1, chunk.getResult().getResultsCount());
+        assertEquals("fused", chunk.getResult().getResults(0).getId().getId());
+      } else {
+        assertEquals("SyntheticRetriever", chunk.getRetriever());
+        assertEquals(2, chunk.getResult().getResultsCount());
+        assertEquals("t" + (i % 4), chunk.getResult().getResults(0).getId().getId());
+        assertEquals(0.75, chunk.getResult().getResults(0).getScore(), 1e-9);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Retrieval waits while the client is not ready")
+  public void testFlowControl() throws IOException, InterruptedException {
+    final int partials = 100;
+    final AtomicInteger emitted = new AtomicInteger();
+    this.start((container, config, category, listener) -> {
+      for (int i = 0; i < partials; i++) {
+        emitted.incrementAndGet();
+        listener.onPartialResult(new SyntheticRetriever(), List.<ScoreElement>of(new SegmentScoreElement("s" + i, 0.5)));
+      }
+      return List.of();
+    });
+
+    final List<QueryResultChunk> chunks = new CopyOnWriteArrayList<>();
+    final AtomicReference<ClientCallStreamObserver<CineastGrpc.Query>> call = new AtomicReference<>();
+    final CountDownLatch first = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(1);
+    ClientCalls.asyncServerStreamingCall(this.channel.newCall(CineastStreamingQueryService.STREAM_MEDIA_SEGMENT_SCORES, CallOptions.DEFAULT), query("a"), new ClientResponseObserver<CineastGrpc.Query, QueryResultChunk>() {
+      @Override
+      public void beforeStart(ClientCallStreamObserver<CineastGrpc.Query> requestStream) {
+        call.set(requestStream);
+        requestStream.disableAutoRequestWithInitial(1);
+      }
+
+      @Override
+      public void onNext(QueryResultChunk value) {
+        chunks.add(value);
+        first.countDown();
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        done.countDown();
+      }
+
+      @Override
+      public void onCompleted() {
+        done.countDown();
+      }
+    });
+
+    assertTrue(first.await(5, TimeUnit.SECONDS));
+    Thread.sleep(200);
+    assertEquals(1, chunks.size());
+    /* One chunk delivered, a full buffer and one chunk waiting to be enqueued. */
+    assertTrue(emitted.get() <= CineastStreamingQueryService.MAX_BUFFERED_CHUNKS + 2, "Retrieval ran ahead of the client: " + emitted.get());
+
+    call.get().request(partials + 1);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(partials + 1, chunks.size());
+    for (int i = 0; i < chunks.size(); i++) {
+      assertEquals(i, chunks.get(i).getSequence());
+    }
+    assertTrue(chunks.get(partials).isFinal());
+  }
+
+  @Test
+  @DisplayName("Cancelling the call cancels the retrieval")
+  public void testCancellation() throws Exception {
+    final CountDownLatch cancelled = new CountDownLatch(1);
+    this.start((container, config, category, listener) -> {
+      listener.onPartialResult(new SyntheticRetriever(), List.<ScoreElement>of(new SegmentScoreElement("s", 0.5)));
+      try {
+        while (!listener.isCancelled()) {
+          Thread.sleep(5);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      cancelled.countDown();
+      throw new CancellationException();
+    });
+
+    final Context.CancellableContext context = Context.current().withCancellation();
+    final QueryResultChunk chunk = context.call(() -> {
+      final Iterator<QueryResultChunk> iterator = ClientCalls.blockingServerStreamingCall(this.channel, CineastStreamingQueryService.STREAM_MEDIA_SEGMENT_SCORES, CallOptions.DEFAULT, query("a"));
+      return iterator.next();
+    });
+    assertFalse(chunk.isFinal());
+    context.cancel(null);
+
+    assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+  }
+
+  private void start(CineastStreamingQueryService.Retrieval retrieval) throws IOException {
+    final String name = InProcessServerBuilder.generateName();
+    this.service = new CineastStreamingQueryService(retrieval);
+    this.server = InProcessServerBuilder.forName(name).directExecutor().addService(this.service).build().start();
+    this.channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+  }
+
+  private static CineastGrpc.Query query(String... categories) {
+    final Supplier<CineastGrpc.QueryConfig> config = () -> CineastGrpc.QueryConfig.newBuilder().setQueryId(CineastGrpc.QueryId.newBuilder().setId("query")).setMaxResults(100).build();
+    final CineastGrpc.QueryTerm.Builder term = CineastGrpc.QueryTerm.newBuilder()
+        .setTextQueryContainer(CineastGrpc.TextQueryContainer.newBuilder().setText("text"))
+        .setConfig(config.get())
+        .setWeight(1f);
+    for (String category : categories) {
+      term.addCategory(category);
+    }
+    return CineastGrpc.Query.newBuilder().addStages(CineastGrpc.QueryStage.newBuilder().setConfig(config.get()).addTerms(term)).build();
+  }
+
+  private static class SyntheticRetriever implements Retriever {
+
+    @Override
+    public void init(DBSelectorSupplier selectorSupply) {
+    }
+
+    @Override
+    public List<ScoreElement> getSimilar(SegmentContainer sc, ReadableQueryConfig qc) {
+      return List.of();
+    }
+
+    @Override
+    public List<ScoreElement> getSimilar(String segmentId, ReadableQueryConfig qc) {
+      return List.of();
+    }
+
+    @Override
+    public void finish() {
+    }
+
+    @Override
+    public void initalizePersistentLayer(Supplier<EntityCreator> supply) {
+    }
+
+    @Override
+    public void dropPersistentLayer(Supplier<EntityCreator> supply) {
+    }
+  }
+}
@@ -0,0 +1,208 @@
+package org.vitrivr.cineast.api.rest.resolvers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class IndexedThumbnailResolverTest {
+
+  /**
+   * Maximum time to wait for the scan or a file system event to be processed.
+   */
+  private static final long TIMEOUT_MS = 10_000;
+
+  private static final long LAST_MODIFIED = 1_700_000_123_000L;
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Tests that the initial scan indexes all thumbnails below the folder, and only those, and that segment IDs resolve to the same files as with {@link FileSystemThumbnailResolver}.
+   */
+  @Test
+  @DisplayName("Test Initial Scan")
+  public void testInitialScan() throws IOException, InterruptedException {
+    final Path base = Files.createDirectory(this.directory.resolve("thumbnails"));
+    final Path first = thumbnail(base, "v_1/1.jpg", "first");
+    final Path second = thumbnail(base, "v_2/v_2_3.png", "second thumbnail");
+    thumbnail(base, "v_1/notes.txt", "not a thumbnail");
+
+    try (IndexedThumbnailResolver resolver = new IndexedThumbnailResolver(base.toFile())) {
+      assertTrue(await(resolver::isReady), "Initial scan did not complete.");
+      assertEquals(2, resolver.size());
+      assertResolved(first, resolver.resolve("v_1_1"));
+      assertResolved(second, resolver.resolve("v_2_3"));
+      assertEquals(new FileSystemThumbnailResolver(base.toFile()).resolve("v_1_1").file.getAbsoluteFile(), resolver.resolve("v_1_1").file);
+      assertNull(resolver.resolve("v_9_9"));
+      assertNull(resolver.resolve("invalid"));
+    }
+  }
+
+  /**
+   * Tests that thumbnails created, modified and deleted after the initial scan, including whole directories, are reflected by the index.
+   */
+  @Test
+  @DisplayName("Test Watch")
+  public void testWatch() throws IOException, InterruptedException {
+    final Path base = Files.createDirectory(this.directory.resolve("thumbnails"));
+    thumbnail(base, "v_1/1.jpg", "first");
+
+    try (IndexedThumbnailResolver resolver = new IndexedThumbnailResolver(base.toFile())) {
+      assertTrue(await(resolver::isReady), "Initial scan did not complete.");
+
+      /* Created in an existing and in a new directory. */
+      final Path created = thumbnail(base, "v_1/2.jpg", "created");
+      final Path nested = thumbnail(base, "v_3/3.jpg", "in a new directory");
+      assertTrue(await(() -> isResolved(created, resolver.resolve("v_1_2")) && isResolved(nested, resolver.resolve("v_3_3"))), "Created thumbnails were not indexed.");
+      assertEquals(3, resolver.size());
+
+      /* Modified. */
+      Files.write(created, "modified and longer".getBytes(StandardCharsets.UTF_8));
+      assertTrue(await(() -> isResolved(created, resolver.resolve("v_1_2"))), "Modified thumbnail was not updated.");
+
+      /* Deleted. */
+      Files.delete(created);
+      assertTrue(await(() -> resolver.resolve("v_1_2") == null), "Deleted thumbnail was not removed.");
+      Files.delete(nested);
+      Files.delete(nested.getParent());
+      assertTrue(await(() -> resolver.size() == 1), "Deleted directory was not removed.");
+      assertNull(resolver.resolve("v_3_3"));
+      assertNotNull(resolver.resolve("v_1_1"));
+    }
+  }
+
+  /**
+   * Tests that the index is persisted upon closing and that a persisted index is served before the initial scan has completed, which then replaces it.
+   */
+  @Test
+  @DisplayName("Test Persisted Index")
+  public void testPersistedIndex() throws IOException, InterruptedException {
+    final Path base = Files.createDirectory(this.directory.resolve("thumbnails"));
+    final Path index = this.directory.resolve("thumbnails.index");
+    final Path first = thumbnail(base, "v_1/1.jpg", "first");
+    final Path second = thumbnail(base, "v_2/2.jpg", "second");
+
+    try (IndexedThumbnailResolver resolver = new IndexedThumbnailResolver(base.toFile(), index.toFile())) {
+      assertTrue(await(resolver::isReady), "Initial scan did not complete.");
+    }
+    final List<String> lines = Files.readAllLines(index, StandardCharsets.UTF_8);
+    assertEquals(2, lines.size());
+    assertTrue(lines.contains(Files.size(first) + "\t" + LAST_MODIFIED + "\tv_1/1.jpg"));
+
+    /* The second thumbnail disappears while the instance is down. */
+    Files.delete(second);
+    final CountDownLatch scan = new CountDownLatch(1);
+    final IndexedThumbnailResolver resolver = gated(base, index, scan);
+    try {
+      assertFalse(resolver.isReady());
+      assertEquals(2, resolver.size());
+      assertResolved(first, resolver.resolve("v_1_1"));
+      assertNotNull(resolver.resolve("v_2_2"), "Persisted entry was not served before the scan.");
+
+      scan.countDown();
+      assertTrue(await(resolver::isReady), "Initial scan did not complete.");
+      assertEquals(1, resolver.size());
+      assertNull(resolver.resolve("v_2_2"));
+    } finally {
+      scan.countDown();
+      resolver.close();
+    }
+  }
+
+  /**
+   * Tests that thumbnails missing from the index are resolved by probing the file system until the initial scan has completed, but not thereafter.
+   */
+  @Test
+  @DisplayName("Test Fallback")
+  public void testFallback() throws IOException, InterruptedException {
+    final Path base = Files.createDirectory(this.directory.resolve("thumbnails"));
+    final Path first = thumbnail(base, "v_1/1.jpg", "first");
+    final CountDownLatch scan = new CountDownLatch(1);
+    final IndexedThumbnailResolver resolver = gated(base, null, scan);
+    try {
+      assertFalse(resolver.isReady());
+      assertEquals(0, resolver.size());
+      assertResolved(first, resolver.resolve("v_1_1"));
+      assertNull(resolver.resolve("v_9_9"));
+
+      scan.countDown();
+      assertTrue(await(resolver::isReady), "Initial scan did not complete.");
+      assertEquals(1, resolver.size());
+      assertResolved(first, resolver.resolve("v_1_1"));
+    } finally {
+      scan.countDown();
+      resolver.close();
+    }
+
+    /* Without an index file, nothing is persisted. */
+    try (var files = Files.list(this.directory)) {
+      assertEquals(1, files.count());
+    }
+  }
+
+  /**
+   * Creates an {@link IndexedThumbnailResolver} whose initial scan only starts once the latch has been released.
+   */
+  private static IndexedThumbnailResolver gated(Path base, Path index, CountDownLatch scan) throws IOException {
+    return new IndexedThumbnailResolver(base.toFile(), index == null ? null : index.toFile(), r -> {
+      final Thread thread = new Thread(() -> {
+        try {
+          scan.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        r.run();
+      }, "thumbnail-index-watcher");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  private static Path thumbnail(Path base, String path, String content) throws IOException {
+    final Path file = base.resolve(path);
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(LAST_MODIFIED));
+    return file;
+  }
+
+  private static void assertResolved(Path expected, ResolutionResult actual) throws IOException {
+    assertNotNull(actual);
+    assertEquals(expected.toAbsolutePath().normalize().toFile(), actual.file.getAbsoluteFile());
+    assertEquals(Files.size(expected), actual.length);
+    assertEquals(Files.getLastModifiedTime(expected).toMillis(), actual.lastModified);
+  }
+
+  private static boolean isResolved(Path expected, ResolutionResult actual) {
+    try {
+      return actual != null && actual.length == Files.size(expected) && actual.lastModified == Files.getLastModifiedTime(expected).toMillis();
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private static boolean await(BooleanSupplier condition) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        return false;
+      }
+      Thread.sleep(10);
+    }
+    return true;
+  }
+}
@@ -0,0 +1,92 @@
+package org.vitrivr.cineast.api.rest.routes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.vitrivr.cineast.api.rest.resolvers.ResolutionResult;
+
+public class ResolvedContentRouteTest {
+
+  private static final String ETAG = "\"400-18b0c4a2f10\"";
+
+  private static final long LAST_MODIFIED = 1_700_000_123_456L;
+
+  /**
+   * Tests that If-Range accepts the exact strong ETag and the exact date of last modification, and nothing else.
+   */
+  @Test
+  @DisplayName("Test If-Range")
+  public void testIfRange() {
+    assertTrue(ResolvedContentRoute.isRangeApplicable(null, ETAG, LAST_MODIFIED));
+    assertTrue(ResolvedContentRoute.isRangeApplicable(ETAG, ETAG, LAST_MODIFIED));
+    assertFalse(ResolvedContentRoute.isRangeApplicable("\"other\"", ETAG, LAST_MODIFIED));
+    assertFalse(ResolvedContentRoute.isRangeApplicable("W/" + ETAG, ETAG, LAST_MODIFIED));
+
+    assertTrue(ResolvedContentRoute.isRangeApplicable(ResolvedContentRoute.formatDate(LAST_MODIFIED), ETAG, LAST_MODIFIED));
+    assertFalse(ResolvedContentRoute.isRangeApplicable(ResolvedContentRoute.formatDate(LAST_MODIFIED - 1000), ETAG, LAST_MODIFIED));
+    assertFalse(ResolvedContentRoute.isRangeApplicable(ResolvedContentRoute.formatDate(LAST_MODIFIED + 1000), ETAG, LAST_MODIFIED));
+    assertFalse(ResolvedContentRoute.isRangeApplicable("yesterday", ETAG, LAST_MODIFIED));
+  }
+
+  /**
+   * Tests that a file is only read for the cache if it still has the size and time of last modification it was resolved with.
+   */
+  @Test
+  @DisplayName("Test Read")
+  public void testRead(@TempDir Path directory) throws IOException {
+    final Path path = directory.resolve("thumbnail.jpg");
+    Files.write(path, "content".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(path, FileTime.fromMillis(LAST_MODIFIED));
+    final File file = path.toFile();
+
+    final ResolutionResult resolved = new ResolutionResult(file);
+    assertArrayEquals("content".getBytes(StandardCharsets.UTF_8), ResolvedContentRoute.read(resolved));
+
+    /* Rewritten with the same size after resolution. */
+    Files.write(path, "CONTENT".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(path, FileTime.fromMillis(LAST_MODIFIED + 5000));
+    assertThrows(ResolvedContentRoute.StaleFileException.class, () -> ResolvedContentRoute.read(resolved));
+
+    /* Grown, but resolved from an index that still has the old time of last modification. */
+    Files.write(path, "longer content".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(path, FileTime.fromMillis(LAST_MODIFIED));
+    assertThrows(ResolvedContentRoute.StaleFileException.class, () -> ResolvedContentRoute.read(new ResolutionResult(file, 7, LAST_MODIFIED)));
+  }
+
+  /**
+   * Tests that a section of a file is streamed as resolved, and that a file that shrank below the requested offset is reported as stale instead of failing mid-response.
+   */
+  @Test
+  @DisplayName("Test Stream")
+  public void testStream(@TempDir Path directory) throws IOException {
+    final Path path = directory.resolve("video.mp4");
+    Files.write(path, "0123456789".getBytes(StandardCharsets.UTF_8));
+    final File file = path.toFile();
+    final ResolutionResult resolved = new ResolutionResult(file);
+    try (InputStream stream = ResolvedContentRoute.stream(resolved, 6, 3)) {
+      assertArrayEquals("678".getBytes(StandardCharsets.UTF_8), stream.readAllBytes());
+    }
+
+    /* Shrunk after resolution. */
+    Files.write(path, "0123".getBytes(StandardCharsets.UTF_8));
+    assertThrows(ResolvedContentRoute.StaleFileException.class, () -> ResolvedContentRoute.stream(resolved, 6, 3));
+    final ResolutionResult reresolved = new ResolutionResult(file);
+    assertEquals(4, reresolved.length);
+    try (InputStream stream = ResolvedContentRoute.stream(reresolved, 2, 2)) {
+      assertArrayEquals("23".getBytes(StandardCharsets.UTF_8), stream.readAllBytes());
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package org.vitrivr.cineast.api.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.javalin.Javalin;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.api.messages.interfaces.Message;
+import org.vitrivr.cineast.api.messages.result.MediaSegmentQueryResult;
+import org.vitrivr.cineast.api.messages.result.QueryEnd;
+import org.vitrivr.cineast.api.messages.result.QueryError;
+import org.vitrivr.cineast.api.messages.result.SimilarityQueryResult;
+import org.vitrivr.cineast.core.data.StringDoublePair;
+
+/**
+ * Load test for the admission control and outbound queues of the WebSocket API. Runs synthetic queries on a local Javalin server, so no database is required.
+ */
+public class WebsocketLoadTest {
+
+  private static final int THREADS = 4;
+  private static final int QUERIES_PER_SESSION = 2;
+  private static final int QUEUE_SIZE = 16;
+  private static final int MAX_PENDING_MESSAGES = 8;
+
+  private static final int CLIENTS = 24;
+  private static final int SLOW_CLIENTS = 4;
+  private static final int QUERIES_PER_CLIENT = 6;
+  private static final int CHUNKS_PER_QUERY = 20;
+
+  private WebsocketQueryExecutor executor;
+  private Javalin server;
+
+  /* Observed concurrency. */
+  private final AtomicInteger running = new AtomicInteger();
+  private final AtomicInteger maxRunning = new AtomicInteger();
+  private final Map<Session, AtomicInteger> runningPerSession = new ConcurrentHashMap<>();
+  private final AtomicInteger maxRunningPerSession = new AtomicInteger();
+  private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+  @BeforeEach
+  public void setup() {
+    this.executor = new WebsocketQueryExecutor(THREADS, QUERIES_PER_SESSION, QUEUE_SIZE, 2000);
+    this.server = Javalin.create().ws("/", ws -> {
+      ws.onMessage(ctx -> {
+        final Session session = ctx.session;
+        final String queryId = ctx.message();
+        final WebsocketSessionWriter writer = WebsocketSessionWriter.forSession(session, MAX_PENDING_MESSAGES, 10_000);
+        this.executor.submit(session, () -> this.query(session, writer, queryId), reason -> writer.send(new QueryError(queryId, reason)));
+      });
+      ws.onClose(ctx -> {
+        this.executor.closed(ctx.session);
+        WebsocketSessionWriter.closed(ctx.session);
+      });
+    }).start(0);
+  }
+
+  @AfterEach
+  public void teardown() {
+    this.server.stop();
+    this.executor.shutdown(5, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Synthetic query: Sends a number of result chunks and a {@link QueryEnd} message.
+   */
+  private void query(Session session, WebsocketSessionWriter writer, String queryId) {
+    final int current = this.running.incrementAndGet();
+    this.maxRunning.accumulateAndGet(current, Math::max);
+    final int currentForSession = this.runningPerSession.computeIfAbsent(session, s -> new AtomicInteger()).incrementAndGet();
+    this.maxRunningPerSession.accumulateAndGet(currentForSession, Math::max);
+    try {
+      final List<CompletableFuture<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < CHUNKS_PER_QUERY; i++) {
+        final List<StringDoublePair> results = new ArrayList<>();
+        for (int j = 0; j < 50; j++) {
+          results.add(new StringDoublePair(queryId + "_" + i + "_" + j, 1.0 / (j + 1)));
+        }
+        futures.add(writer.send(new SimilarityQueryResult(queryId, results, "test", 0)));
+        this.maxQueueDepth.accumulateAndGet(writer.size(), Math::max);
+      }
+      futures.forEach(CompletableFuture::join);
+      writer.send(new QueryEnd(queryId)).join();
+    } finally {
+      this.runningPerSession.get(session).decrementAndGet();
+      this.running.decrementAndGet();
+    }
+  }
+
+  @Test
+  @DisplayName("Test Admission Control Under Load")
+  public void testAdmissionControlUnderLoad() throws Exception {
+    final HttpClient client = HttpClient.newHttpClient();
+    final AtomicInteger completed = new AtomicInteger();
+    final AtomicInteger rejected = new AtomicInteger();
+    final CountDownLatch answered = new CountDownLatch(CLIENTS * QUERIES_PER_CLIENT);
+    final List<WebSocket> sockets = new ArrayList<>();
+
+    for (int c = 0; c < CLIENTS; c++) {
+      final boolean slow = c < SLOW_CLIENTS;
+      final WebSocket socket = client.newWebSocketBuilder().buildAsync(URI.create("ws://localhost:" + this.server.port() + "/"), new WebSocket.Listener() {
+        private final StringBuilder buffer = new StringBuilder();
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+          this.buffer.append(data);
+          if (last) {
+            final String message = this.buffer.toString();
+            this.buffer.setLength(0);
+            if (message.contains("\"QR_END\"")) {
+              completed.incrementAndGet();
+              answered.countDown();
+            } else if (message.contains("\"QR_ERROR\"")) {
+              rejected.incrementAndGet();
+              answered.countDown();
+            }
+          }
+          if (slow) {
+            return CompletableFuture.runAsync(() -> webSocket.request(1), CompletableFuture.delayedExecutor(5, TimeUnit.MILLISECONDS));
+          }
+          webSocket.request(1);
+          return null;
+        }
+      }).join();
+      sockets.add(socket);
+    }
+
+    for (int q = 0; q < QUERIES_PER_CLIENT; q++) {
+      for (int c = 0; c < CLIENTS; c++) {
+        sockets.get(c).sendText("client" + c + "-query" + q, true).join();
+      }
+    }
+
+    assertTrue(answered.await(60, TimeUnit.SECONDS), "Not every query was either completed or rejected.");
+    assertEquals(CLIENTS * QUERIES_PER_CLIENT, completed.get() + rejected.get());
+    assertTrue(completed.get() > 0, "No query was completed.");
+    assertTrue(rejected.get() > 0, "No query was rejected although the server was overloaded.");
+    assertTrue(this.maxRunning.get() <= THREADS, "More queries running than threads available: " + this.maxRunning.get());
+    assertTrue(this.maxRunningPerSession.get() <= QUERIES_PER_SESSION, "More queries running per session than allowed: " + this.maxRunningPerSession.get());
+    assertTrue(this.maxQueueDepth.get() <= MAX_PENDING_MESSAGES, "Outbound queue exceeded its capacity: " + this.maxQueueDepth.get());
+
+    for (WebSocket socket : sockets) {
+      socket.sendClose(WebSocket.NORMAL_CLOSURE, "done").join();
+    }
+  }
+
+  @Test
+  @DisplayName("Test Coalescing")
+  public void testCoalescing() {
+    final List<StringDoublePair> a = List.of(new StringDoublePair("a", 1.0));
+    final List<StringDoublePair> b = List.of(new StringDoublePair("b", 0.5));
+
+    final Message merged = WebsocketSessionWriter.coalesce(new SimilarityQueryResult("q", a, "c", 0), new SimilarityQueryResult("q", b, "c", 0));
+    assertTrue(merged instanceof SimilarityQueryResult);
+    assertEquals(List.of("a", "b"), ((SimilarityQueryResult) merged).content().stream().map(StringDoublePair::key).toList());
+
+    /* Different query, category, container or type must not be merged. */
+    assertNull(WebsocketSessionWriter.coalesce(new SimilarityQueryResult("q", a, "c", 0), new SimilarityQueryResult("r", b, "c", 0)));
+    assertNull(WebsocketSessionWriter.coalesce(new SimilarityQueryResult("q", a, "c", 0), new SimilarityQueryResult("q", b, "d", 0)));
+    assertNull(WebsocketSessionWriter.coalesce(new SimilarityQueryResult("q", a, "c", 0), new SimilarityQueryResult("q", b, "c", 1)));
+    assertNull(WebsocketSessionWriter.coalesce(new MediaSegmentQueryResult("q", List.of()), new QueryEnd("q")));
+  }
+}
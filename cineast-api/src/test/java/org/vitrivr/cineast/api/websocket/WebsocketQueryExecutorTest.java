@@ -0,0 +1,166 @@
+package org.vitrivr.cineast.api.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.api.messages.result.QueryError;
+
+public class WebsocketQueryExecutorTest {
+
+  private WebsocketQueryExecutor executor;
+
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final AtomicInteger running = new AtomicInteger();
+  private final AtomicInteger maxRunning = new AtomicInteger();
+  private final AtomicInteger finished = new AtomicInteger();
+
+  @AfterEach
+  public void teardown() {
+    this.release.countDown();
+    if (this.executor != null) {
+      this.executor.shutdown(5, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Returns a {@link Session} that is only used as a key, so none of its other methods are ever called.
+   */
+  private static Session session() {
+    return session(() -> true);
+  }
+
+  /**
+   * Returns a {@link Session} that is only used as a key and reports whether it is open, but cannot be written to.
+   */
+  private static Session session(BooleanSupplier open) {
+    return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+      case "isOpen" -> open.getAsBoolean();
+      case "hashCode" -> System.identityHashCode(proxy);
+      case "equals" -> proxy == args[0];
+      case "toString" -> "session";
+      default -> throw new UnsupportedOperationException(method.getName());
+    });
+  }
+
+  /**
+   * A query that blocks until the test releases it.
+   */
+  private void query() {
+    this.maxRunning.accumulateAndGet(this.running.incrementAndGet(), Math::max);
+    try {
+      this.release.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      this.running.decrementAndGet();
+      this.finished.incrementAndGet();
+    }
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertTrue(condition.getAsBoolean());
+  }
+
+  /**
+   * Tests that the number of executing queries is limited by the number of threads across sessions, that the queries beyond it are counted as waiting and expire, and that the clients are notified off the admission timer.
+   */
+  @Test
+  @DisplayName("Test Global Limit")
+  public void testGlobalLimit() throws InterruptedException {
+    this.executor = new WebsocketQueryExecutor(2, 2, 3, 200);
+    final List<String> rejections = new CopyOnWriteArrayList<>();
+    final List<String> threads = new CopyOnWriteArrayList<>();
+    final WebsocketQueryExecutor.RejectionHandler handler = reason -> {
+      rejections.add(reason);
+      threads.add(Thread.currentThread().getName());
+    };
+
+    final Session first = session();
+    assertTrue(this.executor.submit(first, this::query, handler));
+    assertTrue(this.executor.submit(first, this::query, handler));
+    await(() -> this.executor.getRunning() == 2);
+
+    /* Other sessions are below their own limit, but no thread is left. */
+    final Session second = session();
+    final Session third = session();
+    assertTrue(this.executor.submit(second, this::query, handler));
+    assertTrue(this.executor.submit(third, this::query, handler));
+    assertTrue(this.executor.submit(third, this::query, handler));
+    assertEquals(3, this.executor.getWaiting());
+    assertFalse(this.executor.submit(session(), this::query, handler));
+    assertEquals(List.of(WebsocketQueryExecutor.REJECTED_QUEUE_FULL), rejections);
+
+    await(() -> rejections.size() == 4);
+    assertEquals(0, this.executor.getWaiting());
+    assertEquals(List.of(WebsocketQueryExecutor.REJECTED_QUEUE_FULL, WebsocketQueryExecutor.REJECTED_TIMEOUT, WebsocketQueryExecutor.REJECTED_TIMEOUT, WebsocketQueryExecutor.REJECTED_TIMEOUT), rejections);
+    assertTrue(threads.subList(1, 4).stream().allMatch("ws-query-rejection"::equals), "Expired queries were not rejected on the notifier: " + threads);
+    assertEquals(2, this.executor.getRunning());
+    assertEquals(2, this.maxRunning.get());
+  }
+
+  /**
+   * Tests that waiting queries of all sessions are admitted once threads become available, without exceeding either limit.
+   */
+  @Test
+  @DisplayName("Test Admission")
+  public void testAdmission() throws InterruptedException {
+    this.executor = new WebsocketQueryExecutor(3, 1, 100, 10_000);
+    final AtomicInteger rejected = new AtomicInteger();
+    final Session[] sessions = {session(), session(), session(), session(), session()};
+    for (int i = 0; i < 4; i++) {
+      for (Session session : sessions) {
+        assertTrue(this.executor.submit(session, this::query, reason -> rejected.incrementAndGet()));
+      }
+    }
+    await(() -> this.executor.getRunning() == 3);
+    assertEquals(17, this.executor.getWaiting());
+
+    this.release.countDown();
+    await(() -> this.finished.get() == 20);
+    assertEquals(0, this.executor.getWaiting());
+    assertEquals(0, rejected.get());
+    assertEquals(3, this.maxRunning.get());
+  }
+
+  /**
+   * Tests that results of a query that outlives its session are dropped without registering a new writer for the closed session.
+   */
+  @Test
+  @DisplayName("Test Send After Close")
+  public void testSendAfterClose() {
+    final AtomicBoolean open = new AtomicBoolean(true);
+    final Session session = session(open::get);
+    final int sessions = WebsocketSessionWriter.sessions();
+    final WebsocketSessionWriter writer = WebsocketSessionWriter.forSession(session, 8, 1000);
+    assertSame(writer, WebsocketSessionWriter.forSession(session, 8, 1000));
+    assertEquals(sessions + 1, WebsocketSessionWriter.sessions());
+
+    open.set(false);
+    WebsocketSessionWriter.closed(session);
+    assertEquals(sessions, WebsocketSessionWriter.sessions());
+    for (int i = 0; i < 3; i++) {
+      final CompletableFuture<Void> sent = WebsocketSessionWriter.forSession(session, 8, 1000).send(new QueryError("query", "late"));
+      assertTrue(sent.isCompletedExceptionally());
+    }
+    assertEquals(sessions, WebsocketSessionWriter.sessions());
+  }
+}
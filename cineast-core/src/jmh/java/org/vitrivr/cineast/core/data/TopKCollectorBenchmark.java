@@ -0,0 +1,78 @@
+package org.vitrivr.cineast.core.data;
+
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Selects the k nearest of 10 million candidate distances, as done by a brute-force kNN scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TopKCollectorBenchmark {
+
+  private static final int CANDIDATES = 10_000_000;
+  private static final int PARTITIONS = 8;
+
+  @Param({"10", "100", "1000"})
+  public int k;
+
+  private double[] distances;
+
+  @Setup
+  public void setup() {
+    this.distances = new SplittableRandom(42L).doubles(CANDIDATES).toArray();
+  }
+
+  @Benchmark
+  public int[] topKCollector() {
+    final TopKCollector<Void> collector = TopKCollector.smallest(this.k);
+    for (int i = 0; i < this.distances.length; i++) {
+      collector.offer(this.distances[i], i);
+    }
+    return collector.sortedIds();
+  }
+
+  @Benchmark
+  public int[] topKCollectorParallel() {
+    final int stride = CANDIDATES / PARTITIONS;
+    return IntStream.range(0, PARTITIONS).parallel().mapToObj(p -> {
+      final TopKCollector<Void> partial = TopKCollector.smallest(this.k);
+      for (int i = p * stride, end = Math.min(CANDIDATES, (p + 1) * stride); i < end; i++) {
+        partial.offer(this.distances[i], i);
+      }
+      return partial;
+    }).reduce((a, b) -> {
+      a.merge(b);
+      return a;
+    }).orElseThrow().sortedIds();
+  }
+
+  /**
+   * Baseline: {@link FixedSizePriorityQueue} over boxed candidate IDs.
+   */
+  @Benchmark
+  public int fixedSizePriorityQueue() {
+    final FixedSizePriorityQueue<Integer> queue = FixedSizePriorityQueue.create(this.k, Comparator.<Integer>comparingDouble(i -> this.distances[i]).thenComparingInt(i -> i));
+    for (int i = 0; i < this.distances.length; i++) {
+      queue.add(i);
+    }
+    return queue.size();
+  }
+}
@@ -0,0 +1,111 @@
+package org.vitrivr.cineast.core.db.dao.reader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.vitrivr.cineast.core.config.CacheConfig;
+import org.vitrivr.cineast.core.config.QueryConfig;
+import org.vitrivr.cineast.core.config.ReadableQueryConfig;
+import org.vitrivr.cineast.core.data.score.ScoreElement;
+import org.vitrivr.cineast.core.data.segments.SegmentContainer;
+import org.vitrivr.cineast.core.features.abstracts.AbstractFeatureModule;
+
+/**
+ * Simulates a browsing session: Starting from a random segment, the user repeatedly issues a "more like this" query with several feature modules and continues with one of the top results, preferring the first ones. The feature entities are served by {@link SyntheticFeatureSelector}s that wait for a fixed time per round trip, like a database on the local machine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FeatureVectorBrowsingBenchmark {
+
+  private static final int SEGMENTS = 2000;
+  private static final int DIMENSIONS = 64;
+  private static final int MODULES = 3;
+  private static final int RESULTS = 100;
+
+  /**
+   * Number of queries per session.
+   */
+  private static final int STEPS = 20;
+
+  /**
+   * "none" disables the {@link FeatureVectorCache}, "cache" caches looked up vectors and "prefetch" additionally prefetches the vectors of the top results.
+   */
+  @Param({"none", "cache", "prefetch"})
+  public String cache;
+
+  /**
+   * Simulated time of a round trip to the database in microseconds.
+   */
+  @Param({"250"})
+  public long latency;
+
+  private final List<Module> modules = new ArrayList<>();
+
+  private ReadableQueryConfig config;
+
+  private SplittableRandom random;
+
+  @Setup
+  public void setup() {
+    final CacheConfig cacheConfig = new CacheConfig();
+    cacheConfig.setFeatureVectorCacheSize(this.cache.equals("none") ? 0 : CacheConfig.DEFAULT_FEATURE_VECTOR_CACHE_SIZE);
+    cacheConfig.setFeatureVectorPrefetchSize(this.cache.equals("prefetch") ? CacheConfig.DEFAULT_FEATURE_VECTOR_PREFETCH_SIZE : 0);
+    FeatureVectorCache.configureDefault(cacheConfig);
+    FeatureVectorCache.getInstance().invalidateAll();
+    for (int m = 0; m < MODULES; m++) {
+      this.modules.add(new Module("features_browsing_" + m, new SyntheticFeatureSelector(SEGMENTS, DIMENSIONS, TimeUnit.MICROSECONDS.toNanos(this.latency), m)));
+    }
+    this.config = new QueryConfig("browsing", new ArrayList<>()).setResultsPerModule(RESULTS);
+    this.random = new SplittableRandom(42L);
+  }
+
+  @Benchmark
+  public int session() {
+    String segmentId = SyntheticFeatureSelector.segmentId(this.random.nextInt(SEGMENTS));
+    int results = 0;
+    for (int step = 0; step < STEPS; step++) {
+      final List<String> top = new ArrayList<>();
+      for (Module module : this.modules) {
+        final List<ScoreElement> scores = module.getSimilar(segmentId, this.config);
+        results += scores.size();
+        if (top.isEmpty()) {
+          top.addAll(scores.stream().map(ScoreElement::getId).collect(Collectors.toList()));
+        }
+      }
+      FeatureVectorCache.getInstance().prefetch(this.modules.stream().map(Module::getTableNames).flatMap(List::stream).collect(Collectors.toList()), top);
+      segmentId = top.get(Math.min(this.random.nextInt(10), this.random.nextInt(10)) + 1);
+    }
+    return results;
+  }
+
+  /**
+   * Feature module that retrieves from a {@link SyntheticFeatureSelector}.
+   */
+  private static final class Module extends AbstractFeatureModule {
+
+    private Module(String tableName, SyntheticFeatureSelector selector) {
+      super(tableName, 10.0f, DIMENSIONS);
+      this.selector = selector;
+    }
+
+    @Override
+    public void processSegment(SegmentContainer shot) {
+    }
+
+    @Override
+    public List<ScoreElement> getSimilar(SegmentContainer sc, ReadableQueryConfig qc) {
+      return new ArrayList<>(0);
+    }
+  }
+}
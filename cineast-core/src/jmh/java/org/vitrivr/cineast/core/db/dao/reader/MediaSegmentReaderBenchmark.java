@@ -0,0 +1,81 @@
+package org.vitrivr.cineast.core.db.dao.reader;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.vitrivr.cineast.core.data.entities.MediaSegmentDescriptor;
+
+/**
+ * Simulates the segment lookups of a temporal query over a synthetic collection of long videos: The descriptors of the result segments are loaded, the temporal context of every result is looked up by sequence number range and the segments of all result objects are loaded for score fusion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MediaSegmentReaderBenchmark {
+
+  private static final int OBJECTS = 50;
+  private static final int RESULTS = 200;
+  private static final int CONTEXT = 5;
+
+  /**
+   * Number of segments per video.
+   */
+  @Param({"1000", "5000"})
+  public int segmentsPerObject;
+
+  /**
+   * "none" disables the {@link MediaSegmentCache} (every range lookup loads all segments of the object), "indexed" uses it.
+   */
+  @Param({"none", "indexed"})
+  public String cache;
+
+  /**
+   * Whether the selector supports compound predicates, i.e., whether range lookups can be pushed to the database.
+   */
+  @Param({"false", "true"})
+  public boolean compound;
+
+  private MediaSegmentReader reader;
+  private List<List<String>> queries;
+  private int query = 0;
+
+  @Setup
+  public void setup() {
+    final SyntheticSegmentSelector selector = new SyntheticSegmentSelector(OBJECTS, this.segmentsPerObject, this.compound);
+    final MediaSegmentCache c = this.cache.equals("indexed") ? new MediaSegmentCache(100_000, 1_000_000, 10) : new MediaSegmentCache(0, 0, 10);
+    this.reader = new MediaSegmentReader(selector, c);
+    final SplittableRandom random = new SplittableRandom(42L);
+    this.queries = new ArrayList<>();
+    for (int q = 0; q < 16; q++) {
+      final List<String> ids = new ArrayList<>(RESULTS);
+      for (int r = 0; r < RESULTS; r++) {
+        ids.add(SyntheticSegmentSelector.segmentId(random.nextInt(OBJECTS), random.nextInt(this.segmentsPerObject) + 1));
+      }
+      this.queries.add(ids);
+    }
+  }
+
+  @Benchmark
+  public int temporalQuery() {
+    final List<String> ids = this.queries.get(this.query++ & 15);
+    int count = 0;
+    final Set<String> objectIds = new HashSet<>();
+    for (MediaSegmentDescriptor segment : this.reader.lookUpSegments(ids).values()) {
+      count += this.reader.lookUpSegmentsByNumberRange(segment.getObjectId(), segment.getSequenceNumber() - CONTEXT, segment.getSequenceNumber() + CONTEXT).size();
+      objectIds.add(segment.getObjectId());
+    }
+    count += this.reader.lookUpSegmentsOfObjects(objectIds).size();
+    return count;
+  }
+}
@@ -0,0 +1,120 @@
+package org.vitrivr.cineast.core.db.fulltext;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.vitrivr.cineast.core.db.fulltext.FulltextIndex.Hit;
+
+/**
+ * Query throughput on a generated corpus of short texts (like OCR or ASR lines) with a Zipf-distributed vocabulary. Queries are drawn from the vocabulary; fuzzy queries carry a typo, as produced by {@link org.vitrivr.cineast.core.features.OCRSearch}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FulltextIndexBenchmark {
+
+  private static final int VOCABULARY = 50_000;
+  private static final int QUERIES = 1024;
+  private static final int K = 100;
+
+  @Param({"100000", "1000000"})
+  public int size;
+
+  private FulltextIndex index;
+  private String[] texts;
+  private String[] terms;
+  private String[] phrases;
+  private String[] typos;
+  private int query = 0;
+
+  @Setup
+  public void setup() {
+    final SplittableRandom random = new SplittableRandom(42L);
+    final String[] vocabulary = new String[VOCABULARY];
+    for (int i = 0; i < VOCABULARY; i++) {
+      vocabulary[i] = word(random, 3 + random.nextInt(8));
+    }
+    this.index = FulltextIndex.inMemory();
+    this.texts = new String[this.size];
+    for (int i = 0; i < this.size; i++) {
+      final StringBuilder text = new StringBuilder();
+      final int length = 5 + random.nextInt(36);
+      for (int j = 0; j < length; j++) {
+        text.append(vocabulary[zipf(random)]).append(' ');
+      }
+      this.texts[i] = text.toString();
+      this.index.add(String.valueOf(i), this.texts[i]);
+    }
+    this.terms = new String[QUERIES];
+    this.phrases = new String[QUERIES];
+    this.typos = new String[QUERIES];
+    for (int i = 0; i < QUERIES; i++) {
+      final String[] words = this.texts[random.nextInt(this.size)].split(" ");
+      final int start = random.nextInt(words.length - 1);
+      this.terms[i] = words[start] + " " + words[start + 1];
+      this.phrases[i] = "\"" + words[start] + " " + words[start + 1] + "\"";
+      final char[] typo = words[start].toCharArray();
+      typo[random.nextInt(typo.length)] = (char) ('a' + random.nextInt(26));
+      this.typos[i] = new String(typo) + "~1";
+    }
+    this.index.size();
+  }
+
+  private static String word(SplittableRandom random, int length) {
+    final char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = (char) ('a' + random.nextInt(26));
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Approximately Zipf-distributed index into the vocabulary.
+   */
+  private static int zipf(SplittableRandom random) {
+    return (int) Math.min(VOCABULARY - 1, Math.exp(random.nextDouble() * Math.log(VOCABULARY)) - 1);
+  }
+
+  private int next() {
+    return this.query++ & (QUERIES - 1);
+  }
+
+  @Benchmark
+  public List<Hit> termQuery() {
+    return this.index.search(K, null, this.terms[this.next()]);
+  }
+
+  @Benchmark
+  public List<Hit> phraseQuery() {
+    return this.index.search(K, null, this.phrases[this.next()]);
+  }
+
+  @Benchmark
+  public List<Hit> fuzzyQuery() {
+    return this.index.search(K, null, this.typos[this.next()]);
+  }
+
+  /**
+   * Baseline: substring scan over the raw texts, i.e. what a storage engine without fulltext support can do at best. Neither ranked nor token-aware.
+   */
+  @Benchmark
+  public int scan() {
+    final String needle = this.terms[this.next()].split(" ")[0].toLowerCase(Locale.ROOT);
+    int matches = 0;
+    for (String text : this.texts) {
+      if (text.contains(needle)) {
+        matches++;
+      }
+    }
+    return matches;
+  }
+}
@@ -0,0 +1,98 @@
+package org.vitrivr.cineast.core.extraction.decode.audio;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vitrivr.cineast.core.config.CacheConfig;
+import org.vitrivr.cineast.core.config.DecoderConfig;
+import org.vitrivr.cineast.core.data.frames.AudioFrame;
+import org.vitrivr.cineast.core.data.frames.AudioFramePool;
+
+/**
+ * Decoding of ten minutes of generated audio to 44.1kHz stereo with the {@link FFMpegAudioDecoder}, with and without recycling the consumed frames. Run with -prof gc to compare the allocation rate.
+ * <p>
+ * Other files, e.g. FLAC, can be benchmarked by passing their path as -p file=...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FFMpegAudioDecoderBenchmark {
+
+  /**
+   * Sampling rate of the generated file; 22.05kHz mono requires re-sampling, 44.1kHz stereo only format conversion.
+   */
+  @Param({"22050", "44100"})
+  public int samplerate;
+
+  /**
+   * Path to an existing file to decode instead of the generated one.
+   */
+  @Param({""})
+  public String file;
+
+  private Path path;
+
+  private boolean generated;
+
+  private final DecoderConfig config = FFMpegAudioDecoderTest.config(44100, 2);
+
+  private final AudioFramePool pool = new AudioFramePool(4L * 1024L * 1024L);
+
+  @Setup
+  public void setup() throws IOException {
+    this.generated = this.file.isEmpty();
+    this.path = this.generated ? FFMpegAudioDecoderTest.writeWave(this.samplerate, this.samplerate == 44100 ? 2 : 1, 600.0) : Path.of(this.file);
+  }
+
+  @TearDown
+  public void teardown() throws IOException {
+    if (this.generated) {
+      Files.deleteIfExists(this.path);
+    }
+  }
+
+  private long decode(FFMpegAudioDecoder decoder, boolean recycle) {
+    long samples = 0;
+    decoder.init(this.path, this.config, new CacheConfig());
+    try {
+      while (!decoder.complete()) {
+        final AudioFrame frame = decoder.getNext();
+        if (frame != null) {
+          samples += frame.numberOfSamples();
+          if (recycle) {
+            decoder.recycle(frame);
+          }
+        }
+      }
+    } finally {
+      decoder.close();
+    }
+    return samples;
+  }
+
+  @Benchmark
+  public long pooledBuffer() {
+    return this.decode(new FFMpegAudioDecoder(), false);
+  }
+
+  @Benchmark
+  public long recycledFrames() {
+    return this.decode(new FFMpegAudioDecoder(this.pool), true);
+  }
+}
@@ -0,0 +1,169 @@
+package org.vitrivr.cineast.core.extraction.decode.m3d;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vitrivr.cineast.core.data.m3d.ArrayMesh;
+import org.vitrivr.cineast.core.data.m3d.Mesh;
+import org.vitrivr.cineast.core.data.m3d.ReadableMesh;
+import org.vitrivr.cineast.core.data.segments.Model3DSegment;
+import org.vitrivr.cineast.core.extraction.decode.general.Decoder;
+
+/**
+ * Decoding of a jittered 710 x 710 grid (about 1M triangles) in every supported format: parsing into an {@link ArrayMesh}, the {@link Decoder} path and the creation of the {@link Model3DSegment} handed to the extractors, once from the {@link ArrayMesh} and once from its {@link Mesh} representation (as before the decoders returned the {@link ArrayMesh}).
+ * <p>
+ * Run with -prof gc and compare gc.alloc.rate.norm of segment and segmentFromMesh for the heap allocated per model. The segment created from the {@link ArrayMesh} retains the arrays plus the {@link Mesh} of the normalized copy (about 215 MB for this grid), the one created from the {@link Mesh} retains two {@link Mesh} copies (about 375 MB) and temporarily a third one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx8g"})
+public class MeshDecoderBenchmark {
+
+  private static final int GRID = 710;
+
+  @Param({"obj", "off", "stl", "binary-stl"})
+  public String format;
+
+  private Path file;
+
+  private Decoder<ReadableMesh> decoder;
+
+  @Setup
+  public void setup() throws IOException {
+    final SplittableRandom random = new SplittableRandom(42L);
+    final float[] positions = new float[3 * GRID * GRID];
+    for (int i = 0; i < GRID * GRID; i++) {
+      positions[3 * i] = (i % GRID) + (float) random.nextDouble() * 0.5f;
+      positions[3 * i + 1] = (i / GRID) + (float) random.nextDouble() * 0.5f;
+      positions[3 * i + 2] = (float) random.nextDouble() * 10.0f;
+    }
+    final int[] triangles = new int[6 * (GRID - 1) * (GRID - 1)];
+    int t = 0;
+    for (int y = 0; y < GRID - 1; y++) {
+      for (int x = 0; x < GRID - 1; x++) {
+        final int v = y * GRID + x;
+        triangles[t++] = v;
+        triangles[t++] = v + 1;
+        triangles[t++] = v + GRID;
+        triangles[t++] = v + 1;
+        triangles[t++] = v + GRID + 1;
+        triangles[t++] = v + GRID;
+      }
+    }
+
+    switch (this.format) {
+      case "obj":
+        this.file = Files.createTempFile("cineast-mesh", ".obj");
+        this.decoder = new OBJMeshDecoder();
+        try (BufferedWriter writer = Files.newBufferedWriter(this.file)) {
+          for (int i = 0; i < positions.length; i += 3) {
+            writer.write("v " + positions[i] + " " + positions[i + 1] + " " + positions[i + 2] + "\n");
+          }
+          for (int i = 0; i < triangles.length; i += 3) {
+            writer.write("f " + (triangles[i] + 1) + "//1 " + (triangles[i + 1] + 1) + "//1 " + (triangles[i + 2] + 1) + "//1\n");
+          }
+        }
+        break;
+      case "off":
+        this.file = Files.createTempFile("cineast-mesh", ".off");
+        this.decoder = new OFFMeshDecoder();
+        try (BufferedWriter writer = Files.newBufferedWriter(this.file)) {
+          writer.write("OFF\n" + (positions.length / 3) + " " + (triangles.length / 3) + " 0\n");
+          for (int i = 0; i < positions.length; i += 3) {
+            writer.write(positions[i] + " " + positions[i + 1] + " " + positions[i + 2] + "\n");
+          }
+          for (int i = 0; i < triangles.length; i += 3) {
+            writer.write("3 " + triangles[i] + " " + triangles[i + 1] + " " + triangles[i + 2] + "\n");
+          }
+        }
+        break;
+      case "stl":
+        this.file = Files.createTempFile("cineast-mesh", ".stl");
+        this.decoder = new STLMeshDecoder();
+        try (BufferedWriter writer = Files.newBufferedWriter(this.file)) {
+          writer.write("solid grid\n");
+          for (int i = 0; i < triangles.length; i += 3) {
+            writer.write("  facet normal 0 0 1\n    outer loop\n");
+            for (int c = 0; c < 3; c++) {
+              final int v = 3 * triangles[i + c];
+              writer.write("      vertex " + positions[v] + " " + positions[v + 1] + " " + positions[v + 2] + "\n");
+            }
+            writer.write("    endloop\n  endfacet\n");
+          }
+          writer.write("endsolid grid\n");
+        }
+        break;
+      case "binary-stl":
+        this.file = Files.createTempFile("cineast-mesh", ".stl");
+        this.decoder = new STLMeshDecoder();
+        final ByteBuffer buffer = ByteBuffer.allocate(84 + 50 * (triangles.length / 3)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(80);
+        buffer.putInt(triangles.length / 3);
+        for (int i = 0; i < triangles.length; i += 3) {
+          buffer.putFloat(0.0f).putFloat(0.0f).putFloat(1.0f);
+          for (int c = 0; c < 3; c++) {
+            final int v = 3 * triangles[i + c];
+            buffer.putFloat(positions[v]).putFloat(positions[v + 1]).putFloat(positions[v + 2]);
+          }
+          buffer.putShort((short) 0);
+        }
+        Files.write(this.file, buffer.array());
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown format " + this.format);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(this.file);
+  }
+
+  @Benchmark
+  public ArrayMesh parse() throws IOException {
+    switch (this.format) {
+      case "obj":
+        return OBJMeshDecoder.read(this.file);
+      case "off":
+        return OFFMeshDecoder.read(this.file);
+      default:
+        return STLMeshDecoder.read(this.file);
+    }
+  }
+
+  @Benchmark
+  public ReadableMesh decode() {
+    this.decoder.init(this.file, null, null);
+    return this.decoder.getNext();
+  }
+
+  @Benchmark
+  public Model3DSegment segment() {
+    return new Model3DSegment(this.decode());
+  }
+
+  @Benchmark
+  public Model3DSegment segmentFromMesh() throws IOException {
+    return new Model3DSegment(this.parse().toMesh());
+  }
+}
@@ -0,0 +1,110 @@
+package org.vitrivr.cineast.core.extraction.idgenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vitrivr.cineast.core.data.MediaType;
+
+/**
+ * Compares the stream based SHA-1 of the original Sha1ObjectIdGenerator with the {@link ContentHasher} modes and a lookup in the {@link ContentHashIndex} on a generated file of random content. The file is written once per trial and will usually sit in the page cache, so the numbers measure hashing rather than disk throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ContentHasherBenchmark {
+
+  /**
+   * Size of the generated file in MiB.
+   */
+  @Param({"64", "1024"})
+  public int size;
+
+  private Path file;
+
+  private Path sidecar;
+
+  private ContentHasher sha1;
+
+  private ContentHasher tree;
+
+  private ContentHasher fast;
+
+  private Sha1ObjectIdGenerator cached;
+
+  @Setup
+  public void setup() throws IOException {
+    this.file = Files.createTempFile("cineast-hash-benchmark", ".bin");
+    final SplittableRandom random = new SplittableRandom(42L);
+    final byte[] block = new byte[1 << 20];
+    try (OutputStream out = Files.newOutputStream(this.file)) {
+      for (int i = 0; i < this.size; i++) {
+        for (int j = 0; j < block.length; j += Long.BYTES) {
+          long value = random.nextLong();
+          for (int k = 0; k < Long.BYTES; k++, value >>>= 8) {
+            block[j + k] = (byte) value;
+          }
+        }
+        out.write(block);
+      }
+    }
+    this.sha1 = new ContentHasher(ContentHasher.Mode.SHA1);
+    this.tree = new ContentHasher(ContentHasher.Mode.TREE);
+    this.fast = new ContentHasher(ContentHasher.Mode.FAST);
+    this.sidecar = Files.createTempFile("cineast-hash-benchmark", ".tsv");
+    Files.delete(this.sidecar);
+    this.cached = new Sha1ObjectIdGenerator(Collections.singletonMap("cache", this.sidecar.toString()));
+    this.cached.next(this.file, MediaType.VIDEO);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(this.file);
+    Files.deleteIfExists(this.sidecar);
+  }
+
+  @Benchmark
+  public String stream() throws IOException {
+    try (InputStream is = Files.newInputStream(this.file)) {
+      return DigestUtils.sha1Hex(is);
+    }
+  }
+
+  @Benchmark
+  public String sha1() throws IOException {
+    return this.sha1.hash(this.file);
+  }
+
+  @Benchmark
+  public String tree() throws IOException {
+    return this.tree.hash(this.file);
+  }
+
+  @Benchmark
+  public String fast() throws IOException {
+    return this.fast.hash(this.file);
+  }
+
+  @Benchmark
+  public String cached() {
+    return this.cached.next(this.file, MediaType.VIDEO).get();
+  }
+}
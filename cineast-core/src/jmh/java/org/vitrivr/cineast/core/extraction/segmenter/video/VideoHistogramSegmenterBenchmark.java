@@ -0,0 +1,82 @@
+package org.vitrivr.cineast.core.extraction.segmenter.video;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vitrivr.cineast.core.data.entities.MediaObjectDescriptor;
+import org.vitrivr.cineast.core.data.frames.VideoFrame;
+import org.vitrivr.cineast.core.extraction.segmenter.general.Segmenter;
+import org.vitrivr.cineast.core.util.synthetic.SyntheticMedia;
+
+/**
+ * Shot segmentation of a generated video with the {@link VideoHistogramSegmenter}, in frames per second. The frames are generated up front and merely wrapped in a new image when "decoded", so the score reflects thumbnailing, histograms and cut detection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VideoHistogramSegmenterBenchmark {
+
+  private static final int FRAMES = 500;
+
+  /**
+   * Width of the frames; the height is three quarters of it. Frames wider than 200 pixels are scaled down to a thumbnail first.
+   */
+  @Param({"160", "640"})
+  public int width;
+
+  /**
+   * Number of histogram workers of the {@link VideoHistogramSegmenter}.
+   */
+  @Param({"1", "4"})
+  public int workers;
+
+  private int height;
+
+  private int[][] frames;
+
+  @Setup
+  public void setup() {
+    this.height = this.width * 3 / 4;
+    final SyntheticMedia media = new SyntheticMedia(42L);
+    final int[] boundaries = media.shotBoundaries(0, FRAMES);
+    this.frames = new int[FRAMES][];
+    for (int f = 0; f < FRAMES; f++) {
+      this.frames[f] = media.videoFrame(0, boundaries, f, this.width, this.height);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(FRAMES)
+  public void segment() {
+    final Segmenter<VideoFrame> segmenter = new VideoHistogramSegmenter(VideoHistogramSegmenterTest.context(), Map.of("workers", Integer.toString(this.workers)));
+    segmenter.init(new VideoHistogramSegmenterTest.FixtureDecoder(this.frames, this.width, this.height), new MediaObjectDescriptor());
+
+    /* Segments are drained on another thread; waiting for Segmenter#complete() would add a polling timeout to every invocation. */
+    final Thread consumer = new Thread(() -> {
+      try {
+        while (!segmenter.complete()) {
+          segmenter.getNext();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    consumer.setDaemon(true);
+    consumer.start();
+    segmenter.run();
+  }
+}
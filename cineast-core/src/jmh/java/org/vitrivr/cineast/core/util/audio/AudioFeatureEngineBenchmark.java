@@ -0,0 +1,78 @@
+package org.vitrivr.cineast.core.util.audio;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.vitrivr.cineast.core.util.dsp.fft.STFT;
+import org.vitrivr.cineast.core.util.dsp.fft.windows.BlackmanHarrisWindow;
+import org.vitrivr.cineast.core.util.dsp.fft.windows.HanningWindow;
+
+/**
+ * Measures the MFCC, HPCP and CENS calculation of the {@link AudioFeatureEngine} on long synthetic audio, using the STFT parameters of MFCCShingle, AverageHPCP and CENS. The STFTs are calculated during setup, so only the feature extraction is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AudioFeatureEngineBenchmark {
+
+  private static final float SAMPLINGRATE = 44100.0f;
+
+  /**
+   * CENS(w,d) settings of the CENS feature module.
+   */
+  private static final int[][] CENS_SETTINGS = {{11, 2}, {21, 5}, {41, 10}, {81, 20}};
+
+  /**
+   * Duration of the synthetic audio in seconds.
+   */
+  @Param({"60"})
+  public float seconds;
+
+  /**
+   * STFT with the parameters of MFCCShingle and AverageHPCP (200ms windows).
+   */
+  private STFT shingle;
+
+  /**
+   * STFT with the parameters of CENS (100ms windows).
+   */
+  private STFT cens;
+
+  @Setup
+  public void setup() {
+    final double[] tones = AudioFeatureEngineTest.tones(SAMPLINGRATE, this.seconds, 261.63, 329.63, 392.0, 1046.5);
+    final double[] chirp = AudioFeatureEngineTest.chirp(SAMPLINGRATE, this.seconds, 100.0, 8000.0);
+    final double[] samples = new double[tones.length];
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = 0.5 * (tones[i] + chirp[i]);
+    }
+    this.shingle = AudioFeatureEngineTest.stft(samples, SAMPLINGRATE, 16384, 4410, 3782, new HanningWindow());
+    this.cens = AudioFeatureEngineTest.stft(samples, SAMPLINGRATE, 8192, 1470, 1891, new BlackmanHarrisWindow());
+  }
+
+  @Benchmark
+  public float[][] mfccEngine() {
+    return AudioFeatureEngine.mfcc(this.shingle);
+  }
+
+  @Benchmark
+  public float[][] averageHpcpEngine() {
+    return AudioFeatureEngine.hpcp(this.shingle, HPCP.Resolution.THIRDSEMITON, 50.0f, 5000.0f);
+  }
+
+  @Benchmark
+  public double[][] censEngine() {
+    final float[][] hpcps = AudioFeatureEngine.hpcp(this.cens, HPCP.Resolution.FULLSEMITONE, 50.0f, 5000.0f);
+    double[][] result = null;
+    for (int[] setting : CENS_SETTINGS) {
+      result = AudioFeatureEngine.cens(hpcps, HPCP.Resolution.FULLSEMITONE, setting[0], setting[1]);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,72 @@
+package org.vitrivr.cineast.core.util.audio.pitch;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.vitrivr.cineast.core.data.Pair;
+import org.vitrivr.cineast.core.util.audio.AudioFeatureEngineTest;
+import org.vitrivr.cineast.core.util.audio.pitch.estimation.KLF0PitchEstimator;
+import org.vitrivr.cineast.core.util.audio.pitch.tracking.PitchTracker;
+import org.vitrivr.cineast.core.util.dsp.fft.FFTUtil;
+import org.vitrivr.cineast.core.util.dsp.fft.STFT;
+import org.vitrivr.cineast.core.util.dsp.fft.windows.HanningWindow;
+import org.vitrivr.cineast.core.util.dsp.filter.frequency.SpectralWhiteningFilter;
+
+/**
+ * Measures pitch estimation with {@link KLF0PitchEstimator} and tracking with {@link PitchTracker} on a synthetic melody over a chord, using the STFT parameters of MelodyEstimate. The STFT is calculated during setup and not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MelodyExtractionBenchmark {
+
+  private static final float SAMPLINGRATE = 44100.0f;
+
+  /**
+   * Duration of the synthetic audio in seconds.
+   */
+  @Param({"30"})
+  public float seconds;
+
+  private STFT stft;
+
+  private List<List<Pitch>> candidates;
+
+  private final PitchTracker tracker = new PitchTracker();
+
+  @Setup
+  public void setup() {
+    final int[] notes = new int[(int) (this.seconds * 4)];
+    for (int i = 0; i < notes.length; i++) {
+      notes[i] = 60 + (7 * i) % 15;
+    }
+    this.stft = stft(MelodyExtractionTest.melody(SAMPLINGRATE, 0.25f, notes));
+    this.candidates = new KLF0PitchEstimator().estimatePitch(this.stft);
+  }
+
+  private static STFT stft(double[] samples) {
+    final Pair<Integer, Integer> parameters = FFTUtil.parametersForDuration(SAMPLINGRATE, 0.048f);
+    final STFT stft = AudioFeatureEngineTest.stft(samples, SAMPLINGRATE, parameters.first, 0, parameters.second, new HanningWindow());
+    stft.applyFilter(new SpectralWhiteningFilter(stft.getWindowsize(), stft.getSamplingrate(), 0.33f, 30));
+    return stft;
+  }
+
+  @Benchmark
+  public List<List<Pitch>> estimateEngine() {
+    return new KLF0PitchEstimator().estimatePitch(this.stft);
+  }
+
+  @Benchmark
+  public Melody trackTracker() {
+    this.tracker.initialize(this.candidates, this.stft.timeStepsize());
+    this.tracker.trackPitches();
+    return this.tracker.extractMelody(10);
+  }
+}
@@ -0,0 +1,93 @@
+package org.vitrivr.cineast.core.util.clustering;
+
+import boofcv.alg.bow.ClusterVisualWords;
+import boofcv.struct.feature.TupleDesc_F64;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.ddogleg.clustering.AssignCluster;
+import org.ddogleg.clustering.FactoryClustering;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.vitrivr.cineast.core.data.FloatVectorImpl;
+import org.vitrivr.cineast.core.util.KMeansPP;
+import org.vitrivr.cineast.core.util.KMeansPP.KMenasResult;
+
+/**
+ * Codebook generation on synthetic descriptors of SURF (64) and HOG-like (128) size: BoofCV's {@link ClusterVisualWords} as used by the codebook generators so far, {@link KMeansPP} on boxed vectors and {@link KMeans} in full and mini-batch mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class KMeansBenchmark {
+
+  private static final int ROWS = 50_000;
+  private static final int WORDS = 256;
+  private static final int MODES = 1024;
+
+  @Param({"64", "128"})
+  public int dim;
+
+  private float[] data;
+  private List<TupleDesc_F64> descriptors;
+  private List<FloatVectorImpl> vectors;
+
+  /**
+   * Descriptors drawn from a mixture of Gaussians, so that the clustering has some structure to find.
+   */
+  @Setup
+  public void setup() {
+    final SplittableRandom random = new SplittableRandom(42L);
+    final float[] modes = new float[MODES * this.dim];
+    for (int i = 0; i < modes.length; i++) {
+      modes[i] = (float) random.nextDouble();
+    }
+    this.data = new float[ROWS * this.dim];
+    this.descriptors = new ArrayList<>(ROWS);
+    this.vectors = new ArrayList<>(ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      final int mode = random.nextInt(MODES);
+      final TupleDesc_F64 descriptor = new TupleDesc_F64(this.dim);
+      final float[] vector = new float[this.dim];
+      for (int d = 0; d < this.dim; d++) {
+        vector[d] = modes[mode * this.dim + d] + (float) ((random.nextDouble() - 0.5) * 0.2);
+        descriptor.value[d] = vector[d];
+      }
+      System.arraycopy(vector, 0, this.data, i * this.dim, this.dim);
+      this.descriptors.add(descriptor);
+      this.vectors.add(new FloatVectorImpl(vector));
+    }
+  }
+
+  @Benchmark
+  public AssignCluster<double[]> clusterVisualWords() {
+    final ClusterVisualWords cluster = new ClusterVisualWords(FactoryClustering.kMeans_F64(null, 200, 20, 1e-7), this.dim, 0xA1CF3B12);
+    for (TupleDesc_F64 descriptor : this.descriptors) {
+      cluster.addReference(descriptor);
+    }
+    cluster.process(WORDS);
+    return cluster.getAssignment();
+  }
+
+  @Benchmark
+  public KMenasResult<FloatVectorImpl> kMeansPP() {
+    return KMeansPP.kMeansPP(this.vectors, new FloatVectorImpl(new float[this.dim]), WORDS, 1e-7, 0xA1CF3B12);
+  }
+
+  @Benchmark
+  public KMeansResult kMeans() {
+    return new KMeans().maxIterations(200).tolerance(1e-7).fit(this.data, this.dim, WORDS);
+  }
+
+  @Benchmark
+  public KMeansResult miniBatch() {
+    return new KMeans().maxIterations(200).tolerance(1e-7).miniBatch(2048).fit(this.data, this.dim, WORDS);
+  }
+}
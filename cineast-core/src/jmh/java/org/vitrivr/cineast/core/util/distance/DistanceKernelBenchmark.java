@@ -0,0 +1,90 @@
+package org.vitrivr.cineast.core.util.distance;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Exact scan of a block of feature vectors with the scalar and the SIMD {@link DistanceKernel}. If the SIMD kernel is not available (see {@link DistanceKernels}), both variants measure the scalar kernel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DistanceKernelBenchmark {
+
+  private static final int BLOCK = 1024;
+
+  @Param({"64", "512", "2048"})
+  public int dim;
+
+  @Param({"scalar", "simd"})
+  public String kernel;
+
+  private DistanceKernel k;
+  private float[] query;
+  private float[] weights;
+  private float[][] block;
+
+  @Setup
+  public void setup() {
+    this.k = this.kernel.equals("simd") ? DistanceKernels.get() : DistanceKernels.scalar();
+    final SplittableRandom random = new SplittableRandom(42L);
+    this.query = vector(random, this.dim);
+    this.weights = vector(random, this.dim);
+    this.block = new float[BLOCK][];
+    for (int i = 0; i < BLOCK; i++) {
+      this.block[i] = vector(random, this.dim);
+    }
+  }
+
+  private static float[] vector(SplittableRandom random, int dim) {
+    final float[] v = new float[dim];
+    for (int i = 0; i < dim; i++) {
+      v[i] = (float) random.nextDouble();
+    }
+    return v;
+  }
+
+  @Benchmark
+  public void euclidean(Blackhole bh) {
+    for (float[] v : this.block) {
+      bh.consume(this.k.sumOfSquaredDifferences(this.query, v, this.dim));
+    }
+  }
+
+  @Benchmark
+  public void weightedEuclidean(Blackhole bh) {
+    for (float[] v : this.block) {
+      bh.consume(this.k.weightedSumOfSquaredDifferences(this.query, v, this.weights, this.dim));
+    }
+  }
+
+  @Benchmark
+  public void manhattan(Blackhole bh) {
+    for (float[] v : this.block) {
+      bh.consume(this.k.sumOfAbsoluteDifferences(this.query, v, this.dim));
+    }
+  }
+
+  @Benchmark
+  public void chiSquared(Blackhole bh) {
+    for (float[] v : this.block) {
+      bh.consume(this.k.chiSquared(this.query, v, this.dim));
+    }
+  }
+
+  @Benchmark
+  public void cosine(Blackhole bh) {
+    for (float[] v : this.block) {
+      bh.consume(this.k.cosineDistance(this.query, v, this.dim));
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package org.vitrivr.cineast.core.util.distance;
+
+import com.googlecode.javaewah.datastructure.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.vitrivr.cineast.core.data.TopKCollector;
+import org.vitrivr.cineast.core.util.distance.HammingIndex.Match;
+
+/**
+ * Near-duplicate detection over millions of synthetic 64 bit hashes: Every fifth code is random, the following four are copies with up to 6 flipped bits. Queries are copies of indexed codes with up to 4 flipped bits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HammingIndexBenchmark {
+
+  private static final int GROUP = 5;
+  private static final int QUERIES = 1024;
+  private static final int K = 5;
+  private static final int RADIUS = 6;
+
+  @Param({"1000000", "4000000"})
+  public int size;
+
+  private HammingIndex index;
+  private BitSet[] bitSets;
+  private long[] queries;
+  private int query = 0;
+
+  @Setup
+  public void setup() {
+    final SplittableRandom random = new SplittableRandom(42L);
+    final long[] codes = new long[this.size];
+    for (int i = 0; i < this.size; i++) {
+      codes[i] = i % GROUP == 0 ? random.nextLong() : perturb(random, codes[i - i % GROUP], random.nextInt(7));
+    }
+    this.index = HammingIndex.of(codes);
+    this.bitSets = new BitSet[this.size];
+    for (int i = 0; i < this.size; i++) {
+      this.bitSets[i] = toBitSet(codes[i]);
+    }
+    this.queries = new long[QUERIES];
+    for (int i = 0; i < QUERIES; i++) {
+      this.queries[i] = perturb(random, codes[random.nextInt(this.size)], random.nextInt(5));
+    }
+  }
+
+  private static long perturb(SplittableRandom random, long code, int bits) {
+    for (int i = 0; i < bits; i++) {
+      code ^= 1L << random.nextInt(64);
+    }
+    return code;
+  }
+
+  private static BitSet toBitSet(long code) {
+    final BitSet bitSet = new BitSet(64);
+    for (int i = 0; i < 64; i++) {
+      if ((code >>> i & 1L) != 0) {
+        bitSet.set(i);
+      }
+    }
+    return bitSet;
+  }
+
+  private long nextQuery() {
+    return this.queries[this.query++ & (QUERIES - 1)];
+  }
+
+  @Benchmark
+  public List<Match> knnIndex() {
+    return this.index.knn(this.nextQuery(), K, null);
+  }
+
+  @Benchmark
+  public List<Match> knnScan() {
+    return this.index.scan(this.nextQuery(), K, null);
+  }
+
+  @Benchmark
+  public List<Match> radiusIndex() {
+    return this.index.radius(this.nextQuery(), RADIUS, null);
+  }
+
+  @Benchmark
+  public List<Match> radiusScan() {
+    return this.index.scanRadius(this.nextQuery(), RADIUS, null);
+  }
+
+  /**
+   * Baseline: k-NN scan over {@link BitSet} objects with {@link BitSetHammingDistance}, as done by the file-based selectors before.
+   */
+  @Benchmark
+  public int[] knnBitSetScan() {
+    final BitSet query = toBitSet(this.nextQuery());
+    final BitSetHammingDistance distance = new BitSetHammingDistance();
+    final TopKCollector<Void> top = TopKCollector.smallest(K);
+    for (int i = 0; i < this.bitSets.length; i++) {
+      top.offer(distance.applyAsDouble(query, this.bitSets[i]), i);
+    }
+    return top.sortedIds();
+  }
+}
@@ -0,0 +1,43 @@
+package org.vitrivr.cineast.core.util.mesh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.vitrivr.cineast.core.data.m3d.VoxelGrid;
+
+/**
+ * Measures the SphericalHarmonics descriptor calculation of the {@link SphericalHarmonicsEngine} for the Low, Default and High configurations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SphericalHarmonicsBenchmark {
+
+  /**
+   * Configuration as grid size, min_l, max_l.
+   */
+  @Param({"64,0,3", "64,0,4", "74,1,5"})
+  public String configuration;
+
+  private VoxelGrid grid;
+  private SphericalHarmonicsEngine engine;
+
+  @Setup
+  public void setup() {
+    final String[] split = this.configuration.split(",");
+    final int gridSize = Integer.parseInt(split[0]);
+    this.grid = SphericalHarmonicsEngineTest.syntheticGrid(gridSize, 42L);
+    this.engine = SphericalHarmonicsEngine.getInstance(gridSize, Integer.parseInt(split[1]), Integer.parseInt(split[2]));
+  }
+
+  @Benchmark
+  public float[] engine() {
+    return this.engine.describe(this.grid);
+  }
+}
@@ -0,0 +1,80 @@
+package org.vitrivr.cineast.core.util.pose;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.vitrivr.cineast.core.data.score.ScoreElement;
+
+/**
+ * Measures a multi-person pose query against a {@link PoseIndex}: one k-nearest-neighbour scan per query skeleton, followed by the per-segment assignment in {@link PoseMatches#score(List, double, java.util.function.DoubleUnaryOperator, int)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PoseSearchBenchmark {
+
+  private static final int DIM = 12;
+
+  private static final double MAX_DISTANCE = DIM * Math.PI;
+
+  @Param({"100000", "1000000"})
+  public int skeletons;
+
+  @Param({"1", "2", "4"})
+  public int queryPersons;
+
+  @Param({"1000"})
+  public int k;
+
+  private PoseIndex index;
+
+  private List<float[][]> queries;
+
+  @Setup
+  public void setup() {
+    final SplittableRandom random = new SplittableRandom(42L);
+    final String[] segments = new String[this.skeletons];
+    final int[] persons = new int[this.skeletons];
+    final float[] angles = new float[this.skeletons * DIM];
+    final float[] weights = new float[this.skeletons * DIM];
+    int segment = 0;
+    for (int i = 0; i < this.skeletons; segment++) {
+      final int count = Math.min(1 + random.nextInt(4), this.skeletons - i);
+      for (int p = 0; p < count; p++, i++) {
+        segments[i] = "v_" + segment;
+        persons[i] = p;
+        for (int d = 0; d < DIM; d++) {
+          angles[i * DIM + d] = (float) ((random.nextDouble() * 4.0 - 2.0) * Math.PI);
+          weights[i * DIM + d] = random.nextInt(5) == 0 ? 0f : 1f;
+        }
+      }
+    }
+    this.index = new PoseIndex(DIM, segments, persons, angles, weights);
+    this.queries = new ArrayList<>(this.queryPersons);
+    for (int q = 0; q < this.queryPersons; q++) {
+      final float[] query = new float[DIM];
+      final float[] queryWeights = new float[DIM];
+      for (int d = 0; d < DIM; d++) {
+        query[d] = (float) ((random.nextDouble() * 4.0 - 2.0) * Math.PI);
+        queryWeights[d] = 1f;
+      }
+      this.queries.add(new float[][]{query, queryWeights});
+    }
+  }
+
+  @Benchmark
+  public List<ScoreElement> search() {
+    final List<PoseMatches> matches = this.queries.parallelStream().map(q -> this.index.nearest(q[0], q[1], this.k)).collect(Collectors.toList());
+    return PoseMatches.score(matches, MAX_DISTANCE, d -> 1.0 - d / MAX_DISTANCE, this.k);
+  }
+}
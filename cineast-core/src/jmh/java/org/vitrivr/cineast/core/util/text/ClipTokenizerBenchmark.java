@@ -0,0 +1,69 @@
+package org.vitrivr.cineast.core.util.text;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Throughput of tokenizing a query log with {@link ClipTokenizer}, by a single thread and by several threads sharing one instance. Uses the CLIP vocabulary in {@link ClipTokenizer#DEFAULT_VOCABULARY} if it exists and a vocabulary learned from the query log otherwise.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ClipTokenizerBenchmark {
+
+  private List<String> queries;
+
+  private Path vocabulary;
+
+  private boolean temporary;
+
+  private ClipTokenizer tokenizer;
+
+  private final AtomicInteger next = new AtomicInteger();
+
+  @Setup
+  public void setup() throws IOException {
+    this.queries = ClipTokenizerTest.queries(10_000, 42L);
+    this.vocabulary = Path.of(ClipTokenizer.DEFAULT_VOCABULARY);
+    if (!Files.exists(this.vocabulary)) {
+      this.vocabulary = ClipTokenizerTest.writeVocabulary(this.queries.subList(0, 1000), 400);
+      this.temporary = true;
+    }
+    this.tokenizer = new ClipTokenizer(this.vocabulary);
+  }
+
+  @TearDown
+  public void teardown() throws IOException {
+    if (this.temporary) {
+      Files.deleteIfExists(this.vocabulary);
+    }
+  }
+
+  private String query() {
+    return this.queries.get((this.next.getAndIncrement() & Integer.MAX_VALUE) % this.queries.size());
+  }
+
+  @Benchmark
+  public long[] tokenizeTokenizer() {
+    return this.tokenizer.clipTokenize(this.query());
+  }
+
+  @Benchmark
+  @Threads(4)
+  public long[] tokenizeTokenizerConcurrent() {
+    return this.tokenizer.clipTokenize(this.query());
+  }
+}
@@ -0,0 +1,74 @@
+package org.vitrivr.cineast.core.util.text;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * CPU throughput of the CTC text recognizer on rendered words, one crop per forward pass (as OCRSearch used to do) versus batches of crops. Expects the model in resources/SceneTextExtractor or at the path given by the system property cineast.ocr.recognizer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TextRecognizerBenchmark {
+
+  private static final int CROPS = 256;
+
+  @Param({"1", "8", "32", "128"})
+  public int batchSize;
+
+  private TextRecognizer_CTC recognizer;
+  private List<Mat> crops;
+
+  @Setup
+  public void setup() {
+    final String model = System.getProperty("cineast.ocr.recognizer");
+    this.recognizer = model == null ? new TextRecognizer_CTC().initialize() : new TextRecognizer_CTC().initialize(model);
+    final SplittableRandom random = new SplittableRandom(42L);
+    this.crops = new ArrayList<>(CROPS);
+    for (int i = 0; i < CROPS; i++) {
+      final char[] word = new char[3 + random.nextInt(6)];
+      for (int j = 0; j < word.length; j++) {
+        word[j] = (char) ('a' + random.nextInt(26));
+      }
+      final BufferedImage image = new BufferedImage(100, 32, BufferedImage.TYPE_BYTE_GRAY);
+      final Graphics2D graphics = image.createGraphics();
+      graphics.setColor(Color.WHITE);
+      graphics.fillRect(0, 0, 100, 32);
+      graphics.setColor(Color.BLACK);
+      graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 20));
+      graphics.drawString(new String(word), 4, 24);
+      graphics.dispose();
+      final Mat crop = new Mat(32, 100, CvType.CV_8UC1);
+      crop.put(0, 0, ((DataBufferByte) image.getRaster().getDataBuffer()).getData());
+      this.crops.add(crop);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.crops.forEach(Mat::release);
+  }
+
+  @Benchmark
+  public List<String> recognize() {
+    return this.recognizer.recognize(this.crops, this.batchSize);
+  }
+}
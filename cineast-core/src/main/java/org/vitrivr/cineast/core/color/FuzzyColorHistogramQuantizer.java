@@ -1,5 +1,6 @@
 package org.vitrivr.cineast.core.color;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -8,6 +9,13 @@ public class FuzzyColorHistogramQuantizer {
 
   private static final Logger LOGGER = LogManager.getLogger();
 
+  private static final Color[] COLORS = Color.values();
+
+  /**
+   * Lazily filled membership table of all 24 bit RGB colours, split into blocks of 4096 colours that share the upper four bits of every channel. A block is allocated when one of its colours is first quantized. Entries hold the ordinal of the {@link Color} plus one, zero means not yet computed; threads that race on an entry compute the same value, so no further synchronization is needed.
+   */
+  private static final AtomicReferenceArray<byte[]> TABLE = new AtomicReferenceArray<>(1 << 12);
+
   private FuzzyColorHistogramQuantizer() {
   }
 
@@ -65,6 +73,38 @@ static boolean isYellow(ReadableLabContainer lab) {
     return lab.b > 35f;
   }
 
+  /**
+   * Quantizes a packed RGB colour; the alpha channel is ignored. Yields the same {@link Color} as quantizing its Lab representation, but looks it up in a table shared by all threads after the first time.
+   *
+   * @param rgb Packed RGB colour.
+   * @return Ordinal of the quantized {@link Color}.
+   */
+  public static int index(int rgb) {
+    final int r = rgb >> 16 & 0xFF;
+    final int g = rgb >> 8 & 0xFF;
+    final int b = rgb & 0xFF;
+    final int block = (r >> 4) << 8 | (g >> 4) << 4 | (b >> 4);
+    byte[] entries = TABLE.get(block);
+    if (entries == null) {
+      TABLE.compareAndSet(block, null, new byte[1 << 12]);
+      entries = TABLE.get(block);
+    }
+    final int offset = (r & 0xF) << 8 | (g & 0xF) << 4 | (b & 0xF);
+    int entry = entries[offset];
+    if (entry == 0) {
+      entry = quantize(ColorConverter.RGBtoLab(new RGBContainer(rgb))).ordinal() + 1;
+      entries[offset] = (byte) entry;
+    }
+    return entry - 1;
+  }
+
+  /**
+   * Quantizes a packed RGB colour, see {@link #index(int)}.
+   */
+  public static Color quantize(int rgb) {
+    return COLORS[index(rgb)];
+  }
+
   public static Color quantize(ReadableLabContainer lab) {
 
     if (isWhite(lab)) {
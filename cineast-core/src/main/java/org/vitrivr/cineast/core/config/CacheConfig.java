@@ -13,6 +13,36 @@
 
 public final class CacheConfig {
 
+  /**
+   * Default maximum size of the feature vector cache in bytes.
+   */
+  public static final long DEFAULT_FEATURE_VECTOR_CACHE_SIZE = 128L * 1024 * 1024;
+
+  /**
+   * Default number of top results whose feature vectors are prefetched.
+   */
+  public static final int DEFAULT_FEATURE_VECTOR_PREFETCH_SIZE = 50;
+
+  /**
+   * Default time in minutes after which cached feature vectors expire.
+   */
+  public static final long DEFAULT_FEATURE_VECTOR_CACHE_EXPIRY = 10;
+
+  /**
+   * Default maximum number of individual segment descriptors in the segment cache.
+   */
+  public static final long DEFAULT_SEGMENT_CACHE_SIZE = 100_000;
+
+  /**
+   * Default maximum number of segment descriptors held by the per-object index of the segment cache.
+   */
+  public static final long DEFAULT_SEGMENT_INDEX_SIZE = 1_000_000;
+
+  /**
+   * Default time in minutes after which cached segment descriptors expire.
+   */
+  public static final long DEFAULT_SEGMENT_CACHE_EXPIRY = 10;
+
   private static final Logger LOGGER = LogManager.getLogger();
   private final UUID uuid = UUID.randomUUID();
   private Policy cachingPolicy = Policy.AUTOMATIC;
@@ -28,6 +58,30 @@ public final class CacheConfig {
    * maximum duration in seconds for which to cache a result
    */
   private long queryCacheDuration = 600;
+  /**
+   * maximum size in bytes of the feature vectors cached for query-by-example, 0 disables the cache
+   */
+  private long featureVectorCacheSize = DEFAULT_FEATURE_VECTOR_CACHE_SIZE;
+  /**
+   * number of top results of a query whose feature vectors are prefetched, 0 disables prefetching
+   */
+  private int featureVectorPrefetchSize = DEFAULT_FEATURE_VECTOR_PREFETCH_SIZE;
+  /**
+   * time in minutes after which cached feature vectors expire, so vectors written by another process are picked up
+   */
+  private long featureVectorCacheExpiry = DEFAULT_FEATURE_VECTOR_CACHE_EXPIRY;
+  /**
+   * maximum number of individual segment descriptors to cache
+   */
+  private long segmentCacheSize = DEFAULT_SEGMENT_CACHE_SIZE;
+  /**
+   * maximum number of segment descriptors held by the per-object index
+   */
+  private long segmentIndexSize = DEFAULT_SEGMENT_INDEX_SIZE;
+  /**
+   * time in minutes after which cached segment descriptors expire
+   */
+  private long segmentCacheExpiry = DEFAULT_SEGMENT_CACHE_EXPIRY;
 
   public CacheConfig() {
   }
@@ -181,6 +235,66 @@ public void setQueryCacheDuration(long queryCacheDuration) {
     }
   }
 
+  public long getFeatureVectorCacheSize() {
+    return featureVectorCacheSize;
+  }
+
+  /**
+   * negative value will disable cache
+   */
+  public void setFeatureVectorCacheSize(long featureVectorCacheSize) {
+    this.featureVectorCacheSize = Math.max(0, featureVectorCacheSize);
+  }
+
+  public int getFeatureVectorPrefetchSize() {
+    return featureVectorPrefetchSize;
+  }
+
+  /**
+   * negative value will disable prefetching
+   */
+  public void setFeatureVectorPrefetchSize(int featureVectorPrefetchSize) {
+    this.featureVectorPrefetchSize = Math.max(0, featureVectorPrefetchSize);
+  }
+
+  public long getFeatureVectorCacheExpiry() {
+    return featureVectorCacheExpiry;
+  }
+
+  public void setFeatureVectorCacheExpiry(long featureVectorCacheExpiry) {
+    this.featureVectorCacheExpiry = Math.max(1, featureVectorCacheExpiry);
+  }
+
+  public long getSegmentCacheSize() {
+    return segmentCacheSize;
+  }
+
+  /**
+   * negative value will disable cache
+   */
+  public void setSegmentCacheSize(long segmentCacheSize) {
+    this.segmentCacheSize = Math.max(0, segmentCacheSize);
+  }
+
+  public long getSegmentIndexSize() {
+    return segmentIndexSize;
+  }
+
+  /**
+   * negative value will disable the per-object index
+   */
+  public void setSegmentIndexSize(long segmentIndexSize) {
+    this.segmentIndexSize = Math.max(0, segmentIndexSize);
+  }
+
+  public long getSegmentCacheExpiry() {
+    return segmentCacheExpiry;
+  }
+
+  public void setSegmentCacheExpiry(long segmentCacheExpiry) {
+    this.segmentCacheExpiry = Math.max(1, segmentCacheExpiry);
+  }
+
   @Override
   public String toString() {
     return "\"cache\" : { \"cachePolicy\" : \"" + this.cachingPolicy.toString() + ", \"cacheLocation\" : \"" + this.cacheLocation.toString() + "\" }";
@@ -0,0 +1,330 @@
+package org.vitrivr.cineast.core.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects the k best scored candidates of a scan. Replaces {@link FixedSizePriorityQueue} on hot paths.
+ * <p>
+ * Implemented as a bounded binary heap over parallel primitive arrays, with the worst retained candidate at the root. Offering a candidate that does not make it into the top k costs a single comparison and never allocates. The arrays start small and grow with the number of retained candidates up to k, so a large k does not cost memory for candidates that never arrive. Candidates are identified by an int ID and may carry an optional payload. Ties in score are broken by ID: the smaller ID wins. Payload candidates offered without explicit ID are numbered in the order they are offered, i.e. ties are broken in favour of the earlier candidate.
+ * <p>
+ * Partial results of multiple threads can be combined using {@link #merge(TopKCollector)}. Instances are not thread-safe.
+ *
+ * @param <T> Type of the optional payload.
+ */
+public final class TopKCollector<T> {
+
+  /**
+   * Initial capacity of the heap arrays if k is larger.
+   */
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * Number of candidates to retain.
+   */
+  private final int k;
+
+  /**
+   * True if small scores are better (e.g. distances), false if large scores are better (e.g. similarities).
+   */
+  private final boolean ascending;
+
+  /**
+   * Heap of retained candidates. Scores are stored such that a larger key is a worse candidate.
+   */
+  private double[] keys;
+  private int[] ids;
+  private Object[] payloads;
+
+  /**
+   * Number of retained candidates.
+   */
+  private int size = 0;
+
+  /**
+   * ID assigned to the next payload offered without explicit ID.
+   */
+  private int sequence = 0;
+
+  private TopKCollector(int k, boolean ascending) {
+    if (k < 0) {
+      throw new IllegalArgumentException("k must not be negative.");
+    }
+    this.k = k;
+    this.ascending = ascending;
+    final int capacity = Math.min(k, INITIAL_CAPACITY);
+    this.keys = new double[capacity];
+    this.ids = new int[capacity];
+    this.payloads = new Object[capacity];
+  }
+
+  /**
+   * Creates a {@link TopKCollector} that retains the k candidates with the smallest scores, e.g. nearest neighbours by distance.
+   */
+  public static <T> TopKCollector<T> smallest(int k) {
+    return new TopKCollector<>(k, true);
+  }
+
+  /**
+   * Creates a {@link TopKCollector} that retains the k candidates with the largest scores, e.g. best matches by similarity.
+   */
+  public static <T> TopKCollector<T> largest(int k) {
+    return new TopKCollector<>(k, false);
+  }
+
+  /**
+   * Returns true if a candidate with the given score might be retained, i.e. if the collector is not full yet or the score is at least as good as the worst retained score. Can be used to skip preparing a payload for candidates that would be discarded anyway.
+   */
+  public boolean accepts(double score) {
+    return this.size < this.k || (this.k > 0 && this.key(score) <= this.keys[0]);
+  }
+
+  /**
+   * Offers a candidate without payload.
+   *
+   * @param score The candidate's score.
+   * @param id    The candidate's ID.
+   * @return True if the candidate was retained.
+   */
+  public boolean offer(double score, int id) {
+    return this.insert(this.key(score), id, null);
+  }
+
+  /**
+   * Offers a candidate with payload. The candidate's ID is assigned in order of invocation.
+   *
+   * @param score   The candidate's score.
+   * @param payload The candidate's payload.
+   * @return True if the candidate was retained.
+   */
+  public boolean offer(double score, T payload) {
+    return this.insert(this.key(score), this.sequence++, payload);
+  }
+
+  /**
+   * Offers a candidate with ID and payload.
+   *
+   * @param score   The candidate's score.
+   * @param id      The candidate's ID.
+   * @param payload The candidate's payload.
+   * @return True if the candidate was retained.
+   */
+  public boolean offer(double score, int id, T payload) {
+    return this.insert(this.key(score), id, payload);
+  }
+
+  /**
+   * Offers all candidates retained by another {@link TopKCollector} (e.g. the partial result of another thread) to this one. Both collectors must have the same order.
+   */
+  public void merge(TopKCollector<? extends T> other) {
+    if (other.ascending != this.ascending) {
+      throw new IllegalArgumentException("Cannot merge collectors of different order.");
+    }
+    for (int i = 0; i < other.size; i++) {
+      this.insert(other.keys[i], other.ids[i], other.payloads[i]);
+    }
+  }
+
+  /**
+   * Returns the number of retained candidates.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the maximum number of retained candidates.
+   */
+  public int getK() {
+    return this.k;
+  }
+
+  /**
+   * Returns true if no candidate has been retained.
+   */
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Returns the worst retained score. Only meaningful if the collector is not empty.
+   */
+  public double worstScore() {
+    return this.key(this.keys[0]);
+  }
+
+  /**
+   * Removes all retained candidates.
+   */
+  public void clear() {
+    Arrays.fill(this.payloads, 0, this.size, null);
+    this.size = 0;
+    this.sequence = 0;
+  }
+
+  /**
+   * Returns the IDs of the retained candidates, best first.
+   */
+  public int[] sortedIds() {
+    final int[] order = this.order();
+    final int[] result = new int[order.length];
+    for (int i = 0; i < order.length; i++) {
+      result[i] = this.ids[order[i]];
+    }
+    return result;
+  }
+
+  /**
+   * Returns the scores of the retained candidates, best first.
+   */
+  public double[] sortedScores() {
+    final int[] order = this.order();
+    final double[] result = new double[order.length];
+    for (int i = 0; i < order.length; i++) {
+      result[i] = this.key(this.keys[order[i]]);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the payloads of the retained candidates, best first.
+   */
+  @SuppressWarnings("unchecked")
+  public List<T> sortedPayloads() {
+    final int[] order = this.order();
+    final List<T> result = new ArrayList<>(order.length);
+    for (int slot : order) {
+      result.add((T) this.payloads[slot]);
+    }
+    return result;
+  }
+
+  /**
+   * Converts a score into a heap key (larger key = worse candidate). The conversion is its own inverse.
+   */
+  private double key(double score) {
+    return this.ascending ? score : -score;
+  }
+
+  /**
+   * Returns true if the candidate (keyA, idA) is worse than (keyB, idB).
+   */
+  private static boolean worse(double keyA, int idA, double keyB, int idB) {
+    return keyA > keyB || (keyA == keyB && idA > idB);
+  }
+
+  private boolean insert(double key, int id, Object payload) {
+    if (Double.isNaN(key)) {
+      return false;
+    }
+    if (this.size < this.k) {
+      if (this.size == this.keys.length) {
+        this.grow();
+      }
+      this.siftUp(this.size++, key, id, payload);
+      return true;
+    }
+    if (this.k == 0 || !worse(this.keys[0], this.ids[0], key, id)) {
+      return false;
+    }
+    this.siftDown(0, this.size, key, id, payload);
+    return true;
+  }
+
+  /**
+   * Doubles the capacity of the heap arrays, up to k.
+   */
+  private void grow() {
+    final int capacity = (int) Math.min(this.k, 2L * this.keys.length);
+    this.keys = Arrays.copyOf(this.keys, capacity);
+    this.ids = Arrays.copyOf(this.ids, capacity);
+    this.payloads = Arrays.copyOf(this.payloads, capacity);
+  }
+
+  /**
+   * Moves the candidate up from the given (empty) position until the heap property holds.
+   */
+  private void siftUp(int pos, double key, int id, Object payload) {
+    while (pos > 0) {
+      final int parent = (pos - 1) >>> 1;
+      if (!worse(key, id, this.keys[parent], this.ids[parent])) {
+        break;
+      }
+      this.keys[pos] = this.keys[parent];
+      this.ids[pos] = this.ids[parent];
+      this.payloads[pos] = this.payloads[parent];
+      pos = parent;
+    }
+    this.keys[pos] = key;
+    this.ids[pos] = id;
+    this.payloads[pos] = payload;
+  }
+
+  /**
+   * Moves the candidate down from the given (empty) position within the first n elements until the heap property holds.
+   */
+  private void siftDown(int pos, int n, double key, int id, Object payload) {
+    final int half = n >>> 1;
+    while (pos < half) {
+      int child = 2 * pos + 1;
+      final int right = child + 1;
+      if (right < n && worse(this.keys[right], this.ids[right], this.keys[child], this.ids[child])) {
+        child = right;
+      }
+      if (!worse(this.keys[child], this.ids[child], key, id)) {
+        break;
+      }
+      this.keys[pos] = this.keys[child];
+      this.ids[pos] = this.ids[child];
+      this.payloads[pos] = this.payloads[child];
+      pos = child;
+    }
+    this.keys[pos] = key;
+    this.ids[pos] = id;
+    this.payloads[pos] = payload;
+  }
+
+  /**
+   * Returns the heap positions of the retained candidates, best first. Sorts a copy of the heap by repeatedly extracting the worst candidate.
+   */
+  private int[] order() {
+    final int n = this.size;
+    final double[] k = Arrays.copyOf(this.keys, n);
+    final int[] id = Arrays.copyOf(this.ids, n);
+    final int[] slot = new int[n];
+    for (int i = 0; i < n; i++) {
+      slot[i] = i;
+    }
+    for (int end = n - 1; end > 0; end--) {
+      /* Swap worst candidate (root) to the end and restore heap on the remainder. */
+      swap(k, id, slot, 0, end);
+      int pos = 0;
+      final int half = end >>> 1;
+      while (pos < half) {
+        int child = 2 * pos + 1;
+        if (child + 1 < end && worse(k[child + 1], id[child + 1], k[child], id[child])) {
+          child++;
+        }
+        if (!worse(k[child], id[child], k[pos], id[pos])) {
+          break;
+        }
+        swap(k, id, slot, pos, child);
+        pos = child;
+      }
+    }
+    return slot;
+  }
+
+  private static void swap(double[] k, int[] id, int[] slot, int a, int b) {
+    final double tk = k[a];
+    k[a] = k[b];
+    k[b] = tk;
+    final int ti = id[a];
+    id[a] = id[b];
+    id[b] = ti;
+    final int ts = slot[a];
+    slot[a] = slot[b];
+    slot[b] = ts;
+  }
+}
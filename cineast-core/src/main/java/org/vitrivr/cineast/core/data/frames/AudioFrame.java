@@ -3,6 +3,7 @@
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
 import java.util.Objects;
 import javax.sound.sampled.AudioFormat;
 
@@ -130,6 +131,15 @@ public final byte[] getData() {
     return this.data.array();
   }
 
+  /**
+   * Returns a read-only view of the interleaved 16bit samples of this AudioFrame, i.e., the sample at index idx in channel c is at position idx * channels + c. No data is copied.
+   *
+   * @return ShortBuffer view of the frames data.
+   */
+  public final ShortBuffer getSamplesAsShortBuffer() {
+    return this.data.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+  }
+
   /**
    * Internal method to update the buffer holding the actual audio data.
    *
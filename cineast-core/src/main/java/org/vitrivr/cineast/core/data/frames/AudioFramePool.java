@@ -0,0 +1,86 @@
+package org.vitrivr.cineast.core.data.frames;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+
+/**
+ * A bounded pool of the byte arrays that back {@link AudioFrame}s. Decoders usually emit frames with a constant number of samples, so arrays are pooled by their exact length.
+ * <p>
+ * An {@link AudioFrame} may only be released once it is no longer referenced, i.e., not by a frame that has been added to a segment. It must not be used after it was released.
+ */
+public final class AudioFramePool {
+
+  /**
+   * Shared empty array, which is never pooled.
+   */
+  private static final byte[] EMPTY = new byte[0];
+
+  /**
+   * Pooled arrays by their length.
+   */
+  private final HashMap<Integer, ArrayDeque<byte[]>> arrays = new HashMap<>();
+
+  /**
+   * Maximum number of bytes held by this {@link AudioFramePool}.
+   */
+  private final long capacity;
+
+  /**
+   * Number of bytes currently held by this {@link AudioFramePool}.
+   */
+  private long size = 0;
+
+  /**
+   * @param capacity Maximum number of bytes held by the pool; arrays that are released beyond that are left to the garbage collector.
+   */
+  public AudioFramePool(long capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * Returns a pooled array of the given length or allocates a new one. The content of a pooled array is undefined.
+   *
+   * @param length Length of the array in bytes.
+   * @return Byte array of the given length.
+   */
+  public synchronized byte[] acquire(int length) {
+    if (length == 0) {
+      return EMPTY;
+    }
+    final ArrayDeque<byte[]> pooled = this.arrays.get(length);
+    if (pooled == null || pooled.isEmpty()) {
+      return new byte[length];
+    }
+    this.size -= length;
+    return pooled.poll();
+  }
+
+  /**
+   * Returns the array backing the given {@link AudioFrame} to the pool.
+   *
+   * @param frame The {@link AudioFrame} to release; must not be used afterwards.
+   */
+  public void release(AudioFrame frame) {
+    this.release(frame.getData());
+  }
+
+  /**
+   * Returns an array to the pool, unless the pool is full.
+   *
+   * @param array The array to release; must not be used afterwards.
+   */
+  public synchronized void release(byte[] array) {
+    if (array.length == 0 || this.size + array.length > this.capacity) {
+      return;
+    }
+    this.arrays.computeIfAbsent(array.length, l -> new ArrayDeque<>()).offer(array);
+    this.size += array.length;
+  }
+
+  /**
+   * @return Number of bytes currently held by this {@link AudioFramePool}.
+   */
+  public synchronized long size() {
+    return this.size;
+  }
+}
@@ -0,0 +1,433 @@
+package org.vitrivr.cineast.core.data.m3d;
+
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.math3.util.FastMath;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+
+/**
+ * A read-only {@link ReadableMesh} that keeps its vertices and faces in flat, primitive arrays instead of one object per vertex and face. It is what the mesh decoders parse into; the object graph of a {@link Mesh} is only built (once) if {@link #getVertices()}, {@link #getFaces()} or {@link #getVertex(int)} are invoked, or if {@link #toMesh()} is called explicitly.
+ * <p>
+ * Positions, colors and normals hold three floats per vertex. Faces hold four vertex indices each, where the fourth index is -1 for triangles. All derived properties (normals, surface area, bounds and barycenter) are calculated exactly as {@link Mesh} does it.
+ */
+public final class ArrayMesh implements ReadableMesh {
+
+  /**
+   * Positions of the vertices (x, y, z).
+   */
+  private final float[] positions;
+
+  /**
+   * Colors of the vertices (r, g, b).
+   */
+  private final float[] colors;
+
+  /**
+   * Vertex indices of the faces; four per face, the last one being -1 for triangles.
+   */
+  private final int[] indices;
+
+  /**
+   * The vertex-normals. Their value is lazily calculated during invocation of the @see getNormals() method.
+   */
+  private float[] normals;
+
+  /**
+   * The surface-area of the mesh. Its value is lazily calculated during invocation of the @see surfaceArea() method.
+   */
+  private Double surfaceArea;
+
+  /**
+   * The bounding box of the mesh. Its value is lazily calculated during invocation of the @see bounds() method.
+   */
+  private float[] boundingbox;
+
+  /**
+   * The position of the Mesh's barycenter. Its value is lazily calculated during invocation of the @see barycenter() method.
+   */
+  private Vector3f barycenter;
+
+  /**
+   * The {@link Mesh} representation of this ArrayMesh. Its value is lazily created during invocation of the @see toMesh() method.
+   */
+  private Mesh mesh;
+
+  private ArrayMesh(float[] positions, float[] colors, int[] indices) {
+    this.positions = positions;
+    this.colors = colors;
+    this.indices = indices;
+  }
+
+  /**
+   * Returns the positions of all vertices as (x, y, z) triplets. The array is not copied and must not be modified.
+   */
+  public float[] getPositions() {
+    return this.positions;
+  }
+
+  /**
+   * Returns the colors of all vertices as (r, g, b) triplets. The array is not copied and must not be modified.
+   */
+  public float[] getColors() {
+    return this.colors;
+  }
+
+  /**
+   * Returns the vertex indices of all faces, four per face. The fourth index of a triangle is -1. The array is not copied and must not be modified.
+   */
+  public int[] getIndices() {
+    return this.indices;
+  }
+
+  /**
+   * Returns the vertex-normals as (x, y, z) triplets. The normal of a vertex is the mean of the normals of the faces it participates in, just like in {@link Mesh}. The array is not copied and must not be modified.
+   */
+  public synchronized float[] getNormals() {
+    if (this.normals == null) {
+      this.normals = this.calculateNormals();
+    }
+    return this.normals;
+  }
+
+  /**
+   * Returns a {@link Mesh} with the same vertices and faces as this ArrayMesh. The {@link Mesh} is created upon first invocation and shared afterwards; callers that intend to modify it should copy it first.
+   *
+   * @return {@link Mesh} representation of this ArrayMesh.
+   */
+  public synchronized Mesh toMesh() {
+    if (this.mesh == null) {
+      this.mesh = new Mesh(this.positions, this.colors, this.indices);
+    }
+    return this.mesh;
+  }
+
+  @Override
+  public List<Mesh.Vertex> getVertices() {
+    return this.toMesh().getVertices();
+  }
+
+  @Override
+  public Mesh.Vertex getVertex(int vertexIndex) {
+    return this.toMesh().getVertex(vertexIndex);
+  }
+
+  @Override
+  public List<Mesh.Face> getFaces() {
+    return this.toMesh().getFaces();
+  }
+
+  @Override
+  public int numberOfVertices() {
+    return this.positions.length / 3;
+  }
+
+  @Override
+  public int numberOfFaces() {
+    return this.indices.length / 4;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return this.indices.length == 0;
+  }
+
+  @Override
+  public synchronized double surfaceArea() {
+    if (this.surfaceArea == null) {
+      double area = 0.0;
+      final Vector3f[] scratch = {new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f()};
+      for (int f = 0; f < this.numberOfFaces(); f++) {
+        area += this.area(f, scratch);
+      }
+      this.surfaceArea = area;
+    }
+    return this.surfaceArea;
+  }
+
+  /**
+   * Calculates the bounds of all vertices that are part of a face.
+   *
+   * @return Float-array spanning the bounds: {max_x, min_x, max_y, min_y, max_z, min_z}
+   */
+  @Override
+  public synchronized float[] bounds() {
+    if (this.boundingbox == null) {
+      final float[] bounds = new float[6];
+      if (!this.isEmpty()) {
+        bounds[0] = -Float.MAX_VALUE;
+        bounds[1] = Float.MAX_VALUE;
+        bounds[2] = -Float.MAX_VALUE;
+        bounds[3] = Float.MAX_VALUE;
+        bounds[4] = -Float.MAX_VALUE;
+        bounds[5] = Float.MAX_VALUE;
+        for (int index : this.indices) {
+          if (index < 0) {
+            continue;
+          }
+          for (int d = 0; d < 3; d++) {
+            final float value = this.positions[3 * index + d];
+            if (value > bounds[2 * d]) {
+              bounds[2 * d] = value;
+            }
+            if (value < bounds[2 * d + 1]) {
+              bounds[2 * d + 1] = value;
+            }
+          }
+        }
+      }
+      this.boundingbox = bounds;
+    }
+    return Arrays.copyOf(this.boundingbox, 6);
+  }
+
+  /**
+   * Calculates the barycenter as the mean of the face centroids weighted by the face areas, as {@link org.vitrivr.cineast.core.util.mesh.MeshMathUtil#barycenter(ReadableMesh)} does.
+   */
+  @Override
+  public synchronized Vector3fc barycenter() {
+    if (this.barycenter == null) {
+      final Vector3f barycenter = new Vector3f(0f, 0f, 0f);
+      final Vector3f centroid = new Vector3f();
+      final Vector3f[] scratch = {new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f()};
+      double total = 0.0;
+      for (int f = 0; f < this.numberOfFaces(); f++) {
+        final double area = this.area(f, scratch);
+        if (area > 0.0) {
+          final int corners = this.indices[4 * f + 3] > -1 ? 4 : 3;
+          centroid.set(0f, 0f, 0f);
+          for (int c = 0; c < corners; c++) {
+            final int v = 3 * this.indices[4 * f + c];
+            centroid.add(this.positions[v], this.positions[v + 1], this.positions[v + 2]);
+          }
+          centroid.div(corners == 3 ? 3.0f : 4.0f);
+          barycenter.add(centroid.mul((float) area));
+          total += area;
+        }
+      }
+      barycenter.div((float) total);
+      this.barycenter = barycenter;
+    }
+    return this.barycenter;
+  }
+
+  /**
+   * Loads the position of a vertex into the provided vector.
+   */
+  private Vector3f position(int vertex, Vector3f dest) {
+    return dest.set(this.positions[3 * vertex], this.positions[3 * vertex + 1], this.positions[3 * vertex + 2]);
+  }
+
+  /**
+   * Calculates the area of a face using the same formulas as {@link Mesh.Face#area()}.
+   *
+   * @param f       Index of the face.
+   * @param scratch Six vectors that are used as temporary storage.
+   * @return Area of the face.
+   */
+  private double area(int f, Vector3f[] scratch) {
+    final Vector3f v1 = this.position(this.indices[4 * f], scratch[0]);
+    final Vector3f v2 = this.position(this.indices[4 * f + 1], scratch[1]);
+    final Vector3f v3 = this.position(this.indices[4 * f + 2], scratch[2]);
+    if (this.indices[4 * f + 3] < 0) {
+      /* Sort the edges in ascending order of their length. */
+      final float[] lengths = {
+          scratch[3].set(v1).sub(v2).length(),
+          scratch[3].set(v2).sub(v3).length(),
+          scratch[3].set(v3).sub(v1).length()
+      };
+      Arrays.sort(lengths);
+      final float a = lengths[2];
+      final float b = lengths[1];
+      final float c = lengths[0];
+
+      /* Returns the area of the triangle according to Heron's Formula. */
+      final double area = 0.25 * FastMath.sqrt((a + (b + c)) * (c - (a - b)) * (c + (a - b)) * (a + (b - c)));
+      return Double.isNaN(area) ? 0.0f : area;
+    } else {
+      final Vector3f v4 = this.position(this.indices[4 * f + 3], scratch[3]);
+
+      /* Calculates the area of the face using Bretschneider's Formula. */
+      final float s1 = scratch[4].set(v1).sub(v2).length();
+      final float s2 = scratch[4].set(v2).sub(v3).length();
+      final float s3 = scratch[4].set(v3).sub(v4).length();
+      final float s4 = scratch[4].set(v4).sub(v1).length();
+      final float d1 = scratch[4].set(v1).sub(v3).length();
+      final float d2 = scratch[5].set(v2).sub(v4).length();
+      return 0.25 * FastMath.sqrt(4 * FastMath.pow(d1, 2) * FastMath.pow(d2, 2) - FastMath.pow((FastMath.pow(s2, 2) + FastMath.pow(s4, 2) - FastMath.pow(s1, 2) - FastMath.pow(s3, 2)), 2));
+    }
+  }
+
+  /**
+   * Calculates the vertex-normals. Every face contributes its normal divided by the number of faces of the vertex, in the order of the faces, which is what {@link Mesh} does when a vertex is attached to a face.
+   */
+  private float[] calculateNormals() {
+    final int faces = this.numberOfFaces();
+    final float[] normals = new float[this.positions.length];
+
+    /* Count the (distinct) faces every vertex participates in. */
+    final int[] degree = new int[this.numberOfVertices()];
+    for (int f = 0; f < faces; f++) {
+      for (int c = 0; c < 4; c++) {
+        if (this.isNewCorner(f, c)) {
+          degree[this.indices[4 * f + c]]++;
+        }
+      }
+    }
+
+    final Vector3f e1 = new Vector3f();
+    final Vector3f e2 = new Vector3f();
+    final Vector3f v0 = new Vector3f();
+    for (int f = 0; f < faces; f++) {
+      this.position(this.indices[4 * f], v0);
+      this.position(this.indices[4 * f + 1], e1).sub(v0);
+      this.position(this.indices[4 * f + 2], e2).sub(v0);
+      final Vector3f fn = e1.cross(e2).normalize();
+      if (Float.isNaN(fn.x) || Float.isNaN(fn.y) || Float.isNaN(fn.z)) {
+        continue;
+      }
+      for (int c = 0; c < 4; c++) {
+        if (this.isNewCorner(f, c)) {
+          final int v = this.indices[4 * f + c];
+          normals[3 * v] += fn.x / degree[v];
+          normals[3 * v + 1] += fn.y / degree[v];
+          normals[3 * v + 2] += fn.z / degree[v];
+        }
+      }
+    }
+    return normals;
+  }
+
+  /**
+   * Returns true if corner c of face f is a vertex that does not appear in an earlier corner of the same face.
+   */
+  private boolean isNewCorner(int f, int c) {
+    final int index = this.indices[4 * f + c];
+    if (index < 0) {
+      return false;
+    }
+    for (int p = 0; p < c; p++) {
+      if (this.indices[4 * f + p] == index) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Creates a new {@link Builder}.
+   *
+   * @param vertices Expected number of vertices (not a fixed limit).
+   * @param faces    Expected number of faces (not a fixed limit).
+   */
+  public static Builder builder(int vertices, int faces) {
+    return new Builder(vertices, faces);
+  }
+
+  /**
+   * Collects vertices and faces in growing primitive arrays. Not thread-safe.
+   */
+  public static final class Builder {
+
+    private float[] positions;
+
+    private float[] colors;
+
+    private int[] indices;
+
+    private int vertices = 0;
+
+    private int faces = 0;
+
+    private Builder(int vertices, int faces) {
+      this.positions = new float[3 * Math.max(vertices, 16)];
+      this.colors = new float[3 * Math.max(vertices, 16)];
+      this.indices = new int[4 * Math.max(faces, 16)];
+    }
+
+    /**
+     * Adds a white vertex.
+     *
+     * @return Index of the new vertex.
+     */
+    public int addVertex(float x, float y, float z) {
+      return this.addVertex(x, y, z, 1.0f, 1.0f, 1.0f);
+    }
+
+    /**
+     * Adds a vertex with the given color.
+     *
+     * @return Index of the new vertex.
+     */
+    public int addVertex(float x, float y, float z, float r, float g, float b) {
+      if (3 * this.vertices == this.positions.length) {
+        this.positions = Arrays.copyOf(this.positions, 2 * this.positions.length);
+        this.colors = Arrays.copyOf(this.colors, 2 * this.colors.length);
+      }
+      final int offset = 3 * this.vertices;
+      this.positions[offset] = x;
+      this.positions[offset + 1] = y;
+      this.positions[offset + 2] = z;
+      this.colors[offset] = r;
+      this.colors[offset + 1] = g;
+      this.colors[offset + 2] = b;
+      return this.vertices++;
+    }
+
+    /**
+     * Adds a new triangular face.
+     *
+     * @return True if the face was added, false if one of the indices points to a non-existing vertex.
+     */
+    public boolean addFace(int a, int b, int c) {
+      return this.addFace(a, b, c, -1);
+    }
+
+    /**
+     * Adds a new quadratic face. If d is -1, a triangular face is added instead.
+     *
+     * @return True if the face was added, false if one of the indices points to a non-existing vertex.
+     */
+    public boolean addFace(int a, int b, int c, int d) {
+      if (!this.exists(a) || !this.exists(b) || !this.exists(c) || (d != -1 && !this.exists(d))) {
+        return false;
+      }
+      if (4 * this.faces == this.indices.length) {
+        this.indices = Arrays.copyOf(this.indices, 2 * this.indices.length);
+      }
+      final int offset = 4 * this.faces++;
+      this.indices[offset] = a;
+      this.indices[offset + 1] = b;
+      this.indices[offset + 2] = c;
+      this.indices[offset + 3] = d;
+      return true;
+    }
+
+    private boolean exists(int index) {
+      return index >= 0 && index < this.vertices;
+    }
+
+    public int numberOfVertices() {
+      return this.vertices;
+    }
+
+    public int numberOfFaces() {
+      return this.faces;
+    }
+
+    /**
+     * Creates the {@link ArrayMesh}. The builder must not be used afterwards.
+     */
+    public ArrayMesh build() {
+      return new ArrayMesh(trim(this.positions, 3 * this.vertices), trim(this.colors, 3 * this.vertices), trim(this.indices, 4 * this.faces));
+    }
+
+    private static float[] trim(float[] array, int length) {
+      return array.length == length ? array : Arrays.copyOf(array, length);
+    }
+
+    private static int[] trim(int[] array, int length) {
+      return array.length == length ? array : Arrays.copyOf(array, length);
+    }
+  }
+}
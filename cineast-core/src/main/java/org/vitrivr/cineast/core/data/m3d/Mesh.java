@@ -63,6 +63,42 @@ public Mesh(ReadableMesh mesh) {
     }
   }
 
+  /**
+   * Creates a modifiable copy of the provided {@link ReadableMesh}. An {@link ArrayMesh} is copied straight from its primitive arrays, so that its own {@link Mesh} representation is not built along the way.
+   *
+   * @param mesh Mesh that should be copied.
+   * @return Copy of the provided mesh.
+   */
+  public static Mesh copyOf(ReadableMesh mesh) {
+    if (mesh instanceof ArrayMesh) {
+      final ArrayMesh array = (ArrayMesh) mesh;
+      return new Mesh(array.getPositions(), array.getColors(), array.getIndices());
+    }
+    return new Mesh(mesh);
+  }
+
+  /**
+   * Creates a Mesh from the primitive arrays of an {@link ArrayMesh}. Vertex-normals are calculated once all faces have been added, rather than whenever a vertex is attached to a face.
+   *
+   * @param positions Positions of the vertices, three floats per vertex.
+   * @param colors    Colors of the vertices, three floats per vertex.
+   * @param indices   Vertex indices of the faces, four per face with the last one being -1 for triangles.
+   */
+  Mesh(float[] positions, float[] colors, int[] indices) {
+    this(indices.length / 4, positions.length / 3);
+    for (int i = 0; i < positions.length; i += 3) {
+      this.vertices.add(new Vertex(new Vector3f(positions[i], positions[i + 1], positions[i + 2]), new Vector3f(colors[i], colors[i + 1], colors[i + 2]), new Vector3f(0.0f, 0.0f, 0.0f)));
+    }
+    for (int i = 0; i < indices.length; i += 4) {
+      this.faces.add(new Face(indices[i], indices[i + 1], indices[i + 2], indices[i + 3], false));
+    }
+    for (Vertex vertex : this.vertices) {
+      if (!vertex.faces.isEmpty()) {
+        vertex.rebuild();
+      }
+    }
+  }
+
   /**
    * Default constructor.
    *
@@ -390,6 +426,17 @@ private void attachToFace(Face face) {
       }
     }
 
+    /**
+     * Attaches the vertex to a face without re-calculating the vertex-normal. Only valid while faces are attached in order, one face at a time.
+     *
+     * @param face Face to which the vertex should be attached.
+     */
+    private void attachToFaceDeferred(Face face) {
+      if (this.faces.isEmpty() || this.faces.get(this.faces.size() - 1) != face) {
+        this.faces.add(face);
+      }
+    }
+
     /**
      * Detaches the vertex from a face, which causes the vertex-normal to be re-calculated.
      *
@@ -445,39 +492,34 @@ public class Face {
      * Constructor for a face.
      */
     private Face(Vector4i indices) {
-      /* If the w-index is greater than -1 a QUAD face is created. */
-      if (indices.w > -1) {
+      this(indices.x, indices.y, indices.z, indices.w, true);
+    }
+
+    /**
+     * Constructor for a face. If the w-index is greater than -1 a QUAD face is created.
+     *
+     * @param rebuild Whether the vertex-normals should be re-calculated as the vertices are attached to the face.
+     */
+    private Face(int x, int y, int z, int w, boolean rebuild) {
+      if (w > -1) {
         this.type = FaceType.QUAD;
-        this.vertices = new Vertex[4];
-        this.vertexIndices = new int[4];
+        this.vertexIndices = new int[]{x, y, z, w};
       } else {
         this.type = FaceType.TRI;
-        this.vertices = new Vertex[3];
-        this.vertexIndices = new int[3];
-      }
-
-      /* Store vertex-indices. */
-      this.vertexIndices[0] = indices.x;
-      this.vertexIndices[1] = indices.y;
-      this.vertexIndices[2] = indices.z;
-      if (this.getType() == FaceType.QUAD) {
-        this.vertexIndices[3] = indices.w;
+        this.vertexIndices = new int[]{x, y, z};
       }
 
-      /* Add vertices to face. */
-      this.vertices[0] = Mesh.this.vertices.get(this.vertexIndices[0]);
-      this.vertices[1] = Mesh.this.vertices.get(this.vertexIndices[1]);
-      this.vertices[2] = Mesh.this.vertices.get(this.vertexIndices[2]);
-      if (this.getType() == FaceType.QUAD) {
-        this.vertices[3] = Mesh.this.vertices.get(this.vertexIndices[3]);
+      /* Add vertices to face and attach face to vertices. */
+      this.vertices = new Vertex[this.vertexIndices.length];
+      for (int i = 0; i < this.vertexIndices.length; i++) {
+        this.vertices[i] = Mesh.this.vertices.get(this.vertexIndices[i]);
       }
-
-      /* Attach face to vertices. */
-      this.vertices[0].attachToFace(this);
-      this.vertices[1].attachToFace(this);
-      this.vertices[2].attachToFace(this);
-      if (this.getType() == FaceType.QUAD) {
-        this.vertices[3].attachToFace(this);
+      for (Vertex vertex : this.vertices) {
+        if (rebuild) {
+          vertex.attachToFace(this);
+        } else {
+          vertex.attachToFaceDeferred(this);
+        }
       }
     }
 
@@ -247,6 +247,26 @@ public final void toggleVoxel(boolean visible, int x, int y, int z) {
     }
   }
 
+  /**
+   * Converts the VoxelGrid into a flat, bit-packed occupancy array. The bit for the Voxel at (x, y, z) is found at index i = (x * sizeY + y) * sizeZ + z, i.e. in word i >>> 6 at position i & 63. A set bit indicates a visible Voxel.
+   *
+   * @return Bit-packed occupancy of the VoxelGrid.
+   */
+  public long[] toPackedOccupancy() {
+    final long[] occupancy = new long[(this.length + 63) >>> 6];
+    int i = 0;
+    for (int x = 0; x < this.sizeX; x++) {
+      for (int y = 0; y < this.sizeY; y++) {
+        for (int z = 0; z < this.sizeZ; z++, i++) {
+          if (this.voxelGrid[x][y][z] == Voxel.VISIBLE) {
+            occupancy[i >>> 6] |= 1L << (i & 63);
+          }
+        }
+      }
+    }
+    return occupancy;
+  }
+
   /**
    * Converts the VoxelGrid into a string that can be read by Matlab (e.g. for 3D scatter plots). The array contains the coordinates of all visible voxels.
    *
@@ -1,5 +1,6 @@
 package org.vitrivr.cineast.core.data.providers;
 
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import org.vitrivr.cineast.core.data.frames.AudioFrame;
@@ -32,8 +33,10 @@ default short[] getSamplesAsShort(int channel) {
     short[] samples = new short[this.getNumberOfSamples()];
     int idx = 0;
     for (AudioFrame frame : this.getAudioFrames()) {
+      final ShortBuffer buffer = samplesOf(frame, channel);
+      final int channels = frame.getChannels();
       for (int sample = 0; sample < frame.numberOfSamples(); sample++, idx++) {
-        samples[idx] = frame.getSampleAsShort(sample, channel);
+        samples[idx] = buffer.get(sample * channels + channel);
       }
     }
     return samples;
@@ -49,8 +52,10 @@ default double[] getSamplesAsDouble(int channel) {
     double[] samples = new double[this.getNumberOfSamples()];
     int idx = 0;
     for (AudioFrame frame : this.getAudioFrames()) {
+      final ShortBuffer buffer = samplesOf(frame, channel);
+      final int channels = frame.getChannels();
       for (int sample = 0; sample < frame.numberOfSamples(); sample++, idx++) {
-        samples[idx] = frame.getSampleAsDouble(sample, channel);
+        samples[idx] = (double) buffer.get(sample * channels + channel) / (double) Short.MAX_VALUE;
       }
     }
     return samples;
@@ -65,8 +70,14 @@ default short[] getMeanSamplesAsShort() {
     short[] samples = new short[this.getNumberOfSamples()];
     int idx = 0;
     for (AudioFrame frame : this.getAudioFrames()) {
-      for (int sample = 0; sample < frame.numberOfSamples(); sample++, idx++) {
-        samples[idx] = frame.getMeanSampleAsShort(sample);
+      final ShortBuffer buffer = frame.getSamplesAsShortBuffer();
+      final int channels = frame.getChannels();
+      for (int sample = 0, offset = 0; sample < frame.numberOfSamples(); sample++, idx++) {
+        int meanSample = 0;
+        for (int i = 0; i < channels; i++) {
+          meanSample += buffer.get(offset++);
+        }
+        samples[idx] = (short) (meanSample / channels);
       }
     }
     return samples;
@@ -81,13 +92,33 @@ default double[] getMeanSamplesAsDouble() {
     double[] samples = new double[this.getNumberOfSamples()];
     int idx = 0;
     for (AudioFrame frame : this.getAudioFrames()) {
-      for (int sample = 0; sample < frame.numberOfSamples(); sample++, idx++) {
-        samples[idx] = frame.getMeanSampleAsDouble(sample);
+      final ShortBuffer buffer = frame.getSamplesAsShortBuffer();
+      final int channels = frame.getChannels();
+      for (int sample = 0, offset = 0; sample < frame.numberOfSamples(); sample++, idx++) {
+        float meanSample = 0;
+        for (int i = 0; i < channels; i++) {
+          meanSample += buffer.get(offset++);
+        }
+        samples[idx] = (meanSample / (channels * Short.MAX_VALUE));
       }
     }
     return samples;
   }
 
+  /**
+   * Returns the {@link AudioFrame#getSamplesAsShortBuffer()} view of a frame, after checking the channel if the frame is not empty.
+   *
+   * @param frame   The {@link AudioFrame}.
+   * @param channel The channel that will be read (zero-based index).
+   * @return ShortBuffer view of the frames data.
+   */
+  private static ShortBuffer samplesOf(AudioFrame frame, int channel) {
+    if (frame.numberOfSamples() > 0 && channel >= frame.getChannels()) {
+      throw new IllegalArgumentException("The channel indexed must not exceed the number of channels!");
+    }
+    return frame.getSamplesAsShortBuffer();
+  }
+
   /**
    * Returns the total number of samples in the frames segment (i.e. across all frames).
    *
@@ -25,7 +25,7 @@ default ReadableMesh getMesh() {
    * @return Copy of the original 3D mesh.
    */
   default WritableMesh copyMesh() {
-    return new Mesh(this.getMesh());
+    return Mesh.copyOf(this.getMesh());
   }
 
   /**
@@ -46,6 +46,6 @@ default ReadableMesh getNormalizedMesh() {
    * @return Copy of the KHL transformed 3D mesh.
    */
   default WritableMesh copyNormalizedMesh() {
-    return new Mesh(this.getNormalizedMesh());
+    return Mesh.copyOf(this.getNormalizedMesh());
   }
 }
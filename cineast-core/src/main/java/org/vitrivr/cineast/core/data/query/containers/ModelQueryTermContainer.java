@@ -2,7 +2,9 @@
 
 import java.awt.image.BufferedImage;
 import java.util.Objects;
+import org.vitrivr.cineast.core.data.m3d.ArrayMesh;
 import org.vitrivr.cineast.core.data.m3d.Mesh;
+import org.vitrivr.cineast.core.data.m3d.ReadableMesh;
 import org.vitrivr.cineast.core.data.raw.CachedDataFactory;
 import org.vitrivr.cineast.core.data.raw.images.MultiImage;
 import org.vitrivr.cineast.core.util.mesh.MeshTransformUtil;
@@ -15,7 +17,7 @@ public class ModelQueryTermContainer extends AbstractQueryTermContainer {
   /**
    * Original Mesh as transferred by the client.
    */
-  private final Mesh mesh;
+  private final ReadableMesh mesh;
 
   /**
    * KHL transformed version of the original Mesh.
@@ -53,12 +55,12 @@ public ModelQueryTermContainer(String data) {
   }
 
   /**
-   * Constructor for {@link ModelQueryTermContainer} with a Mesh. Used for Query-by-Example.
+   * Constructor for {@link ModelQueryTermContainer} with a Mesh. Used for Query-by-Example. An {@link ArrayMesh} is read-only and therefore kept as is, any other Mesh is copied.
    *
    * @param mesh Mesh for which to create a {@link ModelQueryTermContainer}.
    */
-  public ModelQueryTermContainer(Mesh mesh) {
-    this.mesh = new Mesh(mesh);
+  public ModelQueryTermContainer(ReadableMesh mesh) {
+    this.mesh = mesh instanceof ArrayMesh ? mesh : Mesh.copyOf(mesh);
     this.normalizedMesh = MeshTransformUtil.khlTransform(mesh, 1.0f);
     this.image = MultiImage.EMPTY_MULTIIMAGE;
   }
@@ -87,7 +89,7 @@ public ModelQueryTermContainer(MultiImage image) {
   }
 
   @Override
-  public Mesh getMesh() {
+  public ReadableMesh getMesh() {
     return this.mesh;
   }
 
@@ -1,5 +1,6 @@
 package org.vitrivr.cineast.core.data.segments;
 
+import org.vitrivr.cineast.core.data.m3d.ArrayMesh;
 import org.vitrivr.cineast.core.data.m3d.Mesh;
 import org.vitrivr.cineast.core.data.m3d.ReadableMesh;
 import org.vitrivr.cineast.core.data.m3d.VoxelGrid;
@@ -17,7 +18,7 @@ public class Model3DSegment implements SegmentContainer {
   /**
    * The original 3D Mesh as extracted from a model file.
    */
-  private final Mesh mesh;
+  private final ReadableMesh mesh;
   /**
    * The KHL transformed version of the original Mesh.
    */
@@ -37,12 +38,12 @@ public class Model3DSegment implements SegmentContainer {
   private VoxelGrid grid;
 
   /**
-   * Default constructor for Model3DSegment
+   * Default constructor for Model3DSegment. An {@link ArrayMesh}, as returned by the mesh decoders, is read-only and therefore kept as is, any other Mesh is copied.
    *
    * @param mesh 3D Mesh associated with the segment.
    */
-  public Model3DSegment(Mesh mesh) {
-    this.mesh = new Mesh(mesh);
+  public Model3DSegment(ReadableMesh mesh) {
+    this.mesh = mesh instanceof ArrayMesh ? mesh : Mesh.copyOf(mesh);
     this.normalizedMesh = MeshTransformUtil.khlTransform(mesh, 1.0f);
   }
 
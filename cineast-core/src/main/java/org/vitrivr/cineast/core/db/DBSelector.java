@@ -167,6 +167,13 @@ default List<Map<String, PrimitiveTypeProvider>> getRows(String column, Relation
    */
   List<Map<String, PrimitiveTypeProvider>> getRows(String column, RelationalOperator operator, Iterable<PrimitiveTypeProvider> values, ReadableQueryConfig queryConfig);
 
+  /**
+   * Returns true if this {@link DBSelector} evaluates the conditions passed to {@link #getRowsAND(List, String, List, ReadableQueryConfig)} in a single query. The default implementation issues one query per condition and intersects the results in memory, which is expensive for range predicates on large entities.
+   */
+  default boolean supportsCompoundPredicates() {
+    return false;
+  }
+
   /**
    * Performs a boolean lookup based on multiple conditions, linked with AND. Each element of the list specifies one of the conditions - left middle right, i.e. id IN (1, 5, 7)
    *
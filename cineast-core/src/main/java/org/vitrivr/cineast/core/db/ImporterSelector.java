@@ -3,33 +3,59 @@
 import static org.vitrivr.cineast.core.util.CineastConstants.DB_DISTANCE_VALUE_QUALIFIER;
 import static org.vitrivr.cineast.core.util.CineastConstants.GENERIC_ID_COLUMN_QUALIFIER;
 
+import com.carrotsearch.hppc.LongArrayList;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.vitrivr.cineast.core.config.QueryConfig;
 import org.vitrivr.cineast.core.config.ReadableQueryConfig;
-import org.vitrivr.cineast.core.data.FixedSizePriorityQueue;
+import org.vitrivr.cineast.core.data.TopKCollector;
 import org.vitrivr.cineast.core.data.distance.DistanceElement;
 import org.vitrivr.cineast.core.data.providers.primitive.FloatTypeProvider;
 import org.vitrivr.cineast.core.data.providers.primitive.PrimitiveTypeProvider;
 import org.vitrivr.cineast.core.data.providers.primitive.ProviderDataType;
+import org.vitrivr.cineast.core.data.providers.primitive.StringTypeProvider;
+import org.vitrivr.cineast.core.db.fulltext.FulltextIndex;
 import org.vitrivr.cineast.core.importer.Importer;
-import org.vitrivr.cineast.core.util.distance.BitSetComparator;
 import org.vitrivr.cineast.core.util.distance.BitSetHammingDistance;
 import org.vitrivr.cineast.core.util.distance.Distance;
 import org.vitrivr.cineast.core.util.distance.FloatArrayDistance;
-import org.vitrivr.cineast.core.util.distance.PrimitiveTypeMapDistanceComparator;
+import org.vitrivr.cineast.core.util.distance.HammingIndex;
 
 public abstract class ImporterSelector<T extends Importer<?>> implements DBSelector {
 
   private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * Number of vectors per call to {@link FloatArrayDistance#distances(float[], float[][], double[])} in exact scans.
+   */
+  private static final int SCAN_BLOCK_SIZE = 256;
+
+  /**
+   * {@link HammingIndex}es over BITSET columns, keyed by file and column.
+   */
+  private static final Cache<String, HammingColumn> HAMMING_INDEXES = CacheBuilder.newBuilder().maximumSize(16).softValues().build();
+
+  /**
+   * {@link FulltextIndex}es over text columns, keyed by file and column.
+   */
+  private static final Cache<String, FulltextIndex> FULLTEXT_INDEXES = CacheBuilder.newBuilder().maximumSize(16).softValues().build();
+
   private final File baseDirectory;
   private File file;
   protected ImporterSelector(File baseDirectory) {
@@ -56,6 +82,12 @@ public void close() {
 
   @Override
   public <E extends DistanceElement> List<E> getNearestNeighboursGeneric(int k, PrimitiveTypeProvider queryProvider, String column, Class<E> distanceElementClass, ReadableQueryConfig queryConfig) {
+    if (queryProvider.getType().equals(ProviderDataType.BITSET)) {
+      final HammingColumn index = this.getHammingColumn(column);
+      if (index != null && queryProvider.getBitSet().nextSetBit(HammingIndex.BITS) < 0) {
+        return index.getNearestNeighbours(k, HammingIndex.pack(queryProvider.getBitSet()), distanceElementClass, queryConfig);
+      }
+    }
     List<Map<String, PrimitiveTypeProvider>> results;
     if (queryProvider.getType().equals(ProviderDataType.FLOAT_ARRAY) || queryProvider.getType().equals(ProviderDataType.INT_ARRAY)) {
       results = getNearestNeighbourRows(k, queryProvider.getFloatArray(), column, queryConfig);
@@ -65,6 +97,41 @@ public <E extends DistanceElement> List<E> getNearestNeighboursGeneric(int k, Pr
     return results.stream().map(m -> DistanceElement.create(distanceElementClass, m.get(GENERIC_ID_COLUMN_QUALIFIER).getString(), m.get(DB_DISTANCE_VALUE_QUALIFIER).getDouble())).limit(k).collect(Collectors.toList());
   }
 
+  /**
+   * Returns the {@link HammingIndex} over the given {@link ProviderDataType#BITSET} column of the current file, building it if necessary. Indexes are shared between selectors and rebuilt once the file has been modified.
+   *
+   * @return {@link HammingColumn} or null, if the column contains values that are not 64 bit codes.
+   */
+  private HammingColumn getHammingColumn(String column) {
+    final String key = this.file.getAbsolutePath() + "#" + column;
+    final long lastModified = this.file.lastModified();
+    final HammingColumn cached = HAMMING_INDEXES.getIfPresent(key);
+    if (cached != null && cached.lastModified == lastModified) {
+      return cached;
+    }
+
+    final List<String> ids = new ArrayList<>();
+    final LongArrayList codes = new LongArrayList();
+    final Importer<?> importer = newImporter(this.file);
+    Map<String, PrimitiveTypeProvider> map;
+    while ((map = importer.readNextAsMap()) != null) {
+      if (!map.containsKey(column) || !map.containsKey(GENERIC_ID_COLUMN_QUALIFIER)) {
+        continue;
+      }
+      try {
+        codes.add(HammingIndex.pack(map.get(column).getBitSet()));
+      } catch (IllegalArgumentException e) {
+        LOGGER.debug("Column {} contains codes longer than {} bits; falling back to table scan.", column, HammingIndex.BITS);
+        return null;
+      }
+      ids.add(map.get(GENERIC_ID_COLUMN_QUALIFIER).getString());
+    }
+    final HammingColumn index = new HammingColumn(lastModified, ids.toArray(new String[0]), HammingIndex.of(codes.toArray()));
+    HAMMING_INDEXES.put(key, index);
+    LOGGER.debug("Built Hamming index over {} codes of {}.", index.ids.length, key);
+    return index;
+  }
+
   /**
    * Full table scan. Don't do it for performance-intensive stuff.
    */
@@ -77,10 +144,9 @@ private List<Map<String, PrimitiveTypeProvider>> getNearestNeighbourRows(int k,
     Importer<?> importer = newImporter(this.file);
 
     Distance distance;
-    FixedSizePriorityQueue<Map<String, PrimitiveTypeProvider>> knn;
+    TopKCollector<Map<String, PrimitiveTypeProvider>> knn = TopKCollector.smallest(k);
     if (queryProvider.getType().equals(ProviderDataType.BITSET)) {
       distance = new BitSetHammingDistance();
-      knn = FixedSizePriorityQueue.create(k, new BitSetComparator(column, distance, queryProvider.getBitSet()));
     } else {
       throw new RuntimeException(queryProvider.getType().toString());
     }
@@ -90,27 +156,14 @@ private List<Map<String, PrimitiveTypeProvider>> getNearestNeighbourRows(int k,
       if (!map.containsKey(column)) {
         continue;
       }
-      double d;
-      if (queryProvider.getType().equals(ProviderDataType.BITSET)) {
-        d = distance.applyAsDouble(queryProvider.getBitSet(), map.get(column).getBitSet());
+      double d = distance.applyAsDouble(queryProvider.getBitSet(), map.get(column).getBitSet());
+      if (knn.accepts(d)) {
         map.put("distance", new FloatTypeProvider((float) d));
-        knn.add(map);
-      } else {
-        throw new RuntimeException(queryProvider.getType().toString());
+        knn.offer(d, map);
       }
     }
 
-    int len = Math.min(knn.size(), k);
-    ArrayList<Map<String, PrimitiveTypeProvider>> _return = new ArrayList<>(len);
-
-    for (Map<String, PrimitiveTypeProvider> i : knn) {
-      _return.add(i);
-      if (_return.size() >= len) {
-        break;
-      }
-    }
-
-    return _return;
+    return knn.sortedPayloads();
   }
 
 
@@ -123,8 +176,6 @@ public List<Map<String, PrimitiveTypeProvider>> getNearestNeighbourRows(int k, f
 
     FloatArrayDistance distance = FloatArrayDistance.fromQueryConfig(queryConfig);
 
-    FixedSizePriorityQueue<Map<String, PrimitiveTypeProvider>> knn = FixedSizePriorityQueue.create(k, new PrimitiveTypeMapDistanceComparator(column, vector, distance));
-
     HashSet<String> relevant = null;
     if (queryConfig.hasRelevantSegmentIds()) {
       Set<String> ids = queryConfig.getRelevantSegmentIds();
@@ -132,30 +183,49 @@ public List<Map<String, PrimitiveTypeProvider>> getNearestNeighbourRows(int k, f
       relevant.addAll(ids);
     }
 
+    /* At most the relevant segments can be retained; otherwise, the collector grows with the rows read. */
+    TopKCollector<Map<String, PrimitiveTypeProvider>> knn = TopKCollector.smallest(relevant == null ? k : Math.min(k, relevant.size()));
+
+    /* Rows are collected in blocks, whose distances to the query are computed at once. */
+    final float[][] block = new float[SCAN_BLOCK_SIZE][];
+    final List<Map<String, PrimitiveTypeProvider>> rows = new ArrayList<>(SCAN_BLOCK_SIZE);
+    final double[] distances = new double[SCAN_BLOCK_SIZE];
+
     Map<String, PrimitiveTypeProvider> map;
     while ((map = importer.readNextAsMap()) != null) {
       if (!map.containsKey(column)) {
         continue;
       }
-      if (relevant != null && !relevant.contains(map.get(GENERIC_ID_COLUMN_QUALIFIER))) {
+      if (relevant != null && (!map.containsKey(GENERIC_ID_COLUMN_QUALIFIER) || !relevant.contains(map.get(GENERIC_ID_COLUMN_QUALIFIER).getString()))) {
         continue;
       }
-      double d = distance.applyAsDouble(vector, PrimitiveTypeProvider.getSafeFloatArray(map.get(column)));
-      map.put("distance", new FloatTypeProvider((float) d));
-      knn.add(map);
+      block[rows.size()] = PrimitiveTypeProvider.getSafeFloatArray(map.get(column));
+      rows.add(map);
+      if (rows.size() == SCAN_BLOCK_SIZE) {
+        offerBlock(distance, vector, block, rows, distances, knn);
+      }
+    }
+    if (!rows.isEmpty()) {
+      offerBlock(distance, vector, Arrays.copyOf(block, rows.size()), rows, distances, knn);
     }
 
-    int len = Math.min(knn.size(), k);
-    ArrayList<Map<String, PrimitiveTypeProvider>> _return = new ArrayList<>(len);
+    return knn.sortedPayloads();
+  }
 
-    for (Map<String, PrimitiveTypeProvider> i : knn) {
-      _return.add(i);
-      if (_return.size() >= len) {
-        break;
+  /**
+   * Computes the distances between the query and a block of rows and offers the rows to the {@link TopKCollector}. Clears the list of rows afterwards.
+   */
+  private static void offerBlock(FloatArrayDistance distance, float[] query, float[][] block, List<Map<String, PrimitiveTypeProvider>> rows, double[] distances, TopKCollector<Map<String, PrimitiveTypeProvider>> knn) {
+    distance.distances(query, block, distances);
+    for (int i = 0; i < block.length; i++) {
+      final double d = distances[i];
+      if (knn.accepts(d)) {
+        final Map<String, PrimitiveTypeProvider> row = rows.get(i);
+        row.put("distance", new FloatTypeProvider((float) d));
+        knn.offer(d, row);
       }
     }
-
-    return _return;
+    rows.clear();
   }
 
   @Override
@@ -234,12 +304,112 @@ public List<Map<String, PrimitiveTypeProvider>> getRows(String column, Relationa
     throw new IllegalStateException("Not implemented.");
   }
 
+  /**
+   * Fulltext search with BM25 scores on an embedded {@link FulltextIndex}. The index is stored next to the file and rebuilt once the file has been modified.
+   */
+  @Override
   public List<Map<String, PrimitiveTypeProvider>> getFulltextRows(int rows, String column, ReadableQueryConfig queryConfig, String... terms) {
-    throw new IllegalStateException("Not implemented.");
+    Predicate<String> filter = null;
+    if (queryConfig != null && queryConfig.hasRelevantSegmentIds()) {
+      filter = queryConfig.getRelevantSegmentIds()::contains;
+    }
+    final List<FulltextIndex.Hit> hits = this.getFulltextIndex(column).search(rows, filter, terms);
+    final List<Map<String, PrimitiveTypeProvider>> results = new ArrayList<>(hits.size());
+    for (FulltextIndex.Hit hit : hits) {
+      final Map<String, PrimitiveTypeProvider> map = new HashMap<>(2);
+      map.put(GENERIC_ID_COLUMN_QUALIFIER, new StringTypeProvider(hit.id()));
+      map.put(DB_DISTANCE_VALUE_QUALIFIER, new FloatTypeProvider(hit.score()));
+      results.add(map);
+    }
+    return results;
+  }
+
+  /**
+   * Returns the {@link FulltextIndex} over the given column of the current file. Indexes are shared between selectors; an index stored on disk is used if it is up-to-date (e.g. because it was written along with the file), otherwise it is rebuilt from the file. Concurrent callers wait for a single load, since loading may rewrite the directory of the index.
+   */
+  private FulltextIndex getFulltextIndex(String column) {
+    final String key = this.file.getAbsolutePath() + "#" + column;
+    final long lastModified = this.file.lastModified();
+    final FulltextIndex cached = FULLTEXT_INDEXES.getIfPresent(key);
+    if (cached != null) {
+      if (cached.version() == lastModified) {
+        return cached;
+      }
+      FULLTEXT_INDEXES.asMap().remove(key, cached);
+    }
+    try {
+      return FULLTEXT_INDEXES.get(key, () -> this.loadFulltextIndex(key, column, lastModified));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Could not load fulltext index of " + key + ".", e.getCause());
+    }
+  }
+
+  /**
+   * Opens the {@link FulltextIndex} stored for the given column or rebuilds it from the current file, if it is not up-to-date.
+   */
+  private FulltextIndex loadFulltextIndex(String key, String column, long lastModified) {
+    FulltextIndex index;
+    try {
+      index = FulltextIndex.open(FulltextIndex.directoryFor(this.file, column));
+      if (index.version() == lastModified) {
+        return index;
+      }
+      index.clear();
+    } catch (IOException e) {
+      LOGGER.warn("Cannot open fulltext index of {}, using an in-memory index: {}", key, e.getMessage());
+      index = FulltextIndex.inMemory();
+    }
+
+    final Importer<?> importer = newImporter(this.file);
+    Map<String, PrimitiveTypeProvider> map;
+    while ((map = importer.readNextAsMap()) != null) {
+      if (map.containsKey(column) && map.containsKey(GENERIC_ID_COLUMN_QUALIFIER)) {
+        index.add(map.get(GENERIC_ID_COLUMN_QUALIFIER).getString(), map.get(column).getString());
+      }
+    }
+    try {
+      index.commit(lastModified);
+    } catch (IOException e) {
+      LOGGER.warn("Cannot store fulltext index of {}: {}", key, e.getMessage());
+    }
+    LOGGER.debug("Built fulltext index over {} rows of {}.", index.size(), key);
+    return index;
   }
 
   @Override
   public boolean ping() {
     return true;
   }
+
+  /**
+   * {@link HammingIndex} over a {@link ProviderDataType#BITSET} column together with the IDs of the indexed rows.
+   */
+  private static final class HammingColumn {
+
+    private final long lastModified;
+    private final String[] ids;
+    private final HammingIndex index;
+
+    private HammingColumn(long lastModified, String[] ids, HammingIndex index) {
+      this.lastModified = lastModified;
+      this.ids = ids;
+      this.index = index;
+    }
+
+    private <E extends DistanceElement> List<E> getNearestNeighbours(int k, long query, Class<E> distanceElementClass, ReadableQueryConfig queryConfig) {
+      IntPredicate filter = null;
+      if (queryConfig != null && queryConfig.hasRelevantSegmentIds()) {
+        final Set<String> relevant = queryConfig.getRelevantSegmentIds();
+        filter = i -> relevant.contains(this.ids[i]);
+      }
+      final List<E> results = new ArrayList<>(k);
+      for (HammingIndex.Match match : this.index.knn(query, k, filter)) {
+        results.add(DistanceElement.create(distanceElementClass, this.ids[match.index()], match.distance()));
+      }
+      return results;
+    }
+  }
 }
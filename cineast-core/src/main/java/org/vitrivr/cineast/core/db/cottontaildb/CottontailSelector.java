@@ -356,6 +356,11 @@ public List<Map<String, PrimitiveTypeProvider>> getFulltextRows(int rows, String
     }
   }
 
+  @Override
+  public boolean supportsCompoundPredicates() {
+    return true;
+  }
+
   @Override
   public List<Map<String, PrimitiveTypeProvider>> getRowsAND(List<Triple<String, RelationalOperator, List<PrimitiveTypeProvider>>> conditions, String identifier, List<String> projection, ReadableQueryConfig queryConfig) {
     /* Prepare plain query. */
@@ -0,0 +1,304 @@
+package org.vitrivr.cineast.core.db.dao.reader;
+
+import static org.vitrivr.cineast.core.util.CineastConstants.FEATURE_COLUMN_QUALIFIER;
+import static org.vitrivr.cineast.core.util.CineastConstants.GENERIC_ID_COLUMN_QUALIFIER;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.vitrivr.cineast.core.config.CacheConfig;
+import org.vitrivr.cineast.core.config.ReadableQueryConfig;
+import org.vitrivr.cineast.core.data.providers.primitive.PrimitiveTypeProvider;
+import org.vitrivr.cineast.core.data.providers.primitive.StringTypeProvider;
+import org.vitrivr.cineast.core.db.DBSelector;
+import org.vitrivr.cineast.core.util.DBQueryIdGenerator;
+
+/**
+ * Cache of the feature vectors that are looked up by segment ID for query-by-example ("more like this") queries, shared by all feature modules.
+ * <p>
+ * Entries are keyed by entity and segment ID, bounded by their estimated size in bytes and expire after a fixed time, since feature vectors are usually written by a separate extraction process. Segments without feature vectors are not cached, so their vectors are found once they have been extracted. After a query, the IDs of its top results can be registered with {@link #prefetch(Collection, List)}: The next cache miss on one of these entities then loads the vectors of all registered segments in a single batched lookup. Writers of feature entities invalidate the segments they write.
+ */
+public final class FeatureVectorCache {
+
+  /**
+   * Estimated size of an entry without its feature vectors in bytes.
+   */
+  private static final int ENTRY_OVERHEAD = 128;
+
+  /**
+   * Estimated size of a {@link PrimitiveTypeProvider} without its payload in bytes.
+   */
+  private static final int PROVIDER_OVERHEAD = 32;
+
+  /**
+   * Number of invalidation counters, see {@link #versions}.
+   */
+  private static final int VERSION_STRIPES = 256;
+
+  /**
+   * The instance shared by all feature modules; replaced by {@link #configureDefault(CacheConfig)}.
+   */
+  private static volatile FeatureVectorCache shared = new FeatureVectorCache(CacheConfig.DEFAULT_FEATURE_VECTOR_CACHE_SIZE, CacheConfig.DEFAULT_FEATURE_VECTOR_PREFETCH_SIZE, CacheConfig.DEFAULT_FEATURE_VECTOR_CACHE_EXPIRY);
+
+  /**
+   * Feature vectors keyed by entity and segment ID.
+   */
+  private final Cache<Key, List<PrimitiveTypeProvider>> vectors;
+
+  /**
+   * Maximum size of the cached feature vectors in bytes.
+   */
+  private final long maxBytes;
+
+  /**
+   * Maximum number of segments that are prefetched per entity.
+   */
+  private final int prefetchSize;
+
+  private final long expireMinutes;
+
+  /**
+   * IDs of the segments to prefetch upon the next cache miss, by entity.
+   */
+  private final Map<String, List<String>> pending = new ConcurrentHashMap<>();
+
+  /**
+   * Entities that have been looked up through this cache. Prefetches are only registered for these.
+   */
+  private final Set<String> entities = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Invalidation counters, striped by key. Loaded vectors only remain in the cache if the counter of their key did not change while they were loaded; otherwise they may predate a concurrent write.
+   */
+  private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+  private final AtomicLong bytes = new AtomicLong();
+
+  private final LongAdder prefetched = new LongAdder();
+
+  /**
+   * Constructor for {@link FeatureVectorCache}.
+   *
+   * @param maxBytes      Maximum estimated size of the cached feature vectors in bytes; 0 disables caching.
+   * @param prefetchSize  Maximum number of segments that are prefetched per entity; 0 disables prefetching.
+   * @param expireMinutes Time in minutes after which an entry expires.
+   */
+  public FeatureVectorCache(long maxBytes, int prefetchSize, long expireMinutes) {
+    this.maxBytes = maxBytes;
+    this.prefetchSize = maxBytes > 0 ? prefetchSize : 0;
+    this.expireMinutes = expireMinutes;
+    this.vectors = CacheBuilder.newBuilder().maximumWeight(maxBytes).expireAfterWrite(expireMinutes, TimeUnit.MINUTES).<Key, List<PrimitiveTypeProvider>>weigher(FeatureVectorCache::weigh).removalListener(notification -> {
+      if (notification.getCause() != RemovalCause.COLLECTED) {
+        this.bytes.addAndGet(-weigh(notification.getKey(), notification.getValue()));
+      }
+    }).recordStats().build();
+  }
+
+  /**
+   * Returns the {@link FeatureVectorCache} shared by all feature modules.
+   */
+  public static FeatureVectorCache getInstance() {
+    return shared;
+  }
+
+  /**
+   * Replaces the shared {@link FeatureVectorCache} if the given {@link CacheConfig} specifies different settings.
+   */
+  public static synchronized void configureDefault(CacheConfig config) {
+    if (shared.maxBytes != config.getFeatureVectorCacheSize() || shared.prefetchSize != config.getFeatureVectorPrefetchSize() || shared.expireMinutes != config.getFeatureVectorCacheExpiry()) {
+      shared = new FeatureVectorCache(config.getFeatureVectorCacheSize(), config.getFeatureVectorPrefetchSize(), config.getFeatureVectorCacheExpiry());
+    }
+  }
+
+  /**
+   * Returns the feature vectors of a segment, either from the cache or from the provided {@link DBSelector}. If segments have been registered for prefetching on this entity, they are loaded in the same lookup.
+   *
+   * @param selector  {@link DBSelector} that has been opened on the entity.
+   * @param entity    Name of the feature entity.
+   * @param segmentId ID of the segment.
+   * @param qc        {@link ReadableQueryConfig} of the query.
+   * @return Unmodifiable list of feature vectors, which is empty if the segment has none.
+   */
+  public List<PrimitiveTypeProvider> getFeatureVectors(DBSelector selector, String entity, String segmentId, ReadableQueryConfig qc) {
+    this.entities.add(entity);
+    final Key key = new Key(entity, segmentId);
+    final List<PrimitiveTypeProvider> cached = this.vectors.getIfPresent(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    final List<String> prefetch = this.pending.remove(entity);
+    if (prefetch == null) {
+      final long version = this.version(key);
+      return this.put(key, selector.getFeatureVectorsGeneric(GENERIC_ID_COLUMN_QUALIFIER, new StringTypeProvider(segmentId), FEATURE_COLUMN_QUALIFIER, qc), version);
+    }
+
+    /* Batched lookup of the requested segment and all registered segments that are not cached yet. */
+    final Set<String> ids = new LinkedHashSet<>();
+    ids.add(segmentId);
+    for (String id : prefetch) {
+      if (!this.vectors.asMap().containsKey(new Key(entity, id))) {
+        ids.add(id);
+      }
+    }
+    final Map<String, List<PrimitiveTypeProvider>> rows = new HashMap<>();
+    final Map<String, Long> versions = new HashMap<>();
+    for (String id : ids) {
+      rows.put(id, new ArrayList<>(1));
+      versions.put(id, this.version(new Key(entity, id)));
+    }
+    for (Map<String, PrimitiveTypeProvider> row : selector.getRows(GENERIC_ID_COLUMN_QUALIFIER, new ArrayList<>(ids), DBQueryIdGenerator.generateQueryId("get-fv-prefetch", qc))) {
+      final PrimitiveTypeProvider id = row.get(GENERIC_ID_COLUMN_QUALIFIER);
+      final PrimitiveTypeProvider feature = row.get(FEATURE_COLUMN_QUALIFIER);
+      if (id != null && feature != null && rows.containsKey(id.getString())) {
+        rows.get(id.getString()).add(feature);
+      }
+    }
+    for (Map.Entry<String, List<PrimitiveTypeProvider>> entry : rows.entrySet()) {
+      if (!entry.getKey().equals(segmentId) && !entry.getValue().isEmpty()) {
+        this.put(new Key(entity, entry.getKey()), entry.getValue(), versions.get(entry.getKey()));
+        this.prefetched.increment();
+      }
+    }
+    return this.put(key, rows.get(segmentId), versions.get(segmentId));
+  }
+
+  /**
+   * Registers the top results of a query for prefetching. Segments are loaded upon the next cache miss on each of the entities; registering again replaces the previous segments.
+   *
+   * @param entities   Names of the feature entities. Entities that have never been looked up through this cache are ignored.
+   * @param segmentIds IDs of the result segments, ordered by relevance.
+   */
+  public void prefetch(Collection<String> entities, List<String> segmentIds) {
+    if (this.prefetchSize == 0 || segmentIds.isEmpty()) {
+      return;
+    }
+    final List<String> ids = List.copyOf(segmentIds.subList(0, Math.min(this.prefetchSize, segmentIds.size())));
+    for (String entity : entities) {
+      if (this.entities.contains(entity)) {
+        this.pending.put(entity, ids);
+      }
+    }
+  }
+
+  /**
+   * Removes the feature vectors of a single segment from the cache. Must be called whenever feature vectors of the segment are written.
+   */
+  public void invalidate(String entity, String segmentId) {
+    final Key key = new Key(entity, segmentId);
+    this.versions.incrementAndGet(stripe(key));
+    this.vectors.invalidate(key);
+  }
+
+  /**
+   * Removes all feature vectors of an entity from the cache, e.g. because the entity has been dropped.
+   */
+  public void invalidateEntity(String entity) {
+    this.pending.remove(entity);
+    this.invalidateVersions();
+    this.vectors.asMap().keySet().removeIf(key -> key.entity.equals(entity));
+  }
+
+  /**
+   * Removes all entries from the cache.
+   */
+  public void invalidateAll() {
+    this.pending.clear();
+    this.invalidateVersions();
+    this.vectors.invalidateAll();
+  }
+
+  /**
+   * Returns a snapshot of the {@link Statistics} of this cache.
+   */
+  public Statistics statistics() {
+    final CacheStats stats = this.vectors.stats();
+    return new Statistics(stats.hitCount(), stats.missCount(), this.prefetched.sum(), stats.evictionCount(), this.vectors.size(), this.bytes.get());
+  }
+
+  /**
+   * Caches the feature vectors of a segment that were loaded starting at the given version of its key, unless there are none. If the key has been invalidated since, the entry is removed again: Either the invalidation is seen here, or it happens after the entry was cached and removes it.
+   */
+  private List<PrimitiveTypeProvider> put(Key key, List<PrimitiveTypeProvider> vectors, long version) {
+    final List<PrimitiveTypeProvider> list = Collections.unmodifiableList(new ArrayList<>(vectors));
+    if (this.maxBytes > 0 && !list.isEmpty()) {
+      this.bytes.addAndGet(weigh(key, list));
+      this.vectors.put(key, list);
+      if (this.version(key) != version) {
+        this.vectors.asMap().remove(key, list);
+      }
+    }
+    return list;
+  }
+
+  private long version(Key key) {
+    return this.versions.get(stripe(key));
+  }
+
+  private void invalidateVersions() {
+    for (int i = 0; i < VERSION_STRIPES; i++) {
+      this.versions.incrementAndGet(i);
+    }
+  }
+
+  private static int stripe(Key key) {
+    return Math.floorMod(key.hashCode(), VERSION_STRIPES);
+  }
+
+  /**
+   * Estimates the size of an entry in bytes.
+   */
+  private static int weigh(Key key, List<PrimitiveTypeProvider> vectors) {
+    long weight = ENTRY_OVERHEAD + 2L * (key.entity.length() + key.segmentId.length());
+    for (PrimitiveTypeProvider vector : vectors) {
+      weight += PROVIDER_OVERHEAD;
+      switch (vector.getType()) {
+        case FLOAT_ARRAY -> weight += 4L * vector.getFloatArray().length;
+        case INT_ARRAY -> weight += 4L * vector.getIntArray().length;
+        case STRING -> weight += 2L * vector.getString().length();
+        case BITSET -> weight += vector.getBitSet().size() / 8;
+        default -> {
+        }
+      }
+    }
+    return (int) Math.min(weight, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Hit and miss counts and size of a {@link FeatureVectorCache}. Prefetched segments are counted separately and neither as hit nor as miss.
+   *
+   * @param hits       Number of lookups answered from the cache.
+   * @param misses     Number of lookups that queried the database.
+   * @param prefetched Number of segments loaded by prefetching.
+   * @param evictions  Number of entries evicted because of the size limit or expired.
+   * @param entries    Number of cached segments.
+   * @param bytes      Estimated size of the cached feature vectors in bytes.
+   */
+  public record Statistics(long hits, long misses, long prefetched, long evictions, long entries, long bytes) {
+
+    /**
+     * Returns the ratio of lookups answered from the cache, 1.0 if there were no lookups.
+     */
+    public double hitRate() {
+      return this.hits + this.misses == 0 ? 1.0 : (double) this.hits / (this.hits + this.misses);
+    }
+  }
+
+  private record Key(String entity, String segmentId) {
+
+  }
+}
@@ -0,0 +1,242 @@
+package org.vitrivr.cineast.core.db.dao.reader;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.vitrivr.cineast.core.config.CacheConfig;
+import org.vitrivr.cineast.core.data.entities.MediaSegmentDescriptor;
+
+/**
+ * Cache of {@link MediaSegmentDescriptor}s shared by all {@link MediaSegmentReader}s.
+ * <p>
+ * Consists of a bounded LRU cache keyed by segment ID and an index that maps object IDs to the complete, sorted list of their segments. The latter answers sequence number and time range queries by binary search. Writers are expected to call {@link #invalidateObject(String)} for every object they add segments to.
+ */
+public final class MediaSegmentCache {
+
+  /**
+   * The instance shared by all {@link MediaSegmentReader}s; replaced by {@link #configureDefault(CacheConfig)}.
+   */
+  private static volatile MediaSegmentCache shared = new MediaSegmentCache(CacheConfig.DEFAULT_SEGMENT_CACHE_SIZE, CacheConfig.DEFAULT_SEGMENT_INDEX_SIZE, CacheConfig.DEFAULT_SEGMENT_CACHE_EXPIRY);
+
+  /**
+   * Individual segments keyed by segment ID.
+   */
+  private final Cache<String, MediaSegmentDescriptor> segments;
+
+  /**
+   * All segments of an object keyed by object ID. Weighted by number of segments.
+   */
+  private final Cache<String, ObjectSegments> objects;
+
+  private final long maxSegments;
+  private final long maxIndexedSegments;
+  private final long expireMinutes;
+
+  /**
+   * Constructor for {@link MediaSegmentCache}.
+   *
+   * @param maxSegments        Maximum number of individual segments to cache.
+   * @param maxIndexedSegments Maximum number of segments held by the per-object index.
+   * @param expireMinutes      Time in minutes after which an entry expires.
+   */
+  public MediaSegmentCache(long maxSegments, long maxIndexedSegments, long expireMinutes) {
+    this.maxSegments = maxSegments;
+    this.maxIndexedSegments = maxIndexedSegments;
+    this.expireMinutes = expireMinutes;
+    this.segments = CacheBuilder.newBuilder().maximumSize(maxSegments).expireAfterWrite(expireMinutes, TimeUnit.MINUTES).build();
+    this.objects = CacheBuilder.newBuilder().maximumWeight(maxIndexedSegments).<String, ObjectSegments>weigher((k, v) -> Math.max(1, v.bySequence.length)).expireAfterWrite(expireMinutes, TimeUnit.MINUTES).build();
+  }
+
+  /**
+   * Returns the {@link MediaSegmentCache} shared by all {@link MediaSegmentReader}s.
+   */
+  public static MediaSegmentCache getInstance() {
+    return shared;
+  }
+
+  /**
+   * Replaces the shared {@link MediaSegmentCache} if the given {@link CacheConfig} specifies different limits. Readers created before keep using the previous instance.
+   */
+  public static synchronized void configureDefault(CacheConfig config) {
+    if (shared.maxSegments != config.getSegmentCacheSize() || shared.maxIndexedSegments != config.getSegmentIndexSize() || shared.expireMinutes != config.getSegmentCacheExpiry()) {
+      shared = new MediaSegmentCache(config.getSegmentCacheSize(), config.getSegmentIndexSize(), config.getSegmentCacheExpiry());
+    }
+  }
+
+  /**
+   * Returns the cached {@link MediaSegmentDescriptor} for the given segment ID or null.
+   */
+  public MediaSegmentDescriptor getSegment(String segmentId) {
+    return this.segments.getIfPresent(segmentId);
+  }
+
+  /**
+   * Caches a single {@link MediaSegmentDescriptor}.
+   */
+  public void putSegment(MediaSegmentDescriptor descriptor) {
+    this.segments.put(descriptor.getSegmentId(), descriptor);
+  }
+
+  /**
+   * Indexes the complete list of segments of an object. The list must contain all segments of the object.
+   *
+   * @param objectId The ID of the object.
+   * @param segments All {@link MediaSegmentDescriptor}s of the object.
+   */
+  public void putObject(String objectId, Collection<MediaSegmentDescriptor> segments) {
+    final ObjectSegments index = new ObjectSegments(segments);
+    this.objects.put(objectId, index);
+    for (MediaSegmentDescriptor descriptor : index.bySequence) {
+      this.segments.put(descriptor.getSegmentId(), descriptor);
+    }
+  }
+
+  /**
+   * Returns true if the segments of the given object are indexed.
+   */
+  public boolean containsObject(String objectId) {
+    return this.objects.getIfPresent(objectId) != null;
+  }
+
+  /**
+   * Returns all segments of the given object ordered by sequence number, or null if the object is not indexed.
+   */
+  public List<MediaSegmentDescriptor> getSegmentsOfObject(String objectId) {
+    final ObjectSegments index = this.objects.getIfPresent(objectId);
+    if (index == null) {
+      return null;
+    }
+    return new ArrayList<>(Arrays.asList(index.bySequence));
+  }
+
+  /**
+   * Returns the segments of the given object whose sequence number lies within [lower, upper], ordered by sequence number, or null if the object is not indexed.
+   */
+  public List<MediaSegmentDescriptor> getSegmentsByNumberRange(String objectId, int lower, int upper) {
+    final ObjectSegments index = this.objects.getIfPresent(objectId);
+    if (index == null) {
+      return null;
+    }
+    final List<MediaSegmentDescriptor> list = new ArrayList<>();
+    for (int i = lowerBound(index.numbers, lower); i < index.numbers.length && index.numbers[i] <= upper; i++) {
+      list.add(index.bySequence[i]);
+    }
+    return list;
+  }
+
+  /**
+   * Returns the segments of the given object that overlap the time interval [start, end] (in seconds), ordered by start time, or null if the object is not indexed.
+   */
+  public List<MediaSegmentDescriptor> getSegmentsByTimeRange(String objectId, float start, float end) {
+    final ObjectSegments index = this.objects.getIfPresent(objectId);
+    if (index == null) {
+      return null;
+    }
+    final List<MediaSegmentDescriptor> list = new ArrayList<>();
+    /* The running maximum of the end times is monotonic; everything before the first entry >= start ends before the interval. */
+    for (int i = lowerBound(index.maxEnds, start); i < index.starts.length && index.starts[i] <= end; i++) {
+      if (index.byStart[i].getEndabs() >= start) {
+        list.add(index.byStart[i]);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Removes a single segment from the cache.
+   */
+  public void invalidateSegment(String segmentId) {
+    this.segments.invalidate(segmentId);
+  }
+
+  /**
+   * Removes the index of the given object from the cache. Must be called whenever segments of the object are added or removed.
+   */
+  public void invalidateObject(String objectId) {
+    this.objects.invalidate(objectId);
+  }
+
+  /**
+   * Removes all entries from the cache.
+   */
+  public void invalidateAll() {
+    this.segments.invalidateAll();
+    this.objects.invalidateAll();
+  }
+
+  /**
+   * Returns the index of the first element >= key.
+   */
+  private static int lowerBound(int[] array, int key) {
+    int lo = 0, hi = array.length;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (array[mid] < key) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Returns the index of the first element >= key.
+   */
+  private static int lowerBound(float[] array, float key) {
+    int lo = 0, hi = array.length;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (array[mid] < key) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Sorted arrays of the segments of a single object.
+   */
+  private static final class ObjectSegments {
+
+    /**
+     * Segments ordered by sequence number and their sequence numbers.
+     */
+    private final MediaSegmentDescriptor[] bySequence;
+    private final int[] numbers;
+
+    /**
+     * Segments ordered by absolute start time, their start times and the running maximum of their end times.
+     */
+    private final MediaSegmentDescriptor[] byStart;
+    private final float[] starts;
+    private final float[] maxEnds;
+
+    private ObjectSegments(Collection<MediaSegmentDescriptor> segments) {
+      this.bySequence = segments.toArray(new MediaSegmentDescriptor[0]);
+      Arrays.sort(this.bySequence, Comparator.comparingInt(MediaSegmentDescriptor::getSequenceNumber));
+      this.numbers = new int[this.bySequence.length];
+      for (int i = 0; i < this.bySequence.length; i++) {
+        this.numbers[i] = this.bySequence[i].getSequenceNumber();
+      }
+
+      this.byStart = this.bySequence.clone();
+      Arrays.sort(this.byStart, Comparator.comparingDouble(MediaSegmentDescriptor::getStartabs));
+      this.starts = new float[this.byStart.length];
+      this.maxEnds = new float[this.byStart.length];
+      float maxEnd = Float.NEGATIVE_INFINITY;
+      for (int i = 0; i < this.byStart.length; i++) {
+        this.starts[i] = this.byStart[i].getStartabs();
+        maxEnd = Math.max(maxEnd, this.byStart[i].getEndabs());
+        this.maxEnds[i] = maxEnd;
+      }
+    }
+  }
+}
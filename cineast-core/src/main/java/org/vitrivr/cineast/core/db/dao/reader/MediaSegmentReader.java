@@ -2,34 +2,36 @@
 
 import static org.vitrivr.cineast.core.data.entities.MediaSegmentDescriptor.FIELDNAMES;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimaps;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.apache.commons.lang3.tuple.Triple;
 import org.vitrivr.cineast.core.data.entities.MediaSegmentDescriptor;
+import org.vitrivr.cineast.core.data.providers.primitive.IntTypeProvider;
 import org.vitrivr.cineast.core.data.providers.primitive.PrimitiveTypeProvider;
 import org.vitrivr.cineast.core.data.providers.primitive.StringTypeProvider;
 import org.vitrivr.cineast.core.db.DBSelector;
+import org.vitrivr.cineast.core.db.RelationalOperator;
 import org.vitrivr.cineast.core.util.DBQueryIdGenerator;
 
 public class MediaSegmentReader extends AbstractEntityReader {
 
-  private static final Cache<String, MediaSegmentDescriptor> segmentCache = CacheBuilder.newBuilder()
-      .maximumSize(100_000)
-      .expireAfterWrite(10, TimeUnit.MINUTES)
-      .build(); //TODO make configurable
+  /**
+   * {@link MediaSegmentCache} shared by all readers.
+   */
+  private final MediaSegmentCache cache;
 
 
   /**
@@ -38,7 +40,18 @@ public class MediaSegmentReader extends AbstractEntityReader {
    * @param dbSelector DBSelector to use for the MediaObjectMetadataReader instance.
    */
   public MediaSegmentReader(DBSelector dbSelector) {
+    this(dbSelector, MediaSegmentCache.getInstance());
+  }
+
+  /**
+   * Constructor for MediaSegmentReader
+   *
+   * @param dbSelector DBSelector to use for the MediaObjectMetadataReader instance.
+   * @param cache      {@link MediaSegmentCache} to use.
+   */
+  public MediaSegmentReader(DBSelector dbSelector, MediaSegmentCache cache) {
     super(dbSelector);
+    this.cache = cache;
     this.selector.open(MediaSegmentDescriptor.ENTITY);
   }
 
@@ -70,7 +83,7 @@ private static Optional<MediaSegmentDescriptor> propertiesToDescriptor(Map<Strin
 
   public Optional<MediaSegmentDescriptor> lookUpSegment(String segmentId) {
 
-    MediaSegmentDescriptor cached = segmentCache.getIfPresent(segmentId);
+    MediaSegmentDescriptor cached = this.cache.getSegment(segmentId);
 
     if (cached != null) {
       return Optional.of(cached);
@@ -91,7 +104,7 @@ public Map<String, MediaSegmentDescriptor> lookUpSegments(Iterable<String> segme
     Map<String, MediaSegmentDescriptor> _return = new HashMap<>();
 
     segmentIds.forEach(id -> {
-      MediaSegmentDescriptor cached = segmentCache.getIfPresent(id);
+      MediaSegmentDescriptor cached = this.cache.getSegment(id);
       if (cached != null) {
         _return.put(id, cached);
       } else {
@@ -110,24 +123,91 @@ public Map<String, MediaSegmentDescriptor> lookUpSegments(Iterable<String> segme
     return _return;
   }
 
+  /**
+   * Looks up all segments of an object, ordered by sequence number. The result is added to the per-object index of the {@link MediaSegmentCache}.
+   */
   public List<MediaSegmentDescriptor> lookUpSegmentsOfObject(String objectId) {
-    Stream<MediaSegmentDescriptor> descriptors = this.lookUpSegmentsByField(FIELDNAMES[1], objectId);
-    return descriptors.collect(Collectors.toList());
+    List<MediaSegmentDescriptor> cached = this.cache.getSegmentsOfObject(objectId);
+    if (cached != null) {
+      return cached;
+    }
+    /* The fetched list is returned as is: the index may already have been evicted or invalidated again. */
+    List<MediaSegmentDescriptor> segments = this.lookUpSegmentsByField(FIELDNAMES[1], objectId)
+        .sorted(Comparator.comparingInt(MediaSegmentDescriptor::getSequenceNumber))
+        .collect(Collectors.toList());
+    this.cache.putObject(objectId, segments);
+    return new ArrayList<>(segments);
   }
 
+  /**
+   * Looks up all segments of the given objects. Objects already present in the per-object index of the {@link MediaSegmentCache} are served from there, all others are fetched in a single lookup and added to the index.
+   */
   public ListMultimap<String, MediaSegmentDescriptor> lookUpSegmentsOfObjects(Iterable<String> objectIds) {
-    Stream<MediaSegmentDescriptor> descriptors = this.lookUpSegmentsByField(FIELDNAMES[1], objectIds);
-    return Multimaps.index(descriptors.iterator(), MediaSegmentDescriptor::getObjectId);
+    ListMultimap<String, MediaSegmentDescriptor> _return = ArrayListMultimap.create();
+    List<String> notCached = new ArrayList<>();
+    for (String objectId : objectIds) {
+      List<MediaSegmentDescriptor> cached = this.cache.getSegmentsOfObject(objectId);
+      if (cached != null) {
+        _return.putAll(objectId, cached);
+      } else {
+        notCached.add(objectId);
+      }
+    }
+    if (!notCached.isEmpty()) {
+      ListMultimap<String, MediaSegmentDescriptor> fetched = Multimaps.index(this.lookUpSegmentsByField(FIELDNAMES[1], notCached).iterator(), MediaSegmentDescriptor::getObjectId);
+      for (String objectId : fetched.keySet()) {
+        this.cache.putObject(objectId, fetched.get(objectId));
+      }
+      _return.putAll(fetched);
+    }
+    return _return;
   }
 
   public List<MediaSegmentDescriptor> lookUpSegmentByNumber(String objectId, int segmentNumber) {
-    List<MediaSegmentDescriptor> all = this.lookUpSegmentsOfObject(objectId);
-    return all.stream().filter(it -> it.getSequenceNumber() == segmentNumber).collect(Collectors.toList());
+    return this.lookUpSegmentsByNumberRange(objectId, segmentNumber, segmentNumber);
   }
 
-  public List<MediaSegmentDescriptor> lookUpSegmentsByNumberRange(String objectId, int lower, int upper) { //TODO implementing this without selecting all segments would require additional functionality in DBSelector
-    List<MediaSegmentDescriptor> all = this.lookUpSegmentsOfObject(objectId);
-    return all.stream().filter(it -> it.getSequenceNumber() >= lower && it.getSequenceNumber() <= upper).collect(Collectors.toList());
+  /**
+   * Looks up the segments of an object whose sequence number lies within [lower, upper], ordered by sequence number.
+   * <p>
+   * If the object is indexed by the {@link MediaSegmentCache}, the range is determined by binary search. Otherwise, the range predicate is pushed to the database if the {@link DBSelector} supports compound predicates. As a last resort, all segments of the object are loaded and indexed.
+   */
+  public List<MediaSegmentDescriptor> lookUpSegmentsByNumberRange(String objectId, int lower, int upper) {
+    List<MediaSegmentDescriptor> cached = this.cache.getSegmentsByNumberRange(objectId, lower, upper);
+    if (cached != null) {
+      return cached;
+    }
+    if (this.selector.supportsCompoundPredicates()) {
+      List<Triple<String, RelationalOperator, List<PrimitiveTypeProvider>>> conditions = List.of(
+          Triple.of(FIELDNAMES[1], RelationalOperator.EQ, List.of(new StringTypeProvider(objectId))),
+          Triple.of(FIELDNAMES[2], RelationalOperator.BETWEEN, List.of(new IntTypeProvider(lower), new IntTypeProvider(upper)))
+      );
+      return this.selector.getRowsAND(conditions, FIELDNAMES[0], Collections.emptyList(), null)
+          .stream()
+          .map(MediaSegmentReader::propertiesToDescriptor)
+          .filter(Optional::isPresent)
+          .map(Optional::get)
+          .peek(this.cache::putSegment)
+          .sorted(Comparator.comparingInt(MediaSegmentDescriptor::getSequenceNumber))
+          .collect(Collectors.toList());
+    }
+    return this.lookUpSegmentsOfObject(objectId).stream()
+        .filter(s -> s.getSequenceNumber() >= lower && s.getSequenceNumber() <= upper)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Looks up the segments of an object that overlap the time interval [start, end] (in seconds), ordered by start time. All segments of the object are loaded and indexed if necessary.
+   */
+  public List<MediaSegmentDescriptor> lookUpSegmentsByTimeRange(String objectId, float start, float end) {
+    List<MediaSegmentDescriptor> cached = this.cache.getSegmentsByTimeRange(objectId, start, end);
+    if (cached != null) {
+      return cached;
+    }
+    return this.lookUpSegmentsOfObject(objectId).stream()
+        .filter(s -> s.getStartabs() <= end && s.getEndabs() >= start)
+        .sorted(Comparator.comparingDouble(MediaSegmentDescriptor::getStartabs))
+        .collect(Collectors.toList());
   }
 
   private Stream<MediaSegmentDescriptor> lookUpSegmentsByField(String fieldName, String fieldValue) {
@@ -148,10 +228,7 @@ private Stream<MediaSegmentDescriptor> lookUpSegmentsByField(String fieldName, I
         .stream()
         .map(MediaSegmentReader::propertiesToDescriptor)
         .filter(Optional::isPresent)
-        .peek(optional -> { //tap of and add to cache
-          MediaSegmentDescriptor descriptor = optional.get();
-          segmentCache.put(descriptor.getSegmentId(), descriptor);
-        })
-        .map(Optional::get);
+        .map(Optional::get)
+        .peek(this.cache::putSegment); //tap of and add to cache
   }
 }
@@ -72,6 +72,13 @@ public final void flush() {
     final List<PersistentTuple> batch = new ArrayList<>(buffer.size());
     this.buffer.drainTo(batch);
     this.writer.persist(batch);
+    this.flushed();
+  }
+
+  /**
+   * Invoked after the buffer has been written to the underlying persistence layer. Can be overridden by subclasses that need to react to changes becoming visible.
+   */
+  protected void flushed() {
   }
 
   /**
@@ -1,12 +1,20 @@
 package org.vitrivr.cineast.core.db.dao.writer;
 
+import java.util.HashSet;
+import java.util.Set;
 import org.vitrivr.cineast.core.data.entities.MediaSegmentDescriptor;
 import org.vitrivr.cineast.core.db.PersistencyWriter;
 import org.vitrivr.cineast.core.db.PersistentTuple;
+import org.vitrivr.cineast.core.db.dao.reader.MediaSegmentCache;
 
 
 public class MediaSegmentWriter extends AbstractBatchedEntityWriter<MediaSegmentDescriptor> {
 
+  /**
+   * IDs of the objects with segments that are still buffered. Their entries in the {@link MediaSegmentCache} are invalidated again once the buffer has been flushed.
+   */
+  private final Set<String> bufferedObjectIds = new HashSet<>();
+
   public MediaSegmentWriter(PersistencyWriter<?> writer) {
     super(writer);
     this.writer.setFieldNames(MediaSegmentDescriptor.FIELDNAMES);
@@ -17,6 +25,24 @@ public MediaSegmentWriter(PersistencyWriter<?> writer) {
   protected void init() {
   }
 
+  @Override
+  public void write(MediaSegmentDescriptor entity) {
+    super.write(entity);
+    MediaSegmentCache.getInstance().invalidateSegment(entity.getSegmentId());
+    MediaSegmentCache.getInstance().invalidateObject(entity.getObjectId());
+    synchronized (this.bufferedObjectIds) {
+      this.bufferedObjectIds.add(entity.getObjectId());
+    }
+  }
+
+  @Override
+  protected void flushed() {
+    synchronized (this.bufferedObjectIds) {
+      this.bufferedObjectIds.forEach(MediaSegmentCache.getInstance()::invalidateObject);
+      this.bufferedObjectIds.clear();
+    }
+  }
+
   @Override
   protected PersistentTuple generateTuple(MediaSegmentDescriptor entity) {
     return this.writer.generateTuple(entity.getSegmentId(), entity.getObjectId(), entity.getSequenceNumber(), entity.getStart(), entity.getEnd(), entity.getStartabs(), entity.getEndabs());
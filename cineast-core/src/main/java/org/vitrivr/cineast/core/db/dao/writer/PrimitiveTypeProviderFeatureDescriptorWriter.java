@@ -1,13 +1,21 @@
 package org.vitrivr.cineast.core.db.dao.writer;
 
+import java.util.HashSet;
+import java.util.Set;
 import org.vitrivr.cineast.core.data.entities.SimplePrimitiveTypeProviderFeatureDescriptor;
 import org.vitrivr.cineast.core.db.PersistencyWriter;
 import org.vitrivr.cineast.core.db.PersistentTuple;
+import org.vitrivr.cineast.core.db.dao.reader.FeatureVectorCache;
 
 public class PrimitiveTypeProviderFeatureDescriptorWriter extends AbstractBatchedEntityWriter<SimplePrimitiveTypeProviderFeatureDescriptor> {
 
   private final String entityname;
 
+  /**
+   * IDs of the segments with feature vectors that are still buffered. Their entries in the {@link FeatureVectorCache} are invalidated again once the buffer has been flushed.
+   */
+  private final Set<String> bufferedSegmentIds = new HashSet<>();
+
   public PrimitiveTypeProviderFeatureDescriptorWriter(PersistencyWriter<?> writer, String entityname) {
     super(writer);
     this.entityname = entityname;
@@ -19,6 +27,25 @@ public void init() {
     this.writer.open(this.entityname);
   }
 
+  @Override
+  public void write(SimplePrimitiveTypeProviderFeatureDescriptor entity) {
+    super.write(entity);
+    FeatureVectorCache.getInstance().invalidate(this.entityname, entity.getSegmentId());
+    if (this.writer.supportedBatchSize() > 1) {
+      synchronized (this.bufferedSegmentIds) {
+        this.bufferedSegmentIds.add(entity.getSegmentId());
+      }
+    }
+  }
+
+  @Override
+  protected void flushed() {
+    synchronized (this.bufferedSegmentIds) {
+      this.bufferedSegmentIds.forEach(segmentId -> FeatureVectorCache.getInstance().invalidate(this.entityname, segmentId));
+      this.bufferedSegmentIds.clear();
+    }
+  }
+
   @Override
   protected PersistentTuple generateTuple(SimplePrimitiveTypeProviderFeatureDescriptor entity) {
     return this.writer.generateTuple(entity.getSegmentId(), entity.getFeature());
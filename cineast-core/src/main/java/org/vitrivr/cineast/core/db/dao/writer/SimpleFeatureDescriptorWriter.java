@@ -1,15 +1,23 @@
 package org.vitrivr.cineast.core.db.dao.writer;
 
+import java.util.HashSet;
+import java.util.Set;
 import org.vitrivr.cineast.core.data.ReadableFloatVector;
 import org.vitrivr.cineast.core.data.entities.SimpleFeatureDescriptor;
 import org.vitrivr.cineast.core.db.PersistencyWriter;
 import org.vitrivr.cineast.core.db.PersistentTuple;
+import org.vitrivr.cineast.core.db.dao.reader.FeatureVectorCache;
 
 
 public class SimpleFeatureDescriptorWriter extends AbstractBatchedEntityWriter<SimpleFeatureDescriptor> {
 
   private final String entityname;
 
+  /**
+   * IDs of the segments with feature vectors that are still buffered. Their entries in the {@link FeatureVectorCache} are invalidated again once the buffer has been flushed.
+   */
+  private final Set<String> bufferedSegmentIds = new HashSet<>();
+
   public SimpleFeatureDescriptorWriter(PersistencyWriter<?> writer, String entityname) {
     super(writer);
     this.entityname = entityname;
@@ -21,6 +29,25 @@ public void init() {
     this.writer.open(this.entityname);
   }
 
+  @Override
+  public void write(SimpleFeatureDescriptor entity) {
+    super.write(entity);
+    FeatureVectorCache.getInstance().invalidate(this.entityname, entity.getSegmentId());
+    if (this.writer.supportedBatchSize() > 1) {
+      synchronized (this.bufferedSegmentIds) {
+        this.bufferedSegmentIds.add(entity.getSegmentId());
+      }
+    }
+  }
+
+  @Override
+  protected void flushed() {
+    synchronized (this.bufferedSegmentIds) {
+      this.bufferedSegmentIds.forEach(segmentId -> FeatureVectorCache.getInstance().invalidate(this.entityname, segmentId));
+      this.bufferedSegmentIds.clear();
+    }
+  }
+
   @Override
   protected PersistentTuple generateTuple(SimpleFeatureDescriptor entity) {
     float[] array = ReadableFloatVector.toArray(entity.getFeature());
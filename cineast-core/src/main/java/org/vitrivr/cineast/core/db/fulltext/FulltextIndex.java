@@ -0,0 +1,714 @@
+package org.vitrivr.cineast.core.db.fulltext;
+
+import com.carrotsearch.hppc.IntArrayList;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.vitrivr.cineast.core.data.TopKCollector;
+import org.vitrivr.cineast.core.db.fulltext.FulltextQuery.Clause;
+
+/**
+ * Embedded inverted index with BM25 ranking for storage engines that have no fulltext search of their own.
+ * <p>
+ * Documents are added with {@link #add(String, String)} and collected in memory; they become searchable with the next search and are written to disk as an immutable segment file with the next {@link #commit(long)}. A commit file lists the segments of the last commit, so that an index can be reopened without re-analyzing the documents. Segments are merged once there are more than {@link #MAX_SEGMENTS} of them.
+ * <p>
+ * Searching is thread-safe and does not block; adding documents and committing are synchronized.
+ *
+ * @see FulltextQuery for the supported query syntax.
+ */
+public final class FulltextIndex {
+
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * BM25 term frequency saturation.
+   */
+  public static final float K1 = 1.2f;
+
+  /**
+   * BM25 document length normalization.
+   */
+  public static final float B = 0.75f;
+
+  /**
+   * Number of documents collected in memory before they are turned into a segment.
+   */
+  static final int MAX_BUFFERED_DOCUMENTS = 1 << 16;
+
+  /**
+   * Number of segments above which all segments are merged into one on {@link #commit(long)}.
+   */
+  static final int MAX_SEGMENTS = 8;
+
+  /**
+   * Maximum number of terms a fuzzy term is expanded to; closer terms are preferred.
+   */
+  static final int MAX_EXPANSIONS = 50;
+
+  private static final String COMMIT_FILE = "segments";
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final int COMMIT_MAGIC = 0x43465443;
+
+  /**
+   * Per-thread score accumulators for the query and for fuzzy clauses, so that searching does not allocate arrays proportional to the size of the index.
+   */
+  private static final ThreadLocal<Accumulator[]> ACCUMULATORS = ThreadLocal.withInitial(() -> new Accumulator[]{new Accumulator(), new Accumulator()});
+
+  /**
+   * Directory the index is stored in or null for in-memory indexes.
+   */
+  private final Path directory;
+
+  private final TextAnalyzer analyzer;
+
+  /**
+   * Documents that have not yet been turned into a segment.
+   */
+  private SegmentBuilder buffer = new SegmentBuilder();
+
+  /**
+   * True if {@link #buffer} contains documents.
+   */
+  private volatile boolean dirty = false;
+
+  private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+  private volatile long version = -1L;
+
+  private long generation = 0L;
+
+  private FulltextIndex(Path directory, TextAnalyzer analyzer) {
+    this.directory = directory;
+    this.analyzer = analyzer;
+  }
+
+  /**
+   * Creates an empty index that is never written to disk.
+   */
+  public static FulltextIndex inMemory() {
+    return new FulltextIndex(null, TextAnalyzer.standard());
+  }
+
+  /**
+   * Opens the index stored in the given directory, creating the directory if necessary.
+   *
+   * @param directory Directory of the index.
+   * @return The {@link FulltextIndex} as of the last commit; empty if there was none.
+   * @throws IOException If the directory cannot be created or the index cannot be read.
+   */
+  public static FulltextIndex open(Path directory) throws IOException {
+    Files.createDirectories(directory);
+    final FulltextIndex index = new FulltextIndex(directory, TextAnalyzer.standard());
+    final Path commit = directory.resolve(COMMIT_FILE);
+    if (!Files.exists(commit)) {
+      return index;
+    }
+    final List<Segment> segments = new ArrayList<>();
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(commit)))) {
+      if (in.readInt() != COMMIT_MAGIC) {
+        throw new IOException("Not a fulltext index: " + directory);
+      }
+      final long version = in.readLong();
+      index.generation = in.readLong();
+      final int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        segments.add(Segment.read(directory.resolve(in.readUTF())));
+      }
+      index.version = version;
+    }
+    index.snapshot = Snapshot.of(segments);
+    LOGGER.debug("Opened fulltext index {} with {} documents in {} segments.", directory, index.snapshot.size, segments.size());
+    return index;
+  }
+
+  /**
+   * Directory of the index over the given column of a file-based entity.
+   */
+  public static Path directoryFor(File file, String column) {
+    return Paths.get(file.getPath() + ".fulltext", column);
+  }
+
+  /**
+   * Adds a document to this index. Several documents may share the same ID; each of them is scored separately.
+   *
+   * @param id ID of the document, e.g. the segment ID.
+   * @param text Text of the document.
+   */
+  public synchronized void add(String id, String text) {
+    this.buffer.add(id, this.analyzer.analyze(text));
+    this.dirty = true;
+    if (this.buffer.size() >= MAX_BUFFERED_DOCUMENTS) {
+      this.seal();
+    }
+  }
+
+  /**
+   * Makes all documents added so far searchable and persists them if this index is stored on disk.
+   *
+   * @param version Version to record with this commit, e.g. the modification time of the indexed file. The in-memory state is updated even if persisting fails.
+   * @throws IOException If the index cannot be written.
+   */
+  public synchronized void commit(long version) throws IOException {
+    this.seal();
+    if (this.snapshot.segments.length > MAX_SEGMENTS) {
+      this.snapshot = Snapshot.of(List.of(Segment.merge(Arrays.asList(this.snapshot.segments))));
+      LOGGER.debug("Merged fulltext segments of {} into one segment with {} documents.", this.directory, this.snapshot.size);
+    }
+    this.version = version;
+    if (this.directory == null) {
+      return;
+    }
+
+    final Set<String> live = new HashSet<>();
+    for (Segment segment : this.snapshot.segments) {
+      if (segment.fileName == null) {
+        final String name = "_" + this.generation++ + SEGMENT_SUFFIX;
+        segment.write(this.directory.resolve(name));
+        segment.fileName = name;
+      }
+      live.add(segment.fileName);
+    }
+
+    final Path tmp = this.directory.resolve(COMMIT_FILE + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+      out.writeInt(COMMIT_MAGIC);
+      out.writeLong(version);
+      out.writeLong(this.generation);
+      out.writeInt(this.snapshot.segments.length);
+      for (Segment segment : this.snapshot.segments) {
+        out.writeUTF(segment.fileName);
+      }
+    }
+    Files.move(tmp, this.directory.resolve(COMMIT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    this.deleteSegmentFiles(live);
+  }
+
+  /**
+   * Removes all documents from this index, including the files of a stored index.
+   *
+   * @throws IOException If the files of the index cannot be deleted.
+   */
+  public synchronized void clear() throws IOException {
+    this.buffer = new SegmentBuilder();
+    this.dirty = false;
+    this.snapshot = Snapshot.EMPTY;
+    this.version = -1L;
+    if (this.directory != null) {
+      Files.deleteIfExists(this.directory.resolve(COMMIT_FILE));
+      this.deleteSegmentFiles(Set.of());
+    }
+  }
+
+  /**
+   * Version recorded by the last {@link #commit(long)}, -1 if there was none.
+   */
+  public long version() {
+    return this.version;
+  }
+
+  /**
+   * Number of documents in this index.
+   */
+  public int size() {
+    this.refresh();
+    return this.snapshot.size;
+  }
+
+  /**
+   * Parses the given queries with {@link FulltextQuery#parse(TextAnalyzer, String...)} and searches for them.
+   */
+  public List<Hit> search(int k, Predicate<String> filter, String... queries) {
+    return this.search(FulltextQuery.parse(this.analyzer, queries), k, filter);
+  }
+
+  /**
+   * Returns the k documents with the highest BM25 score for the given query. The scores of all clauses are summed; a fuzzy clause contributes the best score of the terms it was expanded to, weighted by their similarity to the query term. Documents that match none of the clauses are not returned.
+   *
+   * @param query The {@link FulltextQuery}.
+   * @param k Maximum number of hits.
+   * @param filter Optional filter on document IDs, may be null.
+   * @return Hits sorted by descending score.
+   */
+  public List<Hit> search(FulltextQuery query, int k, Predicate<String> filter) {
+    this.refresh();
+    final Snapshot snapshot = this.snapshot;
+    if (k <= 0 || snapshot.size == 0 || query.isEmpty()) {
+      return new ArrayList<>(0);
+    }
+    final float avgLength = Math.max(1f, (float) ((double) snapshot.totalLength / snapshot.size));
+    final Accumulator[] accumulators = ACCUMULATORS.get();
+    final Accumulator scores = accumulators[0].reset(snapshot.size);
+    final TopKCollector<Void> top = TopKCollector.largest(k);
+    try {
+      for (Clause clause : query.getClauses()) {
+        if (clause.isPhrase()) {
+          scorePhrase(snapshot, clause.tokens(), avgLength, scores);
+        } else if (clause.maxEdits() == 0) {
+          scoreTerm(snapshot, clause.tokens().get(0), 1f, 0L, avgLength, scores, false);
+        } else {
+          scoreFuzzy(snapshot, clause.tokens().get(0), clause.maxEdits(), avgLength, scores, accumulators[1].reset(snapshot.size));
+        }
+      }
+      for (int i = 0; i < scores.count; i++) {
+        final int document = scores.documents[i];
+        final float score = scores.scores[document];
+        if (top.accepts(score) && (filter == null || filter.test(snapshot.id(document)))) {
+          top.offer(score, document);
+        }
+      }
+    } finally {
+      scores.clear();
+      accumulators[1].clear();
+    }
+    final int[] documents = top.sortedIds();
+    final double[] values = top.sortedScores();
+    final List<Hit> hits = new ArrayList<>(documents.length);
+    for (int i = 0; i < documents.length; i++) {
+      hits.add(new Hit(snapshot.id(documents[i]), (float) values[i]));
+    }
+    return hits;
+  }
+
+  private void refresh() {
+    if (this.dirty) {
+      synchronized (this) {
+        this.seal();
+      }
+    }
+  }
+
+  /**
+   * Turns the buffered documents into a segment that is not yet stored on disk.
+   */
+  private void seal() {
+    if (this.buffer.isEmpty()) {
+      return;
+    }
+    final List<Segment> segments = new ArrayList<>(Arrays.asList(this.snapshot.segments));
+    segments.add(this.buffer.build());
+    this.buffer = new SegmentBuilder();
+    this.snapshot = Snapshot.of(segments);
+    this.dirty = false;
+  }
+
+  private void deleteSegmentFiles(Set<String> keep) throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, "*" + SEGMENT_SUFFIX)) {
+      for (Path file : files) {
+        if (!keep.contains(file.getFileName().toString())) {
+          Files.delete(file);
+        }
+      }
+    }
+  }
+
+  private static float idf(long docFreq, int documents) {
+    return (float) Math.log(1d + (documents - docFreq + 0.5d) / (docFreq + 0.5d));
+  }
+
+  private static float bm25(float weight, int freq, int length, float avgLength) {
+    return weight * freq * (K1 + 1f) / (freq + K1 * (1f - B + B * length / avgLength));
+  }
+
+  /**
+   * Scores all documents containing the given term.
+   *
+   * @param boost Factor applied to the scores.
+   * @param docFreq Document frequency used for the IDF or 0 to use the one of the term.
+   * @param max If true, the score of a document is the maximum of its current and the new score, otherwise they are summed.
+   */
+  private static void scoreTerm(Snapshot snapshot, String term, float boost, long docFreq, float avgLength, Accumulator scores, boolean max) {
+    final int[] indexes = new int[snapshot.segments.length];
+    for (int s = 0; s < snapshot.segments.length; s++) {
+      indexes[s] = snapshot.segments[s].termIndex(term);
+    }
+    if (docFreq == 0L) {
+      docFreq = docFreq(snapshot, term);
+      if (docFreq == 0L) {
+        return;
+      }
+    }
+    final float weight = boost * idf(docFreq, snapshot.size);
+    for (int s = 0; s < snapshot.segments.length; s++) {
+      if (indexes[s] < 0) {
+        continue;
+      }
+      final Segment segment = snapshot.segments[s];
+      final int base = snapshot.bases[s];
+      final PostingsReader reader = segment.postings(indexes[s]);
+      while (reader.next()) {
+        final float score = bm25(weight, reader.freq(), segment.lengths[reader.document()], avgLength);
+        if (max) {
+          scores.max(base + reader.document(), score);
+        } else {
+          scores.add(base + reader.document(), score);
+        }
+      }
+    }
+  }
+
+  private static long docFreq(Snapshot snapshot, String term) {
+    long docFreq = 0L;
+    for (Segment segment : snapshot.segments) {
+      final int index = segment.termIndex(term);
+      if (index >= 0) {
+        docFreq += segment.docFreqs[index];
+      }
+    }
+    return docFreq;
+  }
+
+  /**
+   * Expands the given term to the closest terms in the index within the given edit distance and scores each document with the best of them. Following Lucene, the score of a term at distance d is weighted with 1 - d / min(length of query, length of term), and all terms share the largest document frequency among them, so that rare misspellings do not outscore the actual term.
+   */
+  private static void scoreFuzzy(Snapshot snapshot, String term, int maxEdits, float avgLength, Accumulator scores, Accumulator clause) {
+    final EditDistance distance = new EditDistance(term, maxEdits);
+    final TreeMap<String, Integer> expansions = new TreeMap<>();
+    for (Segment segment : snapshot.segments) {
+      distance.collect(segment.terms, expansions);
+    }
+    final List<String> terms = new ArrayList<>(expansions.keySet());
+    if (terms.size() > MAX_EXPANSIONS) {
+      terms.sort((a, b) -> Integer.compare(expansions.get(a), expansions.get(b)));
+    }
+
+    final List<String> selected = terms.subList(0, Math.min(terms.size(), MAX_EXPANSIONS));
+    long docFreq = 0L;
+    for (String expansion : selected) {
+      docFreq = Math.max(docFreq, docFreq(snapshot, expansion));
+    }
+    for (String expansion : selected) {
+      final float boost = 1f - (float) expansions.get(expansion) / Math.min(term.length(), expansion.length());
+      scoreTerm(snapshot, expansion, boost, docFreq, avgLength, clause, true);
+    }
+    for (int i = 0; i < clause.count; i++) {
+      scores.add(clause.documents[i], clause.scores[clause.documents[i]]);
+    }
+    clause.clear();
+  }
+
+  /**
+   * Scores all documents containing the given terms at consecutive positions. The phrase is treated like a single term whose frequency is the number of its occurrences.
+   */
+  private static void scorePhrase(Snapshot snapshot, List<String> tokens, float avgLength, Accumulator scores) {
+    final IntArrayList documents = new IntArrayList();
+    final IntArrayList freqs = new IntArrayList();
+    final IntArrayList lengths = new IntArrayList();
+    final int n = tokens.size();
+    int[][] positions = new int[n][8];
+
+    segments:
+    for (int s = 0; s < snapshot.segments.length; s++) {
+      final Segment segment = snapshot.segments[s];
+      final PostingsReader[] readers = new PostingsReader[n];
+      for (int i = 0; i < n; i++) {
+        final int index = segment.termIndex(tokens.get(i));
+        if (index < 0) {
+          continue segments;
+        }
+        readers[i] = segment.postings(index);
+      }
+      if (!readers[0].next()) {
+        continue;
+      }
+      int target = readers[0].document();
+      while (true) {
+        boolean aligned = true;
+        for (int i = 0; i < n; i++) {
+          if (!readers[i].advance(target)) {
+            continue segments;
+          }
+          if (readers[i].document() > target) {
+            target = readers[i].document();
+            aligned = false;
+            break;
+          }
+        }
+        if (aligned) {
+          for (int i = 0; i < n; i++) {
+            if (positions[i].length < readers[i].freq()) {
+              positions[i] = new int[readers[i].freq()];
+            }
+            readers[i].positions(positions[i]);
+          }
+          final int freq = phraseFreq(positions, readers);
+          if (freq > 0) {
+            documents.add(snapshot.bases[s] + target);
+            freqs.add(freq);
+            lengths.add(segment.lengths[target]);
+          }
+          if (!readers[0].next()) {
+            continue segments;
+          }
+          target = readers[0].document();
+        }
+      }
+    }
+    if (documents.isEmpty()) {
+      return;
+    }
+    final float weight = idf(documents.size(), snapshot.size);
+    for (int i = 0; i < documents.size(); i++) {
+      scores.add(documents.get(i), bm25(weight, freqs.get(i), lengths.get(i), avgLength));
+    }
+  }
+
+  /**
+   * Counts the positions p of the first term such that term i occurs at position p + i.
+   */
+  private static int phraseFreq(int[][] positions, PostingsReader[] readers) {
+    int freq = 0;
+    candidates:
+    for (int j = 0; j < readers[0].freq(); j++) {
+      for (int i = 1; i < readers.length; i++) {
+        if (Arrays.binarySearch(positions[i], 0, readers[i].freq(), positions[0][j] + i) < 0) {
+          continue candidates;
+        }
+      }
+      freq++;
+    }
+    return freq;
+  }
+
+  /**
+   * A document returned by {@link #search(FulltextQuery, int, Predicate)}.
+   *
+   * @param id ID of the document.
+   * @param score BM25 score, larger is better.
+   */
+  public record Hit(String id, float score) {
+
+  }
+
+  /**
+   * Dense score array over all documents together with the list of documents that have a score. Scores are positive, so a score of 0 marks a document without score.
+   */
+  private static final class Accumulator {
+
+    private float[] scores = new float[0];
+    private int[] documents = new int[16];
+    private int count = 0;
+
+    private Accumulator reset(int size) {
+      if (this.scores.length < size) {
+        this.scores = new float[size];
+      }
+      return this;
+    }
+
+    private void add(int document, float score) {
+      if (this.scores[document] == 0f) {
+        this.touch(document);
+      }
+      this.scores[document] += score;
+    }
+
+    private void max(int document, float score) {
+      if (this.scores[document] == 0f) {
+        this.touch(document);
+        this.scores[document] = score;
+      } else if (score > this.scores[document]) {
+        this.scores[document] = score;
+      }
+    }
+
+    private void touch(int document) {
+      if (this.count == this.documents.length) {
+        this.documents = Arrays.copyOf(this.documents, this.count << 1);
+      }
+      this.documents[this.count++] = document;
+    }
+
+    /**
+     * Resets the scores of all documents that have one.
+     */
+    private void clear() {
+      for (int i = 0; i < this.count; i++) {
+        this.scores[this.documents[i]] = 0f;
+      }
+      this.count = 0;
+    }
+  }
+
+  /**
+   * Immutable list of the searchable segments.
+   */
+  private static final class Snapshot {
+
+    private static final Snapshot EMPTY = of(List.of());
+
+    private final Segment[] segments;
+
+    /**
+     * Number of the first document of each segment.
+     */
+    private final int[] bases;
+
+    private final int size;
+
+    private final long totalLength;
+
+    private Snapshot(Segment[] segments, int[] bases, int size, long totalLength) {
+      this.segments = segments;
+      this.bases = bases;
+      this.size = size;
+      this.totalLength = totalLength;
+    }
+
+    private static Snapshot of(List<Segment> segments) {
+      final int[] bases = new int[segments.size()];
+      int size = 0;
+      long totalLength = 0L;
+      for (int s = 0; s < segments.size(); s++) {
+        bases[s] = size;
+        size += segments.get(s).size();
+        totalLength += segments.get(s).totalLength;
+      }
+      return new Snapshot(segments.toArray(new Segment[0]), bases, size, totalLength);
+    }
+
+    private String id(int document) {
+      int s = Arrays.binarySearch(this.bases, document);
+      if (s < 0) {
+        s = -s - 2;
+      } else {
+        /* Skip empty segments that share their base with the next one. */
+        while (s + 1 < this.bases.length && this.bases[s + 1] == document) {
+          s++;
+        }
+      }
+      return this.segments[s].ids[document - this.bases[s]];
+    }
+  }
+
+  /**
+   * Optimal string alignment distance (Levenshtein distance with transpositions) to a fixed term. The sorted term dictionary is walked like a trie: the rows of the dynamic program only depend on the prefix of a candidate, so they are reused for the prefix a candidate shares with its predecessor, and all candidates starting with a prefix whose row exceeds the maximum distance are skipped.
+   */
+  private static final class EditDistance {
+
+    private final String term;
+    private final int maxEdits;
+
+    /**
+     * Row i holds the distances between the first i characters of the current candidate and all prefixes of the term.
+     */
+    private int[][] rows;
+
+    private EditDistance(String term, int maxEdits) {
+      this.term = term;
+      this.maxEdits = maxEdits;
+      this.rows = new int[term.length() + maxEdits + 2][term.length() + 1];
+      for (int j = 0; j <= term.length(); j++) {
+        this.rows[0][j] = j;
+      }
+    }
+
+    /**
+     * Adds all terms of the given sorted dictionary whose distance to the term is at most the maximum distance and smaller than the length of either term to the given map.
+     */
+    private void collect(String[] terms, Map<String, Integer> expansions) {
+      final int m = this.term.length();
+      String previous = "";
+      int valid = 0;
+      int t = 0;
+      while (t < terms.length) {
+        final String candidate = terms[t];
+        int i = Math.min(valid, commonPrefix(previous, candidate)) + 1;
+        boolean pruned = false;
+        for (; i <= candidate.length(); i++) {
+          if (this.computeRow(candidate, i) > this.maxEdits) {
+            pruned = true;
+            break;
+          }
+        }
+        previous = candidate;
+        if (pruned) {
+          /* No candidate with this prefix can be within the maximum distance. */
+          valid = i;
+          t = skip(terms, t, i);
+          continue;
+        }
+        valid = candidate.length();
+        final int d = this.rows[candidate.length()][m];
+        if (d <= this.maxEdits && d < Math.min(m, candidate.length())) {
+          expansions.putIfAbsent(candidate, d);
+        }
+        t++;
+      }
+    }
+
+    /**
+     * Computes row i for the given candidate from the previous rows.
+     *
+     * @return The minimum of the row.
+     */
+    private int computeRow(String candidate, int i) {
+      if (i >= this.rows.length) {
+        return Integer.MAX_VALUE;
+      }
+      final int[] row = this.rows[i];
+      final int[] previous = this.rows[i - 1];
+      final char c = candidate.charAt(i - 1);
+      row[0] = i;
+      int min = i;
+      for (int j = 1; j < row.length; j++) {
+        final char t = this.term.charAt(j - 1);
+        int d = Math.min(Math.min(previous[j] + 1, row[j - 1] + 1), previous[j - 1] + (c == t ? 0 : 1));
+        if (i > 1 && j > 1 && c == this.term.charAt(j - 2) && candidate.charAt(i - 2) == t) {
+          d = Math.min(d, this.rows[i - 2][j - 2] + 1);
+        }
+        row[j] = d;
+        min = Math.min(min, d);
+      }
+      return min;
+    }
+
+    /**
+     * Returns the index of the first term after t that does not start with the first length characters of term t. Groups of terms sharing a prefix are usually small, so the group is searched for by galloping.
+     */
+    private static int skip(String[] terms, int t, int length) {
+      final String prefix = terms[t];
+      int lo = t + 1;
+      int hi = lo;
+      for (int step = 1; hi < terms.length && terms[hi].regionMatches(0, prefix, 0, length); step <<= 1) {
+        lo = hi + 1;
+        hi = lo + step;
+      }
+      hi = Math.min(hi, terms.length);
+      while (lo < hi) {
+        final int mid = (lo + hi) >>> 1;
+        if (terms[mid].regionMatches(0, prefix, 0, length)) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      return lo;
+    }
+
+    private static int commonPrefix(String a, String b) {
+      final int length = Math.min(a.length(), b.length());
+      int i = 0;
+      while (i < length && a.charAt(i) == b.charAt(i)) {
+        i++;
+      }
+      return i;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package org.vitrivr.cineast.core.db.fulltext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parsed fulltext query. The syntax is the subset of the Lucene query syntax used by the {@link org.vitrivr.cineast.core.features.abstracts.AbstractTextRetriever}s:
+ * <ul>
+ *   <li>{@code hello world}: documents containing any of the terms.</li>
+ *   <li>{@code "hello world"}: documents containing the terms next to each other. A proximity suffix ({@code "hello world"~2}) is accepted but ignored.</li>
+ *   <li>{@code hello~1}: documents containing a term within the given Damerau-Levenshtein distance of hello; a bare {@code ~} means a distance of {@link #MAX_EDITS}.</li>
+ * </ul>
+ * All clauses are combined with OR; the operators OR, AND and NOT are skipped.
+ */
+public final class FulltextQuery {
+
+  /**
+   * Maximum edit distance of a fuzzy term.
+   */
+  public static final int MAX_EDITS = 2;
+
+  private static final Pattern CLAUSE = Pattern.compile("\"([^\"]*)\"?(~\\d*)?|(\\S+)");
+
+  private static final Pattern FUZZY = Pattern.compile("(.*?)~(\\d{0,9})");
+
+  private static final Set<String> OPERATORS = Set.of("OR", "AND", "NOT", "||", "&&");
+
+  private final List<Clause> clauses;
+
+  private FulltextQuery(List<Clause> clauses) {
+    this.clauses = clauses;
+  }
+
+  /**
+   * Parses the given query strings; clauses of all strings are combined with OR.
+   *
+   * @param analyzer The {@link TextAnalyzer} used to index the queried documents.
+   * @param queries Query strings.
+   */
+  public static FulltextQuery parse(TextAnalyzer analyzer, String... queries) {
+    final List<Clause> clauses = new ArrayList<>();
+    for (String query : queries) {
+      if (query == null) {
+        continue;
+      }
+      final Matcher matcher = CLAUSE.matcher(query);
+      while (matcher.find()) {
+        if (matcher.group(3) == null) {
+          final List<String> tokens = analyzer.analyze(matcher.group(1));
+          if (!tokens.isEmpty()) {
+            clauses.add(new Clause(tokens, 0));
+          }
+          continue;
+        }
+        String word = matcher.group(3);
+        if (OPERATORS.contains(word)) {
+          continue;
+        }
+        int edits = 0;
+        final Matcher fuzzy = FUZZY.matcher(word);
+        if (fuzzy.matches()) {
+          word = fuzzy.group(1);
+          edits = fuzzy.group(2).isEmpty() ? MAX_EDITS : Math.min(Integer.parseInt(fuzzy.group(2)), MAX_EDITS);
+        }
+        for (String token : analyzer.analyze(word)) {
+          clauses.add(new Clause(List.of(token), edits));
+        }
+      }
+    }
+    return new FulltextQuery(List.copyOf(clauses));
+  }
+
+  public List<Clause> getClauses() {
+    return this.clauses;
+  }
+
+  public boolean isEmpty() {
+    return this.clauses.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "FulltextQuery{" + this.clauses + '}';
+  }
+
+  /**
+   * A single term (possibly fuzzy) or a phrase of several terms.
+   *
+   * @param tokens Analyzed tokens; more than one token make up a phrase.
+   * @param maxEdits Maximum edit distance for single terms, 0 for exact matches.
+   */
+  public record Clause(List<String> tokens, int maxEdits) {
+
+    public boolean isPhrase() {
+      return this.tokens.size() > 1;
+    }
+  }
+}
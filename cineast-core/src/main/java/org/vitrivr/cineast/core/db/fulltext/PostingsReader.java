@@ -0,0 +1,97 @@
+package org.vitrivr.cineast.core.db.fulltext;
+
+/**
+ * Cursor over the postings of a single term as written by {@link PostingsWriter}.
+ */
+final class PostingsReader {
+
+  private final byte[] bytes;
+  private final int end;
+  private int offset;
+
+  private int document = -1;
+  private int freq = 0;
+  private int remainingPositions = 0;
+  private int position = 0;
+
+  PostingsReader(byte[] bytes, int offset, int end) {
+    this.bytes = bytes;
+    this.offset = offset;
+    this.end = end;
+  }
+
+  /**
+   * Advances to the next document; positions of the current document that have not been read are skipped.
+   *
+   * @return True if there is another document, false otherwise.
+   */
+  boolean next() {
+    while (this.remainingPositions > 0) {
+      this.readVInt();
+      this.remainingPositions--;
+    }
+    if (this.offset >= this.end) {
+      this.document = Integer.MAX_VALUE;
+      return false;
+    }
+    this.document += this.readVInt();
+    this.freq = this.readVInt();
+    this.remainingPositions = this.freq;
+    this.position = 0;
+    return true;
+  }
+
+  /**
+   * Advances to the first document that is equal to or larger than the given target.
+   *
+   * @return True if there is such a document, false otherwise.
+   */
+  boolean advance(int target) {
+    while (this.document < target) {
+      if (!this.next()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Current document or {@link Integer#MAX_VALUE}, if the postings are exhausted.
+   */
+  int document() {
+    return this.document;
+  }
+
+  int freq() {
+    return this.freq;
+  }
+
+  /**
+   * Reads the next position of the term in the current document. May be called at most {@link #freq()} times per document.
+   */
+  int nextPosition() {
+    this.remainingPositions--;
+    this.position += this.readVInt();
+    return this.position;
+  }
+
+  /**
+   * Reads all positions of the term in the current document into the given array, which must have room for {@link #freq()} values.
+   */
+  int[] positions(int[] target) {
+    for (int i = 0; i < this.freq; i++) {
+      target[i] = this.nextPosition();
+    }
+    return target;
+  }
+
+  private int readVInt() {
+    byte b = this.bytes[this.offset++];
+    int value = b & 0x7F;
+    for (int shift = 7; b < 0; shift += 7) {
+      b = this.bytes[this.offset++];
+      value |= (b & 0x7F) << shift;
+    }
+    return value;
+  }
+}
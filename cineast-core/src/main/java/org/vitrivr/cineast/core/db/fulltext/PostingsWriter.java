@@ -0,0 +1,81 @@
+package org.vitrivr.cineast.core.db.fulltext;
+
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer holding compressed postings. For every document, the postings of a term contain the difference to the previous document number, the term frequency and the differences between the positions of the term, all written as variable length integers (seven bits per byte, the high bit marks that another byte follows).
+ *
+ * @see PostingsReader
+ */
+final class PostingsWriter {
+
+  private byte[] bytes;
+  private int length = 0;
+
+  /**
+   * Last document written by {@link #startDocument(int, int)}, -1 if none has been written yet.
+   */
+  private int lastDocument = -1;
+
+  /**
+   * Last position written by {@link #addPosition(int)}.
+   */
+  private int lastPosition = 0;
+
+  /**
+   * Number of documents written.
+   */
+  private int documents = 0;
+
+  PostingsWriter(int capacity) {
+    this.bytes = new byte[Math.max(capacity, 8)];
+  }
+
+  /**
+   * Starts the postings of a document. Must be followed by exactly freq calls to {@link #addPosition(int)}.
+   *
+   * @param document Document number, larger than all document numbers written before.
+   * @param freq Number of occurrences of the term in the document.
+   */
+  void startDocument(int document, int freq) {
+    if (document <= this.lastDocument) {
+      throw new IllegalArgumentException("Documents must be written in increasing order.");
+    }
+    this.writeVInt(document - this.lastDocument);
+    this.writeVInt(freq);
+    this.lastDocument = document;
+    this.lastPosition = 0;
+    this.documents++;
+  }
+
+  /**
+   * Adds the next position of the term in the current document. Positions must be added in increasing order.
+   */
+  void addPosition(int position) {
+    this.writeVInt(position - this.lastPosition);
+    this.lastPosition = position;
+  }
+
+  int documents() {
+    return this.documents;
+  }
+
+  int length() {
+    return this.length;
+  }
+
+  void copyTo(byte[] target, int offset) {
+    System.arraycopy(this.bytes, 0, target, offset, this.length);
+  }
+
+  private void writeVInt(int value) {
+    if (this.length + 5 > this.bytes.length) {
+      this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length << 1, this.length + 5));
+    }
+    while ((value & ~0x7F) != 0) {
+      this.bytes[this.length++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    this.bytes[this.length++] = (byte) value;
+  }
+}
@@ -0,0 +1,194 @@
+package org.vitrivr.cineast.core.db.fulltext;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable part of a {@link FulltextIndex}: The IDs and lengths of a range of documents together with a sorted term dictionary that points into a single array of compressed postings (see {@link PostingsWriter}).
+ */
+final class Segment {
+
+  private static final int MAGIC = 0x43465453;
+  private static final int FORMAT = 1;
+
+  /**
+   * External ID per document; several documents may share an ID.
+   */
+  final String[] ids;
+
+  /**
+   * Number of tokens per document.
+   */
+  final int[] lengths;
+
+  /**
+   * Sum of {@link #lengths}.
+   */
+  final long totalLength;
+
+  /**
+   * Sorted terms.
+   */
+  final String[] terms;
+
+  /**
+   * Number of documents containing each term.
+   */
+  final int[] docFreqs;
+
+  /**
+   * Start of the postings of each term; the postings of term i end where the ones of term i + 1 start.
+   */
+  final int[] offsets;
+
+  final byte[] postings;
+
+  /**
+   * Name of the file this segment is stored in or null, if it has not been written yet.
+   */
+  String fileName;
+
+  Segment(String[] ids, int[] lengths, String[] terms, int[] docFreqs, int[] offsets, byte[] postings) {
+    if (ids.length != lengths.length || terms.length != docFreqs.length || terms.length + 1 != offsets.length) {
+      throw new IllegalArgumentException("Inconsistent segment.");
+    }
+    this.ids = ids;
+    this.lengths = lengths;
+    this.terms = terms;
+    this.docFreqs = docFreqs;
+    this.offsets = offsets;
+    this.postings = postings;
+    long totalLength = 0L;
+    for (int length : lengths) {
+      totalLength += length;
+    }
+    this.totalLength = totalLength;
+  }
+
+  int size() {
+    return this.ids.length;
+  }
+
+  /**
+   * @return Index of the given term in {@link #terms} or a negative value, if the term does not occur in this segment.
+   */
+  int termIndex(String term) {
+    return Arrays.binarySearch(this.terms, term);
+  }
+
+  PostingsReader postings(int termIndex) {
+    return new PostingsReader(this.postings, this.offsets[termIndex], this.offsets[termIndex + 1]);
+  }
+
+  void write(Path path) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT);
+      out.writeInt(this.ids.length);
+      for (int i = 0; i < this.ids.length; i++) {
+        out.writeUTF(this.ids[i]);
+        out.writeInt(this.lengths[i]);
+      }
+      out.writeInt(this.terms.length);
+      for (int i = 0; i < this.terms.length; i++) {
+        out.writeUTF(this.terms[i]);
+        out.writeInt(this.docFreqs[i]);
+        out.writeInt(this.offsets[i]);
+      }
+      out.writeInt(this.postings.length);
+      out.write(this.postings);
+    }
+  }
+
+  static Segment read(Path path) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+        throw new IOException("Not a fulltext segment: " + path);
+      }
+      final int documents = in.readInt();
+      final String[] ids = new String[documents];
+      final int[] lengths = new int[documents];
+      for (int i = 0; i < documents; i++) {
+        ids[i] = in.readUTF();
+        lengths[i] = in.readInt();
+      }
+      final int termCount = in.readInt();
+      final String[] terms = new String[termCount];
+      final int[] docFreqs = new int[termCount];
+      final int[] offsets = new int[termCount + 1];
+      for (int i = 0; i < termCount; i++) {
+        terms[i] = in.readUTF();
+        docFreqs[i] = in.readInt();
+        offsets[i] = in.readInt();
+      }
+      final byte[] postings = new byte[in.readInt()];
+      in.readFully(postings);
+      offsets[termCount] = postings.length;
+      final Segment segment = new Segment(ids, lengths, terms, docFreqs, offsets, postings);
+      segment.fileName = path.getFileName().toString();
+      return segment;
+    }
+  }
+
+  /**
+   * Merges the given segments into one; documents keep their order.
+   */
+  static Segment merge(List<Segment> segments) {
+    final List<String> ids = new ArrayList<>();
+    final TreeSet<String> terms = new TreeSet<>();
+    int documents = 0;
+    for (Segment segment : segments) {
+      ids.addAll(Arrays.asList(segment.ids));
+      terms.addAll(Arrays.asList(segment.terms));
+      documents += segment.size();
+    }
+    final int[] lengths = new int[documents];
+    int base = 0;
+    for (Segment segment : segments) {
+      System.arraycopy(segment.lengths, 0, lengths, base, segment.size());
+      base += segment.size();
+    }
+
+    final String[] mergedTerms = terms.toArray(new String[0]);
+    final int[] docFreqs = new int[mergedTerms.length];
+    final int[] offsets = new int[mergedTerms.length + 1];
+    final List<PostingsWriter> writers = new ArrayList<>(mergedTerms.length);
+    int length = 0;
+    for (int t = 0; t < mergedTerms.length; t++) {
+      final PostingsWriter writer = new PostingsWriter(16);
+      base = 0;
+      for (Segment segment : segments) {
+        final int index = segment.termIndex(mergedTerms[t]);
+        if (index >= 0) {
+          final PostingsReader reader = segment.postings(index);
+          while (reader.next()) {
+            writer.startDocument(base + reader.document(), reader.freq());
+            for (int i = 0; i < reader.freq(); i++) {
+              writer.addPosition(reader.nextPosition());
+            }
+          }
+        }
+        base += segment.size();
+      }
+      docFreqs[t] = writer.documents();
+      offsets[t] = length;
+      length += writer.length();
+      writers.add(writer);
+    }
+    offsets[mergedTerms.length] = length;
+    final byte[] postings = new byte[length];
+    for (int t = 0; t < mergedTerms.length; t++) {
+      writers.get(t).copyTo(postings, offsets[t]);
+    }
+    return new Segment(ids.toArray(new String[0]), lengths, mergedTerms, docFreqs, offsets, postings);
+  }
+}
@@ -0,0 +1,72 @@
+package org.vitrivr.cineast.core.db.fulltext;
+
+import com.carrotsearch.hppc.IntArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects analyzed documents in memory until they are turned into an immutable {@link Segment}.
+ */
+final class SegmentBuilder {
+
+  private final List<String> ids = new ArrayList<>();
+  private final IntArrayList lengths = new IntArrayList();
+  private final Map<String, PostingsWriter> postings = new HashMap<>();
+
+  /**
+   * Adds a document.
+   *
+   * @param id External ID of the document.
+   * @param tokens Tokens of the document as returned by {@link TextAnalyzer#analyze(String)}.
+   */
+  void add(String id, List<String> tokens) {
+    final int document = this.ids.size();
+    this.ids.add(id);
+    this.lengths.add(tokens.size());
+
+    /* Group positions by term, keeping the order in which the terms occur. */
+    final Map<String, IntArrayList> positions = new LinkedHashMap<>();
+    for (int i = 0; i < tokens.size(); i++) {
+      positions.computeIfAbsent(tokens.get(i), t -> new IntArrayList(2)).add(i);
+    }
+    positions.forEach((term, list) -> {
+      final PostingsWriter writer = this.postings.computeIfAbsent(term, t -> new PostingsWriter(8));
+      writer.startDocument(document, list.size());
+      for (int i = 0; i < list.size(); i++) {
+        writer.addPosition(list.get(i));
+      }
+    });
+  }
+
+  int size() {
+    return this.ids.size();
+  }
+
+  boolean isEmpty() {
+    return this.ids.isEmpty();
+  }
+
+  Segment build() {
+    final String[] terms = this.postings.keySet().toArray(new String[0]);
+    Arrays.sort(terms);
+    final int[] docFreqs = new int[terms.length];
+    final int[] offsets = new int[terms.length + 1];
+    int length = 0;
+    for (int t = 0; t < terms.length; t++) {
+      final PostingsWriter writer = this.postings.get(terms[t]);
+      docFreqs[t] = writer.documents();
+      offsets[t] = length;
+      length += writer.length();
+    }
+    offsets[terms.length] = length;
+    final byte[] bytes = new byte[length];
+    for (int t = 0; t < terms.length; t++) {
+      this.postings.get(terms[t]).copyTo(bytes, offsets[t]);
+    }
+    return new Segment(this.ids.toArray(new String[0]), this.lengths.toArray(), terms, docFreqs, offsets, bytes);
+  }
+}
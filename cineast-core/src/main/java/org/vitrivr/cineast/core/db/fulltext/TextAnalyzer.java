@@ -0,0 +1,112 @@
+package org.vitrivr.cineast.core.db.fulltext;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * Turns text into the tokens stored in a {@link FulltextIndex}: The text is split at every code point that is neither a letter, a digit nor a combining mark and each token is passed through a chain of filters. A filter may return null to drop a token.
+ * <p>
+ * The same analyzer has to be used for indexing and querying.
+ */
+public final class TextAnalyzer {
+
+  /**
+   * Lower-cases tokens independent of the default locale.
+   */
+  public static final UnaryOperator<String> LOWERCASE = token -> token.toLowerCase(Locale.ROOT);
+
+  private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+  /**
+   * Removes diacritics, e.g. "café" becomes "cafe". Pure ASCII tokens are returned as is.
+   */
+  public static final UnaryOperator<String> FOLD_DIACRITICS = token -> {
+    for (int i = 0; i < token.length(); i++) {
+      if (token.charAt(i) > 0x7F) {
+        return COMBINING_MARKS.matcher(Normalizer.normalize(token, Normalizer.Form.NFD)).replaceAll("");
+      }
+    }
+    return token;
+  };
+
+  /**
+   * Tokens longer than this are dropped by the {@link #standard()} analyzer; they are almost always OCR or ASR garbage.
+   */
+  public static final int MAX_TOKEN_LENGTH = 64;
+
+  private static final TextAnalyzer STANDARD = new TextAnalyzer(List.of(LOWERCASE, FOLD_DIACRITICS, maxLength(MAX_TOKEN_LENGTH)));
+
+  private final List<UnaryOperator<String>> filters;
+
+  private TextAnalyzer(List<UnaryOperator<String>> filters) {
+    this.filters = filters;
+  }
+
+  /**
+   * Lower-casing, diacritics folding, drops tokens longer than {@link #MAX_TOKEN_LENGTH}.
+   */
+  public static TextAnalyzer standard() {
+    return STANDARD;
+  }
+
+  /**
+   * Filter that drops tokens longer than the given number of characters.
+   */
+  public static UnaryOperator<String> maxLength(int length) {
+    return token -> token.length() > length ? null : token;
+  }
+
+  /**
+   * Returns a new {@link TextAnalyzer} that applies the given filter after the filters of this analyzer.
+   */
+  public TextAnalyzer with(UnaryOperator<String> filter) {
+    final List<UnaryOperator<String>> filters = new ArrayList<>(this.filters);
+    filters.add(filter);
+    return new TextAnalyzer(List.copyOf(filters));
+  }
+
+  /**
+   * Splits the given text into tokens. The position of a token is its index in the returned list.
+   *
+   * @param text Text to analyze, may be null.
+   * @return List of tokens, never null.
+   */
+  public List<String> analyze(String text) {
+    final List<String> tokens = new ArrayList<>();
+    if (text == null) {
+      return tokens;
+    }
+    int start = -1;
+    int i = 0;
+    while (i <= text.length()) {
+      final int codePoint = i < text.length() ? text.codePointAt(i) : ' ';
+      if (Character.isLetterOrDigit(codePoint) || (start >= 0 && Character.getType(codePoint) == Character.NON_SPACING_MARK)) {
+        if (start < 0) {
+          start = i;
+        }
+      } else if (start >= 0) {
+        final String token = this.filter(text.substring(start, i));
+        if (token != null && !token.isEmpty()) {
+          tokens.add(token);
+        }
+        start = -1;
+      }
+      i += Character.charCount(codePoint);
+    }
+    return tokens;
+  }
+
+  private String filter(String token) {
+    for (UnaryOperator<String> filter : this.filters) {
+      token = filter.apply(token);
+      if (token == null) {
+        return null;
+      }
+    }
+    return token;
+  }
+}
@@ -6,18 +6,37 @@
 import com.google.gson.JsonPrimitive;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.vitrivr.cineast.core.data.ReadableFloatVector;
+import org.vitrivr.cineast.core.data.entities.SimpleFulltextFeatureDescriptor;
 import org.vitrivr.cineast.core.db.AbstractPersistencyWriter;
 import org.vitrivr.cineast.core.db.PersistentTuple;
+import org.vitrivr.cineast.core.db.fulltext.FulltextIndex;
 
 public class JsonFileWriter extends AbstractPersistencyWriter<JsonObject> {
 
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * Column whose text values are indexed for {@link JsonSelector#getFulltextRows}.
+   */
+  private static final String FULLTEXT_COLUMN = SimpleFulltextFeatureDescriptor.FIELDNAMES[1];
+
   private File baseFolder;
+  private File file;
   private PrintWriter out;
   private boolean first = true;
 
+  /**
+   * Index over the text values written to {@link #FULLTEXT_COLUMN}; created with the first such value.
+   */
+  private FulltextIndex fulltext;
+  private boolean fulltextFailed = false;
+
   public JsonFileWriter(File baseFolder) {
     this.baseFolder = baseFolder;
   }
@@ -53,7 +72,9 @@ public boolean open(String name) {
       return false;
     }
     try {
-      this.out = new PrintWriter(new File(baseFolder, name + ".json"));
+      this.file = new File(baseFolder, name + ".json");
+      this.out = new PrintWriter(this.file);
+      this.fulltextFailed = false;
       this.out.println('[');
       return true;
     } catch (FileNotFoundException e) {
@@ -71,6 +92,14 @@ public synchronized void close() {
     out.flush();
     out.close();
     out = null;
+    if (this.fulltext != null) {
+      try {
+        this.fulltext.commit(this.file.lastModified());
+      } catch (IOException e) {
+        LOGGER.warn("Cannot store fulltext index of {}: {}", this.file, e.getMessage());
+      }
+      this.fulltext = null;
+    }
   }
 
   @Override
@@ -82,12 +111,37 @@ public boolean persist(PersistentTuple tuple) {
       this.out.print(this.getPersistentRepresentation(tuple).toString());
       this.out.flush();
       this.first = false;
+      this.index(tuple);
     }
 
     return true;
 
   }
 
+  /**
+   * Adds the text of the given tuple to the fulltext index of the file, so that the index does not have to be rebuilt by the selector.
+   */
+  private void index(PersistentTuple tuple) {
+    final List<Object> elements = tuple.getElements();
+    for (int i = 1; i < elements.size() && i < this.names.length; i++) {
+      if (!FULLTEXT_COLUMN.equals(this.names[i]) || !(elements.get(i) instanceof String) || this.fulltextFailed) {
+        continue;
+      }
+      if (this.fulltext == null) {
+        try {
+          /* The file has just been truncated, so has the index. */
+          this.fulltext = FulltextIndex.open(FulltextIndex.directoryFor(this.file, FULLTEXT_COLUMN));
+          this.fulltext.clear();
+        } catch (IOException e) {
+          LOGGER.warn("Cannot open fulltext index of {}, it will be rebuilt on first use: {}", this.file, e.getMessage());
+          this.fulltextFailed = true;
+          continue;
+        }
+      }
+      this.fulltext.add(elements.get(0).toString(), (String) elements.get(i));
+    }
+  }
+
   @Override
   public boolean persist(List<PersistentTuple> tuples) {
     boolean success = true;
@@ -13,7 +13,6 @@
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import org.apache.commons.lang3.time.StopWatch;
 import org.apache.commons.lang3.tuple.Triple;
@@ -96,25 +95,6 @@ private static List<Map<String, PrimitiveTypeProvider>> processResults(ResultSet
     return _return;
   }
 
-  /**
-   * Converts a flat vector to a string representation usable by Polypheny DB.
-   *
-   * @param vector {@link Distance} The float vector to convert.
-   * @return The resulting name.
-   */
-  private static String toVectorString(float[] vector) {
-    final StringBuilder arrayString = new StringBuilder("ARRAY[");
-    int i = 0;
-    for (float v : vector) {
-      if (i++ > 0) {
-        arrayString.append(",");
-      }
-      arrayString.append(v);
-    }
-    arrayString.append("]");
-    return arrayString.toString();
-  }
-
   /**
    * Converts a {@link Distance} to a name usable by Polypheny DB.
    *
@@ -189,32 +169,40 @@ public void close() {
   @Override
   public <E extends DistanceElement> List<E> getNearestNeighboursGeneric(int k, float[] vector, String column, Class<E> distanceElementClass, ReadableQueryConfig queryConfig) {
     final Distance distance = queryConfig.getDistance().orElse(Distance.euclidean);
-    try (final PreparedStatement statement = this.wrapper.connection.prepareStatement("SELECT id, distance(" + column + "," + toVectorString(vector) + ",'" + toName(distance) + "') as dist FROM " + this.fqn + " ORDER BY dist ASC LIMIT " + k)) {
-      /* Execute query and return results. */
-      try (final ResultSet rs = statement.executeQuery()) {
-        return processResults(rs).stream().map(e -> {
-          final String id = e.get(GENERIC_ID_COLUMN_QUALIFIER).getString();
-          double d = e.get("dist").getDouble(); /* This should be fine. */
-          return DistanceElement.create(distanceElementClass, id, d);
-        }).collect(Collectors.toList());
-      }
+    try {
+      final List<E> _return = new ArrayList<>(k);
+      this.nearestNeighbours(k, vector, column, distance, distanceElementClass, _return);
+      return _return;
     } catch (SQLException e) {
       LOGGER.error("Error occurred during query execution in getNearestNeighboursGeneric(): {}", e.getMessage());
       return new ArrayList<>(0);
     }
   }
 
+  /**
+   * Executes one kNN query per vector, reusing the prepared statement for vectors with the same distance. The results are returned in the order of the vectors.
+   */
   @Override
   public <T extends DistanceElement> List<T> getBatchedNearestNeighbours(int k, List<float[]> vectors, String column, Class<T> distanceElementClass, List<ReadableQueryConfig> queryConfigs) {
-    LOGGER.warn("Error occurred during query execution in getBatchedNearestNeighbours(): Not supported");
-    return new ArrayList<>(0);
+    try {
+      final List<T> _return = new ArrayList<>(k * vectors.size());
+      for (int i = 0; i < vectors.size(); i++) {
+        final Distance distance = queryConfigs.get(i).getDistance().orElse(Distance.euclidean);
+        this.nearestNeighbours(k, vectors.get(i), column, distance, distanceElementClass, _return);
+      }
+      return _return;
+    } catch (SQLException e) {
+      LOGGER.error("Error occurred during query execution in getBatchedNearestNeighbours(): {}", e.getMessage());
+      return new ArrayList<>(0);
+    }
   }
 
   @Override
   public List<Map<String, PrimitiveTypeProvider>> getNearestNeighbourRows(int k, float[] vector, String column, ReadableQueryConfig queryConfig) {
     final Distance distance = queryConfig.getDistance().orElse(Distance.euclidean);
-
-    try (final PreparedStatement statement = this.wrapper.connection.prepareStatement("SELECT id, distance(" + column + "," + toVectorString(vector) + ",'" + toName(distance) + "') as dist FROM " + this.fqn + " ORDER BY dist ASC LIMIT " + k)) {
+    try {
+      final PreparedStatement statement = this.prepareNearestNeighbours(k, column, distance);
+      statement.setArray(1, this.wrapper.toArray(vector));
       /* Execute query and return results. */
       try (final ResultSet rs = statement.executeQuery()) {
         return processResults(rs);
@@ -280,6 +268,11 @@ public List<Map<String, PrimitiveTypeProvider>> getRows(String column, Relationa
     }
   }
 
+  @Override
+  public boolean supportsCompoundPredicates() {
+    return true;
+  }
+
   /**
    * Performs a boolean lookup based on multiple conditions, linked with AND. Each element of the list specifies one of the conditions - left middle right, i.e. id IN (1, 5, 7)
    *
@@ -388,6 +381,41 @@ public boolean ping() {
     }
   }
 
+  /**
+   * Executes a kNN query for a single vector and adds the results to the provided list.
+   *
+   * @param k                    The number of nearest neighbours to retrieve.
+   * @param vector               The query vector, which is bound as array parameter.
+   * @param column               The column to query.
+   * @param distance             The {@link Distance} to use.
+   * @param distanceElementClass The class of the {@link DistanceElement}s to create.
+   * @param results              The list to add the results to.
+   * @throws SQLException If query execution fails.
+   */
+  private <E extends DistanceElement> void nearestNeighbours(int k, float[] vector, String column, Distance distance, Class<E> distanceElementClass, List<E> results) throws SQLException {
+    final PreparedStatement statement = this.prepareNearestNeighbours(k, column, distance);
+    statement.setArray(1, this.wrapper.toArray(vector));
+    try (final ResultSet rs = statement.executeQuery()) {
+      while (rs.next()) {
+        results.add(DistanceElement.create(distanceElementClass, rs.getString(1), rs.getDouble(2)));
+      }
+    }
+  }
+
+  /**
+   * Returns the cached {@link PreparedStatement} for a kNN query on this entity; the query vector is its only parameter. The statement must not be closed by the caller.
+   *
+   * @param k        The number of nearest neighbours to retrieve.
+   * @param column   The column to query.
+   * @param distance The {@link Distance} to use.
+   * @return {@link PreparedStatement}
+   * @throws SQLException If preparing the statement fails.
+   */
+  private PreparedStatement prepareNearestNeighbours(int k, String column, Distance distance) throws SQLException {
+    final String name = toName(distance);
+    return this.wrapper.prepareCached(new NearestNeighboursKey(this.fqn, column, distance, k), () -> "SELECT " + GENERIC_ID_COLUMN_QUALIFIER + ", distance(" + column + ", ?, '" + name + "') as dist FROM " + this.fqn + " ORDER BY dist ASC LIMIT " + k);
+  }
+
   /**
    * Binds a scalar value to a {@link PreparedStatement}.
    *
@@ -485,4 +513,11 @@ private PreparedStatement prepareInStatement(String fieldName, Iterable<Primitiv
 
     return this.wrapper.connection.prepareStatement(stringStatement.toString());
   }
+
+  /**
+   * Identifies a cached kNN statement; see {@link #prepareNearestNeighbours(int, String, Distance)}.
+   */
+  private record NearestNeighboursKey(String entity, String column, Distance distance, int k) {
+
+  }
 }
@@ -1,10 +1,15 @@
 package org.vitrivr.cineast.core.db.polypheny;
 
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import org.apache.commons.lang3.time.StopWatch;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -33,10 +38,27 @@ public final class PolyphenyWrapper implements AutoCloseable {
    * {@link Logger} used by this PolyphenyWrapper.
    */
   private static final Logger LOGGER = LogManager.getLogger();
+  /**
+   * Maximum number of {@link PreparedStatement}s kept open per {@link Connection}.
+   */
+  private static final int STATEMENT_CACHE_SIZE = 64;
   /**
    * The JDBC {@link Connection} used to communicate with Polypheny DB.
    */
   final Connection connection;
+  /**
+   * {@link PreparedStatement}s prepared on the {@link #connection}, least recently used first. Like the {@link Connection}, they must only be used by one thread at a time.
+   */
+  private final LinkedHashMap<Object, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Object, PreparedStatement> eldest) {
+      if (this.size() > STATEMENT_CACHE_SIZE) {
+        closeStatement(eldest.getValue());
+        return true;
+      }
+      return false;
+    }
+  };
 
   public PolyphenyWrapper(String host, int port) {
     StopWatch watch = StopWatch.createStarted();
@@ -55,6 +77,60 @@ public PolyphenyWrapper(String host, int port) {
     LOGGER.debug("Connected to Polypheny DB in {} ms at {}", watch.getTime(TimeUnit.MILLISECONDS), host);
   }
 
+  /**
+   * Wraps an existing JDBC {@link Connection}, e.g., to a local stand-in for Polypheny DB.
+   *
+   * @param connection The {@link Connection} to use.
+   */
+  public PolyphenyWrapper(Connection connection) {
+    this.connection = connection;
+  }
+
+  /**
+   * Closes a {@link PreparedStatement}, logging errors instead of throwing them.
+   *
+   * @param statement The {@link PreparedStatement} to close.
+   */
+  private static void closeStatement(PreparedStatement statement) {
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      LOGGER.warn("Closing prepared statement failed: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Returns the cached {@link PreparedStatement} for the given key or prepares and caches a new one. Cached statements remain open until they are evicted or this {@link PolyphenyWrapper} is closed, so callers must not close them.
+   *
+   * @param key Key that identifies the statement; must determine the SQL returned by the supplier.
+   * @param sql Supplier for the SQL of the statement; only invoked if the statement must be prepared.
+   * @return {@link PreparedStatement}
+   * @throws SQLException If preparing the statement fails.
+   */
+  PreparedStatement prepareCached(Object key, Supplier<String> sql) throws SQLException {
+    PreparedStatement statement = this.statements.get(key);
+    if (statement == null || statement.isClosed()) {
+      statement = this.connection.prepareStatement(sql.get());
+      this.statements.put(key, statement);
+    }
+    return statement;
+  }
+
+  /**
+   * Converts a float vector into a JDBC {@link Array} that can be bound as parameter.
+   *
+   * @param vector The float vector to convert.
+   * @return {@link Array}
+   * @throws SQLException If the array cannot be created.
+   */
+  Array toArray(float[] vector) throws SQLException {
+    final Float[] boxed = new Float[vector.length];
+    for (int i = 0; i < vector.length; i++) {
+      boxed[i] = vector[i];
+    }
+    return this.connection.createArrayOf("REAL", boxed);
+  }
+
   public String fqnInput(String entity) {
     return CINEAST_SCHEMA + "." + entity;
   }
@@ -63,6 +139,8 @@ public String fqnInput(String entity) {
   public void close() {
     try {
       LOGGER.debug("Closing JDBC connection to Polypheny DB.");
+      this.statements.values().forEach(PolyphenyWrapper::closeStatement);
+      this.statements.clear();
       this.connection.close();
     } catch (SQLException e) {
       LOGGER.error("Closing JDBC connection to Polypheny DB failed: {}", e.getMessage());
@@ -1,5 +1,6 @@
 package org.vitrivr.cineast.core.db.polypheny;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -22,7 +23,7 @@ public final class PolyphenyWriter extends AbstractPersistencyWriter<PreparedSta
    */
   private final PolyphenyWrapper wrapper;
   /**
-   * The batch size to use for INSERTS; this is simply a property exposed. Only batched persistency writers make use of batched INSERTS.
+   * The maximum number of INSERTs sent to Polypheny DB in one JDBC batch; values smaller than one send all tuples of a call to {@link #persist(List)} in a single batch.
    */
   private final int batchSize;
   /**
@@ -65,22 +66,58 @@ public boolean exists(String key, String value) {
 
   @Override
   public boolean persist(List<PersistentTuple> tuples) {
+    if (tuples.isEmpty()) {
+      return true;
+    }
     long start = System.currentTimeMillis();
     int size = tuples.size();
     final String query = this.createInsertStatement(tuples.get(0));
-    try (final PreparedStatement stmt = this.wrapper.connection.prepareStatement(query)) {
-      while (!tuples.isEmpty()) {
-        bindInsertStatement(stmt, tuples.remove(0));
+    final Connection connection = this.wrapper.connection;
+    PreparedStatement stmt = null;
+    boolean autoCommit = true;
+    try {
+      /* All batches of a call are written in one transaction, so that a failed batch does not leave the preceding ones committed. */
+      autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      stmt = this.wrapper.prepareCached(query, () -> query);
+      int pending = 0;
+      for (PersistentTuple tuple : tuples) {
+        bindInsertStatement(stmt, tuple);
         stmt.addBatch();
+        if (++pending == this.batchSize) {
+          stmt.executeBatch(); /* Execute full batch of INSERTs. */
+          pending = 0;
+        }
+      }
+      if (pending > 0) {
+        stmt.executeBatch(); /* Execute remaining INSERTs. */
       }
-      stmt.executeBatch(); /* Execute INSERTs. */
-      this.wrapper.connection.commit();
+      connection.commit();
+      tuples.clear();
       long stop = System.currentTimeMillis();
       LOGGER.trace("Completed insert of {} elements in {} ms", size, stop - start);
       return true;
     } catch (SQLException e) {
       LOGGER.error("Error occurred while executing INSERT on {}: {}.", this.fqn, e.getMessage());
+      try {
+        connection.rollback();
+      } catch (SQLException r) {
+        LOGGER.error("Error occurred while rolling back INSERT on {}: {}.", this.fqn, r.getMessage());
+      }
+      if (stmt != null) {
+        try {
+          stmt.clearBatch(); /* The statement is cached and will be reused. */
+        } catch (SQLException ignored) {
+          /* Nothing left to do; the error has been logged. */
+        }
+      }
       return false;
+    } finally {
+      try {
+        connection.setAutoCommit(autoCommit);
+      } catch (SQLException e) {
+        LOGGER.warn("Could not restore auto-commit mode of connection to Polypheny DB: {}.", e.getMessage());
+      }
     }
   }
 
@@ -145,11 +182,7 @@ private PreparedStatement bindInsertStatement(PreparedStatement stmt, Persistent
       } else if (o instanceof String) {
         stmt.setString(index++, (String) o);
       } else if (o instanceof float[]) {
-        final Object[] list = new Object[((float[]) o).length];
-        for (int i = 0; i < ((float[]) o).length; i++) {
-          list[i] = ((float[]) o)[i];
-        }
-        stmt.setArray(index++, this.wrapper.connection.createArrayOf("REAL", list));
+        stmt.setArray(index++, this.wrapper.toArray((float[]) o));
       } else if (o instanceof int[]) {
         final Object[] list = new Object[((int[]) o).length];
         for (int i = 0; i < ((int[]) o).length; i++) {
@@ -11,6 +11,7 @@
 import org.vitrivr.cineast.core.data.entities.MediaObjectMetadataDescriptor;
 import org.vitrivr.cineast.core.data.entities.MediaSegmentDescriptor;
 import org.vitrivr.cineast.core.data.entities.MediaSegmentMetadataDescriptor;
+import org.vitrivr.cineast.core.db.dao.reader.MediaSegmentCache;
 import org.vitrivr.cineast.core.db.dao.reader.TagReader;
 import org.vitrivr.cineast.core.db.setup.AttributeDefinition.AttributeType;
 
@@ -89,6 +90,7 @@ default boolean dropMultiMediaObjectsEntity() {
    */
   default boolean dropSegmentEntity() {
     if (this.dropEntity(MediaSegmentDescriptor.ENTITY)) {
+      MediaSegmentCache.getInstance().invalidateAll();
       LOGGER.info("Successfully dropped segment entity.");
       return true;
     } else {
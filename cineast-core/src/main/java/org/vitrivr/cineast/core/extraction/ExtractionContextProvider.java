@@ -128,7 +128,7 @@ default Optional<Path> relPath() {
   int threadPoolSize();
 
   /**
-   * Returns the size of the task queue. That queue is used to store extraction tasks right before they are being processed.
+   * Returns the size of the task queue. Every extractor has a queue of that size to store segments right before they are being processed.
    *
    * @return Size of the task queue. Must be > 0.
    */
@@ -141,6 +141,27 @@ default Optional<Path> relPath() {
    */
   Integer segmentQueueSize();
 
+  /**
+   * Returns the maximum number of segments that may wait for the given {@link Extractor}. Since a segment is kept in memory until all extractors have processed it, this caps the memory an extractor that falls behind can hold on to.
+   *
+   * @param extractor The {@link Extractor}.
+   * @return Maximum number of queued segments, defaults to the size of the task queue.
+   */
+  default int extractorQueueSize(Extractor extractor) {
+    final Integer size = this.taskQueueSize();
+    return size != null ? size : 0;
+  }
+
+  /**
+   * Returns the maximum number of threads that may run the given {@link Extractor} concurrently. Extractors that are not thread-safe never run on more than one thread.
+   *
+   * @param extractor The {@link Extractor}.
+   * @return Maximum number of threads, defaults to the size of the thread pool.
+   */
+  default int extractorThreads(Extractor extractor) {
+    return extractor.isThreadSafe() ? this.threadPoolSize() : 1;
+  }
+
 
   /**
    * Returns the size of a batch. A batch is used when persisting data. Entities will be kept in memory until the batchsize limit is hit at which point they will be persisted.
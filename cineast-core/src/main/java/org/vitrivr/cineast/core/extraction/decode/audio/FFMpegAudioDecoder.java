@@ -1,10 +1,9 @@
 package org.vitrivr.cineast.core.extraction.decode.audio;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.logging.log4j.LogManager;
@@ -28,11 +27,13 @@
 import org.vitrivr.cineast.core.config.DecoderConfig;
 import org.vitrivr.cineast.core.data.frames.AudioDescriptor;
 import org.vitrivr.cineast.core.data.frames.AudioFrame;
+import org.vitrivr.cineast.core.data.frames.AudioFramePool;
 import org.vitrivr.cineast.core.extraction.decode.general.Decoder;
-import org.vitrivr.cineast.core.util.LogHelper;
 
 /**
  * A {@link Decoder} implementation that decodes audio using the ffmpeg library + the corresponding Java bindings.
+ * <p>
+ * Re-sampled data is converted into a native output buffer that is re-used for the whole file. The arrays backing the emitted {@link AudioFrame}s are taken from an {@link AudioFramePool}; consumers that are done with a frame can return them by means of {@link #recycle(AudioFrame)}.
  */
 public class FFMpegAudioDecoder implements AudioDecoder {
 
@@ -63,10 +64,25 @@ public class FFMpegAudioDecoder implements AudioDecoder {
   private static final int TARGET_FORMAT = avutil.AV_SAMPLE_FMT_S16;
   private static final int BYTES_PER_SAMPLE = avutil.av_get_bytes_per_sample(TARGET_FORMAT);
 
+  /**
+   * Maximum number of decoded AudioFrames held in the queue. Further frames remain in the decoder until the queue has been drained.
+   */
+  private static final int MAX_QUEUED_FRAMES = 64;
+
+  /**
+   * Default capacity in bytes of the {@link AudioFramePool}.
+   */
+  private static final long DEFAULT_POOL_CAPACITY = 4L * 1024L * 1024L;
+
   /**
    * Internal data structure used to hold decoded AudioFrames.
    */
   private final ArrayDeque<AudioFrame> frameQueue = new ArrayDeque<>();
+
+  /**
+   * {@link AudioFramePool} that provides the arrays backing the AudioFrames.
+   */
+  private final AudioFramePool pool;
   private final IntPointer out_linesize = new IntPointer();
   private final AtomicBoolean complete = new AtomicBoolean(false);
   private AVFormatContext pFormatCtx = null;
@@ -78,6 +94,32 @@ public class FFMpegAudioDecoder implements AudioDecoder {
   private SwrContext swr_ctx = null;
   private AudioDescriptor descriptor = null;
 
+  /**
+   * Number of samples the native buffer of the re-sampled frame can hold; zero if it has not been allocated yet.
+   */
+  private int outputCapacity = 0;
+
+  /**
+   * Re-usable buffer that collects the re-sampled data of one decoded frame.
+   */
+  private byte[] staging = new byte[0];
+
+  /**
+   * True if the decoder may still hold decoded frames, because the frame queue was full.
+   */
+  private boolean pending = false;
+
+  public FFMpegAudioDecoder() {
+    this(new AudioFramePool(DEFAULT_POOL_CAPACITY));
+  }
+
+  /**
+   * @param pool {@link AudioFramePool} that provides the arrays backing the AudioFrames; may be shared between decoders.
+   */
+  public FFMpegAudioDecoder(AudioFramePool pool) {
+    this.pool = pool;
+  }
+
   /**
    * Reads the next packet from the stream containing 1:n frames. If queue is set to true, the decoded frames are enqueued.
    *
@@ -85,6 +127,11 @@ public class FFMpegAudioDecoder implements AudioDecoder {
    * @return True if frame was read, false otherwise.
    */
   private boolean readFrame(boolean queue) {
+    /* Frames that remained in the decoder because the queue was full are received first. */
+    if (this.pending && this.receiveFrames(queue)) {
+      return true;
+    }
+
     boolean readFrame = false;
 
     /* Outer loop: Read packet (frame) from stream. */
@@ -108,15 +155,7 @@ private boolean readFrame(boolean queue) {
         /* Because a packet can theoretically contain more than one frame; repeat decoding until no samples are
          * remaining in the packet.
          */
-        while (avcodec.avcodec_receive_frame(this.pCodecCtx, this.decodedFrame) == 0) {
-          /* If queue is true; enqueue frame. */
-          if (queue) {
-            if (this.swr_ctx != null) {
-              this.readResampled(this.decodedFrame.nb_samples());
-            } else {
-              this.readOriginal(this.decodedFrame.nb_samples());
-            }
-          }
+        if (this.receiveFrames(queue)) {
           readFrame = true;
         }
       }
@@ -128,6 +167,33 @@ private boolean readFrame(boolean queue) {
     return readFrame;
   }
 
+  /**
+   * Receives decoded frames from the decoder until it requires more input or, if queue is set to true, until the frame queue is full.
+   *
+   * @param queue If true, decoded frames are enqueued. Otherwise, they are discarded.
+   * @return True if at least one frame was received, false otherwise.
+   */
+  private boolean receiveFrames(boolean queue) {
+    boolean received = false;
+    while (!queue || this.frameQueue.size() < MAX_QUEUED_FRAMES) {
+      if (avcodec.avcodec_receive_frame(this.pCodecCtx, this.decodedFrame) != 0) {
+        this.pending = false;
+        return received;
+      }
+      /* If queue is true; enqueue frame. */
+      if (queue) {
+        if (this.swr_ctx != null) {
+          this.readResampled(this.decodedFrame.nb_samples());
+        } else {
+          this.readOriginal(this.decodedFrame.nb_samples());
+        }
+      }
+      received = true;
+    }
+    this.pending = true;
+    return received;
+  }
+
   /**
    * Returns the timestamp in milliseconds of the currently active frame. That timestamp is based on a best-effort calculation by the FFMPEG decoder.
    *
@@ -146,7 +212,7 @@ private Long getFrameTimestamp() {
   private void readOriginal(int samples) {
     /* Allocate output buffer... */
     int buffersize = samples * avutil.av_get_bytes_per_sample(this.decodedFrame.format()) * this.decodedFrame.channels();
-    byte[] buffer = new byte[buffersize];
+    byte[] buffer = this.pool.acquire(buffersize);
     this.decodedFrame.data(0).position(0).get(buffer);
 
     /* ... and add frame to queue. */
@@ -166,10 +232,8 @@ private void readResampled(int samples) {
       return;
     }
 
-    /* Prepare ByteOutputStream to write resampled data to. */
-    ByteArrayOutputStream stream = new ByteArrayOutputStream();
-
-    /* Now drain buffer and write samples to queue. */
+    /* Now drain buffer and collect samples in the staging buffer. */
+    int length = 0;
     while (true) {
       /* Estimate number of samples that were converted. */
       int out_samples = swresample.swr_get_out_samples(this.swr_ctx, 0);
@@ -177,30 +241,63 @@ private void readResampled(int samples) {
         break;
       }
 
-      /* Allocate output frame and read converted samples. If no sample was read -> break (draining completed). */
-      avutil.av_samples_alloc(this.resampledFrame.data(), out_linesize, this.resampledFrame.channels(), out_samples, TARGET_FORMAT, 0);
+      /* Grow native output buffer if necessary and read converted samples. If no sample was read -> break (draining completed). */
+      if (out_samples > this.outputCapacity && !this.allocateOutput(out_samples)) {
+        break;
+      }
       out_samples = swresample.swr_convert(this.swr_ctx, this.resampledFrame.data(), out_samples, null, 0);
       if (out_samples == 0) {
         break;
       }
 
-      /* Allocate output buffer... */
+      /* Copy samples to staging buffer. */
       int buffersize = out_samples * BYTES_PER_SAMPLE * this.resampledFrame.channels();
-      byte[] buffer = new byte[buffersize];
-      this.resampledFrame.data(0).position(0).get(buffer);
-
-      try {
-        stream.write(buffer);
-      } catch (IOException e) {
-        LOGGER.error("Could not write re-sampled frame to ByteArrayOutputStream due to an exception ({}).", LogHelper.getStackTrace(e));
-        break;
+      if (length + buffersize > this.staging.length) {
+        this.staging = Arrays.copyOf(this.staging, Math.max(2 * this.staging.length, length + buffersize));
       }
+      this.resampledFrame.data(0).position(0).get(this.staging, length, buffersize);
+      length += buffersize;
+    }
+
+    /* Copy samples to output buffer and add frame to queue. */
+    final byte[] buffer = this.pool.acquire(length);
+    System.arraycopy(this.staging, 0, buffer, 0, length);
+    this.frameQueue.add(new AudioFrame(this.getFrameNumber(), this.getFrameTimestamp(), buffer, this.descriptor));
+  }
 
+  /**
+   * (Re-)allocates the native buffer of the re-sampled frame.
+   *
+   * @param samples Number of samples per channel the buffer must hold.
+   * @return True on success, false otherwise.
+   */
+  private boolean allocateOutput(int samples) {
+    this.freeOutput();
+    if (avutil.av_samples_alloc(this.resampledFrame.data(), this.out_linesize, this.resampledFrame.channels(), samples, TARGET_FORMAT, 0) < 0) {
+      LOGGER.error("Could not allocate buffer for re-sampled data (FFMPEG av_samples_alloc() failed).");
+      return false;
+    }
+    this.outputCapacity = samples;
+    return true;
+  }
+
+  /**
+   * Frees the native buffer of the re-sampled frame, if it has been allocated.
+   */
+  private void freeOutput() {
+    if (this.outputCapacity > 0) {
       avutil.av_freep(this.resampledFrame.data());
+      this.outputCapacity = 0;
     }
+  }
 
-    /* ... and add frame to queue. */
-    this.frameQueue.add(new AudioFrame(this.getFrameNumber(), this.getFrameTimestamp(), stream.toByteArray(), this.descriptor));
+  /**
+   * Returns the array backing an AudioFrame returned by this decoder to the {@link AudioFramePool}, so that it can be re-used for subsequent frames. The AudioFrame must no longer be referenced, e.g. by a segment, and must not be used afterwards.
+   *
+   * @param frame The AudioFrame to recycle.
+   */
+  public void recycle(AudioFrame frame) {
+    this.pool.release(frame);
   }
 
   /**
@@ -396,6 +493,7 @@ public void close() {
     }
 
     if (this.resampledFrame != null) {
+      this.freeOutput();
       avutil.av_frame_free(this.resampledFrame);
       this.resampledFrame = null;
     }
@@ -0,0 +1,323 @@
+package org.vitrivr.cineast.core.extraction.decode.m3d;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Splits the ASCII mesh formats (OBJ, OFF, ASCII STL) into whitespace separated tokens directly on the bytes of the file, without decoding characters or creating a String per line or token. Numbers are parsed from the bytes as well; only numbers that cannot be converted exactly on the fast path (e.g. more than 18 significant digits, large exponents, NaN) are handed to {@link Float#parseFloat(String)}.
+ */
+final class MeshTokenizer implements Closeable {
+
+  /**
+   * Initial size of the read buffer.
+   */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * Powers of ten that can be represented exactly as a double.
+   */
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private final InputStream in;
+
+  private byte[] buffer = new byte[BUFFER_SIZE];
+
+  /**
+   * Read position and end of the valid bytes in the buffer.
+   */
+  private int position = 0;
+  private int limit = 0;
+
+  /**
+   * Start (inclusive) and end (exclusive) of the current token in the buffer.
+   */
+  private int start = 0;
+  private int end = 0;
+
+  MeshTokenizer(InputStream in) {
+    this.in = in;
+  }
+
+  /**
+   * Advances to the next token, which may be on one of the following lines.
+   *
+   * @return False if the end of the input has been reached.
+   */
+  boolean next() throws IOException {
+    return this.advance(true);
+  }
+
+  /**
+   * Advances to the next token on the current line.
+   *
+   * @return False if the end of the line or the input has been reached. The line terminator is not consumed.
+   */
+  boolean nextOnLine() throws IOException {
+    return this.advance(false);
+  }
+
+  /**
+   * Skips the rest of the current line including its terminator.
+   */
+  void skipLine() throws IOException {
+    this.start = this.end = this.position;
+    while (this.available()) {
+      final byte b = this.buffer[this.position++];
+      if (b == '\n' || b == '\r') {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Checks whether the current token equals the provided ASCII keyword.
+   */
+  boolean is(String keyword) {
+    if (this.end - this.start != keyword.length()) {
+      return false;
+    }
+    for (int i = 0; i < keyword.length(); i++) {
+      if (this.buffer[this.start + i] != keyword.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether the current token starts with the provided ASCII prefix.
+   */
+  boolean startsWith(String prefix) {
+    if (this.end - this.start < prefix.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (this.buffer[this.start + i] != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the current token as String. Meant for error messages.
+   */
+  String text() {
+    return new String(this.buffer, this.start, this.end - this.start, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Advances to the next token on the current line and parses it as float.
+   *
+   * @throws NumberFormatException If there is no further token on the line or if it is not a valid number.
+   */
+  float nextFloatOnLine() throws IOException {
+    if (!this.nextOnLine()) {
+      throw new NumberFormatException("Expected a number but reached the end of the line.");
+    }
+    return this.floatValue();
+  }
+
+  /**
+   * Advances to the next token on the current line and parses it as int.
+   *
+   * @throws NumberFormatException If there is no further token on the line or if it is not a valid number.
+   */
+  int nextIntOnLine() throws IOException {
+    if (!this.nextOnLine()) {
+      throw new NumberFormatException("Expected a number but reached the end of the line.");
+    }
+    return this.parseInt(this.end);
+  }
+
+  /**
+   * Parses the current token as float. The result is identical to {@link Float#parseFloat(String)}.
+   *
+   * @throws NumberFormatException If the token is not a valid number.
+   */
+  float floatValue() {
+    int i = this.start;
+    boolean negative = false;
+    if (i < this.end && (this.buffer[i] == '-' || this.buffer[i] == '+')) {
+      negative = this.buffer[i] == '-';
+      i++;
+    }
+
+    /* Collect up to 18 significant digits, which always fit into a long. */
+    long mantissa = 0;
+    int significant = 0;
+    int exponent = 0;
+    int digits = 0;
+    for (; i < this.end && isDigit(this.buffer[i]); i++, digits++) {
+      if (mantissa > 0 || this.buffer[i] != '0') {
+        mantissa = 10 * mantissa + (this.buffer[i] - '0');
+        significant++;
+      }
+    }
+    if (i < this.end && this.buffer[i] == '.') {
+      for (i++; i < this.end && isDigit(this.buffer[i]); i++, digits++) {
+        if (mantissa > 0 || this.buffer[i] != '0') {
+          mantissa = 10 * mantissa + (this.buffer[i] - '0');
+          significant++;
+        }
+        exponent--;
+      }
+    }
+    if (i < this.end && (this.buffer[i] == 'e' || this.buffer[i] == 'E') && digits > 0) {
+      i++;
+      boolean negativeExponent = false;
+      if (i < this.end && (this.buffer[i] == '-' || this.buffer[i] == '+')) {
+        negativeExponent = this.buffer[i] == '-';
+        i++;
+      }
+      int value = 0;
+      int exponentDigits = 0;
+      for (; i < this.end && isDigit(this.buffer[i]) && exponentDigits < 6; i++, exponentDigits++) {
+        value = 10 * value + (this.buffer[i] - '0');
+      }
+      if (exponentDigits == 0) {
+        return Float.parseFloat(this.text());
+      }
+      exponent += negativeExponent ? -value : value;
+    }
+    if (i != this.end || digits == 0 || significant > 18) {
+      return Float.parseFloat(this.text());
+    }
+    if (mantissa == 0) {
+      return negative ? -0.0f : 0.0f;
+    }
+    if (exponent < -22 || exponent > 22 || mantissa >= (1L << 53)) {
+      return Float.parseFloat(this.text());
+    }
+
+    /*
+     * Mantissa and power of ten are exact doubles, so the product (or quotient) is the correctly rounded double. Narrowing it to float
+     * only rounds differently from a direct conversion if the double lies exactly halfway between two floats.
+     */
+    final double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+    final float result = (float) value;
+    if (result != value) {
+      final float other = value > result ? Math.nextUp(result) : Math.nextDown(result);
+      if (((double) result + (double) other) / 2.0 == value) {
+        return Float.parseFloat(this.text());
+      }
+    }
+    return negative ? -result : result;
+  }
+
+  /**
+   * Parses the current token as int.
+   *
+   * @throws NumberFormatException If the token is not a valid number.
+   */
+  int intValue() {
+    return this.parseInt(this.end);
+  }
+
+  /**
+   * Parses the current token up to the first occurrence of the provided separator (e.g. '/' in OBJ face definitions) as int.
+   *
+   * @throws NumberFormatException If that part of the token is not a valid number.
+   */
+  int intValue(char separator) {
+    int to = this.start;
+    while (to < this.end && this.buffer[to] != separator) {
+      to++;
+    }
+    return this.parseInt(to);
+  }
+
+  private int parseInt(int to) {
+    int i = this.start;
+    boolean negative = false;
+    if (i < to && (this.buffer[i] == '-' || this.buffer[i] == '+')) {
+      negative = this.buffer[i] == '-';
+      i++;
+    }
+    if (i == to || to - i > 9) {
+      return Integer.parseInt(new String(this.buffer, this.start, to - this.start, StandardCharsets.US_ASCII));
+    }
+    int value = 0;
+    for (; i < to; i++) {
+      if (!isDigit(this.buffer[i])) {
+        throw new NumberFormatException("For input string: \"" + new String(this.buffer, this.start, to - this.start, StandardCharsets.US_ASCII) + "\"");
+      }
+      value = 10 * value + (this.buffer[i] - '0');
+    }
+    return negative ? -value : value;
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b >= 0 && b <= ' ';
+  }
+
+  private static boolean isLineTerminator(byte b) {
+    return b == '\n' || b == '\r';
+  }
+
+  /**
+   * Skips whitespace (and line terminators, if requested) and reads the following token.
+   */
+  private boolean advance(boolean crossLines) throws IOException {
+    this.start = this.end = this.position;
+    while (this.available()) {
+      final byte b = this.buffer[this.position];
+      if (!isWhitespace(b)) {
+        break;
+      }
+      if (!crossLines && isLineTerminator(b)) {
+        return false;
+      }
+      this.position++;
+    }
+    this.start = this.position;
+    while (this.available() && !isWhitespace(this.buffer[this.position])) {
+      this.position++;
+    }
+    this.end = this.position;
+    return this.end > this.start;
+  }
+
+  /**
+   * Makes sure that there is at least one unread byte in the buffer. The current token is kept in the buffer when refilling it.
+   *
+   * @return False if the end of the input has been reached.
+   */
+  private boolean available() throws IOException {
+    if (this.position < this.limit) {
+      return true;
+    }
+    final int keep = Math.min(this.start, this.position);
+    if (keep > 0) {
+      System.arraycopy(this.buffer, keep, this.buffer, 0, this.limit - keep);
+      this.limit -= keep;
+      this.position -= keep;
+      this.start -= keep;
+      this.end = Math.max(this.end - keep, this.start);
+    }
+    if (this.limit == this.buffer.length) {
+      this.buffer = Arrays.copyOf(this.buffer, 2 * this.buffer.length);
+    }
+    final int read = this.in.read(this.buffer, this.limit, this.buffer.length - this.limit);
+    if (read <= 0) {
+      return false;
+    }
+    this.limit += read;
+    return true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.in.close();
+  }
+}
@@ -11,6 +11,7 @@
 import org.vitrivr.cineast.core.config.CacheConfig;
 import org.vitrivr.cineast.core.config.DecoderConfig;
 import org.vitrivr.cineast.core.data.m3d.Mesh;
+import org.vitrivr.cineast.core.data.m3d.ReadableMesh;
 import org.vitrivr.cineast.core.data.query.containers.AbstractQueryTermContainer;
 import org.vitrivr.cineast.core.data.query.containers.ModelQueryTermContainer;
 import org.vitrivr.cineast.core.extraction.decode.general.Converter;
@@ -30,7 +31,7 @@ public class ModularMeshDecoder implements MeshDecoder, Converter {
   /**
    * HashSet containing all the mime-types supported by this ImageDecoder instance.
    *
-   * <b>Important:</b> The decoderForContenttype() method must return a Decoder<Mesh> instance
+   * <b>Important:</b> The decoderForContenttype() method must return a Decoder<ReadableMesh> instance
    * for all mime-types contained in this set!
    */
   private final static Set<String> supportedFiles;
@@ -46,7 +47,7 @@ public class ModularMeshDecoder implements MeshDecoder, Converter {
   /**
    * HashMap containing cached decoder instances
    */
-  private HashMap<String, Decoder<Mesh>> cachedDecoders = new HashMap<>();
+  private HashMap<String, Decoder<ReadableMesh>> cachedDecoders = new HashMap<>();
 
   /**
    * Path to the input file.
@@ -88,11 +89,11 @@ public void close() {
    * @return Content of type T.
    */
   @Override
-  public Mesh getNext() {
+  public ReadableMesh getNext() {
     final String contenttype = MimeTypeHelper.getContentType(this.inputFile.toFile());
 
     /* Try to detach decoder from the list of cached decoders. */
-    Decoder<Mesh> decoder = this.cachedDecoders.get(contenttype);
+    Decoder<ReadableMesh> decoder = this.cachedDecoders.get(contenttype);
 
     /* If decoder is null, create a new one. */
     if (decoder == null) {
@@ -109,7 +110,7 @@ public Mesh getNext() {
 
     /* Initialize the decoder and return the decoded mesh. */
     decoder.init(this.inputFile, null, null);
-    Mesh mesh = decoder.getNext();
+    ReadableMesh mesh = decoder.getNext();
     this.complete.set(true);
     return mesh;
   }
@@ -125,7 +126,7 @@ public AbstractQueryTermContainer convert(Path path) {
     final String contenttype = MimeTypeHelper.getContentType(path.toFile());
 
     /* Try to detach decoder from the list of cached decoders. */
-    Decoder<Mesh> decoder = this.cachedDecoders.get(contenttype);
+    Decoder<ReadableMesh> decoder = this.cachedDecoders.get(contenttype);
 
     /* If decoder is null, create a new one. */
     if (decoder == null) {
@@ -142,7 +143,7 @@ public AbstractQueryTermContainer convert(Path path) {
 
     /* Initialize the decoder and return the decoded mesh. */
     decoder.init(path, null, null);
-    Mesh mesh = decoder.getNext();
+    ReadableMesh mesh = decoder.getNext();
     return new ModelQueryTermContainer(mesh);
   }
 
@@ -187,12 +188,12 @@ public boolean canBeReused() {
   }
 
   /**
-   * Selects a Decoder<Mesh> implementation based on the provided content type.
+   * Selects a Decoder<ReadableMesh> implementation based on the provided content type.
    *
    * @param contenttype Mime-type for which to select a decoder.
-   * @return Decoder<Mesh> or null if the mime-type is not supported.
+   * @return Decoder<ReadableMesh> or null if the mime-type is not supported.
    */
-  private Decoder<Mesh> decoderForContenttype(String contenttype) {
+  private Decoder<ReadableMesh> decoderForContenttype(String contenttype) {
     switch (contenttype) {
       case "application/3d-obj":
         return new OBJMeshDecoder();
@@ -1,9 +1,6 @@
 package org.vitrivr.cineast.core.extraction.decode.m3d;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
@@ -12,21 +9,22 @@
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.joml.Vector3f;
-import org.joml.Vector3i;
-import org.joml.Vector4i;
 import org.vitrivr.cineast.core.config.CacheConfig;
 import org.vitrivr.cineast.core.config.DecoderConfig;
+import org.vitrivr.cineast.core.data.m3d.ArrayMesh;
 import org.vitrivr.cineast.core.data.m3d.Mesh;
+import org.vitrivr.cineast.core.data.m3d.ReadableMesh;
 import org.vitrivr.cineast.core.extraction.decode.general.Decoder;
 import org.vitrivr.cineast.core.util.LogHelper;
 
 /**
  * Decodes Wavefront OBJ (.obj) files and returns a Mesh representation. Requires JOML to work properly.
  * <p>
+ * The file is tokenized on byte level and read into an {@link ArrayMesh}, which is handed out as is. The object graph of a {@link Mesh} is only built by consumers that need it.
+ * <p>
  * Texture information is currently discarded!
  */
-public class OBJMeshDecoder implements Decoder<Mesh> {
+public class OBJMeshDecoder implements Decoder<ReadableMesh> {
 
   /**
    * Default logging facility.
@@ -75,56 +73,58 @@ public boolean init(Path path, DecoderConfig decoderConfig, CacheConfig cacheCon
    * @return Content of type T.
    */
   @Override
-  public Mesh getNext() {
-    Mesh mesh = new Mesh(100, 100);
+  public ReadableMesh getNext() {
     try {
-      InputStream is = Files.newInputStream(this.inputFile);
-      BufferedReader br = new BufferedReader(new InputStreamReader(is));
-      String line = null;
-      while ((line = br.readLine()) != null) {
-        String[] tokens = line.split("\\s+");
-        switch (tokens[0]) {
-          case "v":
-            mesh.addVertex(new Vector3f(Float.parseFloat(tokens[1]), Float.parseFloat(tokens[2]), Float.parseFloat(tokens[3])));
-            break;
-          case "f":
-            boolean quad = (tokens.length == 5);
-            String[] p1 = tokens[1].split("/");
-            String[] p2 = tokens[2].split("/");
-            String[] p3 = tokens[3].split("/");
-            if (quad) {
-              String[] p4 = tokens[4].split("/");
-              Vector4i vertexIndex = new Vector4i(Integer.parseInt(p1[0]) - 1, Integer.parseInt(p2[0]) - 1, Integer.parseInt(p3[0]) - 1, Integer.parseInt(p4[0]) - 1);
-              if (!mesh.addFace(vertexIndex)) {
-                LOGGER.warn("Could not add face {}/{}/{}/{} because index points to non-existing vertex.", vertexIndex.x, vertexIndex.y, vertexIndex.z, vertexIndex.w);
-              }
-            } else {
-              Vector3i vertexIndex = new Vector3i(Integer.parseInt(p1[0]) - 1, Integer.parseInt(p2[0]) - 1, Integer.parseInt(p3[0]) - 1);
-              if (!mesh.addFace(vertexIndex)) {
-                LOGGER.warn("Could not add face {}/{}/{} because index points to non-existing vertex.", vertexIndex.x, vertexIndex.y, vertexIndex.z);
-              }
-            }
-            break;
-          default:
-            break;
-        }
-      }
-
-      br.close(); /* Closes the input stream. */
+      return read(this.inputFile);
     } catch (IOException e) {
       LOGGER.error("Could not decode OBJ file {} due to an IO exception ({})", this.inputFile.toString(), LogHelper.getStackTrace(e));
-      mesh = null;
+      return null;
     } catch (NumberFormatException e) {
       LOGGER.error("Could not decode OBJ file {} because one of the tokens could not be converted to a valid number.", this.inputFile.toString());
-      mesh = null;
-    } catch (ArrayIndexOutOfBoundsException e) {
-      LOGGER.error("Could not decode OBJ file {} because one of the faces points to invalid vertex indices.", this.inputFile.toString());
-      mesh = null;
+      return null;
     } finally {
       this.complete.set(true);
     }
+  }
 
-    return mesh;
+  /**
+   * Reads the vertices and faces of an OBJ file into an {@link ArrayMesh}. Faces with more than four vertices are reduced to a triangle made up of the first three vertices. Negative (i.e. relative) vertex indices are resolved against the vertices read so far.
+   *
+   * @param path Path to the OBJ file.
+   * @return {@link ArrayMesh}
+   * @throws IOException           If an error occurs during reading.
+   * @throws NumberFormatException If a vertex or face definition is incomplete or contains an invalid number.
+   */
+  public static ArrayMesh read(Path path) throws IOException {
+    ArrayMesh.Builder builder = ArrayMesh.builder(100, 100);
+    int[] face = new int[4];
+    try (MeshTokenizer tokenizer = new MeshTokenizer(Files.newInputStream(path))) {
+      while (tokenizer.next()) {
+        if (tokenizer.is("v")) {
+          builder.addVertex(tokenizer.nextFloatOnLine(), tokenizer.nextFloatOnLine(), tokenizer.nextFloatOnLine());
+        } else if (tokenizer.is("f")) {
+          int count = 0;
+          while (tokenizer.nextOnLine()) {
+            if (count < 4) {
+              int index = tokenizer.intValue('/');
+              face[count] = index < 0 ? builder.numberOfVertices() + index : index - 1;
+            }
+            count++;
+          }
+          if (count < 3) {
+            throw new NumberFormatException("Face with less than three vertices.");
+          }
+          boolean added = (count == 4) ? builder.addFace(face[0], face[1], face[2], face[3]) : builder.addFace(face[0], face[1], face[2]);
+          if (!added && count == 4) {
+            LOGGER.warn("Could not add face {}/{}/{}/{} because index points to non-existing vertex.", face[0], face[1], face[2], face[3]);
+          } else if (!added) {
+            LOGGER.warn("Could not add face {}/{}/{} because index points to non-existing vertex.", face[0], face[1], face[2]);
+          }
+        }
+        tokenizer.skipLine();
+      }
+    }
+    return builder.build();
   }
 
   /**
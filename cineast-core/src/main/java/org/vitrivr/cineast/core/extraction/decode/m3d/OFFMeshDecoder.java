@@ -1,9 +1,6 @@
 package org.vitrivr.cineast.core.extraction.decode.m3d;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
@@ -12,12 +9,10 @@
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.joml.Vector3f;
-import org.joml.Vector3i;
-import org.joml.Vector4i;
 import org.vitrivr.cineast.core.config.CacheConfig;
 import org.vitrivr.cineast.core.config.DecoderConfig;
-import org.vitrivr.cineast.core.data.m3d.Mesh;
+import org.vitrivr.cineast.core.data.m3d.ArrayMesh;
+import org.vitrivr.cineast.core.data.m3d.ReadableMesh;
 import org.vitrivr.cineast.core.extraction.decode.general.Decoder;
 import org.vitrivr.cineast.core.util.LogHelper;
 
@@ -30,18 +25,13 @@
  * <p>
  * [2] Philip Shilane, Patrick Min, Michael Kazhdan, and Thomas Funkhouser The Princeton Shape Benchmark Shape Modeling International, Genova, Italy, June 2004
  */
-public class OFFMeshDecoder implements Decoder<Mesh> {
+public class OFFMeshDecoder implements Decoder<ReadableMesh> {
 
   /**
    * Default logging facility.
    */
   private static final Logger LOGGER = LogManager.getLogger();
 
-  /**
-   * Delimiter used to separate two entries.
-   */
-  private static final String DELIMITER = " ";
-
   /**
    * Token used to denote the beginning of the OFF file.
    */
@@ -89,80 +79,81 @@ public boolean init(Path path, DecoderConfig decoderConfig, CacheConfig cacheCon
    * @return Content of type T.
    */
   @Override
-  public Mesh getNext() {
+  public ReadableMesh getNext() {
     try {
-      InputStream is = Files.newInputStream(this.inputFile);
-      BufferedReader br = new BufferedReader(new InputStreamReader(is));
+      return read(this.inputFile);
+    } catch (IOException e) {
+      LOGGER.error("Could not decode OFF file {} due to an IO exception ({})", this.inputFile.toString(), LogHelper.getStackTrace(e));
+      return null;
+    } catch (NumberFormatException e) {
+      LOGGER.error("Could not decode OFF file {} because one of the tokens could not be converted to a valid number.", this.inputFile.toString(), LogHelper.getStackTrace(e));
+      return null;
+    } finally {
+      this.complete.set(true);
+    }
+  }
 
+  /**
+   * Reads the vertices and faces of an OFF file into an {@link ArrayMesh}.
+   *
+   * @param path Path to the OFF file.
+   * @return {@link ArrayMesh} or null, if the file is not a valid OFF file.
+   * @throws IOException           If an error occurs during reading.
+   * @throws NumberFormatException If one of the tokens could not be converted to a valid number.
+   */
+  public static ArrayMesh read(Path path) throws IOException {
+    try (MeshTokenizer tokenizer = new MeshTokenizer(Files.newInputStream(path))) {
       /* First line must start with OFF. */
-      String line = br.readLine();
-      String[] tokens = null;
-      if (line == null || !line.startsWith(TOKEN_BOF)) {
+      if (!tokenizer.next() || !tokenizer.startsWith(TOKEN_BOF)) {
         return null;
       }
+      tokenizer.skipLine();
 
       /* Now read second line which should contain the number of vertices and faces. */
-      line = br.readLine();
-      if (line == null) {
+      if (!tokenizer.next()) {
         return null;
       }
-      tokens = line.split(DELIMITER);
-
-      int vertices = Integer.parseInt(tokens[0]);
-      int faces = Integer.parseInt(tokens[1]);
+      int vertices = tokenizer.intValue();
+      int faces = tokenizer.nextIntOnLine();
+      tokenizer.skipLine();
 
       /* Prepare empty mesh. */
-      Mesh mesh = new Mesh(faces, vertices);
+      ArrayMesh.Builder builder = ArrayMesh.builder(vertices, faces);
 
       /* Now read all the vertices. */
       for (int v = 0; v < vertices; v++) {
-        line = br.readLine();
-        if (line == null) {
-          LOGGER.error("Could not decode OFF file {} because file seems to be missing some vertices ({}/{}).", this.inputFile.toString(), v, vertices);
+        if (!tokenizer.next()) {
+          LOGGER.error("Could not decode OFF file {} because file seems to be missing some vertices ({}/{}).", path.toString(), v, vertices);
           return null;
         }
-        tokens = line.split(DELIMITER);
-        mesh.addVertex(new Vector3f(Float.parseFloat(tokens[0]), Float.parseFloat(tokens[1]), Float.parseFloat(tokens[2])));
+        builder.addVertex(tokenizer.floatValue(), tokenizer.nextFloatOnLine(), tokenizer.nextFloatOnLine());
+        tokenizer.skipLine();
       }
 
       /* Now read all the faces. */
       for (int f = 0; f < faces; f++) {
-        line = br.readLine();
-        if (line == null) {
-          LOGGER.error("Could not decode OFF file {} because file seems to be missing some faces ({}/{}).", this.inputFile.toString(), f, vertices);
+        if (!tokenizer.next()) {
+          LOGGER.error("Could not decode OFF file {} because file seems to be missing some faces ({}/{}).", path.toString(), f, faces);
           return null;
         }
-        tokens = line.split(DELIMITER);
-        if (Integer.parseInt(tokens[0]) == 4) {
-          Vector4i vertexIndex = new Vector4i(Integer.parseInt(tokens[1]), Integer.parseInt(tokens[2]), Integer.parseInt(tokens[3]), Integer.parseInt(tokens[4]));
-          if (!mesh.addFace(vertexIndex)) {
-            LOGGER.warn("Could not add face {}/{}/{}/{} because index points to non-existing vertex.", vertexIndex.x, vertexIndex.y, vertexIndex.z, vertexIndex.w);
+        int size = tokenizer.intValue();
+        if (size == 4) {
+          int a = tokenizer.nextIntOnLine(), b = tokenizer.nextIntOnLine(), c = tokenizer.nextIntOnLine(), d = tokenizer.nextIntOnLine();
+          if (!builder.addFace(a, b, c, d)) {
+            LOGGER.warn("Could not add face {}/{}/{}/{} because index points to non-existing vertex.", a, b, c, d);
           }
-        } else if (Integer.parseInt(tokens[0]) == 3) {
-          Vector3i vertexIndex = new Vector3i(Integer.parseInt(tokens[1]), Integer.parseInt(tokens[2]), Integer.parseInt(tokens[3]));
-          if (!mesh.addFace(vertexIndex)) {
-            LOGGER.warn("Could not add face {}/{}/{}/{} because index points to non-existing vertex.", vertexIndex.x, vertexIndex.y, vertexIndex.z);
+        } else if (size == 3) {
+          int a = tokenizer.nextIntOnLine(), b = tokenizer.nextIntOnLine(), c = tokenizer.nextIntOnLine();
+          if (!builder.addFace(a, b, c)) {
+            LOGGER.warn("Could not add face {}/{}/{} because index points to non-existing vertex.", a, b, c);
           }
         } else {
-          LOGGER.error("Could not decode OFF file {} because this implementation of Mesh only supports triangular and quadrilateral faces. The provided number of faces is {}.", this.inputFile.toString(), Integer.parseInt(tokens[0]));
+          LOGGER.error("Could not decode OFF file {} because this implementation of Mesh only supports triangular and quadrilateral faces. The provided number of faces is {}.", path.toString(), size);
           return null;
         }
+        tokenizer.skipLine();
       }
-
-      br.close(); /* Closes the input stream. */
-
-      return mesh;
-    } catch (IOException e) {
-      LOGGER.error("Could not decode OFF file {} due to an IO exception ({})", this.inputFile.toString(), LogHelper.getStackTrace(e));
-      return null;
-    } catch (NumberFormatException e) {
-      LOGGER.error("Could not decode OFF file {} because one of the tokens could not be converted to a valid number.", this.inputFile.toString(), LogHelper.getStackTrace(e));
-      return null;
-    } catch (ArrayIndexOutOfBoundsException e) {
-      LOGGER.error("Could not decode OFF file {} because one of the faces points to invalid vertex indices.", this.inputFile.toString(), LogHelper.getStackTrace(e));
-      return null;
-    } finally {
-      this.complete.set(true);
+      return builder.build();
     }
   }
 
@@ -1,33 +1,37 @@
 package org.vitrivr.cineast.core.extraction.decode.m3d;
 
 
-import com.carrotsearch.hppc.ObjectIntHashMap;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.joml.Vector3f;
-import org.joml.Vector3i;
 import org.vitrivr.cineast.core.config.CacheConfig;
 import org.vitrivr.cineast.core.config.DecoderConfig;
+import org.vitrivr.cineast.core.data.m3d.ArrayMesh;
 import org.vitrivr.cineast.core.data.m3d.Mesh;
+import org.vitrivr.cineast.core.data.m3d.ReadableMesh;
 import org.vitrivr.cineast.core.extraction.decode.general.Decoder;
 import org.vitrivr.cineast.core.util.LogHelper;
 
 /**
  * Decodes STereoLithography (.stl) files and returns a Mesh representation. Requires JOML to work properly.
+ * <p>
+ * ASCII files are tokenized on byte level, binary files are memory mapped. Both are read into an {@link ArrayMesh}, which is handed out as is. The object graph of a {@link Mesh} is only built by consumers that need it.
  */
-public class STLMeshDecoder implements Decoder<Mesh> {
+public class STLMeshDecoder implements Decoder<ReadableMesh> {
 
   /**
    * Default logging facility.
@@ -39,6 +43,16 @@ public class STLMeshDecoder implements Decoder<Mesh> {
    */
   private static final int MAX_TRIANGLES = 5000000;
 
+  /**
+   * Size of the header of a binary STL file in bytes.
+   */
+  private static final int HEADER_SIZE = 80;
+
+  /**
+   * Size of a single triangle in a binary STL file in bytes.
+   */
+  private static final int TRIANGLE_SIZE = 50;
+
   /**
    * HashSet containing all the mime-types supported by this ImageDecoder instance.
    */
@@ -81,124 +95,111 @@ public boolean init(Path path, DecoderConfig decoderConfig, CacheConfig cacheCon
    * @return Content of type T.
    */
   @Override
-  public Mesh getNext() {
+  public ReadableMesh getNext() {
     try {
-      InputStream is = Files.newInputStream(this.inputFile);
-      byte[] header = new byte[6];
-      if (is.read(header) == 6) {
-        if ((new String(header)).contains("solid ")) {
-          LOGGER.info("Found term 'solid' in header. Treating the STL file as ASCII STL file!");
-          return this.readAscii(is);
-        } else {
-          LOGGER.info("Did not find term 'solid' in header. Treating the STL file as binary STL file!");
-          return this.readBinary(is, 74);
-        }
-      } else {
-        LOGGER.warn("Could not read the first 10 bytes of the file {}. This is not a valid STL file.", this.inputFile.toString());
-        return null;
-      }
+      return read(this.inputFile);
     } catch (IOException e) {
       LOGGER.error("Could not decode STL file {} due to an IO exception ({})", this.inputFile.toString(), LogHelper.getStackTrace(e));
-      this.complete.set(true);
+      return null;
+    } catch (NumberFormatException e) {
+      LOGGER.error("Could not decode STL file {} because one of the tokens could not be converted to a valid number.", this.inputFile.toString());
       return null;
     } finally {
       this.complete.set(true);
     }
   }
 
+  /**
+   * Reads an ASCII or binary STL file into an {@link ArrayMesh}. Vertices shared by several triangles are merged.
+   *
+   * @param path Path to the STL file.
+   * @return {@link ArrayMesh} or null, if the file is not a valid STL file.
+   * @throws IOException           If an error occurs during reading.
+   * @throws NumberFormatException If a vertex of an ASCII STL file contains an invalid number.
+   */
+  public static ArrayMesh read(Path path) throws IOException {
+    InputStream is = Files.newInputStream(path);
+    byte[] header = new byte[6];
+    if (is.readNBytes(header, 0, 6) == 6) {
+      if ((new String(header, StandardCharsets.US_ASCII)).contains("solid ")) {
+        LOGGER.info("Found term 'solid' in header. Treating the STL file as ASCII STL file!");
+        return readAscii(path, is);
+      } else {
+        is.close();
+        LOGGER.info("Did not find term 'solid' in header. Treating the STL file as binary STL file!");
+        return readBinary(path);
+      }
+    } else {
+      is.close();
+      LOGGER.warn("Could not read the first 6 bytes of the file {}. This is not a valid STL file.", path.toString());
+      return null;
+    }
+  }
+
   /**
    * Reads an ASCII STL file.
    *
-   * @param is InputStream to read from.
-   * @return Mesh
+   * @param path Path to the STL file, in case it turns out to be binary after all.
+   * @param is   InputStream to read from, positioned after the 'solid ' token.
+   * @return {@link ArrayMesh}
    * @throws IOException If an error occurs during reading.
    */
-  private Mesh readAscii(InputStream is) throws IOException {
-    BufferedReader br = new BufferedReader(new InputStreamReader(is));
-    String line = null;
-
-    /* Prepare empty mesh. */
-    Mesh mesh = new Mesh(100, 100);
-
-    /* Prepare helper structures. */
-    ObjectIntHashMap<Vector3f> vertexBuffer = new ObjectIntHashMap<>();
-    int index = 0;
+  private static ArrayMesh readAscii(Path path, InputStream is) throws IOException {
+    ArrayMesh.Builder builder = ArrayMesh.builder(100, 100);
+    VertexTable vertexBuffer = new VertexTable(100);
     int[] vertexindices = new int[3];
 
-    while ((line = br.readLine()) != null && !line.startsWith("endsolid")) {
-      line = line.trim();
-
-      /* Detect end of STL file. */
-      if (line.startsWith("endsolid")) {
-        break;
-      }
-
-      /* Detect begin of facet. */
-      if (line.startsWith("facet normal ")) {
-        int vidx = 0;
-
-        while ((line = br.readLine()) != null) {
-
-          line = line.trim(); /* Trim line. */
-
-          /* Detect end of facet. */
-          if (line.equals("endfacet")) {
-            break;
-          }
-
-          /* Detect vertex. */
-          if (line.startsWith("vertex")) {
-            String[] splitVertex = line.split("\\s+");
-            Vector3f vertex = new Vector3f(Float.parseFloat(splitVertex[1]), Float.parseFloat(splitVertex[2]), Float.parseFloat(splitVertex[3]));
-            if (!vertexBuffer.containsKey(vertex)) {
-              mesh.addVertex(vertex);
-              vertexBuffer.put(vertex, index);
-              index++;
-            }
-            vertexindices[vidx] = vertexBuffer.get(vertex);
-            vidx++;
+    try (MeshTokenizer tokenizer = new MeshTokenizer(is)) {
+      /* Skip the name of the solid. */
+      tokenizer.skipLine();
+
+      int vidx = -1;
+      while (tokenizer.next() && !tokenizer.startsWith("endsolid")) {
+        if (tokenizer.is("facet")) {
+          /* Begin of facet. */
+          vidx = 0;
+        } else if (tokenizer.is("endfacet") && vidx >= 0) {
+          /* End of facet; add a new face to the Mesh. */
+          builder.addFace(vertexindices[0], vertexindices[1], vertexindices[2]);
+          vidx = -1;
+        } else if (tokenizer.is("vertex") && vidx >= 0) {
+          float x = tokenizer.nextFloatOnLine(), y = tokenizer.nextFloatOnLine(), z = tokenizer.nextFloatOnLine();
+          if (vidx < 3) {
+            vertexindices[vidx++] = vertexBuffer.indexOf(builder, x, y, z);
           }
         }
-
-        /* Add a new face to the Mesh. */
-        mesh.addFace(new Vector3i(vertexindices[0], vertexindices[1], vertexindices[2]));
+        tokenizer.skipLine();
       }
     }
 
-    /* Close the buffered reader. */
-    br.close();
-
     /* This covers the case, where the file starts with 'solid ' but is not an ASCII file. Unfortunately, such files do exist. */
-    if (mesh.numberOfVertices() == 0) {
+    if (builder.numberOfVertices() == 0) {
       LOGGER.warn("The provided ASCII STL file does not seem to contain any normals or vertices. Trying to decode it as binary STL even though it was marked as being ASCII.");
-      InputStream newIs = Files.newInputStream(this.inputFile);
-      return this.readBinary(newIs, 80);
+      return readBinary(path);
     } else {
-      return mesh;
+      return builder.build();
     }
   }
 
   /**
-   * Reads a binary STL file.
+   * Reads a binary STL file, which consists of an 80 byte header, the number of triangles and 50 bytes per triangle. The file is memory mapped and read through a little-endian {@link ByteBuffer}.
    *
-   * @param is   InputStream to read from.
-   * @param skip Number of bytes to skip before reading the STL file.
-   * @return Mesh
+   * @param path Path to the STL file.
+   * @return {@link ArrayMesh} or null, if the number of triangles is invalid.
    * @throws IOException If an error occurs during reading.
    */
-  private Mesh readBinary(InputStream is, int skip) throws IOException {
-    /* Prepare a ByteBuffer to read the rest of the STL file. */
-    byte[] bytes = new byte[50];
-    ByteBuffer buffer = ByteBuffer.wrap(bytes);
-    buffer.order(ByteOrder.LITTLE_ENDIAN);
-
-    /* Skip the STL header! */
-    is.skip(skip);
+  private static ArrayMesh readBinary(Path path) throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_SIZE + 4) {
+        LOGGER.error("The STL file {} is too small to contain any triangles. This STL file is probably corrupt!", path.toString());
+        return null;
+      }
+      buffer = channel.map(MapMode.READ_ONLY, 0, Math.min(channel.size(), Integer.MAX_VALUE)).order(ByteOrder.LITTLE_ENDIAN);
+    }
 
-    /* Read the bytes for the size (unsigned 32 bit int, little-endian). */
-    byte[] sizeBytes = new byte[4];
-    is.read(sizeBytes, 0, 4);
-    long triangles = ((sizeBytes[0] & 0xFF)) | ((sizeBytes[1] & 0xFF) << 8) | ((sizeBytes[2] & 0xFF) << 16) | ((sizeBytes[3] & 0xFF) << 24);
+    /* Read the number of triangles (unsigned 32 bit int, little-endian) after the header. */
+    long triangles = Integer.toUnsignedLong(buffer.getInt(HEADER_SIZE));
 
     /* TODO: Properly handle models whose triangles > MAX_TRIANGLES. */
     if (triangles <= 0) {
@@ -209,45 +210,28 @@ private Mesh readBinary(InputStream is, int skip) throws IOException {
       return null;
     }
 
-    /* Prepare Mesh. */
-    Mesh mesh = new Mesh((int) triangles, (int) triangles);
+    long available = (buffer.limit() - HEADER_SIZE - 4) / TRIANGLE_SIZE;
+    if (available < triangles) {
+      LOGGER.warn("The STL file {} declares {} triangles but only contains {}. This STL file is probably truncated!", path.toString(), triangles, available);
+      triangles = available;
+    }
 
-    /* Prepare helper structures. */
-    ObjectIntHashMap<Vector3f> vertexBuffer = new ObjectIntHashMap<>();
-    int index = 0;
+    /* Prepare Mesh; closed triangle meshes have about half as many vertices as triangles. */
+    ArrayMesh.Builder builder = ArrayMesh.builder((int) triangles / 2, (int) triangles);
+    VertexTable vertexBuffer = new VertexTable((int) triangles / 2);
     int[] vertexindices = new int[3];
 
-    /* Now add all triangles. */
+    /* Now add all triangles; the face normal (the first three floats) and the attribute byte count (the last two bytes) are ignored. */
     for (int i = 0; i < triangles; i++) {
-      /* Ready 48 bytes from the stream. */
-      buffer.rewind();
-      is.read(bytes);
-
-      /* Read and ignore three floats. */
-      buffer.getFloat();
-      buffer.getFloat();
-      buffer.getFloat();
-
-      /* Add the vertices and the vertex-normal to the mesh. */
-      for (int vidx = 0; vidx < 3; vidx++) {
-        Vector3f vertex = new Vector3f(buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
-        if (!vertexBuffer.containsKey(vertex)) {
-          mesh.addVertex(vertex);
-          vertexBuffer.put(vertex, index);
-          index++;
-        }
-        vertexindices[vidx] = vertexBuffer.get(vertex);
+      int offset = HEADER_SIZE + 4 + i * TRIANGLE_SIZE + 12;
+      for (int vidx = 0; vidx < 3; vidx++, offset += 12) {
+        vertexindices[vidx] = vertexBuffer.indexOf(builder, buffer.getFloat(offset), buffer.getFloat(offset + 4), buffer.getFloat(offset + 8));
       }
-
-      /* Add a new face to the Mesh. */
-      if (!mesh.addFace(new Vector3i(vertexindices[0], vertexindices[1], vertexindices[2]))) {
+      if (!builder.addFace(vertexindices[0], vertexindices[1], vertexindices[2])) {
         LOGGER.warn("Could not add face {}/{}/{} because index points to non-existing vertex.", vertexindices[0], vertexindices[1], vertexindices[2]);
       }
     }
-
-    /* Closes the InputStream. */
-    is.close();
-    return mesh;
+    return builder.build();
   }
 
   /**
@@ -296,4 +280,75 @@ public boolean complete() {
   public Set<String> supportedFiles() {
     return supportedFiles;
   }
+
+  /**
+   * Open addressing hash table that maps vertex positions to their index in the mesh, so that vertices shared by several triangles are only added once. Positions are compared by their bits, like {@link org.joml.Vector3f#equals(Object)} does.
+   */
+  private static final class VertexTable {
+
+    /**
+     * Slots holding vertex index + 1, or 0 if empty.
+     */
+    private int[] slots;
+
+    /**
+     * Bits of the positions of the vertices, three per vertex.
+     */
+    private int[] keys;
+
+    private int size = 0;
+
+    private VertexTable(int expected) {
+      int capacity = Integer.highestOneBit(Math.max(2 * expected, 16) - 1) << 1;
+      this.slots = new int[capacity];
+      this.keys = new int[3 * Math.max(expected, 16)];
+    }
+
+    /**
+     * Returns the index of the vertex at the given position, adding it to the mesh if it has not been seen before.
+     */
+    private int indexOf(ArrayMesh.Builder builder, float x, float y, float z) {
+      int bx = Float.floatToIntBits(x), by = Float.floatToIntBits(y), bz = Float.floatToIntBits(z);
+      int mask = this.slots.length - 1;
+      int slot = hash(bx, by, bz) & mask;
+      while (this.slots[slot] != 0) {
+        int index = this.slots[slot] - 1;
+        if (this.keys[3 * index] == bx && this.keys[3 * index + 1] == by && this.keys[3 * index + 2] == bz) {
+          return index;
+        }
+        slot = (slot + 1) & mask;
+      }
+
+      int index = builder.addVertex(x, y, z);
+      if (3 * index + 3 > this.keys.length) {
+        this.keys = Arrays.copyOf(this.keys, 2 * this.keys.length);
+      }
+      this.keys[3 * index] = bx;
+      this.keys[3 * index + 1] = by;
+      this.keys[3 * index + 2] = bz;
+      this.slots[slot] = index + 1;
+      if (++this.size > this.slots.length / 2) {
+        this.rehash();
+      }
+      return index;
+    }
+
+    private void rehash() {
+      int[] slots = new int[2 * this.slots.length];
+      int mask = slots.length - 1;
+      for (int i = 0; i < this.size; i++) {
+        int slot = hash(this.keys[3 * i], this.keys[3 * i + 1], this.keys[3 * i + 2]) & mask;
+        while (slots[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        slots[slot] = i + 1;
+      }
+      this.slots = slots;
+    }
+
+    private static int hash(int x, int y, int z) {
+      int h = x * 0x9E3779B1 ^ y * 0x85EBCA77 ^ z * 0xC2B2AE3D;
+      return h ^ (h >>> 16);
+    }
+  }
 }
@@ -0,0 +1,118 @@
+package org.vitrivr.cineast.core.extraction.idgenerator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.vitrivr.cineast.core.util.LogHelper;
+
+/**
+ * Sidecar file that remembers the content digests computed by a {@link ContentHasher}, so that files which have not changed since do not have to be hashed again when they are ingested another time.
+ * <p>
+ * An entry is valid as long as size and modification time of the file match the ones recorded. Entries are appended to the sidecar file as one tab separated line of variant (see {@link ContentHasher#getVariant()}), size, modification time (ms), digest and absolute path; when the file is loaded, later lines replace earlier ones.
+ */
+public final class ContentHashIndex {
+
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  private static final String SEPARATOR = "\t";
+
+  private final Path file;
+
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a {@link ContentHashIndex} backed by the given sidecar file and loads the entries already recorded in it.
+   *
+   * @param file Path to the sidecar file. It is created on the first update if it does not exist.
+   */
+  public ContentHashIndex(Path file) {
+    this.file = file;
+    if (Files.exists(file)) {
+      this.load();
+    }
+  }
+
+  /**
+   * Returns the digest recorded for the file, provided that it was computed with the same variant of {@link ContentHasher} and that size and modification time have not changed.
+   */
+  public Optional<String> get(Path path, String variant, long size, long lastModified) {
+    final Entry entry = this.entries.get(key(path, variant));
+    if (entry == null || entry.size != size || entry.lastModified != lastModified) {
+      return Optional.empty();
+    }
+    return Optional.of(entry.digest);
+  }
+
+  /**
+   * Records the digest of a file and appends it to the sidecar file.
+   */
+  public synchronized void put(Path path, String variant, long size, long lastModified, String digest) {
+    final String absolute = path.toAbsolutePath().normalize().toString();
+    if (absolute.indexOf('\n') >= 0 || absolute.indexOf('\r') >= 0) {
+      return;
+    }
+    this.entries.put(key(path, variant), new Entry(size, lastModified, digest));
+    try (BufferedWriter writer = Files.newBufferedWriter(this.file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      writer.write(String.join(SEPARATOR, variant, Long.toString(size), Long.toString(lastModified), digest, absolute));
+      writer.newLine();
+    } catch (IOException e) {
+      LOGGER.warn("Could not update content hash index '{}': {}", this.file, LogHelper.getStackTrace(e));
+    }
+  }
+
+  public int size() {
+    return this.entries.size();
+  }
+
+  private void load() {
+    int skipped = 0;
+    try (BufferedReader reader = Files.newBufferedReader(this.file, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        final String[] fields = line.split(SEPARATOR, 5);
+        if (fields.length != 5) {
+          skipped++;
+          continue;
+        }
+        try {
+          this.entries.put(fields[0] + SEPARATOR + fields[4], new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3]));
+        } catch (NumberFormatException e) {
+          skipped++;
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Could not read content hash index '{}': {}", this.file, LogHelper.getStackTrace(e));
+    }
+    if (skipped > 0) {
+      LOGGER.warn("Skipped {} malformed lines of content hash index '{}'.", skipped, this.file);
+    }
+    LOGGER.debug("Loaded {} entries from content hash index '{}'.", this.entries.size(), this.file);
+  }
+
+  private static String key(Path path, String variant) {
+    return variant + SEPARATOR + path.toAbsolutePath().normalize();
+  }
+
+  private static final class Entry {
+
+    private final long size;
+
+    private final long lastModified;
+
+    private final String digest;
+
+    private Entry(long size, long lastModified, String digest) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.digest = digest;
+    }
+  }
+}
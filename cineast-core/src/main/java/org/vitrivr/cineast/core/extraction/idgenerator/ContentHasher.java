@@ -0,0 +1,199 @@
+package org.vitrivr.cineast.core.extraction.idgenerator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.stream.IntStream;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Computes hex encoded content digests of files, reading them through memory-mapped windows instead of an {@link java.io.InputStream}.
+ * <p>
+ * Three modes are supported:
+ * <ul>
+ *   <li>{@link Mode#SHA1}: the SHA-1 of the file content, identical to {@link DigestUtils#sha1Hex(java.io.InputStream)}.</li>
+ *   <li>{@link Mode#TREE}: the file is split into chunks of a fixed size whose SHA-1 digests are computed in parallel. The result is the SHA-1 of the file size (8 bytes, big endian) followed by all chunk digests. It depends on the chunk size and differs from {@link Mode#SHA1}.</li>
+ *   <li>{@link Mode#FAST}: the SHA-1 of the file size followed by a number of blocks sampled evenly across the file, including the first and the last block. This is not a content hash: changes outside the sampled blocks go unnoticed, so it is only meant to recognize files that have been ingested before.</li>
+ * </ul>
+ */
+public final class ContentHasher {
+
+  public enum Mode {
+    SHA1,
+    TREE,
+    FAST
+  }
+
+  /**
+   * Default size of the chunks digested in parallel in {@link Mode#TREE}.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+
+  /**
+   * Default number of blocks sampled in {@link Mode#FAST}.
+   */
+  public static final int DEFAULT_SAMPLES = 16;
+
+  /**
+   * Size of the blocks sampled in {@link Mode#FAST}.
+   */
+  static final int SAMPLE_SIZE = 64 << 10;
+
+  /**
+   * Size of the windows mapped at once in {@link Mode#SHA1}.
+   */
+  private static final long MAP_SIZE = 64L << 20;
+
+  private final Mode mode;
+
+  private final int chunkSize;
+
+  private final int samples;
+
+  private final long mapSize;
+
+  public ContentHasher(Mode mode) {
+    this(mode, DEFAULT_CHUNK_SIZE, DEFAULT_SAMPLES);
+  }
+
+  /**
+   * @param mode      The {@link Mode} to hash files with.
+   * @param chunkSize Size of the chunks in bytes; only used in {@link Mode#TREE}.
+   * @param samples   Number of sampled blocks; only used in {@link Mode#FAST}.
+   */
+  public ContentHasher(Mode mode, int chunkSize, int samples) {
+    this(mode, chunkSize, samples, MAP_SIZE);
+  }
+
+  ContentHasher(Mode mode, int chunkSize, int samples, long mapSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive.");
+    }
+    if (samples < 2) {
+      throw new IllegalArgumentException("At least two blocks must be sampled.");
+    }
+    this.mode = mode;
+    this.chunkSize = chunkSize;
+    this.samples = samples;
+    this.mapSize = mapSize;
+  }
+
+  public Mode getMode() {
+    return this.mode;
+  }
+
+  /**
+   * Returns the mode together with the parameters the digests of this {@link ContentHasher} depend on, e.g. "TREE:8388608". Digests computed by hashers with different variants are not comparable.
+   */
+  public String getVariant() {
+    switch (this.mode) {
+      case TREE:
+        return this.mode.name() + ":" + this.chunkSize;
+      case FAST:
+        return this.mode.name() + ":" + this.samples;
+      default:
+        return this.mode.name();
+    }
+  }
+
+  /**
+   * Returns the lower case hex encoded digest of the file at the given path.
+   */
+  public String hash(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      switch (this.mode) {
+        case TREE:
+          return this.tree(channel);
+        case FAST:
+          return this.fast(channel);
+        default:
+          return this.sha1(channel);
+      }
+    }
+  }
+
+  private String sha1(FileChannel channel) throws IOException {
+    final MessageDigest digest = DigestUtils.getSha1Digest();
+    final long size = channel.size();
+    for (long position = 0; position < size; position += this.mapSize) {
+      digest.update(channel.map(MapMode.READ_ONLY, position, Math.min(this.mapSize, size - position)));
+    }
+    return Hex.encodeHexString(digest.digest());
+  }
+
+  private String tree(FileChannel channel) throws IOException {
+    final long size = channel.size();
+    final int chunks = (int) ((size + this.chunkSize - 1) / this.chunkSize);
+    final byte[][] digests = new byte[chunks][];
+    try {
+      IntStream.range(0, chunks).parallel().forEach(c -> {
+        final long position = (long) c * this.chunkSize;
+        try {
+          final MessageDigest digest = DigestUtils.getSha1Digest();
+          digest.update(channel.map(MapMode.READ_ONLY, position, Math.min(this.chunkSize, size - position)));
+          digests[c] = digest.digest();
+        } catch (IOException e) {
+          throw new ChunkException(e);
+        }
+      });
+    } catch (ChunkException e) {
+      throw e.getCause();
+    }
+    final MessageDigest root = DigestUtils.getSha1Digest();
+    root.update(ByteBuffer.allocate(Long.BYTES).putLong(0, size));
+    for (byte[] digest : digests) {
+      root.update(digest);
+    }
+    return Hex.encodeHexString(root.digest());
+  }
+
+  private String fast(FileChannel channel) throws IOException {
+    final long size = channel.size();
+    final MessageDigest digest = DigestUtils.getSha1Digest();
+    digest.update(ByteBuffer.allocate(Long.BYTES).putLong(0, size));
+    if (size <= (long) this.samples * SAMPLE_SIZE) {
+      read(channel, 0, (int) size, digest);
+    } else {
+      final long stride = (size - SAMPLE_SIZE) / (this.samples - 1);
+      for (int i = 0; i < this.samples - 1; i++) {
+        read(channel, i * stride, SAMPLE_SIZE, digest);
+      }
+      read(channel, size - SAMPLE_SIZE, SAMPLE_SIZE, digest);
+    }
+    return Hex.encodeHexString(digest.digest());
+  }
+
+  /**
+   * Reads length bytes starting at the given position into the digest.
+   */
+  private static void read(FileChannel channel, long position, int length, MessageDigest digest) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of file at " + (position + buffer.position()) + ".");
+      }
+    }
+    buffer.flip();
+    digest.update(buffer);
+  }
+
+  /**
+   * Carries an {@link IOException} out of the parallel stream of {@link #tree(FileChannel)}.
+   */
+  private static final class ChunkException extends RuntimeException {
+
+    private ChunkException(IOException cause) {
+      super(cause);
+    }
+
+    @Override
+    public synchronized IOException getCause() {
+      return (IOException) super.getCause();
+    }
+  }
+}
@@ -1,29 +1,84 @@
 package org.vitrivr.cineast.core.extraction.idgenerator;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
-import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.vitrivr.cineast.core.data.MediaType;
+import org.vitrivr.cineast.core.extraction.idgenerator.ContentHasher.Mode;
 import org.vitrivr.cineast.core.util.LogHelper;
 
+/**
+ * Generates objectIds from a digest of the file content, by default the SHA-1 of the file.
+ *
+ * @see ContentHasher
+ */
 public class Sha1ObjectIdGenerator implements ObjectIdGenerator {
 
   private static final Logger LOGGER = LogManager.getLogger();
 
+  /**
+   * Property-name for the {@link Mode} (sha1, tree or fast) used to hash files (can be set in the configuration).
+   */
+  private static final String PROPERTY_MODE_KEY = "mode";
+
+  /**
+   * Property-name for the chunk size in bytes of the tree mode (can be set in the configuration).
+   */
+  private static final String PROPERTY_CHUNK_SIZE_KEY = "chunkSize";
+
+  /**
+   * Property-name for the number of blocks sampled in the fast mode (can be set in the configuration).
+   */
+  private static final String PROPERTY_SAMPLES_KEY = "samples";
+
+  /**
+   * Property-name for the path of a {@link ContentHashIndex} sidecar file (can be set in the configuration).
+   */
+  private static final String PROPERTY_CACHE_KEY = "cache";
+
+  private final ContentHasher hasher;
+
+  /**
+   * {@link ContentHashIndex} of previously hashed files; null if no cache has been configured.
+   */
+  private final ContentHashIndex cache;
+
+  /**
+   * Constructor for {@link Sha1ObjectIdGenerator}.
+   */
+  public Sha1ObjectIdGenerator() {
+    this.hasher = new ContentHasher(Mode.SHA1);
+    this.cache = null;
+  }
+
+  /**
+   * Constructor for {@link Sha1ObjectIdGenerator}.
+   *
+   * @param properties HashMap of named parameters. The values 'mode', 'chunkSize', 'samples' and 'cache' are supported parameter keys.
+   */
+  public Sha1ObjectIdGenerator(Map<String, String> properties) {
+    final Mode mode = Mode.valueOf(properties.getOrDefault(PROPERTY_MODE_KEY, Mode.SHA1.name()).toUpperCase(Locale.ROOT));
+    final int chunkSize = Integer.parseInt(properties.getOrDefault(PROPERTY_CHUNK_SIZE_KEY, Integer.toString(ContentHasher.DEFAULT_CHUNK_SIZE)));
+    final int samples = Integer.parseInt(properties.getOrDefault(PROPERTY_SAMPLES_KEY, Integer.toString(ContentHasher.DEFAULT_SAMPLES)));
+    this.hasher = new ContentHasher(mode, chunkSize, samples);
+    final String cache = properties.get(PROPERTY_CACHE_KEY);
+    this.cache = cache == null ? null : new ContentHashIndex(Paths.get(cache));
+  }
+
   @Override
   public Optional<String> next(Path path, MediaType type) {
 
     String sha1 = "0000000000000000000000000000000000000000";
 
     try {
-      InputStream is = Files.newInputStream(path);
-      sha1 = DigestUtils.sha1Hex(is);
-      is.close();
+      sha1 = this.digest(path);
     } catch (IOException e) {
       LOGGER.error("Error while creating SHA1 id for object at '{}': {}", path, LogHelper.getStackTrace(e));
     }
@@ -31,4 +86,19 @@ public Optional<String> next(Path path, MediaType type) {
     return Optional.of(MediaType.generateId(type, sha1));
 
   }
+
+  private String digest(Path path) throws IOException {
+    if (this.cache == null) {
+      return this.hasher.hash(path);
+    }
+    final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    final long lastModified = attributes.lastModifiedTime().toMillis();
+    final Optional<String> cached = this.cache.get(path, this.hasher.getVariant(), attributes.size(), lastModified);
+    if (cached.isPresent()) {
+      return cached.get();
+    }
+    final String digest = this.hasher.hash(path);
+    this.cache.put(path, this.hasher.getVariant(), attributes.size(), lastModified, digest);
+    return digest;
+  }
 }
@@ -71,6 +71,39 @@ public static SubdividedFuzzyColorHistogram getSubdividedHistogramNormalized(Buf
     return hist;
   }
 
+  /**
+   * Computes the bins of {@link #getSubdividedHistogramNormalized(BufferedImage, int)} on packed ARGB pixels, without creating a {@link SubdividedFuzzyColorHistogram}. Colours are quantized by the table of {@link FuzzyColorHistogramQuantizer#index(int)} instead of the synchronized Lab cache, so many threads can compute histograms at once. The bins are identical to those of the histogram, including its bin names, which map every subdivision to the bins of the first one.
+   *
+   * @param colors       Pixels as packed ARGB values, row by row.
+   * @param width        Width of the image.
+   * @param height       Height of the image.
+   * @param subdivisions Number of subdivisions per axis.
+   * @return Normalized bins, as compared by {@link org.vitrivr.cineast.core.data.Histogram#getDistance(org.vitrivr.cineast.core.data.Histogram)}.
+   */
+  public static double[] getSubdividedBinsNormalized(int[] colors, int width, int height, int subdivisions) {
+    final double[] bins = new double[subdivisions * subdivisions * FuzzyColorHistogramQuantizer.Color.values().length];
+    final int columns = width / subdivisions * subdivisions;
+    final int rows = height / subdivisions * subdivisions;
+    for (int y = 0; y < rows; ++y) {
+      for (int x = 0, i = y * width; x < columns; ++x, ++i) {
+        if (ReadableRGBContainer.getAlpha(colors[i]) < 127) {
+          continue;
+        }
+        bins[FuzzyColorHistogramQuantizer.index(colors[i])]++;
+      }
+    }
+    double sum = 0;
+    for (double bin : bins) {
+      sum += bin;
+    }
+    if (sum > 1) {
+      for (int i = 0; i < bins.length; ++i) {
+        bins[i] /= sum;
+      }
+    }
+    return bins;
+  }
+
   public static FuzzyColorHistogram getHistogramNormalized(int[] colors) {
     FuzzyColorHistogram hist = getHistogram(colors);
     hist.normalize();
@@ -0,0 +1,293 @@
+package org.vitrivr.cineast.core.extraction.segmenter.video;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.vitrivr.cineast.core.data.frames.VideoFrame;
+import org.vitrivr.cineast.core.data.raw.images.MultiImage;
+import org.vitrivr.cineast.core.extraction.decode.general.Decoder;
+import org.vitrivr.cineast.core.extraction.segmenter.FuzzyColorHistogramCalculator;
+import org.vitrivr.cineast.core.util.LogHelper;
+
+/**
+ * Decodes the frames of a video and computes their histograms ahead of the {@link VideoHistogramSegmenter}: One thread pulls frames from the {@link Decoder}, several workers compute the histograms of the thumbnails in parallel, and {@link #take()} hands out the frames in decoding order once their histogram is ready.
+ * <p>
+ * Frames live in a ring buffer of fixed size, so decoding stalls when the segmenter falls behind by that many frames.
+ */
+final class FrameHistogramPipeline implements AutoCloseable {
+
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * Number of subdivisions per axis of the histograms, see {@link FuzzyColorHistogramCalculator#getSubdividedBinsNormalized(int[], int, int, int)}.
+   */
+  static final int SUBDIVISIONS = 3;
+
+  private final Decoder<VideoFrame> decoder;
+
+  private final VideoFrame[] frames;
+
+  private final double[][] histograms;
+
+  private final List<Thread> threads = new ArrayList<>();
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * Signalled whenever a frame was decoded, a histogram was computed or the end of the video was reached.
+   */
+  private final Condition progress = this.lock.newCondition();
+
+  /**
+   * Signalled whenever a frame was taken, which frees a slot of the ring buffer.
+   */
+  private final Condition space = this.lock.newCondition();
+
+  /**
+   * Number of frames decoded so far.
+   */
+  private long decoded = 0;
+
+  /**
+   * Number of frames handed to a worker so far.
+   */
+  private long assigned = 0;
+
+  /**
+   * Number of frames taken so far.
+   */
+  private long taken = 0;
+
+  /**
+   * True once the decoder returned no more frames.
+   */
+  private boolean ended = false;
+
+  /**
+   * Error the decoder failed with, if any; rethrown by {@link #take()} once the frames decoded before it have been taken.
+   */
+  private Throwable failure = null;
+
+  /**
+   * True once {@link #take()} returned null.
+   */
+  private volatile boolean exhausted = false;
+
+  private volatile boolean closed = false;
+
+  /**
+   * Constructor for {@link FrameHistogramPipeline}. The threads are started by {@link #start()}.
+   *
+   * @param decoder  {@link Decoder} to pull frames from; it is used by a single thread only.
+   * @param workers  Number of threads that compute histograms.
+   * @param capacity Maximum number of frames that are decoded but not yet taken.
+   */
+  FrameHistogramPipeline(Decoder<VideoFrame> decoder, int workers, int capacity) {
+    this.decoder = decoder;
+    this.frames = new VideoFrame[capacity];
+    this.histograms = new double[capacity][];
+    final Thread reader = new Thread(this::decode, "video-histogram-decoder");
+    reader.setDaemon(true);
+    this.threads.add(reader);
+    for (int i = 0; i < workers; i++) {
+      final Thread worker = new Thread(this::work, "video-histogram-worker-" + i);
+      worker.setDaemon(true);
+      this.threads.add(worker);
+    }
+  }
+
+  /**
+   * Computes the histogram of a frame as compared by the {@link VideoHistogramSegmenter}.
+   */
+  static double[] histogram(VideoFrame frame) {
+    final MultiImage image = frame.getImage();
+    final int[] colors = image.getThumbnailColors();
+    final int width = image.getThumbnailImage().getWidth();
+    return FuzzyColorHistogramCalculator.getSubdividedBinsNormalized(colors, width, colors.length / width, SUBDIVISIONS);
+  }
+
+  /**
+   * Returns the Euclidean distance between two histograms, summed in the same order as {@link org.vitrivr.cineast.core.data.Histogram#getDistance(org.vitrivr.cineast.core.data.Histogram)}, or infinity if they are incompatible.
+   */
+  static double distance(double[] a, double[] b) {
+    if (a.length != b.length) {
+      return Double.POSITIVE_INFINITY;
+    }
+    double dist = 0;
+    for (int i = 0; i < a.length; ++i) {
+      double d = a[i] - b[i];
+      dist += (d * d);
+    }
+    return Math.sqrt(dist);
+  }
+
+  void start() {
+    this.threads.forEach(Thread::start);
+  }
+
+  /**
+   * Returns the next frame in decoding order, waiting until it has been decoded and its histogram has been computed.
+   *
+   * @return The next {@link Frame} or null, if the decoder has no more frames.
+   * @throws IllegalStateException If the decoder failed; the frames decoded before are returned first.
+   */
+  Frame take() throws InterruptedException {
+    this.lock.lockInterruptibly();
+    try {
+      while (true) {
+        if (this.taken < this.decoded) {
+          final int slot = this.slot(this.taken);
+          if (this.histograms[slot] != null) {
+            final Frame frame = new Frame(this.frames[slot], this.histograms[slot]);
+            this.frames[slot] = null;
+            this.histograms[slot] = null;
+            this.taken++;
+            this.space.signal();
+            return frame;
+          }
+        } else if (this.ended) {
+          this.exhausted = true;
+          if (this.failure != null) {
+            throw new IllegalStateException("Error while decoding video frames.", this.failure);
+          }
+          return null;
+        }
+        this.progress.await();
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Returns true once {@link #take()} has returned null or thrown, i.e. all frames of the video have been taken.
+   */
+  boolean exhausted() {
+    return this.exhausted;
+  }
+
+  /**
+   * Stops decoding and waits until all threads have terminated. The decoder is not used anymore afterwards.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+    this.lock.lock();
+    try {
+      this.progress.signalAll();
+      this.space.signalAll();
+    } finally {
+      this.lock.unlock();
+    }
+    for (Thread thread : this.threads) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private int slot(long index) {
+    return (int) (index % this.frames.length);
+  }
+
+  /**
+   * Loop of the decoder thread.
+   */
+  private void decode() {
+    try {
+      while (!this.closed) {
+        this.lock.lock();
+        try {
+          while (!this.closed && this.decoded - this.taken >= this.frames.length) {
+            this.space.await();
+          }
+        } finally {
+          this.lock.unlock();
+        }
+        if (this.closed) {
+          break;
+        }
+        final VideoFrame frame = this.decoder.getNext();
+        this.lock.lock();
+        try {
+          if (frame == null) {
+            break;
+          }
+          this.frames[this.slot(this.decoded)] = frame;
+          this.decoded++;
+          this.progress.signalAll();
+        } finally {
+          this.lock.unlock();
+        }
+      }
+    } catch (InterruptedException e) {
+      LOGGER.warn("Video decoder thread was interrupted.");
+    } catch (Throwable t) {
+      /* Published to take() together with the end of the video below. */
+      this.failure = t;
+    } finally {
+      this.lock.lock();
+      try {
+        this.ended = true;
+        this.progress.signalAll();
+      } finally {
+        this.lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Loop of a histogram worker.
+   */
+  private void work() {
+    while (true) {
+      final long index;
+      final VideoFrame frame;
+      this.lock.lock();
+      try {
+        while (!this.closed && this.assigned == this.decoded && !this.ended) {
+          this.progress.await();
+        }
+        if (this.closed || this.assigned == this.decoded) {
+          return;
+        }
+        index = this.assigned++;
+        frame = this.frames[this.slot(index)];
+      } catch (InterruptedException e) {
+        return;
+      } finally {
+        this.lock.unlock();
+      }
+
+      double[] histogram;
+      try {
+        histogram = histogram(frame);
+      } catch (Throwable t) {
+        /* Such a frame never matches its neighbours, i.e. it is treated like a cut. */
+        LOGGER.error("Error while computing histogram of frame {}: {}", frame.getId(), LogHelper.getStackTrace(t));
+        histogram = new double[0];
+      }
+
+      this.lock.lock();
+      try {
+        this.histograms[this.slot(index)] = histogram;
+        this.progress.signalAll();
+      } finally {
+        this.lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * A decoded {@link VideoFrame} with its histogram.
+   */
+  record Frame(VideoFrame frame, double[] histogram) {
+
+  }
+}
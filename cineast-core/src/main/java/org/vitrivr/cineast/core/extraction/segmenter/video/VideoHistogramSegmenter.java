@@ -8,7 +8,6 @@
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.vitrivr.cineast.core.data.Histogram;
 import org.vitrivr.cineast.core.data.MediaType;
 import org.vitrivr.cineast.core.data.Pair;
 import org.vitrivr.cineast.core.data.entities.MediaObjectDescriptor;
@@ -19,11 +18,12 @@
 import org.vitrivr.cineast.core.db.dao.reader.MediaSegmentReader;
 import org.vitrivr.cineast.core.extraction.ExtractionContextProvider;
 import org.vitrivr.cineast.core.extraction.decode.general.Decoder;
-import org.vitrivr.cineast.core.extraction.segmenter.FuzzyColorHistogramCalculator;
 import org.vitrivr.cineast.core.extraction.segmenter.general.Segmenter;
 import org.vitrivr.cineast.core.util.ReflectionHelper;
 
-
+/**
+ * Segments a video into shots by comparing the fuzzy colour histograms of consecutive frames. The histograms are computed ahead of the segmentation by a {@link FrameHistogramPipeline}, on as many workers as there are processors unless the parameter {@code workers} says otherwise.
+ */
 public class VideoHistogramSegmenter implements Segmenter<VideoFrame> {
 
   /**
@@ -41,10 +41,17 @@ public class VideoHistogramSegmenter implements Segmenter<VideoFrame> {
 
   private static final int SEGMENT_POLLING_TIMEOUT = 1000;
 
+  /**
+   * Minimum number of frames that may be decoded ahead of the segmentation.
+   */
+  private static final int MIN_FRAME_WINDOW = 32;
+
   private final double threshold;
 
   private final int maxShotLength;
-  private final LinkedList<VideoFrame> videoFrameList = new LinkedList<>();
+
+  private final int workers;
+  private final ArrayDeque<FrameHistogramPipeline.Frame> videoFrameList = new ArrayDeque<>();
   private final LinkedList<Pair<VideoFrame, Double>> preShotList = new LinkedList<>();
   private final LinkedBlockingQueue<SegmentContainer> segments = new LinkedBlockingQueue<>(SEGMENT_QUEUE_LENGTH);
   private final List<MediaSegmentDescriptor> knownShotBoundaries = new LinkedList<>();
@@ -53,6 +60,7 @@ public class VideoHistogramSegmenter implements Segmenter<VideoFrame> {
    */
   private final MediaSegmentReader segmentReader;
   private Decoder<VideoFrame> decoder;
+  private FrameHistogramPipeline pipeline;
   private volatile boolean complete = false;
   private volatile boolean isrunning = false;
 
@@ -78,13 +86,14 @@ public VideoHistogramSegmenter(ExtractionContextProvider context, Map<String, St
     } else {
       this.maxShotLength = DEFAULT_MAX_SHOT_LENGTH;
     }
+    if (parameters.containsKey("workers")) {
+      this.workers = Math.max(1, Integer.parseInt(parameters.get("workers")));
+    } else {
+      this.workers = Runtime.getRuntime().availableProcessors();
+    }
     this.segmentReader = new MediaSegmentReader(context.persistencyReader().get());
   }
 
-  private static Histogram getHistogram(VideoFrame f) {
-    return FuzzyColorHistogramCalculator.getSubdividedHistogramNormalized(f.getImage().getThumbnailImage(), 3);
-  }
-
   /**
    * Method used to initialize the Segmenter - assigns the new Decoder instance and clears all the queues.
    *
@@ -94,6 +103,7 @@ private static Histogram getHistogram(VideoFrame f) {
   public synchronized void init(Decoder<VideoFrame> decoder, MediaObjectDescriptor object) {
     if (!this.isrunning) {
       this.decoder = decoder;
+      this.pipeline = null;
       this.complete = false;
       this.preShotList.clear();
       this.segments.clear();
@@ -109,7 +119,7 @@ public SegmentContainer getNext() throws InterruptedException {
     SegmentContainer nextContainer = this.segments.poll(SEGMENT_POLLING_TIMEOUT, TimeUnit.MILLISECONDS);
     if (nextContainer == null) {
       synchronized (this) {
-        this.complete = !this.isrunning && this.decoder.complete();
+        this.complete = !this.isrunning && (this.decoder.complete() || (this.pipeline != null && this.pipeline.exhausted()));
       }
     }
     return nextContainer;
@@ -149,10 +159,13 @@ public void run() {
     /* Begin: Set running to false. */
     synchronized (this) {
       this.isrunning = true;
+      this.pipeline = new FrameHistogramPipeline(this.decoder, this.workers, Math.max(MIN_FRAME_WINDOW, 4 * this.workers));
     }
 
+    /* Frames are queued in batches as before, so the segments only depend on the frames: the end of the video is noticed at the same point as if they were decoded on this thread. */
     try {
-      while (!this.decoder.complete()) {
+      this.pipeline.start();
+      while (!this.pipeline.exhausted()) {
         if (this.videoFrameList.isEmpty()) {
           queueFrames();
         }
@@ -167,7 +180,9 @@ public void run() {
         }
 
         if (this.videoFrameList.isEmpty()) {
-          this.segments.put(_return);
+          if (_return != null) {
+            this.segments.put(_return);
+          }
           continue; //no more shots to segment
         }
 
@@ -175,7 +190,8 @@ public void run() {
           _return = new VideoSegment();
         }
 
-        VideoFrame videoFrame = this.videoFrameList.poll();
+        FrameHistogramPipeline.Frame frame = this.videoFrameList.poll();
+        VideoFrame videoFrame = frame.frame();
 
         MediaSegmentDescriptor bounds = this.knownShotBoundaries.size() > 0 ? this.knownShotBoundaries.remove(0) : null;
 
@@ -184,8 +200,9 @@ public void run() {
           _return.addVideoFrame(videoFrame);
           queueFrames(bounds.getEnd() - bounds.getStart());
           do {
-            videoFrame = this.videoFrameList.poll();
-            if (videoFrame != null) {
+            frame = this.videoFrameList.poll();
+            if (frame != null) {
+              videoFrame = frame.frame();
               _return.addVideoFrame(videoFrame);
             } else {
               break;
@@ -196,22 +213,22 @@ public void run() {
           continue;
 
         } else {
-          Histogram hPrev, h = getHistogram(videoFrame);
+          double[] hPrev, h = frame.histogram();
           _return.addVideoFrame(videoFrame);
           while (true) {
-            if ((videoFrame = this.videoFrameList.poll()) == null) {
+            if ((frame = this.videoFrameList.poll()) == null) {
               queueFrames();
-              if ((videoFrame = this.videoFrameList.poll()) == null) {
+              if ((frame = this.videoFrameList.poll()) == null) {
                 this.segments.put(_return);
                 _return = null;
                 break;
               }
             }
             hPrev = h;
-            h = getHistogram(videoFrame);
-            double distance = hPrev.getDistance(h);
+            h = frame.histogram();
+            double distance = FrameHistogramPipeline.distance(hPrev, h);
 
-            preShotList.offer(new Pair<>(videoFrame, distance));
+            preShotList.offer(new Pair<>(frame.frame(), distance));
 
             if (preShotList.size() > PRESHOT_QUEUE_LENGTH) {
               double max = 0;
@@ -243,21 +260,24 @@ public void run() {
       }
     } catch (InterruptedException e) {
       LOGGER.log(Level.ERROR, "The thread that runs the VideoHistogramSegmenter was interrupted: {}", e);
-    }
+    } finally {
+      /* The decoder must not be in use anymore when the segmenter is closed. */
+      this.pipeline.close();
 
-    /* End: Reset running to false. */
-    synchronized (this) {
-      this.isrunning = false;
+      /* End: Reset running to false, also if decoding failed. */
+      synchronized (this) {
+        this.isrunning = false;
+      }
     }
   }
 
-  private boolean queueFrames() {
+  private boolean queueFrames() throws InterruptedException {
     return queueFrames(20);
   }
 
-  private boolean queueFrames(int number) {
+  private boolean queueFrames(int number) throws InterruptedException {
     for (int i = 0; i < number; ++i) {
-      VideoFrame f = this.decoder.getNext();
+      FrameHistogramPipeline.Frame f = this.pipeline.take();
       if (f == null) { //no more frames
         return false;
       } else {
@@ -13,6 +13,7 @@
 import org.vitrivr.cineast.core.data.score.ScoreElement;
 import org.vitrivr.cineast.core.data.segments.SegmentContainer;
 import org.vitrivr.cineast.core.features.abstracts.StagedFeatureModule;
+import org.vitrivr.cineast.core.util.audio.AudioFeatureEngine;
 import org.vitrivr.cineast.core.util.audio.HPCP;
 import org.vitrivr.cineast.core.util.dsp.fft.FFTUtil;
 import org.vitrivr.cineast.core.util.dsp.fft.STFT;
@@ -125,11 +126,10 @@ private List<float[]> getFeatures(SegmentContainer segment) {
       return new ArrayList<>();
     }
 
-    HPCP hpcps = new HPCP(this.resolution, this.min_frequency, this.max_frequency);
-    hpcps.addContribution(stft);
+    float[][] hpcps = AudioFeatureEngine.hpcp(stft, this.resolution, this.min_frequency, this.max_frequency);
 
     /* Determine number of vectors that will result from the data. */
-    int vectors = hpcps.size() / this.average;
+    int vectors = hpcps.length / this.average;
 
     List<float[]> features = new ArrayList<>(vectors);
     for (int i = 0; i < vectors; i++) {
@@ -140,7 +140,7 @@ private List<float[]> getFeatures(SegmentContainer segment) {
           if (statistics[k] == null) {
             statistics[k] = new SummaryStatistics();
           }
-          statistics[k].addValue(hpcps.getHpcp(i * this.average + j)[k]);
+          statistics[k].addValue(hpcps[i * this.average + j][k]);
         }
       }
       for (int k = 0; k < this.resolution.bins; k++) {
@@ -1,7 +1,6 @@
 package org.vitrivr.cineast.core.features;
 
 import static org.vitrivr.cineast.core.util.CineastConstants.FEATURE_COLUMN_QUALIFIER;
-import static org.vitrivr.cineast.core.util.CineastConstants.GENERIC_ID_COLUMN_QUALIFIER;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,14 +26,15 @@
 import org.vitrivr.cineast.core.data.distance.SegmentDistanceElement;
 import org.vitrivr.cineast.core.data.providers.primitive.FloatArrayTypeProvider;
 import org.vitrivr.cineast.core.data.providers.primitive.PrimitiveTypeProvider;
-import org.vitrivr.cineast.core.data.providers.primitive.StringTypeProvider;
 import org.vitrivr.cineast.core.data.score.ScoreElement;
 import org.vitrivr.cineast.core.data.segments.SegmentContainer;
 import org.vitrivr.cineast.core.db.DBSelector;
 import org.vitrivr.cineast.core.db.DBSelectorSupplier;
+import org.vitrivr.cineast.core.db.dao.reader.FeatureVectorCache;
 import org.vitrivr.cineast.core.db.setup.EntityCreator;
 import org.vitrivr.cineast.core.features.retriever.Retriever;
 import org.vitrivr.cineast.core.util.text.ClipTokenizer;
+import org.vitrivr.cineast.core.util.text.TextEmbeddingCache;
 
 public class CLIPText implements Retriever {
 
@@ -77,6 +77,7 @@ public void initalizePersistentLayer(Supplier<EntityCreator> supply) {
   @Override
   public void dropPersistentLayer(Supplier<EntityCreator> supply) {
     supply.get().dropEntity(TABLE_NAME);
+    FeatureVectorCache.getInstance().invalidateEntity(TABLE_NAME);
   }
 
   @Override
@@ -94,7 +95,7 @@ public List<ScoreElement> getSimilar(SegmentContainer sc, ReadableQueryConfig qc
     LOGGER.debug("Querying for: \"{}\"", text);
 
     try {
-      return getSimilar(new FloatArrayTypeProvider(embedText(text)), qc);
+      return getSimilar(new FloatArrayTypeProvider(TextEmbeddingCache.getInstance().get(TABLE_NAME, text, this::embedText)), qc);
     } catch (Exception e) {
       LOGGER.error("error during CLIPText execution", e);
       return new ArrayList<>();
@@ -127,7 +128,7 @@ private static float[] exec(HashMap<String, Tensor> inputMap) {
 
   @Override
   public List<ScoreElement> getSimilar(String segmentId, ReadableQueryConfig qc) {
-    List<PrimitiveTypeProvider> list = this.selector.getFeatureVectorsGeneric(GENERIC_ID_COLUMN_QUALIFIER, new StringTypeProvider(segmentId), FEATURE_COLUMN_QUALIFIER, qc);
+    List<PrimitiveTypeProvider> list = FeatureVectorCache.getInstance().getFeatureVectors(this.selector, TABLE_NAME, segmentId, qc);
     if (list.isEmpty()) {
       LOGGER.warn("No feature vector for shotId {} found, returning empty result-list", segmentId);
       return Collections.emptyList();
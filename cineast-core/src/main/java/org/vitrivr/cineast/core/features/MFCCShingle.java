@@ -16,7 +16,7 @@
 import org.vitrivr.cineast.core.data.score.SegmentScoreElement;
 import org.vitrivr.cineast.core.data.segments.SegmentContainer;
 import org.vitrivr.cineast.core.features.abstracts.StagedFeatureModule;
-import org.vitrivr.cineast.core.util.audio.MFCC;
+import org.vitrivr.cineast.core.util.audio.AudioFeatureEngine;
 import org.vitrivr.cineast.core.util.dsp.fft.FFTUtil;
 import org.vitrivr.cineast.core.util.dsp.fft.STFT;
 import org.vitrivr.cineast.core.util.dsp.fft.windows.HanningWindow;
@@ -129,16 +129,15 @@ private List<float[]> getFeatures(SegmentContainer segment) {
     if (stft == null) {
       return new ArrayList<>(0);
     }
-    final List<MFCC> mfccs = MFCC.calculate(stft);
-    int vectors = mfccs.size() - SHINGLE_SIZE;
+    final float[][] mfccs = AudioFeatureEngine.mfcc(stft);
+    int vectors = mfccs.length - SHINGLE_SIZE;
 
     List<float[]> features = new ArrayList<>(Math.max(1, vectors));
     if (vectors > 0) {
       for (int i = 0; i < vectors; i++) {
         float[] feature = new float[SHINGLE_SIZE * 13];
         for (int j = 0; j < SHINGLE_SIZE; j++) {
-          MFCC mfcc = mfccs.get(i + j);
-          System.arraycopy(mfcc.getCepstra(), 0, feature, 13 * j, 13);
+          System.arraycopy(mfccs[i + j], 0, feature, 13 * j, 13);
         }
         if (MathHelper.checkNotZero(feature) && MathHelper.checkNotNaN(feature)) {
           features.add(MathHelper.normalizeL2(feature));
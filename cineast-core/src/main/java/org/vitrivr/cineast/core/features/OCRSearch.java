@@ -8,11 +8,14 @@
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.TreeMap;
 import org.apache.commons.text.similarity.JaroWinklerSimilarity;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.core.Point;
@@ -24,6 +27,7 @@
 import org.vitrivr.cineast.core.util.ThreadLocalObjectCache;
 import org.vitrivr.cineast.core.util.ocr.MultiTracker;
 import org.vitrivr.cineast.core.util.ocr.NeedlemanWunschMerge;
+import org.vitrivr.cineast.core.util.text.MajorityVote;
 import org.vitrivr.cineast.core.util.text.TextDetector_EAST;
 import org.vitrivr.cineast.core.util.text.TextRecognizer_CTC;
 import org.vitrivr.cineast.core.util.text.TextStream;
@@ -43,14 +47,22 @@ public class OCRSearch extends AbstractTextRetriever {
    * threshold_postproc: This is the threshold for the postprocessing stream association step Strongly urge not to change
    * <p>
    * tracker_type: Refers to the tracker which is used threshold_stream_length: Refers to the amount of consecutive frames a text should minimally appear in If a text appears in less consecutive frames than the threshold, the text is discarded
+   * <p>
+   * recognitionBatchSize: The amount of text instances that are recognized in one forward pass of the recognition model
+   * <p>
+   * votingRound: The amount of frames per stream that are recognized before checking whether the majority vote of the stream is decided
    */
   private static final int rate = 3;
   private static final int batchSize = 16;
+  private static final int recognitionBatchSize = 32;
+  private static final int votingRound = 8;
   private static final double threshold_CIoU = 0.4;
   private static final double threshold_postproc = 8;
   private static final MultiTracker.TRACKER_TYPE tracker_type = MultiTracker.TRACKER_TYPE.CIRCULANT;
   private static final int threshold_stream_length = 9;
 
+  private static final Logger LOGGER = LogManager.getLogger();
+
   private static final ThreadLocalObjectCache<TextDetector_EAST> detectorCache = new ThreadLocalObjectCache<>(new CacheLoader<Thread, TextDetector_EAST>() {
     @Override
     public TextDetector_EAST load(Thread key) {
@@ -291,15 +303,21 @@ public void processSegment(SegmentContainer shot) {
     if (lenVideo == 1) {
       Mat frame = img2Mat(shot.getVideoFrames().get(0).getImage().getBufferedImage());
       Point[][] coordinates = detector.detect(frame);
-      StringBuilder sb = new StringBuilder();
+      List<Mat> crops = new ArrayList<>(coordinates.length);
       for (Point[] coordinate : coordinates) {
-        sb.append(recognizer.recognize(coordinate, frame, true)).append('\n');
+        crops.add(recognizer.crop(coordinate, frame, true));
+      }
+      StringBuilder sb = new StringBuilder();
+      for (String recognition : recognizer.recognize(crops, recognitionBatchSize)) {
+        sb.append(recognition).append('\n');
       }
+      crops.forEach(Mat::release);
       saveText(shot.getId(), sb.toString());
       return;
     }
 
     // Scene text extraction for video
+    long start = System.nanoTime();
     List<TextStream> streams = new ArrayList<>();
 
     List<Mat> matFrames = new ArrayList<>();
@@ -308,6 +326,7 @@ public void processSegment(SegmentContainer shot) {
     }
 
     List<Point[][]> detections = detector.detect(matFrames, batchSize);
+    long detected = System.nanoTime();
     List<GrayU8> frames_grayU8 = new ArrayList<>();
 
     for (int i = 0; i < lenVideo; i++) {
@@ -337,7 +356,7 @@ public void processSegment(SegmentContainer shot) {
         count++;
       }
 
-      MultiTracker tracker_forward = new MultiTracker(bufferedImage2GrayU8(shot, i), coordinates_tracking, tracker_type);
+      MultiTracker tracker_forward = new MultiTracker(frames_grayU8.get(i), coordinates_tracking, tracker_type);
 
       for (int j = i + 1; j < lenVideo && j <= i + rate; j++) {
         List<Pair<Boolean, Quadrilateral_F64>> new_coordinates = tracker_forward.update(frames_grayU8.get(j));
@@ -365,7 +384,7 @@ public void processSegment(SegmentContainer shot) {
         count++;
       }
 
-      MultiTracker tracker_backward = new MultiTracker(bufferedImage2GrayU8(shot, i + rate), coordinates_tracking, tracker_type);
+      MultiTracker tracker_backward = new MultiTracker(frames_grayU8.get(i + rate), coordinates_tracking, tracker_type);
       for (int j = i + rate - 1; j >= 0 && j >= i; j--) {
         List<Pair<Boolean, Quadrilateral_F64>> new_coordinates = tracker_backward.update(frames_grayU8.get(j));
         for (int k = 0; k < new_coordinates.size(); k++) {
@@ -405,38 +424,21 @@ public void processSegment(SegmentContainer shot) {
       }
     }
 
-    List<TextStream> shouldRemove = new ArrayList<>();
+    long tracked = System.nanoTime();
 
     // Recognize text within each stream
-    for (TextStream stream : streams) {
-      HashMap<Integer, Quadrilateral_F64> filtered = stream.getFilteredCoordinates();
-      Iterator<Integer> frameIterator = filtered.keySet().iterator();
-      HashMap<String, Integer> counts = new HashMap<>();
+    List<List<Mat>> crops = cropStreams(shot, streams, matFrames, recognizer);
+    matFrames.forEach(Mat::release);
+    List<MajorityVote> votes = recognizeStreams(crops, recognizer);
+    crops.forEach(c -> c.forEach(Mat::release));
+    long recognized = System.nanoTime();
 
-      // Recognize text from the filtered coordinates and count the amount of times they occur
-      while (frameIterator.hasNext()) {
-        int key = frameIterator.next();
-
-        Quadrilateral_F64 coord_before = filtered.get(key);
-        Point[] coordinates = new Point[]{new Point(coord_before.getD().x, coord_before.getD().y), new Point(coord_before.getA().x, coord_before.getA().y), new Point(coord_before.getB().x, coord_before.getB().y), new Point(coord_before.getC().x, coord_before.getC().y)};
-        Mat frame = img2Mat(shot.getVideoFrames().get(key).getImage().getBufferedImage());
-        String recognition = recognizer.recognize(coordinates, frame, false);
-        Integer count = counts.get(recognition);
-        counts.put(recognition, count != null ? count + 1 : 1);
-      }
+    List<TextStream> shouldRemove = new ArrayList<>();
+    for (int s = 0; s < streams.size(); s++) {
+      TextStream stream = streams.get(s);
 
       // Select the recognitions which appear most often (majority voting)
-      int max_count = 0;
-      List<String> prunedRecognitions = new ArrayList<>();
-      for (HashMap.Entry<String, Integer> val : counts.entrySet()) {
-        if (max_count < val.getValue()) {
-          prunedRecognitions.clear();
-          prunedRecognitions.add(val.getKey());
-          max_count = val.getValue();
-        } else if (max_count == val.getValue()) {
-          prunedRecognitions.add(val.getKey());
-        }
-      }
+      List<String> prunedRecognitions = votes.get(s).getWinners();
 
       // If there are two recognitions which appear most often, apply NeedlemanWunschMerge. If there are more than two, then delete the stream
       if (prunedRecognitions.size() == 1) {
@@ -541,6 +543,101 @@ public void processSegment(SegmentContainer shot) {
     StringBuilder sb = new StringBuilder();
     streams.forEach(s -> sb.append(s.getText()).append('\n'));
     saveText(shot.getId(), sb.toString());
+    long voted = System.nanoTime();
+    LOGGER.debug("Scene text extraction of segment {} with {} frames and {} text streams: detect {} ms, track {} ms, recognize {} ms, vote {} ms",
+        shot.getId(), lenVideo, votes.size(), (detected - start) / 1_000_000, (tracked - detected) / 1_000_000, (recognized - tracked) / 1_000_000, (voted - recognized) / 1_000_000);
+  }
+
+  /**
+   * cropStreams crops the filtered coordinates of all streams. Every frame is converted at most once; the frames converted for the detection are reused.
+   *
+   * @param shot       The {@link SegmentContainer} containing the frames
+   * @param streams    The streams whose coordinates should be cropped
+   * @param matFrames  The frames converted for the detection, i.e. every rate-th frame
+   * @param recognizer The recognizer the crops are prepared for
+   * @return For every stream, the crops of its filtered coordinates in the order of {@link TextStream#getFilteredCoordinates()}
+   */
+  private List<List<Mat>> cropStreams(SegmentContainer shot, List<TextStream> streams, List<Mat> matFrames, TextRecognizer_CTC recognizer) {
+    List<Mat[]> crops = new ArrayList<>(streams.size());
+    TreeMap<Integer, List<CropRequest>> byFrame = new TreeMap<>();
+    for (TextStream stream : streams) {
+      HashMap<Integer, Quadrilateral_F64> filtered = stream.getFilteredCoordinates();
+      Mat[] streamCrops = new Mat[filtered.size()];
+      crops.add(streamCrops);
+      int index = 0;
+      for (HashMap.Entry<Integer, Quadrilateral_F64> entry : filtered.entrySet()) {
+        Quadrilateral_F64 coord_before = entry.getValue();
+        Point[] coordinates = new Point[]{new Point(coord_before.getD().x, coord_before.getD().y), new Point(coord_before.getA().x, coord_before.getA().y), new Point(coord_before.getB().x, coord_before.getB().y), new Point(coord_before.getC().x, coord_before.getC().y)};
+        byFrame.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(new CropRequest(coordinates, streamCrops, index++));
+      }
+    }
+
+    for (HashMap.Entry<Integer, List<CropRequest>> entry : byFrame.entrySet()) {
+      int key = entry.getKey();
+      boolean reused = key % rate == 0 && key / rate < matFrames.size();
+      Mat frame = reused ? matFrames.get(key / rate) : img2Mat(shot.getVideoFrames().get(key).getImage().getBufferedImage());
+      for (CropRequest request : entry.getValue()) {
+        request.target[request.index] = recognizer.crop(request.coordinates, frame, false);
+      }
+      if (!reused) {
+        frame.release();
+      }
+    }
+
+    List<List<Mat>> _return = new ArrayList<>(crops.size());
+    crops.forEach(c -> _return.add(Arrays.asList(c)));
+    return _return;
+  }
+
+  /**
+   * recognizeStreams recognizes the crops of all streams in rounds of votingRound crops per stream, until the majority vote of every stream is decided. All crops of a round are recognized in batches.
+   *
+   * @param crops      For every stream, the crops of its filtered coordinates
+   * @param recognizer The recognizer to use
+   * @return For every stream, the vote on its recognitions
+   */
+  private List<MajorityVote> recognizeStreams(List<List<Mat>> crops, TextRecognizer_CTC recognizer) {
+    List<MajorityVote> votes = new ArrayList<>(crops.size());
+    List<Integer> pending = new ArrayList<>(crops.size());
+    for (int s = 0; s < crops.size(); s++) {
+      votes.add(new MajorityVote(crops.get(s).size()));
+      pending.add(s);
+    }
+    int[] next = new int[crops.size()];
+    while (!pending.isEmpty()) {
+      List<Mat> batch = new ArrayList<>();
+      List<Integer> owners = new ArrayList<>();
+      for (int s : pending) {
+        List<Mat> streamCrops = crops.get(s);
+        int end = Math.min(next[s] + votingRound, streamCrops.size());
+        for (; next[s] < end; next[s]++) {
+          batch.add(streamCrops.get(next[s]));
+          owners.add(s);
+        }
+      }
+      List<String> recognitions = recognizer.recognize(batch, recognitionBatchSize);
+      for (int i = 0; i < recognitions.size(); i++) {
+        votes.get(owners.get(i)).add(recognitions.get(i));
+      }
+      pending.removeIf(s -> votes.get(s).isDecided());
+    }
+    return votes;
+  }
+
+  /**
+   * A coordinate to be cropped from a frame, and the position its crop is stored at
+   */
+  private static final class CropRequest {
+
+    private final Point[] coordinates;
+    private final Mat[] target;
+    private final int index;
+
+    private CropRequest(Point[] coordinates, Mat[] target, int index) {
+      this.coordinates = coordinates;
+      this.target = target;
+      this.index = index;
+    }
   }
 
   @Override
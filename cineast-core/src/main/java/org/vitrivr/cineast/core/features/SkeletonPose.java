@@ -3,21 +3,24 @@
 import static org.vitrivr.cineast.core.util.CineastConstants.DB_DISTANCE_VALUE_QUALIFIER;
 import static org.vitrivr.cineast.core.util.CineastConstants.GENERIC_ID_COLUMN_QUALIFIER;
 
-import com.carrotsearch.hppc.IntIntHashMap;
-import com.carrotsearch.hppc.ObjectDoubleHashMap;
-import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.IntArrayList;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import georegression.struct.point.Point2D_F32;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import org.apache.commons.lang3.time.StopWatch;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.vitrivr.cineast.core.config.ReadableQueryConfig;
 import org.vitrivr.cineast.core.data.FloatArrayIterable;
 import org.vitrivr.cineast.core.data.Pair;
@@ -25,7 +28,6 @@
 import org.vitrivr.cineast.core.data.frames.VideoFrame;
 import org.vitrivr.cineast.core.data.raw.images.MultiImage;
 import org.vitrivr.cineast.core.data.score.ScoreElement;
-import org.vitrivr.cineast.core.data.score.SegmentScoreElement;
 import org.vitrivr.cineast.core.data.segments.SegmentContainer;
 import org.vitrivr.cineast.core.db.PersistencyWriterSupplier;
 import org.vitrivr.cineast.core.db.PersistentTuple;
@@ -33,9 +35,10 @@
 import org.vitrivr.cineast.core.db.setup.AttributeDefinition;
 import org.vitrivr.cineast.core.db.setup.EntityCreator;
 import org.vitrivr.cineast.core.features.abstracts.AbstractFeatureModule;
-import org.vitrivr.cineast.core.util.HungarianAlgorithm;
 import org.vitrivr.cineast.core.util.pose.MergingPoseDetector;
 import org.vitrivr.cineast.core.util.pose.PoseDetector;
+import org.vitrivr.cineast.core.util.pose.PoseIndex;
+import org.vitrivr.cineast.core.util.pose.PoseMatches;
 import org.vitrivr.cottontail.client.SimpleClient;
 import org.vitrivr.cottontail.client.iterators.Tuple;
 import org.vitrivr.cottontail.client.iterators.TupleIterator;
@@ -60,8 +63,20 @@ public class SkeletonPose extends AbstractFeatureModule {
   private static final String PERSON_ID_COL = "person";
   private static final String FEATURE_COL = "skeleton";
   private static final String WEIGHT_COL = "weights";
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * Time after which the skeletons are reloaded from backends without native pose search.
+   */
+  private static final long INDEX_EXPIRATION_MINUTES = 10;
+
   private static PoseDetector detector;
 
+  /**
+   * The {@link PoseIndex} of every entity and backend, shared by all instances since retrievers are instantiated per query. Entries are invalidated whenever skeletons are written or the entity is dropped.
+   */
+  private static final Cache<IndexKey, PoseIndex> INDEXES = CacheBuilder.newBuilder().expireAfterWrite(INDEX_EXPIRATION_MINUTES, TimeUnit.MINUTES).build();
+
   public SkeletonPose() {
     super("features_skeletonpose", (float) (16 * Math.PI), 12);
   }
@@ -130,6 +145,20 @@ public void persist(Collection<Pair<String, Skeleton>> skeletons) {
       tuples.add(this.phandler.generateTuple(skeleton.first, i++, pair.first, pair.second));
     }
     this.phandler.persist(tuples);
+    invalidateIndex(this.tableName);
+  }
+
+  @Override
+  public void dropPersistentLayer(Supplier<EntityCreator> supply) {
+    super.dropPersistentLayer(supply);
+    invalidateIndex(this.tableName);
+  }
+
+  /**
+   * Invalidates the {@link PoseIndex} of the given entity for all backends.
+   */
+  private static void invalidateIndex(String entity) {
+    INDEXES.asMap().keySet().removeIf(key -> key.entity().equals(entity));
   }
 
   private synchronized static void initializeDetector() {
@@ -159,6 +188,9 @@ public void processSegment(SegmentContainer segmentContainer) {
     this.persist(detectSkeletons(representativeFrame.getImage()).stream().map(it -> new Pair<>(segmentContainer.getId(), it)).collect(Collectors.toList()));
   }
 
+  /**
+   * Retrieves the segments whose skeletons match the skeletons of the query. The skeletons of a multi-person query are matched in parallel. With Cottontail DB, the distance is evaluated by the database; with any other backend, it is evaluated by a {@link PoseIndex} over all persisted skeletons.
+   */
   @Override
   public List<ScoreElement> getSimilar(SegmentContainer sc, ReadableQueryConfig qc) {
 
@@ -168,97 +200,57 @@ public List<ScoreElement> getSimilar(SegmentContainer sc, ReadableQueryConfig qc
       return Collections.emptyList();
     }
 
-    if (!(this.selector instanceof CottontailSelector)) {
-      return Collections.emptyList();
-    }
-
-    SimpleClient client = ((CottontailSelector) this.selector).getWrapper().client;
-
-    HashMap<String, ObjectDoubleHashMap<Pair<Integer, Integer>>> segmentDistancesMap = new HashMap<>(qc.getRawResultsPerModule() * skeletons.size());
-
-    int queryPersonId = 0;
-
-    //query all skeletons
-    for (Skeleton skeleton : skeletons) {
-
-      Pair<float[], float[]> pair = getAnglesAndWeights(skeleton);
-      TupleIterator tuples = client.query(buildQuery(pair.first, pair.second, qc.getRawResultsPerModule()));
-
-      while (tuples.hasNext()) {
-        Tuple tuple = tuples.next();
-
-        String segment = tuple.asString(GENERIC_ID_COLUMN_QUALIFIER);
-
-        if (!segmentDistancesMap.containsKey(segment)) {
-          segmentDistancesMap.put(segment, new ObjectDoubleHashMap<>());
-        }
-
-        segmentDistancesMap.get(segment).put(new Pair<>(queryPersonId, tuple.asInt(PERSON_ID_COL)), tuple.asFloat(DB_DISTANCE_VALUE_QUALIFIER));
-
-      }
-
-      ++queryPersonId;
+    List<Pair<float[], float[]>> queries = skeletons.stream().map(this::getAnglesAndWeights).collect(Collectors.toList());
+    int limit = qc.getRawResultsPerModule();
 
+    List<PoseMatches> matches;
+    if (this.selector instanceof CottontailSelector) {
+      SimpleClient client = ((CottontailSelector) this.selector).getWrapper().client;
+      matches = queries.parallelStream().map(q -> this.queryCottontail(client, q.first, q.second, limit)).collect(Collectors.toList());
+    } else {
+      PoseIndex index = this.index();
+      matches = queries.parallelStream().map(q -> index.nearest(q.first, q.second, limit)).collect(Collectors.toList());
     }
 
-    ArrayList<ScoreElement> results = new ArrayList<>(segmentDistancesMap.size());
+    return PoseMatches.score(matches, this.maxDist, this.correspondence, qc.getResultsPerModule());
+  }
 
-    //compute assignment
-    if (queryPersonId == 1) { //only one query skeleton
-      for (String segment : segmentDistancesMap.keySet()) {
-        ObjectDoubleHashMap<Pair<Integer, Integer>> distances = segmentDistancesMap.get(segment);
-        double minDist = StreamSupport.stream(distances.values().spliterator(), false).mapToDouble(x -> x.value).min().orElse(Double.MAX_VALUE);
-        results.add(new SegmentScoreElement(segment, this.correspondence.applyAsDouble(minDist)));
-      }
-      results.sort(SegmentScoreElement.SCORE_COMPARATOR.reversed());
-      return results.subList(0, Math.min(results.size(), qc.getResultsPerModule()) - 1);
+  private PoseMatches queryCottontail(SimpleClient client, float[] angles, float[] weights, int limit) {
+    TupleIterator tuples = client.query(buildQuery(angles, weights, limit));
+    List<String> segments = new ArrayList<>(limit);
+    IntArrayList persons = new IntArrayList(limit);
+    DoubleArrayList distances = new DoubleArrayList(limit);
+    while (tuples.hasNext()) {
+      Tuple tuple = tuples.next();
+      segments.add(tuple.asString(GENERIC_ID_COLUMN_QUALIFIER));
+      persons.add(tuple.asInt(PERSON_ID_COL));
+      distances.add(tuple.asFloat(DB_DISTANCE_VALUE_QUALIFIER));
     }
+    return new PoseMatches(segments.toArray(new String[0]), persons.toArray(), distances.toArray());
+  }
 
-    //more than query skeleton
-    for (String segment : segmentDistancesMap.keySet()) {
-
-      ObjectDoubleHashMap<Pair<Integer, Integer>> distances = segmentDistancesMap.get(segment);
-
-      if (distances.isEmpty()) {
-        continue; //should never happen
-      }
-
-      Set<Integer> personIds = StreamSupport.stream(distances.keys().spliterator(), false).map(p -> p.value.second).collect(Collectors.toSet());
-
-      if (personIds.size() == 1) { //only one retrieved skeleton
-        double minDist = StreamSupport.stream(distances.values().spliterator(), false).mapToDouble(x -> x.value).min().orElse(Double.MAX_VALUE);
-        results.add(new SegmentScoreElement(segment, this.correspondence.applyAsDouble(minDist) / skeletons.size()));
-        continue;
-      }
-
-      //more than one retrieved skeletons
-
-      double[][] costs = new double[skeletons.size()][personIds.size()];
-      IntIntHashMap inversePersonIdMapping = new IntIntHashMap(personIds.size());
-      int i = 0;
-      for (int personId : personIds) {
-        inversePersonIdMapping.put(personId, i++);
-      }
-
-      for (ObjectCursor<Pair<Integer, Integer>> pairObjectCursor : distances.keys()) {
-        Pair<Integer, Integer> p = pairObjectCursor.value;
-        costs[p.first][inversePersonIdMapping.get(p.second)] = -distances.get(p);
-      }
-
-      HungarianAlgorithm hungarianAlgorithm = new HungarianAlgorithm(costs);
-      int[] assignment = hungarianAlgorithm.execute();
-
-      double scoreSum = 0;
-
-      for (i = 0; i < Math.min(personIds.size(), skeletons.size()); ++i) {
-        scoreSum += this.correspondence.applyAsDouble(-costs[i][assignment[i]]);
+  /**
+   * Returns the {@link PoseIndex} of this feature's entity, loading it through this instance's selector if necessary.
+   */
+  private PoseIndex index() {
+    try {
+      return INDEXES.get(new IndexKey(this.selector.getClass().getName(), this.tableName), this::loadIndex);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
       }
-
-      results.add(new SegmentScoreElement(segment, scoreSum / skeletons.size()));
-
+      throw new IllegalStateException("Could not load skeletons of " + this.tableName + ".", e.getCause());
     }
+  }
 
-    return results;
+  /**
+   * Loads all persisted skeletons into a {@link PoseIndex}.
+   */
+  private PoseIndex loadIndex() {
+    StopWatch watch = StopWatch.createStarted();
+    PoseIndex index = PoseIndex.of(this.selector.getAll(Arrays.asList(GENERIC_ID_COLUMN_QUALIFIER, PERSON_ID_COL, FEATURE_COL, WEIGHT_COL), -1), this.vectorLength, GENERIC_ID_COLUMN_QUALIFIER, PERSON_ID_COL, FEATURE_COL, WEIGHT_COL);
+    LOGGER.debug("Loaded {} skeletons of {} in {} ms.", index.size(), this.tableName, watch.getTime());
+    return index;
   }
 
   private Pair<float[], float[]> getAnglesAndWeights(Skeleton skeleton) {
@@ -377,4 +369,8 @@ private CottontailGrpc.QueryMessage buildQuery(float[] query, float[] weights, i
         ).setLimit(limit)).build();
   }
 
+
+  private record IndexKey(String backend, String entity) {
+
+  }
 }
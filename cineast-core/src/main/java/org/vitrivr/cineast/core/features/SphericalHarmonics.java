@@ -2,8 +2,6 @@
 
 import java.util.ArrayList;
 import java.util.List;
-import org.apache.commons.math3.complex.Complex;
-import org.apache.commons.math3.util.FastMath;
 import org.vitrivr.cineast.core.config.ReadableQueryConfig;
 import org.vitrivr.cineast.core.data.CorrespondenceFunction;
 import org.vitrivr.cineast.core.data.FloatVectorImpl;
@@ -14,8 +12,7 @@
 import org.vitrivr.cineast.core.data.score.ScoreElement;
 import org.vitrivr.cineast.core.data.segments.SegmentContainer;
 import org.vitrivr.cineast.core.features.abstracts.StagedFeatureModule;
-import org.vitrivr.cineast.core.util.math.MathHelper;
-import org.vitrivr.cineast.core.util.math.functions.SphericalHarmonicsFunction;
+import org.vitrivr.cineast.core.util.mesh.SphericalHarmonicsEngine;
 
 /**
  * An Extraction and Retrieval module for 3D models that leverages Spherical Harmonics as proposed in [1].
@@ -32,11 +29,10 @@ public abstract class SphericalHarmonics extends StagedFeatureModule {
   /* Size of the Voxel Grid in each of the three dimensions. */
   private final int grid_size;
 
-  /* The maximum harmonic to consider for the feature vector. */
-  private final int min_l;
-
-  /* The maximum harmonic to consider for the feature vector. */
-  private final int max_l;
+  /**
+   * Shared {@link SphericalHarmonicsEngine} holding the precomputed basis for grid_size, min_l and max_l.
+   */
+  private final SphericalHarmonicsEngine engine;
 
   /**
    * Constructor for SphericalHarmonics feature module.
@@ -46,10 +42,9 @@ public abstract class SphericalHarmonics extends StagedFeatureModule {
    * @param max_l     Maximum harmonic l to consider for feature vector.
    */
   public SphericalHarmonics(String name, int grid_size, int min_l, int max_l) {
-    super(name, 2.0f, (grid_size / 2 - 10) * (SphericalHarmonicsFunction.numberOfCoefficients(max_l, true) - SphericalHarmonicsFunction.numberOfCoefficients(min_l - 1, true)));
+    super(name, 2.0f, SphericalHarmonicsEngine.descriptorLength(grid_size, min_l, max_l));
     this.grid_size = grid_size;
-    this.min_l = min_l;
-    this.max_l = max_l;
+    this.engine = SphericalHarmonicsEngine.getInstance(grid_size, min_l, max_l);
     this.voxelizer = new Voxelizer(2.0f / grid_size);
   }
 
@@ -116,75 +111,12 @@ protected List<ScoreElement> postprocessQuery(List<SegmentDistanceElement> parti
    * Now for l = 0 to l = 4 (m = -l to +l), the projection of the function f(x,y,z) onto the SphericalHarmonic function Zlm (i.e. the integral  ∫f(ϑ,ϼ)Zlm(ϑ,ϼ)dϴdϑ) is calculated. This is done for all of the seven radii. This yields 25 descriptors per radius which results in a feature vector of 7 * 25 entries.
    * <p>
    * Depending on the model, the first components may be 0.0 because the surface of the sphere defined by the radius only touches empty space (i.e the hollow interior of the model).
+   * <p>
+   * The actual calculation is delegated to the {@link SphericalHarmonicsEngine}, which tabulates Zlm and the sampled voxels once per configuration.
    */
   private float[] featureVectorFromMesh(ReadableMesh mesh) {
-    final float increment = 0.1f; /* Increment of the angles during calculation of the descriptors. */
-    final int cap = 10; /* Cap on R (i.e. radii up to R-cap are considered). */
-    final int R = this.grid_size / 2;
-    final int numberOfCoefficients = SphericalHarmonicsFunction.numberOfCoefficients(this.max_l, true) - SphericalHarmonicsFunction.numberOfCoefficients(this.min_l - 1, true);
-
-    /* Prepares an empty array for the feature vector. */
-    float[] feature = new float[(R - cap) * numberOfCoefficients];
-
-    /* Voxelizes the grid from the mesh. If the resulting grid is invisible, the method returns immediately. */
+    /* Voxelizes the grid from the mesh. If the resulting grid is invisible, an empty feature vector is returned. */
     VoxelGrid grid = this.voxelizer.voxelize(mesh, this.grid_size + 1, this.grid_size + 1, this.grid_size + 1);
-    if (!grid.isVisible()) {
-      return feature;
-    }
-
-    List<List<Complex>> descriptors = new ArrayList<>();
-
-    /*
-     * Outer-loops; iterate from l=0 to 5 and m=-l to +l. For each combination, a new SphericalHarmonicsFunction is
-     * created.
-     */
-    for (int l = this.min_l; l <= this.max_l; l++) {
-      for (int m = 0; m <= l; m++) {
-
-        final SphericalHarmonicsFunction fkt = new SphericalHarmonicsFunction(l, m);
-
-        /*
-         * Middle-loop; Iterate over the 7 radii.
-         */
-        for (int r = 0; r < R - cap; r++) {
-          /* Allocate array list for radius. */
-          if (descriptors.size() <= r) {
-            descriptors.add(new ArrayList<>());
-          }
-          List<Complex> list = descriptors.get(r);
-
-          Complex result = new Complex(0.0);
-
-          /*
-           * Used to calculate the projections at radius r for l and m (i.e. the integral ∫f(ϑ,ϼ)Zlm(ϑ,ϼ)dϴdϑ)
-           */
-          for (float theta = 0.0f; theta <= 2 * Math.PI; theta += increment) {
-            for (float phi = 0.0f; phi <= Math.PI; phi += increment) {
-              int x = (int) ((r + 1) * FastMath.sin(theta) * FastMath.cos(phi)) + R;
-              int y = (int) ((r + 1) * FastMath.cos(theta)) + R;
-              int z = (int) ((r + 1) * FastMath.sin(theta) * FastMath.sin(phi)) + R;
-
-              if (grid.isVisible(x, y, z)) {
-                result = result.add(fkt.value(theta, phi).conjugate().multiply(increment * increment));
-              }
-            }
-          }
-
-          list.add(result);
-        }
-      }
-    }
-
-    /* Assembles the actual feature vector. */
-    int i = 0;
-    for (List<Complex> radius : descriptors) {
-      for (Complex descriptor : radius) {
-        feature[i] = (float) descriptor.abs();
-        i++;
-      }
-    }
-
-    /* Returns the normalized vector. */
-    return MathHelper.normalizeL2(feature);
+    return this.engine.describe(grid);
   }
 }
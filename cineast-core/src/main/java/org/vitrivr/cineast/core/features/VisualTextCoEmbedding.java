@@ -36,6 +36,7 @@
 import org.vitrivr.cineast.core.render.lwjgl.window.WindowOptions;
 import org.vitrivr.cineast.core.util.KMeansPP;
 import org.vitrivr.cineast.core.util.math.MathHelper;
+import org.vitrivr.cineast.core.util.text.TextEmbeddingCache;
 import org.vitrivr.cineast.core.util.texturemodel.Viewpoint.ViewpointHelper;
 import org.vitrivr.cineast.core.util.texturemodel.Viewpoint.ViewpointStrategy;
 ;
@@ -145,7 +146,7 @@ public List<ScoreElement> getSimilar(SegmentContainer sc, ReadableQueryConfig qc
     if (!sc.getText().isEmpty()) {
       String text = sc.getText();
       LOGGER.debug("Retrieving with TEXT: " + text);
-      float[] embeddingArray = embedText(text);
+      float[] embeddingArray = TextEmbeddingCache.getInstance().get(TABLE_NAME, text, this::embedText);
 
       return getSimilar(embeddingArray, queryConfig);
     }
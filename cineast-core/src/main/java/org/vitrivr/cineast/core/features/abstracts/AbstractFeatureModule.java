@@ -21,12 +21,12 @@
 import org.vitrivr.cineast.core.data.providers.primitive.FloatArrayProvider;
 import org.vitrivr.cineast.core.data.providers.primitive.FloatArrayTypeProvider;
 import org.vitrivr.cineast.core.data.providers.primitive.PrimitiveTypeProvider;
-import org.vitrivr.cineast.core.data.providers.primitive.StringTypeProvider;
 import org.vitrivr.cineast.core.data.score.ScoreElement;
 import org.vitrivr.cineast.core.db.DBSelector;
 import org.vitrivr.cineast.core.db.DBSelectorSupplier;
 import org.vitrivr.cineast.core.db.PersistencyWriter;
 import org.vitrivr.cineast.core.db.PersistencyWriterSupplier;
+import org.vitrivr.cineast.core.db.dao.reader.FeatureVectorCache;
 import org.vitrivr.cineast.core.db.dao.writer.PrimitiveTypeProviderFeatureDescriptorWriter;
 import org.vitrivr.cineast.core.db.dao.writer.SimpleFeatureDescriptorWriter;
 import org.vitrivr.cineast.core.db.setup.EntityCreator;
@@ -94,7 +94,7 @@ protected ReadableQueryConfig setQueryConfig(ReadableQueryConfig qc) {
 
   @Override
   public List<ScoreElement> getSimilar(String segmentId, ReadableQueryConfig qc) {
-    List<PrimitiveTypeProvider> list = this.selector.getFeatureVectorsGeneric(GENERIC_ID_COLUMN_QUALIFIER, new StringTypeProvider(segmentId), FEATURE_COLUMN_QUALIFIER, qc);
+    List<PrimitiveTypeProvider> list = FeatureVectorCache.getInstance().getFeatureVectors(this.selector, this.tableName, segmentId, qc);
     if (list.isEmpty()) {
       LOGGER.warn("No feature vector for shotId {} found, returning empty result-list", segmentId);
       return new ArrayList<>(0);
@@ -171,5 +171,6 @@ public void initalizePersistentLayer(Supplier<EntityCreator> supply) {
   @Override
   public void dropPersistentLayer(Supplier<EntityCreator> supply) {
     supply.get().dropEntity(this.tableName);
+    FeatureVectorCache.getInstance().invalidateEntity(this.tableName);
   }
 }
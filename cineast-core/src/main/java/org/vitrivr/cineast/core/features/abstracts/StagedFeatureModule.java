@@ -1,17 +1,18 @@
 package org.vitrivr.cineast.core.features.abstracts;
 
 import static org.vitrivr.cineast.core.util.CineastConstants.FEATURE_COLUMN_QUALIFIER;
-import static org.vitrivr.cineast.core.util.CineastConstants.GENERIC_ID_COLUMN_QUALIFIER;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.vitrivr.cineast.core.config.QueryConfig;
 import org.vitrivr.cineast.core.config.ReadableQueryConfig;
 import org.vitrivr.cineast.core.data.distance.SegmentDistanceElement;
-import org.vitrivr.cineast.core.data.providers.primitive.StringTypeProvider;
+import org.vitrivr.cineast.core.data.providers.primitive.PrimitiveTypeProvider;
 import org.vitrivr.cineast.core.data.score.ScoreElement;
 import org.vitrivr.cineast.core.data.segments.SegmentContainer;
+import org.vitrivr.cineast.core.db.dao.reader.FeatureVectorCache;
 
 /**
  * This implementation of the AbstractFeatureModule executes every query, either based on a SegmentContainer or on an existing segment, in three stages. This for in-depth analysis and benchmarking of the different stages as well as a unified approach to similarity search.
@@ -95,7 +96,7 @@ public List<ScoreElement> getSimilar(String segmentId, ReadableQueryConfig qc) {
     QueryConfig qcc = this.defaultQueryConfig(qc);
 
     /* Lookup features. */
-    List<float[]> features = this.selector.getFeatureVectors(GENERIC_ID_COLUMN_QUALIFIER, new StringTypeProvider(segmentId), FEATURE_COLUMN_QUALIFIER, qc);
+    List<float[]> features = FeatureVectorCache.getInstance().getFeatureVectors(this.selector, this.tableName, segmentId, qc).stream().map(PrimitiveTypeProvider::getSafeFloatArray).collect(Collectors.toList());
     if (features.isEmpty()) {
       LOGGER.warn("No features could be fetched for the provided segmentId '{}'. Aborting query execution...", segmentId);
       return new ArrayList<>(0);
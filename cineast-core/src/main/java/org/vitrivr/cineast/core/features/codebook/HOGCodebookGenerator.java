@@ -4,7 +4,7 @@
 import boofcv.struct.feature.TupleDesc_F64;
 import boofcv.struct.image.GrayU8;
 import java.awt.image.BufferedImage;
-import org.ddogleg.clustering.FactoryClustering;
+import org.vitrivr.cineast.core.util.clustering.KMeans;
 import org.vitrivr.cineast.core.util.images.HOGHelper;
 
 
@@ -22,7 +22,7 @@ public HOGCodebookGenerator() {
    */
   @Override
   protected void init() {
-    this.clusterer = FactoryClustering.kMeans_F64(null, 200, 20, 1e-7);
+    this.clusterer = new KMeans().maxIterations(200).tolerance(1e-7);
   }
 
   /**
@@ -34,7 +34,7 @@ protected void init() {
   protected void process(BufferedImage content) {
     DescribeImageDense<GrayU8, TupleDesc_F64> hog = HOGHelper.getHOGDescriptors(content);
     for (TupleDesc_F64 desc : hog.getDescriptions()) {
-      this.cluster.addReference(desc);
+      this.addDescriptor(desc);
     }
   }
 }
@@ -1,18 +1,21 @@
 package org.vitrivr.cineast.core.features.codebook;
 
-import boofcv.alg.bow.ClusterVisualWords;
 import boofcv.io.UtilIO;
+import boofcv.struct.feature.TupleDesc_F64;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.activation.MimetypesFileTypeMap;
-import org.ddogleg.clustering.ComputeClusters;
+import org.ddogleg.clustering.kmeans.AssignKMeans_F64;
 import org.vitrivr.cineast.core.extraction.decode.general.Decoder;
 import org.vitrivr.cineast.core.extraction.decode.image.DefaultImageDecoder;
+import org.vitrivr.cineast.core.util.clustering.KMeans;
+import org.vitrivr.cineast.core.util.clustering.KMeansResult;
 
 /**
  * Default implementation of a Codebook generator for images. Extend and add the details like the images to use.
@@ -22,12 +25,27 @@ public abstract class ImageCodebookGenerator implements CodebookGenerator {
   /**
    * K-Means clusterer used for the clustering step in the Codebook generation.
    */
-  protected ComputeClusters<double[]> clusterer;
+  protected KMeans clusterer;
 
   /**
-   * The visual words cluster.
+   * Size of the input vectors (that are getting clustered).
    */
-  protected ClusterVisualWords cluster;
+  private final int vectorsize;
+
+  /**
+   * true if the clusterer should print output about its progress.
+   */
+  private final boolean verbose;
+
+  /**
+   * Row-major matrix of the descriptors collected so far.
+   */
+  private float[] descriptors;
+
+  /**
+   * Number of descriptors collected so far.
+   */
+  private int count = 0;
 
   /**
    * Default constructor.
@@ -37,8 +55,17 @@ public abstract class ImageCodebookGenerator implements CodebookGenerator {
    */
   public ImageCodebookGenerator(int vectorsize, boolean verbose) {
     this.init();
-    this.clusterer.setVerbose(verbose);
-    this.cluster = new ClusterVisualWords(clusterer, vectorsize, 0xA1CF3B12);
+    this.clusterer.seed(0xA1CF3B12);
+    this.vectorsize = vectorsize;
+    this.verbose = verbose;
+    this.descriptors = new float[vectorsize * 1024];
+  }
+
+  /**
+   * Sets the number of descriptors per mini-batch of the k-means clustering, or 0 to cluster all descriptors in every iteration.
+   */
+  public void setMiniBatchSize(int batchSize) {
+    this.clusterer.miniBatch(batchSize);
   }
 
   @Override
@@ -98,11 +125,16 @@ public void generate(Path source, Path destination, int words) throws IOExceptio
 
     /* Start clustering.*/
     System.out.println(String.format("\nClustering... this could take a while."));
-    this.cluster.process(words);
+    final KMeansResult result = this.clusterer.fit(this.descriptors, this.count, this.vectorsize, words);
+    if (this.verbose) {
+      System.out.println(String.format("Clustered %d vectors in %d iterations (sum of squared distances: %.4f).", this.count, result.getIterations(), result.getInertia()));
+    }
+    this.descriptors = new float[this.vectorsize * 1024];
+    this.count = 0;
 
     /* Save file...*/
     System.out.println(String.format("Saving vocabulary with %d entries.", words));
-    UtilIO.save(this.cluster.getAssignment(), destination.toString());
+    UtilIO.save(new AssignKMeans_F64(result.getCentroidsAsDoubles()), destination.toString());
 
     long duration = System.currentTimeMillis() - start;
     System.out.println(String.format("Done! Took me %dhours %dmin %dsec", TimeUnit.MILLISECONDS.toHours(duration), TimeUnit.MILLISECONDS.toMinutes(duration), TimeUnit.MILLISECONDS.toSeconds(duration)));
@@ -125,6 +157,26 @@ private void updateProgressBar(char[] progressBar, int max, int counter) {
     }
   }
 
+  /**
+   * Adds a descriptor to the vectors that are getting clustered.
+   *
+   * @param descriptor Descriptor of size vectorsize.
+   */
+  protected void addDescriptor(TupleDesc_F64 descriptor) {
+    if ((long) (this.count + 1) * this.vectorsize > this.descriptors.length) {
+      final long length = 2L * this.descriptors.length;
+      if (length > Integer.MAX_VALUE - 8) {
+        throw new IllegalStateException(String.format("Cannot cluster more than %d vectors.", this.count));
+      }
+      this.descriptors = Arrays.copyOf(this.descriptors, (int) length);
+    }
+    final int offset = this.count * this.vectorsize;
+    for (int i = 0; i < this.vectorsize; i++) {
+      this.descriptors[offset + i] = (float) descriptor.value[i];
+    }
+    this.count++;
+  }
+
   /**
    * Processes the content (i.e. creates descriptors) and add the generated descriptors to the cluster.
    *
@@ -4,7 +4,7 @@
 import boofcv.struct.feature.BrightFeature;
 import boofcv.struct.image.GrayF32;
 import java.awt.image.BufferedImage;
-import org.ddogleg.clustering.FactoryClustering;
+import org.vitrivr.cineast.core.util.clustering.KMeans;
 import org.vitrivr.cineast.core.util.images.SURFHelper;
 
 
@@ -22,7 +22,7 @@ public SURFCodebookGenerator() {
    */
   @Override
   protected void init() {
-    this.clusterer = FactoryClustering.kMeans_F64(null, 200, 20, 1e-7);
+    this.clusterer = new KMeans().maxIterations(200).tolerance(1e-7);
   }
 
   /**
@@ -34,7 +34,7 @@ protected void init() {
   protected void process(BufferedImage content) {
     DetectDescribePoint<GrayF32, BrightFeature> surf = SURFHelper.getFastSurf(content);
     for (int i = 0; i < surf.getNumberOfFeatures(); i++) {
-      this.cluster.addReference(surf.getDescription(i));
+      this.addDescriptor(surf.getDescription(i));
     }
   }
 }
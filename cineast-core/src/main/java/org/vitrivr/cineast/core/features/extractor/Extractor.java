@@ -11,4 +11,13 @@ public interface Extractor extends PersistentOperator {
   void processSegment(SegmentContainer shot);
 
   void finish();
+
+  /**
+   * Indicates whether {@link #processSegment(SegmentContainer)} may be invoked concurrently on this instance. The extraction pipeline never runs an extractor that is not thread-safe on more than one thread at a time.
+   *
+   * @return True if the extractor is thread-safe, false otherwise.
+   */
+  default boolean isThreadSafe() {
+    return true;
+  }
 }
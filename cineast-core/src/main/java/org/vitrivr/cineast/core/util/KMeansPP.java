@@ -1,10 +1,13 @@
 package org.vitrivr.cineast.core.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.vitrivr.cineast.core.data.FloatVector;
 import org.vitrivr.cineast.core.data.FloatVectorImpl;
 import org.vitrivr.cineast.core.data.ReadableFloatVector;
@@ -17,15 +20,29 @@ private KMeansPP() {
   }
 
   /**
-   * performs {@link KMeansPP} runs times and returns the result with the minimal overall distance
+   * Minimum number of elements for which runs and assignment steps are parallelised.
+   */
+  private static final int PARALLEL_THRESHOLD = 4096;
+
+  /**
+   * performs {@link KMeansPP} runs times and returns the result with the minimal overall distance. For large inputs, the runs are executed in parallel; the result is the same as for sequential runs.
    */
   public static <T extends ReadableFloatVector> KMenasResult<T> bestOfkMeansPP(
       List<T> elements, FloatVector helper, int k, double minDist, int runs) {
+    final long[] seeds = new long[runs];
+    for (int i = 0; i < runs; ++i) {
+      seeds[i] = random.nextLong();
+    }
+    final int dim = dimension(elements);
+    final float[] data = flatten(elements, dim);
+    IntStream range = IntStream.range(0, runs);
+    if (elements.size() >= PARALLEL_THRESHOLD) {
+      range = range.parallel();
+    }
+    final List<KMenasResult<T>> results = range.mapToObj(i -> kMeansPP(elements, data, dim, k, minDist, seeds[i])).collect(Collectors.toList());
     double bestDist = Double.POSITIVE_INFINITY;
     KMenasResult<T> _return = null;
-    for (int i = 0; i < runs; ++i) {
-      KMenasResult<T> result = kMeansPP(elements, helper, k, minDist,
-          random.nextLong());
+    for (KMenasResult<T> result : results) {
       if (result.getDistance() < bestDist) {
         _return = result;
         bestDist = _return.getDistance();
@@ -40,51 +57,81 @@ public static <T extends FloatVector> KMenasResult<T> kMeansPP(
     return kMeansPP(elements, helper, k, minDist, 3914511920l);
   }
 
+  /**
+   * All elements are expected to have the same number of elements; the helper is not used anymore and only kept for compatibility.
+   */
   public static <T extends ReadableFloatVector> KMenasResult<T> kMeansPP(
       List<T> elements, FloatVector helper, int k, double minDist, long randomSeed) {
+    final int dim = dimension(elements);
+    return kMeansPP(elements, flatten(elements, dim), dim, k, minDist, randomSeed);
+  }
+
+  private static <T extends ReadableFloatVector> KMenasResult<T> kMeansPP(
+      List<T> elements, float[] data, int dim, int k, double minDist, long randomSeed) {
+    final int n = elements.size();
+
     // init centers
-    ArrayList<FloatVector> centers = getSeeds(elements, k, randomSeed);
+    final int count = n == 0 ? 0 : k;
+    final float[] centers = getSeeds(data, n, dim, k, randomSeed);
 
-    // init clusters
-    ArrayList<ArrayList<T>> points = new ArrayList<ArrayList<T>>(k);
-    for (int i = 0; i < k; ++i) {
-      points.add(new ArrayList<T>(elements.size() / 2));
-    }
+    final int[] assignment = new int[n];
+    final float[] mean = new float[dim];
     int iter = 0, maxIter = 50;
     double dist = 0;
     do {
-      for (int i = 0; i < k; ++i) {
-        points.get(i).clear();
+      IntStream range = IntStream.range(0, n);
+      if (n >= PARALLEL_THRESHOLD) {
+        range = range.parallel();
       }
-
-      for (T element : elements) {
-        int j = 0;
-        double min = ReadableFloatVector.getEuclideanDistance(element, centers.get(0));
-        for (int i = 1; i < centers.size(); ++i) {
-          double d = ReadableFloatVector.getEuclideanDistance(element, centers.get(i));
+      range.forEach(j -> {
+        int nearest = 0;
+        double min = distance(data, j * dim, centers, 0, dim);
+        for (int i = 1; i < count; ++i) {
+          double d = distance(data, j * dim, centers, i * dim, dim);
           if (d < min) {
             min = d;
-            j = i;
+            nearest = i;
           }
         }
-        points.get(j).add(element);
+        assignment[j] = nearest;
+      });
+
+      // sum up in the order of the elements, as ColorUtils.getAvg() would
+      final double[] sums = new double[count * dim];
+      final int[] sizes = new int[count];
+      for (int j = 0; j < n; ++j) {
+        sizes[assignment[j]]++;
+        for (int l = 0, o = assignment[j] * dim, r = j * dim; l < dim; ++l) {
+          sums[o + l] += data[r + l];
+        }
       }
 
       dist = 0;
-      for (int i = 0; i < centers.size(); ++i) {
-        helper = ColorUtils.getAvg(points.get(i), helper);
-        FloatVector center = centers.get(i);
-        dist += ReadableFloatVector.getEuclideanDistance(helper, center);
-        for (int j = 0; j < center.getElementCount(); ++j) {
-          center.setElement(j, helper.getElement(j));
+      for (int i = 0; i < count; ++i) {
+        for (int l = 0; l < dim; ++l) {
+          mean[l] = sizes[i] == 0 ? 0f : (float) (sums[i * dim + l] / sizes[i]);
         }
-        centers.set(i, center);
+        dist += distance(mean, 0, centers, i * dim, dim);
+        System.arraycopy(mean, 0, centers, i * dim, dim);
       }
       ++iter;
     } while (dist > minDist && iter < maxIter);
 
+    // init clusters
+    ArrayList<ArrayList<T>> points = new ArrayList<ArrayList<T>>(k);
+    for (int i = 0; i < k; ++i) {
+      points.add(new ArrayList<T>(n / 2));
+    }
+    for (int j = 0; j < n; ++j) {
+      points.get(assignment[j]).add(elements.get(j));
+    }
+    ArrayList<FloatVector> _centers = new ArrayList<FloatVector>(count);
+    for (int i = 0; i < count; ++i) {
+      _centers.add(new FloatVectorImpl(Arrays.copyOfRange(centers, i * dim, (i + 1) * dim)));
+    }
+
     KMenasResult<T> result = new KMenasResult<T>(k);
-    result.setCenters(centers);
+    result.setCenters(_centers);
     result.setPoints(points);
     result.sort();
 
@@ -93,27 +140,32 @@ public static <T extends ReadableFloatVector> KMenasResult<T> kMeansPP(
 
   // k-means++ part inspired by
   // http://rosettacode.org/wiki/K-means%2B%2B_clustering#Go
-  private static <T extends ReadableFloatVector> ArrayList<FloatVector> getSeeds(
-      List<T> elements, int k, long randomSeed) {
+  private static float[] getSeeds(float[] data, int n, int dim, int k, long randomSeed) {
     Random rand = new Random(randomSeed);
-    ArrayList<FloatVector> _return = new ArrayList<FloatVector>(k);
-    if (elements.isEmpty()) {
-      return _return;
+    if (n == 0) {
+      return new float[0];
     }
-    int j = rand.nextInt(elements.size());
-    _return.add(copyVector(elements.get(j)));
+    float[] _return = new float[k * dim];
+    int j = rand.nextInt(n);
+    System.arraycopy(data, j * dim, _return, 0, dim);
 
-    double[] distances = new double[elements.size()];
+    double[] dMin = new double[n];
+    double[] distances = new double[n];
+    Arrays.fill(dMin, Double.POSITIVE_INFINITY);
 
     for (int i = 1; i < k; ++i) {
+      final int previous = (i - 1) * dim;
+      IntStream range = IntStream.range(0, n);
+      if (n >= PARALLEL_THRESHOLD) {
+        range = range.parallel();
+      }
+      range.forEach(l -> {
+        dMin[l] = Math.min(dMin[l], distance(_return, previous, data, l * dim, dim));
+        distances[l] = dMin[l] * dMin[l];
+      });
+
       double sum = 0;
       for (j = 0; j < distances.length; ++j) {
-        double dMin = Double.POSITIVE_INFINITY;
-        for (int ii = 0; ii < i; ++ii) {
-          dMin = Math.min(dMin,
-              ReadableFloatVector.getEuclideanDistance(_return.get(ii), elements.get(j)));
-        }
-        distances[j] = dMin * dMin;
         sum += distances[j];
       }
 
@@ -122,18 +174,37 @@ private static <T extends ReadableFloatVector> ArrayList<FloatVector> getSeeds(
       for (sum = distances[0]; sum < target; sum += distances[j]) {
         ++j;
       }
-      _return.add(copyVector(elements.get(j)));
+      System.arraycopy(data, j * dim, _return, i * dim, dim);
     }
 
     return _return;
   }
 
-  private static final FloatVector copyVector(ReadableFloatVector v) {
-    FloatVectorImpl _return = new FloatVectorImpl();
-    for (int i = 0; i < v.getElementCount(); ++i) {
-      _return.add(v.getElement(i));
+  /**
+   * Same as {@link ReadableFloatVector#getEuclideanDistance(ReadableFloatVector, ReadableFloatVector)} on rows of flat arrays.
+   */
+  private static double distance(float[] first, int firstOffset, float[] second, int secondOffset, int len) {
+    double sum = 0d;
+    for (int i = 0; i < len; ++i) {
+      double diff = first[firstOffset + i] - second[secondOffset + i];
+      sum += diff * diff;
     }
-    return _return;
+    return Math.sqrt(sum);
+  }
+
+  private static int dimension(List<? extends ReadableFloatVector> elements) {
+    return elements.isEmpty() ? 0 : elements.get(0).getElementCount();
+  }
+
+  private static float[] flatten(List<? extends ReadableFloatVector> elements, int dim) {
+    final float[] data = new float[elements.size() * dim];
+    for (int j = 0; j < elements.size(); ++j) {
+      final ReadableFloatVector element = elements.get(j);
+      for (int i = 0; i < dim; ++i) {
+        data[j * dim + i] = element.getElement(i);
+      }
+    }
+    return data;
   }
 
   public static class KMenasResult<T extends ReadableFloatVector> {
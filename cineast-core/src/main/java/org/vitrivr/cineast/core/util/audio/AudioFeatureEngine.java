@@ -0,0 +1,529 @@
+package org.vitrivr.cineast.core.util.audio;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.stat.StatUtils;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathArrays;
+import org.vitrivr.cineast.core.util.dsp.SamplingUtilities;
+import org.vitrivr.cineast.core.util.dsp.fft.FFT;
+import org.vitrivr.cineast.core.util.dsp.fft.FFTUtil;
+import org.vitrivr.cineast.core.util.dsp.fft.STFT;
+import org.vitrivr.cineast.core.util.dsp.fft.Spectrum;
+import org.vitrivr.cineast.core.util.dsp.fft.windows.HanningWindow;
+
+/**
+ * Calculates {@link MFCC}, {@link HPCP} and {@link CENS} features for a whole {@link STFT} at once.
+ * <p>
+ * The mel filter bank and DCT-II matrix of the MFCC and the pitch class weights of the HPCP only depend on the sampling rate, the window size and the parameters of the feature. They are therefore calculated once per configuration as a {@link MelFilterBank} or {@link PitchClassMap} and shared between all invocations. Extraction reads the spectra of all frames straight from the FFT into a [frame][bin] matrix and writes the features into a preallocated [frame][component] matrix, so no {@link Spectrum} or feature object is created per frame.
+ * <p>
+ * The order of all floating point operations is the same as the one of the original, per-spectrum implementation, which is why the resulting features are identical.
+ */
+public final class AudioFeatureEngine {
+
+  /**
+   * Threshold below which spectral peaks are ignored by the HPCP.
+   */
+  private static final double PEAK_THRESHOLD = 1.0e-8;
+
+  /**
+   * Window-size parameter of the HPCP, which defaults to 4/3 semitones as per [1] in {@link HPCP}.
+   */
+  private static final float HPCP_WINDOW = 4f / 3f;
+
+  /**
+   * Cache of mel filter banks, one per (sampling rate, window size, cepstra, mel filters, minimum frequency).
+   */
+  private static final ConcurrentHashMap<MelKey, MelFilterBank> MEL_FILTER_BANKS = new ConcurrentHashMap<>();
+
+  /**
+   * Cache of pitch class maps, one per (sampling rate, window size, resolution, minimum frequency, maximum frequency).
+   */
+  private static final ConcurrentHashMap<PitchKey, PitchClassMap> PITCH_CLASS_MAPS = new ConcurrentHashMap<>();
+
+  /**
+   * Private constructor; this is a pure utility class.
+   */
+  private AudioFeatureEngine() {
+  }
+
+  /**
+   * Returns the shared {@link MelFilterBank} for the provided parameters. The filter bank is created upon first use.
+   *
+   * @param samplingrate The rate at which the original data has been sampled.
+   * @param windowsize   Window size passed to {@link MFCC#calculate(Spectrum, float, int)}, i.e. the number of bins of the spectrum.
+   * @param cepstra      The number of cepstra to obtain for the MFCC feature.
+   * @param melfilters   The number of triangular mel-filters (size of the mel-filter bank).
+   * @param minFrequency Minimum frequency to consider for MFCC feature.
+   * @return {@link MelFilterBank}
+   */
+  public static MelFilterBank melFilterBank(float samplingrate, int windowsize, int cepstra, int melfilters, float minFrequency) {
+    return MEL_FILTER_BANKS.computeIfAbsent(new MelKey(samplingrate, windowsize, cepstra, melfilters, minFrequency), k -> new MelFilterBank(k.samplingrate, k.windowsize, k.cepstra, k.melfilters, k.minFrequency));
+  }
+
+  /**
+   * Returns the shared {@link PitchClassMap} for the spectra of an FFT of the given size. The map is created upon first use.
+   *
+   * @param samplingrate The rate at which the original data has been sampled.
+   * @param windowsize   Size of the FFT window.
+   * @param resolution   Resolution of the HPCP.
+   * @param minFrequency Minimum frequency to consider.
+   * @param maxFrequency Maximum frequency to consider.
+   * @return {@link PitchClassMap}
+   */
+  public static PitchClassMap pitchClassMap(float samplingrate, int windowsize, HPCP.Resolution resolution, float minFrequency, float maxFrequency) {
+    return PITCH_CLASS_MAPS.computeIfAbsent(new PitchKey(samplingrate, windowsize, resolution, minFrequency, maxFrequency), k -> new PitchClassMap(FFTUtil.binCenterFrequencies(k.windowsize, k.samplingrate), k.resolution, k.minFrequency, k.maxFrequency));
+  }
+
+  /**
+   * Returns a {@link PitchClassMap} for a spectrum with the given frequency labels. Uses the shared map if the labels are those of an FFT, as is the case for all spectra obtained from an {@link STFT}.
+   *
+   * @param frequencies  Frequency labels of the spectrum.
+   * @param resolution   Resolution of the HPCP.
+   * @param minFrequency Minimum frequency to consider.
+   * @param maxFrequency Maximum frequency to consider.
+   * @return {@link PitchClassMap}
+   */
+  public static PitchClassMap pitchClassMap(float[] frequencies, HPCP.Resolution resolution, float minFrequency, float maxFrequency) {
+    if (frequencies.length > 0) {
+      final int windowsize = 2 * frequencies.length;
+      final float samplingrate = 2 * frequencies[0] * windowsize;
+      if (Arrays.equals(FFTUtil.binCenterFrequencies(windowsize, samplingrate), frequencies)) {
+        return pitchClassMap(samplingrate, windowsize, resolution, minFrequency, maxFrequency);
+      }
+    }
+    return new PitchClassMap(frequencies, resolution, minFrequency, maxFrequency);
+  }
+
+  /**
+   * Returns the spectra of all frames of a {@link STFT} as a [frame][bin] matrix.
+   *
+   * @param stft STFT to obtain the spectra from.
+   * @param type Type of spectrum, either {@link Spectrum.Type#POWER} or {@link Spectrum.Type#MAGNITUDE}.
+   * @return Matrix of spectra.
+   */
+  public static double[][] spectrogram(STFT stft, Spectrum.Type type) {
+    final double[][] spectrogram = new double[stft.getWidth()][stft.getNumberOfBins()];
+    spectrogram(stft, type, spectrogram);
+    return spectrogram;
+  }
+
+  /**
+   * Writes the spectra of all frames of a {@link STFT} into the provided [frame][bin] matrix, with the same values as {@link Spectrum#createPowerSpectrum} and {@link Spectrum#createMagnitudeSpectrum}.
+   *
+   * @param stft STFT to obtain the spectra from.
+   * @param type Type of spectrum, either {@link Spectrum.Type#POWER} or {@link Spectrum.Type#MAGNITUDE}.
+   * @param out  Matrix with at least one row per frame and one column per bin.
+   */
+  public static void spectrogram(STFT stft, Spectrum.Type type, double[][] out) {
+    final List<FFT> ffts = stft.getStft();
+    if (ffts.isEmpty()) {
+      return;
+    }
+    final int length = ffts.get(0).getValues().length;
+    final double normalizationFactor = length * stft.getWindowFunction().normalization(length);
+    for (int t = 0; t < ffts.size(); t++) {
+      spectrum(ffts.get(t).getValues(), type, normalizationFactor, out[t]);
+    }
+  }
+
+  /**
+   * Writes the spectrum of a single FFT into the provided row, with the same values as {@link Spectrum#createPowerSpectrum} and {@link Spectrum#createMagnitudeSpectrum}.
+   *
+   * @param data                Raw FFT data.
+   * @param type                Type of spectrum, either {@link Spectrum.Type#POWER} or {@link Spectrum.Type#MAGNITUDE}.
+   * @param normalizationFactor Length of the data times the normalization of the window function for that length.
+   * @param row                 Row with at least data.length / 2 entries.
+   */
+  public static void spectrum(Complex[] data, Spectrum.Type type, double normalizationFactor, double[] row) {
+    final int bins = data.length / 2;
+    if (type == Spectrum.Type.POWER) {
+      row[0] = (Math.pow(data[0].getReal(), 2) + Math.pow(data[0].getImaginary(), 2)) / normalizationFactor;
+      for (int i = 1; i < bins; i++) {
+        row[i] = (2 * Math.pow(data[i].abs(), 2)) / normalizationFactor;
+      }
+    } else {
+      row[0] = Math.sqrt(Math.pow(data[0].getReal(), 2) + Math.pow(data[0].getImaginary(), 2)) / normalizationFactor;
+      for (int i = 1; i < bins; i++) {
+        row[i] = (2 * data[i].abs()) / normalizationFactor;
+      }
+    }
+  }
+
+
+  /**
+   * Calculates the MFCC features of all frames of a {@link STFT} with the default settings of {@link MFCC#MFCC()}.
+   *
+   * @param stft STFT to derive the MFCC features from.
+   * @return [frame][cepstrum] matrix.
+   */
+  public static float[][] mfcc(STFT stft) {
+    return mfcc(stft, MFCC.DEFAULT_CEPSTRA, MFCC.DEFAULT_MEL_FILTERS, MFCC.DEFAULT_MIN_FREQUENCY);
+  }
+
+  /**
+   * Calculates the MFCC features of all frames of a {@link STFT}.
+   *
+   * @param stft         STFT to derive the MFCC features from.
+   * @param cepstra      The number of cepstra to obtain for the MFCC feature.
+   * @param melfilters   The number of triangular mel-filters (size of the mel-filter bank).
+   * @param minFrequency Minimum frequency to consider for MFCC feature.
+   * @return [frame][cepstrum] matrix.
+   */
+  public static float[][] mfcc(STFT stft, int cepstra, int melfilters, float minFrequency) {
+    final MelFilterBank bank = melFilterBank(stft.getSamplingrate(), stft.getNumberOfBins(), cepstra, melfilters, minFrequency);
+    final float[][] out = new float[stft.getWidth()][cepstra];
+    bank.apply(spectrogram(stft, Spectrum.Type.MAGNITUDE), stft.getWidth(), out);
+    return out;
+  }
+
+  /**
+   * Calculates the HPCP of all frames of a {@link STFT} from its power spectra, like {@link HPCP#addContribution(STFT)}.
+   *
+   * @param stft         STFT to derive the HPCP from.
+   * @param resolution   Resolution of the HPCP.
+   * @param minFrequency Minimum frequency to consider.
+   * @param maxFrequency Maximum frequency to consider.
+   * @return [frame][pitch class] matrix of raw, un-normalized HPCPs.
+   */
+  public static float[][] hpcp(STFT stft, HPCP.Resolution resolution, float minFrequency, float maxFrequency) {
+    final PitchClassMap map = pitchClassMap(stft.getSamplingrate(), stft.getWindowsize(), resolution, minFrequency, maxFrequency);
+    final float[][] out = new float[stft.getWidth()][resolution.bins];
+    map.apply(spectrogram(stft, Spectrum.Type.POWER), Spectrum.Type.POWER, stft.getWidth(), out);
+    return out;
+  }
+
+  /**
+   * Calculates CENS features from a [frame][pitch class] matrix of HPCPs, like {@link CENS#cens(HPCP, int, int)}.
+   * <p>
+   * <strong>Important:</strong> Like the original implementation, this normalizes the rows of the HPCP matrix by their sum in place, once per pitch class.
+   *
+   * @param hpcps      [frame][pitch class] matrix of HPCPs.
+   * @param resolution Resolution of the HPCP.
+   * @param w          Size of the Hanning Window used in the convolution step.
+   * @param downsample Ratio for downsampling.
+   * @return [frame][pitch class] matrix of CENS features.
+   */
+  public static double[][] cens(float[][] hpcps, HPCP.Resolution resolution, int w, int downsample) {
+    final int bins = resolution.bins;
+    final double[] window = (new HanningWindow()).values(w);
+    final double[][] sequences = new double[bins][hpcps.length];
+    for (int i = 0; i < hpcps.length; i++) {
+      final float[] hpcp = hpcps[i];
+      for (int j = 0; j < bins; j++) {
+        float sum = 0.0f;
+        for (float value : hpcp) {
+          sum += value;
+        }
+        for (int k = 0; k < hpcp.length; k++) {
+          hpcp[k] /= sum;
+        }
+        sequences[j][i] = mapToCens(hpcp[j]);
+      }
+    }
+    final double[][] cens = new double[(hpcps.length + w) / downsample - 1][bins];
+    for (int j = 0; j < bins; j++) {
+      final double[] result = SamplingUtilities.downsample(MathArrays.convolve(sequences[j], window), downsample);
+      for (int n = 0; n < result.length; n++) {
+        cens[n][j] = result[n];
+      }
+    }
+    return cens;
+  }
+
+  /**
+   * Maps normalized energy values to the logarithmic CENS energy scale.
+   *
+   * @param value Energy value that should be mapped.
+   * @return Value on the CENS scale that corresponds to the provided value.
+   */
+  static float mapToCens(float value) {
+    if (value >= 0.4f && value <= 1.0f) {
+      return 4.0f;
+    } else if (value >= 0.2f && value < 0.4f) {
+      return 3.0f;
+    } else if (value >= 0.1f && value < 0.2f) {
+      return 2.0f;
+    } else if (value >= 0.05f && value < 0.1f) {
+      return 1.0f;
+    } else {
+      return 0.0f;
+    }
+  }
+
+  /**
+   * Triangular mel filter bank and DCT-II matrix of the MFCC for one configuration.
+   */
+  public static final class MelFilterBank {
+
+    private final int cepstra;
+
+    private final int melfilters;
+
+    /**
+     * Bin indices of the filters as returned by {@link MFCC#melFrequencyBins(float, int)}.
+     */
+    private final int[] indices;
+
+    /**
+     * Weights of the rising and the falling edge of every filter, relative to the first bin of the edge.
+     */
+    private final double[][] rising;
+
+    private final double[][] falling;
+
+    /**
+     * DCT-II matrix; indexed by [cepstrum * melfilters + filter].
+     */
+    private final double[] dct;
+
+    private MelFilterBank(float samplingrate, int windowsize, int cepstra, int melfilters, float minFrequency) {
+      this.cepstra = cepstra;
+      this.melfilters = melfilters;
+      this.indices = new MFCC(cepstra, melfilters, minFrequency).melFrequencyBins(samplingrate, windowsize);
+      this.rising = new double[melfilters + 1][];
+      this.falling = new double[melfilters + 1][];
+      for (int k = 1; k <= melfilters; k++) {
+        /* Integer division on purpose, so as to obtain the same weights as the original implementation. */
+        this.rising[k] = new double[Math.max(0, this.indices[k] - this.indices[k - 1] + 1)];
+        for (int i = this.indices[k - 1]; i <= this.indices[k]; i++) {
+          this.rising[k][i - this.indices[k - 1]] = ((i - this.indices[k - 1] + 1) / (this.indices[k] - this.indices[k - 1] + 1));
+        }
+        this.falling[k] = new double[Math.max(0, this.indices[k + 1] - this.indices[k])];
+        for (int i = this.indices[k] + 1; i <= this.indices[k + 1]; i++) {
+          this.falling[k][i - this.indices[k] - 1] = (1 - ((i - this.indices[k]) / (this.indices[k + 1] - this.indices[k] + 1)));
+        }
+      }
+      this.dct = new double[cepstra * melfilters];
+      for (int i = 0; i < cepstra; i++) {
+        for (int j = 1; j <= melfilters; j++) {
+          this.dct[i * melfilters + j - 1] = Math.cos(Math.PI * i / this.melfilters * (j - 0.5));
+        }
+      }
+    }
+
+    /**
+     * Calculates the cepstra of the first frames of a [frame][bin] matrix of magnitude spectra.
+     *
+     * @param magnitudes [frame][bin] matrix of magnitude spectra.
+     * @param frames     Number of frames to process.
+     * @param out        [frame][cepstrum] matrix the cepstra are written to.
+     */
+    public void apply(double[][] magnitudes, int frames, float[][] out) {
+      final double[] fbank = new double[this.melfilters];
+      for (int t = 0; t < frames; t++) {
+        this.apply(magnitudes[t], fbank, out[t]);
+      }
+    }
+
+    /**
+     * Calculates the cepstra of a single magnitude spectrum.
+     *
+     * @param magnitudes Magnitude spectrum.
+     * @param out        Array the cepstra are written to.
+     */
+    public void apply(double[] magnitudes, float[] out) {
+      this.apply(magnitudes, new double[this.melfilters], out);
+    }
+
+    private void apply(double[] magnitudes, double[] fbank, float[] out) {
+      /* Mel filter bank with a floor of -50 on the logarithm. */
+      for (int k = 1; k <= this.melfilters; k++) {
+        double num1 = 0, num2 = 0;
+        final double[] up = this.rising[k];
+        for (int i = 0, m = this.indices[k - 1]; i < up.length; i++, m++) {
+          num1 += up[i] * magnitudes[m];
+        }
+        final double[] down = this.falling[k];
+        for (int i = 0, m = this.indices[k] + 1; i < down.length; i++, m++) {
+          num2 += down[i] * magnitudes[m];
+        }
+        fbank[k - 1] = Math.max(Math.log(num1 + num2), -50.0);
+      }
+
+      /* DCT-II; accumulation in float is on purpose, so as to obtain the same values as the original implementation. */
+      for (int i = 0; i < this.cepstra; i++) {
+        float cepstrum = 0.0f;
+        for (int j = 0; j < this.melfilters; j++) {
+          cepstrum += fbank[j] * this.dct[i * this.melfilters + j];
+        }
+        out[i] = cepstrum;
+      }
+    }
+  }
+
+  /**
+   * Maps the bins of a spectrum to the pitch classes of the HPCP for one configuration.
+   */
+  public static final class PitchClassMap {
+
+    /**
+     * Frequency labels of the spectra the map applies to.
+     */
+    private final float[] frequencies;
+
+    private final HPCP.Resolution resolution;
+
+    private final int bins;
+
+    /**
+     * First (inclusive) and last (exclusive) bin of the frequency range considered, as per {@link Spectrum#reduced(float, float)}.
+     */
+    private final int start;
+
+    private final int end;
+
+    /**
+     * Pitch classes a bin contributes to and the weight of its contribution, one array per bin in the considered range.
+     */
+    private final int[][] classes;
+
+    private final double[][] weights;
+
+    private PitchClassMap(float[] frequencies, HPCP.Resolution resolution, float minFrequency, float maxFrequency) {
+      if (minFrequency >= maxFrequency) {
+        throw new IllegalArgumentException("Minimum frequency must be smaller than maximum frequency!");
+      }
+      this.frequencies = frequencies;
+      this.resolution = resolution;
+      this.bins = resolution.bins;
+      int start = 0, end = 0;
+      for (int i = 0; i < frequencies.length; i++) {
+        if (frequencies[i] <= minFrequency) {
+          start = i;
+        }
+        if (frequencies[i] < maxFrequency) {
+          end = i;
+        }
+        if (frequencies[i] > maxFrequency) {
+          break;
+        }
+      }
+      if (start > end) {
+        throw new IllegalArgumentException(start + " > " + end);
+      }
+      this.start = start;
+      this.end = end;
+      this.classes = new int[end - start][];
+      this.weights = new double[end - start][];
+      for (int i = start; i < end; i++) {
+        int count = 0;
+        final double[] weights = new double[this.bins];
+        for (int n = 0; n < this.bins; n++) {
+          weights[n] = weight(n, frequencies[i], resolution);
+          if (weights[n] != 0) {
+            count++;
+          }
+        }
+        this.classes[i - start] = new int[count];
+        this.weights[i - start] = new double[count];
+        for (int n = 0, c = 0; n < this.bins; n++) {
+          if (weights[n] != 0) {
+            this.classes[i - start][c] = n;
+            this.weights[i - start][c++] = weights[n];
+          }
+        }
+      }
+    }
+
+    /**
+     * Calculates the HPCPs of the first frames of a [frame][bin] matrix of spectra.
+     *
+     * @param spectra [frame][bin] matrix of spectra.
+     * @param type    Type of the spectra.
+     * @param frames  Number of frames to process.
+     * @param out     [frame][pitch class] matrix the HPCPs are written to.
+     */
+    public void apply(double[][] spectra, Spectrum.Type type, int frames, float[][] out) {
+      final int[] peaks = new int[Math.max(0, this.end - this.start)];
+      final double[] values = new double[peaks.length];
+      for (int t = 0; t < frames; t++) {
+        this.apply(spectra[t], type, out[t], peaks, values);
+      }
+    }
+
+    /**
+     * Calculates the HPCP of a single spectrum.
+     *
+     * @param spectrum Spectrum with the frequency labels of this map.
+     * @param type     Type of the spectrum.
+     * @param out      Array the HPCP is written to.
+     */
+    public void apply(double[] spectrum, Spectrum.Type type, float[] out) {
+      this.apply(spectrum, type, out, new int[Math.max(0, this.end - this.start)], new double[Math.max(0, this.end - this.start)]);
+    }
+
+    private void apply(double[] spectrum, Spectrum.Type type, float[] out, int[] peaks, double[] values) {
+      Arrays.fill(out, 0, this.bins, 0.0f);
+
+      /* Significant local maxima within the considered range, as per Spectrum#findLocalMaxima(threshold, true). */
+      int count = 0;
+      for (int i = this.start + 1; i < this.end - 1; i++) {
+        if (spectrum[i] < PEAK_THRESHOLD) {
+          continue;
+        }
+        if (spectrum[i] > Math.max(spectrum[i + 1], spectrum[i - 1])) {
+          peaks[count] = i;
+          values[count++] = spectrum[i];
+        }
+      }
+      if (count == 0) {
+        return;
+      }
+      /* Same estimators as DescriptiveStatistics#getMean() and DescriptiveStatistics#getStandardDeviation(). */
+      final double mean = StatUtils.mean(values, 0, count);
+      final double stddev = count > 1 ? FastMath.sqrt(StatUtils.variance(values, 0, count)) : 0.0;
+      final double threshold = mean + stddev * 2;
+
+      /* Add the contribution of every peak, in the order of the peaks. */
+      for (int p = 0; p < count; p++) {
+        if (values[p] < threshold) {
+          continue;
+        }
+        final double energy = type == Spectrum.Type.POWER ? values[p] : Math.pow(values[p], 2);
+        if (!Double.isFinite(energy)) {
+          /* Non-finite energies spoil every pitch class, including those with zero weight. */
+          for (int n = 0; n < this.bins; n++) {
+            out[n] += energy * weight(n, this.frequencies[peaks[p]], this.resolution);
+          }
+          continue;
+        }
+        final int[] classes = this.classes[peaks[p] - this.start];
+        final double[] weights = this.weights[peaks[p] - this.start];
+        for (int c = 0; c < classes.length; c++) {
+          out[classes[c]] += energy * weights[c];
+        }
+      }
+    }
+
+    /**
+     * Calculates the contribution of a given frequency to a given bin in the HPCP, as per [1] in {@link HPCP}.
+     */
+    private static double weight(int n, double frequency, HPCP.Resolution resolution) {
+      double frequency_n = HPCP.binToCenterFrequency(n, resolution);
+
+      double p = Math.log(frequency / frequency_n) / Math.log(2);
+
+      int m1 = (int) Math.ceil(p) * (-1);
+      int m2 = (int) Math.floor(p) * (-1);
+
+      double distance = resolution.bins * Math.min(Math.abs(p + m1), Math.abs(p + m2));
+
+      if (distance > 0.5 * HPCP_WINDOW) {
+        return 0;
+      } else {
+        return Math.pow(Math.cos((Math.PI / 2) * (distance / (0.5 * HPCP_WINDOW))), 2);
+      }
+    }
+  }
+
+  private record MelKey(float samplingrate, int windowsize, int cepstra, int melfilters, float minFrequency) {
+
+  }
+
+  private record PitchKey(float samplingrate, int windowsize, HPCP.Resolution resolution, float minFrequency, float maxFrequency) {
+
+  }
+}
@@ -1,9 +1,5 @@
 package org.vitrivr.cineast.core.util.audio;
 
-import org.apache.commons.math3.util.MathArrays;
-import org.vitrivr.cineast.core.util.dsp.SamplingUtilities;
-import org.vitrivr.cineast.core.util.dsp.fft.windows.HanningWindow;
-
 /**
  * This class obtains and returns CENS (Chroma Energy distribution Normalized Statistics) features according to [1]. CENS captures the temporal development of the energy distribution in the different chroma or pitch-classes.
  * <p>
@@ -26,38 +22,6 @@ private CENS() {
    * @return 2D double array of CENS features.
    */
   public static double[][] cens(HPCP hpcps, int w, int downsample) {
-    double[] window = (new HanningWindow()).values(w);
-    double[][] cens = new double[(hpcps.size() + w) / downsample - 1][hpcps.getResolution().bins];
-    for (int j = 0; j < hpcps.getResolution().bins; j++) {
-      double[] sequence = new double[hpcps.size()];
-      for (int i = 0; i < hpcps.size(); i++) {
-        sequence[i] = mapToCens(hpcps.getSumNormalizedHpcp(i)[j]);
-      }
-      double[] result = SamplingUtilities.downsample(MathArrays.convolve(sequence, window), downsample);
-      for (int n = 0; n < result.length; n++) {
-        cens[n][j] = result[n];
-      }
-    }
-    return cens;
-  }
-
-  /**
-   * Maps normalized energy values to the logarithmic CENS energy scale.
-   *
-   * @param value Energy value that should be mapped.
-   * @return Value on the CENS scale that corresponds to the provided value.
-   */
-  private static float mapToCens(float value) {
-    if (value >= 0.4f && value <= 1.0f) {
-      return 4.0f;
-    } else if (value >= 0.2f && value < 0.4f) {
-      return 3.0f;
-    } else if (value >= 0.1f && value < 0.2f) {
-      return 2.0f;
-    } else if (value >= 0.05f && value < 0.1f) {
-      return 1.0f;
-    } else {
-      return 0.0f;
-    }
+    return AudioFeatureEngine.cens(hpcps.matrix(), hpcps.getResolution(), w, downsample);
   }
 }
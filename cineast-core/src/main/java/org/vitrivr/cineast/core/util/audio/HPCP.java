@@ -1,8 +1,8 @@
 package org.vitrivr.cineast.core.util.audio;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import org.vitrivr.cineast.core.data.Pair;
 import org.vitrivr.cineast.core.util.dsp.fft.STFT;
 import org.vitrivr.cineast.core.util.dsp.fft.Spectrum;
 import org.vitrivr.cineast.core.util.dsp.midi.MidiUtil;
@@ -21,10 +21,6 @@
  */
 public class HPCP {
 
-  /**
-   * Window-size parameter, which defaults to 4/3 semitones as per [1].
-   */
-  private static final float WINDOW = 4f / 3f;
   /**
    * Float array holding the HPCP data.
    */
@@ -78,9 +74,7 @@ public static double binToCenterFrequency(int n, Resolution r) {
    * @param stft STFT that should contribute to the Harmonic Pitch Class Profile.
    */
   public void addContribution(STFT stft) {
-    for (Spectrum spectrum : stft.getPowerSpectrum()) {
-      this.addContribution(spectrum);
-    }
+    Collections.addAll(this.hpcp, AudioFeatureEngine.hpcp(stft, this.resolution, this.minFrequency, this.maxFrequency));
   }
 
   /**
@@ -89,25 +83,8 @@ public void addContribution(STFT stft) {
    * @param spectrum Spectrum that should contribute to the Harmonic Pitch Class Profile.
    */
   public void addContribution(Spectrum spectrum) {
-    /* Prune the PowerSpectrum and the Frequencies to the range that is interesting according to min frequency and max frequency.*/
-    Spectrum pruned = spectrum.reduced(this.minFrequency, this.maxFrequency);
-
-    double threshold = 1.0e-8;
-    List<Pair<Float, Double>> peaks = pruned.findLocalMaxima(threshold, true);
     float[] hpcp = new float[this.resolution.bins];
-
-    /* For each of the semi-tones (according to resolution), add the contribution of every peak. */
-    for (int n = 0; n < this.resolution.bins; n++) {
-      for (Pair<Float, Double> peak : peaks) {
-        if (pruned.getType() == Spectrum.Type.POWER) {
-          hpcp[n] += peak.second * this.weight(n, peak.first);
-        } else if (pruned.getType() == Spectrum.Type.MAGNITUDE) {
-          hpcp[n] += Math.pow(peak.second, 2) * this.weight(n, peak.first);
-        }
-      }
-    }
-
-    /* */
+    AudioFeatureEngine.pitchClassMap(spectrum.frequencies(), this.resolution, this.minFrequency, this.maxFrequency).apply(spectrum.array(), spectrum.getType(), hpcp);
     this.hpcp.add(hpcp);
   }
 
@@ -172,6 +149,15 @@ public float[] getMeanHpcp() {
     return normalized;
   }
 
+  /**
+   * Returns the raw, un-normalized HPCPs of all time-frames as a [frame][pitch class] matrix. The rows are the arrays held by this HPCP.
+   *
+   * @return Matrix of HPCPs.
+   */
+  float[][] matrix() {
+    return this.hpcp.toArray(new float[0][]);
+  }
+
   /**
    * Returns the size of the HPCP which relates to the number of timepoints.
    *
@@ -190,30 +176,6 @@ public Resolution getResolution() {
     return resolution;
   }
 
-  /**
-   * Calculates the contribution of a given frequency (usually from a spectrum) to a given bin in the HPCP.
-   *
-   * @param n         Number of the bin.
-   * @param frequency Frequency to calculate the contribution for.
-   * @return Contribution of the frequency to the bin.
-   */
-  private double weight(int n, double frequency) {
-    double frequency_n = binToCenterFrequency(n, this.resolution);
-
-    double p = Math.log(frequency / frequency_n) / Math.log(2);
-
-    int m1 = (int) Math.ceil(p) * (-1);
-    int m2 = (int) Math.floor(p) * (-1);
-
-    double distance = this.resolution.bins * Math.min(Math.abs(p + m1), Math.abs(p + m2));
-
-    if (distance > 0.5 * WINDOW) {
-      return 0;
-    } else {
-      return Math.pow(Math.cos((Math.PI / 2) * (distance / (0.5 * WINDOW))), 2);
-    }
-  }
-
   /**
    * Defines the resolution of the HPCP (full semitones, 1/2 semitones or 1/3 semitones).
    */
@@ -12,6 +12,21 @@
  */
 public class MFCC {
 
+  /**
+   * Default number of cepstra, see {@link #MFCC()}.
+   */
+  public static final int DEFAULT_CEPSTRA = 13;
+
+  /**
+   * Default number of Mel filters, see {@link #MFCC()}.
+   */
+  public static final int DEFAULT_MEL_FILTERS = 23;
+
+  /**
+   * Default minimum frequency, see {@link #MFCC()}.
+   */
+  public static final float DEFAULT_MIN_FREQUENCY = 133.0f;
+
   /**
    * Minimum frequency to consider. Defaults to 100Hz as per [1].
    */
@@ -31,7 +46,7 @@ public class MFCC {
    * Default constructor for MFCC class with 13 cepstra, a Mel-Filter bank of size 13 and a minimum frequency of 133.0f Hz.
    */
   public MFCC() {
-    this(13, 23, 133.0f);
+    this(DEFAULT_CEPSTRA, DEFAULT_MEL_FILTERS, DEFAULT_MIN_FREQUENCY);
   }
 
   /**
@@ -47,20 +62,22 @@ public MFCC(int cepstra, int melfilters, float minFrequency) {
     this.cepstra = new float[cepstra];
   }
 
+  /**
+   * Constructor for MFCC with precalculated cepstra.
+   */
+  private MFCC(float[] cepstra, int melfilters, float minFrequency) {
+    this.melfilters = melfilters;
+    this.minFrequency = minFrequency;
+    this.cepstra = cepstra;
+  }
+
   /**
    * Returns a list of MFCC features for the provided STFT using the default settings.
    *
    * @param stft STFT to derive the MFCC features from.
    */
   public static List<MFCC> calculate(STFT stft) {
-    List<Spectrum> spectra = stft.getMagnitudeSpectrum();
-    List<MFCC> list = new ArrayList<>(spectra.size());
-    for (Spectrum spectrum : spectra) {
-      MFCC mfcc = new MFCC();
-      mfcc.calculate(spectrum, stft.getSamplingrate(), stft.getNumberOfBins());
-      list.add(mfcc);
-    }
-    return list;
+    return calculate(stft, DEFAULT_CEPSTRA, DEFAULT_MEL_FILTERS, DEFAULT_MIN_FREQUENCY);
   }
 
   /**
@@ -72,12 +89,10 @@ public static List<MFCC> calculate(STFT stft) {
    * @param minFrequency Minimum frequency to consider for MFCC feature.
    */
   public static List<MFCC> calculate(STFT stft, int cepstra, int melfilters, float minFrequency) {
-    List<Spectrum> spectra = stft.getMagnitudeSpectrum();
-    List<MFCC> list = new ArrayList<>(spectra.size());
-    for (Spectrum spectrum : spectra) {
-      MFCC mfcc = new MFCC(cepstra, melfilters, minFrequency);
-      mfcc.calculate(spectrum, stft.getSamplingrate(), stft.getNumberOfBins());
-      list.add(mfcc);
+    float[][] matrix = AudioFeatureEngine.mfcc(stft, cepstra, melfilters, minFrequency);
+    List<MFCC> list = new ArrayList<>(matrix.length);
+    for (float[] row : matrix) {
+      list.add(new MFCC(row, melfilters, minFrequency));
     }
     return list;
   }
@@ -117,24 +132,20 @@ public static double melToFrequency(double mel) {
     return 700.0 * Math.pow(10, mel / 2595.0) - 700.0;
   }
 
+  /**
+   * Calculates the cepstra of the provided magnitude spectrum using the shared {@link AudioFeatureEngine.MelFilterBank} for the given settings. Previously calculated cepstra are replaced.
+   *
+   * @param spectrum     Magnitude spectrum to derive the MFCC feature from.
+   * @param samplingrate The rate at which the original data has been sampled.
+   * @param windowsize   Windowsize used to determine the mel frequency bins.
+   */
   public void calculate(Spectrum spectrum, float samplingrate, int windowsize) {
     /* Check the type of the provided spectrum* */
     if (spectrum.getType() != Spectrum.Type.MAGNITUDE) {
       throw new IllegalArgumentException("A magnitude spectrum is required in order to calculate the Mel Frequency Cepstrum Coefficients.");
     }
 
-    /* */
-    int[] bin_indices = this.melFrequencyBins(samplingrate, windowsize);
-
-    /* Calculates and returns the Mel Filter Bank values of the power-spectrum. */
-    double[] mel_filter_banks = this.melFilter(spectrum.array(), bin_indices);
-
-    /* Calculate and assign cepstra coefficients. */
-    for (int i = 0; i < this.cepstra.length; i++) {
-      for (int j = 1; j <= this.melfilters; j++) {
-        this.cepstra[i] += mel_filter_banks[j - 1] * Math.cos(Math.PI * i / this.melfilters * (j - 0.5));
-      }
-    }
+    AudioFeatureEngine.melFilterBank(samplingrate, windowsize, this.cepstra.length, this.melfilters, this.minFrequency).apply(spectrum.array(), this.cepstra);
   }
 
   /**
@@ -155,39 +166,6 @@ public int[] melFrequencyBins(float samplingrate, int windowsize) {
     return bins;
   }
 
-  /**
-   * Applies the triangular Mel-filters to the magnutude-spectrum
-   *
-   * @param magnitudes Linear magnitude spectrum to apply the mel-filters to.
-   * @param indices    Indices to use as center-frequencies.
-   * @return Mel-scaled magnitude spectrum.
-   */
-  private double[] melFilter(double magnitudes[], int indices[]) {
-    double temp[] = new double[this.melfilters + 2];
-
-    for (int k = 1; k <= this.melfilters; k++) {
-      double num1 = 0, num2 = 0;
-
-      for (int i = indices[k - 1]; i <= indices[k]; i++) {
-        num1 += ((i - indices[k - 1] + 1) / (indices[k] - indices[k - 1] + 1)) * magnitudes[i];
-      }
-
-      for (int i = indices[k] + 1; i <= indices[k + 1]; i++) {
-        num2 += (1 - ((i - indices[k]) / (indices[k + 1] - indices[k] + 1))) * magnitudes[i];
-      }
-
-      temp[k] = num1 + num2;
-    }
-
-    final double floor = -50.0;
-    double fbank[] = new double[this.melfilters];
-    for (int i = 0; i < this.melfilters; i++) {
-      fbank[i] = Math.max(Math.log(temp[i + 1]), floor);
-    }
-
-    return fbank;
-  }
-
   /**
    * Getter for the cepstra.
    *
@@ -0,0 +1,169 @@
+package org.vitrivr.cineast.core.util.audio.pitch.estimation;
+
+import java.util.concurrent.ConcurrentHashMap;
+import org.vitrivr.cineast.core.util.dsp.midi.MidiUtil;
+
+/**
+ * Precomputed harmonic summation for the salience function of {@link KLF0PitchEstimator}. For every pitch candidate, the range of spectral bins that is searched for each partial and the weight g(f0, m) of that partial only depend on the sampling rate, the window size and the parameters of the estimator. They are therefore calculated once per configuration and stored in flat arrays, which are shared between all invocations.
+ * <p>
+ * The order of all floating point operations is the same as the one of the original implementation, which is why the saliences are identical. Partials whose search range starts beyond the last bin of the spectrum, which can occur for the highest partial of small windows and made the original implementation fail, are ignored.
+ */
+public final class HarmonicTable {
+
+  /**
+   * Δτ/2, which is 0.25 according to [1] in {@link KLF0PitchEstimator}.
+   */
+  private static final float DTAU = 0.25f;
+
+  /**
+   * Cache of harmonic tables, one per (sampling rate, window size, min, max, α, β).
+   */
+  private static final ConcurrentHashMap<Key, HarmonicTable> TABLES = new ConcurrentHashMap<>();
+
+  /**
+   * Frequencies of the pitch candidates in Hz, one per MIDI index from min to max.
+   */
+  private final float[] frequencies;
+
+  /**
+   * Index of the first partial of each candidate in the partial arrays; has one more entry than there are candidates.
+   */
+  private final int[] offsets;
+
+  /**
+   * First bin that is searched for each partial.
+   */
+  private final int[] lower;
+
+  /**
+   * Bin after the last bin that is searched for each partial.
+   */
+  private final int[] upper;
+
+  /**
+   * Weight g(f0, m) of each partial.
+   */
+  private final double[] weights;
+
+  /**
+   * Returns the shared {@link HarmonicTable} for the provided parameters. The table is created upon first use.
+   *
+   * @param samplingrate Samplingrate at which the original signal has been sampled.
+   * @param windowsize   Windowsize used in the FFT.
+   * @param min          MIDI index of the minimum pitch to consider.
+   * @param max          MIDI index of the maximum pitch to consider.
+   * @param alpha        α value as defined in [1] in {@link KLF0PitchEstimator}.
+   * @param beta         β value as defined in [1] in {@link KLF0PitchEstimator}.
+   * @return {@link HarmonicTable}
+   */
+  public static HarmonicTable forParameters(float samplingrate, int windowsize, int min, int max, float alpha, float beta) {
+    return TABLES.computeIfAbsent(new Key(samplingrate, windowsize, min, max, alpha, beta), k -> new HarmonicTable(k.samplingrate, k.windowsize, k.min, k.max, k.alpha, k.beta));
+  }
+
+  private HarmonicTable(float samplingrate, int windowsize, int min, int max, float alpha, float beta) {
+    final int candidates = Math.max(0, max - min + 1);
+    this.frequencies = new float[candidates];
+    this.offsets = new int[candidates + 1];
+    for (int c = 0; c < candidates; c++) {
+      final float f0 = MidiUtil.midiToFrequency(min + c);
+      final float tau = samplingrate / f0;
+      int partials = 0;
+      for (int m = 1; m * f0 < samplingrate / 2 && Math.round((m * windowsize) / (tau + DTAU)) < windowsize / 2; m++) {
+        partials++;
+      }
+      this.frequencies[c] = f0;
+      this.offsets[c + 1] = this.offsets[c] + partials;
+    }
+
+    this.lower = new int[this.offsets[candidates]];
+    this.upper = new int[this.offsets[candidates]];
+    this.weights = new double[this.offsets[candidates]];
+    for (int c = 0; c < candidates; c++) {
+      final float f0 = this.frequencies[c];
+      final float tau = samplingrate / f0; /* Fundamental period, i.e. f0=fs/τ. */
+      for (int m = 1, p = this.offsets[c]; p < this.offsets[c + 1]; m++, p++) {
+        this.lower[p] = Math.round((m * windowsize) / (tau + DTAU));
+        this.upper[p] = Math.min(Math.round((m * windowsize) / (tau - DTAU)) + 1, windowsize / 2);
+        this.weights[p] = (f0 + alpha) / (m * f0 + beta);
+      }
+    }
+  }
+
+  /**
+   * @return Number of pitch candidates.
+   */
+  public int candidates() {
+    return this.frequencies.length;
+  }
+
+  /**
+   * @param candidate Index of the pitch candidate.
+   * @return Frequency of the pitch candidate in Hz.
+   */
+  public float frequency(int candidate) {
+    return this.frequencies[candidate];
+  }
+
+  /**
+   * Calculates the salience of all pitch candidates in the provided power spectrum and returns the index of the most salient one; ties are resolved in favour of the lower pitch.
+   *
+   * @param spectrum  Power spectrum with windowsize / 2 bins.
+   * @param saliences Array with one entry per candidate, to which the saliences are written.
+   * @return Index of the most salient candidate or -1, if there are no candidates.
+   */
+  public int detect(double[] spectrum, double[] saliences) {
+    int best = -1;
+    for (int c = 0; c < this.frequencies.length; c++) {
+      saliences[c] = this.salience(c, spectrum);
+      if (best == -1 || saliences[best] < saliences[c]) {
+        best = c;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Calculates the salience of a pitch candidate in the provided power spectrum.
+   *
+   * @param candidate Index of the pitch candidate.
+   * @param spectrum  Power spectrum with windowsize / 2 bins.
+   * @return Salience of the candidate.
+   */
+  public double salience(int candidate, double[] spectrum) {
+    float salience = 0;
+    for (int p = this.offsets[candidate]; p < this.offsets[candidate + 1]; p++) {
+      salience += spectrum[this.peak(p, spectrum)] * this.weights[p];
+    }
+    return salience;
+  }
+
+  /**
+   * Subtracts the weighted partials of a pitch candidate from the provided power spectrum.
+   *
+   * @param candidate Index of the pitch candidate.
+   * @param spectrum  Power spectrum with windowsize / 2 bins, which is modified in place.
+   */
+  public void subtract(int candidate, double[] spectrum) {
+    for (int p = this.offsets[candidate]; p < this.offsets[candidate + 1]; p++) {
+      final int bin = this.peak(p, spectrum);
+      spectrum[bin] = spectrum[bin] - spectrum[bin] * this.weights[p];
+    }
+  }
+
+  /**
+   * Returns the first bin with the maximum value in the search range of a partial.
+   */
+  private int peak(int partial, double[] spectrum) {
+    int max = this.lower[partial];
+    for (int bin = max + 1; bin < this.upper[partial]; bin++) {
+      if (spectrum[bin] > spectrum[max]) {
+        max = bin;
+      }
+    }
+    return max;
+  }
+
+  private record Key(float samplingrate, int windowsize, int min, int max, float alpha, float beta) {
+
+  }
+}
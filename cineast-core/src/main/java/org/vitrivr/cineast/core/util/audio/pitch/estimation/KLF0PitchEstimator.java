@@ -1,14 +1,16 @@
 package org.vitrivr.cineast.core.util.audio.pitch.estimation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.stream.IntStream;
+import org.vitrivr.cineast.core.util.audio.AudioFeatureEngine;
 import org.vitrivr.cineast.core.util.audio.pitch.Pitch;
 import org.vitrivr.cineast.core.util.dsp.fft.FFT;
 import org.vitrivr.cineast.core.util.dsp.fft.STFT;
 import org.vitrivr.cineast.core.util.dsp.fft.Spectrum;
-import org.vitrivr.cineast.core.util.dsp.midi.MidiUtil;
 
 /**
  * This class can be used to estimate the most salient pitch(es) from a provided FFT or STFT by applying the method described in [1].
@@ -39,6 +41,11 @@ public class KLF0PitchEstimator {
    */
   private static final float BETA = 320.0f;
 
+  /**
+   * Minimum number of FFTs for which the pitches of a STFT are estimated in parallel.
+   */
+  private static final int PARALLEL_THRESHOLD = 16;
+
   /**
    * Maximum pitch to consider (MIDI index of the pitch).
    */
@@ -74,85 +81,126 @@ public KLF0PitchEstimator(int min, int max, float alpha, float beta) {
   }
 
   /**
-   * Estimates the pitches in the provided STFT and returns a List of PitchCandidate lists (one list per FFT).
+   * Estimates the pitches in the provided STFT and returns a List of PitchCandidate lists (one list per FFT). FFTs that only contain zeros are skipped. For longer STFTs, the FFTs are processed in parallel; the result is the same as for sequential processing.
    *
    * @param stft STFT for which to estimate the pitches.
    * @return List of PitchCandidate lists.
    */
   public List<List<Pitch>> estimatePitch(STFT stft) {
-    List<List<Pitch>> results = new ArrayList<>(stft.getStft().size());
-    for (FFT fft : stft.getStft()) {
+    final List<FFT> ffts = stft.getStft();
+    if (ffts.isEmpty()) {
+      return new ArrayList<>(0);
+    }
+    final int length = ffts.get(0).getValues().length;
+    final double normalizationFactor = length * stft.getWindowFunction().normalization(length);
+    final HarmonicTable table = HarmonicTable.forParameters(stft.getSamplingrate(), length, this.min, this.max, this.alpha, this.beta);
+    IntStream range = IntStream.range(0, ffts.size());
+    if (ffts.size() >= PARALLEL_THRESHOLD) {
+      range = range.parallel();
+    }
+    final List<List<Pitch>> results = new ArrayList<>(ffts.size());
+    range.mapToObj(t -> {
+      final FFT fft = ffts.get(t);
       if (fft.isZero()) {
-        continue;
+        return null;
       }
-      results.add(this.estimatePitch(fft));
-    }
+      final double[] spectrum = new double[length / 2];
+      AudioFeatureEngine.spectrum(fft.getValues(), Spectrum.Type.POWER, normalizationFactor, spectrum);
+      return this.estimatePitch(table, spectrum);
+    }).forEachOrdered(candidates -> {
+      if (candidates != null) {
+        results.add(candidates);
+      }
+    });
     return results;
   }
 
-
   /**
-   * Estimates the pitches from the provided FFT and returns them as a list of PitchCandidates.
+   * Estimates the pitches from the provided FFT and returns them as a list of PitchCandidates. The power spectrum of the FFT is not modified.
    *
    * @param fft FFT to estimate the pitches from.
    * @return List of pitch candidates.
    */
   public List<Pitch> estimatePitch(FFT fft) {
-    /* Prepare required helper variables. */
-    final float samplingrate = fft.getSamplingrate();
-    final int windowsize = fft.getWindowsize();
-    final Spectrum spectrum = fft.getPowerSpectrum();
+    final HarmonicTable table = HarmonicTable.forParameters(fft.getSamplingrate(), fft.getWindowsize(), this.min, this.max, this.alpha, this.beta);
+    return this.estimatePitch(table, fft.getPowerSpectrum().array().clone());
+  }
 
-    /* Prepare empty array of booleans holding the estimates. */
-    List<Pitch> candidates = new ArrayList<>();
+  /**
+   * Iteratively detects the most salient pitch in the provided power spectrum and subtracts its partials, until the salience test of [1] fails.
+   * <p>
+   * Candidates are tracked by their index in the {@link HarmonicTable} and only converted to {@link Pitch} objects at the end. Like in the original implementation, a candidate that passes the test is listed twice and a candidate that is detected again adds its salience to the first listing.
+   *
+   * @param table    {@link HarmonicTable} for the spectrum.
+   * @param spectrum Power spectrum, which is modified in place.
+   * @return List of pitch candidates.
+   */
+  private List<Pitch> estimatePitch(HarmonicTable table, double[] spectrum) {
+    final double[] saliences = new double[table.candidates()];
+
+    /* Detected candidates (index and accumulated salience) and the listings that refer to them. */
+    int[] detected = new int[8];
+    double[] salience = new double[8];
+    int[] listings = new int[8];
+    int numberOfDetected = 0;
+    int numberOfListings = 0;
 
     float test = 0, lasttest = 0;
     int loopcount = 1;
     while (true) {
       /* Detect new candidate. */
-      Pitch candidate = this.detect(spectrum, samplingrate, windowsize);
+      final int candidate = table.detect(spectrum, saliences);
+      if (numberOfDetected == detected.length) {
+        detected = Arrays.copyOf(detected, 2 * numberOfDetected);
+        salience = Arrays.copyOf(salience, 2 * numberOfDetected);
+      }
+      final int current = numberOfDetected++;
+      detected[current] = candidate;
+      salience[current] = saliences[candidate];
 
       /* Test if that candidate already exists. */
       boolean exists = false;
-      for (Pitch c : candidates) {
-        if (c.getFrequency() == candidate.getFrequency()) {
-          c.setSalience(candidate.getSalience() + c.getSalience());
+      for (int l = 0; l < numberOfListings; l++) {
+        final int c = listings[l];
+        if (detected[c] == candidate) {
+          salience[c] = salience[current] + salience[c];
           exists = true;
           break;
         }
       }
 
+      if (numberOfListings + 2 > listings.length) {
+        listings = Arrays.copyOf(listings, 2 * listings.length);
+      }
       if (!exists) {
-        candidates.add(candidate);
+        listings[numberOfListings++] = current;
       }
 
       /* Conduct test and break if it fails. */
       lasttest = test;
-      test = (float) ((test + candidate.getSalience()) / Math.pow(loopcount, .7f));
+      test = (float) ((test + salience[current]) / Math.pow(loopcount, .7f));
       if (test <= lasttest) {
         break;
       }
       loopcount++;
 
       /* Add candidate to list. */
-      candidates.add(candidate);
-
-      final float f0 = candidate.getFrequency();
-      final float tau = samplingrate / f0; /* Fundamental period, i.e. f0=fs/τ. */
-      final float dtau = 0.25f; /* Δτ/2, which is 0.25 according to [1]. */
+      listings[numberOfListings++] = current;
 
       /* Subtract the information of the found pitch from the current spectrum. */
-      for (int m = 1; m * candidate.getFrequency() < samplingrate / 2; m++) {
-        int max = Math.round((m * windowsize) / (tau - dtau));
-        int min = Math.round((m * windowsize) / (tau + dtau));
-        int max_bin = min;
-        for (int offset = min; offset <= max && offset < windowsize / 2; offset++) {
-          if (spectrum.getValue(offset) > spectrum.getValue(max_bin)) {
-            max_bin = offset;
-          }
-        }
-        spectrum.setValue(max_bin, spectrum.getValue(max_bin) - spectrum.getValue(max_bin) * this.g(f0, m));
+      table.subtract(candidate, spectrum);
+    }
+
+    /* Create one Pitch per detected candidate, which may be listed more than once. */
+    final Pitch[] pitches = new Pitch[numberOfDetected];
+    final List<Pitch> candidates = new ArrayList<>(numberOfListings);
+    for (int l = 0; l < numberOfListings; l++) {
+      final int c = listings[l];
+      if (pitches[c] == null) {
+        pitches[c] = new Pitch(table.frequency(detected[c]));
+        pitches[c].setSalience(salience[c]);
       }
+      candidates.add(pitches[c]);
     }
 
     /* Sort list of candidates by their salience in descending order. */
@@ -162,65 +210,4 @@ public List<Pitch> estimatePitch(FFT fft) {
     /* Return list of candidates. */
     return candidates;
   }
-
-  /**
-   * Detects the most salient F0 candidate in the provided spectrum.
-   *
-   * @param spectrum     Power spectrum to search for the candidate.
-   * @param samplingrate Samplingrate at which the original signal has been sampled.
-   * @param windowsize   Windowsize used in the FFT.
-   */
-  private Pitch detect(Spectrum spectrum, final float samplingrate, final int windowsize) {
-    Pitch candidate = null;
-    for (int n = this.min; n <= this.max; n++) {
-      final float f0 = MidiUtil.midiToFrequency(n);
-      final double salience = this.salience(f0, spectrum, samplingrate, windowsize);
-      if (candidate == null || candidate.getSalience() < salience) {
-        candidate = new Pitch(f0);
-        candidate.setSalience(salience);
-      }
-    }
-    return candidate;
-  }
-
-  /**
-   * Calculates and returns the salience of a f0 in a spectrum according to [1].
-   *
-   * @param f0           The f0 to calculate the salience for.
-   * @param spectrum     The spectrum to check.
-   * @param samplingrate The rate at which the original audio has been sampled.
-   * @param windowsize   The windowsize used during creation of the spectrum.
-   * @return Salience of f0 in the spectrum.
-   */
-  private final double salience(float f0, Spectrum spectrum, final float samplingrate, final int windowsize) {
-    final float tau = samplingrate / f0; /* Fundamental period, i.e. f0=fs/τ. */
-    final float dtau = 0.25f; /* Δτ/2, which is 0.25 according to [1]. */
-    float salience = 0; /* Salience of the candidate pitch. */
-
-    for (int m = 1; m * f0 < samplingrate / 2; m++) {
-      int max = Math.round((m * windowsize) / (tau - dtau));
-      int min = Math.round((m * windowsize) / (tau + dtau));
-      int max_bin = min;
-      for (int offset = min; offset <= max && offset < windowsize / 2; offset++) {
-        if (spectrum.getValue(offset) > spectrum.getValue(max_bin)) {
-          max_bin = offset;
-        }
-      }
-      salience += spectrum.getValue(max_bin) * this.g(f0, m);
-    }
-
-    return salience;
-  }
-
-
-  /**
-   * Returns the value of the weight-function for pitch-salience calculation according to [1].
-   *
-   * @param f0 Fundamental frequency of the pitch candidate.
-   * @param m  Index of the partial (i.e. m-th partial -> fm = m*f0)
-   * @return weight for the provided f0/partial constellation.
-   */
-  private double g(float f0, int m) {
-    return (f0 + this.alpha) / (m * f0 + this.beta);
-  }
 }
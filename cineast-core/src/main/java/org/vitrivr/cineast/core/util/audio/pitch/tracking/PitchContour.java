@@ -1,7 +1,5 @@
 package org.vitrivr.cineast.core.util.audio.pitch.tracking;
 
-import java.util.LinkedList;
-import java.util.List;
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 import org.vitrivr.cineast.core.util.audio.pitch.Pitch;
 
@@ -19,9 +17,17 @@ public class PitchContour {
    */
   private static final float CENT_SCALE_MINIMUM = 55.0f;
   /**
-   * Sequence of pitches that form the PitchContour.
+   * Initial capacity of the PitchContour; the storage grows in both directions as pitches are appended or prepended.
    */
-  private final List<Pitch> contour = new LinkedList<>();
+  private static final int INITIAL_CAPACITY = 16;
+  /**
+   * Sequence of pitches that form the PitchContour, stored from index {@link #head} on.
+   */
+  private Pitch[] contour = new Pitch[INITIAL_CAPACITY];
+  /**
+   * Index of the first pitch in {@link #contour}.
+   */
+  private int head = INITIAL_CAPACITY / 2;
   /**
    * Entity that keeps track of salience related contour statistics.
    */
@@ -54,7 +60,7 @@ public class PitchContour {
   public PitchContour(int start, Pitch pitch) {
     this.start = start;
     this.end = start;
-    this.contour.add(pitch);
+    this.contour[this.head] = pitch;
   }
 
   /**
@@ -63,7 +69,10 @@ public PitchContour(int start, Pitch pitch) {
    * @param p Pitch to append.
    */
   public void append(Pitch p) {
-    this.contour.add(p);
+    if (this.head + this.size() == this.contour.length) {
+      this.grow();
+    }
+    this.contour[this.head + this.size()] = p;
     this.end += 1;
     this.dirty = true;
   }
@@ -74,7 +83,10 @@ public void append(Pitch p) {
    * @param p Pitch to append.
    */
   public void prepend(Pitch p) {
-    this.contour.add(0, p);
+    if (this.head == 0) {
+      this.grow();
+    }
+    this.contour[--this.head] = p;
     this.start -= 1;
     this.dirty = true;
   }
@@ -86,7 +98,7 @@ public void prepend(Pitch p) {
    */
   public Pitch getPitch(int i) {
     if (i >= this.start && i <= this.end) {
-      return this.contour.get(i - this.start);
+      return this.contour[this.head + i - this.start];
     } else {
       return null;
     }
@@ -117,7 +129,7 @@ public final int getEnd() {
    * @return Size of the contour.
    */
   public final int size() {
-    return this.contour.size();
+    return this.end - this.start + 1;
   }
 
   /**
@@ -202,7 +214,8 @@ public final boolean overlaps(PitchContour contour) {
   private void calculate() {
     this.salienceStatistics.clear();
     this.frequencyStatistics.clear();
-    for (Pitch pitch : this.contour) {
+    for (int i = this.head; i < this.head + this.size(); i++) {
+      final Pitch pitch = this.contour[i];
       if (pitch != null) {
         this.salienceStatistics.addValue(pitch.getSalience());
         this.frequencyStatistics.addValue(pitch.distanceCents(CENT_SCALE_MINIMUM));
@@ -210,4 +223,16 @@ private void calculate() {
     }
     this.dirty = false;
   }
+
+  /**
+   * Doubles the capacity of the storage and centers the pitches in it, so that there is room to append and to prepend.
+   */
+  private void grow() {
+    final int size = this.size();
+    final Pitch[] grown = new Pitch[2 * this.contour.length];
+    final int head = (grown.length - size) / 2;
+    System.arraycopy(this.contour, this.head, grown, head, size);
+    this.contour = grown;
+    this.head = head;
+  }
 }
@@ -1,6 +1,7 @@
 package org.vitrivr.cineast.core.util.audio.pitch.tracking;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -46,13 +47,30 @@ public class PitchTracker {
    */
   private final List<PitchContour> pitchContours = new ArrayList<>();
   /**
-   * Pitch-candidates that have been ruled out.
+   * Pitch-candidates that have been ruled out, frame after frame; the candidates of frame t start at offsets[t].
    */
-  private Pitch[][] s0;
+  private Pitch[] s0 = new Pitch[0];
   /**
-   * Active pitch-candidates.
+   * Active pitch-candidates, frame after frame; the candidates of frame t start at offsets[t].
    */
-  private Pitch[][] s1;
+  private Pitch[] s1 = new Pitch[0];
+  /**
+   * Index of the first pitch-candidate of each frame in S0 and S1; has one more entry than there are frames.
+   */
+  private int[] offsets = new int[1];
+  /**
+   * Position of the most salient pitch-candidate in each frame in S1 or -1, if the frame is empty. Maintained during tracking.
+   */
+  private int[] maxima = new int[0];
+  /**
+   * Number of frames.
+   */
+  private int frames;
+  /**
+   * Buffers for the weighted pitch-sums and weights of {@link #meanContour(List, double[])}.
+   */
+  private double[] framesum = new double[0];
+  private double[] weights = new double[0];
   /**
    * Number of ms that passes between two adjacent bins.
    */
@@ -89,16 +107,31 @@ public PitchTracker(float t1, float t2, float v_threshold, float d_max, float m_
    * @param t_stepsize The time in milliseconds that passes between to adjacent bins.
    */
   public void initialize(List<List<Pitch>> candidates, float t_stepsize) {
-    /* Initialize S1 and S0 with new pitch-candidates */
-    this.s1 = new Pitch[candidates.size()][];
-    this.s0 = new Pitch[candidates.size()][];
+    /* Initialize S1 and S0 with new pitch-candidates; the arrays of the previous run are re-used if they are large enough. */
+    this.frames = candidates.size();
     this.t_stepsize = t_stepsize;
-    for (int i = 0; i < candidates.size(); i++) {
-      int size = candidates.get(i).size();
-      this.s1[i] = new Pitch[size];
-      this.s0[i] = new Pitch[size];
-      for (int j = 0; j < size; j++) {
-        this.s1[i][j] = candidates.get(i).get(j);
+    if (this.offsets.length < this.frames + 1) {
+      this.offsets = new int[this.frames + 1];
+      this.maxima = new int[this.frames];
+      this.framesum = new double[this.frames];
+      this.weights = new double[this.frames];
+    }
+    for (int t = 0; t < this.frames; t++) {
+      this.offsets[t + 1] = this.offsets[t] + candidates.get(t).size();
+    }
+    final int size = this.offsets[this.frames];
+    if (this.s1.length < size) {
+      this.s1 = new Pitch[size];
+      this.s0 = new Pitch[size];
+    } else {
+      Arrays.fill(this.s1, size, this.s1.length, null);
+      Arrays.fill(this.s0, size, this.s0.length, null);
+    }
+    Arrays.fill(this.s0, 0, size, null);
+    for (int t = 0; t < this.frames; t++) {
+      final List<Pitch> frame = candidates.get(t);
+      for (int i = 0; i < frame.size(); i++) {
+        this.s1[this.offsets[t] + i] = frame.get(i);
       }
     }
 
@@ -119,21 +152,24 @@ public void trackPitches() {
       this.applyGlobalFilter();
     }
 
-    int[] currentPointer = null;
-    Pitch currentPitch = null;
+    /* Determine the most salient pitch per frame, which is kept up to date as pitches are selected from S1. */
+    for (int t = 0; t < this.frames; t++) {
+      this.maxima[t] = this.seekMostSalientInFrameS1(t);
+    }
+
     while (true) {
       /* Find the pitch with the maximum salience in S1 and add it to the melody. */
-      currentPointer = this.seekMostSalientInS1();
-      if (currentPointer[0] == -1 || currentPointer[1] == -1) {
+      final int t = this.seekMostSalientInS1();
+      if (t == -1) {
         break;
       }
 
       /* Select that pitch from S1 and create new PitchContour. */
-      currentPitch = this.selectFromS1(currentPointer[0], currentPointer[1]);
-      final PitchContour contour = new PitchContour(currentPointer[0], currentPitch);
+      final Pitch currentPitch = this.selectFromS1(t, this.maxima[t]);
+      final PitchContour contour = new PitchContour(t, currentPitch);
 
       /* Track pitch contour. */
-      this.track(contour, currentPointer[0]);
+      this.track(contour, t);
 
       /* Add contour to list of contours */
       this.addContour(contour);
@@ -163,14 +199,19 @@ public Melody extractMelody(int iterations) {
      * Use the mean-contour to remove octave-duplicates and pitch-outliers. Perform multiple
      * iterations in which the mean-contour is updated.
      */
-    double[] mean = this.meanContour(this.pitchContours);
+    final double[] mean = this.meanContour(this.pitchContours);
     List<PitchContour> copy = null;
     for (int i = 0; i < iterations; i++) {
-      copy = new ArrayList<>(workingList);
+      if (copy == null) {
+        copy = new ArrayList<>(workingList);
+      } else {
+        copy.clear();
+        copy.addAll(workingList);
+      }
       this.detectAndRemoveOctaveDuplicates(copy, mean);
-      mean = this.meanContour(copy);
+      this.meanContour(copy, mean);
       this.detectAndRemovePitchOutliers(copy, mean);
-      mean = this.meanContour(copy);
+      this.meanContour(copy, mean);
     }
 
     /*
@@ -180,30 +221,38 @@ public Melody extractMelody(int iterations) {
     copy.sort(Comparator.comparingDouble(PitchContour::salienceSum));
     Collections.reverse(workingList);
 
+    /*
+     * Index the first of the remaining pitch-contours that starts at each frame.
+     */
+    final PitchContour[] starting = new PitchContour[this.frames];
+    for (PitchContour contour : workingList) {
+      if (starting[contour.getStart()] == null) {
+        starting[contour.getStart()] = contour;
+      }
+    }
+
     /*
      * Construct melody from remaining pitch-contours.
      */
     Melody melody = new Melody();
-    for (int i = 0; i < this.s1.length; i++) {
-      for (PitchContour contour : workingList) {
-        if (contour.getStart() == i) {
-          Pitch melodyPitch = new Pitch(contour.getPitch(i).getFrequency());
-          int j = i;
-          double time = this.t_stepsize;
-          double salience = contour.getPitch(i).getSalience();
-          while (contour.getPitch(j) != null) {
-            time += this.t_stepsize;
-            salience += contour.getPitch(j).getSalience();
-            j += 1;
-          }
-          if (time > 0.1f) {
-            melodyPitch.setDuration((int) (time * 1000));
-            melodyPitch.setSalience(salience);
+    for (int i = 0; i < this.frames; i++) {
+      final PitchContour contour = starting[i];
+      if (contour != null) {
+        Pitch melodyPitch = new Pitch(contour.getPitch(i).getFrequency());
+        int j = i;
+        double time = this.t_stepsize;
+        double salience = contour.getPitch(i).getSalience();
+        while (contour.getPitch(j) != null) {
+          time += this.t_stepsize;
+          salience += contour.getPitch(j).getSalience();
+          j += 1;
+        }
+        if (time > 0.1f) {
+          melodyPitch.setDuration((int) (time * 1000));
+          melodyPitch.setSalience(salience);
 
-            melody.append(melodyPitch);
-            i = j - 1;
-          }
-          break;
+          melody.append(melodyPitch);
+          i = j - 1;
         }
       }
     }
@@ -211,13 +260,27 @@ public Melody extractMelody(int iterations) {
   }
 
   public double[] meanContour(List<PitchContour> contours) {
+    final double[] pitchmean = new double[this.frames];
+    this.meanContour(contours, pitchmean);
+    return pitchmean;
+  }
+
+  /**
+   * Calculates the salience-weighted mean pitch of the provided contours in a sliding window and writes it to the provided array.
+   *
+   * @param contours  The PitchContours to average.
+   * @param pitchmean Array with one entry per frame, which is overwritten.
+   */
+  private void meanContour(List<PitchContour> contours, double[] pitchmean) {
 
     final int size = 40;
 
     /* Calculate pitch-mean. */
-    double[] framesum = new double[this.s1.length];
-    double[] weights = new double[this.s1.length];
-    double[] pitchmean = new double[this.s1.length];
+    final double[] framesum = this.framesum;
+    final double[] weights = this.weights;
+    Arrays.fill(framesum, 0, this.frames, 0.0);
+    Arrays.fill(weights, 0, this.frames, 0.0);
+    Arrays.fill(pitchmean, 0, this.frames, 0.0);
     for (PitchContour contour : contours) {
       for (int i = contour.getStart(); i < contour.getEnd(); i++) {
         framesum[i] += contour.getPitch(i).getFrequency() * contour.salienceSum();
@@ -225,9 +288,9 @@ public double[] meanContour(List<PitchContour> contours) {
       }
     }
 
-    for (int i = 0; i < framesum.length; i++) {
+    for (int i = 0; i < this.frames; i++) {
       int start = Math.max(0, i - size / 2);
-      int end = Math.min(framesum.length, i + size / 2);
+      int end = Math.min(this.frames, i + size / 2);
       for (int k = start; k < end; k++) {
         if (weights[k] > 0) {
           pitchmean[i] += framesum[k] / weights[k];
@@ -235,20 +298,19 @@ public double[] meanContour(List<PitchContour> contours) {
       }
       pitchmean[i] /= (end - start + 1);
     }
-
-    return pitchmean;
   }
 
   /**
-   * Selects the pitch specified by the two pitch-indices from S1 a and returns it, if it exists. Thereby, the pitch is removed from S1.
+   * Selects the pitch specified by the two pitch-indices from S1 a and returns it, if it exists. Thereby, the pitch is removed from S1 and the most salient pitch of the frame is updated.
    *
    * @param t Temporal index of the pitch candidate.
    * @param i Position of the pitch candidate
    */
   private Pitch selectFromS1(int t, int i) {
-    Pitch pitch = this.s1[t][i];
+    Pitch pitch = this.s1[this.offsets[t] + i];
     if (pitch != null) {
-      this.s1[t][i] = null;
+      this.s1[this.offsets[t] + i] = null;
+      this.maxima[t] = this.seekMostSalientInFrameS1(t);
       return pitch;
     } else {
       return null;
@@ -262,9 +324,9 @@ private Pitch selectFromS1(int t, int i) {
    * @param i Position of the pitch candidate
    */
   private Pitch selectFromS0(int t, int i) {
-    Pitch pitch = this.s0[t][i];
+    Pitch pitch = this.s0[this.offsets[t] + i];
     if (pitch != null) {
-      this.s0[t][i] = null;
+      this.s0[this.offsets[t] + i] = null;
       return pitch;
     }
     return null;
@@ -278,31 +340,40 @@ private Pitch selectFromS0(int t, int i) {
    * @return true if pitch was moved and false otherwise.
    */
   private boolean moveToS0(int t, int i) {
-    if (this.s1[t][i] != null) {
-      this.s0[t][i] = this.s1[t][i];
-      this.s1[t][i] = null;
+    final int idx = this.offsets[t] + i;
+    if (this.s1[idx] != null) {
+      this.s0[idx] = this.s1[idx];
+      this.s1[idx] = null;
       return true;
     } else {
       return false;
     }
   }
 
+  /**
+   * Returns the salience of a pitch-candidate in S1.
+   *
+   * @param t Temporal index of the pitch candidate.
+   * @param i Position of the pitch candidate
+   */
+  private double salienceInS1(int t, int i) {
+    return this.s1[this.offsets[t] + i].getSalience();
+  }
 
   /**
-   * Seeks the pitch with maximum salience in S1 and returns an int array that contains the indexes which point to that maximum. If no maximum was found, {-1, -1} is returned.
+   * Seeks the frame that contains the pitch with maximum salience in S1, using the most salient pitch per frame. If no maximum was found, -1 is returned.
    *
-   * @return Indexes {t,i} pointing to maximum is S1.
+   * @return Temporal index t of the maximum in S1; the maximum itself is at position maxima[t].
    */
-  private int[] seekMostSalientInS1() {
-    int[] max = {-1, -1};
-    for (int t = 0; t < this.s1.length; t++) {
-      int max_i = this.seekMostSalientInFrameS1(t);
+  private int seekMostSalientInS1() {
+    int max = -1;
+    for (int t = 0; t < this.frames; t++) {
+      final int max_i = this.maxima[t];
       if (max_i == -1) {
         continue;
       }
-      if (max[0] == -1 || max[1] == -1 || this.s1[t][max_i].getSalience() > this.s1[max[0]][max[1]].getSalience()) {
-        max[0] = t;
-        max[1] = max_i;
+      if (max == -1 || this.salienceInS1(t, max_i) > this.salienceInS1(max, this.maxima[max])) {
+        max = t;
       }
     }
     return max;
@@ -315,13 +386,13 @@ private int[] seekMostSalientInS1() {
    * @return Index of the maximum in the specified frame.
    */
   private int seekMostSalientInFrameS1(int t) {
-    Pitch[] pitches = this.s1[t];
+    final int offset = this.offsets[t];
     int max = -1;
-    for (int i = 0; i < pitches.length; i++) {
-      if (pitches[i] == null) {
+    for (int i = 0; i < this.offsets[t + 1] - offset; i++) {
+      if (this.s1[offset + i] == null) {
         continue;
       }
-      if (max == -1 || pitches[i].getSalience() > pitches[max].getSalience()) {
+      if (max == -1 || this.s1[offset + i].getSalience() > this.s1[offset + max].getSalience()) {
         max = i;
       }
     }
@@ -342,17 +413,17 @@ private void addContour(PitchContour contour) {
    * Applies a per-frame filter on pitches in S1 and moves all peaks whose salience is bellow a certain threshold from S1 to S0. This filter is described in [1], section II-C.
    */
   private void applyPerFrameFilter() {
-    for (int t = 0; t < this.s1.length; t++) {
+    for (int t = 0; t < this.frames; t++) {
       int max_idx = this.seekMostSalientInFrameS1(t);
       if (max_idx == -1) {
         continue;
       }
-      int size = this.s1[t].length;
+      int size = this.offsets[t + 1] - this.offsets[t];
       for (int i = 0; i < size; i++) {
-        if (this.s1[t][i] == null) {
+        if (this.s1[this.offsets[t] + i] == null) {
           continue;
         }
-        if (this.s1[t][i].getSalience() < this.t1 * this.s1[t][max_idx].getSalience()) {
+        if (this.salienceInS1(t, i) < this.t1 * this.salienceInS1(t, max_idx)) {
           this.moveToS0(t, i);
         }
       }
@@ -364,34 +435,71 @@ private void applyPerFrameFilter() {
    */
   private void applyGlobalFilter() {
     SummaryStatistics statistics = new SummaryStatistics();
+    final int size = this.offsets[this.frames];
 
     /* Iteration #1: Gather data to obtain salience statistics. */
-    for (int t = 0; t < this.s1.length; t++) {
-      for (int i = 0; i < this.s1[t].length; i++) {
-        if (this.s1[t][i] == null) {
-          continue;
-        }
-        statistics.addValue(this.s1[t][i].getSalience());
+    for (int idx = 0; idx < size; idx++) {
+      if (this.s1[idx] == null) {
+        continue;
       }
+      statistics.addValue(this.s1[idx].getSalience());
     }
 
     /* Iteration #2: Move pitches that are bellow the threshold. */
     final double threshold = statistics.getMean() - this.t2 * statistics.getStandardDeviation();
-    for (int t = 0; t < this.s1.length; t++) {
-      for (int i = 0; i < this.s1[t].length; i++) {
-        if (this.s1[t][i] == null) {
-          continue;
-        }
-        if (this.s1[t][i].getSalience() < threshold) {
-          this.moveToS0(t, i);
-        }
+    for (int idx = 0; idx < size; idx++) {
+      if (this.s1[idx] == null) {
+        continue;
+      }
+      if (this.s1[idx].getSalience() < threshold) {
+        this.s0[idx] = this.s1[idx];
+        this.s1[idx] = null;
       }
     }
   }
 
+  /**
+   * Searches a frame of S1 for the first pitch that is within the maximum distance of the provided pitch.
+   *
+   * @param t     Temporal index of the frame.
+   * @param pitch Pitch to measure the distance to.
+   * @return Position of the matching pitch in the frame or -1, if there is none.
+   */
+  private int seekMatchInS1(int t, Pitch pitch) {
+    final int offset = this.offsets[t];
+    for (int j = 0; j < this.offsets[t + 1] - offset; j++) {
+      if (this.s1[offset + j] != null && Math.abs(this.s1[offset + j].distanceCents(pitch)) <= this.d_max) {
+        return j;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Searches a frame of S0 for the first pitch that is within the maximum distance of the provided pitch.
+   *
+   * @param t         Temporal index of the frame.
+   * @param pitch     Pitch to measure the distance to.
+   * @param inclusive Whether a pitch at exactly the maximum distance matches.
+   * @return Position of the matching pitch in the frame or -1, if there is none.
+   */
+  private int seekMatchInS0(int t, Pitch pitch, boolean inclusive) {
+    final int offset = this.offsets[t];
+    for (int j = 0; j < this.offsets[t + 1] - offset; j++) {
+      if (this.s0[offset + j] == null) {
+        continue;
+      }
+      final double distance = Math.abs(this.s0[offset + j].distanceCents(pitch));
+      if (inclusive ? distance <= this.d_max : distance < this.d_max) {
+        return j;
+      }
+    }
+    return -1;
+  }
+
   private void track(final PitchContour contour, final int start) {
     /* If start is the last entry, then no forward-tracking is required. */
-    if (start == this.s1.length - 1) {
+    if (start == this.frames - 1) {
       return;
     }
 
@@ -400,25 +508,15 @@ private void track(final PitchContour contour, final int start) {
     Pitch lastPitch = contour.getPitch(start);
 
     /* Track pitches upstream (i.e. forward in time). */
-    for (int frameindex = start + 1; frameindex < this.s1.length; frameindex++) {
-      /* Flag that indicates, if a matching pitch could be found in the new frame. */
-      boolean found = false;
-
+    for (int frameindex = start + 1; frameindex < this.frames; frameindex++) {
       /* Search for a matching pitch candidate in S1 in the next frame. */
-      for (int j = 0; j < this.s1[frameindex].length; j++) {
-        if (this.s1[frameindex][j] == null) {
-          continue;
-        }
-        if (found = (Math.abs(this.s1[frameindex][j].distanceCents(lastPitch)) <= this.d_max)) {
-          lastPitch = this.selectFromS1(frameindex, j);
-          contour.append(lastPitch);
-          misses = 0;
-          break;
-        }
-      }
+      int j = this.seekMatchInS1(frameindex, lastPitch);
 
       /* If a pitch candidate was found in S1, continue to next iteration. */
-      if (found) {
+      if (j != -1) {
+        lastPitch = this.selectFromS1(frameindex, j);
+        contour.append(lastPitch);
+        misses = 0;
         continue;
       }
 
@@ -431,20 +529,12 @@ private void track(final PitchContour contour, final int start) {
       if (misses * this.t_stepsize >= this.m_max) {
         break;
       }
-      for (int j = 0; j < this.s0[frameindex].length; j++) {
-        if (this.s0[frameindex][j] == null) {
-          continue;
-        }
-        if (found = (Math.abs(this.s0[frameindex][j].distanceCents(lastPitch)) <= this.d_max)) {
-          lastPitch = this.selectFromS0(frameindex, j);
-          contour.append(lastPitch);
-          break;
-        }
-      }
-
-      if (!found) {
+      j = this.seekMatchInS0(frameindex, lastPitch, true);
+      if (j == -1) {
         break;
       }
+      lastPitch = this.selectFromS0(frameindex, j);
+      contour.append(lastPitch);
     }
 
     /* If start is at index 0 then no backwards-tracking is required. */
@@ -458,23 +548,14 @@ private void track(final PitchContour contour, final int start) {
 
     /* Track pitches downstream (i.e. back in time) */
     for (int frameindex = start - 1; frameindex > 0; frameindex--) {
-      boolean found = false;
-
       /* Search for a matching pitch candidate in S1 in the next frame. */
-      for (int j = 0; j < this.s1[frameindex].length; j++) {
-        if (this.s1[frameindex][j] == null) {
-          continue;
-        }
-        if (found = (Math.abs(this.s1[frameindex][j].distanceCents(lastPitch)) <= this.d_max)) {
-          lastPitch = this.selectFromS1(frameindex, j);
-          contour.prepend(lastPitch);
-          misses = 0;
-          break;
-        }
-      }
+      int j = this.seekMatchInS1(frameindex, lastPitch);
 
       /* If a pitch candidate was found in S1, continue to next iteration. */
-      if (found) {
+      if (j != -1) {
+        lastPitch = this.selectFromS1(frameindex, j);
+        contour.prepend(lastPitch);
+        misses = 0;
         continue;
       }
 
@@ -487,21 +568,14 @@ private void track(final PitchContour contour, final int start) {
       if (misses >= this.m_max) {
         break;
       }
-      for (int j = 0; j < this.s0[frameindex].length; j++) {
-        if (this.s0[frameindex][j] == null) {
-          continue;
-        }
-        if (found = (Math.abs(this.s0[frameindex][j].distanceCents(lastPitch)) < this.d_max)) {
-          lastPitch = this.selectFromS0(frameindex, j);
-          contour.prepend(lastPitch);
-          break;
-        }
-      }
 
       /* If no matching pitch was found even in S0, stop tracking. */
-      if (!found) {
+      j = this.seekMatchInS0(frameindex, lastPitch, false);
+      if (j == -1) {
         break;
       }
+      lastPitch = this.selectFromS0(frameindex, j);
+      contour.prepend(lastPitch);
     }
   }
 
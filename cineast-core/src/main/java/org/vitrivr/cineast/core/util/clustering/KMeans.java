@@ -0,0 +1,410 @@
+package org.vitrivr.cineast.core.util.clustering;
+
+import com.carrotsearch.hppc.IntArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.vitrivr.cineast.core.util.distance.DistanceKernel;
+import org.vitrivr.cineast.core.util.distance.DistanceKernels;
+
+/**
+ * k-means clustering of the rows of a flat, row-major float[] matrix.
+ * <p>
+ * Centroids are seeded with k-means++ and refined either with Lloyd iterations, which use Hamerly's bounds to skip most distance computations once the centroids settle, or with mini-batch updates (Sculley, 2010), which trade some accuracy for a fixed cost per iteration on very large inputs. Seeding, assignment and restarts run in parallel; the result depends on the seed only, not on the number of threads.
+ */
+public final class KMeans {
+
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * Number of rows processed by a single parallel task.
+   */
+  private static final int CHUNK = 1024;
+
+  private final DistanceKernel kernel = DistanceKernels.get();
+
+  private int maxIterations = 100;
+
+  private double tolerance = 0d;
+
+  private int restarts = 1;
+
+  private int batchSize = 0;
+
+  private long seed = 0xA1CF3B12L;
+
+  /**
+   * Maximum number of Lloyd iterations or mini-batches per run. Defaults to 100.
+   */
+  public KMeans maxIterations(int maxIterations) {
+    if (maxIterations < 1) {
+      throw new IllegalArgumentException("maxIterations must be positive but was " + maxIterations);
+    }
+    this.maxIterations = maxIterations;
+    return this;
+  }
+
+  /**
+   * A run stops once no centroid moved farther than tolerance (Euclidean) in an iteration. Defaults to 0, i.e. Lloyd iterations run until no row changes its cluster.
+   */
+  public KMeans tolerance(double tolerance) {
+    this.tolerance = tolerance;
+    return this;
+  }
+
+  /**
+   * Number of independently seeded runs; the one with the lowest inertia is returned. Defaults to 1.
+   */
+  public KMeans restarts(int restarts) {
+    if (restarts < 1) {
+      throw new IllegalArgumentException("restarts must be positive but was " + restarts);
+    }
+    this.restarts = restarts;
+    return this;
+  }
+
+  /**
+   * Number of rows sampled per mini-batch, or 0 (the default) to cluster all rows in every iteration.
+   */
+  public KMeans miniBatch(int batchSize) {
+    if (batchSize < 0) {
+      throw new IllegalArgumentException("batchSize must not be negative but was " + batchSize);
+    }
+    this.batchSize = batchSize;
+    return this;
+  }
+
+  public KMeans seed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  /**
+   * Clusters all rows of the given matrix.
+   *
+   * @param data Row-major matrix; its length must be a multiple of dim.
+   * @param dim Number of columns.
+   * @param k Number of clusters.
+   */
+  public KMeansResult fit(float[] data, int dim, int k) {
+    if (dim < 1 || data.length % dim != 0) {
+      throw new IllegalArgumentException("Length of data (" + data.length + ") is not a multiple of dim (" + dim + ").");
+    }
+    return this.fit(data, data.length / dim, dim, k);
+  }
+
+  /**
+   * Clusters the first rows of the given matrix; the remainder of the array is ignored.
+   *
+   * @param data Row-major matrix.
+   * @param rows Number of rows to cluster.
+   * @param dim Number of columns.
+   * @param k Number of clusters.
+   */
+  public KMeansResult fit(float[] data, int rows, int dim, int k) {
+    if (dim < 1 || rows < 0 || (long) rows * dim > data.length) {
+      throw new IllegalArgumentException("Matrix of " + rows + "x" + dim + " does not fit into " + data.length + " elements.");
+    }
+    if (k < 1 || k > rows) {
+      throw new IllegalArgumentException("Cannot partition " + rows + " rows into " + k + " clusters.");
+    }
+    final SplittableRandom random = new SplittableRandom(this.seed);
+    final long[] seeds = new long[this.restarts];
+    for (int r = 0; r < seeds.length; ++r) {
+      seeds[r] = random.nextLong();
+    }
+    final KMeansResult[] results = IntStream.range(0, this.restarts).parallel().mapToObj(r -> this.run(data, rows, dim, k, new SplittableRandom(seeds[r]))).toArray(KMeansResult[]::new);
+    KMeansResult best = results[0];
+    for (KMeansResult result : results) {
+      if (result.getInertia() < best.getInertia()) {
+        best = result;
+      }
+    }
+    return best;
+  }
+
+  private KMeansResult run(float[] data, int n, int dim, int k, SplittableRandom random) {
+    final long start = System.currentTimeMillis();
+    final KMeansResult result;
+    if (this.batchSize > 0 && this.batchSize < n) {
+      final int[] sample = new int[Math.min(n, Math.max(3 * this.batchSize, 3 * k))];
+      for (int i = 0; i < sample.length; ++i) {
+        sample[i] = random.nextInt(n);
+      }
+      result = this.miniBatch(data, n, dim, k, this.seed(data, dim, sample, k, random), random);
+    } else {
+      result = this.lloyd(data, n, dim, k, this.seed(data, dim, IntStream.range(0, n).toArray(), k, random));
+    }
+    LOGGER.debug("k-means with k={} on {}x{} matrix: inertia {} after {} iterations ({} ms).", k, n, dim, result.getInertia(), result.getIterations(), System.currentTimeMillis() - start);
+    return result;
+  }
+
+  /**
+   * k-means++ seeding: every centroid after the first is drawn from the given rows with a probability proportional to its squared distance to the closest centroid drawn so far.
+   */
+  private float[] seed(float[] data, int dim, int[] rows, int k, SplittableRandom random) {
+    final int m = rows.length;
+    final int chunks = chunks(m);
+    final float[] centroids = new float[k * dim];
+    final double[] distances = new double[m];
+    final double[] partials = new double[chunks];
+    Arrays.fill(distances, Double.POSITIVE_INFINITY);
+    System.arraycopy(data, rows[random.nextInt(m)] * dim, centroids, 0, dim);
+    for (int c = 1; c < k; ++c) {
+      final int previous = (c - 1) * dim;
+      IntStream.range(0, chunks).parallel().forEach(t -> {
+        double sum = 0d;
+        for (int i = t * CHUNK, end = Math.min(m, i + CHUNK); i < end; ++i) {
+          final double d = this.kernel.sumOfSquaredDifferences(data, rows[i] * dim, centroids, previous, dim);
+          if (d < distances[i]) {
+            distances[i] = d;
+          }
+          sum += distances[i];
+        }
+        partials[t] = sum;
+      });
+      double total = 0d;
+      for (double partial : partials) {
+        total += partial;
+      }
+      int next;
+      if (total > 0d) {
+        double target = random.nextDouble() * total;
+        int t = 0;
+        while (t < chunks - 1 && target >= partials[t]) {
+          target -= partials[t++];
+        }
+        next = t * CHUNK;
+        for (int end = Math.min(m, next + CHUNK) - 1; next < end && target >= distances[next]; ++next) {
+          target -= distances[next];
+        }
+      } else {
+        /* All rows coincide with a centroid. */
+        next = random.nextInt(m);
+      }
+      System.arraycopy(data, rows[next] * dim, centroids, c * dim, dim);
+    }
+    return centroids;
+  }
+
+  /**
+   * Lloyd iterations with Hamerly's bounds: for every row, an upper bound on the distance to its centroid and a lower bound on the distance to any other centroid are kept up to date with the distances the centroids moved. Rows whose upper bound is below both the lower bound and half the distance from their centroid to the closest other centroid cannot change their cluster and are skipped.
+   */
+  private KMeansResult lloyd(float[] data, int n, int dim, int k, float[] centroids) {
+    final int chunks = chunks(n);
+    final int[] assignment = new int[n];
+    final double[] upper = new double[n];
+    final double[] lower = new double[n];
+    final double[] sums = new double[k * dim];
+    final int[] counts = new int[k];
+    final double[] half = new double[k];
+    final double[] moved = new double[k];
+    final IntArrayList[] changes = new IntArrayList[chunks];
+    for (int t = 0; t < chunks; ++t) {
+      changes[t] = new IntArrayList();
+    }
+
+    IntStream.range(0, chunks).parallel().forEach(t -> {
+      for (int i = t * CHUNK, end = Math.min(n, i + CHUNK); i < end; ++i) {
+        this.nearestTwo(data, i, dim, centroids, k, assignment, upper, lower);
+      }
+    });
+    for (int i = 0; i < n; ++i) {
+      add(data, i, dim, sums, assignment[i], 1d);
+      counts[assignment[i]]++;
+    }
+
+    int iteration = 0;
+    while (iteration < this.maxIterations) {
+      ++iteration;
+
+      /* Move the centroids to the means of their clusters; empty clusters keep their centroid. */
+      double maxMoved = 0d, secondMoved = 0d;
+      int fastest = -1;
+      for (int j = 0; j < k; ++j) {
+        moved[j] = 0d;
+        if (counts[j] == 0) {
+          continue;
+        }
+        double d = 0d;
+        for (int o = j * dim, end = o + dim; o < end; ++o) {
+          final float mean = (float) (sums[o] / counts[j]);
+          final double delta = mean - centroids[o];
+          d += delta * delta;
+          centroids[o] = mean;
+        }
+        moved[j] = Math.sqrt(d);
+        if (moved[j] > maxMoved) {
+          secondMoved = maxMoved;
+          maxMoved = moved[j];
+          fastest = j;
+        } else if (moved[j] > secondMoved) {
+          secondMoved = moved[j];
+        }
+      }
+      if (maxMoved <= this.tolerance) {
+        break;
+      }
+
+      /* Half the distance from every centroid to its closest neighbour. */
+      IntStream.range(0, k).parallel().forEach(j -> {
+        double min = Double.POSITIVE_INFINITY;
+        for (int l = 0; l < k; ++l) {
+          if (l != j) {
+            min = Math.min(min, this.kernel.sumOfSquaredDifferences(centroids, j * dim, centroids, l * dim, dim));
+          }
+        }
+        half[j] = Math.sqrt(min) / 2d;
+      });
+
+      final double max = maxMoved, second = secondMoved;
+      final int fast = fastest;
+      IntStream.range(0, chunks).parallel().forEach(t -> {
+        final IntArrayList changed = changes[t];
+        changed.clear();
+        for (int i = t * CHUNK, end = Math.min(n, i + CHUNK); i < end; ++i) {
+          final int a = assignment[i];
+          upper[i] += moved[a];
+          lower[i] -= a == fast ? second : max;
+          final double bound = Math.max(half[a], lower[i]);
+          if (upper[i] <= bound) {
+            continue;
+          }
+          upper[i] = Math.sqrt(this.kernel.sumOfSquaredDifferences(data, i * dim, centroids, a * dim, dim));
+          if (upper[i] <= bound) {
+            continue;
+          }
+          this.nearestTwo(data, i, dim, centroids, k, assignment, upper, lower);
+          if (assignment[i] != a) {
+            changed.add(i, a);
+          }
+        }
+      });
+
+      /* Apply the changes in a fixed order, which keeps the sums independent of the scheduling. */
+      boolean stable = true;
+      for (IntArrayList changed : changes) {
+        for (int c = 0; c < changed.size(); c += 2) {
+          final int i = changed.get(c), from = changed.get(c + 1), to = assignment[i];
+          add(data, i, dim, sums, from, -1d);
+          add(data, i, dim, sums, to, 1d);
+          counts[from]--;
+          counts[to]++;
+          stable = false;
+        }
+      }
+      if (stable) {
+        break;
+      }
+    }
+    return new KMeansResult(k, dim, centroids, assignment, this.inertia(data, n, dim, centroids, assignment), iteration);
+  }
+
+  /**
+   * Mini-batch k-means: every iteration assigns a random sample of rows to their closest centroid and moves each centroid towards its rows with a learning rate of one over the number of rows it has been assigned so far.
+   */
+  private KMeansResult miniBatch(float[] data, int n, int dim, int k, float[] centroids, SplittableRandom random) {
+    final int[] batch = new int[this.batchSize];
+    final int[] nearest = new int[this.batchSize];
+    final long[] seen = new long[k];
+    final float[] previous = new float[centroids.length];
+    final int chunks = chunks(batch.length);
+    int iteration = 0;
+    while (iteration < this.maxIterations) {
+      ++iteration;
+      for (int b = 0; b < batch.length; ++b) {
+        batch[b] = random.nextInt(n);
+      }
+      IntStream.range(0, chunks).parallel().forEach(t -> {
+        for (int b = t * CHUNK, end = Math.min(batch.length, b + CHUNK); b < end; ++b) {
+          nearest[b] = this.nearest(data, batch[b], dim, centroids, k);
+        }
+      });
+      System.arraycopy(centroids, 0, previous, 0, centroids.length);
+      for (int b = 0; b < batch.length; ++b) {
+        final int j = nearest[b];
+        final float rate = 1f / ++seen[j];
+        for (int o = j * dim, r = batch[b] * dim, end = o + dim; o < end; ++o, ++r) {
+          centroids[o] += rate * (data[r] - centroids[o]);
+        }
+      }
+      double maxMoved = 0d;
+      for (int j = 0; j < k; ++j) {
+        maxMoved = Math.max(maxMoved, this.kernel.sumOfSquaredDifferences(centroids, j * dim, previous, j * dim, dim));
+      }
+      if (Math.sqrt(maxMoved) <= this.tolerance) {
+        break;
+      }
+    }
+
+    final int[] assignment = new int[n];
+    IntStream.range(0, chunks(n)).parallel().forEach(t -> {
+      for (int i = t * CHUNK, end = Math.min(n, i + CHUNK); i < end; ++i) {
+        assignment[i] = this.nearest(data, i, dim, centroids, k);
+      }
+    });
+    return new KMeansResult(k, dim, centroids, assignment, this.inertia(data, n, dim, centroids, assignment), iteration);
+  }
+
+  private int nearest(float[] data, int row, int dim, float[] centroids, int k) {
+    int best = 0;
+    double min = Double.POSITIVE_INFINITY;
+    for (int j = 0; j < k; ++j) {
+      final double d = this.kernel.sumOfSquaredDifferences(data, row * dim, centroids, j * dim, dim);
+      if (d < min) {
+        min = d;
+        best = j;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Assigns the row to its closest centroid and sets its bounds to the exact distances to the closest and the second closest centroid.
+   */
+  private void nearestTwo(float[] data, int row, int dim, float[] centroids, int k, int[] assignment, double[] upper, double[] lower) {
+    int best = 0;
+    double min = Double.POSITIVE_INFINITY, second = Double.POSITIVE_INFINITY;
+    for (int j = 0; j < k; ++j) {
+      final double d = this.kernel.sumOfSquaredDifferences(data, row * dim, centroids, j * dim, dim);
+      if (d < min) {
+        second = min;
+        min = d;
+        best = j;
+      } else if (d < second) {
+        second = d;
+      }
+    }
+    assignment[row] = best;
+    upper[row] = Math.sqrt(min);
+    lower[row] = Math.sqrt(second);
+  }
+
+  private double inertia(float[] data, int n, int dim, float[] centroids, int[] assignment) {
+    final double[] partials = new double[chunks(n)];
+    IntStream.range(0, partials.length).parallel().forEach(t -> {
+      double sum = 0d;
+      for (int i = t * CHUNK, end = Math.min(n, i + CHUNK); i < end; ++i) {
+        sum += this.kernel.sumOfSquaredDifferences(data, i * dim, centroids, assignment[i] * dim, dim);
+      }
+      partials[t] = sum;
+    });
+    double inertia = 0d;
+    for (double partial : partials) {
+      inertia += partial;
+    }
+    return inertia;
+  }
+
+  private static void add(float[] data, int row, int dim, double[] sums, int cluster, double sign) {
+    for (int o = cluster * dim, r = row * dim, end = o + dim; o < end; ++o, ++r) {
+      sums[o] += sign * data[r];
+    }
+  }
+
+  private static int chunks(int rows) {
+    return (rows + CHUNK - 1) / CHUNK;
+  }
+}
@@ -0,0 +1,100 @@
+package org.vitrivr.cineast.core.util.clustering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Result of a {@link KMeans} run. Centroids are stored in a flat, row-major float[] matrix.
+ */
+public final class KMeansResult {
+
+  private final int k;
+
+  private final int dim;
+
+  private final float[] centroids;
+
+  private final int[] assignment;
+
+  private final int[] sizes;
+
+  private final double inertia;
+
+  private final int iterations;
+
+  KMeansResult(int k, int dim, float[] centroids, int[] assignment, double inertia, int iterations) {
+    this.k = k;
+    this.dim = dim;
+    this.centroids = centroids;
+    this.assignment = assignment;
+    this.inertia = inertia;
+    this.iterations = iterations;
+    this.sizes = new int[k];
+    for (int cluster : assignment) {
+      this.sizes[cluster]++;
+    }
+  }
+
+  public int getK() {
+    return this.k;
+  }
+
+  public int getDimension() {
+    return this.dim;
+  }
+
+  /**
+   * Returns the k x dim matrix of centroids. The array is not copied.
+   */
+  public float[] getCentroids() {
+    return this.centroids;
+  }
+
+  public float[] getCentroid(int cluster) {
+    return Arrays.copyOfRange(this.centroids, cluster * this.dim, (cluster + 1) * this.dim);
+  }
+
+  /**
+   * Returns the centroids as double[]s, e.g. for a BoofCV {@link org.ddogleg.clustering.AssignCluster}.
+   */
+  public List<double[]> getCentroidsAsDoubles() {
+    final List<double[]> list = new ArrayList<>(this.k);
+    for (int j = 0; j < this.k; ++j) {
+      final double[] centroid = new double[this.dim];
+      for (int i = 0; i < this.dim; ++i) {
+        centroid[i] = this.centroids[j * this.dim + i];
+      }
+      list.add(centroid);
+    }
+    return list;
+  }
+
+  /**
+   * Returns the cluster of every row. The array is not copied.
+   */
+  public int[] getAssignment() {
+    return this.assignment;
+  }
+
+  /**
+   * Number of rows assigned to the given cluster.
+   */
+  public int getSize(int cluster) {
+    return this.sizes[cluster];
+  }
+
+  /**
+   * Sum of squared distances of all rows to their centroid.
+   */
+  public double getInertia() {
+    return this.inertia;
+  }
+
+  /**
+   * Number of Lloyd iterations or mini-batches that were run.
+   */
+  public int getIterations() {
+    return this.iterations;
+  }
+}
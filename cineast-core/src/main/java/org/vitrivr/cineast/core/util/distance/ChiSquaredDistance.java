@@ -16,16 +16,7 @@ public double applyAsDouble(float[] t, float[] u) {
 
     int len = Math.min(t.length, u.length);
 
-    double dist = 0d;
-
-    for (int i = 0; i < len; ++i) {
-      if (Math.abs(t[i] + u[i]) < 1e-6) {
-        continue;
-      }
-      dist += ((t[i] - u[i]) * (t[i] - u[i])) / (t[i] + u[i]);
-    }
-
-    return dist;
+    return DistanceKernels.get().chiSquared(t, u, len);
   }
 
 }
@@ -20,22 +20,7 @@ public static double cosineDist(float[] t, float[] u) {
 
     int len = Math.min(t.length, u.length);
 
-    double dot = 0d, a = 0d, b = 0d;
-
-    for (int i = 0; i < len; ++i) {
-      dot += t[i] * u[i];
-      a += t[i] * t[i];
-      b += u[i] * u[i];
-    }
-
-    double div = (Math.sqrt(a) * Math.sqrt(b));
-
-    if (div < 1e-6 || Double.isNaN(div)) {
-      return 1d;
-    }
-
-    return 1d - (dot / div);
-
+    return DistanceKernels.get().cosineDistance(t, u, len);
   }
 
 }
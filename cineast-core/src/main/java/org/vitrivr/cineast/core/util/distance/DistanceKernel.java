@@ -0,0 +1,57 @@
+package org.vitrivr.cineast.core.util.distance;
+
+/**
+ * Inner loops of the {@link FloatArrayDistance} implementations. All methods process the first len elements of the provided arrays, which must not be null. Use {@link DistanceKernels#get()} to obtain the best implementation available at runtime.
+ */
+public interface DistanceKernel {
+
+  /**
+   * Returns a human-readable name of this kernel, e.g. for logging.
+   */
+  String name();
+
+  /**
+   * Sum of (t[i] - u[i])^2.
+   */
+  double sumOfSquaredDifferences(float[] t, float[] u, int len);
+
+  /**
+   * Sum of (t[tOffset + i] - u[uOffset + i])^2, e.g. for rows of flat matrices.
+   */
+  double sumOfSquaredDifferences(float[] t, int tOffset, float[] u, int uOffset, int len);
+
+  /**
+   * Sum of (t[i] - u[i])^2 * w[i].
+   */
+  double weightedSumOfSquaredDifferences(float[] t, float[] u, float[] w, int len);
+
+  /**
+   * Sum of |t[i] - u[i]|.
+   */
+  double sumOfAbsoluteDifferences(float[] t, float[] u, int len);
+
+  /**
+   * Sum of |t[i] - u[i]| * w[i].
+   */
+  double weightedSumOfAbsoluteDifferences(float[] t, float[] u, float[] w, int len);
+
+  /**
+   * Sum of (t[i] - u[i])^2 / (t[i] + u[i]), skipping elements where |t[i] + u[i]| < 1e-6.
+   */
+  double chiSquared(float[] t, float[] u, int len);
+
+  /**
+   * Sum of (t[i] - u[i])^2 / (t[i] + u[i]) * w[i].
+   */
+  double weightedChiSquared(float[] t, float[] u, float[] w, int len);
+
+  /**
+   * Cosine distance 1 - (t . u) / (|t| |u|). Returns 1 if either of the norms is (close to) zero.
+   */
+  double cosineDistance(float[] t, float[] u, int len);
+
+  /**
+   * Weighted cosine distance 1 - (sum of t[i] u[i] w[i]) / (sqrt(sum of t[i]^2 w[i]) sqrt(sum of u[i]^2 w[i])).
+   */
+  double weightedCosineDistance(float[] t, float[] u, float[] w, int len);
+}
@@ -0,0 +1,66 @@
+package org.vitrivr.cineast.core.util.distance;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Selects the {@link DistanceKernel} used by the {@link FloatArrayDistance} implementations.
+ * <p>
+ * The SIMD kernel requires the JVM to be started with <code>--add-modules jdk.incubator.vector</code>. If the module is missing, the platform offers too few vector lanes or the system property <code>cineast.distance.simd</code> is set to false, the scalar kernel is used.
+ */
+public final class DistanceKernels {
+
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  private static final String VECTOR_MODULE = "jdk.incubator.vector";
+  private static final String VECTOR_KERNEL = "org.vitrivr.cineast.core.util.distance.VectorDistanceKernel";
+
+  private static final DistanceKernel KERNEL = detect();
+
+  private DistanceKernels() {
+  }
+
+  /**
+   * Returns the fastest {@link DistanceKernel} available at runtime.
+   */
+  public static DistanceKernel get() {
+    return KERNEL;
+  }
+
+  /**
+   * Returns the scalar {@link DistanceKernel}, which is always available.
+   */
+  public static DistanceKernel scalar() {
+    return ScalarDistanceKernel.INSTANCE;
+  }
+
+  /**
+   * Cosine distance from the dot product and the squared norms of two vectors. Returns 1 if either norm is (close to) zero.
+   */
+  static double cosineDistance(double dot, double a, double b) {
+    double div = (Math.sqrt(a) * Math.sqrt(b));
+    if (div < 1e-6 || Double.isNaN(div)) {
+      return 1d;
+    }
+    return 1d - (dot / div);
+  }
+
+  private static DistanceKernel detect() {
+    if (!Boolean.parseBoolean(System.getProperty("cineast.distance.simd", "true"))) {
+      LOGGER.info("SIMD distance kernel disabled; using scalar kernel.");
+      return ScalarDistanceKernel.INSTANCE;
+    }
+    if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+      LOGGER.info("Module {} not available; using scalar distance kernel.", VECTOR_MODULE);
+      return ScalarDistanceKernel.INSTANCE;
+    }
+    try {
+      final DistanceKernel kernel = (DistanceKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+      LOGGER.info("Using {} distance kernel.", kernel.name());
+      return kernel;
+    } catch (ReflectiveOperationException | LinkageError e) {
+      LOGGER.info("SIMD distance kernel not available ({}); using scalar kernel.", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+      return ScalarDistanceKernel.INSTANCE;
+    }
+  }
+}
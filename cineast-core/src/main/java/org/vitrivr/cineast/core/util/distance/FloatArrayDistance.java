@@ -114,6 +114,22 @@ public static FloatArrayDistance fromQueryConfig(ReadableQueryConfig queryConfig
   @Override
   double applyAsDouble(float[] t, float[] u);
 
+  /**
+   * Computes the distances between a query and a block of vectors, i.e. out[i] = applyAsDouble(query, block[i]). Intended for exact scans, which can then feed the distances into a {@link org.vitrivr.cineast.core.data.TopKCollector}.
+   *
+   * @param query The query vector.
+   * @param block The vectors to compare the query to.
+   * @param out   Array the distances are written to; must have at least block.length elements.
+   */
+  default void distances(float[] query, float[][] block, double[] out) {
+    if (out.length < block.length) {
+      throw new IllegalArgumentException("output array is too small: " + out.length + " < " + block.length);
+    }
+    for (int i = 0; i < block.length; ++i) {
+      out[i] = applyAsDouble(query, block[i]);
+    }
+  }
+
   @Override
   default double compute(double[] a, double[] b) throws DimensionMismatchException {
     if (a == null || b == null) {
@@ -0,0 +1,418 @@
+package org.vitrivr.cineast.core.util.distance;
+
+import com.googlecode.javaewah.datastructure.BitSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import org.vitrivr.cineast.core.data.TopKCollector;
+
+/**
+ * Immutable index for nearest neighbour and radius search over 64 bit binary codes (e.g. the perceptual hashes of {@link org.vitrivr.cineast.core.features.DCTImageHash}) under the Hamming distance.
+ * <p>
+ * Implements multi-index hashing (Norouzi et al., Fast Search in Hamming Space with Multi-Index Hashing, CVPR 2012): Every code is split into m disjoint substrings and each substring is indexed in an exact-match table. If two codes differ in at most r bits, at least one of their substrings differs in at most floor(r / m) bits, so candidates are found by probing all table keys within that (small) radius of the query's substrings. Candidates are verified with {@link Long#bitCount(long)}. If a query would probe more keys than scanning the codes costs, the index falls back to a linear scan.
+ * <p>
+ * Codes are identified by their position in the array the index was built from.
+ */
+public final class HammingIndex {
+
+  /**
+   * Number of bits per code.
+   */
+  public static final int BITS = Long.SIZE;
+
+  /**
+   * Maximum substring width for which tables are addressed directly (instead of by binary search).
+   */
+  private static final int MAX_DIRECT_WIDTH = 16;
+
+  /**
+   * A query falls back to a linear scan once the expected number of probed keys and verified candidates exceeds size / SCAN_RATIO.
+   */
+  private static final int SCAN_RATIO = 4;
+
+  private final long[] codes;
+
+  private final Table[] tables;
+
+  /**
+   * Creates a {@link HammingIndex} with a number of substrings suitable for the number of codes.
+   *
+   * @param codes The codes to index. The array is not copied and must not be modified afterwards.
+   */
+  public static HammingIndex of(long[] codes) {
+    return new HammingIndex(codes, defaultSubstrings(codes.length));
+  }
+
+  /**
+   * Creates a {@link HammingIndex}.
+   *
+   * @param codes      The codes to index. The array is not copied and must not be modified afterwards.
+   * @param substrings Number of substrings each code is split into (between 2 and 32).
+   */
+  public static HammingIndex of(long[] codes, int substrings) {
+    return new HammingIndex(codes, substrings);
+  }
+
+  /**
+   * Returns the number of substrings recommended for the given number of codes, i.e. substrings of about log2(n) bits but at most 16 bits, so tables can be addressed directly.
+   */
+  public static int defaultSubstrings(int n) {
+    final double log2 = Math.log(Math.max(n, 2)) / Math.log(2);
+    return Math.max(BITS / MAX_DIRECT_WIDTH, Math.min(16, (int) Math.round(BITS / log2)));
+  }
+
+  /**
+   * Packs a {@link BitSet} of at most 64 bits into a long; bit i of the {@link BitSet} becomes bit i of the long.
+   *
+   * @throws IllegalArgumentException If a bit beyond the 64th is set.
+   */
+  public static long pack(BitSet bitSet) {
+    long code = 0L;
+    for (int i = bitSet.nextSetBit(0); i >= 0; i = bitSet.nextSetBit(i + 1)) {
+      if (i >= BITS) {
+        throw new IllegalArgumentException("BitSet has more than " + BITS + " bits.");
+      }
+      code |= 1L << i;
+    }
+    return code;
+  }
+
+  private HammingIndex(long[] codes, int substrings) {
+    if (substrings < 2 || substrings > 32) {
+      throw new IllegalArgumentException("Number of substrings must be between 2 and 32 but was " + substrings + ".");
+    }
+    this.codes = codes;
+    this.tables = new Table[substrings];
+    int shift = 0;
+    for (int j = 0; j < substrings; j++) {
+      final int width = BITS / substrings + (j < BITS % substrings ? 1 : 0);
+      this.tables[j] = new Table(codes, shift, width);
+      shift += width;
+    }
+  }
+
+  /**
+   * Returns the number of indexed codes.
+   */
+  public int size() {
+    return this.codes.length;
+  }
+
+  /**
+   * Returns the number of substrings each code is split into.
+   */
+  public int substrings() {
+    return this.tables.length;
+  }
+
+  /**
+   * Returns the code at the given position.
+   */
+  public long code(int index) {
+    return this.codes[index];
+  }
+
+  /**
+   * Returns the k codes closest to the query, closest first. Ties are broken by position.
+   *
+   * @param query  The query code.
+   * @param k      Number of codes to return.
+   * @param filter Optional predicate on positions; codes it rejects are skipped. May be null.
+   */
+  public List<Match> knn(long query, int k, IntPredicate filter) {
+    final TopKCollector<Void> top = TopKCollector.smallest(Math.max(0, Math.min(k, this.codes.length)));
+    if (top.getK() == 0) {
+      return new ArrayList<>(0);
+    }
+    long cost = 0;
+    for (int s = 0; ; s++) {
+      /* Fall back to a linear scan if probing this radius costs more than scanning. */
+      for (Table table : this.tables) {
+        cost += this.cost(table, s);
+      }
+      if (cost > this.codes.length / SCAN_RATIO) {
+        return this.scan(query, k, filter);
+      }
+
+      boolean exhausted = false;
+      for (int j = 0; j < this.tables.length; j++) {
+        final Table table = this.tables[j];
+        final int q = table.key(query);
+        final int finalJ = j;
+        final int radius = s;
+        table.forEachKey(q, s, key -> table.forEachEntry(key, id -> {
+          if (this.isFirstOccurrence(query, id, radius, finalJ) && (filter == null || filter.test(id))) {
+            top.offer(Long.bitCount(query ^ this.codes[id]), id);
+          }
+        }));
+        exhausted |= s >= table.width;
+      }
+
+      /* Codes not found so far differ from the query in at least s + 1 bits in every substring. */
+      if (exhausted || (top.size() == top.getK() && top.worstScore() < (long) this.tables.length * (s + 1))) {
+        return matches(top);
+      }
+    }
+  }
+
+  /**
+   * Returns all codes that differ from the query in at most r bits, closest first. Ties are broken by position.
+   *
+   * @param query  The query code.
+   * @param r      Maximum Hamming distance.
+   * @param filter Optional predicate on positions; codes it rejects are skipped. May be null.
+   */
+  public List<Match> radius(long query, int r, IntPredicate filter) {
+    if (r < 0) {
+      return new ArrayList<>(0);
+    }
+    final int s = r / this.tables.length;
+    long cost = 0;
+    for (Table table : this.tables) {
+      for (int i = 0; i <= Math.min(s, table.width); i++) {
+        cost += this.cost(table, i);
+      }
+    }
+    if (cost > this.codes.length / SCAN_RATIO) {
+      return this.scanRadius(query, r, filter);
+    }
+
+    final List<Match> matches = new ArrayList<>();
+    for (int j = 0; j < this.tables.length; j++) {
+      final Table table = this.tables[j];
+      final int q = table.key(query);
+      final int finalJ = j;
+      for (int distance = 0; distance <= Math.min(s, table.width); distance++) {
+        table.forEachKey(q, distance, key -> table.forEachEntry(key, id -> {
+          if (!this.isFoundInEarlierTable(query, id, s, finalJ) && (filter == null || filter.test(id))) {
+            final int d = Long.bitCount(query ^ this.codes[id]);
+            if (d <= r) {
+              matches.add(new Match(id, d));
+            }
+          }
+        }));
+      }
+    }
+    matches.sort(Match.ORDER);
+    return matches;
+  }
+
+  /**
+   * Returns the k codes closest to the query by scanning all codes. Same result as {@link #knn(long, int, IntPredicate)}.
+   */
+  public List<Match> scan(long query, int k, IntPredicate filter) {
+    final TopKCollector<Void> top = TopKCollector.smallest(Math.max(0, Math.min(k, this.codes.length)));
+    for (int i = 0; i < this.codes.length; i++) {
+      final int d = Long.bitCount(query ^ this.codes[i]);
+      if (top.accepts(d) && (filter == null || filter.test(i))) {
+        top.offer(d, i);
+      }
+    }
+    return matches(top);
+  }
+
+  /**
+   * Returns all codes within distance r of the query by scanning all codes. Same result as {@link #radius(long, int, IntPredicate)}.
+   */
+  public List<Match> scanRadius(long query, int r, IntPredicate filter) {
+    final List<Match> matches = new ArrayList<>();
+    for (int i = 0; i < this.codes.length; i++) {
+      final int d = Long.bitCount(query ^ this.codes[i]);
+      if (d <= r && (filter == null || filter.test(i))) {
+        matches.add(new Match(i, d));
+      }
+    }
+    matches.sort(Match.ORDER);
+    return matches;
+  }
+
+  /**
+   * During k-NN search, keys are probed by increasing substring distance s and, for equal s, by table. Returns true if the code is encountered for the first time when probing distance s in table j, which avoids keeping track of visited codes.
+   */
+  private boolean isFirstOccurrence(long query, int id, int s, int j) {
+    final long code = this.codes[id];
+    for (int i = 0; i < this.tables.length; i++) {
+      if (i == j) {
+        continue;
+      }
+      final int d = this.tables[i].distance(query, code);
+      if (d < s || (d == s && i < j)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * During radius search, tables are probed one after another up to substring distance s. Returns true if the code has already been encountered in one of the tables before table j.
+   */
+  private boolean isFoundInEarlierTable(long query, int id, int s, int j) {
+    final long code = this.codes[id];
+    for (int i = 0; i < j; i++) {
+      if (this.tables[i].distance(query, code) <= s) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static List<Match> matches(TopKCollector<Void> top) {
+    final int[] ids = top.sortedIds();
+    final double[] scores = top.sortedScores();
+    final List<Match> matches = new ArrayList<>(ids.length);
+    for (int i = 0; i < ids.length; i++) {
+      matches.add(new Match(ids[i], (int) scores[i]));
+    }
+    return matches;
+  }
+
+  /**
+   * Expected number of probed keys plus verified candidates when probing all keys at distance s in the given table, assuming uniformly distributed codes.
+   */
+  private long cost(Table table, int s) {
+    return binomial(table.width, s) * (1 + ((long) this.codes.length >>> table.width));
+  }
+
+  private static long binomial(int n, int k) {
+    if (k < 0 || k > n) {
+      return 0;
+    }
+    long result = 1;
+    for (int i = 1; i <= Math.min(k, n - k); i++) {
+      result = result * (n - i + 1) / i;
+    }
+    return result;
+  }
+
+  /**
+   * A code found by a query.
+   *
+   * @param index    Position of the code.
+   * @param distance Hamming distance between the code and the query.
+   */
+  public record Match(int index, int distance) {
+
+    private static final Comparator<Match> ORDER = Comparator.comparingInt(Match::distance).thenComparingInt(Match::index);
+  }
+
+  /**
+   * Exact-match table for one substring: Maps substring values to the positions of the codes that contain them.
+   */
+  private static final class Table {
+
+    private final int shift;
+    private final int width;
+    private final long mask;
+
+    /**
+     * Distinct substring values in ascending order, or null if the table is addressed directly by substring value.
+     */
+    private final int[] keys;
+
+    /**
+     * Entries for key (index) i are stored in ids[starts[i]] to ids[starts[i + 1] - 1].
+     */
+    private final int[] starts;
+    private final int[] ids;
+
+    private Table(long[] codes, int shift, int width) {
+      this.shift = shift;
+      this.width = width;
+      this.mask = width == BITS ? -1L : (1L << width) - 1;
+      this.ids = new int[codes.length];
+      if (width <= MAX_DIRECT_WIDTH) {
+        /* Counting sort by substring value. */
+        this.keys = null;
+        this.starts = new int[(1 << width) + 1];
+        for (long code : codes) {
+          this.starts[this.key(code) + 1]++;
+        }
+        for (int i = 1; i < this.starts.length; i++) {
+          this.starts[i] += this.starts[i - 1];
+        }
+        final int[] next = Arrays.copyOf(this.starts, this.starts.length - 1);
+        for (int i = 0; i < codes.length; i++) {
+          this.ids[next[this.key(codes[i])]++] = i;
+        }
+      } else {
+        final long[] pairs = new long[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+          pairs[i] = ((long) this.key(codes[i]) << 32) | i;
+        }
+        Arrays.sort(pairs);
+        int distinct = 0;
+        for (int i = 0; i < pairs.length; i++) {
+          if (i == 0 || (pairs[i] >> 32) != (pairs[i - 1] >> 32)) {
+            distinct++;
+          }
+        }
+        this.keys = new int[distinct];
+        this.starts = new int[distinct + 1];
+        int k = -1;
+        for (int i = 0; i < pairs.length; i++) {
+          if (i == 0 || (pairs[i] >> 32) != (pairs[i - 1] >> 32)) {
+            this.keys[++k] = (int) (pairs[i] >> 32);
+            this.starts[k] = i;
+          }
+          this.ids[i] = (int) pairs[i];
+        }
+        this.starts[distinct] = pairs.length;
+      }
+    }
+
+    private int key(long code) {
+      return (int) ((code >>> this.shift) & this.mask);
+    }
+
+    /**
+     * Hamming distance between the substrings of two codes.
+     */
+    private int distance(long a, long b) {
+      return Long.bitCount(((a ^ b) >>> this.shift) & this.mask);
+    }
+
+    /**
+     * Invokes the consumer for every key that differs from the given key in exactly s bits. Enumerates the bit masks with s bits set in lexicographic order (Gosper's hack).
+     */
+    private void forEachKey(int key, int s, IntConsumer consumer) {
+      if (s > this.width) {
+        return;
+      }
+      if (s == 0) {
+        consumer.accept(key);
+        return;
+      }
+      final long limit = 1L << this.width;
+      for (long flip = (1L << s) - 1; flip < limit; ) {
+        consumer.accept(key ^ (int) flip);
+        final long c = flip & -flip;
+        final long r = flip + c;
+        flip = (((r ^ flip) >>> 2) / c) | r;
+      }
+    }
+
+    /**
+     * Invokes the consumer for the position of every code whose substring equals the given key.
+     */
+    private void forEachEntry(int key, IntConsumer consumer) {
+      final int from, to;
+      if (this.keys == null) {
+        from = this.starts[key];
+        to = this.starts[key + 1];
+      } else {
+        final int k = Arrays.binarySearch(this.keys, key);
+        if (k < 0) {
+          return;
+        }
+        from = this.starts[k];
+        to = this.starts[k + 1];
+      }
+      for (int i = from; i < to; i++) {
+        consumer.accept(this.ids[i]);
+      }
+    }
+  }
+}
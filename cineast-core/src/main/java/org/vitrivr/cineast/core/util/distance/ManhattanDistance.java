@@ -16,13 +16,7 @@ public double applyAsDouble(float[] t, float[] u) {
 
     int len = Math.min(t.length, u.length);
 
-    double dist = 0d;
-
-    for (int i = 0; i < len; ++i) {
-      dist += Math.abs(t[i] - u[i]);
-    }
-
-    return dist;
+    return DistanceKernels.get().sumOfAbsoluteDifferences(t, u, len);
   }
 
 }
@@ -0,0 +1,106 @@
+package org.vitrivr.cineast.core.util.distance;
+
+/**
+ * Plain Java implementation of the {@link DistanceKernel}. Evaluates every element in order, so results are identical to the loops the {@link FloatArrayDistance} implementations used before kernels were introduced.
+ */
+final class ScalarDistanceKernel implements DistanceKernel {
+
+  static final ScalarDistanceKernel INSTANCE = new ScalarDistanceKernel();
+
+  private ScalarDistanceKernel() {
+  }
+
+  @Override
+  public String name() {
+    return "scalar";
+  }
+
+  @Override
+  public double sumOfSquaredDifferences(float[] t, float[] u, int len) {
+    double dist = 0d;
+    for (int i = 0; i < len; ++i) {
+      dist += (t[i] - u[i]) * (t[i] - u[i]);
+    }
+    return dist;
+  }
+
+  @Override
+  public double sumOfSquaredDifferences(float[] t, int tOffset, float[] u, int uOffset, int len) {
+    double dist = 0d;
+    for (int i = 0; i < len; ++i) {
+      final float d = t[tOffset + i] - u[uOffset + i];
+      dist += d * d;
+    }
+    return dist;
+  }
+
+  @Override
+  public double weightedSumOfSquaredDifferences(float[] t, float[] u, float[] w, int len) {
+    double dist = 0d;
+    for (int i = 0; i < len; ++i) {
+      dist += (t[i] - u[i]) * (t[i] - u[i]) * w[i];
+    }
+    return dist;
+  }
+
+  @Override
+  public double sumOfAbsoluteDifferences(float[] t, float[] u, int len) {
+    double dist = 0d;
+    for (int i = 0; i < len; ++i) {
+      dist += Math.abs(t[i] - u[i]);
+    }
+    return dist;
+  }
+
+  @Override
+  public double weightedSumOfAbsoluteDifferences(float[] t, float[] u, float[] w, int len) {
+    double dist = 0d;
+    for (int i = 0; i < len; ++i) {
+      dist += Math.abs(t[i] - u[i]) * w[i];
+    }
+    return dist;
+  }
+
+  @Override
+  public double chiSquared(float[] t, float[] u, int len) {
+    double dist = 0d;
+    for (int i = 0; i < len; ++i) {
+      if (Math.abs(t[i] + u[i]) < 1e-6) {
+        continue;
+      }
+      dist += ((t[i] - u[i]) * (t[i] - u[i])) / (t[i] + u[i]);
+    }
+    return dist;
+  }
+
+  @Override
+  public double weightedChiSquared(float[] t, float[] u, float[] w, int len) {
+    double dist = 0d;
+    for (int i = 0; i < len; ++i) {
+      dist += (((t[i] - u[i]) * (t[i] - u[i])) / (t[i] + u[i])) * w[i];
+    }
+    return dist;
+  }
+
+  @Override
+  public double cosineDistance(float[] t, float[] u, int len) {
+    double dot = 0d, a = 0d, b = 0d;
+    for (int i = 0; i < len; ++i) {
+      dot += t[i] * u[i];
+      a += t[i] * t[i];
+      b += u[i] * u[i];
+    }
+    return DistanceKernels.cosineDistance(dot, a, b);
+  }
+
+  @Override
+  public double weightedCosineDistance(float[] t, float[] u, float[] w, int len) {
+    double dot = 0d, a = 0d, b = 0d;
+    for (int i = 0; i < len; ++i) {
+      dot += t[i] * u[i] * w[i];
+      a += t[i] * t[i] * w[i];
+      b += u[i] * u[i] * w[i];
+    }
+    return 1d - (dot / (Math.sqrt(a) * Math.sqrt(b)));
+  }
+}
@@ -16,11 +16,7 @@ public double applyAsDouble(float[] t, float[] u) {
 
     int len = Math.min(t.length, u.length);
 
-    double dist = 0d;
-
-    for (int i = 0; i < len; ++i) {
-      dist += (t[i] - u[i]) * (t[i] - u[i]);
-    }
+    double dist = DistanceKernels.get().sumOfSquaredDifferences(t, u, len);
 
     return dist;
   }
@@ -0,0 +1,196 @@
+package org.vitrivr.cineast.core.util.distance;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD implementation of the {@link DistanceKernel} based on the (incubating) JDK Vector API.
+ * <p>
+ * Partial sums are accumulated lane-wise in single precision and reduced once at the end, so results differ from the {@link ScalarDistanceKernel} (which accumulates every element in double precision) within floating point tolerance. Only instantiated by {@link DistanceKernels} if the module jdk.incubator.vector is available at runtime.
+ */
+final class VectorDistanceKernel implements DistanceKernel {
+
+  private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+  /**
+   * Minimum number of lanes for which the SIMD kernel is worthwhile.
+   */
+  private static final int MIN_LANES = 4;
+
+  VectorDistanceKernel() {
+    if (SPECIES.length() < MIN_LANES) {
+      throw new UnsupportedOperationException("Preferred vector species has only " + SPECIES.length() + " lanes.");
+    }
+  }
+
+  @Override
+  public String name() {
+    return "vector (" + SPECIES.vectorBitSize() + " bit)";
+  }
+
+  @Override
+  public double sumOfSquaredDifferences(float[] t, float[] u, int len) {
+    final int bound = SPECIES.loopBound(len);
+    FloatVector acc = FloatVector.zero(SPECIES);
+    int i = 0;
+    for (; i < bound; i += SPECIES.length()) {
+      final FloatVector d = FloatVector.fromArray(SPECIES, t, i).sub(FloatVector.fromArray(SPECIES, u, i));
+      acc = d.fma(d, acc);
+    }
+    double dist = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < len; ++i) {
+      dist += (t[i] - u[i]) * (t[i] - u[i]);
+    }
+    return dist;
+  }
+
+  @Override
+  public double sumOfSquaredDifferences(float[] t, int tOffset, float[] u, int uOffset, int len) {
+    final int bound = SPECIES.loopBound(len);
+    FloatVector acc = FloatVector.zero(SPECIES);
+    int i = 0;
+    for (; i < bound; i += SPECIES.length()) {
+      final FloatVector d = FloatVector.fromArray(SPECIES, t, tOffset + i).sub(FloatVector.fromArray(SPECIES, u, uOffset + i));
+      acc = d.fma(d, acc);
+    }
+    double dist = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < len; ++i) {
+      final float d = t[tOffset + i] - u[uOffset + i];
+      dist += d * d;
+    }
+    return dist;
+  }
+
+  @Override
+  public double weightedSumOfSquaredDifferences(float[] t, float[] u, float[] w, int len) {
+    final int bound = SPECIES.loopBound(len);
+    FloatVector acc = FloatVector.zero(SPECIES);
+    int i = 0;
+    for (; i < bound; i += SPECIES.length()) {
+      final FloatVector d = FloatVector.fromArray(SPECIES, t, i).sub(FloatVector.fromArray(SPECIES, u, i));
+      acc = d.mul(d).fma(FloatVector.fromArray(SPECIES, w, i), acc);
+    }
+    double dist = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < len; ++i) {
+      dist += (t[i] - u[i]) * (t[i] - u[i]) * w[i];
+    }
+    return dist;
+  }
+
+  @Override
+  public double sumOfAbsoluteDifferences(float[] t, float[] u, int len) {
+    final int bound = SPECIES.loopBound(len);
+    FloatVector acc = FloatVector.zero(SPECIES);
+    int i = 0;
+    for (; i < bound; i += SPECIES.length()) {
+      acc = acc.add(FloatVector.fromArray(SPECIES, t, i).sub(FloatVector.fromArray(SPECIES, u, i)).abs());
+    }
+    double dist = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < len; ++i) {
+      dist += Math.abs(t[i] - u[i]);
+    }
+    return dist;
+  }
+
+  @Override
+  public double weightedSumOfAbsoluteDifferences(float[] t, float[] u, float[] w, int len) {
+    final int bound = SPECIES.loopBound(len);
+    FloatVector acc = FloatVector.zero(SPECIES);
+    int i = 0;
+    for (; i < bound; i += SPECIES.length()) {
+      final FloatVector d = FloatVector.fromArray(SPECIES, t, i).sub(FloatVector.fromArray(SPECIES, u, i)).abs();
+      acc = d.fma(FloatVector.fromArray(SPECIES, w, i), acc);
+    }
+    double dist = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < len; ++i) {
+      dist += Math.abs(t[i] - u[i]) * w[i];
+    }
+    return dist;
+  }
+
+  @Override
+  public double chiSquared(float[] t, float[] u, int len) {
+    final int bound = SPECIES.loopBound(len);
+    FloatVector acc = FloatVector.zero(SPECIES);
+    int i = 0;
+    for (; i < bound; i += SPECIES.length()) {
+      final FloatVector a = FloatVector.fromArray(SPECIES, t, i);
+      final FloatVector b = FloatVector.fromArray(SPECIES, u, i);
+      final FloatVector d = a.sub(b);
+      final FloatVector s = a.add(b);
+      final VectorMask<Float> valid = s.abs().compare(VectorOperators.GE, 1e-6f);
+      acc = acc.add(d.mul(d).div(s), valid);
+    }
+    double dist = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < len; ++i) {
+      if (Math.abs(t[i] + u[i]) < 1e-6) {
+        continue;
+      }
+      dist += ((t[i] - u[i]) * (t[i] - u[i])) / (t[i] + u[i]);
+    }
+    return dist;
+  }
+
+  @Override
+  public double weightedChiSquared(float[] t, float[] u, float[] w, int len) {
+    final int bound = SPECIES.loopBound(len);
+    FloatVector acc = FloatVector.zero(SPECIES);
+    int i = 0;
+    for (; i < bound; i += SPECIES.length()) {
+      final FloatVector a = FloatVector.fromArray(SPECIES, t, i);
+      final FloatVector b = FloatVector.fromArray(SPECIES, u, i);
+      final FloatVector d = a.sub(b);
+      acc = d.mul(d).div(a.add(b)).fma(FloatVector.fromArray(SPECIES, w, i), acc);
+    }
+    double dist = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < len; ++i) {
+      dist += (((t[i] - u[i]) * (t[i] - u[i])) / (t[i] + u[i])) * w[i];
+    }
+    return dist;
+  }
+
+  @Override
+  public double cosineDistance(float[] t, float[] u, int len) {
+    final int bound = SPECIES.loopBound(len);
+    FloatVector dotAcc = FloatVector.zero(SPECIES), aAcc = FloatVector.zero(SPECIES), bAcc = FloatVector.zero(SPECIES);
+    int i = 0;
+    for (; i < bound; i += SPECIES.length()) {
+      final FloatVector a = FloatVector.fromArray(SPECIES, t, i);
+      final FloatVector b = FloatVector.fromArray(SPECIES, u, i);
+      dotAcc = a.fma(b, dotAcc);
+      aAcc = a.fma(a, aAcc);
+      bAcc = b.fma(b, bAcc);
+    }
+    double dot = dotAcc.reduceLanes(VectorOperators.ADD), a = aAcc.reduceLanes(VectorOperators.ADD), b = bAcc.reduceLanes(VectorOperators.ADD);
+    for (; i < len; ++i) {
+      dot += t[i] * u[i];
+      a += t[i] * t[i];
+      b += u[i] * u[i];
+    }
+    return DistanceKernels.cosineDistance(dot, a, b);
+  }
+
+  @Override
+  public double weightedCosineDistance(float[] t, float[] u, float[] w, int len) {
+    final int bound = SPECIES.loopBound(len);
+    FloatVector dotAcc = FloatVector.zero(SPECIES), aAcc = FloatVector.zero(SPECIES), bAcc = FloatVector.zero(SPECIES);
+    int i = 0;
+    for (; i < bound; i += SPECIES.length()) {
+      final FloatVector a = FloatVector.fromArray(SPECIES, t, i);
+      final FloatVector b = FloatVector.fromArray(SPECIES, u, i);
+      final FloatVector c = FloatVector.fromArray(SPECIES, w, i);
+      dotAcc = a.mul(b).fma(c, dotAcc);
+      aAcc = a.mul(a).fma(c, aAcc);
+      bAcc = b.mul(b).fma(c, bAcc);
+    }
+    double dot = dotAcc.reduceLanes(VectorOperators.ADD), a = aAcc.reduceLanes(VectorOperators.ADD), b = bAcc.reduceLanes(VectorOperators.ADD);
+    for (; i < len; ++i) {
+      dot += t[i] * u[i] * w[i];
+      a += t[i] * t[i] * w[i];
+      b += u[i] * u[i] * w[i];
+    }
+    return 1d - (dot / (Math.sqrt(a) * Math.sqrt(b)));
+  }
+}
@@ -27,13 +27,7 @@ public double applyAsDouble(float[] t, float[] u) {
 
     int len = Math.min(Math.min(t.length, u.length), this.weights.length);
 
-    double dist = 0d;
-
-    for (int i = 0; i < len; ++i) {
-      dist += (((t[i] - u[i]) * (t[i] - u[i])) / (t[i] + u[i])) * this.weights[i];
-    }
-
-    return dist;
+    return DistanceKernels.get().weightedChiSquared(t, u, this.weights, len);
   }
 
 }
@@ -27,14 +27,6 @@ public double applyAsDouble(float[] t, float[] u) {
 
     int len = Math.min(Math.min(t.length, u.length), this.weights.length);
 
-    double dot = 0d, a = 0d, b = 0d;
-
-    for (int i = 0; i < len; ++i) {
-      dot += t[i] * u[i] * this.weights[i];
-      a += t[i] * t[i] * this.weights[i];
-      b += u[i] * u[i] * this.weights[i];
-    }
-
-    return 1d - (dot / (Math.sqrt(a) * Math.sqrt(b)));
+    return DistanceKernels.get().weightedCosineDistance(t, u, this.weights, len);
   }
 }
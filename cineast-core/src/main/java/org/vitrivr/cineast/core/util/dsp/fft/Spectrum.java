@@ -211,6 +211,15 @@ public double[] array() {
     return this.spectrum;
   }
 
+  /**
+   * Returns the float array that holds the frequency labels of the spectrum.
+   *
+   * @return Float array with frequency labels.
+   */
+  public float[] frequencies() {
+    return this.frequencies;
+  }
+
   /**
    * Returns a reduced version of the spectrum, limiting the view to the specified frequency-range.
    *
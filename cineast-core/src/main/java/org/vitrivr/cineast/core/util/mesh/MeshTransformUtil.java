@@ -44,8 +44,8 @@ private MeshTransformUtil() {
    * @param size Length of the longest edge of the mesh's bounding box (for scaling).
    * @return KHL transformed copy of the original Mesh
    */
-  public static Mesh khlTransform(Mesh mesh, float size) {
-    Mesh copy = new Mesh(mesh);
+  public static Mesh khlTransform(ReadableMesh mesh, float size) {
+    Mesh copy = Mesh.copyOf(mesh);
     khlTransformInPlace(copy, size);
     return copy;
   }
@@ -132,7 +132,7 @@ public static void khlTransformInPlace(WritableMesh mesh, float size) {
    * @return Scaled copy of the original Mesh
    */
   public static Mesh scale(ReadableMesh mesh, float size) {
-    Mesh copy = new Mesh(mesh);
+    Mesh copy = Mesh.copyOf(mesh);
     scaleInPlace(copy, size);
     return copy;
   }
@@ -161,7 +161,7 @@ public static void scaleInPlace(WritableMesh mesh, float size) {
    * @return Centered copy of the original Mesh
    */
   public static Mesh center(ReadableMesh mesh) {
-    Mesh copy = new Mesh(mesh);
+    Mesh copy = Mesh.copyOf(mesh);
     centerInPlace(copy);
     return copy;
   }
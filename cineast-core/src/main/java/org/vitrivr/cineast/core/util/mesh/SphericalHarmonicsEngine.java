@@ -0,0 +1,230 @@
+package org.vitrivr.cineast.core.util.mesh;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.util.FastMath;
+import org.vitrivr.cineast.core.data.m3d.VoxelGrid;
+import org.vitrivr.cineast.core.util.math.MathHelper;
+import org.vitrivr.cineast.core.util.math.functions.SphericalHarmonicsFunction;
+
+/**
+ * Calculates the SphericalHarmonics descriptor of a {@link VoxelGrid} as used by the {@link org.vitrivr.cineast.core.features.SphericalHarmonics} feature modules.
+ * <p>
+ * The values of the Spherical Harmonics functions Y_lm at the sampled angles and the voxel indices hit by every sample at every radius only depend on the grid size and the harmonics to consider. They are therefore calculated once per (grid size, min_l, max_l) and shared between all invocations. Extraction then merely walks the precomputed sample indices over a bit-packed occupancy array and accumulates the coefficients in primitive arrays, one radius per task.
+ * <p>
+ * The order of all floating point operations is the same as the one of the original, per-sample evaluation, which is why the resulting descriptors are identical.
+ */
+public final class SphericalHarmonicsEngine {
+
+  /**
+   * Increment of the angles ϑ and ϼ during calculation of the descriptors.
+   */
+  public static final float INCREMENT = 0.1f;
+
+  /**
+   * Cap on R (i.e. radii up to R-cap are considered).
+   */
+  public static final int CAP = 10;
+
+  /**
+   * Cache of engines, one per (grid size, min_l, max_l).
+   */
+  private static final ConcurrentHashMap<Key, SphericalHarmonicsEngine> ENGINES = new ConcurrentHashMap<>();
+
+  /**
+   * Size of the voxel grid the descriptor is calculated for, excluding the safety-voxel.
+   */
+  private final int gridSize;
+
+  /**
+   * Number of radii sampled by the descriptor.
+   */
+  private final int radii;
+
+  /**
+   * Number of coefficients (l, m) per radius.
+   */
+  private final int coefficients;
+
+  /**
+   * Number of (ϑ, ϼ) samples per radius.
+   */
+  private final int samples;
+
+  /**
+   * Real part of the conjugated, scaled Spherical Harmonics functions; indexed by [sample * coefficients + coefficient].
+   */
+  private final double[] basisReal;
+
+  /**
+   * Imaginary part of the conjugated, scaled Spherical Harmonics functions; indexed by [sample * coefficients + coefficient].
+   */
+  private final double[] basisImaginary;
+
+  /**
+   * Flat voxel index hit by every sample; indexed by [radius * samples + sample].
+   */
+  private final int[] sampleIndices;
+
+  /**
+   * Returns the shared {@link SphericalHarmonicsEngine} for the provided parameters. The engine is created upon first use.
+   *
+   * @param gridSize Size of the Voxel-Grid (excluding the safety-voxel).
+   * @param minL     Minimum harmonic l to consider for feature vector.
+   * @param maxL     Maximum harmonic l to consider for feature vector.
+   * @return {@link SphericalHarmonicsEngine}
+   */
+  public static SphericalHarmonicsEngine getInstance(int gridSize, int minL, int maxL) {
+    return ENGINES.computeIfAbsent(new Key(gridSize, minL, maxL), k -> new SphericalHarmonicsEngine(k.gridSize, k.minL, k.maxL));
+  }
+
+  /**
+   * Returns the number of components of a descriptor calculated for the provided parameters.
+   *
+   * @param gridSize Size of the Voxel-Grid (excluding the safety-voxel).
+   * @param minL     Minimum harmonic l to consider for feature vector.
+   * @param maxL     Maximum harmonic l to consider for feature vector.
+   * @return Length of the feature vector.
+   */
+  public static int descriptorLength(int gridSize, int minL, int maxL) {
+    return (gridSize / 2 - CAP) * (SphericalHarmonicsFunction.numberOfCoefficients(maxL, true) - SphericalHarmonicsFunction.numberOfCoefficients(minL - 1, true));
+  }
+
+  /**
+   * Private constructor; use {@link #getInstance(int, int, int)}.
+   */
+  private SphericalHarmonicsEngine(int gridSize, int minL, int maxL) {
+    if (gridSize / 2 <= CAP) {
+      throw new IllegalArgumentException("SphericalHarmonics descriptors require a grid size larger than " + (2 * CAP + 1) + ".");
+    }
+    final int R = gridSize / 2;
+    final int dimension = gridSize + 1;
+    this.gridSize = gridSize;
+    this.radii = R - CAP;
+    this.coefficients = SphericalHarmonicsFunction.numberOfCoefficients(maxL, true) - SphericalHarmonicsFunction.numberOfCoefficients(minL - 1, true);
+
+    /* Collect the sampled angles; accumulation in float is on purpose, so as to hit exactly the same angles as the original implementation. */
+    int count = 0;
+    for (float theta = 0.0f; theta <= 2 * Math.PI; theta += INCREMENT) {
+      for (float phi = 0.0f; phi <= Math.PI; phi += INCREMENT) {
+        count++;
+      }
+    }
+    this.samples = count;
+    final float[] thetas = new float[count];
+    final float[] phis = new float[count];
+    int s = 0;
+    for (float theta = 0.0f; theta <= 2 * Math.PI; theta += INCREMENT) {
+      for (float phi = 0.0f; phi <= Math.PI; phi += INCREMENT, s++) {
+        thetas[s] = theta;
+        phis[s] = phi;
+      }
+    }
+
+    /* Tabulate conj(Y_lm(ϑ, ϼ)) * dϑ * dϼ for every sample. */
+    final double factor = INCREMENT * INCREMENT;
+    this.basisReal = new double[this.samples * this.coefficients];
+    this.basisImaginary = new double[this.samples * this.coefficients];
+    int c = 0;
+    for (int l = minL; l <= maxL; l++) {
+      for (int m = 0; m <= l; m++, c++) {
+        final SphericalHarmonicsFunction fkt = new SphericalHarmonicsFunction(l, m);
+        for (s = 0; s < this.samples; s++) {
+          final Complex value = fkt.value(thetas[s], phis[s]);
+          this.basisReal[s * this.coefficients + c] = value.getReal() * factor;
+          this.basisImaginary[s * this.coefficients + c] = -value.getImaginary() * factor;
+        }
+      }
+    }
+
+    /* Tabulate the voxel hit by every sample at every radius. */
+    this.sampleIndices = new int[this.radii * this.samples];
+    for (int r = 0; r < this.radii; r++) {
+      for (s = 0; s < this.samples; s++) {
+        final int x = (int) ((r + 1) * FastMath.sin(thetas[s]) * FastMath.cos(phis[s])) + R;
+        final int y = (int) ((r + 1) * FastMath.cos(thetas[s])) + R;
+        final int z = (int) ((r + 1) * FastMath.sin(thetas[s]) * FastMath.sin(phis[s])) + R;
+        this.sampleIndices[r * this.samples + s] = (x * dimension + y) * dimension + z;
+      }
+    }
+  }
+
+  /**
+   * Returns the size of the VoxelGrid (excluding the safety-voxel) this {@link SphericalHarmonicsEngine} expects.
+   *
+   * @return Grid size.
+   */
+  public int getGridSize() {
+    return this.gridSize;
+  }
+
+  /**
+   * Returns the length of the descriptors calculated by this {@link SphericalHarmonicsEngine}.
+   *
+   * @return Length of the feature vector.
+   */
+  public int getDescriptorLength() {
+    return this.radii * this.coefficients;
+  }
+
+  /**
+   * Calculates the L2-normalized SphericalHarmonics descriptor for the provided {@link VoxelGrid}.
+   *
+   * @param grid {@link VoxelGrid} of size (grid size + 1) in every dimension.
+   * @return Feature vector.
+   * @throws IllegalArgumentException If the size of the {@link VoxelGrid} doesn't match.
+   */
+  public float[] describe(VoxelGrid grid) {
+    final int dimension = this.gridSize + 1;
+    if (grid.getSizeX() != dimension || grid.getSizeY() != dimension || grid.getSizeZ() != dimension) {
+      throw new IllegalArgumentException("VoxelGrid must be of size " + dimension + " in every dimension.");
+    }
+    if (!grid.isVisible()) {
+      return new float[this.getDescriptorLength()];
+    }
+    return this.describe(grid.toPackedOccupancy());
+  }
+
+  /**
+   * Calculates the L2-normalized SphericalHarmonics descriptor for the provided, bit-packed occupancy array (see {@link VoxelGrid#toPackedOccupancy()}).
+   *
+   * @param occupancy Bit-packed occupancy of a (grid size + 1)^3 grid.
+   * @return Feature vector.
+   */
+  public float[] describe(long[] occupancy) {
+    final float[] feature = new float[this.getDescriptorLength()];
+    IntStream.range(0, this.radii).parallel().forEach(r -> this.describeRadius(occupancy, r, feature));
+    return MathHelper.normalizeL2(feature);
+  }
+
+  /**
+   * Calculates the coefficients for a single radius and writes their magnitudes to the respective slice of the feature vector.
+   */
+  private void describeRadius(long[] occupancy, int r, float[] feature) {
+    final double[] real = new double[this.coefficients];
+    final double[] imaginary = new double[this.coefficients];
+    final int offset = r * this.samples;
+    for (int s = 0; s < this.samples; s++) {
+      final int index = this.sampleIndices[offset + s];
+      if ((occupancy[index >>> 6] & (1L << (index & 63))) == 0) {
+        continue;
+      }
+      final int base = s * this.coefficients;
+      for (int c = 0; c < this.coefficients; c++) {
+        real[c] += this.basisReal[base + c];
+        imaginary[c] += this.basisImaginary[base + c];
+      }
+    }
+    for (int c = 0; c < this.coefficients; c++) {
+      feature[r * this.coefficients + c] = (float) new Complex(real[c], imaginary[c]).abs();
+    }
+  }
+
+  /**
+   * Cache key for {@link SphericalHarmonicsEngine}s.
+   */
+  private record Key(int gridSize, int minL, int maxL) {
+
+  }
+}
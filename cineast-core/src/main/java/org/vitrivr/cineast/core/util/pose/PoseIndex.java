@@ -0,0 +1,159 @@
+package org.vitrivr.cineast.core.util.pose;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.vitrivr.cineast.core.data.TopKCollector;
+import org.vitrivr.cineast.core.data.providers.primitive.PrimitiveTypeProvider;
+
+/**
+ * Column store of the joint angles and weights of persisted skeletons, which evaluates the weighted angle distance of {@link org.vitrivr.cineast.core.features.SkeletonPose} in Java. This makes pose search independent of the distance functions a database offers.
+ * <p>
+ * Angles and weights of all skeletons are packed into two flat float[] arrays of size * dim elements. The distance between a stored skeleton (angles a, weights w) and a query (angles q, weights v) is
+ * <pre>
+ *   sum_i min(w_i, v_i) * |a_i - q_i| + PI * (sum_i v_i - sum_i min(w_i, v_i))
+ * </pre>
+ * i.e. a Manhattan distance over the angles that are known in both skeletons plus the maximum distance of PI for every angle of the query that is unknown in the stored skeleton. This is the expression SkeletonPose evaluates in Cottontail DB using vmin, vsum, sub, mul and manhattanw.
+ */
+public final class PoseIndex {
+
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * Number of skeletons above which a query is scanned in parallel chunks.
+   */
+  private static final int CHUNK_SIZE = 16384;
+
+  private final int dim;
+
+  private final String[] segments;
+
+  private final int[] persons;
+
+  private final float[] angles;
+
+  private final float[] weights;
+
+  /**
+   * @param dim      Number of angles per skeleton.
+   * @param segments Segment ID of every skeleton.
+   * @param persons  Person ID of every skeleton within its segment.
+   * @param angles   Angles of all skeletons, dim per skeleton.
+   * @param weights  Weights of all angles, dim per skeleton.
+   */
+  public PoseIndex(int dim, String[] segments, int[] persons, float[] angles, float[] weights) {
+    if (persons.length != segments.length || angles.length != segments.length * dim || weights.length != angles.length) {
+      throw new IllegalArgumentException("Columns of the pose index must have the same number of skeletons.");
+    }
+    this.dim = dim;
+    this.segments = segments;
+    this.persons = persons;
+    this.angles = angles;
+    this.weights = weights;
+  }
+
+  /**
+   * Packs the rows of a skeleton entity, e.g. as returned by {@link org.vitrivr.cineast.core.db.DBSelector#getAll(List, int)}. Rows whose angles or weights do not have dim elements are skipped.
+   */
+  public static PoseIndex of(List<Map<String, PrimitiveTypeProvider>> rows, int dim, String idColumn, String personColumn, String angleColumn, String weightColumn) {
+    final String[] segments = new String[rows.size()];
+    final int[] persons = new int[rows.size()];
+    final float[] angles = new float[rows.size() * dim];
+    final float[] weights = new float[rows.size() * dim];
+    int size = 0;
+    for (Map<String, PrimitiveTypeProvider> row : rows) {
+      final float[] a = PrimitiveTypeProvider.getSafeFloatArray(row.get(angleColumn));
+      final float[] w = PrimitiveTypeProvider.getSafeFloatArray(row.get(weightColumn));
+      if (a.length != dim || w.length != dim) {
+        LOGGER.warn("Skipping skeleton of segment {} with {} angles and {} weights instead of {}.", row.get(idColumn).getString(), a.length, w.length, dim);
+        continue;
+      }
+      segments[size] = row.get(idColumn).getString();
+      persons[size] = row.get(personColumn).getInt();
+      System.arraycopy(a, 0, angles, size * dim, dim);
+      System.arraycopy(w, 0, weights, size * dim, dim);
+      size++;
+    }
+    if (size < rows.size()) {
+      return new PoseIndex(dim, Arrays.copyOf(segments, size), Arrays.copyOf(persons, size), Arrays.copyOf(angles, size * dim), Arrays.copyOf(weights, size * dim));
+    }
+    return new PoseIndex(dim, segments, persons, angles, weights);
+  }
+
+  public int size() {
+    return this.segments.length;
+  }
+
+  public int getDimension() {
+    return this.dim;
+  }
+
+  /**
+   * Calculates the weighted angle distance between the skeleton at the given offset and a query.
+   */
+  public static double distance(float[] angles, float[] weights, int offset, float[] query, float[] queryWeights) {
+    double sum = 0.0;
+    double missing = 0.0;
+    for (int i = 0; i < query.length; i++) {
+      final float w = Math.min(weights[offset + i], queryWeights[i]);
+      sum += w * (double) Math.abs(angles[offset + i] - query[i]);
+      missing += queryWeights[i] - w;
+    }
+    return sum + Math.PI * missing;
+  }
+
+  /**
+   * Calculates the weighted angle distance between a stored skeleton and a query.
+   *
+   * @param index Index of the stored skeleton.
+   */
+  public double distance(int index, float[] query, float[] queryWeights) {
+    return distance(this.angles, this.weights, index * this.dim, query, queryWeights);
+  }
+
+  /**
+   * Returns the k skeletons closest to the query in ascending order of their distance. Ties are broken in favour of the skeleton that was stored first.
+   *
+   * @param query        Angles of the query skeleton.
+   * @param queryWeights Weights of the query angles.
+   * @param k            Maximum number of skeletons to return.
+   * @return {@link PoseMatches} of the query.
+   */
+  public PoseMatches nearest(float[] query, float[] queryWeights, int k) {
+    if (query.length != this.dim || queryWeights.length != this.dim) {
+      throw new IllegalArgumentException("Query must have " + this.dim + " angles and weights.");
+    }
+    final int chunks = (this.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    IntStream range = IntStream.range(0, chunks);
+    if (chunks > 1) {
+      range = range.parallel();
+    }
+    final TopKCollector<Void> collector = range.mapToObj(c -> {
+      final TopKCollector<Void> partial = TopKCollector.smallest(k);
+      final int end = Math.min(this.size(), (c + 1) * CHUNK_SIZE);
+      for (int i = c * CHUNK_SIZE; i < end; i++) {
+        final double distance = this.distance(i, query, queryWeights);
+        if (partial.accepts(distance)) {
+          partial.offer(distance, i);
+        }
+      }
+      return partial;
+    }).reduce((a, b) -> {
+      a.merge(b);
+      return a;
+    }).orElseGet(() -> TopKCollector.smallest(k));
+
+    final int[] ids = collector.sortedIds();
+    final double[] distances = collector.sortedScores();
+    final String[] segments = new String[ids.length];
+    final int[] persons = new int[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      segments[i] = this.segments[ids[i]];
+      persons[i] = this.persons[ids[i]];
+    }
+    return new PoseMatches(segments, persons, distances);
+  }
+}
@@ -0,0 +1,138 @@
+package org.vitrivr.cineast.core.util.pose;
+
+import com.carrotsearch.hppc.IntArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+import org.vitrivr.cineast.core.data.score.ScoreElement;
+import org.vitrivr.cineast.core.data.score.SegmentScoreElement;
+import org.vitrivr.cineast.core.util.HungarianAlgorithm;
+
+/**
+ * The skeletons retrieved for a single query skeleton, in ascending order of their distance, and the scoring of multi-person queries based on them.
+ */
+public final class PoseMatches {
+
+  private final String[] segments;
+
+  private final int[] persons;
+
+  private final double[] distances;
+
+  public PoseMatches(String[] segments, int[] persons, double[] distances) {
+    if (persons.length != segments.length || distances.length != segments.length) {
+      throw new IllegalArgumentException("Segments, persons and distances must have the same length.");
+    }
+    this.segments = segments;
+    this.persons = persons;
+    this.distances = distances;
+  }
+
+  public int size() {
+    return this.segments.length;
+  }
+
+  public String getSegment(int i) {
+    return this.segments[i];
+  }
+
+  public int getPerson(int i) {
+    return this.persons[i];
+  }
+
+  public double getDistance(int i) {
+    return this.distances[i];
+  }
+
+  /**
+   * Scores the segments retrieved for the skeletons of a (multi-person) query.
+   * <p>
+   * For every segment, the query skeletons are assigned to the distinct persons retrieved in that segment such that the total distance is minimal, using the {@link HungarianAlgorithm} on a queries x persons cost matrix. Pairs that have not been retrieved cost maxDistance. The score of a segment is the sum of the correspondences of the assigned pairs divided by the number of query skeletons, so that a segment only scores 1 if it contains a perfect match for every query skeleton.
+   *
+   * @param matches        The matches of every query skeleton.
+   * @param maxDistance    Distance used for pairs of query skeleton and person that have not been retrieved.
+   * @param correspondence Converts a distance into a score.
+   * @param limit          Maximum number of segments to return.
+   * @return Scored segments, best first.
+   */
+  public static List<ScoreElement> score(List<PoseMatches> matches, double maxDistance, DoubleUnaryOperator correspondence, int limit) {
+    final int queries = matches.size();
+    final Map<String, SegmentCosts> segments = new HashMap<>();
+    for (int q = 0; q < queries; q++) {
+      final PoseMatches match = matches.get(q);
+      for (int i = 0; i < match.size(); i++) {
+        segments.computeIfAbsent(match.segments[i], s -> new SegmentCosts(queries, maxDistance)).add(q, match.persons[i], match.distances[i]);
+      }
+    }
+
+    final List<ScoreElement> results = new ArrayList<>(segments.size());
+    for (Map.Entry<String, SegmentCosts> entry : segments.entrySet()) {
+      results.add(new SegmentScoreElement(entry.getKey(), entry.getValue().score(correspondence) / queries));
+    }
+    results.sort(ScoreElement.SCORE_COMPARATOR.reversed().thenComparing(ScoreElement::getId));
+    return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+  }
+
+  /**
+   * The distances between the query skeletons and the persons retrieved in a segment, as a flat queries x persons matrix that grows by one column per person.
+   */
+  private static final class SegmentCosts {
+
+    private final int queries;
+
+    private final double maxDistance;
+
+    private final IntArrayList persons = new IntArrayList(2);
+
+    private double[] costs;
+
+    private SegmentCosts(int queries, double maxDistance) {
+      this.queries = queries;
+      this.maxDistance = maxDistance;
+      this.costs = new double[0];
+    }
+
+    private void add(int query, int person, double distance) {
+      int column = this.persons.indexOf(person);
+      if (column < 0) {
+        column = this.persons.size();
+        this.persons.add(person);
+        this.costs = Arrays.copyOf(this.costs, this.persons.size() * this.queries);
+        Arrays.fill(this.costs, column * this.queries, (column + 1) * this.queries, this.maxDistance);
+      }
+      final int cell = column * this.queries + query;
+      this.costs[cell] = Math.min(this.costs[cell], distance);
+    }
+
+    private double score(DoubleUnaryOperator correspondence) {
+      final int columns = this.persons.size();
+
+      /* With a single query skeleton or a single person, the assignment is the best pair. */
+      if (this.queries == 1 || columns == 1) {
+        double min = Double.MAX_VALUE;
+        for (double cost : this.costs) {
+          min = Math.min(min, cost);
+        }
+        return correspondence.applyAsDouble(min);
+      }
+
+      final double[][] matrix = new double[this.queries][columns];
+      for (int q = 0; q < this.queries; q++) {
+        for (int p = 0; p < columns; p++) {
+          matrix[q][p] = this.costs[p * this.queries + q];
+        }
+      }
+      final int[] assignment = new HungarianAlgorithm(matrix).execute();
+      double score = 0.0;
+      for (int q = 0; q < this.queries; q++) {
+        if (assignment[q] >= 0) {
+          score += correspondence.applyAsDouble(matrix[q][assignment[q]]);
+        }
+      }
+      return score;
+    }
+  }
+}
@@ -0,0 +1,452 @@
+package org.vitrivr.cineast.core.util.synthetic;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import javax.imageio.ImageIO;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import org.vitrivr.cineast.core.data.MediaType;
+import org.vitrivr.cineast.core.data.raw.CachedDataFactory;
+import org.vitrivr.cineast.core.extraction.decode.video.FFMpegVideoEncoder;
+import org.vitrivr.cineast.core.util.json.JacksonJsonProvider;
+
+/**
+ * Deterministically generates synthetic media from a seed, for benchmarks and as test fixtures: images with controlled colour and edge content, videos with known shot boundaries, tones and chirps, and meshes.
+ * <p>
+ * All content is a function of the seed, the kind of media and the index of the item, so individual items can be regenerated without generating the whole corpus. Within a shot of a video, only a small rectangle moves slowly over a uniform background; consecutive shots differ by at least 60 degrees in the hue of the background, so every shot boundary is a hard cut.
+ */
+public final class SyntheticMedia {
+
+  /**
+   * Name of the manifest that {@link #writeCorpus(Path, Corpus)} writes to the root of the corpus.
+   */
+  public static final String MANIFEST = "manifest.json";
+
+  /**
+   * Minimum number of frames of a shot.
+   */
+  public static final int MIN_SHOT_LENGTH = 30;
+
+  /**
+   * Maximum number of frames of a shot.
+   */
+  public static final int MAX_SHOT_LENGTH = 150;
+
+  /**
+   * Maximum number of stripes of an image.
+   */
+  public static final int MAX_STRIPES = 32;
+
+  private final long seed;
+
+  /**
+   * Constructor for {@link SyntheticMedia}.
+   *
+   * @param seed Seed all content is derived from.
+   */
+  public SyntheticMedia(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Returns the name of the sub-directory of a corpus that holds the items of a {@link MediaType}.
+   *
+   * @param type {@link MediaType} of the items.
+   * @throws IllegalArgumentException If no items of the {@link MediaType} are generated.
+   */
+  public static String directory(MediaType type) {
+    switch (type) {
+      case IMAGE:
+        return "images";
+      case VIDEO:
+        return "videos";
+      case AUDIO:
+        return "audio";
+      case MODEL3D:
+        return "meshes";
+      default:
+        throw new IllegalArgumentException("No synthetic media of type " + type + ".");
+    }
+  }
+
+  private SplittableRandom random(MediaType type, int index) {
+    return new SplittableRandom(this.seed * 0x9E3779B97F4A7C15L + type.getId() * 0xBF58476D1CE4E5B9L + index);
+  }
+
+  private static int hsv(float hue, float saturation, float value) {
+    return 0xFF000000 | Color.HSBtoRGB(hue, saturation, value);
+  }
+
+  /**
+   * Returns the number of stripes of an image, which controls its edge content: Each stripe contributes two edges, as long as the image is wide enough to fit all stripes.
+   *
+   * @param index Index of the image.
+   */
+  public int stripes(int index) {
+    return this.random(MediaType.IMAGE, index).nextInt(MAX_STRIPES + 1);
+  }
+
+  /**
+   * Generates an image: A background of a single colour, crossed by stripes of a second colour, which are vertical, horizontal or diagonal.
+   *
+   * @param index  Index of the image.
+   * @param width  Width in pixels.
+   * @param height Height in pixels.
+   * @return Pixels as packed ARGB values, row by row.
+   */
+  public int[] image(int index, int width, int height) {
+    final SplittableRandom random = this.random(MediaType.IMAGE, index);
+    final int stripes = random.nextInt(MAX_STRIPES + 1);
+    final float hue = random.nextFloat();
+    final int background = hsv(hue, 0.3f + 0.7f * random.nextFloat(), 0.3f + 0.7f * random.nextFloat());
+    final int foreground = hsv((hue + 0.5f) % 1.0f, 0.3f + 0.7f * random.nextFloat(), 0.3f + 0.7f * random.nextFloat());
+    final int orientation = random.nextInt(3);
+    final int[] pixels = new int[width * height];
+    final int extent = orientation == 0 ? width : orientation == 1 ? height : width + height - 1;
+    final int period = Math.max(1, extent / (2 * stripes + 1));
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        final int position = orientation == 0 ? x : orientation == 1 ? y : x + y;
+        final boolean stripe = position / period % 2 == 1 && position / period < 2 * stripes;
+        pixels[y * width + x] = stripe ? foreground : background;
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Returns the first frame of every shot of a video, except the first shot, which starts at frame 0.
+   *
+   * @param video  Index of the video.
+   * @param frames Number of frames of the video.
+   * @return Ascending frame numbers.
+   */
+  public int[] shotBoundaries(int video, int frames) {
+    final SplittableRandom random = this.random(MediaType.VIDEO, video);
+    final List<Integer> boundaries = new ArrayList<>();
+    int start = 0;
+    while (true) {
+      start += MIN_SHOT_LENGTH + random.nextInt(MAX_SHOT_LENGTH - MIN_SHOT_LENGTH + 1);
+      if (start >= frames) {
+        break;
+      }
+      boundaries.add(start);
+    }
+    return boundaries.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Generates a frame of a video. The background colour is uniform within a shot; a rectangle of a second colour moves by one pixel per frame.
+   *
+   * @param video      Index of the video.
+   * @param boundaries Shot boundaries of the video, as returned by {@link #shotBoundaries(int, int)}.
+   * @param frame      Number of the frame.
+   * @param width      Width in pixels.
+   * @param height     Height in pixels.
+   * @return Pixels as packed ARGB values, row by row.
+   */
+  public int[] videoFrame(int video, int[] boundaries, int frame, int width, int height) {
+    int shot = 0;
+    while (shot < boundaries.length && boundaries[shot] <= frame) {
+      shot++;
+    }
+    final int start = shot == 0 ? 0 : boundaries[shot - 1];
+
+    /* The hue of each shot is derived from that of the previous one, so neighbouring shots always differ clearly. */
+    final SplittableRandom random = this.random(MediaType.VIDEO, video).split();
+    float hue = random.nextFloat();
+    float saturation = 0.0f;
+    float value = 0.0f;
+    for (int s = 0; s <= shot; s++) {
+      hue = (hue + 1.0f / 6.0f + random.nextFloat() * 2.0f / 3.0f) % 1.0f;
+      saturation = 0.5f + 0.5f * random.nextFloat();
+      value = 0.4f + 0.5f * random.nextFloat();
+    }
+    final int background = hsv(hue, saturation, value);
+    final int foreground = hsv((hue + 0.5f) % 1.0f, saturation, 1.0f - value / 2.0f);
+
+    final int size = Math.max(1, Math.min(width, height) / 8);
+    final int x0 = (width / 4 + (frame - start)) % Math.max(1, width - size);
+    final int y0 = height / 2 - size / 2;
+    final int[] pixels = new int[width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        pixels[y * width + x] = x >= x0 && x < x0 + size && y >= y0 && y < y0 + size ? foreground : background;
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Returns the frequencies of an audio item in Hz: For even indices, the one to three partials of a steady tone; for odd indices, the start and end frequency of a linear chirp.
+   *
+   * @param index Index of the audio item.
+   */
+  public double[] frequencies(int index) {
+    final SplittableRandom random = this.random(MediaType.AUDIO, index);
+    final int partials = index % 2 == 0 ? 1 + random.nextInt(3) : 2;
+    final double[] frequencies = new double[partials];
+    for (int i = 0; i < partials; i++) {
+      /* Between 110 Hz and 1760 Hz, uniformly on a logarithmic scale. */
+      frequencies[i] = 110.0 * Math.pow(2.0, 4.0 * random.nextDouble());
+    }
+    return frequencies;
+  }
+
+  /**
+   * Generates the samples of an audio item, see {@link #frequencies(int)}.
+   *
+   * @param index      Index of the audio item.
+   * @param sampleRate Sample rate in Hz.
+   * @param samples    Number of samples.
+   * @return Samples between -1 and 1.
+   */
+  public float[] audio(int index, int sampleRate, int samples) {
+    final double[] frequencies = this.frequencies(index);
+    final float[] audio = new float[samples];
+    final double duration = (double) samples / sampleRate;
+    for (int i = 0; i < samples; i++) {
+      final double t = (double) i / sampleRate;
+      double value = 0.0;
+      if (index % 2 == 0) {
+        for (double frequency : frequencies) {
+          value += Math.sin(2.0 * Math.PI * frequency * t) / frequencies.length;
+        }
+      } else {
+        /* The phase of a linear chirp is the integral of its frequency. */
+        value = Math.sin(2.0 * Math.PI * (frequencies[0] * t + (frequencies[1] - frequencies[0]) * t * t / (2.0 * duration)));
+      }
+      audio[i] = (float) (0.8 * value);
+    }
+    return audio;
+  }
+
+  /**
+   * Generates a mesh: A UV sphere whose radius is modulated by a few random low-frequency bumps. The resolution grows with the index.
+   *
+   * @param index Index of the mesh.
+   * @return Vertex positions as consecutive x, y and z coordinates, and triangles as consecutive vertex indices.
+   */
+  public Mesh mesh(int index) {
+    final SplittableRandom random = this.random(MediaType.MODEL3D, index);
+    final int rings = 8 + 4 * (index % 8);
+    final int segments = 2 * rings;
+    final double[] bumps = new double[6];
+    for (int i = 0; i < bumps.length; i++) {
+      bumps[i] = random.nextDouble() * (i % 2 == 0 ? 0.3 : 6.0);
+    }
+
+    final float[] positions = new float[3 * ((rings - 1) * segments + 2)];
+    int p = 0;
+    for (int r = 1; r < rings; r++) {
+      final double theta = Math.PI * r / rings;
+      for (int s = 0; s < segments; s++) {
+        final double phi = 2.0 * Math.PI * s / segments;
+        final double radius = 1.0 + bumps[0] * Math.sin(Math.round(bumps[1]) * theta) + bumps[2] * Math.cos(Math.round(bumps[3]) * phi) * Math.sin(theta) + bumps[4] * Math.sin(Math.round(bumps[5]) * (theta + phi));
+        positions[p++] = (float) (radius * Math.sin(theta) * Math.cos(phi));
+        positions[p++] = (float) (radius * Math.cos(theta));
+        positions[p++] = (float) (radius * Math.sin(theta) * Math.sin(phi));
+      }
+    }
+    /* The bumps vanish at the poles, except for the last one, which is left out there to keep the poles single vertices. */
+    final int north = (rings - 1) * segments;
+    final int south = north + 1;
+    positions[p++] = 0.0f;
+    positions[p++] = 1.0f;
+    positions[p++] = 0.0f;
+    positions[p++] = 0.0f;
+    positions[p++] = -1.0f;
+    positions[p] = 0.0f;
+
+    final int[] triangles = new int[3 * (2 * segments + 2 * (rings - 2) * segments)];
+    int t = 0;
+    for (int s = 0; s < segments; s++) {
+      final int next = (s + 1) % segments;
+      triangles[t++] = north;
+      triangles[t++] = next;
+      triangles[t++] = s;
+      triangles[t++] = south;
+      triangles[t++] = (rings - 2) * segments + s;
+      triangles[t++] = (rings - 2) * segments + next;
+      for (int r = 0; r < rings - 2; r++) {
+        final int a = r * segments + s;
+        final int b = r * segments + next;
+        final int c = (r + 1) * segments + s;
+        final int d = (r + 1) * segments + next;
+        triangles[t++] = a;
+        triangles[t++] = b;
+        triangles[t++] = d;
+        triangles[t++] = a;
+        triangles[t++] = d;
+        triangles[t++] = c;
+      }
+    }
+    return new Mesh(positions, triangles);
+  }
+
+  /**
+   * Writes a {@link Mesh} in the Wavefront OBJ format.
+   */
+  public static void writeObj(Mesh mesh, Writer writer) throws IOException {
+    writer.write("# synthetic mesh\n");
+    for (int i = 0; i < mesh.positions().length; i += 3) {
+      writer.write(String.format(Locale.ROOT, "v %.6f %.6f %.6f\n", mesh.positions()[i], mesh.positions()[i + 1], mesh.positions()[i + 2]));
+    }
+    for (int i = 0; i < mesh.triangles().length; i += 3) {
+      writer.write("f " + (mesh.triangles()[i] + 1) + " " + (mesh.triangles()[i + 1] + 1) + " " + (mesh.triangles()[i + 2] + 1) + "\n");
+    }
+  }
+
+  /**
+   * Writes a {@link Mesh} in the Object File Format (OFF).
+   */
+  public static void writeOff(Mesh mesh, Writer writer) throws IOException {
+    writer.write("OFF\n" + mesh.vertices() + " " + mesh.faces() + " 0\n");
+    for (int i = 0; i < mesh.positions().length; i += 3) {
+      writer.write(String.format(Locale.ROOT, "%.6f %.6f %.6f\n", mesh.positions()[i], mesh.positions()[i + 1], mesh.positions()[i + 2]));
+    }
+    for (int i = 0; i < mesh.triangles().length; i += 3) {
+      writer.write("3 " + mesh.triangles()[i] + " " + mesh.triangles()[i + 1] + " " + mesh.triangles()[i + 2] + "\n");
+    }
+  }
+
+  /**
+   * Writes samples as 16 bit mono PCM to a WAV file.
+   */
+  public static void writeWav(float[] samples, int sampleRate, Path file) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(2 * samples.length).order(ByteOrder.LITTLE_ENDIAN);
+    for (float sample : samples) {
+      buffer.putShort((short) Math.round(Math.max(-1.0f, Math.min(1.0f, sample)) * Short.MAX_VALUE));
+    }
+    final AudioFormat format = new AudioFormat(sampleRate, 16, 1, true, false);
+    try (AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(buffer.array()), format, samples.length)) {
+      AudioSystem.write(stream, AudioFileFormat.Type.WAVE, file.toFile());
+    }
+  }
+
+  /**
+   * Generates a corpus and writes it to a directory, with one sub-directory per media type and a {@link #MANIFEST} that lists every item with its ground truth. Videos are encoded with the {@link FFMpegVideoEncoder}.
+   *
+   * @param directory Directory to write to; is created if it does not exist.
+   * @param corpus    Size of the corpus.
+   * @return The items of the corpus, as listed in the manifest.
+   */
+  public List<Item> writeCorpus(Path directory, Corpus corpus) throws IOException {
+    final List<Item> items = new ArrayList<>();
+
+    final Path images = Files.createDirectories(directory.resolve(directory(MediaType.IMAGE)));
+    for (int i = 0; i < corpus.images(); i++) {
+      final BufferedImage image = new BufferedImage(corpus.width(), corpus.height(), BufferedImage.TYPE_INT_RGB);
+      image.setRGB(0, 0, corpus.width(), corpus.height(), this.image(i, corpus.width(), corpus.height()), 0, corpus.width());
+      final Path file = images.resolve(String.format("image_%05d.png", i));
+      ImageIO.write(image, "png", file.toFile());
+      items.add(new Item(directory.relativize(file).toString(), MediaType.IMAGE, Map.of("stripes", this.stripes(i))));
+    }
+
+    final Path videos = Files.createDirectories(directory.resolve(directory(MediaType.VIDEO)));
+    for (int v = 0; v < corpus.videos(); v++) {
+      final Path file = videos.resolve(String.format("video_%05d.mp4", v));
+      final int[] boundaries = this.shotBoundaries(v, corpus.frames());
+      final FFMpegVideoEncoder encoder = new FFMpegVideoEncoder(corpus.width(), corpus.height(), corpus.frameRate(), corpus.sampleRate(), file.toString(), false);
+      for (int f = 0; f < corpus.frames(); f++) {
+        encoder.add(CachedDataFactory.getDefault().newInMemoryMultiImage(corpus.width(), corpus.height(), this.videoFrame(v, boundaries, f, corpus.width(), corpus.height())));
+      }
+      encoder.close();
+      final Map<String, Object> truth = new LinkedHashMap<>();
+      truth.put("frames", corpus.frames());
+      truth.put("frameRate", corpus.frameRate());
+      truth.put("shotBoundaries", boundaries);
+      items.add(new Item(directory.relativize(file).toString(), MediaType.VIDEO, truth));
+    }
+
+    final Path audio = Files.createDirectories(directory.resolve(directory(MediaType.AUDIO)));
+    for (int a = 0; a < corpus.audio(); a++) {
+      final Path file = audio.resolve(String.format("audio_%05d.wav", a));
+      writeWav(this.audio(a, corpus.sampleRate(), Math.round(corpus.audioDuration() * corpus.sampleRate())), corpus.sampleRate(), file);
+      items.add(new Item(directory.relativize(file).toString(), MediaType.AUDIO, Map.of(a % 2 == 0 ? "partials" : "chirp", this.frequencies(a))));
+    }
+
+    final Path meshes = Files.createDirectories(directory.resolve(directory(MediaType.MODEL3D)));
+    for (int m = 0; m < corpus.meshes(); m++) {
+      final Mesh mesh = this.mesh(m);
+      final Path file = meshes.resolve(String.format(m % 2 == 0 ? "mesh_%05d.obj" : "mesh_%05d.off", m));
+      try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+        if (m % 2 == 0) {
+          writeObj(mesh, writer);
+        } else {
+          writeOff(mesh, writer);
+        }
+      }
+      items.add(new Item(directory.relativize(file).toString(), MediaType.MODEL3D, Map.of("vertices", mesh.vertices(), "faces", mesh.faces())));
+    }
+
+    final Map<String, Object> manifest = new LinkedHashMap<>();
+    manifest.put("seed", this.seed);
+    manifest.put("corpus", corpus);
+    manifest.put("items", items);
+    Files.writeString(directory.resolve(MANIFEST), new JacksonJsonProvider().toJson(manifest));
+    return items;
+  }
+
+  /**
+   * Size of a corpus generated by {@link #writeCorpus(Path, Corpus)}.
+   *
+   * @param images        Number of images.
+   * @param videos        Number of videos.
+   * @param audio         Number of audio items.
+   * @param meshes        Number of meshes; even ones are written as OBJ and odd ones as OFF.
+   * @param width         Width of images and videos in pixels.
+   * @param height        Height of images and videos in pixels.
+   * @param frames        Number of frames per video.
+   * @param frameRate     Frame rate of the videos.
+   * @param sampleRate    Sample rate of the audio items.
+   * @param audioDuration Duration of the audio items in seconds.
+   */
+  public record Corpus(int images, int videos, int audio, int meshes, int width, int height, int frames, float frameRate, int sampleRate, float audioDuration) {
+
+  }
+
+  /**
+   * An item of a generated corpus.
+   *
+   * @param path  Path relative to the root of the corpus.
+   * @param type  {@link MediaType} of the item.
+   * @param truth Ground truth the item was generated from, such as the shot boundaries of a video.
+   */
+  public record Item(String path, MediaType type, Map<String, Object> truth) {
+
+  }
+
+  /**
+   * A triangle mesh.
+   *
+   * @param positions Vertex positions as consecutive x, y and z coordinates.
+   * @param triangles Consecutive vertex indices of the triangles.
+   */
+  public record Mesh(float[] positions, int[] triangles) {
+
+    public int vertices() {
+      return this.positions.length / 3;
+    }
+
+    public int faces() {
+      return this.triangles.length / 3;
+    }
+  }
+}
@@ -1,80 +1,94 @@
 package org.vitrivr.cineast.core.util.text;
 
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.commons.text.StringEscapeUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.vitrivr.cineast.core.data.Pair;
 
 /**
  * Port of https://github.com/openai/CLIP/blob/573315e83f07b53a61ff5098757e8fc885f1703e/clip/simple_tokenizer.py
+ * <p>
+ * The vocabulary is loaded once per file and shared by all instances, which are thread-safe. Byte pair encoding works on token ids: the rank of every merge is stored in a primitive map keyed by the packed ids of both parts, and the encoded words are kept in a bounded cache that is shared by all instances using the same vocabulary.
  */
 public class ClipTokenizer {
 
   private static final Logger LOGGER = LogManager.getLogger();
-  private static final HashMap<Integer, Character> byte_encoder = bytes_to_unicode();
-  private static final HashMap<Character, Integer> byte_decoder = new HashMap<>();
-  private static final ArrayList<String> vocab = new ArrayList<>(49500);
-  private static final HashMap<Pair<String, String>, Integer> bpe_ranks = new HashMap<>();
-  private static final HashMap<String, Integer> encoder = new HashMap<>();
-
-  static {
-    for (int i : byte_encoder.keySet()) {
-      byte_decoder.put(byte_encoder.get(i), i);
-    }
-    init();
-  }
 
-  private HashMap<String, String> cache = new HashMap<>();
-  private Pattern pat = Pattern.compile("<\\|startoftext\\|>|<\\|endoftext\\|>|'s|'t|'re|'ve|'m|'ll|'d|[\\p{L}]+|[\\p{N}]|[^\\s\\p{L}\\p{N}]+", Pattern.CASE_INSENSITIVE);
+  /**
+   * Location of the BPE vocabulary used by the default constructor.
+   */
+  public static final String DEFAULT_VOCABULARY = "resources/CLIP/bpe_simple_vocab_16e6.txt";
+
+  /**
+   * Number of merges read from the vocabulary.
+   */
+  private static final int MERGES = 49152 - 256 - 2;
+
+  /**
+   * Number of tokens the CLIP text encoder expects.
+   */
+  private static final int CONTEXT_LENGTH = 77;
+
+  /**
+   * Maximum number of encoded words kept per vocabulary.
+   */
+  private static final int CACHE_SIZE = 100_000;
+
+  private static final String START_OF_TEXT = "<|startoftext|>";
+  private static final String END_OF_TEXT = "<|endoftext|>";
+
+  /**
+   * Unicode characters that represent the bytes 0 to 255, as in bytes_to_unicode() of the original tokenizer.
+   */
+  private static final char[] BYTE_ENCODER = new char[]{
+      'Ā', 'ā', 'Ă', 'ă', 'Ą', 'ą', 'Ć', 'ć', 'Ĉ', 'ĉ', 'Ċ', 'ċ', 'Č', 'č', 'Ď', 'ď', 'Đ', 'đ', 'Ē', 'ē', 'Ĕ', 'ĕ', 'Ė', 'ė', 'Ę', 'ę', 'Ě', 'ě', 'Ĝ', 'ĝ', 'Ğ', 'ğ',
+      'Ġ', '!', '"', '#', '$', '%', '&', '\'', '(', ')', '*', '+', ',', '-', '.', '/', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', ':', ';', '<', '=', '>', '?', '@',
+      'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z', '[', '\\', ']', '^', '_', '`',
+      'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z', '{', '|', '}', '~', 'ġ', 'Ģ',
+      'ģ', 'Ĥ', 'ĥ', 'Ħ', 'ħ', 'Ĩ', 'ĩ', 'Ī', 'ī', 'Ĭ', 'ĭ', 'Į', 'į', 'İ', 'ı', 'Ĳ', 'ĳ', 'Ĵ', 'ĵ', 'Ķ', 'ķ', 'ĸ', 'Ĺ', 'ĺ', 'Ļ', 'ļ', 'Ľ', 'ľ', 'Ŀ', 'ŀ', 'Ł', 'ł',
+      '¡', '¢', '£', '¤', '¥', '¦', '§', '¨', '©', 'ª', '«', '¬', 'Ń', '®', '¯', '°', '±', '²', '³', '´', 'µ', '¶', '·', '¸', '¹', 'º', '»', '¼', '½', '¾', '¿', 'À',
+      'Á', 'Â', 'Ã', 'Ä', 'Å', 'Æ', 'Ç', 'È', 'É', 'Ê', 'Ë', 'Ì', 'Í', 'Î', 'Ï', 'Ð', 'Ñ', 'Ò', 'Ó', 'Ô', 'Õ', 'Ö', '×', 'Ø', 'Ù', 'Ú', 'Û', 'Ü', 'Ý', 'Þ', 'ß', 'à',
+      'á', 'â', 'ã', 'ä', 'å', 'æ', 'ç', 'è', 'é', 'ê', 'ë', 'ì', 'í', 'î', 'ï', 'ð', 'ñ', 'ò', 'ó', 'ô', 'õ', 'ö', '÷', 'ø', 'ù', 'ú', 'û', 'ü', 'ý', 'þ', 'ÿ'
+  };
+
+  private static final Pattern PATTERN = Pattern.compile("<\\|startoftext\\|>|<\\|endoftext\\|>|'s|'t|'re|'ve|'m|'ll|'d|[\\p{L}]+|[\\p{N}]|[^\\s\\p{L}\\p{N}]+", Pattern.CASE_INSENSITIVE);
+
+  /**
+   * Vocabularies by the absolute path of their file.
+   */
+  private static final ConcurrentHashMap<Path, Vocabulary> VOCABULARIES = new ConcurrentHashMap<>();
+
+  private final Vocabulary vocabulary;
+
+  /**
+   * Creates a tokenizer with the vocabulary in {@link #DEFAULT_VOCABULARY}.
+   */
   public ClipTokenizer() {
-    cache.put("<|startoftext|>", "<|startoftext|>");
-    cache.put("<|endoftext|>", "<|endoftext|>");
-  }
-
-  private static HashMap<Integer, Character> bytes_to_unicode() {
-    //33 - 126, 161 - 172, 174 - 255
-    char[] CHARS = new char[]{
-        'Ā', 'ā', 'Ă', 'ă', 'Ą', 'ą', 'Ć', 'ć', 'Ĉ', 'ĉ', 'Ċ', 'ċ', 'Č', 'č', 'Ď', 'ď', 'Đ', 'đ', 'Ē', 'ē', 'Ĕ', 'ĕ', 'Ė', 'ė', 'Ę', 'ę', 'Ě', 'ě', 'Ĝ', 'ĝ', 'Ğ', 'ğ',
-        'Ġ', '!', '"', '#', '$', '%', '&', '\'', '(', ')', '*', '+', ',', '-', '.', '/', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', ':', ';', '<', '=', '>', '?', '@',
-        'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z', '[', '\\', ']', '^', '_', '`',
-        'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z', '{', '|', '}', '~', 'ġ', 'Ģ',
-        'ģ', 'Ĥ', 'ĥ', 'Ħ', 'ħ', 'Ĩ', 'ĩ', 'Ī', 'ī', 'Ĭ', 'ĭ', 'Į', 'į', 'İ', 'ı', 'Ĳ', 'ĳ', 'Ĵ', 'ĵ', 'Ķ', 'ķ', 'ĸ', 'Ĺ', 'ĺ', 'Ļ', 'ļ', 'Ľ', 'ľ', 'Ŀ', 'ŀ', 'Ł', 'ł',
-        '¡', '¢', '£', '¤', '¥', '¦', '§', '¨', '©', 'ª', '«', '¬', 'Ń', '®', '¯', '°', '±', '²', '³', '´', 'µ', '¶', '·', '¸', '¹', 'º', '»', '¼', '½', '¾', '¿', 'À',
-        'Á', 'Â', 'Ã', 'Ä', 'Å', 'Æ', 'Ç', 'È', 'É', 'Ê', 'Ë', 'Ì', 'Í', 'Î', 'Ï', 'Ð', 'Ñ', 'Ò', 'Ó', 'Ô', 'Õ', 'Ö', '×', 'Ø', 'Ù', 'Ú', 'Û', 'Ü', 'Ý', 'Þ', 'ß', 'à',
-        'á', 'â', 'ã', 'ä', 'å', 'æ', 'ç', 'è', 'é', 'ê', 'ë', 'ì', 'í', 'î', 'ï', 'ð', 'ñ', 'ò', 'ó', 'ô', 'õ', 'ö', '÷', 'ø', 'ù', 'ú', 'û', 'ü', 'ý', 'þ', 'ÿ'
-    };
-    HashMap<Integer, Character> map = new HashMap<>();
-
-    for (int i = 0; i < 256; ++i) {
-      map.put(i, CHARS[i]);
-    }
-    return map;
+    this(Path.of(DEFAULT_VOCABULARY));
   }
 
-  private static Set<Pair<String, String>> get_pairs(List<String> word) {
-    HashSet<Pair<String, String>> set = new HashSet<>();
-    if (word.isEmpty()) {
-      return set;
-    }
-
-    for (int i = 0; i < word.size() - 1; ++i) {
-      set.add(new Pair<>(word.get(i) + "", word.get(i + 1)));
-    }
-
-    return set;
+  /**
+   * Creates a tokenizer with the vocabulary in the given file, which is loaded upon first use.
+   *
+   * @param vocabulary Path to the BPE vocabulary.
+   */
+  public ClipTokenizer(Path vocabulary) {
+    this.vocabulary = VOCABULARIES.computeIfAbsent(vocabulary.toAbsolutePath().normalize(), Vocabulary::new);
   }
 
   private static String whitespace_clean(String text) {
@@ -85,140 +99,182 @@ private static String clean(String text) {
     return StringEscapeUtils.unescapeHtml4(StringEscapeUtils.unescapeXml(text));
   }
 
-  private static void init() {
-
-    if (!vocab.isEmpty()) {
-      return;
-    }
-
-    for (char c : byte_decoder.keySet()) {
-      vocab.add("" + c);
-    }
-    for (int i = 0; i < 256; ++i) {
-      vocab.add(vocab.get(i) + "</w>");
-    }
-
-    try {
-      List<String> f = Files.readAllLines(Path.of("resources/CLIP/bpe_simple_vocab_16e6.txt"), StandardCharsets.UTF_8);
-      for (int i = 1; i < 49152 - 256 - 2 + 1; ++i) {
-
-        String s = f.get(i);
-        vocab.add(s.replaceAll(" ", ""));
-
-        String[] split = s.split(" ");
-        bpe_ranks.put(new Pair<>(split[0], split[1]), i - 1);
-
-      }
-    } catch (IOException e) {
-      LOGGER.error("Cannot load vocabulary {}", e);
-    }
-
-    vocab.add("<|startoftext|>");
-    vocab.add("<|endoftext|>");
-
-    for (int i = 0; i < vocab.size(); ++i) {
-      encoder.put(vocab.get(i), i);
-    }
-
+  /**
+   * Packs the ids of the two parts of a merge into a single key.
+   */
+  private static long pair(int first, int second) {
+    return ((long) first << 32) | (second & 0xFFFFFFFFL);
   }
 
-  String bpe(String token) {
-
-    if (cache.containsKey(token)) {
-      return cache.get(token);
+  /**
+   * Returns the token ids of a word, i.e., a single match of the pre-tokenization pattern.
+   */
+  int[] bpe(String token) {
+    if (token.equals(START_OF_TEXT)) {
+      return new int[]{this.vocabulary.startOfText};
     }
-
-    ArrayList<String> word = new ArrayList<>(token.length());
-    for (int j = 0; j < token.length() - 1; j++) {
-      word.add(token.charAt(j) + "");
+    if (token.equals(END_OF_TEXT)) {
+      return new int[]{this.vocabulary.endOfText};
     }
-    word.add(token.charAt(token.length() - 1) + "</w>");
-
-    Set<Pair<String, String>> pairs = get_pairs(word);
-
-    if (pairs.isEmpty()) {
-      return token + "</w>";
+    final int[] cached = this.vocabulary.cache.getIfPresent(token);
+    if (cached != null) {
+      return cached;
     }
 
-    while (true) {
-
-      Pair<String, String> bigram = pairs.stream().map(p -> new Pair<>(p, bpe_ranks.getOrDefault(p, Integer.MAX_VALUE))).min(Comparator.comparingInt(p -> p.second)).get().first;
-
-      if (!bpe_ranks.containsKey(bigram)) {
+    /* Every byte is a symbol; the last one marks the end of the word. */
+    final byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
+    int[] word = new int[bytes.length];
+    for (int i = 0; i < bytes.length - 1; i++) {
+      word[i] = this.vocabulary.bytes[bytes[i] & 0xFF];
+    }
+    word[bytes.length - 1] = this.vocabulary.endOfWord[bytes[bytes.length - 1] & 0xFF];
+
+    /* Merge the pair with the lowest rank until no pair can be merged. */
+    int length = word.length;
+    while (length > 1) {
+      int rank = Integer.MAX_VALUE;
+      for (int i = 0; i < length - 1; i++) {
+        rank = Math.min(rank, this.vocabulary.ranks.getOrDefault(pair(word[i], word[i + 1]), Integer.MAX_VALUE));
+      }
+      if (rank == Integer.MAX_VALUE) {
         break;
       }
-
-      String first = bigram.first, second = bigram.second;
-
-      int i = 0;
-
-      ArrayList<String> new_word = new ArrayList<>();
-
-      while (i < word.size()) {
-
-        int j = word.subList(i, word.size()).indexOf(first) + i;
-        if (j < i) {
-          new_word.addAll(word.subList(i, word.size()));
-          break;
-        }
-        new_word.addAll(word.subList(i, j));
-        i = j;
-
-        if (word.get(i).equals(first) && i < word.size() - 1 && word.get(i + 1).equals(second)) {
-          new_word.add(first + second);
+      final int first = this.vocabulary.first[rank], second = this.vocabulary.second[rank], merged = this.vocabulary.merged[rank];
+      int j = 0;
+      for (int i = 0; i < length; j++) {
+        if (word[i] == first && i < length - 1 && word[i + 1] == second) {
+          word[j] = merged;
           i += 2;
         } else {
-          new_word.add(word.get(i));
-          ++i;
+          word[j] = word[i];
+          i += 1;
         }
       }
-
-      word = new_word;
-      if (word.size() == 1) {
-        break;
-      }
-      pairs = get_pairs(word);
-
+      length = j;
     }
 
-    String bpe = word.stream().reduce("", (a, b) -> a + " " + b).trim();
-    cache.put(token, bpe);
-    return bpe;
+    word = Arrays.copyOf(word, length);
+    this.vocabulary.cache.put(token, word);
+    return word;
+  }
 
+  /**
+   * Encodes the given text and appends the token ids to the given list.
+   */
+  private void encode(String text, IntArrayList tokens) {
+    final String clean = whitespace_clean(clean(text)).toLowerCase(Locale.ROOT);
+    final Matcher m = PATTERN.matcher(clean);
+    while (m.find()) {
+      tokens.add(this.bpe(m.group()));
+    }
   }
 
   public ArrayList<Integer> encode(String text) {
-    ArrayList<Integer> bpe_tokens = new ArrayList<Integer>();
-    String clean = whitespace_clean(clean(text)).toLowerCase(Locale.ROOT);
-    Matcher m = pat.matcher(clean);
-    while (m.find()) {
-      String t = m.group();
-      StringBuilder sb = new StringBuilder();
-      for (byte b : t.getBytes(StandardCharsets.UTF_8)) {
-        sb.append(byte_encoder.get((int) b));
-      }
-      for (String s : bpe(sb.toString()).split(" ")) {
-        bpe_tokens.add(encoder.get(s));
-      }
+    final IntArrayList tokens = new IntArrayList();
+    this.encode(text, tokens);
+    final ArrayList<Integer> bpe_tokens = new ArrayList<>(tokens.size());
+    for (int i = 0; i < tokens.size(); i++) {
+      bpe_tokens.add(tokens.get(i));
     }
     return bpe_tokens;
-
   }
 
   public long[] clipTokenize(String text) {
-    int start = encoder.get("<|startoftext|>");
-    int end = encoder.get("<|endoftext|>");
-    ArrayList<Integer> tokens = encode(text);
-    long[] arr = new long[77];
-    arr[0] = start;
+    final IntArrayList tokens = new IntArrayList();
+    this.encode(text, tokens);
+    long[] arr = new long[CONTEXT_LENGTH];
+    arr[0] = this.vocabulary.startOfText;
     int tokenCount = Math.min(tokens.size(), arr.length - 1);
     for (int i = 0; i < tokenCount; ++i) {
-      arr[i + 1] = (long) tokens.get(i);
+      arr[i + 1] = tokens.get(i);
     }
     if (tokenCount + 1 < arr.length) {
-      arr[tokenCount + 1] = end;
+      arr[tokenCount + 1] = this.vocabulary.endOfText;
     }
     return arr;
   }
 
+  /**
+   * The token ids and merges of a BPE vocabulary file.
+   */
+  private static final class Vocabulary {
+
+    /**
+     * Token id of every string in the vocabulary.
+     */
+    private final ObjectIntHashMap<String> encoder = new ObjectIntHashMap<>(2 * MERGES);
+
+    /**
+     * Rank of every merge, keyed by the packed ids of its parts.
+     */
+    private final LongIntHashMap ranks = new LongIntHashMap(MERGES);
+
+    /**
+     * Ids of the first part, the second part and the result of every merge by rank.
+     */
+    private final int[] first, second, merged;
+
+    /**
+     * Ids of the single bytes, without and with end-of-word marker.
+     */
+    private final int[] bytes = new int[256], endOfWord = new int[256];
+
+    private final int startOfText, endOfText;
+
+    /**
+     * Encoded words by their string.
+     */
+    private final Cache<String, int[]> cache = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+
+    private Vocabulary(Path path) {
+      /* The byte symbols come first, ordered by their character like in the original tokenizer. */
+      final char[] symbols = BYTE_ENCODER.clone();
+      Arrays.sort(symbols);
+      final List<String> vocab = new ArrayList<>(MERGES + 2 * symbols.length + 2);
+      for (char c : symbols) {
+        vocab.add(String.valueOf(c));
+      }
+      for (char c : symbols) {
+        vocab.add(c + "</w>");
+      }
+
+      final List<String[]> merges = new ArrayList<>(MERGES);
+      try {
+        final List<String> f = Files.readAllLines(path, StandardCharsets.UTF_8);
+        for (int i = 1; i <= MERGES && i < f.size(); ++i) {
+          final String s = f.get(i);
+          vocab.add(s.replaceAll(" ", ""));
+          merges.add(s.split(" "));
+        }
+      } catch (IOException e) {
+        LOGGER.error("Cannot load vocabulary {}", e);
+      }
+
+      vocab.add(START_OF_TEXT);
+      vocab.add(END_OF_TEXT);
+      for (int i = 0; i < vocab.size(); ++i) {
+        this.encoder.put(vocab.get(i), i);
+      }
+      this.startOfText = this.encoder.get(START_OF_TEXT);
+      this.endOfText = this.encoder.get(END_OF_TEXT);
+      for (int b = 0; b < 256; b++) {
+        this.bytes[b] = this.encoder.get(String.valueOf(BYTE_ENCODER[b]));
+        this.endOfWord[b] = this.encoder.get(BYTE_ENCODER[b] + "</w>");
+      }
+
+      /* Parts that are not in the vocabulary can never be merged. */
+      this.first = new int[merges.size()];
+      this.second = new int[merges.size()];
+      this.merged = new int[merges.size()];
+      for (int rank = 0; rank < merges.size(); rank++) {
+        final String[] split = merges.get(rank);
+        if (this.encoder.containsKey(split[0]) && this.encoder.containsKey(split[1])) {
+          this.first[rank] = this.encoder.get(split[0]);
+          this.second[rank] = this.encoder.get(split[1]);
+          this.merged[rank] = this.encoder.get(split[0] + split[1]);
+          this.ranks.put(pair(this.first[rank], this.second[rank]), rank);
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,71 @@
+package org.vitrivr.cineast.core.util.text;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * MajorityVote counts the recognitions of a {@link TextStream} over its frames. It knows how many recognitions are to come, so that recognition can stop as soon as a single recognition has won the vote, regardless of the remaining frames.
+ */
+public class MajorityVote {
+
+  private final HashMap<String, Integer> counts = new HashMap<>();
+  private final int total;
+  private int seen = 0;
+  private String leader = null;
+  private int first = 0;
+  private int second = 0;
+
+  /**
+   * @param total The number of recognitions that make up the vote
+   */
+  public MajorityVote(int total) {
+    this.total = total;
+  }
+
+  public void add(String recognition) {
+    int count = this.counts.merge(recognition, 1, Integer::sum);
+    this.seen++;
+    if (recognition.equals(this.leader)) {
+      this.first = count;
+    } else if (count > this.first) {
+      this.second = this.first;
+      this.first = count;
+      this.leader = recognition;
+    } else if (count > this.second) {
+      this.second = count;
+    }
+  }
+
+  /**
+   * @return The number of recognitions still to come
+   */
+  public int remaining() {
+    return this.total - this.seen;
+  }
+
+  /**
+   * @return true if all recognitions have been counted, or if the remaining ones cannot change the outcome of the vote
+   */
+  public boolean isDecided() {
+    return this.seen >= this.total || this.first > this.second + this.remaining();
+  }
+
+  /**
+   * @return The recognitions which appear most often
+   */
+  public List<String> getWinners() {
+    int max_count = 0;
+    List<String> winners = new ArrayList<>();
+    for (HashMap.Entry<String, Integer> val : this.counts.entrySet()) {
+      if (max_count < val.getValue()) {
+        winners.clear();
+        winners.add(val.getKey());
+        max_count = val.getValue();
+      } else if (max_count == val.getValue()) {
+        winners.add(val.getKey());
+      }
+    }
+    return winners;
+  }
+}
@@ -0,0 +1,78 @@
+package org.vitrivr.cineast.core.util.text;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Cache of text embeddings shared by all retrievers that embed query text, such as CLIPText and VisualTextCoEmbedding.
+ * <p>
+ * Embeddings are keyed by the model that produced them and the exact query text. Concurrent requests for the same key compute the embedding only once. Callers receive a copy of the cached embedding, which they may modify.
+ */
+public final class TextEmbeddingCache {
+
+  /**
+   * The instance shared by all text retrievers.
+   */
+  private static final TextEmbeddingCache SHARED = new TextEmbeddingCache(10_000);
+
+  /**
+   * Embeddings by model and text.
+   */
+  private final Cache<Key, float[]> embeddings;
+
+  /**
+   * Constructor for {@link TextEmbeddingCache}.
+   *
+   * @param maxEmbeddings Maximum number of embeddings to cache.
+   */
+  public TextEmbeddingCache(long maxEmbeddings) {
+    this.embeddings = CacheBuilder.newBuilder().maximumSize(maxEmbeddings).build();
+  }
+
+  /**
+   * Returns the {@link TextEmbeddingCache} shared by all text retrievers.
+   */
+  public static TextEmbeddingCache getInstance() {
+    return SHARED;
+  }
+
+  /**
+   * Returns the embedding of the given text, which is calculated with the provided function if it is not cached.
+   *
+   * @param model    Name of the model, which distinguishes the embeddings of different retrievers.
+   * @param text     The text to embed.
+   * @param embedder Function that calculates the embedding of a text.
+   * @return Copy of the embedding.
+   */
+  public float[] get(String model, String text, Function<String, float[]> embedder) {
+    try {
+      return this.embeddings.get(new Key(model, text), () -> embedder.apply(text)).clone();
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Could not embed text.", e.getCause());
+    }
+  }
+
+  /**
+   * Returns the number of cached embeddings.
+   */
+  public long size() {
+    return this.embeddings.size();
+  }
+
+  /**
+   * Removes all cached embeddings.
+   */
+  public void invalidateAll() {
+    this.embeddings.invalidateAll();
+  }
+
+  private record Key(String model, String text) {
+
+  }
+}
@@ -2,6 +2,7 @@
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfPoint2f;
@@ -84,16 +85,21 @@ private Mat rectangularCrop(Point[] coordinate, Mat frame) {
   /**
    * decode takes an output layer and extracts the string using CTC-based decoding
    *
-   * @param predictions The output layer of the model
+   * @param predictions The output layer of the model as time steps x (batch x classes) values
+   * @param steps       The number of time steps
+   * @param stride      The number of values per time step
+   * @param offset      The offset of the text instance's classes within a time step
+   * @param classes     The number of classes
    * @return The extracted string from the layer
    */
-  private String decode(Mat predictions) {
+  private String decode(float[] predictions, int steps, int stride, int offset, int classes) {
     List<String> text = new ArrayList<>();
 
-    for (int i = 0; i < predictions.rows(); i++) {
+    for (int i = 0; i < steps; i++) {
+      int row = i * stride + offset;
       int maxIndex = 0;
-      for (int j = 1; j < predictions.cols(); j++) {
-        if (predictions.get(i, j)[0] > predictions.get(i, maxIndex)[0]) {
+      for (int j = 1; j < classes; j++) {
+        if (predictions[row + j] > predictions[row + maxIndex]) {
           maxIndex = j;
         }
       }
@@ -112,6 +118,20 @@ private String decode(Mat predictions) {
     return char_list.toString();
   }
 
+  /**
+   * crop cuts the text instance out of the frame and converts it to the grayscale input of the model
+   *
+   * @param coordinate    The coordinate of the text
+   * @param frame         The frame containing the text
+   * @param quadrilateral If true, the region of the coordinates is regarded as quadrilateral, and quadrilateral cropping is applied
+   * @return The cropped text instance, to be passed to {@link #recognize(List, int)}
+   */
+  public Mat crop(Point[] coordinate, Mat frame, boolean quadrilateral) {
+    Mat cropped = quadrilateral ? quadrilateralCrop(coordinate, frame) : rectangularCrop(coordinate, frame);
+    Imgproc.cvtColor(cropped, cropped, Imgproc.COLOR_RGB2GRAY);
+    return cropped;
+  }
+
   /**
    * @param coordinate    The coordinate of the text
    * @param frame         The frame cotnaining the text
@@ -119,15 +139,37 @@ private String decode(Mat predictions) {
    * @return The extracted text within the coordinate.
    */
   public String recognize(Point[] coordinate, Mat frame, boolean quadrilateral) {
+    return recognize(Collections.singletonList(crop(coordinate, frame, quadrilateral)), 1).get(0);
+  }
+
+  /**
+   * recognize runs the crops through the model in batches of up to batchSize crops
+   *
+   * @param crops     The text instances as returned by {@link #crop(Point[], Mat, boolean)}
+   * @param batchSize The maximum number of crops per forward pass
+   * @return The extracted texts, in the order of the crops
+   */
+  public List<String> recognize(List<Mat> crops, int batchSize) {
     assert model != null : "Model has not been initialized!";
-    Mat cropped = quadrilateral ? quadrilateralCrop(coordinate, frame) : rectangularCrop(coordinate, frame);
-    Imgproc.cvtColor(cropped, cropped, Imgproc.COLOR_RGB2GRAY);
-    Mat blob = Dnn.blobFromImage(cropped, 1 / 127.5, new Size(100, 32), new Scalar(127.5));
-    model.setInput(blob);
-    List<Mat> outs = new ArrayList<>();
-    model.forward(outs);
-    Mat result = outs.get(0);
-    return decode(result.reshape(1, (int) result.size().height));
+    List<String> texts = new ArrayList<>(crops.size());
+    for (int i = 0; i < crops.size(); i = i + batchSize) {
+      List<Mat> batch = crops.subList(i, Math.min(i + batchSize, crops.size()));
+      Mat blob = Dnn.blobFromImages(batch, 1 / 127.5, new Size(this.width, this.height), new Scalar(127.5));
+      model.setInput(blob);
+      List<Mat> outs = new ArrayList<>();
+      model.forward(outs);
+      // The output has the shape time steps x batch x classes
+      Mat result = outs.get(0);
+      Mat predictions = result.reshape(1, (int) result.size().height);
+      int steps = predictions.rows();
+      int stride = predictions.cols();
+      int classes = stride / batch.size();
+      float[] values = new float[steps * stride];
+      predictions.get(0, 0, values);
+      for (int j = 0; j < batch.size(); j++) {
+        texts.add(decode(values, steps, stride, j * classes, classes));
+      }
+    }
+    return texts;
   }
 }
-
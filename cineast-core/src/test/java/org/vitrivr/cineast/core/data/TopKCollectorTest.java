@@ -0,0 +1,102 @@
+package org.vitrivr.cineast.core.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TopKCollectorTest {
+
+  /**
+   * Expected result: IDs of the k best candidates, sorted by score and ID.
+   */
+  private static int[] bruteForce(double[] scores, int k, boolean smallest) {
+    final Comparator<Integer> byScore = smallest ? Comparator.comparingDouble(i -> scores[i]) : Comparator.<Integer>comparingDouble(i -> scores[i]).reversed();
+    return IntStream.range(0, scores.length).boxed().sorted(byScore.thenComparingInt(i -> i)).limit(k).mapToInt(i -> i).toArray();
+  }
+
+  @Test
+  @DisplayName("Test Against Brute Force")
+  public void testAgainstBruteForce() {
+    final SplittableRandom random = new SplittableRandom(1L);
+    for (int run = 0; run < 200; run++) {
+      final int n = random.nextInt(500);
+      final int k = random.nextInt(50);
+      final boolean smallest = random.nextBoolean();
+      /* Few distinct values to provoke ties. */
+      final double[] scores = random.doubles(n).map(d -> Math.floor(d * 20) / 20).toArray();
+
+      final TopKCollector<Void> collector = smallest ? TopKCollector.smallest(k) : TopKCollector.largest(k);
+      for (int i = 0; i < n; i++) {
+        collector.offer(scores[i], i);
+      }
+
+      final int[] expected = bruteForce(scores, k, smallest);
+      assertArrayEquals(expected, collector.sortedIds());
+      assertArrayEquals(Arrays.stream(expected).mapToDouble(i -> scores[i]).toArray(), collector.sortedScores());
+      assertEquals(expected.length, collector.size());
+    }
+  }
+
+  @Test
+  @DisplayName("Test Merge")
+  public void testMerge() {
+    final SplittableRandom random = new SplittableRandom(2L);
+    final double[] scores = random.doubles(10_000).toArray();
+    final int k = 25;
+
+    /* Four partial collectors over interleaved partitions, as used by parallel scans. */
+    final TopKCollector<Void> merged = TopKCollector.smallest(k);
+    for (int p = 0; p < 4; p++) {
+      final TopKCollector<Void> partial = TopKCollector.smallest(k);
+      for (int i = p; i < scores.length; i += 4) {
+        partial.offer(scores[i], i);
+      }
+      merged.merge(partial);
+    }
+    assertArrayEquals(bruteForce(scores, k, true), merged.sortedIds());
+
+    assertThrows(IllegalArgumentException.class, () -> merged.merge(TopKCollector.largest(k)));
+  }
+
+  @Test
+  @DisplayName("Test Payloads And Ties")
+  public void testPayloadsAndTies() {
+    final TopKCollector<String> collector = TopKCollector.largest(3);
+    collector.offer(0.5, "a");
+    collector.offer(0.9, "b");
+    collector.offer(0.5, "c");
+    collector.offer(0.5, "d");
+    collector.offer(Double.NaN, "e");
+    /* Equal scores are retained in the order they were offered. */
+    assertEquals(List.of("b", "a", "c"), collector.sortedPayloads());
+    assertEquals(0.5, collector.worstScore());
+    assertFalse(collector.accepts(0.4));
+    assertTrue(collector.accepts(0.5));
+    assertTrue(collector.accepts(0.6));
+
+    collector.clear();
+    assertTrue(collector.isEmpty());
+    assertEquals(List.of(), collector.sortedPayloads());
+  }
+
+  @Test
+  @DisplayName("Test Empty Collector")
+  public void testEmptyCollector() {
+    final TopKCollector<String> collector = TopKCollector.smallest(0);
+    assertFalse(collector.accepts(0.0));
+    assertFalse(collector.offer(0.0, "a"));
+    assertEquals(0, collector.size());
+    assertEquals(0, collector.sortedIds().length);
+    assertThrows(IllegalArgumentException.class, () -> TopKCollector.smallest(-1));
+  }
+}
@@ -0,0 +1,121 @@
+package org.vitrivr.cineast.core.data.frames;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ReadOnlyBufferException;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.core.data.providers.AudioFrameProvider;
+
+public class AudioFrameTest {
+
+  private static AudioFrame frame(SplittableRandom random, int samples, AudioDescriptor descriptor) {
+    final byte[] data = new byte[2 * samples * descriptor.getChannels()];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) random.nextInt(256);
+    }
+    return new AudioFrame(0, 0, data, descriptor);
+  }
+
+  /**
+   * The view reads the same interleaved samples as {@link AudioFrame#getSampleAsShort(int, int)} without copying them.
+   */
+  @Test
+  @DisplayName("ShortBuffer view")
+  public void testShortBufferView() {
+    final AudioFrame frame = frame(new SplittableRandom(1L), 1152, new AudioDescriptor(44100, 2, 0));
+    final ShortBuffer view = frame.getSamplesAsShortBuffer();
+    assertEquals(2 * frame.numberOfSamples(), view.remaining());
+    for (int i = 0; i < frame.numberOfSamples(); i++) {
+      for (int c = 0; c < frame.getChannels(); c++) {
+        assertEquals(frame.getSampleAsShort(i, c), view.get(2 * i + c));
+      }
+    }
+    assertThrows(ReadOnlyBufferException.class, () -> view.put(0, (short) 1));
+
+    /* Changes to the data are visible in the view. */
+    frame.getData()[0] = 1;
+    frame.getData()[1] = 2;
+    assertEquals((short) 0x0201, view.get(0));
+  }
+
+  /**
+   * The bulk conversion of the {@link AudioFrameProvider} matches the per-sample accessors of {@link AudioFrame}.
+   */
+  @Test
+  @DisplayName("Provider samples are bit-identical")
+  public void testProviderSamples() {
+    final SplittableRandom random = new SplittableRandom(2L);
+    final AudioDescriptor descriptor = new AudioDescriptor(44100, 3, 0);
+    final List<AudioFrame> frames = new ArrayList<>();
+    for (int f = 0; f < 10; f++) {
+      frames.add(frame(random, 100 + f, descriptor));
+    }
+    final int total = frames.stream().mapToInt(AudioFrame::numberOfSamples).sum();
+    final AudioFrameProvider segment = new AudioFrameProvider() {
+      @Override
+      public List<AudioFrame> getAudioFrames() {
+        return frames;
+      }
+
+      @Override
+      public int getNumberOfSamples() {
+        return total;
+      }
+    };
+
+    final short[] meanShort = new short[total];
+    final double[] meanDouble = new double[total];
+    final short[] channelShort = new short[total];
+    final double[] channelDouble = new double[total];
+    int idx = 0;
+    for (AudioFrame frame : frames) {
+      for (int s = 0; s < frame.numberOfSamples(); s++, idx++) {
+        meanShort[idx] = frame.getMeanSampleAsShort(s);
+        meanDouble[idx] = frame.getMeanSampleAsDouble(s);
+        channelShort[idx] = frame.getSampleAsShort(s, 2);
+        channelDouble[idx] = frame.getSampleAsDouble(s, 2);
+      }
+    }
+    assertArrayEquals(meanShort, segment.getMeanSamplesAsShort());
+    assertArrayEquals(meanDouble, segment.getMeanSamplesAsDouble());
+    assertArrayEquals(channelShort, segment.getSamplesAsShort(2));
+    assertArrayEquals(channelDouble, segment.getSamplesAsDouble(2));
+    assertThrows(IllegalArgumentException.class, () -> segment.getSamplesAsShort(3));
+  }
+
+  /**
+   * Released arrays are handed out again for the same length, up to the capacity of the pool.
+   */
+  @Test
+  @DisplayName("Frame pool")
+  public void testPool() {
+    final AudioFramePool pool = new AudioFramePool(10_000);
+    final AudioDescriptor descriptor = new AudioDescriptor(44100, 2, 0);
+    final AudioFrame first = frame(new SplittableRandom(3L), 1024, descriptor);
+    final AudioFrame second = frame(new SplittableRandom(4L), 1024, descriptor);
+
+    pool.release(first);
+    pool.release(second);
+    assertEquals(8192, pool.size());
+    assertEquals(4000, pool.acquire(4000).length);
+    assertSame(first.getData(), pool.acquire(4096));
+    assertSame(second.getData(), pool.acquire(4096));
+    assertEquals(0, pool.size());
+    assertNotSame(second.getData(), pool.acquire(4096));
+
+    /* Arrays beyond the capacity are not pooled. */
+    pool.release(new byte[6000]);
+    pool.release(new byte[5000]);
+    assertEquals(6000, pool.size());
+    assertEquals(0, pool.acquire(0).length);
+  }
+}
@@ -277,7 +277,7 @@ void getAllSkip() {
   @Test
   @Disabled
   @DisplayName("Batched KNN search")
-  void batchedKnnSearch() {
+  public void batchedKnnSearch() {
     selector.open(testVectorTableName);
     List<float[]> queries = new ArrayList<>();
     queries.add(new float[]{0.001f, 1, 0});
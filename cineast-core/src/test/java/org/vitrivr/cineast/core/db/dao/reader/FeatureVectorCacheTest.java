@@ -0,0 +1,195 @@
+package org.vitrivr.cineast.core.db.dao.reader;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.core.config.CacheConfig;
+import org.vitrivr.cineast.core.config.QueryConfig;
+import org.vitrivr.cineast.core.config.ReadableQueryConfig;
+import org.vitrivr.cineast.core.data.FloatVectorImpl;
+import org.vitrivr.cineast.core.data.entities.SimpleFeatureDescriptor;
+import org.vitrivr.cineast.core.data.providers.primitive.PrimitiveTypeProvider;
+import org.vitrivr.cineast.core.data.providers.primitive.StringTypeProvider;
+import org.vitrivr.cineast.core.db.NoDBWriter;
+import org.vitrivr.cineast.core.db.dao.writer.SimpleFeatureDescriptorWriter;
+
+public class FeatureVectorCacheTest {
+
+  private static final String ENTITY = "features_test";
+  private static final int SEGMENTS = 500;
+  private static final int DIMENSIONS = 16;
+
+  private static List<String> segmentIds(int from, int to) {
+    return IntStream.range(from, to).mapToObj(SyntheticFeatureSelector::segmentId).collect(Collectors.toList());
+  }
+
+  private static float[] vector(List<PrimitiveTypeProvider> vectors) {
+    assertEquals(1, vectors.size());
+    return vectors.get(0).getFloatArray();
+  }
+
+  /**
+   * Repeated lookups of a segment are answered from the cache and yield the vectors of the database.
+   */
+  @Test
+  @DisplayName("Test Cached Lookup")
+  public void testCachedLookup() {
+    final SyntheticFeatureSelector selector = new SyntheticFeatureSelector(SEGMENTS, DIMENSIONS, 0, 1L);
+    final FeatureVectorCache cache = new FeatureVectorCache(1 << 20, 10, CacheConfig.DEFAULT_FEATURE_VECTOR_CACHE_EXPIRY);
+    final String segmentId = SyntheticFeatureSelector.segmentId(42);
+
+    final List<PrimitiveTypeProvider> vectors = cache.getFeatureVectors(selector, ENTITY, segmentId, new QueryConfig(null));
+    assertArrayEquals(selector.getFeatureVectors(null, new StringTypeProvider(segmentId), null, null).get(0), vector(vectors));
+    final int lookups = selector.lookups.get();
+    assertSame(vectors, cache.getFeatureVectors(selector, ENTITY, segmentId, new QueryConfig(null)));
+    assertEquals(lookups, selector.lookups.get());
+
+    /* Segments without feature vectors are not cached, since their vectors may be written later. */
+    assertTrue(cache.getFeatureVectors(selector, ENTITY, "v_unknown", new QueryConfig(null)).isEmpty());
+    assertTrue(cache.getFeatureVectors(selector, ENTITY, "v_unknown", new QueryConfig(null)).isEmpty());
+    assertEquals(lookups + 2, selector.lookups.get());
+
+    final FeatureVectorCache.Statistics statistics = cache.statistics();
+    assertEquals(1, statistics.hits());
+    assertEquals(3, statistics.misses());
+    assertEquals(0.25, statistics.hitRate(), 1e-9);
+    assertEquals(1, statistics.entries());
+  }
+
+  /**
+   * After the top results of a query have been registered, the next miss loads all of them in a single lookup.
+   */
+  @Test
+  @DisplayName("Test Prefetch")
+  public void testPrefetch() {
+    final SyntheticFeatureSelector selector = new SyntheticFeatureSelector(SEGMENTS, DIMENSIONS, 0, 2L);
+    final FeatureVectorCache cache = new FeatureVectorCache(1 << 20, 20, CacheConfig.DEFAULT_FEATURE_VECTOR_CACHE_EXPIRY);
+    final SyntheticFeatureSelector reference = new SyntheticFeatureSelector(SEGMENTS, DIMENSIONS, 0, 2L);
+
+    /* Entities that have never been looked up are not prefetched. */
+    cache.prefetch(List.of(ENTITY), segmentIds(0, 50));
+    cache.getFeatureVectors(selector, ENTITY, SyntheticFeatureSelector.segmentId(100), new QueryConfig(null));
+    assertEquals(0, cache.statistics().prefetched());
+
+    cache.prefetch(List.of(ENTITY, "features_other"), segmentIds(0, 50));
+    final int lookups = selector.lookups.get();
+    cache.getFeatureVectors(selector, ENTITY, SyntheticFeatureSelector.segmentId(200), new QueryConfig(null));
+    assertEquals(lookups + 1, selector.lookups.get());
+    assertEquals(20, cache.statistics().prefetched());
+    for (String segmentId : segmentIds(0, 20)) {
+      final float[] expected = reference.getFeatureVectors(null, new StringTypeProvider(segmentId), null, null).get(0);
+      assertArrayEquals(expected, vector(cache.getFeatureVectors(selector, ENTITY, segmentId, new QueryConfig(null))));
+    }
+    assertEquals(lookups + 1, selector.lookups.get());
+
+    /* Registered segments without feature vectors are not cached. */
+    cache.prefetch(List.of(ENTITY), List.of(SyntheticFeatureSelector.segmentId(300), "v_unknown"));
+    cache.getFeatureVectors(selector, ENTITY, SyntheticFeatureSelector.segmentId(301), new QueryConfig(null));
+    assertEquals(lookups + 2, selector.lookups.get());
+    assertEquals(21, cache.statistics().prefetched());
+    cache.getFeatureVectors(selector, ENTITY, SyntheticFeatureSelector.segmentId(300), new QueryConfig(null));
+    assertEquals(lookups + 2, selector.lookups.get());
+    cache.getFeatureVectors(selector, ENTITY, "v_unknown", new QueryConfig(null));
+    assertEquals(lookups + 3, selector.lookups.get());
+
+    /* Registered segments are consumed by the batched lookup. */
+    cache.getFeatureVectors(selector, ENTITY, SyntheticFeatureSelector.segmentId(30), new QueryConfig(null));
+    assertEquals(lookups + 4, selector.lookups.get());
+    assertEquals(21, cache.statistics().prefetched());
+  }
+
+  /**
+   * The estimated size of the cached vectors stays below the maximum.
+   */
+  @Test
+  @DisplayName("Test Size Bound")
+  public void testSizeBound() {
+    final SyntheticFeatureSelector selector = new SyntheticFeatureSelector(SEGMENTS, 128, 0, 3L);
+    final FeatureVectorCache cache = new FeatureVectorCache(64 * 1024, 0, CacheConfig.DEFAULT_FEATURE_VECTOR_CACHE_EXPIRY);
+    for (String segmentId : segmentIds(0, SEGMENTS)) {
+      cache.getFeatureVectors(selector, ENTITY, segmentId, new QueryConfig(null));
+    }
+    final FeatureVectorCache.Statistics statistics = cache.statistics();
+    assertTrue(statistics.bytes() <= 64 * 1024);
+    assertTrue(statistics.entries() > 0 && statistics.entries() < SEGMENTS);
+    assertTrue(statistics.evictions() > 0);
+
+    cache.invalidateAll();
+    assertEquals(0, cache.statistics().bytes());
+  }
+
+  /**
+   * Writing feature vectors of a segment removes it from the shared cache.
+   */
+  @Test
+  @DisplayName("Test Writer Invalidation")
+  public void testWriterInvalidation() {
+    final SyntheticFeatureSelector selector = new SyntheticFeatureSelector(SEGMENTS, DIMENSIONS, 0, 4L);
+    final FeatureVectorCache cache = FeatureVectorCache.getInstance();
+    final String entity = ENTITY + "_invalidation";
+    final String segmentId = SyntheticFeatureSelector.segmentId(7);
+
+    cache.getFeatureVectors(selector, entity, segmentId, new QueryConfig(null));
+    cache.getFeatureVectors(selector, entity, SyntheticFeatureSelector.segmentId(8), new QueryConfig(null));
+    final int lookups = selector.lookups.get();
+
+    final SimpleFeatureDescriptorWriter writer = new SimpleFeatureDescriptorWriter(new NoDBWriter(), entity);
+    writer.write(new SimpleFeatureDescriptor(segmentId, new FloatVectorImpl(new float[DIMENSIONS])));
+    writer.close();
+
+    cache.getFeatureVectors(selector, entity, segmentId, new QueryConfig(null));
+    cache.getFeatureVectors(selector, entity, SyntheticFeatureSelector.segmentId(8), new QueryConfig(null));
+    assertEquals(lookups + 1, selector.lookups.get());
+
+    cache.invalidateEntity(entity);
+    cache.getFeatureVectors(selector, entity, SyntheticFeatureSelector.segmentId(8), new QueryConfig(null));
+    assertEquals(lookups + 2, selector.lookups.get());
+  }
+
+  /**
+   * Vectors that were loaded before a concurrent write invalidated their segment are not cached, neither by single nor by batched lookups.
+   */
+  @Test
+  @DisplayName("Test Invalidation During Lookup")
+  public void testInvalidationDuringLookup() {
+    final FeatureVectorCache cache = new FeatureVectorCache(1 << 20, 10, CacheConfig.DEFAULT_FEATURE_VECTOR_CACHE_EXPIRY);
+    final String written = SyntheticFeatureSelector.segmentId(3);
+    final SyntheticFeatureSelector selector = new SyntheticFeatureSelector(SEGMENTS, DIMENSIONS, 0, 5L) {
+      @Override
+      public List<float[]> getFeatureVectors(String column, PrimitiveTypeProvider value, String vectorName, ReadableQueryConfig queryConfig) {
+        final List<float[]> vectors = super.getFeatureVectors(column, value, vectorName, queryConfig);
+        cache.invalidate(ENTITY, written);
+        return vectors;
+      }
+
+      @Override
+      public List<Map<String, PrimitiveTypeProvider>> getRows(String column, Iterable<PrimitiveTypeProvider> values, String dbQueryId) {
+        final List<Map<String, PrimitiveTypeProvider>> rows = super.getRows(column, values, dbQueryId);
+        cache.invalidate(ENTITY, written);
+        return rows;
+      }
+    };
+
+    cache.getFeatureVectors(selector, ENTITY, written, new QueryConfig(null));
+    int lookups = selector.lookups.get();
+    cache.getFeatureVectors(selector, ENTITY, written, new QueryConfig(null));
+    assertEquals(lookups + 1, selector.lookups.get());
+
+    cache.prefetch(List.of(ENTITY), segmentIds(0, 10));
+    cache.getFeatureVectors(selector, ENTITY, SyntheticFeatureSelector.segmentId(100), new QueryConfig(null));
+    lookups = selector.lookups.get();
+    cache.getFeatureVectors(selector, ENTITY, SyntheticFeatureSelector.segmentId(4), new QueryConfig(null));
+    cache.getFeatureVectors(selector, ENTITY, SyntheticFeatureSelector.segmentId(100), new QueryConfig(null));
+    assertEquals(lookups, selector.lookups.get());
+    cache.getFeatureVectors(selector, ENTITY, written, new QueryConfig(null));
+    assertEquals(lookups + 1, selector.lookups.get());
+  }
+}
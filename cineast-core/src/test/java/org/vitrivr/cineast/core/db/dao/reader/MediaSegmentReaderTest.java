@@ -0,0 +1,122 @@
+package org.vitrivr.cineast.core.db.dao.reader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.ListMultimap;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.core.data.entities.MediaSegmentDescriptor;
+
+public class MediaSegmentReaderTest {
+
+  private static final int OBJECTS = 5;
+  private static final int SEGMENTS = 2000;
+
+  private static List<Integer> numbers(List<MediaSegmentDescriptor> segments) {
+    return segments.stream().map(MediaSegmentDescriptor::getSequenceNumber).collect(Collectors.toList());
+  }
+
+  private static List<Integer> range(int lower, int upper) {
+    return IntStream.rangeClosed(Math.max(1, lower), Math.min(SEGMENTS, upper)).boxed().collect(Collectors.toList());
+  }
+
+  /**
+   * Tests number range lookups against the per-object index, with and without support for compound predicates.
+   */
+  @Test
+  @DisplayName("Test Number Range")
+  public void testNumberRange() {
+    for (boolean compound : new boolean[]{false, true}) {
+      final SyntheticSegmentSelector selector = new SyntheticSegmentSelector(OBJECTS, SEGMENTS, compound);
+      final MediaSegmentReader reader = new MediaSegmentReader(selector, new MediaSegmentCache(100_000, 100_000, 10));
+      final String objectId = SyntheticSegmentSelector.objectId(2);
+
+      assertEquals(range(95, 105), numbers(reader.lookUpSegmentsByNumberRange(objectId, 95, 105)));
+      assertEquals(range(-5, 3), numbers(reader.lookUpSegmentsByNumberRange(objectId, -5, 3)));
+      assertEquals(range(1995, 2010), numbers(reader.lookUpSegmentsByNumberRange(objectId, 1995, 2010)));
+      assertTrue(reader.lookUpSegmentsByNumberRange(objectId, 10, 5).isEmpty());
+      assertEquals(List.of(42), numbers(reader.lookUpSegmentByNumber(objectId, 42)));
+
+      /* Once all segments of the object have been loaded, no further lookups are necessary. */
+      assertEquals(SEGMENTS, reader.lookUpSegmentsOfObject(objectId).size());
+      final int lookups = selector.lookups.get();
+      assertEquals(range(500, 520), numbers(reader.lookUpSegmentsByNumberRange(objectId, 500, 520)));
+      assertEquals(lookups, selector.lookups.get());
+    }
+  }
+
+  /**
+   * Tests time range lookups: Segments overlapping the interval are returned.
+   */
+  @Test
+  @DisplayName("Test Time Range")
+  public void testTimeRange() {
+    final MediaSegmentReader reader = new MediaSegmentReader(new SyntheticSegmentSelector(OBJECTS, SEGMENTS, false), new MediaSegmentCache(100_000, 100_000, 10));
+    final String objectId = SyntheticSegmentSelector.objectId(0);
+    /* Segment n spans [n-1, n] seconds. */
+    assertEquals(List.of(10, 11, 12, 13), numbers(reader.lookUpSegmentsByTimeRange(objectId, 10.0f, 12.5f)));
+    assertEquals(List.of(1), numbers(reader.lookUpSegmentsByTimeRange(objectId, 0.0f, 0.5f)));
+    assertTrue(reader.lookUpSegmentsByTimeRange(objectId, 5000.0f, 6000.0f).isEmpty());
+  }
+
+  /**
+   * Tests that looking up the segments of multiple objects uses the index for objects that have been loaded before.
+   */
+  @Test
+  @DisplayName("Test Segments Of Objects")
+  public void testSegmentsOfObjects() {
+    final SyntheticSegmentSelector selector = new SyntheticSegmentSelector(OBJECTS, SEGMENTS, false);
+    final MediaSegmentReader reader = new MediaSegmentReader(selector, new MediaSegmentCache(100_000, 100_000, 10));
+    final List<String> objectIds = List.of(SyntheticSegmentSelector.objectId(0), SyntheticSegmentSelector.objectId(1));
+
+    final ListMultimap<String, MediaSegmentDescriptor> first = reader.lookUpSegmentsOfObjects(objectIds);
+    assertEquals(2 * SEGMENTS, first.size());
+    final int lookups = selector.lookups.get();
+    final ListMultimap<String, MediaSegmentDescriptor> second = reader.lookUpSegmentsOfObjects(objectIds);
+    assertEquals(lookups, selector.lookups.get());
+    assertEquals(range(1, SEGMENTS), numbers(second.get(objectIds.get(1))));
+    assertEquals(2, reader.lookUpSegments(List.of(SyntheticSegmentSelector.segmentId(0, 7), SyntheticSegmentSelector.segmentId(1, 9))).size());
+    assertEquals(lookups, selector.lookups.get());
+  }
+
+  /**
+   * Tests that invalidating an object causes its segments to be loaded again.
+   */
+  @Test
+  @DisplayName("Test Invalidation")
+  public void testInvalidation() {
+    final SyntheticSegmentSelector selector = new SyntheticSegmentSelector(OBJECTS, SEGMENTS, false);
+    final MediaSegmentCache cache = new MediaSegmentCache(100_000, 100_000, 10);
+    final MediaSegmentReader reader = new MediaSegmentReader(selector, cache);
+    final String objectId = SyntheticSegmentSelector.objectId(3);
+
+    reader.lookUpSegmentsOfObject(objectId);
+    assertTrue(cache.containsObject(objectId));
+    cache.invalidateObject(objectId);
+    assertFalse(cache.containsObject(objectId));
+    final int lookups = selector.lookups.get();
+    reader.lookUpSegmentsOfObject(objectId);
+    assertEquals(lookups + 1, selector.lookups.get());
+  }
+
+  /**
+   * Tests that lookups still return all segments if an object is too large to be indexed.
+   */
+  @Test
+  @DisplayName("Test Object Not Indexed")
+  public void testObjectNotIndexed() {
+    final MediaSegmentCache cache = new MediaSegmentCache(100, 100, 10);
+    final MediaSegmentReader reader = new MediaSegmentReader(new SyntheticSegmentSelector(OBJECTS, SEGMENTS, false), cache);
+    final String objectId = SyntheticSegmentSelector.objectId(4);
+
+    assertEquals(range(1, SEGMENTS), numbers(reader.lookUpSegmentsOfObject(objectId)));
+    assertFalse(cache.containsObject(objectId));
+    assertEquals(range(95, 105), numbers(reader.lookUpSegmentsByNumberRange(objectId, 95, 105)));
+    assertEquals(List.of(10, 11, 12, 13), numbers(reader.lookUpSegmentsByTimeRange(objectId, 10.0f, 12.5f)));
+  }
+}
@@ -0,0 +1,108 @@
+package org.vitrivr.cineast.core.db.dao.reader;
+
+import static org.vitrivr.cineast.core.util.CineastConstants.FEATURE_COLUMN_QUALIFIER;
+import static org.vitrivr.cineast.core.util.CineastConstants.GENERIC_ID_COLUMN_QUALIFIER;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.vitrivr.cineast.core.config.ReadableQueryConfig;
+import org.vitrivr.cineast.core.data.distance.DistanceElement;
+import org.vitrivr.cineast.core.data.providers.primitive.FloatArrayTypeProvider;
+import org.vitrivr.cineast.core.data.providers.primitive.PrimitiveTypeProvider;
+import org.vitrivr.cineast.core.db.NoDBSelector;
+
+/**
+ * In-memory feature entity for tests and benchmarks: One random feature vector per segment. Every call simulates the round trip to a database by waiting for a fixed time and counts as a lookup.
+ */
+public class SyntheticFeatureSelector extends NoDBSelector {
+
+  private final Map<String, float[]> vectors = new LinkedHashMap<>();
+  private final long latencyNanos;
+
+  /**
+   * Number of lookups performed, excluding nearest neighbour searches.
+   */
+  public final AtomicInteger lookups = new AtomicInteger();
+
+  /**
+   * @param segments     Number of segments.
+   * @param dimensions   Number of dimensions of the feature vectors.
+   * @param latencyNanos Time in nanoseconds every call waits for.
+   * @param seed         Seed of the random vectors.
+   */
+  public SyntheticFeatureSelector(int segments, int dimensions, long latencyNanos, long seed) {
+    this.latencyNanos = latencyNanos;
+    final SplittableRandom random = new SplittableRandom(seed);
+    for (int s = 0; s < segments; s++) {
+      final float[] vector = new float[dimensions];
+      for (int d = 0; d < dimensions; d++) {
+        vector[d] = (float) random.nextDouble();
+      }
+      this.vectors.put(segmentId(s), vector);
+    }
+  }
+
+  public static String segmentId(int segment) {
+    return "v_" + (segment / 100) + "_" + (segment % 100 + 1);
+  }
+
+  private void roundTrip() {
+    if (this.latencyNanos > 0) {
+      LockSupport.parkNanos(this.latencyNanos);
+    }
+  }
+
+  @Override
+  public List<float[]> getFeatureVectors(String column, PrimitiveTypeProvider value, String vectorName, ReadableQueryConfig queryConfig) {
+    this.lookups.incrementAndGet();
+    this.roundTrip();
+    final float[] vector = this.vectors.get(value.getString());
+    return vector == null ? new ArrayList<>(0) : new ArrayList<>(List.of(vector.clone()));
+  }
+
+  @Override
+  public List<Map<String, PrimitiveTypeProvider>> getRows(String column, Iterable<PrimitiveTypeProvider> values, String dbQueryId) {
+    this.lookups.incrementAndGet();
+    this.roundTrip();
+    final List<Map<String, PrimitiveTypeProvider>> rows = new ArrayList<>();
+    for (PrimitiveTypeProvider value : values) {
+      final float[] vector = this.vectors.get(value.getString());
+      if (vector != null) {
+        final Map<String, PrimitiveTypeProvider> row = new HashMap<>();
+        row.put(GENERIC_ID_COLUMN_QUALIFIER, value);
+        row.put(FEATURE_COLUMN_QUALIFIER, new FloatArrayTypeProvider(vector.clone()));
+        rows.add(row);
+      }
+    }
+    return rows;
+  }
+
+  /**
+   * Brute force search by squared Euclidean distance.
+   */
+  @Override
+  public <E extends DistanceElement> List<E> getNearestNeighboursGeneric(int k, float[] query, String column, Class<E> distanceElementClass, ReadableQueryConfig queryConfig) {
+    this.roundTrip();
+    final List<Map.Entry<String, Double>> distances = new ArrayList<>(this.vectors.size());
+    for (Map.Entry<String, float[]> entry : this.vectors.entrySet()) {
+      double distance = 0;
+      for (int d = 0; d < query.length; d++) {
+        final double diff = query[d] - entry.getValue()[d];
+        distance += diff * diff;
+      }
+      distances.add(Map.entry(entry.getKey(), distance));
+    }
+    distances.sort(Map.Entry.comparingByValue());
+    final List<E> result = new ArrayList<>(k);
+    for (Map.Entry<String, Double> entry : distances.subList(0, Math.min(k, distances.size()))) {
+      result.add(DistanceElement.create(distanceElementClass, entry.getKey(), entry.getValue()));
+    }
+    return result;
+  }
+}
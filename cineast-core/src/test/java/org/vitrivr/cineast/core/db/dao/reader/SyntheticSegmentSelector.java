@@ -0,0 +1,104 @@
+package org.vitrivr.cineast.core.db.dao.reader;
+
+import static org.vitrivr.cineast.core.data.entities.MediaSegmentDescriptor.FIELDNAMES;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.lang3.tuple.Triple;
+import org.vitrivr.cineast.core.config.ReadableQueryConfig;
+import org.vitrivr.cineast.core.data.providers.primitive.FloatTypeProvider;
+import org.vitrivr.cineast.core.data.providers.primitive.IntTypeProvider;
+import org.vitrivr.cineast.core.data.providers.primitive.PrimitiveTypeProvider;
+import org.vitrivr.cineast.core.data.providers.primitive.StringTypeProvider;
+import org.vitrivr.cineast.core.db.NoDBSelector;
+import org.vitrivr.cineast.core.db.RelationalOperator;
+
+/**
+ * In-memory segment entity for tests and benchmarks: A number of objects (videos) with a fixed number of consecutive segments each. Counts the number of lookups.
+ */
+public class SyntheticSegmentSelector extends NoDBSelector {
+
+  private final Map<String, List<Map<String, PrimitiveTypeProvider>>> byObject = new HashMap<>();
+  private final Map<String, Map<String, PrimitiveTypeProvider>> bySegment = new HashMap<>();
+  private final boolean compound;
+
+  /**
+   * Number of lookups performed.
+   */
+  public final AtomicInteger lookups = new AtomicInteger();
+
+  /**
+   * @param objects           Number of objects.
+   * @param segmentsPerObject Number of segments per object; each segment is one second long.
+   * @param compound          Whether compound predicates are supported.
+   */
+  public SyntheticSegmentSelector(int objects, int segmentsPerObject, boolean compound) {
+    this.compound = compound;
+    for (int o = 0; o < objects; o++) {
+      final String objectId = objectId(o);
+      final List<Map<String, PrimitiveTypeProvider>> rows = new ArrayList<>(segmentsPerObject);
+      for (int s = 1; s <= segmentsPerObject; s++) {
+        final Map<String, PrimitiveTypeProvider> row = new HashMap<>();
+        row.put(FIELDNAMES[0], new StringTypeProvider(segmentId(o, s)));
+        row.put(FIELDNAMES[1], new StringTypeProvider(objectId));
+        row.put(FIELDNAMES[2], new IntTypeProvider(s));
+        row.put(FIELDNAMES[3], new IntTypeProvider((s - 1) * 25));
+        row.put(FIELDNAMES[4], new IntTypeProvider(s * 25 - 1));
+        row.put(FIELDNAMES[5], new FloatTypeProvider(s - 1));
+        row.put(FIELDNAMES[6], new FloatTypeProvider(s));
+        rows.add(row);
+        this.bySegment.put(segmentId(o, s), row);
+      }
+      this.byObject.put(objectId, rows);
+    }
+  }
+
+  public static String objectId(int object) {
+    return "v_" + object;
+  }
+
+  public static String segmentId(int object, int segment) {
+    return "v_" + object + "_" + segment;
+  }
+
+  @Override
+  public List<Map<String, PrimitiveTypeProvider>> getRows(String column, Iterable<PrimitiveTypeProvider> values, String dbQueryId) {
+    this.lookups.incrementAndGet();
+    final List<Map<String, PrimitiveTypeProvider>> result = new ArrayList<>();
+    for (PrimitiveTypeProvider value : values) {
+      if (column.equals(FIELDNAMES[0]) && this.bySegment.containsKey(value.getString())) {
+        result.add(new HashMap<>(this.bySegment.get(value.getString())));
+      } else if (column.equals(FIELDNAMES[1])) {
+        this.byObject.getOrDefault(value.getString(), List.of()).forEach(row -> result.add(new HashMap<>(row)));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public boolean supportsCompoundPredicates() {
+    return this.compound;
+  }
+
+  /**
+   * Supports exactly the conditions issued by {@link MediaSegmentReader#lookUpSegmentsByNumberRange(String, int, int)}.
+   */
+  @Override
+  public List<Map<String, PrimitiveTypeProvider>> getRowsAND(List<Triple<String, RelationalOperator, List<PrimitiveTypeProvider>>> conditions, String identifier, List<String> projection, ReadableQueryConfig queryConfig) {
+    this.lookups.incrementAndGet();
+    final String objectId = conditions.get(0).getRight().get(0).getString();
+    final int lower = conditions.get(1).getRight().get(0).getInt();
+    final int upper = conditions.get(1).getRight().get(1).getInt();
+    final List<Map<String, PrimitiveTypeProvider>> result = new ArrayList<>();
+    for (Map<String, PrimitiveTypeProvider> row : this.byObject.getOrDefault(objectId, List.of())) {
+      final int number = row.get(FIELDNAMES[2]).getInt();
+      if (number >= lower && number <= upper) {
+        result.add(new HashMap<>(row));
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,297 @@
+package org.vitrivr.cineast.core.db.fulltext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.core.db.fulltext.FulltextIndex.Hit;
+
+public class FulltextIndexTest {
+
+  private static final String[] WORDS = {"hello", "world", "video", "retrieval", "cineast", "vitrivr", "shot", "scene", "text", "speech", "music", "audio", "frame", "color", "motion"};
+
+  /**
+   * The corpus of the fulltext tests in {@link org.vitrivr.cineast.core.db.DBIntegrationTest}.
+   */
+  private static FulltextIndex corpus() {
+    final FulltextIndex index = FulltextIndex.inMemory();
+    index.add("0", "hello world");
+    index.add("1", "hella world");
+    index.add("2", "single");
+    index.add("3", "double");
+    index.add("4", "hello");
+    index.add("3", "duplicate");
+    index.add("5", "world");
+    index.add("6", "hello world my name is cineast");
+    index.add("7", "world hello");
+    return index;
+  }
+
+  private static List<String> ids(List<Hit> hits) {
+    return hits.stream().map(Hit::id).collect(Collectors.toList());
+  }
+
+  private static String randomText(SplittableRandom random, int length) {
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      /* Skewed term distribution, so that some terms are frequent and others are rare. */
+      builder.append(WORDS[(int) (WORDS.length * Math.pow(random.nextDouble(), 2))]).append(' ');
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Straightforward BM25 over the analyzed documents.
+   */
+  private static Map<Integer, Float> reference(List<List<String>> documents, String term) {
+    final double avgLength = Math.max(1d, documents.stream().mapToInt(List::size).average().orElse(0d));
+    final long docFreq = documents.stream().filter(d -> d.contains(term)).count();
+    final double idf = Math.log(1d + (documents.size() - docFreq + 0.5d) / (docFreq + 0.5d));
+    final Map<Integer, Float> scores = new HashMap<>();
+    for (int i = 0; i < documents.size(); i++) {
+      final long freq = documents.get(i).stream().filter(term::equals).count();
+      if (freq > 0) {
+        final double norm = FulltextIndex.K1 * (1d - FulltextIndex.B + FulltextIndex.B * documents.get(i).size() / avgLength);
+        scores.put(i, (float) (idf * freq * (FulltextIndex.K1 + 1d) / (freq + norm)));
+      }
+    }
+    return scores;
+  }
+
+  @Test
+  @DisplayName("Test Analyzer")
+  public void testAnalyzer() {
+    final TextAnalyzer analyzer = TextAnalyzer.standard();
+    assertEquals(List.of("hello", "world", "42"), analyzer.analyze("Hello, WORLD! 42"));
+    assertEquals(List.of("cafe", "uber", "strasse"), analyzer.analyze("Café über-Strasse"));
+    assertEquals(List.of(), analyzer.analyze("  ... "));
+    assertEquals(List.of(), analyzer.analyze(null));
+    assertEquals(List.of("ok"), analyzer.analyze("ok " + "x".repeat(TextAnalyzer.MAX_TOKEN_LENGTH + 1)));
+    assertEquals(List.of("a"), analyzer.with(t -> t.length() < 2 ? t : null).analyze("a bb"));
+  }
+
+  @Test
+  @DisplayName("Test Query Parser")
+  public void testQueryParser() {
+    final TextAnalyzer analyzer = TextAnalyzer.standard();
+    final List<FulltextQuery.Clause> clauses = FulltextQuery.parse(analyzer, "Hello~1 \"Hello World\" world~ OR x~9", "single").getClauses();
+    assertEquals(List.of(
+        new FulltextQuery.Clause(List.of("hello"), 1),
+        new FulltextQuery.Clause(List.of("hello", "world"), 0),
+        new FulltextQuery.Clause(List.of("world"), FulltextQuery.MAX_EDITS),
+        new FulltextQuery.Clause(List.of("x"), FulltextQuery.MAX_EDITS),
+        new FulltextQuery.Clause(List.of("single"), 0)
+    ), clauses);
+    assertTrue(FulltextQuery.parse(analyzer, "\"\"", "  ", "!!").isEmpty());
+  }
+
+  @Test
+  @DisplayName("Test Term Query")
+  public void testTermQuery() {
+    final FulltextIndex index = corpus();
+    final List<Hit> hits = index.search(10, null, "hello");
+    /* Shorter documents rank higher; "hella" is no match. */
+    assertEquals(List.of("4", "0", "7", "6"), ids(hits));
+    assertTrue(hits.stream().allMatch(hit -> hit.score() > 0f));
+    assertEquals(List.of("6"), ids(index.search(10, null, "name my")));
+    assertEquals(List.of(), ids(index.search(10, null, "nothing")));
+  }
+
+  @Test
+  @DisplayName("Test Multiple Terms")
+  public void testMultipleTerms() {
+    final FulltextIndex index = corpus();
+    assertEquals(Set.of("2", "3"), Set.copyOf(ids(index.search(10, null, "single", "double"))));
+    /* Both documents with ID 3 are returned. */
+    assertEquals(List.of("2", "3", "3"), ids(index.search(10, null, "double", "single", "duplicate")).stream().sorted().collect(Collectors.toList()));
+
+    /* A document matching both terms ranks first; the rarer term outweighs the frequent one. */
+    final List<Hit> hits = index.search(10, null, "cineast world");
+    assertEquals("6", hits.get(0).id());
+    assertEquals(5, hits.size());
+    assertEquals(List.of("6"), ids(index.search(1, null, "cineast world")));
+  }
+
+  @Test
+  @DisplayName("Test Phrase Query")
+  public void testPhraseQuery() {
+    final FulltextIndex index = corpus();
+    assertEquals(List.of("0", "6"), ids(index.search(10, null, "\"hello world\"")));
+    assertEquals(List.of("7"), ids(index.search(10, null, "\"world hello\"")));
+    assertEquals(List.of(), ids(index.search(10, null, "\"hello cineast\"")));
+    assertEquals(Set.of("0", "2", "3", "6"), Set.copyOf(ids(index.search(10, null, "single", "double", "\"hello world\""))));
+
+    final FulltextIndex repeated = FulltextIndex.inMemory();
+    repeated.add("a", "to be or not to be");
+    repeated.add("b", "to be");
+    repeated.add("c", "be to");
+    final List<Hit> hits = repeated.search(10, null, "\"to be\"");
+    assertEquals(Set.of("a", "b"), Set.copyOf(ids(hits)));
+  }
+
+  @Test
+  @DisplayName("Test Fuzzy Query")
+  public void testFuzzyQuery() {
+    final FulltextIndex index = corpus();
+    final List<Hit> hits = index.search(10, null, "hello~1");
+    assertEquals(Set.of("0", "1", "4", "6", "7"), Set.copyOf(ids(hits)));
+    /* The exact match scores higher than the fuzzy match of the same length. */
+    final float hello = hits.stream().filter(hit -> hit.id().equals("0")).findFirst().orElseThrow().score();
+    final float hella = hits.stream().filter(hit -> hit.id().equals("1")).findFirst().orElseThrow().score();
+    assertTrue(hello > hella);
+
+    /* Transpositions count as one edit. */
+    assertEquals(Set.of("0", "4", "6", "7"), Set.copyOf(ids(index.search(10, null, "hlelo~1"))));
+    assertEquals(List.of(), ids(index.search(10, null, "hlelo")));
+    assertEquals(List.of("3"), ids(index.search(10, null, "dubble~2")));
+    assertEquals(List.of(), ids(index.search(10, null, "dubble~1")));
+  }
+
+  @Test
+  @DisplayName("Test Fuzzy Query Against Brute Force")
+  public void testFuzzyAgainstBruteForce() {
+    final SplittableRandom random = new SplittableRandom(3L);
+    final FulltextIndex index = FulltextIndex.inMemory();
+    final List<String> vocabulary = new ArrayList<>();
+    for (int i = 0; i < 2_000; i++) {
+      /* Small alphabet, so that many words are close to each other. */
+      final char[] word = new char[2 + random.nextInt(6)];
+      for (int j = 0; j < word.length; j++) {
+        word[j] = (char) ('a' + random.nextInt(4));
+      }
+      vocabulary.add(new String(word));
+      index.add(String.valueOf(i), vocabulary.get(i));
+    }
+    for (int q = 0; q < 200; q++) {
+      final String term = vocabulary.get(random.nextInt(vocabulary.size()));
+      final int edits = 1 + random.nextInt(2);
+      final Set<String> expected = new HashSet<>();
+      for (int i = 0; i < vocabulary.size(); i++) {
+        final int d = distance(term, vocabulary.get(i));
+        if (d <= edits && d < Math.min(term.length(), vocabulary.get(i).length())) {
+          expected.add(String.valueOf(i));
+        }
+      }
+      final Set<String> actual = Set.copyOf(ids(index.search(vocabulary.size(), null, term + "~" + edits)));
+      /* Expansions are limited, so all matches must be expected, but not all expected documents must match. */
+      assertTrue(expected.containsAll(actual));
+      if (expected.stream().map(i -> vocabulary.get(Integer.parseInt(i))).distinct().count() <= FulltextIndex.MAX_EXPANSIONS) {
+        assertEquals(expected, actual);
+      }
+    }
+  }
+
+  /**
+   * Optimal string alignment distance, computed naively.
+   */
+  private static int distance(String a, String b) {
+    final int[][] d = new int[a.length() + 1][b.length() + 1];
+    for (int i = 0; i <= a.length(); i++) {
+      for (int j = 0; j <= b.length(); j++) {
+        if (i == 0 || j == 0) {
+          d[i][j] = i + j;
+          continue;
+        }
+        d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1));
+        if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+          d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+        }
+      }
+    }
+    return d[a.length()][b.length()];
+  }
+
+  @Test
+  @DisplayName("Test Filter")
+  public void testFilter() {
+    final FulltextIndex index = corpus();
+    assertEquals(List.of("0", "6"), ids(index.search(10, Set.of("0", "6", "2")::contains, "hello")));
+  }
+
+  @Test
+  @DisplayName("Test Scores Against Reference")
+  public void testScoresAgainstReference() throws IOException {
+    final SplittableRandom random = new SplittableRandom(1L);
+    final FulltextIndex index = FulltextIndex.inMemory();
+    final List<List<String>> documents = new ArrayList<>();
+    for (int i = 0; i < 3_000; i++) {
+      final String text = randomText(random, 1 + random.nextInt(30));
+      documents.add(TextAnalyzer.standard().analyze(text));
+      index.add(String.valueOf(i), text);
+      if (i % 250 == 0) {
+        /* Several segments, some merged. */
+        index.commit(i);
+      }
+    }
+    for (String word : WORDS) {
+      final Map<Integer, Float> expected = reference(documents, word);
+      final List<Hit> hits = index.search(documents.size(), null, word);
+      assertEquals(expected.size(), hits.size());
+      for (Hit hit : hits) {
+        assertEquals(expected.get(Integer.parseInt(hit.id())), hit.score(), 1e-4f);
+      }
+      for (int i = 1; i < hits.size(); i++) {
+        assertTrue(hits.get(i - 1).score() >= hits.get(i).score());
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Test Persistence")
+  public void testPersistence() throws IOException {
+    final Path directory = Files.createTempDirectory("cineast-fulltext");
+    try {
+      final SplittableRandom random = new SplittableRandom(2L);
+      final FulltextIndex reference = FulltextIndex.inMemory();
+      FulltextIndex index = FulltextIndex.open(directory);
+      assertEquals(-1L, index.version());
+      for (int commit = 0; commit < FulltextIndex.MAX_SEGMENTS + 3; commit++) {
+        for (int i = 0; i < 100; i++) {
+          final String text = randomText(random, 1 + random.nextInt(20));
+          index.add(commit + "_" + i, text);
+          reference.add(commit + "_" + i, text);
+        }
+        index.commit(commit);
+
+        /* Reopening yields the committed state. */
+        index = FulltextIndex.open(directory);
+        assertEquals(commit, index.version());
+        assertEquals(reference.size(), index.size());
+        for (String query : new String[]{"hello", "\"video retrieval\"", "musik~1 color", "motion~2"}) {
+          assertEquals(reference.search(20, null, query), index.search(20, null, query));
+        }
+      }
+      try (Stream<Path> files = Files.list(directory)) {
+        assertTrue(files.filter(f -> f.toString().endsWith(".seg")).count() <= FulltextIndex.MAX_SEGMENTS);
+      }
+
+      /* Documents added after the last commit are searchable, but not persisted. */
+      index.add("new", "vitrivr vitrivr");
+      assertEquals("new", index.search(1, null, "vitrivr").get(0).id());
+      assertFalse(FulltextIndex.open(directory).search(10, null, "vitrivr").stream().anyMatch(hit -> hit.id().equals("new")));
+
+      index.clear();
+      assertEquals(0, index.size());
+      assertEquals(0, FulltextIndex.open(directory).size());
+    } finally {
+      try (Stream<Path> files = Files.walk(directory)) {
+        files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+      }
+    }
+  }
+}
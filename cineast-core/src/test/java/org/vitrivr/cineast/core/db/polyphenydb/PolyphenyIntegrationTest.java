@@ -51,6 +51,13 @@ protected IntegrationDBProvider<PreparedStatement> provider() {
     return _provider;
   }
 
+  @Test
+  @DisplayName("Batched KNN search")
+  @Override
+  public void batchedKnnSearch() {
+    super.batchedKnnSearch();
+  }
+
   /**
    * This test verifies that a simple "hello" query retrieves exact and partial matches, but no fuzziness
    */
@@ -0,0 +1,209 @@
+package org.vitrivr.cineast.core.extraction.decode.audio;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.core.config.CacheConfig;
+import org.vitrivr.cineast.core.config.DecoderConfig;
+import org.vitrivr.cineast.core.data.frames.AudioFrame;
+import org.vitrivr.cineast.core.data.frames.AudioFramePool;
+
+/**
+ * Tests the frames emitted by {@link FFMpegAudioDecoder} on generated WAV files: Without conversion, they must reproduce the PCM data of the file exactly; re-sampled output is checked for its length, channel layout and level.
+ */
+public class FFMpegAudioDecoderTest {
+
+  private Path file;
+
+  /**
+   * Generates 16 bit little endian PCM data with a mix of sine tones and noise.
+   *
+   * @param samplerate Sampling rate of the data.
+   * @param channels   Number of channels.
+   * @param seconds    Duration in seconds.
+   * @return Interleaved PCM data.
+   */
+  static byte[] pcm(float samplerate, int channels, double seconds) {
+    final SplittableRandom random = new SplittableRandom(42L);
+    final int frames = (int) (samplerate * seconds);
+    final ByteBuffer buffer = ByteBuffer.allocate(2 * channels * frames).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < frames; i++) {
+      final double t = i / samplerate;
+      for (int c = 0; c < channels; c++) {
+        final double value = 0.4 * Math.sin(2.0 * Math.PI * (440.0 + 110.0 * c) * t) + 0.2 * Math.sin(2.0 * Math.PI * 3520.0 * t) + 0.1 * (2.0 * random.nextDouble() - 1.0);
+        buffer.putShort((short) Math.round(value * Short.MAX_VALUE));
+      }
+    }
+    return buffer.array();
+  }
+
+  /**
+   * Writes a WAV file with the data generated by {@link #pcm(float, int, double)}.
+   *
+   * @param samplerate Sampling rate of the file.
+   * @param channels   Number of channels.
+   * @param seconds    Duration in seconds.
+   * @return Path to the temporary file.
+   */
+  static Path writeWave(float samplerate, int channels, double seconds) throws IOException {
+    final byte[] data = pcm(samplerate, channels, seconds);
+    final Path file = Files.createTempFile("cineast-audio", ".wav");
+    final AudioFormat format = new AudioFormat(samplerate, 16, channels, true, false);
+    try (final AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(data), format, data.length / (2L * channels))) {
+      AudioSystem.write(stream, AudioFileFormat.Type.WAVE, file.toFile());
+    }
+    return file;
+  }
+
+  static DecoderConfig config(int samplerate, int channels) {
+    final DecoderConfig config = new DecoderConfig();
+    config.getProperties().put("samplerate", Integer.toString(samplerate));
+    config.getProperties().put("channels", Integer.toString(channels));
+    return config;
+  }
+
+  private static List<AudioFrame> decode(AudioDecoder decoder, Path file, DecoderConfig config) {
+    final List<AudioFrame> frames = new ArrayList<>();
+    assertTrue(decoder.init(file, config, new CacheConfig()));
+    try {
+      while (!decoder.complete()) {
+        final AudioFrame frame = decoder.getNext();
+        if (frame != null) {
+          frames.add(frame);
+        }
+      }
+    } finally {
+      decoder.close();
+    }
+    return frames;
+  }
+
+  private static void assertFrameEquals(AudioFrame expected, AudioFrame actual) {
+    assertEquals(expected.getIdx(), actual.getIdx());
+    assertEquals(expected.getTimestamp(), actual.getTimestamp());
+    assertEquals(expected.getDescriptor(), actual.getDescriptor());
+    assertArrayEquals(expected.getData(), actual.getData());
+  }
+
+  /**
+   * Checks the format of the frames and that indices and timestamps increase, and returns their concatenated data.
+   */
+  private static byte[] concatenate(List<AudioFrame> frames, int samplerate, int channels) {
+    final ByteArrayOutputStream data = new ByteArrayOutputStream();
+    long idx = -1;
+    long timestamp = Long.MIN_VALUE;
+    for (AudioFrame frame : frames) {
+      assertEquals(samplerate, frame.getSamplingrate());
+      assertEquals(channels, frame.getChannels());
+      assertTrue(frame.getIdx() > idx, "frame index " + frame.getIdx() + " after " + idx);
+      assertTrue(frame.getTimestamp() >= timestamp, "timestamp " + frame.getTimestamp() + " after " + timestamp);
+      idx = frame.getIdx();
+      timestamp = frame.getTimestamp();
+      data.writeBytes(frame.getData());
+    }
+    return data.toByteArray();
+  }
+
+  /**
+   * Root mean square of 16 bit little endian PCM data.
+   */
+  private static double rms(byte[] data) {
+    final ShortBuffer samples = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+    double sum = 0.0;
+    final int n = samples.remaining();
+    for (int i = 0; i < n; i++) {
+      final double value = samples.get(i);
+      sum += value * value;
+    }
+    return Math.sqrt(sum / n);
+  }
+
+  @AfterEach
+  public void teardown() throws IOException {
+    if (this.file != null) {
+      Files.deleteIfExists(this.file);
+    }
+  }
+
+  /**
+   * Mono input at 22.05kHz is re-sampled to stereo at 44.1kHz, which drains the re-sample context in more than one step. The output must have twice as many samples per channel, two identical channels and the level of the input.
+   */
+  @Test
+  @DisplayName("Re-sampled output has the expected length, layout and level")
+  public void testResampled() throws IOException {
+    final byte[] pcm = pcm(22050.0f, 1, 20.0);
+    this.file = writeWave(22050.0f, 1, 20.0);
+    final List<AudioFrame> frames = decode(new FFMpegAudioDecoder(), this.file, config(44100, 2));
+    assertTrue(frames.size() > 1);
+    final byte[] data = concatenate(frames, 44100, 2);
+
+    final int samples = data.length / 4;
+    final int expected = 2 * (pcm.length / 2);
+    assertTrue(Math.abs(samples - expected) <= expected / 1000, samples + " samples instead of " + expected);
+    final ShortBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+    for (int i = 0; i < samples; i++) {
+      assertEquals(buffer.get(2 * i), buffer.get(2 * i + 1), "channels differ at sample " + i);
+    }
+    assertEquals(rms(pcm), rms(data), 0.05 * rms(pcm));
+  }
+
+  /**
+   * Input that matches the target format passes the re-sample context unchanged, i.e. the frames contain exactly the PCM data of the file.
+   */
+  @Test
+  @DisplayName("Output without rate conversion is bit-identical to the input")
+  public void testUnchanged() throws IOException {
+    this.file = writeWave(44100.0f, 2, 20.0);
+    final List<AudioFrame> frames = decode(new FFMpegAudioDecoder(), this.file, config(44100, 2));
+    assertArrayEquals(pcm(44100.0f, 2, 20.0), concatenate(frames, 44100, 2));
+  }
+
+  /**
+   * Frames that are recycled right after they have been consumed provide the arrays of subsequent frames, which must not alter their content.
+   */
+  @Test
+  @DisplayName("Recycled frames do not alter the output")
+  public void testRecycled() throws IOException {
+    this.file = writeWave(48000.0f, 2, 20.0);
+    final DecoderConfig config = config(44100, 2);
+    final List<AudioFrame> expected = decode(new FFMpegAudioDecoder(), this.file, config);
+    assertTrue(expected.size() > 1);
+
+    final AudioFramePool pool = new AudioFramePool(1024L * 1024L);
+    final FFMpegAudioDecoder decoder = new FFMpegAudioDecoder(pool);
+    assertTrue(decoder.init(this.file, config, new CacheConfig()));
+    int i = 0;
+    try {
+      while (!decoder.complete()) {
+        final AudioFrame frame = decoder.getNext();
+        if (frame != null) {
+          assertFrameEquals(expected.get(i++), frame);
+          decoder.recycle(frame);
+        }
+      }
+    } finally {
+      decoder.close();
+    }
+    assertEquals(expected.size(), i);
+    assertTrue(pool.size() > 0);
+  }
+}
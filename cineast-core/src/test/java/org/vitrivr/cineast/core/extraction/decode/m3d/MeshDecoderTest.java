@@ -0,0 +1,271 @@
+package org.vitrivr.cineast.core.extraction.decode.m3d;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import org.joml.Vector3f;
+import org.joml.Vector4i;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.core.data.m3d.ArrayMesh;
+import org.vitrivr.cineast.core.data.m3d.Mesh;
+import org.vitrivr.cineast.core.data.m3d.ReadableMesh;
+
+public class MeshDecoderTest {
+
+  /**
+   * A unit cube with eight vertices and six quadratic faces.
+   */
+  private static final float[] CUBE_POSITIONS = {
+      -1, -1, -1, 1, -1, -1, 1, 1, -1, -1, 1, -1,
+      -1, -1, 1, 1, -1, 1, 1, 1, 1, -1, 1, 1
+  };
+
+  private static final int[] CUBE_INDICES = {
+      0, 3, 2, 1, 4, 5, 6, 7, 0, 1, 5, 4,
+      2, 3, 7, 6, 1, 2, 6, 5, 0, 4, 7, 3
+  };
+
+  private static ArrayMesh read(String suffix, byte[] content, Reader reader) throws IOException {
+    final Path file = Files.createTempFile("cineast-mesh", suffix);
+    try {
+      Files.write(file, content);
+      return reader.read(file);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private interface Reader {
+
+    ArrayMesh read(Path path) throws IOException;
+  }
+
+  @Test
+  @DisplayName("Test OBJ")
+  public void testObj() throws IOException {
+    final StringBuilder obj = new StringBuilder("# cube\r\nmtllib cube.mtl\r\n");
+    for (int i = 0; i < CUBE_POSITIONS.length; i += 3) {
+      obj.append("v ").append(CUBE_POSITIONS[i]).append(' ').append(CUBE_POSITIONS[i + 1]).append("\t").append(CUBE_POSITIONS[i + 2]).append("\r\n");
+    }
+    obj.append("vt 0.5 0.5\r\nvn 0 0 1\r\n\r\n");
+    for (int i = 0; i < CUBE_INDICES.length; i += 4) {
+      obj.append("f ").append(CUBE_INDICES[i] + 1).append("/1/1 ").append(CUBE_INDICES[i + 1] + 1).append("//1 ").append(CUBE_INDICES[i + 2] + 1).append(' ').append(CUBE_INDICES[i + 3] - 8).append("\r\n");
+    }
+    /* A triangle and a face pointing to a non-existing vertex, which is skipped. */
+    obj.append("f 1 2 3\nf 1 2 9");
+    final ArrayMesh mesh = read(".obj", obj.toString().getBytes(StandardCharsets.US_ASCII), OBJMeshDecoder::read);
+
+    assertArrayEquals(CUBE_POSITIONS, mesh.getPositions());
+    assertEquals(7, mesh.numberOfFaces());
+    for (int i = 0; i < CUBE_INDICES.length; i++) {
+      assertEquals(CUBE_INDICES[i], mesh.getIndices()[i]);
+    }
+    assertArrayEquals(new int[]{0, 1, 2, -1}, new int[]{mesh.getIndices()[24], mesh.getIndices()[25], mesh.getIndices()[26], mesh.getIndices()[27]});
+    assertThrows(NumberFormatException.class, () -> read(".obj", "v 1 2 x".getBytes(StandardCharsets.US_ASCII), OBJMeshDecoder::read));
+    assertThrows(NumberFormatException.class, () -> read(".obj", "v 1 2\nv 1 2 3".getBytes(StandardCharsets.US_ASCII), OBJMeshDecoder::read));
+  }
+
+  @Test
+  @DisplayName("Test OFF")
+  public void testOff() throws IOException {
+    final StringBuilder off = new StringBuilder("OFF\n8 7 0\n");
+    for (int i = 0; i < CUBE_POSITIONS.length; i += 3) {
+      off.append(CUBE_POSITIONS[i]).append("  ").append(CUBE_POSITIONS[i + 1]).append(' ').append(CUBE_POSITIONS[i + 2]).append('\n');
+    }
+    for (int i = 0; i < CUBE_INDICES.length; i += 4) {
+      off.append("4 ").append(CUBE_INDICES[i]).append(' ').append(CUBE_INDICES[i + 1]).append(' ').append(CUBE_INDICES[i + 2]).append(' ').append(CUBE_INDICES[i + 3]).append('\n');
+    }
+    off.append("3 0 1 2\n");
+    final ArrayMesh mesh = read(".off", off.toString().getBytes(StandardCharsets.US_ASCII), OFFMeshDecoder::read);
+    assertArrayEquals(CUBE_POSITIONS, mesh.getPositions());
+    assertEquals(7, mesh.numberOfFaces());
+    assertEquals(-1, mesh.getIndices()[27]);
+
+    assertNull(read(".off", "OFF\n8 6 0\n0 0 0\n".getBytes(StandardCharsets.US_ASCII), OFFMeshDecoder::read));
+    assertNull(read(".off", "OFF\n3 1 0\n0 0 0\n1 0 0\n0 1 0\n5 0 1 2 0 1\n".getBytes(StandardCharsets.US_ASCII), OFFMeshDecoder::read));
+    assertNull(read(".off", "PLY\n".getBytes(StandardCharsets.US_ASCII), OFFMeshDecoder::read));
+  }
+
+  @Test
+  @DisplayName("Test ASCII and Binary STL")
+  public void testStl() throws IOException {
+    /* Twelve triangles of the cube; every vertex is shared by several triangles and must only be added once. */
+    final int[] triangles = new int[36];
+    for (int f = 0; f < 6; f++) {
+      final int[] q = {CUBE_INDICES[4 * f], CUBE_INDICES[4 * f + 1], CUBE_INDICES[4 * f + 2], CUBE_INDICES[4 * f + 3]};
+      System.arraycopy(new int[]{q[0], q[1], q[2], q[0], q[2], q[3]}, 0, triangles, 6 * f, 6);
+    }
+
+    final StringBuilder ascii = new StringBuilder("solid cube\n");
+    final ByteBuffer binary = ByteBuffer.allocate(84 + 50 * 12).order(ByteOrder.LITTLE_ENDIAN);
+    binary.position(80);
+    binary.putInt(12);
+    for (int t = 0; t < 12; t++) {
+      ascii.append("  facet normal 0 0 0\n    outer loop\n");
+      binary.putFloat(0).putFloat(0).putFloat(0);
+      for (int c = 0; c < 3; c++) {
+        final int v = triangles[3 * t + c];
+        ascii.append("      vertex ").append(CUBE_POSITIONS[3 * v]).append(' ').append(CUBE_POSITIONS[3 * v + 1]).append(' ').append(CUBE_POSITIONS[3 * v + 2]).append('\n');
+        binary.putFloat(CUBE_POSITIONS[3 * v]).putFloat(CUBE_POSITIONS[3 * v + 1]).putFloat(CUBE_POSITIONS[3 * v + 2]);
+      }
+      ascii.append("    endloop\n  endfacet\n");
+      binary.putShort((short) 0);
+    }
+    ascii.append("endsolid cube\n");
+
+    final ArrayMesh fromAscii = read(".stl", ascii.toString().getBytes(StandardCharsets.US_ASCII), STLMeshDecoder::read);
+    final ArrayMesh fromBinary = read(".stl", binary.array(), STLMeshDecoder::read);
+    for (ArrayMesh mesh : new ArrayMesh[]{fromAscii, fromBinary}) {
+      assertEquals(8, mesh.numberOfVertices());
+      assertEquals(12, mesh.numberOfFaces());
+      assertEquals(24.0, mesh.surfaceArea(), 1e-6);
+    }
+    assertArrayEquals(fromAscii.getPositions(), fromBinary.getPositions());
+    assertArrayEquals(fromAscii.getIndices(), fromBinary.getIndices());
+
+    /* Binary files whose header starts with 'solid ' are decoded as binary after all. */
+    binary.put(0, "solid ".getBytes(StandardCharsets.US_ASCII));
+    assertArrayEquals(fromBinary.getIndices(), read(".stl", binary.array(), STLMeshDecoder::read).getIndices());
+  }
+
+  /**
+   * The lazily created {@link Mesh} and the properties calculated on the arrays must be identical to a {@link Mesh} built vertex by vertex and face by face.
+   */
+  @Test
+  @DisplayName("Test Array Mesh Matches Mesh")
+  public void testArrayMeshMatchesMesh() {
+    final SplittableRandom random = new SplittableRandom(11L);
+    final int vertices = 500;
+    final ArrayMesh.Builder builder = ArrayMesh.builder(10, 10);
+    final Mesh expected = new Mesh(10, 10);
+    for (int i = 0; i < vertices; i++) {
+      final float x = (float) random.nextDouble(), y = (float) random.nextDouble(), z = (float) random.nextDouble();
+      builder.addVertex(x, y, z);
+      expected.addVertex(new Vector3f(x, y, z));
+    }
+    for (int f = 0; f < 2000; f++) {
+      final int a = random.nextInt(vertices), b = random.nextInt(vertices), c = random.nextInt(vertices);
+      final int d = random.nextBoolean() ? -1 : random.nextInt(vertices);
+      builder.addFace(a, b, c, d);
+      expected.addFace(new Vector4i(a, b, c, d));
+    }
+    /* Degenerate faces, including one with a repeated vertex. */
+    builder.addFace(0, 0, 1);
+    expected.addFace(new Vector4i(0, 0, 1, -1));
+    builder.addFace(2, 3, 2, 3);
+    expected.addFace(new Vector4i(2, 3, 2, 3));
+    final ArrayMesh mesh = builder.build();
+
+    assertEquals(expected.numberOfVertices(), mesh.numberOfVertices());
+    assertEquals(expected.numberOfFaces(), mesh.numberOfFaces());
+    assertEquals(expected.surfaceArea(), mesh.surfaceArea());
+    assertArrayEquals(expected.bounds(), mesh.bounds());
+    assertEquals(expected.barycenter(), mesh.barycenter());
+    assertEquals(expected.surfaceArea(), mesh.toMesh().surfaceArea());
+
+    final float[] normals = mesh.getNormals();
+    for (int i = 0; i < vertices; i++) {
+      final Mesh.Vertex vertex = expected.getVertex(i);
+      assertEquals(vertex.getNormal(), new Vector3f(normals[3 * i], normals[3 * i + 1], normals[3 * i + 2]));
+      assertEquals(vertex.getNormal(), mesh.getVertex(i).getNormal());
+      assertEquals(vertex.getColor(), mesh.getVertex(i).getColor());
+      assertEquals(vertex.numberOfFaces(), mesh.getVertex(i).numberOfFaces());
+    }
+  }
+
+  /**
+   * The decoders must hand out the {@link ArrayMesh} itself, and copying it with {@link Mesh#copyOf(ReadableMesh)} must yield the same {@link Mesh} as copying its {@link Mesh} representation.
+   */
+  @Test
+  @DisplayName("Test Copy")
+  public void testCopy() throws IOException {
+    final StringBuilder off = new StringBuilder("OFF\n8 7 0\n");
+    for (int i = 0; i < CUBE_POSITIONS.length; i += 3) {
+      off.append(CUBE_POSITIONS[i]).append(' ').append(CUBE_POSITIONS[i + 1]).append(' ').append(CUBE_POSITIONS[i + 2]).append('\n');
+    }
+    for (int i = 0; i < CUBE_INDICES.length; i += 4) {
+      off.append("4 ").append(CUBE_INDICES[i]).append(' ').append(CUBE_INDICES[i + 1]).append(' ').append(CUBE_INDICES[i + 2]).append(' ').append(CUBE_INDICES[i + 3]).append('\n');
+    }
+    off.append("3 0 1 2\n");
+    final Path file = Files.createTempFile("cineast-mesh", ".off");
+    final ReadableMesh decoded;
+    try {
+      Files.write(file, off.toString().getBytes(StandardCharsets.US_ASCII));
+      final OFFMeshDecoder decoder = new OFFMeshDecoder();
+      decoder.init(file, null, null);
+      decoded = decoder.getNext();
+    } finally {
+      Files.delete(file);
+    }
+    assertTrue(decoded instanceof ArrayMesh);
+    final ArrayMesh mesh = (ArrayMesh) decoded;
+
+    final Mesh copy = Mesh.copyOf(mesh);
+    final Mesh expected = new Mesh(mesh.toMesh());
+    assertNotSame(mesh.toMesh(), copy);
+    assertEquals(expected.numberOfVertices(), copy.numberOfVertices());
+    assertEquals(expected.numberOfFaces(), copy.numberOfFaces());
+    for (int i = 0; i < expected.numberOfVertices(); i++) {
+      assertEquals(expected.getVertex(i).getPosition(), copy.getVertex(i).getPosition());
+      assertEquals(expected.getVertex(i).getColor(), copy.getVertex(i).getColor());
+      assertEquals(expected.getVertex(i).getNormal(), copy.getVertex(i).getNormal());
+      assertEquals(expected.getVertex(i).numberOfFaces(), copy.getVertex(i).numberOfFaces());
+    }
+    for (int f = 0; f < expected.numberOfFaces(); f++) {
+      assertEquals(expected.getFaces().get(f).getType(), copy.getFaces().get(f).getType());
+      for (int v = 0; v < expected.getFaces().get(f).getVertices().size(); v++) {
+        assertEquals(expected.getFaces().get(f).getVertices().get(v).getPosition(), copy.getFaces().get(f).getVertices().get(v).getPosition());
+      }
+    }
+    assertEquals(expected.surfaceArea(), copy.surfaceArea());
+
+    /* The copy is independent of the ArrayMesh it was created from. */
+    copy.scale(2.0f);
+    assertArrayEquals(CUBE_POSITIONS, mesh.getPositions());
+    assertEquals(expected.getVertex(0).getPosition(), mesh.getVertex(0).getPosition());
+  }
+
+  @Test
+  @DisplayName("Test Number Parsing")
+  public void testNumberParsing() throws IOException {
+    final SplittableRandom random = new SplittableRandom(5L);
+    final StringBuilder text = new StringBuilder("0 -0 1. .5 +2.5 1e3 1E-3 -7.0e+2 0.000000000000000000000001 123456789012345678901234 3.4028236e38 1.4e-45 NaN -Infinity 0x1p3 1f\n");
+    for (int i = 0; i < 20_000; i++) {
+      final float value = Float.intBitsToFloat(random.nextInt());
+      text.append(random.nextBoolean() ? Float.toString(value) : String.format(Locale.ROOT, "%.6f", (float) (random.nextDouble() * 200.0 - 100.0))).append(i % 8 == 0 ? '\n' : ' ');
+    }
+    text.append("16777217 16777219 0.3 33554435");
+    final MeshTokenizer tokenizer = new MeshTokenizer(new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.US_ASCII)));
+    int count = 0;
+    while (tokenizer.next()) {
+      assertEquals(Float.floatToIntBits(Float.parseFloat(tokenizer.text())), Float.floatToIntBits(tokenizer.floatValue()), tokenizer.text());
+      count++;
+    }
+    assertEquals(20_020, count);
+
+    final MeshTokenizer ints = new MeshTokenizer(new ByteArrayInputStream("12/4/5 -3 +7 2147483647 -2147483648 2147483648 1x".getBytes(StandardCharsets.US_ASCII)));
+    ints.next();
+    assertEquals(12, ints.intValue('/'));
+    assertEquals(-3, ints.nextIntOnLine());
+    assertEquals(7, ints.nextIntOnLine());
+    assertEquals(Integer.MAX_VALUE, ints.nextIntOnLine());
+    assertEquals(Integer.MIN_VALUE, ints.nextIntOnLine());
+    assertThrows(NumberFormatException.class, ints::nextIntOnLine);
+    assertThrows(NumberFormatException.class, ints::nextIntOnLine);
+    assertThrows(NumberFormatException.class, ints::nextIntOnLine);
+  }
+}
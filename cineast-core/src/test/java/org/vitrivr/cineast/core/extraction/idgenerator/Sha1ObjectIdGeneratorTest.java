@@ -0,0 +1,161 @@
+package org.vitrivr.cineast.core.extraction.idgenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.core.data.MediaType;
+import org.vitrivr.cineast.core.extraction.idgenerator.ContentHasher.Mode;
+
+public class Sha1ObjectIdGeneratorTest {
+
+  private static byte[] randomBytes(int length, long seed) {
+    final byte[] bytes = new byte[length];
+    final SplittableRandom random = new SplittableRandom(seed);
+    for (int i = 0; i < length; i++) {
+      bytes[i] = (byte) random.nextInt(256);
+    }
+    return bytes;
+  }
+
+  private static Path write(byte[] bytes) throws IOException {
+    final Path file = Files.createTempFile("cineast-hash", ".bin");
+    Files.write(file, bytes);
+    return file;
+  }
+
+  private static void delete(Path... files) throws IOException {
+    for (Path file : files) {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  @DisplayName("Test SHA-1 Ids Are Unchanged")
+  public void testSha1() throws IOException {
+    final Sha1ObjectIdGenerator generator = new Sha1ObjectIdGenerator();
+    for (int length : new int[]{0, 1, 63, 64, 65, 4095, 4096, 100_003, 3 << 20}) {
+      final byte[] bytes = randomBytes(length, length);
+      final Path file = write(bytes);
+      try {
+        assertEquals(MediaType.generateId(MediaType.VIDEO, DigestUtils.sha1Hex(bytes)), generator.next(file, MediaType.VIDEO).get());
+        assertEquals(DigestUtils.sha1Hex(bytes), new ContentHasher(Mode.SHA1).hash(file));
+        /* Windows smaller than the file, with and without a partial last window. */
+        assertEquals(DigestUtils.sha1Hex(bytes), new ContentHasher(Mode.SHA1, ContentHasher.DEFAULT_CHUNK_SIZE, ContentHasher.DEFAULT_SAMPLES, 4096).hash(file));
+        assertEquals(DigestUtils.sha1Hex(bytes), new ContentHasher(Mode.SHA1, ContentHasher.DEFAULT_CHUNK_SIZE, ContentHasher.DEFAULT_SAMPLES, 1000).hash(file));
+      } finally {
+        delete(file);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Test Tree Hash")
+  public void testTree() throws IOException {
+    final int chunkSize = 1 << 16;
+    for (int length : new int[]{0, 1, chunkSize, chunkSize + 1, 37 * chunkSize + 123}) {
+      final byte[] bytes = randomBytes(length, 7L * length);
+      final Path file = write(bytes);
+      try {
+        final MessageDigest root = DigestUtils.getSha1Digest();
+        root.update(ByteBuffer.allocate(Long.BYTES).putLong(0, length));
+        for (int position = 0; position < length; position += chunkSize) {
+          root.update(DigestUtils.sha1(Arrays.copyOfRange(bytes, position, Math.min(length, position + chunkSize))));
+        }
+        assertEquals(Hex.encodeHexString(root.digest()), new ContentHasher(Mode.TREE, chunkSize, ContentHasher.DEFAULT_SAMPLES).hash(file));
+      } finally {
+        delete(file);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Test Fast Identity")
+  public void testFast() throws IOException {
+    final ContentHasher hasher = new ContentHasher(Mode.FAST, ContentHasher.DEFAULT_CHUNK_SIZE, 4);
+    final int length = 40 * ContentHasher.SAMPLE_SIZE + 17;
+    final byte[] bytes = randomBytes(length, 3L);
+    final Path original = write(bytes);
+
+    /* A change in the last block is detected, a change between the sampled blocks is not. */
+    final byte[] last = bytes.clone();
+    last[length - 1] ^= 1;
+    final byte[] between = bytes.clone();
+    between[2 * ContentHasher.SAMPLE_SIZE] ^= 1;
+    final Path lastChanged = write(last);
+    final Path betweenChanged = write(between);
+    final Path shorter = write(Arrays.copyOf(bytes, length - 1));
+    final Path small = write(Arrays.copyOf(bytes, 3 * ContentHasher.SAMPLE_SIZE));
+    try {
+      assertEquals(hasher.hash(original), hasher.hash(original));
+      assertNotEquals(hasher.hash(original), hasher.hash(lastChanged));
+      assertEquals(hasher.hash(original), hasher.hash(betweenChanged));
+      assertNotEquals(hasher.hash(original), hasher.hash(shorter));
+
+      /* Small files are digested entirely. */
+      final MessageDigest digest = DigestUtils.getSha1Digest();
+      digest.update(ByteBuffer.allocate(Long.BYTES).putLong(0, 3 * ContentHasher.SAMPLE_SIZE));
+      digest.update(Arrays.copyOf(bytes, 3 * ContentHasher.SAMPLE_SIZE));
+      assertEquals(Hex.encodeHexString(digest.digest()), hasher.hash(small));
+    } finally {
+      delete(original, lastChanged, betweenChanged, shorter, small);
+    }
+  }
+
+  @Test
+  @DisplayName("Test Sidecar Cache")
+  public void testCache() throws IOException {
+    final byte[] bytes = randomBytes(10_000, 11L);
+    final Path file = write(bytes);
+    final Path sidecar = Files.createTempFile("cineast-hash", ".tsv");
+    Files.delete(sidecar);
+    try {
+      final Map<String, String> properties = new HashMap<>();
+      properties.put("cache", sidecar.toString());
+      final String expected = MediaType.generateId(MediaType.IMAGE, DigestUtils.sha1Hex(bytes));
+      assertEquals(expected, new Sha1ObjectIdGenerator(properties).next(file, MediaType.IMAGE).get());
+      assertEquals(1, new ContentHashIndex(sidecar).size());
+
+      /* Same size and modification time: the recorded digest is used without reading the file. */
+      final FileTime modified = Files.getLastModifiedTime(file);
+      final byte[] changed = bytes.clone();
+      changed[0] ^= 1;
+      Files.write(file, changed);
+      Files.setLastModifiedTime(file, modified);
+      assertEquals(expected, new Sha1ObjectIdGenerator(properties).next(file, MediaType.IMAGE).get());
+
+      /* A new modification time invalidates the entry. */
+      Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + 2000));
+      final Sha1ObjectIdGenerator generator = new Sha1ObjectIdGenerator(properties);
+      assertEquals(MediaType.generateId(MediaType.IMAGE, DigestUtils.sha1Hex(changed)), generator.next(file, MediaType.IMAGE).get());
+
+      /* Entries of other modes do not apply. */
+      properties.put("mode", "fast");
+      assertNotEquals(generator.next(file, MediaType.IMAGE).get(), new Sha1ObjectIdGenerator(properties).next(file, MediaType.IMAGE).get());
+      assertEquals(2, new ContentHashIndex(sidecar).size());
+
+      /* Neither do entries of the same mode with other parameters. */
+      properties.put("mode", "tree");
+      properties.put("chunkSize", "1000");
+      assertEquals(MediaType.generateId(MediaType.IMAGE, new ContentHasher(Mode.TREE, 1000, ContentHasher.DEFAULT_SAMPLES).hash(file)), new Sha1ObjectIdGenerator(properties).next(file, MediaType.IMAGE).get());
+      properties.put("chunkSize", "2000");
+      assertEquals(MediaType.generateId(MediaType.IMAGE, new ContentHasher(Mode.TREE, 2000, ContentHasher.DEFAULT_SAMPLES).hash(file)), new Sha1ObjectIdGenerator(properties).next(file, MediaType.IMAGE).get());
+      assertEquals(4, new ContentHashIndex(sidecar).size());
+    } finally {
+      delete(file, sidecar);
+    }
+  }
+}
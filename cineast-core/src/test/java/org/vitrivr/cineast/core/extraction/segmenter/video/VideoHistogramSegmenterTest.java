@@ -0,0 +1,253 @@
+package org.vitrivr.cineast.core.extraction.segmenter.video;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.core.config.CacheConfig;
+import org.vitrivr.cineast.core.config.DecoderConfig;
+import org.vitrivr.cineast.core.data.Histogram;
+import org.vitrivr.cineast.core.data.entities.MediaObjectDescriptor;
+import org.vitrivr.cineast.core.data.frames.VideoDescriptor;
+import org.vitrivr.cineast.core.data.frames.VideoFrame;
+import org.vitrivr.cineast.core.data.raw.CachedDataFactory;
+import org.vitrivr.cineast.core.data.raw.images.MultiImage;
+import org.vitrivr.cineast.core.data.segments.SegmentContainer;
+import org.vitrivr.cineast.core.db.NoDBSelector;
+import org.vitrivr.cineast.core.extraction.ExtractionContextProvider;
+import org.vitrivr.cineast.core.extraction.decode.general.Decoder;
+import org.vitrivr.cineast.core.extraction.segmenter.FuzzyColorHistogramCalculator;
+import org.vitrivr.cineast.core.extraction.segmenter.general.Segmenter;
+import org.vitrivr.cineast.core.util.synthetic.SyntheticMedia;
+
+public class VideoHistogramSegmenterTest {
+
+  static final int WIDTH = 64;
+  static final int HEIGHT = 48;
+  static final int FRAMES = 600;
+
+  /**
+   * First frame of every segment of videos 0 and 1 generated with seeds 1 and 2. Recorded on the generated videos; the cut at frame 321 of the second video of seed 1 is not found.
+   */
+  private static final int[][][] CUTS_GOLDEN = {
+      {{0, 112, 156, 230, 359, 490, 530}, {0, 125, 275, 453, 503}},
+      {{0, 44, 118, 247, 378, 418, 552}, {0, 150, 196, 328, 378, 497, 547}}
+  };
+
+  /**
+   * Returns the first frame of every segment.
+   */
+  private static List<Integer> starts(List<List<Integer>> segments) {
+    return segments.stream().map(segment -> segment.get(0)).collect(Collectors.toList());
+  }
+
+  /**
+   * Tests that the segmenter finds the recorded cuts for any number of workers and emits no frame twice or out of order.
+   */
+  @Test
+  @DisplayName("Test Recorded Cuts")
+  public void testRecordedCuts() throws InterruptedException {
+    for (long seed = 1; seed <= 2; seed++) {
+      final SyntheticMedia media = new SyntheticMedia(seed);
+      for (int v = 0; v < 2; v++) {
+        final List<Integer> expected = Arrays.stream(CUTS_GOLDEN[(int) seed - 1][v]).boxed().collect(Collectors.toList());
+        for (int workers : new int[]{1, 4}) {
+          final List<List<Integer>> segments = segment(new VideoHistogramSegmenter(context(), Map.of("workers", Integer.toString(workers))), new FixtureDecoder(media, v, FRAMES, WIDTH, HEIGHT));
+          final String message = "seed " + seed + ", video " + v + ", " + workers + " workers";
+          assertEquals(expected, starts(segments), message);
+          final List<Integer> frames = segments.stream().flatMap(List::stream).collect(Collectors.toList());
+          assertEquals(IntStream.range(0, frames.size()).boxed().collect(Collectors.toList()), frames, message);
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that segments only start at known cuts of the generated videos and that no frame is emitted twice or out of order. Not every cut is found: if both shots are quantized to the same fuzzy colours, they cannot be told apart by their histograms.
+   */
+  @Test
+  @DisplayName("Test Known Cuts")
+  public void testKnownCuts() throws InterruptedException {
+    final SyntheticMedia media = new SyntheticMedia(11L);
+    for (int v = 0; v < 3; v++) {
+      final Set<Integer> boundaries = Arrays.stream(media.shotBoundaries(v, FRAMES)).boxed().collect(Collectors.toSet());
+      final List<List<Integer>> segments = segment(new VideoHistogramSegmenter(context()), new FixtureDecoder(media, v, FRAMES, WIDTH, HEIGHT));
+      assertTrue(segments.size() > 1);
+      int next = 0;
+      for (List<Integer> segment : segments) {
+        assertTrue(next == 0 || boundaries.contains(segment.get(0)), "no cut at " + segment.get(0));
+        for (int id : segment) {
+          assertEquals(next++, id);
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that an error of the decoder ends the segmentation with that error instead of passing the frames decoded so far off as the whole video.
+   */
+  @Test
+  @DisplayName("Test Decoder Failure")
+  public void testDecoderFailure() throws InterruptedException {
+    final SyntheticMedia media = new SyntheticMedia(1L);
+    for (int workers : new int[]{1, 4}) {
+      final List<Throwable> errors = new CopyOnWriteArrayList<>();
+      final List<List<Integer>> segments = segment(new VideoHistogramSegmenter(context(), Map.of("workers", Integer.toString(workers))), new FixtureDecoder(media, 0, FRAMES, WIDTH, HEIGHT).failAt(200), errors);
+      assertEquals(1, errors.size());
+      assertTrue(errors.get(0) instanceof IllegalStateException);
+      assertEquals("frame 200", errors.get(0).getCause().getMessage());
+      assertTrue(segments.stream().flatMap(List::stream).allMatch(id -> id < 200));
+    }
+  }
+
+  /**
+   * Tests that the histograms computed from packed colours are the same as those the sequential segmenter computed.
+   */
+  @Test
+  @DisplayName("Test Histogram")
+  public void testHistogram() {
+    final SyntheticMedia media = new SyntheticMedia(5L);
+    for (int i = 0; i < 20; i++) {
+      final int[] colors = media.image(i, WIDTH + i, HEIGHT + 2 * i);
+      final MultiImage image = CachedDataFactory.getDefault().newInMemoryMultiImage(WIDTH + i, HEIGHT + 2 * i, colors);
+      final Histogram expected = FuzzyColorHistogramCalculator.getSubdividedHistogramNormalized(image.getThumbnailImage(), 3);
+      final double[] actual = FuzzyColorHistogramCalculator.getSubdividedBinsNormalized(colors, WIDTH + i, HEIGHT + 2 * i, 3);
+      assertEquals(expected.getElementCount(), actual.length);
+      for (int b = 0; b < actual.length; b++) {
+        assertEquals(expected.getElement(b), (float) actual[b], "bin " + b + " of image " + i);
+      }
+    }
+  }
+
+  /**
+   * Returns an {@link ExtractionContextProvider} without a database, i.e. without known segments.
+   */
+  static ExtractionContextProvider context() {
+    final ExtractionContextProvider context = mock(ExtractionContextProvider.class);
+    when(context.persistencyReader()).thenReturn(NoDBSelector::new);
+    return context;
+  }
+
+  /**
+   * Runs a segmenter to completion and returns the frame IDs of every segment.
+   */
+  static List<List<Integer>> segment(Segmenter<VideoFrame> segmenter, Decoder<VideoFrame> decoder) throws InterruptedException {
+    return segment(segmenter, decoder, new CopyOnWriteArrayList<>());
+  }
+
+  /**
+   * Runs a segmenter to completion, collecting the errors it fails with, and returns the frame IDs of every segment.
+   */
+  static List<List<Integer>> segment(Segmenter<VideoFrame> segmenter, Decoder<VideoFrame> decoder, List<Throwable> errors) throws InterruptedException {
+    segmenter.init(decoder, new MediaObjectDescriptor());
+    final Thread thread = new Thread(segmenter);
+    thread.setUncaughtExceptionHandler((t, e) -> errors.add(e));
+    thread.start();
+    final List<List<Integer>> segments = new ArrayList<>();
+    while (!segmenter.complete()) {
+      final SegmentContainer container = segmenter.getNext();
+      if (container != null) {
+        segments.add(container.getVideoFrames().stream().map(VideoFrame::getId).toList());
+      }
+    }
+    thread.join();
+    segmenter.close();
+    return segments;
+  }
+
+  /**
+   * A {@link Decoder} that generates the frames of a {@link SyntheticMedia} video or replays pre-generated ones. Like the FFMpegVideoDecoder, it wraps every frame in a new {@link MultiImage} and is only complete once {@link #getNext()} returned null.
+   */
+  static final class FixtureDecoder implements Decoder<VideoFrame> {
+
+    private final IntFunction<int[]> colors;
+    private final int frames;
+    private final int width;
+    private final int height;
+    private final VideoDescriptor descriptor;
+    private int next = 0;
+    private int failure = -1;
+    private volatile boolean complete = false;
+
+    FixtureDecoder(SyntheticMedia media, int video, int frames, int width, int height) {
+      this(generator(media, video, frames, width, height), frames, width, height);
+    }
+
+    FixtureDecoder(int[][] frames, int width, int height) {
+      this(f -> frames[f], frames.length, width, height);
+    }
+
+    private FixtureDecoder(IntFunction<int[]> colors, int frames, int width, int height) {
+      this.colors = colors;
+      this.frames = frames;
+      this.width = width;
+      this.height = height;
+      this.descriptor = new VideoDescriptor(25.0f, frames * 40L, width, height);
+    }
+
+    private static IntFunction<int[]> generator(SyntheticMedia media, int video, int frames, int width, int height) {
+      final int[] boundaries = media.shotBoundaries(video, frames);
+      return f -> media.videoFrame(video, boundaries, f, width, height);
+    }
+
+    /**
+     * Lets {@link #getNext()} throw instead of returning the given frame.
+     */
+    FixtureDecoder failAt(int frame) {
+      this.failure = frame;
+      return this;
+    }
+
+    @Override
+    public boolean init(Path path, DecoderConfig decoderConfig, CacheConfig cacheConfig) {
+      return true;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public VideoFrame getNext() {
+      if (this.next >= this.frames) {
+        this.complete = true;
+        return null;
+      }
+      if (this.next == this.failure) {
+        throw new IllegalStateException("frame " + this.next);
+      }
+      final MultiImage image = CachedDataFactory.getDefault().newInMemoryMultiImage(this.width, this.height, this.colors.apply(this.next));
+      final VideoFrame frame = new VideoFrame(this.next, this.next * 40L, image, this.descriptor);
+      this.next++;
+      return frame;
+    }
+
+    @Override
+    public int count() {
+      return this.frames;
+    }
+
+    @Override
+    public boolean complete() {
+      return this.complete;
+    }
+
+    @Override
+    public Set<String> supportedFiles() {
+      return Set.of();
+    }
+  }
+}
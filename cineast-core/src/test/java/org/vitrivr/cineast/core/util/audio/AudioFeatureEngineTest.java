@@ -0,0 +1,253 @@
+package org.vitrivr.cineast.core.util.audio;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.core.util.dsp.fft.STFT;
+import org.vitrivr.cineast.core.util.dsp.fft.Spectrum;
+import org.vitrivr.cineast.core.util.dsp.fft.windows.BlackmanHarrisWindow;
+import org.vitrivr.cineast.core.util.dsp.fft.windows.HanningWindow;
+import org.vitrivr.cineast.core.util.dsp.fft.windows.WindowFunction;
+
+
+public class AudioFeatureEngineTest {
+
+  private static final float SAMPLINGRATE = 22050.0f;
+
+  /**
+   * CENS(w,d) settings of the CENS feature module.
+   */
+  private static final int[][] CENS_SETTINGS = {{11, 2}, {21, 5}, {41, 10}, {81, 20}};
+
+  /**
+   * Pitch classes of A (the reference pitch), C, E and G, in semitones above A.
+   */
+  private static final int A = 0, C = 3, E = 7, G = 10;
+
+  /**
+   * Recorded MFCCs of the middle frame of the tone, the chord and the chirp of {@link #signals()}.
+   */
+  private static final float[][] MFCC_GOLDEN = {
+      {-82.88546f, 21.64365f, 0.70876884f, -3.650214f, -6.836522f, -6.008191f, -4.1348314f, -1.0300261f, 1.4300112f, 3.1130073f, 3.248281f, 2.3596537f, 0.6655919f},
+      {-65.2232f, 21.396889f, 4.2700024f, -2.2978184f, 1.0630741f, 0.39665404f, -7.163337f, -11.288766f, -5.9903464f, 0.99658847f, 1.5749748f, -1.8135228f, -1.8565563f},
+      {-69.9852f, -13.669944f, -11.215539f, 12.312449f, -5.794879f, -4.5792584f, 7.3019648f, -3.1759107f, -3.5009227f, 5.594217f, -2.2695954f, -2.5196683f, 4.0671597f}
+  };
+
+  /**
+   * Recorded HPCPs (full semitones) of the middle frame of the chord and the chirp of {@link #signals()}.
+   */
+  private static final float[][] HPCP_GOLDEN = {
+      {0.0f, 0.0f, 0.0f, 1416.7324f, 0.0f, 0.0f, 0.0f, 312.86148f, 0.0f, 0.0f, 139.45749f, 0.0f},
+      {0.0f, 0.0f, 0.0f, 167.00998f, 275.19833f, 5.5994153f, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f}
+  };
+
+  /**
+   * Recorded CENS(11,2) features of the middle row for the chord and the chirp of {@link #signals()}.
+   */
+  private static final double[][] CENS_GOLDEN = {
+      {0.0, 0.0, 0.0, 20.0, 0.0, 0.0, 0.0, 15.0, 0.0, 0.0, 10.0, 0.0},
+      {0.0, 0.38196602, 4.0954914, 8.272543, 6.236068, 1.763932, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0}
+  };
+
+  /**
+   * Generated tone (A4), chord (C major with an additional C6), chirp and silence.
+   */
+  private static double[][] signals() {
+    return new double[][]{
+        tones(SAMPLINGRATE, 3.0f, 440.0),
+        tones(SAMPLINGRATE, 3.0f, 261.63, 329.63, 392.0, 1046.5),
+        chirp(SAMPLINGRATE, 3.0f, 100.0, 4000.0),
+        new double[2048]
+    };
+  }
+
+  /**
+   * STFT as used by MFCCShingle and AverageHPCP.
+   */
+  private static STFT stft(double[] samples) {
+    return stft(samples, SAMPLINGRATE, 8192, 2205, 1891, new HanningWindow());
+  }
+
+  /**
+   * Tests the MFCCs against the values recorded for the generated signals, and that {@link MFCC#calculate(STFT)} yields the same MFCCs as the {@link AudioFeatureEngine}. Silence only has energy in the first cepstrum, which is the logarithm of the floor of the mel filter outputs.
+   */
+  @Test
+  @DisplayName("Test MFCC")
+  public void testMfcc() {
+    final double[][] signals = signals();
+    for (int s = 0; s < signals.length; s++) {
+      final STFT stft = stft(signals[s]);
+      final float[][] actual = AudioFeatureEngine.mfcc(stft);
+      assertEquals(stft.getWidth(), actual.length);
+      final List<MFCC> adapted = MFCC.calculate(stft);
+      for (int t = 0; t < actual.length; t++) {
+        assertEquals(MFCC.DEFAULT_CEPSTRA, actual[t].length);
+        assertArrayEquals(actual[t], adapted.get(t).getCepstra());
+      }
+      if (s < MFCC_GOLDEN.length) {
+        assertClose(MFCC_GOLDEN[s], actual[actual.length / 2]);
+      } else {
+        for (float[] cepstra : actual) {
+          assertEquals(-1150.0f, cepstra[0], 1e-3f);
+          for (int c = 1; c < cepstra.length; c++) {
+            assertEquals(0.0f, cepstra[c], 1e-3f);
+          }
+        }
+      }
+
+      final float[][] custom = AudioFeatureEngine.mfcc(stft, 20, 40, 50.0f);
+      final List<MFCC> adaptedCustom = MFCC.calculate(stft, 20, 40, 50.0f);
+      for (int t = 0; t < custom.length; t++) {
+        assertEquals(20, custom[t].length);
+        assertArrayEquals(custom[t], adaptedCustom.get(t).getCepstra());
+      }
+    }
+  }
+
+  /**
+   * Tests that the HPCPs of tones peak at their pitch classes for every resolution, that single spectra yield the same HPCPs as a whole {@link STFT}, and the full semitone HPCPs against the values recorded for the generated signals.
+   */
+  @Test
+  @DisplayName("Test HPCP")
+  public void testHpcp() {
+    final double[][] signals = signals();
+    for (HPCP.Resolution resolution : HPCP.Resolution.values()) {
+      final int step = resolution.bins / 12;
+      final STFT tone = stft(signals[0]);
+      final float[][] toneHpcp = AudioFeatureEngine.hpcp(tone, resolution, 50.0f, 5000.0f);
+      assertEquals(A * step, argmax(toneHpcp[toneHpcp.length / 2]));
+
+      final float[][] chordHpcp = AudioFeatureEngine.hpcp(stft(signals[1]), resolution, 50.0f, 5000.0f);
+      final float[] middle = chordHpcp[chordHpcp.length / 2];
+      assertEquals(C * step, argmax(middle));
+      for (int n = 0; n < middle.length; n++) {
+        assertTrue(middle[n] >= 0.0f);
+        if (n % step == 0 && (n / step == E || n / step == G)) {
+          assertTrue(middle[n] > 0.0f, "no energy in pitch class " + n);
+        }
+      }
+
+      for (double[] samples : signals) {
+        final STFT stft = stft(samples);
+        final float[][] expected = AudioFeatureEngine.hpcp(stft, resolution, 50.0f, 5000.0f);
+        final HPCP hpcp = new HPCP(resolution, 50.0f, 5000.0f);
+        for (Spectrum spectrum : stft.getPowerSpectrum()) {
+          hpcp.addContribution(spectrum);
+        }
+        assertEquals(expected.length, hpcp.size());
+        for (int t = 0; t < expected.length; t++) {
+          assertArrayEquals(expected[t], hpcp.getHpcp(t));
+        }
+      }
+    }
+
+    for (int s = 1; s <= HPCP_GOLDEN.length; s++) {
+      final float[][] actual = AudioFeatureEngine.hpcp(stft(signals[s]), HPCP.Resolution.FULLSEMITONE, 50.0f, 5000.0f);
+      assertClose(HPCP_GOLDEN[s - 1], actual[actual.length / 2]);
+    }
+    for (float[] silence : AudioFeatureEngine.hpcp(stft(signals[3]), HPCP.Resolution.FULLSEMITONE, 50.0f, 5000.0f)) {
+      assertArrayEquals(new float[12], silence);
+    }
+  }
+
+  /**
+   * Tests the CENS features against the values recorded for the generated signals, and that every CENS(w,d) setting yields the expected number of features on the CENS scale.
+   */
+  @Test
+  @DisplayName("Test CENS")
+  public void testCens() {
+    final double[][] signals = signals();
+    for (int s = 1; s <= CENS_GOLDEN.length; s++) {
+      final STFT stft = stft(signals[s], SAMPLINGRATE, 4096, 1253, 945, new BlackmanHarrisWindow());
+      final float[][] hpcps = AudioFeatureEngine.hpcp(stft, HPCP.Resolution.FULLSEMITONE, 50.0f, 5000.0f);
+      for (int[] setting : CENS_SETTINGS) {
+        final double[][] actual = AudioFeatureEngine.cens(hpcps, HPCP.Resolution.FULLSEMITONE, setting[0], setting[1]);
+        assertEquals((hpcps.length + setting[0]) / setting[1] - 1, actual.length);
+        for (double[] cens : actual) {
+          for (double value : cens) {
+            /* Values on the CENS scale (at most 4) convolved with a Hanning window of w samples. */
+            assertTrue(value >= -1e-9 && value <= 4.0 * setting[0], "value " + value + " out of range");
+          }
+        }
+        if (setting[0] == 11) {
+          final double[] middle = actual[actual.length / 2];
+          for (int j = 0; j < middle.length; j++) {
+            assertEquals(CENS_GOLDEN[s - 1][j], middle[j], 1e-5 * Math.max(1.0, Math.abs(CENS_GOLDEN[s - 1][j])), "pitch class " + j);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that filter banks and pitch class maps are shared per configuration.
+   */
+  @Test
+  @DisplayName("Test Caching")
+  public void testCaching() {
+    assertSame(AudioFeatureEngine.melFilterBank(SAMPLINGRATE, 4096, 13, 23, 133.0f), AudioFeatureEngine.melFilterBank(SAMPLINGRATE, 4096, 13, 23, 133.0f));
+    assertSame(AudioFeatureEngine.pitchClassMap(SAMPLINGRATE, 8192, HPCP.Resolution.FULLSEMITONE, 50.0f, 5000.0f), AudioFeatureEngine.pitchClassMap(SAMPLINGRATE, 8192, HPCP.Resolution.FULLSEMITONE, 50.0f, 5000.0f));
+    final Spectrum spectrum = stft(tones(SAMPLINGRATE, 0.5f, 440.0)).getPowerSpectrum().get(0);
+    assertSame(AudioFeatureEngine.pitchClassMap(SAMPLINGRATE, 8192, HPCP.Resolution.FULLSEMITONE, 50.0f, 5000.0f), AudioFeatureEngine.pitchClassMap(spectrum.frequencies(), HPCP.Resolution.FULLSEMITONE, 50.0f, 5000.0f));
+  }
+
+  /**
+   * Generates a signal that is the sum of sine tones of the given frequencies, with decreasing amplitude.
+   */
+  public static double[] tones(float samplingrate, float seconds, double... frequencies) {
+    final double[] samples = new double[(int) (samplingrate * seconds)];
+    for (int i = 0; i < samples.length; i++) {
+      for (int k = 0; k < frequencies.length; k++) {
+        samples[i] += Math.sin(2 * Math.PI * frequencies[k] * i / samplingrate) / (k + 1);
+      }
+    }
+    return samples;
+  }
+
+  /**
+   * Generates a linear chirp from the start to the end frequency.
+   */
+  public static double[] chirp(float samplingrate, float seconds, double start, double end) {
+    final double[] samples = new double[(int) (samplingrate * seconds)];
+    final double rate = (end - start) / seconds;
+    for (int i = 0; i < samples.length; i++) {
+      final double t = i / samplingrate;
+      samples[i] = Math.sin(2 * Math.PI * (start * t + 0.5 * rate * t * t));
+    }
+    return samples;
+  }
+
+  /**
+   * Calculates the {@link STFT} of the provided samples.
+   */
+  public static STFT stft(double[] samples, float samplingrate, int windowsize, int overlap, int padding, WindowFunction function) {
+    final STFT stft = new STFT(windowsize, overlap, padding, function, samplingrate);
+    stft.forward(samples);
+    return stft;
+  }
+
+  /**
+   * Compares features to recorded values, allowing for a relative error of 1e-4 to accommodate differences in floating point summation order.
+   */
+  private static void assertClose(float[] expected, float[] actual) {
+    assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], actual[i], 1e-4f * Math.max(1.0f, Math.abs(expected[i])), "element " + i);
+    }
+  }
+
+  private static int argmax(float[] values) {
+    int max = 0;
+    for (int i = 1; i < values.length; i++) {
+      if (values[i] > values[max]) {
+        max = i;
+      }
+    }
+    return max;
+  }
+}
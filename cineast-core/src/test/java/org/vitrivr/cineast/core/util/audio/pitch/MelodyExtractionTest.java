@@ -0,0 +1,262 @@
+package org.vitrivr.cineast.core.util.audio.pitch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.core.data.Pair;
+import org.vitrivr.cineast.core.util.audio.AudioFeatureEngineTest;
+import org.vitrivr.cineast.core.util.audio.pitch.estimation.HarmonicTable;
+import org.vitrivr.cineast.core.util.audio.pitch.estimation.KLF0PitchEstimator;
+import org.vitrivr.cineast.core.util.audio.pitch.tracking.PitchTracker;
+import org.vitrivr.cineast.core.util.dsp.fft.FFT;
+import org.vitrivr.cineast.core.util.dsp.fft.FFTUtil;
+import org.vitrivr.cineast.core.util.dsp.fft.STFT;
+import org.vitrivr.cineast.core.util.dsp.fft.windows.HanningWindow;
+import org.vitrivr.cineast.core.util.dsp.filter.frequency.SpectralWhiteningFilter;
+import org.vitrivr.cineast.core.util.dsp.midi.MidiUtil;
+
+/**
+ * Tests the pitches estimated by {@link KLF0PitchEstimator} and the melodies extracted by {@link PitchTracker} on synthetic polyphonic signals, against the notes the signals were generated from and against values recorded for them.
+ */
+public class MelodyExtractionTest {
+
+  private static final float SAMPLINGRATE = 22050.0f;
+
+  /**
+   * MIDI indices of the notes of the generated melody.
+   */
+  private static final int[] NOTES = {67, 69, 71, 72, 74, 72, 71, 69, 67, 64, 62, 60};
+
+  /**
+   * Recorded number of pitch candidates and sum of their saliences for each of the {@link #signals()}.
+   */
+  private static final int[] CANDIDATES_GOLDEN = {168, 129, 239, 171};
+  private static final double[] SALIENCE_GOLDEN = {3161.3128328323364, 1393.1913186907768, 1920.7607831954956, 3168.960918068886};
+
+  /**
+   * Recorded melodies (MIDI index and duration in ms of every pitch) for each of the {@link #signals()}.
+   */
+  private static final int[][][] MELODY_GOLDEN = {
+      {{67, 239}, {72, 287}, {74, 287}, {72, 287}, {67, 287}},
+      {},
+      {{85, 143}, {87, 143}, {88, 143}, {89, 143}, {90, 143}, {91, 191}, {92, 191}},
+      {{67, 287}, {72, 287}, {74, 287}, {72, 287}, {67, 287}, {62, 287}}
+  };
+
+  /**
+   * Generates a melody of harmonic tones over a sustained chord. Every note lasts for the given duration and has four partials.
+   *
+   * @param samplingrate Sampling rate of the signal.
+   * @param duration     Duration of each note in seconds.
+   * @param notes        MIDI indices of the notes.
+   */
+  public static double[] melody(float samplingrate, float duration, int... notes) {
+    final int length = (int) (samplingrate * duration);
+    final double[] samples = new double[length * notes.length];
+    final double[] chord = {MidiUtil.midiToFrequency(48), MidiUtil.midiToFrequency(52), MidiUtil.midiToFrequency(55)};
+    for (int i = 0; i < samples.length; i++) {
+      final double t = i / samplingrate;
+      final double f0 = MidiUtil.midiToFrequency(notes[i / length]);
+      for (int m = 1; m <= 4; m++) {
+        samples[i] += Math.sin(2 * Math.PI * m * f0 * t) / m;
+      }
+      for (double f : chord) {
+        samples[i] += 0.3 * Math.sin(2 * Math.PI * f * t) + 0.15 * Math.sin(4 * Math.PI * f * t);
+      }
+    }
+    return samples;
+  }
+
+  /**
+   * Generated polyphonic signals: a melody over a chord, a chord of harmonic tones, a chirp with a sustained tone and silence followed by a melody.
+   */
+  private static double[][] signals() {
+    final double[] chirp = AudioFeatureEngineTest.chirp(SAMPLINGRATE, 3.0f, 110.0, 1760.0);
+    final double[] tone = AudioFeatureEngineTest.tones(SAMPLINGRATE, 3.0f, 220.0, 440.0, 660.0);
+    final double[] mixed = new double[chirp.length];
+    for (int i = 0; i < mixed.length; i++) {
+      mixed[i] = chirp[i] + 0.5 * tone[i];
+    }
+    final double[] melody = melody(SAMPLINGRATE, 0.25f, NOTES);
+    final double[] silent = new double[melody.length + 4096];
+    System.arraycopy(melody, 0, silent, 4096, melody.length);
+    return new double[][]{
+        melody,
+        AudioFeatureEngineTest.tones(SAMPLINGRATE, 3.0f, 261.63, 329.63, 392.0, 523.25, 659.26),
+        mixed,
+        silent
+    };
+  }
+
+  /**
+   * STFT with spectral whitening, as used by MelodyEstimate.
+   */
+  private static STFT stft(double[] samples) {
+    final Pair<Integer, Integer> parameters = FFTUtil.parametersForDuration(SAMPLINGRATE, 0.048f);
+    final STFT stft = AudioFeatureEngineTest.stft(samples, SAMPLINGRATE, parameters.first, 0, parameters.second, new HanningWindow());
+    stft.applyFilter(new SpectralWhiteningFilter(stft.getWindowsize(), stft.getSamplingrate(), 0.33f, 30));
+    return stft;
+  }
+
+  /**
+   * Asserts that two lists of pitch candidates are equal, including candidates that are listed more than once.
+   */
+  private static void assertCandidatesEquals(List<List<Pitch>> expected, List<List<Pitch>> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int t = 0; t < expected.size(); t++) {
+      assertEquals(expected.get(t).size(), actual.get(t).size());
+      final Map<Pitch, Pitch> identities = new IdentityHashMap<>();
+      for (int i = 0; i < expected.get(t).size(); i++) {
+        final Pitch e = expected.get(t).get(i);
+        final Pitch a = actual.get(t).get(i);
+        assertEquals(e.getFrequency(), a.getFrequency());
+        assertEquals(e.getIndex(), a.getIndex());
+        assertEquals(e.getSalience(), a.getSalience());
+        final Pitch previous = identities.putIfAbsent(e, a);
+        assertSame(previous == null ? a : previous, a);
+      }
+    }
+  }
+
+  /**
+   * Returns the MIDI index of the most salient candidate of every frame, or -1 for frames without candidates.
+   */
+  private static List<Integer> strongest(List<List<Pitch>> candidates) {
+    final List<Integer> strongest = new ArrayList<>(candidates.size());
+    for (List<Pitch> frame : candidates) {
+      Pitch best = null;
+      for (Pitch pitch : frame) {
+        if (best == null || pitch.getSalience() > best.getSalience()) {
+          best = pitch;
+        }
+      }
+      strongest.add(best == null ? -1 : best.getIndex());
+    }
+    return strongest;
+  }
+
+  /**
+   * Collapses runs of equal values, ignoring the first and the last frame, which only partially cover the signal.
+   */
+  private static List<Integer> collapse(List<Integer> values) {
+    final List<Integer> collapsed = new ArrayList<>();
+    for (int value : values.subList(1, values.size() - 1)) {
+      if (collapsed.isEmpty() || collapsed.get(collapsed.size() - 1) != value) {
+        collapsed.add(value);
+      }
+    }
+    return collapsed;
+  }
+
+  /**
+   * The most salient pitch candidates follow the notes the signals were generated from: The notes of the melody (also after silence), the root of the chord and the rising chirp over a sustained A3. The number and salience of the candidates are compared with recorded values. The estimator does not modify the spectra of the STFT or of single FFTs, so a second estimation yields the same candidates.
+   */
+  @Test
+  @DisplayName("Pitch candidates follow the notes")
+  public void testCandidates() {
+    final double[][] signals = signals();
+    final List<Integer> notes = Arrays.stream(NOTES).boxed().toList();
+    for (int s = 0; s < signals.length; s++) {
+      final STFT stft = stft(signals[s]);
+      final List<List<Pitch>> candidates = new KLF0PitchEstimator().estimatePitch(stft);
+      assertTrue(candidates.size() > 1);
+      assertCandidatesEquals(candidates, new KLF0PitchEstimator().estimatePitch(stft));
+
+      int count = 0;
+      double salience = 0.0;
+      for (List<Pitch> frame : candidates) {
+        count += frame.size();
+        for (Pitch pitch : frame) {
+          salience += pitch.getSalience();
+        }
+      }
+      assertEquals(CANDIDATES_GOLDEN[s], count);
+      assertEquals(SALIENCE_GOLDEN[s], salience, 1e-6 * SALIENCE_GOLDEN[s]);
+
+      /* Single FFTs. */
+      final FFT fft = stft.getStft().get(stft.getStft().size() / 2);
+      final List<Pitch> single = new KLF0PitchEstimator().estimatePitch(fft);
+      assertFalse(single.isEmpty());
+      assertCandidatesEquals(List.of(single), List.of(new KLF0PitchEstimator().estimatePitch(fft)));
+    }
+
+    assertEquals(notes, collapse(strongest(new KLF0PitchEstimator().estimatePitch(stft(signals[0])))));
+    assertEquals(List.of(60), collapse(strongest(new KLF0PitchEstimator().estimatePitch(stft(signals[1])))));
+    int previous = 0;
+    for (int index : collapse(strongest(new KLF0PitchEstimator().estimatePitch(stft(signals[2]))))) {
+      if (index != 57) {
+        assertTrue(index >= previous, "chirp fell from " + previous + " to " + index);
+        previous = index;
+      }
+    }
+    assertEquals(notes, collapse(strongest(new KLF0PitchEstimator().estimatePitch(stft(signals[3])))));
+  }
+
+  /**
+   * The melodies extracted from the candidates match the recorded melodies, which consist of notes of the generated melody in their order. A re-used {@link PitchTracker} extracts the same melodies as a new one.
+   */
+  @Test
+  @DisplayName("Melodies follow the notes")
+  public void testMelodies() {
+    final PitchTracker tracker = new PitchTracker();
+    final KLF0PitchEstimator estimator = new KLF0PitchEstimator();
+    final double[][] signals = signals();
+    for (int s = 0; s < signals.length; s++) {
+      final STFT stft = stft(signals[s]);
+      final List<List<Pitch>> candidates = estimator.estimatePitch(stft);
+
+      final PitchTracker fresh = new PitchTracker();
+      fresh.initialize(candidates, stft.timeStepsize());
+      fresh.trackPitches();
+      final Melody expected = fresh.extractMelody(10);
+
+      tracker.initialize(candidates, stft.timeStepsize());
+      tracker.trackPitches();
+      final Melody actual = tracker.extractMelody(10);
+
+      assertNotNull(actual);
+      assertEquals(MELODY_GOLDEN[s].length, actual.size());
+      for (int i = 0; i < actual.size(); i++) {
+        assertEquals(MELODY_GOLDEN[s][i][0], actual.getPitch(i).getIndex());
+        assertEquals(MELODY_GOLDEN[s][i][1], actual.getPitch(i).getDuration());
+        assertEquals(expected.getPitch(i).getFrequency(), actual.getPitch(i).getFrequency());
+        assertEquals(expected.getPitch(i).getSalience(), actual.getPitch(i).getSalience());
+      }
+      assertEquals(expected.size(), actual.size());
+    }
+
+    /* The melodies of the melody signal are in the order of its notes. */
+    for (int s : new int[]{0, 3}) {
+      int position = 0;
+      for (int[] pitch : MELODY_GOLDEN[s]) {
+        while (position < NOTES.length && NOTES[position] != pitch[0]) {
+          position++;
+        }
+        assertTrue(position < NOTES.length, "note " + pitch[0] + " out of order");
+        position++;
+      }
+    }
+  }
+
+  /**
+   * Harmonic tables are shared between estimations with the same parameters.
+   */
+  @Test
+  @DisplayName("Harmonic tables are cached")
+  public void testHarmonicTableCache() {
+    final HarmonicTable table = HarmonicTable.forParameters(SAMPLINGRATE, 1024, 28, 96, 27.0f, 320.0f);
+    assertSame(table, HarmonicTable.forParameters(SAMPLINGRATE, 1024, 28, 96, 27.0f, 320.0f));
+    assertEquals(69, table.candidates());
+    assertEquals(MidiUtil.midiToFrequency(69), table.frequency(69 - 28));
+  }
+}
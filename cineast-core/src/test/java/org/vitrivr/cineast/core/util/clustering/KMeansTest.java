@@ -0,0 +1,163 @@
+package org.vitrivr.cineast.core.util.clustering;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class KMeansTest {
+
+  private static final int DIM = 16;
+  private static final int BLOBS = 8;
+  private static final int ROWS_PER_BLOB = 2_000;
+
+  private final float[] centres = new float[BLOBS * DIM];
+
+  private final float[] data = new float[BLOBS * ROWS_PER_BLOB * DIM];
+
+  /**
+   * Rows drawn from well separated Gaussian blobs with unit variance; row i belongs to blob i % BLOBS.
+   */
+  public KMeansTest() {
+    final SplittableRandom random = new SplittableRandom(7L);
+    for (int i = 0; i < this.centres.length; i++) {
+      this.centres[i] = (float) (random.nextDouble() * 100d);
+    }
+    for (int i = 0; i < BLOBS * ROWS_PER_BLOB; i++) {
+      for (int d = 0; d < DIM; d++) {
+        this.data[i * DIM + d] = this.centres[(i % BLOBS) * DIM + d] + (float) gaussian(random);
+      }
+    }
+  }
+
+  private static double gaussian(SplittableRandom random) {
+    return Math.sqrt(-2d * Math.log(1d - random.nextDouble())) * Math.cos(2d * Math.PI * random.nextDouble());
+  }
+
+  private static double distance(float[] a, int aOffset, float[] b, int bOffset) {
+    double sum = 0d;
+    for (int d = 0; d < DIM; d++) {
+      final double diff = a[aOffset + d] - b[bOffset + d];
+      sum += diff * diff;
+    }
+    return sum;
+  }
+
+  /**
+   * Asserts that every blob is recovered as exactly one cluster.
+   */
+  private void assertBlobsRecovered(KMeansResult result) {
+    final int[] assignment = result.getAssignment();
+    for (int i = 0; i < assignment.length; i++) {
+      assertEquals(assignment[i % BLOBS], assignment[i]);
+    }
+    for (int j = 0; j < BLOBS; j++) {
+      assertEquals(ROWS_PER_BLOB, result.getSize(j));
+      final int blob = indexOf(assignment, j);
+      assertTrue(distance(result.getCentroids(), j * DIM, this.centres, blob * DIM) < 0.1);
+    }
+  }
+
+  private static int indexOf(int[] assignment, int cluster) {
+    for (int i = 0; i < BLOBS; i++) {
+      if (assignment[i] == cluster) {
+        return i;
+      }
+    }
+    throw new AssertionError("Cluster " + cluster + " is empty.");
+  }
+
+  @Test
+  @DisplayName("Test Blobs Recovered")
+  public void testBlobsRecovered() {
+    this.assertBlobsRecovered(new KMeans().restarts(3).fit(this.data, DIM, BLOBS));
+  }
+
+  @Test
+  @DisplayName("Test Mini-Batch Blobs Recovered")
+  public void testMiniBatchBlobsRecovered() {
+    final KMeansResult full = new KMeans().restarts(3).fit(this.data, DIM, BLOBS);
+    final KMeansResult batch = new KMeans().restarts(3).miniBatch(256).maxIterations(200).fit(this.data, DIM, BLOBS);
+    this.assertBlobsRecovered(batch);
+    assertTrue(batch.getInertia() < 1.01 * full.getInertia());
+  }
+
+  @Test
+  @DisplayName("Test Lloyd Fixed Point")
+  public void testFixedPoint() {
+    /* Overlapping clusters, where the bounds have to be updated over many iterations. */
+    final SplittableRandom random = new SplittableRandom(3L);
+    final int rows = 20_000, k = 50;
+    final float[] data = new float[rows * DIM];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (float) gaussian(random);
+    }
+    final KMeansResult result = new KMeans().maxIterations(1000).fit(data, DIM, k);
+    assertTrue(result.getIterations() < 1000);
+
+    /* Every row is assigned to its nearest centroid... */
+    final float[] centroids = result.getCentroids();
+    final int[] assignment = result.getAssignment();
+    double inertia = 0d;
+    for (int i = 0; i < rows; i++) {
+      final double own = distance(data, i * DIM, centroids, assignment[i] * DIM);
+      for (int j = 0; j < k; j++) {
+        assertTrue(own <= distance(data, i * DIM, centroids, j * DIM) * (1 + 1e-6) + 1e-9);
+      }
+      inertia += own;
+    }
+    assertEquals(inertia, result.getInertia(), 1e-6 * inertia);
+
+    /* ... and every centroid is the mean of its rows. */
+    final double[] sums = new double[k * DIM];
+    for (int i = 0; i < rows; i++) {
+      for (int d = 0; d < DIM; d++) {
+        sums[assignment[i] * DIM + d] += data[i * DIM + d];
+      }
+    }
+    for (int j = 0; j < k; j++) {
+      for (int d = 0; d < DIM; d++) {
+        assertEquals(sums[j * DIM + d] / result.getSize(j), centroids[j * DIM + d], 1e-4);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Test Deterministic")
+  public void testDeterministic() {
+    final KMeansResult first = new KMeans().seed(5L).restarts(4).fit(this.data, DIM, BLOBS * 2);
+    final KMeansResult second = new KMeans().seed(5L).restarts(4).fit(this.data, DIM, BLOBS * 2);
+    assertArrayEquals(first.getCentroids(), second.getCentroids());
+    assertArrayEquals(first.getAssignment(), second.getAssignment());
+    assertEquals(first.getInertia(), second.getInertia());
+  }
+
+  @Test
+  @DisplayName("Test Restarts")
+  public void testRestarts() {
+    final KMeansResult single = new KMeans().seed(9L).fit(this.data, DIM, BLOBS * 3);
+    final KMeansResult best = new KMeans().seed(9L).restarts(5).fit(this.data, DIM, BLOBS * 3);
+    assertTrue(best.getInertia() <= single.getInertia());
+  }
+
+  @Test
+  @DisplayName("Test Partial Matrix")
+  public void testPartialMatrix() {
+    final KMeansResult result = new KMeans().fit(this.data, BLOBS * 10, DIM, BLOBS);
+    assertEquals(BLOBS * 10, result.getAssignment().length);
+    assertEquals(BLOBS, result.getCentroidsAsDoubles().size());
+    assertEquals(DIM, result.getCentroid(0).length);
+  }
+
+  @Test
+  @DisplayName("Test Invalid Arguments")
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new KMeans().fit(new float[10], 3, 2));
+    assertThrows(IllegalArgumentException.class, () -> new KMeans().fit(new float[12], 3, 5));
+    assertThrows(IllegalArgumentException.class, () -> new KMeans().fit(new float[12], 5, 3, 2));
+  }
+}
@@ -0,0 +1,168 @@
+package org.vitrivr.cineast.core.util.distance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class DistanceKernelTest {
+
+  private static final int[] DIMENSIONS = {1, 3, 7, 16, 63, 64, 65, 512, 2048};
+
+  /**
+   * Relative tolerance for kernels that accumulate in single precision.
+   */
+  private static final double TOLERANCE = 1e-4;
+
+  /**
+   * Random non-negative vector (e.g. a histogram); roughly every tenth element is zero.
+   */
+  private static float[] vector(SplittableRandom random, int dim) {
+    final float[] v = new float[dim];
+    for (int i = 0; i < dim; i++) {
+      v[i] = random.nextInt(10) == 0 ? 0f : (float) random.nextDouble();
+    }
+    return v;
+  }
+
+  private static float[] positive(SplittableRandom random, int dim) {
+    final float[] v = new float[dim];
+    for (int i = 0; i < dim; i++) {
+      v[i] = (float) random.nextDouble(0.01, 1.0);
+    }
+    return v;
+  }
+
+  private static void assertClose(double expected, double actual) {
+    assertEquals(expected, actual, TOLERANCE * Math.max(1d, Math.abs(expected)));
+  }
+
+  /* Reference implementations: the loops of the FloatArrayDistance implementations before kernels were introduced. */
+
+  private static double euclidean(float[] t, float[] u, float[] w) {
+    double dist = 0d;
+    for (int i = 0; i < t.length; ++i) {
+      dist += (t[i] - u[i]) * (t[i] - u[i]) * (w == null ? 1f : w[i]);
+    }
+    return Math.sqrt(dist);
+  }
+
+  private static double manhattan(float[] t, float[] u, float[] w) {
+    double dist = 0d;
+    for (int i = 0; i < t.length; ++i) {
+      dist += w == null ? Math.abs(t[i] - u[i]) : Math.abs(t[i] - u[i]) * w[i];
+    }
+    return dist;
+  }
+
+  private static double chiSquared(float[] t, float[] u) {
+    double dist = 0d;
+    for (int i = 0; i < t.length; ++i) {
+      if (Math.abs(t[i] + u[i]) < 1e-6) {
+        continue;
+      }
+      dist += ((t[i] - u[i]) * (t[i] - u[i])) / (t[i] + u[i]);
+    }
+    return dist;
+  }
+
+  private static double cosine(float[] t, float[] u) {
+    double dot = 0d, a = 0d, b = 0d;
+    for (int i = 0; i < t.length; ++i) {
+      dot += t[i] * u[i];
+      a += t[i] * t[i];
+      b += u[i] * u[i];
+    }
+    double div = (Math.sqrt(a) * Math.sqrt(b));
+    if (div < 1e-6 || Double.isNaN(div)) {
+      return 1d;
+    }
+    return 1d - (dot / div);
+  }
+
+  @Test
+  @DisplayName("Test Scalar Kernel Is Bit-Exact")
+  public void testScalarKernelIsExact() {
+    final DistanceKernel kernel = DistanceKernels.scalar();
+    final SplittableRandom random = new SplittableRandom(1L);
+    for (int dim : DIMENSIONS) {
+      final float[] t = vector(random, dim), u = vector(random, dim), w = positive(random, dim);
+      assertEquals(euclidean(t, u, null), Math.sqrt(kernel.sumOfSquaredDifferences(t, u, dim)), 0d);
+      assertEquals(euclidean(t, u, w), Math.sqrt(kernel.weightedSumOfSquaredDifferences(t, u, w, dim)), 0d);
+      assertEquals(manhattan(t, u, null), kernel.sumOfAbsoluteDifferences(t, u, dim), 0d);
+      assertEquals(manhattan(t, u, w), kernel.weightedSumOfAbsoluteDifferences(t, u, w, dim), 0d);
+      assertEquals(chiSquared(t, u), kernel.chiSquared(t, u, dim), 0d);
+      assertEquals(cosine(t, u), kernel.cosineDistance(t, u, dim), 0d);
+    }
+  }
+
+  @Test
+  @DisplayName("Test Vector Kernel Within Tolerance")
+  public void testVectorKernelWithinTolerance() {
+    final DistanceKernel kernel = DistanceKernels.get();
+    final DistanceKernel scalar = DistanceKernels.scalar();
+    assumeTrue(kernel != scalar, "SIMD distance kernel not available.");
+    final SplittableRandom random = new SplittableRandom(2L);
+    for (int dim : DIMENSIONS) {
+      for (int run = 0; run < 20; run++) {
+        final float[] t = vector(random, dim), u = vector(random, dim), w = positive(random, dim);
+        final float[] p = positive(random, dim), q = positive(random, dim);
+        assertClose(scalar.sumOfSquaredDifferences(t, u, dim), kernel.sumOfSquaredDifferences(t, u, dim));
+        assertClose(scalar.weightedSumOfSquaredDifferences(t, u, w, dim), kernel.weightedSumOfSquaredDifferences(t, u, w, dim));
+        assertClose(scalar.sumOfAbsoluteDifferences(t, u, dim), kernel.sumOfAbsoluteDifferences(t, u, dim));
+        assertClose(scalar.weightedSumOfAbsoluteDifferences(t, u, w, dim), kernel.weightedSumOfAbsoluteDifferences(t, u, w, dim));
+        assertClose(scalar.chiSquared(t, u, dim), kernel.chiSquared(t, u, dim));
+        assertClose(scalar.weightedChiSquared(p, q, w, dim), kernel.weightedChiSquared(p, q, w, dim));
+        assertClose(scalar.cosineDistance(t, u, dim), kernel.cosineDistance(t, u, dim));
+        assertClose(scalar.weightedCosineDistance(p, q, w, dim), kernel.weightedCosineDistance(p, q, w, dim));
+      }
+    }
+
+    /* Zero vectors and zero denominators. */
+    final float[] zero = new float[64];
+    assertEquals(1d, kernel.cosineDistance(zero, zero, 64));
+    assertEquals(0d, kernel.chiSquared(zero, zero, 64));
+  }
+
+  @Test
+  @DisplayName("Test Distances Against Reference")
+  public void testDistancesAgainstReference() {
+    final SplittableRandom random = new SplittableRandom(3L);
+    for (int dim : DIMENSIONS) {
+      final float[] t = vector(random, dim), u = vector(random, dim), w = positive(random, dim);
+      assertClose(euclidean(t, u, null), new EuclideanDistance().applyAsDouble(t, u));
+      assertClose(euclidean(t, u, w), new WeightedEuclideanDistance(w).applyAsDouble(t, u));
+      assertClose(manhattan(t, u, null), new ManhattanDistance().applyAsDouble(t, u));
+      assertClose(manhattan(t, u, w), new WeightedManhattanDistance(w).applyAsDouble(t, u));
+      assertClose(chiSquared(t, u), new ChiSquaredDistance().applyAsDouble(t, u));
+      assertClose(cosine(t, u), new CosineDistance().applyAsDouble(t, u));
+    }
+
+    /* Vectors of different length are compared on their common prefix. */
+    final float[] t = positive(random, 100), u = positive(random, 70);
+    assertClose(manhattan(Arrays.copyOf(t, 70), u, null), new ManhattanDistance().applyAsDouble(t, u));
+  }
+
+  @Test
+  @DisplayName("Test Batched Distances")
+  public void testBatchedDistances() {
+    final SplittableRandom random = new SplittableRandom(4L);
+    final float[] query = vector(random, 512);
+    final float[][] block = new float[100][];
+    for (int i = 0; i < block.length; i++) {
+      block[i] = vector(random, 512);
+    }
+    final double[] out = new double[block.length];
+    for (FloatArrayDistance distance : new FloatArrayDistance[]{new EuclideanDistance(), new CosineDistance(), new ManhattanDistance(), new ChiSquaredDistance()}) {
+      distance.distances(query, block, out);
+      for (int i = 0; i < block.length; i++) {
+        assertEquals(distance.applyAsDouble(query, block[i]), out[i], 0d);
+      }
+    }
+    assertThrows(IllegalArgumentException.class, () -> new EuclideanDistance().distances(query, block, new double[10]));
+  }
+}
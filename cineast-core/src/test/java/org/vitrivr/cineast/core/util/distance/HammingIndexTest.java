@@ -0,0 +1,140 @@
+package org.vitrivr.cineast.core.util.distance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.googlecode.javaewah.datastructure.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.core.util.distance.HammingIndex.Match;
+
+public class HammingIndexTest {
+
+  private static final int BASE_CODES = 5_000;
+  private static final int DUPLICATES = 4;
+
+  /**
+   * Random codes, each followed by a few near-duplicates that differ in up to 6 bits.
+   */
+  private static long[] codes(SplittableRandom random) {
+    final long[] codes = new long[BASE_CODES * (DUPLICATES + 1)];
+    for (int i = 0; i < BASE_CODES; i++) {
+      final long base = random.nextLong();
+      codes[i * (DUPLICATES + 1)] = base;
+      for (int d = 1; d <= DUPLICATES; d++) {
+        codes[i * (DUPLICATES + 1) + d] = perturb(random, base, random.nextInt(7));
+      }
+    }
+    return codes;
+  }
+
+  private static long perturb(SplittableRandom random, long code, int bits) {
+    for (int i = 0; i < bits; i++) {
+      code ^= 1L << random.nextInt(64);
+    }
+    return code;
+  }
+
+  @Test
+  @DisplayName("Test k-NN Against Scan")
+  public void testKnnAgainstScan() {
+    final SplittableRandom random = new SplittableRandom(1L);
+    final long[] codes = codes(random);
+    for (int m : new int[]{2, 3, 4, 6, 8, HammingIndex.defaultSubstrings(codes.length)}) {
+      final HammingIndex index = HammingIndex.of(codes, m);
+      for (int q = 0; q < 200; q++) {
+        final long query = q % 2 == 0 ? perturb(random, codes[random.nextInt(codes.length)], random.nextInt(5)) : random.nextLong();
+        final int k = 1 + random.nextInt(20);
+        assertEquals(index.scan(query, k, null), index.knn(query, k, null));
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Test Radius Against Scan")
+  public void testRadiusAgainstScan() {
+    final SplittableRandom random = new SplittableRandom(2L);
+    final long[] codes = codes(random);
+    for (int m : new int[]{2, 4, 8}) {
+      final HammingIndex index = HammingIndex.of(codes, m);
+      for (int q = 0; q < 200; q++) {
+        final long query = perturb(random, codes[random.nextInt(codes.length)], random.nextInt(5));
+        final int r = random.nextInt(12);
+        final List<Match> matches = index.radius(query, r, null);
+        assertEquals(index.scanRadius(query, r, null), matches);
+        assertTrue(matches.stream().allMatch(match -> match.distance() <= r));
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Test Near-Duplicate Detection")
+  public void testNearDuplicates() {
+    final SplittableRandom random = new SplittableRandom(3L);
+    final long[] codes = codes(random);
+    final HammingIndex index = HammingIndex.of(codes);
+    for (int i = 0; i < BASE_CODES; i += 97) {
+      /* Every near-duplicate of a base code lies within radius 6 of it. */
+      final int base = i * (DUPLICATES + 1);
+      final List<Match> matches = index.radius(codes[base], 6, null);
+      for (int d = 0; d <= DUPLICATES; d++) {
+        final int id = base + d;
+        assertTrue(matches.stream().anyMatch(match -> match.index() == id));
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Test Filter")
+  public void testFilter() {
+    final SplittableRandom random = new SplittableRandom(4L);
+    final long[] codes = codes(random);
+    final HammingIndex index = HammingIndex.of(codes);
+    final IntPredicate even = i -> i % 2 == 0;
+    for (int q = 0; q < 50; q++) {
+      final long query = perturb(random, codes[random.nextInt(codes.length)], 2);
+      final List<Match> matches = index.knn(query, 10, even);
+      assertEquals(index.scan(query, 10, even), matches);
+      assertTrue(matches.stream().allMatch(match -> match.index() % 2 == 0));
+      assertEquals(index.scanRadius(query, 8, even), index.radius(query, 8, even));
+    }
+  }
+
+  @Test
+  @DisplayName("Test Edge Cases")
+  public void testEdgeCases() {
+    final HammingIndex empty = HammingIndex.of(new long[0]);
+    assertEquals(List.of(), empty.knn(0L, 10, null));
+    assertEquals(List.of(), empty.radius(0L, 10, null));
+
+    final HammingIndex small = HammingIndex.of(new long[]{0L, 1L, 3L, -1L});
+    assertEquals(List.of(new Match(0, 0), new Match(1, 1), new Match(2, 2), new Match(3, 64)), small.knn(0L, 10, null));
+    assertEquals(List.of(new Match(0, 0), new Match(1, 1)), small.radius(0L, 1, null));
+    assertEquals(List.of(), small.knn(0L, 0, null));
+
+    assertThrows(IllegalArgumentException.class, () -> HammingIndex.of(new long[1], 1));
+  }
+
+  @Test
+  @DisplayName("Test Pack")
+  public void testPack() {
+    final BitSet bitSet = new BitSet(64);
+    bitSet.set(0);
+    bitSet.set(5);
+    bitSet.set(63);
+    assertEquals(1L | (1L << 5) | (1L << 63), HammingIndex.pack(bitSet));
+
+    final BitSet other = new BitSet(64);
+    other.set(5);
+    other.set(6);
+    assertEquals(bitSet.xorcardinality(other), Long.bitCount(HammingIndex.pack(bitSet) ^ HammingIndex.pack(other)));
+
+    final BitSet large = new BitSet(128);
+    large.set(100);
+    assertThrows(IllegalArgumentException.class, () -> HammingIndex.pack(large));
+  }
+}
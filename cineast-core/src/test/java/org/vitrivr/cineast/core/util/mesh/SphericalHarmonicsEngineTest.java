@@ -0,0 +1,213 @@
+package org.vitrivr.cineast.core.util.mesh;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.core.data.m3d.VoxelGrid;
+
+
+public class SphericalHarmonicsEngineTest {
+
+  /**
+   * Configurations (grid size, min_l, max_l) of SphericalHarmonicsLow, SphericalHarmonicsDefault and SphericalHarmonicsHigh.
+   */
+  private static final int[][] CONFIGURATIONS = {{64, 0, 3}, {64, 0, 4}, {74, 1, 5}};
+
+  /**
+   * Recorded coefficients of the innermost shell of {@code syntheticGrid(gridSize, 0)} for every configuration, as calculated by the original, per-sample implementation.
+   */
+  private static final float[][] SHELL_GOLDEN = {
+      {0.1814671f, 8.3828426E-4f, 0.08818948f, 0.1022538f, 8.539657E-5f, 0.0022641346f, 0.0012775908f, 0.054981753f, 2.9120125E-8f, 0.023665762f},
+      {0.17272829f, 7.9791545E-4f, 0.08394259f, 0.09732962f, 8.128417E-5f, 0.0021551019f, 0.0012160665f, 0.052334026f, 2.7717801E-8f, 0.022526102f, 0.074051656f, 1.9956955E-4f, 0.0013998286f, 5.85553E-8f, 0.0018578259f},
+      {0.0010185408f, 0.1071529f, 0.12424147f, 1.0375943E-4f, 0.0027509925f, 0.0015523116f, 0.066804506f, 3.5381834E-8f, 0.02875462f, 0.09452711f, 2.5475098E-4f, 0.0017868843f, 7.474598E-8f, 0.0023715189f, 0.0019377954f, 0.052939937f, 1.1927807E-7f, 0.019073652f, 5.589183E-10f, 0.015351369f}
+  };
+
+  /**
+   * Recorded L2-norm of every shell of {@code syntheticGrid(gridSize, 0)} for every configuration, as calculated by the original, per-sample implementation.
+   */
+  private static final float[][] NORMS_GOLDEN = {
+      {0.23399587f, 0.23399587f, 0.23399587f, 0.23399587f, 0.23399587f, 0.23399587f, 0.23399587f, 0.23399587f, 0.23399587f, 0.23399587f, 0.23399587f, 0.23399587f, 0.23317829f, 0.20885858f, 0.19158588f, 0.18735439f, 0.18499205f, 0.18139704f, 0.17835473f, 0.17071176f, 0.15811527f, 0.14167023f},
+      {0.23472668f, 0.23472668f, 0.23472668f, 0.23472668f, 0.23472668f, 0.23472668f, 0.23472668f, 0.23472668f, 0.23472668f, 0.23472668f, 0.23472668f, 0.23472668f, 0.2339725f, 0.21078156f, 0.1865147f, 0.18348914f, 0.18204568f, 0.17979941f, 0.17712651f, 0.17097475f, 0.15883857f, 0.14109741f},
+      {0.21111253f, 0.21111253f, 0.21111253f, 0.21111253f, 0.21111253f, 0.21111253f, 0.21111253f, 0.21111253f, 0.21111253f, 0.21111253f, 0.21111253f, 0.21111253f, 0.21111253f, 0.21111253f, 0.2105363f, 0.19382505f, 0.1715928f, 0.17299747f, 0.17510857f, 0.17683911f, 0.17660579f, 0.17740668f, 0.17420594f, 0.16720401f, 0.14778903f, 0.13312106f, 0.11094786f}
+  };
+
+  /**
+   * Tests that the {@link SphericalHarmonicsEngine} yields the descriptors recorded from the original implementation.
+   */
+  @Test
+  @DisplayName("Test Recorded Descriptors")
+  public void testRecordedDescriptors() {
+    for (int i = 0; i < CONFIGURATIONS.length; i++) {
+      final int[] c = CONFIGURATIONS[i];
+      final SphericalHarmonicsEngine engine = SphericalHarmonicsEngine.getInstance(c[0], c[1], c[2]);
+      assertEquals(SphericalHarmonicsEngine.descriptorLength(c[0], c[1], c[2]), engine.getDescriptorLength());
+      final float[] actual = engine.describe(syntheticGrid(c[0], 0L));
+      final int coefficients = SHELL_GOLDEN[i].length;
+      assertEquals(NORMS_GOLDEN[i].length * coefficients, actual.length);
+      assertArrayEquals(SHELL_GOLDEN[i], Arrays.copyOf(actual, coefficients), 1e-6f);
+      assertArrayEquals(NORMS_GOLDEN[i], norms(actual, coefficients), 1e-6f);
+    }
+  }
+
+  /**
+   * Tests that a solid ball centred in the grid yields the same coefficients on every shell it covers completely and no coefficients on the shells outside of it.
+   */
+  @Test
+  @DisplayName("Test Ball")
+  public void testBall() {
+    for (int i = 0; i < CONFIGURATIONS.length; i++) {
+      final int[] c = CONFIGURATIONS[i];
+      final int radius = c[0] / 4;
+      final int coefficients = SHELL_GOLDEN[i].length;
+      final float[] actual = SphericalHarmonicsEngine.getInstance(c[0], c[1], c[2]).describe(ball(c[0], radius));
+      final float[] inner = Arrays.copyOf(actual, coefficients);
+      assertTrue(norms(inner, coefficients)[0] > 0.0f);
+      for (int r = 0; r < actual.length / coefficients; r++) {
+        final float[] shell = Arrays.copyOfRange(actual, r * coefficients, (r + 1) * coefficients);
+        if (r + 1 <= radius) {
+          assertArrayEquals(inner, shell, "Shell " + r + " lies within the ball.");
+        } else if (r + 1 > radius + 2) {
+          assertArrayEquals(new float[coefficients], shell, "Shell " + r + " lies outside the ball.");
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that rotating a grid by 180° around the polar axis of the sampling yields (up to voxel rounding) the same descriptor, whereas a different grid does not.
+   */
+  @Test
+  @DisplayName("Test Rotation Invariance")
+  public void testRotationInvariance() {
+    for (int[] c : CONFIGURATIONS) {
+      final SphericalHarmonicsEngine engine = SphericalHarmonicsEngine.getInstance(c[0], c[1], c[2]);
+      for (long seed = 0; seed < 3; seed++) {
+        final VoxelGrid grid = syntheticGrid(c[0], seed);
+        final float[] expected = engine.describe(grid);
+        assertTrue(distance(expected, engine.describe(rotate(grid))) < 0.025, "Descriptor changed under rotation.");
+        assertTrue(distance(expected, engine.describe(syntheticGrid(c[0], seed + 10))) > 0.1, "Descriptor does not discriminate between grids.");
+      }
+    }
+  }
+
+  /**
+   * Tests that an empty grid yields an all-zero descriptor.
+   */
+  @Test
+  @DisplayName("Test Empty Grid")
+  public void testEmptyGrid() {
+    for (int[] c : CONFIGURATIONS) {
+      final VoxelGrid grid = new VoxelGrid(c[0] + 1, c[0] + 1, c[0] + 1, 2.0f / c[0], false);
+      final float[] actual = SphericalHarmonicsEngine.getInstance(c[0], c[1], c[2]).describe(grid);
+      assertArrayEquals(new float[SphericalHarmonicsEngine.descriptorLength(c[0], c[1], c[2])], actual);
+    }
+  }
+
+  /**
+   * Tests that engines are shared per configuration.
+   */
+  @Test
+  @DisplayName("Test Caching")
+  public void testCaching() {
+    for (int[] c : CONFIGURATIONS) {
+      assertSame(SphericalHarmonicsEngine.getInstance(c[0], c[1], c[2]), SphericalHarmonicsEngine.getInstance(c[0], c[1], c[2]));
+    }
+  }
+
+  /**
+   * Generates a synthetic, (gridSize + 1)^3 {@link VoxelGrid} consisting of a few randomly placed, solid ellipsoids plus some noise.
+   */
+  public static VoxelGrid syntheticGrid(int gridSize, long seed) {
+    final int dimension = gridSize + 1;
+    final SplittableRandom random = new SplittableRandom(seed);
+    final VoxelGrid grid = new VoxelGrid(dimension, dimension, dimension, 2.0f / gridSize, false);
+    for (int e = 0; e < 4; e++) {
+      final double cx = random.nextDouble(0.3, 0.7) * dimension, cy = random.nextDouble(0.3, 0.7) * dimension, cz = random.nextDouble(0.3, 0.7) * dimension;
+      final double rx = random.nextDouble(0.1, 0.4) * dimension, ry = random.nextDouble(0.1, 0.4) * dimension, rz = random.nextDouble(0.1, 0.4) * dimension;
+      for (int x = 0; x < dimension; x++) {
+        for (int y = 0; y < dimension; y++) {
+          for (int z = 0; z < dimension; z++) {
+            final double dx = (x - cx) / rx, dy = (y - cy) / ry, dz = (z - cz) / rz;
+            if (dx * dx + dy * dy + dz * dz <= 1.0) {
+              grid.toggleVoxel(true, x, y, z);
+            }
+          }
+        }
+      }
+    }
+    for (int n = 0; n < dimension * dimension; n++) {
+      grid.toggleVoxel(true, random.nextInt(dimension), random.nextInt(dimension), random.nextInt(dimension));
+    }
+    return grid;
+  }
+
+  /**
+   * Generates a (gridSize + 1)^3 {@link VoxelGrid} containing a solid ball of the given radius (in voxels) around its centre.
+   */
+  private static VoxelGrid ball(int gridSize, int radius) {
+    final int dimension = gridSize + 1;
+    final int centre = gridSize / 2;
+    final VoxelGrid grid = new VoxelGrid(dimension, dimension, dimension, 2.0f / gridSize, false);
+    for (int x = 0; x < dimension; x++) {
+      for (int y = 0; y < dimension; y++) {
+        for (int z = 0; z < dimension; z++) {
+          final int dx = x - centre, dy = y - centre, dz = z - centre;
+          if (dx * dx + dy * dy + dz * dz <= radius * radius) {
+            grid.toggleVoxel(true, x, y, z);
+          }
+        }
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * Rotates the provided {@link VoxelGrid} by 180° around the y-axis, which is the polar axis of the {@link SphericalHarmonicsEngine}'s sampling.
+   */
+  private static VoxelGrid rotate(VoxelGrid grid) {
+    final int dimension = grid.getSizeX();
+    final VoxelGrid rotated = new VoxelGrid(dimension, dimension, dimension, grid.getResolution(), false);
+    for (int x = 0; x < dimension; x++) {
+      for (int y = 0; y < dimension; y++) {
+        for (int z = 0; z < dimension; z++) {
+          if (grid.isVisible(x, y, z)) {
+            rotated.toggleVoxel(true, dimension - 1 - x, y, dimension - 1 - z);
+          }
+        }
+      }
+    }
+    return rotated;
+  }
+
+  /**
+   * Calculates the L2-norm of every shell of the provided descriptor.
+   */
+  private static float[] norms(float[] descriptor, int coefficients) {
+    final float[] norms = new float[descriptor.length / coefficients];
+    for (int r = 0; r < norms.length; r++) {
+      double sum = 0.0;
+      for (int i = r * coefficients; i < (r + 1) * coefficients; i++) {
+        sum += (double) descriptor[i] * descriptor[i];
+      }
+      norms[r] = (float) Math.sqrt(sum);
+    }
+    return norms;
+  }
+
+  /**
+   * Calculates the Euclidean distance between two descriptors.
+   */
+  private static double distance(float[] a, float[] b) {
+    double sum = 0.0;
+    for (int i = 0; i < a.length; i++) {
+      sum += (double) (a[i] - b[i]) * (a[i] - b[i]);
+    }
+    return Math.sqrt(sum);
+  }
+}
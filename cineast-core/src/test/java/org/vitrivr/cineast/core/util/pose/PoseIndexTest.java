@@ -0,0 +1,170 @@
+package org.vitrivr.cineast.core.util.pose;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.core.data.providers.primitive.FloatArrayTypeProvider;
+import org.vitrivr.cineast.core.data.providers.primitive.IntTypeProvider;
+import org.vitrivr.cineast.core.data.providers.primitive.PrimitiveTypeProvider;
+import org.vitrivr.cineast.core.data.providers.primitive.StringTypeProvider;
+import org.vitrivr.cineast.core.data.score.ScoreElement;
+
+public class PoseIndexTest {
+
+  private static final int DIM = 12;
+
+  private static final int SKELETONS = 40_000;
+
+  private final SplittableRandom random = new SplittableRandom(17L);
+
+  private final String[] segments = new String[SKELETONS];
+
+  private final int[] persons = new int[SKELETONS];
+
+  private final float[] angles = new float[SKELETONS * DIM];
+
+  private final float[] weights = new float[SKELETONS * DIM];
+
+  /**
+   * Synthetic skeletons: up to four persons per segment, angles in (-2 PI, 2 PI) as produced by SkeletonPose and binary weights with about 20% of the angles unknown.
+   */
+  public PoseIndexTest() {
+    int segment = 0;
+    for (int i = 0; i < SKELETONS; ) {
+      final int count = Math.min(1 + this.random.nextInt(4), SKELETONS - i);
+      for (int p = 0; p < count; p++, i++) {
+        this.segments[i] = "v_" + segment;
+        this.persons[i] = p;
+        for (int d = 0; d < DIM; d++) {
+          this.angles[i * DIM + d] = this.randomAngle();
+          this.weights[i * DIM + d] = this.random.nextInt(5) == 0 ? 0f : 1f;
+        }
+      }
+      segment++;
+    }
+  }
+
+  private float randomAngle() {
+    return (float) ((this.random.nextDouble() * 4.0 - 2.0) * Math.PI);
+  }
+
+  private float[][] randomQuery() {
+    final float[] query = new float[DIM];
+    final float[] queryWeights = new float[DIM];
+    for (int d = 0; d < DIM; d++) {
+      query[d] = this.randomAngle();
+      queryWeights[d] = this.random.nextInt(6) == 0 ? 0f : 1f;
+    }
+    return new float[][]{query, queryWeights};
+  }
+
+  /**
+   * Evaluates the distance the way SkeletonPose builds it for Cottontail DB, one function at a time: add(manhattanw(skeleton, q, vmin(weights, v)), mul(PI, sub(vsum(v), vsum(vmin(weights, v))))).
+   */
+  private static double cottontailDistance(float[] skeleton, float[] skeletonWeights, float[] query, float[] queryWeights) {
+    final double[] vmin = new double[DIM];
+    for (int i = 0; i < DIM; i++) {
+      vmin[i] = Math.min(skeletonWeights[i], queryWeights[i]);
+    }
+    double manhattanw = 0.0;
+    for (int i = 0; i < DIM; i++) {
+      manhattanw += vmin[i] * Math.abs((double) skeleton[i] - query[i]);
+    }
+    double queryWeightSum = 0.0;
+    for (float w : queryWeights) {
+      queryWeightSum += w;
+    }
+    final double vsum = Arrays.stream(vmin).sum();
+    return manhattanw + Math.PI * (queryWeightSum - vsum);
+  }
+
+  @Test
+  @DisplayName("Test Distance Matches Cottontail Expression")
+  public void testDistance() {
+    final PoseIndex index = new PoseIndex(DIM, this.segments, this.persons, this.angles, this.weights);
+    for (int q = 0; q < 20; q++) {
+      final float[][] query = this.randomQuery();
+      for (int i = 0; i < SKELETONS; i += 97) {
+        final double expected = cottontailDistance(Arrays.copyOfRange(this.angles, i * DIM, (i + 1) * DIM), Arrays.copyOfRange(this.weights, i * DIM, (i + 1) * DIM), query[0], query[1]);
+        assertEquals(expected, index.distance(i, query[0], query[1]), 1e-5);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Test Nearest Matches Exhaustive Sort")
+  public void testNearest() {
+    final PoseIndex index = new PoseIndex(DIM, this.segments, this.persons, this.angles, this.weights);
+    for (int q = 0; q < 5; q++) {
+      final float[][] query = this.randomQuery();
+      final List<Integer> expected = IntStream.range(0, SKELETONS).boxed()
+          .sorted(Comparator.<Integer>comparingDouble(i -> index.distance(i, query[0], query[1])).thenComparingInt(i -> i))
+          .limit(250).collect(Collectors.toList());
+      final PoseMatches matches = index.nearest(query[0], query[1], 250);
+      assertEquals(250, matches.size());
+      for (int i = 0; i < matches.size(); i++) {
+        assertEquals(this.segments[expected.get(i)], matches.getSegment(i));
+        assertEquals(this.persons[expected.get(i)], matches.getPerson(i));
+        assertEquals(index.distance(expected.get(i), query[0], query[1]), matches.getDistance(i));
+      }
+    }
+    assertEquals(0, new PoseIndex(DIM, new String[0], new int[0], new float[0], new float[0]).nearest(new float[DIM], new float[DIM], 10).size());
+  }
+
+  @Test
+  @DisplayName("Test Index From Rows")
+  public void testOf() {
+    final List<Map<String, PrimitiveTypeProvider>> rows = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      final Map<String, PrimitiveTypeProvider> row = new HashMap<>();
+      row.put("id", new StringTypeProvider("s" + i));
+      row.put("person", new IntTypeProvider(i));
+      row.put("skeleton", new FloatArrayTypeProvider(Arrays.copyOfRange(this.angles, i * DIM, (i == 1 ? i + 2 : i + 1) * DIM)));
+      row.put("weights", new FloatArrayTypeProvider(Arrays.copyOfRange(this.weights, i * DIM, (i + 1) * DIM)));
+      rows.add(row);
+    }
+    final PoseIndex index = PoseIndex.of(rows, DIM, "id", "person", "skeleton", "weights");
+    assertEquals(2, index.size());
+    final PoseMatches matches = index.nearest(Arrays.copyOfRange(this.angles, 2 * DIM, 3 * DIM), Arrays.copyOfRange(this.weights, 2 * DIM, 3 * DIM), 2);
+    assertEquals("s2", matches.getSegment(0));
+    assertEquals(2, matches.getPerson(0));
+    assertEquals(0.0, matches.getDistance(0));
+  }
+
+  @Test
+  @DisplayName("Test Multi-Person Assignment")
+  public void testScore() {
+    final double max = 10.0;
+    /* Query 0 matches person 1 of segment a best, but so does query 1; the assignment has to give person 1 to query 1. */
+    final PoseMatches first = new PoseMatches(new String[]{"a", "a", "b"}, new int[]{1, 0, 0}, new double[]{1.0, 2.0, 3.0});
+    final PoseMatches second = new PoseMatches(new String[]{"a", "c"}, new int[]{1, 0}, new double[]{0.5, 4.0});
+    final List<ScoreElement> scores = PoseMatches.score(Arrays.asList(first, second), max, d -> 1.0 - d / max, 10);
+
+    final Map<String, Double> byId = scores.stream().collect(Collectors.toMap(ScoreElement::getId, ScoreElement::getScore));
+    assertEquals(((1.0 - 0.2) + (1.0 - 0.05)) / 2, byId.get("a"), 1e-12);
+    /* Single person: the best pair counts, the other query skeleton does not match anything. */
+    assertEquals((1.0 - 0.3) / 2, byId.get("b"), 1e-12);
+    assertEquals((1.0 - 0.4) / 2, byId.get("c"), 1e-12);
+    assertArrayEquals(new String[]{"a", "b", "c"}, scores.stream().map(ScoreElement::getId).toArray());
+    assertEquals(2, PoseMatches.score(Arrays.asList(first, second), max, d -> 1.0 - d / max, 2).size());
+
+    /* More persons than query skeletons, and a single query skeleton. */
+    final PoseMatches crowd = new PoseMatches(new String[]{"a", "a", "a"}, new int[]{0, 1, 2}, new double[]{3.0, 1.0, 2.0});
+    assertEquals(0.9, PoseMatches.score(Arrays.asList(crowd), max, d -> 1.0 - d / max, 10).get(0).getScore(), 1e-12);
+    final List<ScoreElement> pair = PoseMatches.score(Arrays.asList(crowd, first), max, d -> 1.0 - d / max, 10);
+    assertTrue(pair.get(0).getScore() <= 1.0);
+    assertEquals(((1.0 - 0.1) + (1.0 - 0.2)) / 2, pair.get(0).getScore(), 1e-12);
+  }
+}
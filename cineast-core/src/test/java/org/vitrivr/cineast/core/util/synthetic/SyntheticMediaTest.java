@@ -0,0 +1,135 @@
+package org.vitrivr.cineast.core.util.synthetic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SyntheticMediaTest {
+
+  private static final int WIDTH = 64;
+  private static final int HEIGHT = 48;
+  private static final int FRAMES = 600;
+
+  /**
+   * Tests that the same seed yields the same media and that different seeds yield different media.
+   */
+  @Test
+  @DisplayName("Test Determinism")
+  public void testDeterminism() {
+    final SyntheticMedia a = new SyntheticMedia(42L);
+    final SyntheticMedia b = new SyntheticMedia(42L);
+    final SyntheticMedia c = new SyntheticMedia(43L);
+    for (int i = 0; i < 5; i++) {
+      assertArrayEquals(a.image(i, WIDTH, HEIGHT), b.image(i, WIDTH, HEIGHT));
+      assertArrayEquals(a.shotBoundaries(i, FRAMES), b.shotBoundaries(i, FRAMES));
+      assertArrayEquals(a.audio(i, 8000, 800), b.audio(i, 8000, 800));
+      assertArrayEquals(a.mesh(i).positions(), b.mesh(i).positions());
+      assertArrayEquals(a.mesh(i).triangles(), b.mesh(i).triangles());
+    }
+    assertFalse(Arrays.equals(a.shotBoundaries(0, FRAMES), c.shotBoundaries(0, FRAMES)));
+  }
+
+  /**
+   * Tests that shots have the documented lengths and that the background changes at, and only at, every shot boundary.
+   */
+  @Test
+  @DisplayName("Test Shot Boundaries")
+  public void testShotBoundaries() {
+    final SyntheticMedia media = new SyntheticMedia(7L);
+    for (int v = 0; v < 5; v++) {
+      final int[] boundaries = media.shotBoundaries(v, FRAMES);
+      assertTrue(boundaries.length > 0);
+      int previous = 0;
+      for (int boundary : boundaries) {
+        assertTrue(boundary - previous >= SyntheticMedia.MIN_SHOT_LENGTH);
+        assertTrue(boundary - previous <= SyntheticMedia.MAX_SHOT_LENGTH);
+        previous = boundary;
+      }
+      assertTrue(FRAMES - previous <= SyntheticMedia.MAX_SHOT_LENGTH);
+
+      int b = 0;
+      int[] last = media.videoFrame(v, boundaries, 0, WIDTH, HEIGHT);
+      for (int f = 1; f < FRAMES; f++) {
+        final int[] frame = media.videoFrame(v, boundaries, f, WIDTH, HEIGHT);
+        final boolean cut = b < boundaries.length && boundaries[b] == f;
+        if (cut) {
+          assertNotEquals(last[0], frame[0]);
+          b++;
+        } else {
+          assertEquals(last[0], frame[0]);
+        }
+        last = frame;
+      }
+    }
+  }
+
+  /**
+   * Tests that the number of stripes of an image is reflected in its pixels.
+   */
+  @Test
+  @DisplayName("Test Image Content")
+  public void testImageContent() {
+    final SyntheticMedia media = new SyntheticMedia(3L);
+    for (int i = 0; i < 20; i++) {
+      final int[] pixels = media.image(i, WIDTH, HEIGHT);
+      final boolean uniform = Arrays.stream(pixels).allMatch(p -> p == pixels[0]);
+      assertEquals(media.stripes(i) == 0, uniform);
+    }
+  }
+
+  /**
+   * Tests that meshes are consistent and that OBJ and OFF list all vertices and faces.
+   */
+  @Test
+  @DisplayName("Test Meshes")
+  public void testMeshes() throws IOException {
+    final SyntheticMedia media = new SyntheticMedia(5L);
+    for (int i = 0; i < 4; i++) {
+      final SyntheticMedia.Mesh mesh = media.mesh(i);
+      for (int index : mesh.triangles()) {
+        assertTrue(index >= 0 && index < mesh.vertices());
+      }
+      final StringWriter obj = new StringWriter();
+      SyntheticMedia.writeObj(mesh, obj);
+      assertEquals(mesh.vertices(), obj.toString().lines().filter(l -> l.startsWith("v ")).count());
+      assertEquals(mesh.faces(), obj.toString().lines().filter(l -> l.startsWith("f ")).count());
+      final StringWriter off = new StringWriter();
+      SyntheticMedia.writeOff(mesh, off);
+      assertEquals(2 + mesh.vertices() + mesh.faces(), off.toString().lines().count());
+    }
+  }
+
+  /**
+   * Tests that audio written to a WAV file can be read back.
+   */
+  @Test
+  @DisplayName("Test Audio")
+  public void testAudio(@TempDir Path directory) throws IOException, UnsupportedAudioFileException {
+    final SyntheticMedia media = new SyntheticMedia(11L);
+    final float[] samples = media.audio(1, 22050, 22050);
+    for (float sample : samples) {
+      assertTrue(Math.abs(sample) <= 1.0f);
+    }
+    final Path file = directory.resolve("chirp.wav");
+    SyntheticMedia.writeWav(samples, 22050, file);
+    assertTrue(Files.size(file) > 2L * samples.length);
+    try (AudioInputStream stream = AudioSystem.getAudioInputStream(file.toFile())) {
+      assertEquals(samples.length, stream.getFrameLength());
+      assertEquals(22050.0f, stream.getFormat().getSampleRate());
+    }
+  }
+}
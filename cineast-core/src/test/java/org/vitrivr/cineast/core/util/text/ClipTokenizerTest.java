@@ -0,0 +1,303 @@
+package org.vitrivr.cineast.core.util.text;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ClipTokenizer} against token ids recorded for a small vocabulary that is learned from the query log and, if available, the CLIP vocabulary in {@link ClipTokenizer#DEFAULT_VOCABULARY}.
+ */
+public class ClipTokenizerTest {
+
+  private static final String[] SUBJECTS = {"a red car", "two people", "a dog", "the Eiffel tower", "an old man", "children", "a sailing boat", "a woman's face", "cats", "3 horses", "a plane", "fireworks", "a black-and-white photo", "people"};
+
+  private static final String[] PREDICATES = {"driving on a highway", "shaking hands", "playing in the snow", "at night", "wearing glasses", "on a beach", "in front of a building", "with a blue sky", "running through a forest", "sitting at a table", "don't smile", "it's raining", "close-up", "taking off"};
+
+  /**
+   * Words that are added to every query log so the vocabulary also covers HTML entities, punctuation and special tokens.
+   */
+  private static final String[] EXTRAS = {"Tom &amp; Jerry", "rock'n'roll!!!", "  multiple   spaces\tand\ttabs ", "<|startoftext|> special <|endoftext|>", "U.S.A. 1969", "x", ""};
+
+  private static Path vocabulary;
+
+  /**
+   * Generates a query log of the given size. Like in real query logs, some queries are repeated much more often than others.
+   *
+   * @param size Number of queries.
+   * @param seed Seed of the random generator.
+   */
+  public static List<String> queries(int size, long seed) {
+    final SplittableRandom random = new SplittableRandom(seed);
+    final List<String> queries = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      if (i < EXTRAS.length) {
+        queries.add(EXTRAS[i]);
+        continue;
+      }
+      final int subject = Math.min(random.nextInt(SUBJECTS.length), random.nextInt(SUBJECTS.length));
+      final int predicate = Math.min(random.nextInt(PREDICATES.length), random.nextInt(PREDICATES.length));
+      final String query = SUBJECTS[subject] + " " + PREDICATES[predicate];
+      queries.add(random.nextInt(10) == 0 ? query.toUpperCase(Locale.ROOT) : query);
+    }
+    return queries;
+  }
+
+  /**
+   * Learns a BPE vocabulary with the given number of merges from the words of the provided texts and writes it to a temporary file in the format of the CLIP vocabulary. The texts may only contain printable ASCII characters, which the byte encoding leaves unchanged.
+   *
+   * @param texts  Texts to learn the merges from.
+   * @param merges Maximum number of merges.
+   * @return Path to the temporary file.
+   */
+  public static Path writeVocabulary(List<String> texts, int merges) throws IOException {
+    final Pattern pattern = Pattern.compile("'s|'t|'re|'ve|'m|'ll|'d|[\\p{L}]+|[\\p{N}]|[^\\s\\p{L}\\p{N}]+");
+    final Map<List<String>, Integer> words = new HashMap<>();
+    for (String text : texts) {
+      final Matcher matcher = pattern.matcher(text.toLowerCase(Locale.ROOT));
+      while (matcher.find()) {
+        final String word = matcher.group();
+        final List<String> symbols = new ArrayList<>();
+        for (int i = 0; i < word.length() - 1; i++) {
+          symbols.add(String.valueOf(word.charAt(i)));
+        }
+        symbols.add(word.charAt(word.length() - 1) + "</w>");
+        words.merge(symbols, 1, Integer::sum);
+      }
+    }
+
+    final List<String> lines = new ArrayList<>();
+    lines.add("#version: 0.2");
+    for (int m = 0; m < merges; m++) {
+      /* Count all pairs and merge the most frequent one; ties are broken by the pair itself. */
+      final Map<String, Integer> counts = new HashMap<>();
+      for (Map.Entry<List<String>, Integer> entry : words.entrySet()) {
+        for (int i = 0; i < entry.getKey().size() - 1; i++) {
+          counts.merge(entry.getKey().get(i) + " " + entry.getKey().get(i + 1), entry.getValue(), Integer::sum);
+        }
+      }
+      final String best = counts.entrySet().stream().max(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey())).map(Map.Entry::getKey).orElse(null);
+      if (best == null) {
+        break;
+      }
+      lines.add(best);
+      final String[] pair = best.split(" ");
+      final Map<List<String>, Integer> merged = new HashMap<>();
+      for (Map.Entry<List<String>, Integer> entry : words.entrySet()) {
+        final List<String> word = new ArrayList<>();
+        final List<String> symbols = entry.getKey();
+        for (int i = 0; i < symbols.size(); i++) {
+          if (i < symbols.size() - 1 && symbols.get(i).equals(pair[0]) && symbols.get(i + 1).equals(pair[1])) {
+            word.add(pair[0] + pair[1]);
+            i++;
+          } else {
+            word.add(symbols.get(i));
+          }
+        }
+        merged.merge(word, entry.getValue(), Integer::sum);
+      }
+      words.clear();
+      words.putAll(merged);
+    }
+
+    final Path file = Files.createTempFile("cineast-clip-vocabulary", ".txt");
+    Files.write(file, lines, StandardCharsets.UTF_8);
+    return file;
+  }
+
+  @BeforeAll
+  public static void setup() throws IOException {
+    vocabulary = writeVocabulary(queries(500, 1L), 400);
+  }
+
+  @AfterAll
+  public static void teardown() throws IOException {
+    Files.deleteIfExists(vocabulary);
+  }
+
+  /**
+   * Token ids of {@link #FIXTURES} in the vocabulary learned in {@link #setup()}. Recorded with {@link ClipTokenizer}; the ids up to 511 are single bytes, the ids above are merges in the order they were learned.
+   */
+  private static final int[][] FIXTURES_GOLDEN = {
+      {320, 654, 592, 320, 526, 339},
+      {561, 558, 563, 566},
+      {520, 580, 572, 528, 606},
+      {684, 261, 708},
+      {641, 642, 640},
+      {340, 269, 338, 269, 320, 269, 272, 280, 277, 280},
+      {89, 68, 65, 81, 320}
+  };
+
+  private static final String[] FIXTURES = {"a photo of a cat", "two people shaking hands", "the Eiffel tower at night", "Tom &amp; Jerry", "don't smile", "U.S.A. 1969", "zebra"};
+
+  /**
+   * Ids of the start and end token in the learned vocabulary, which follow the byte symbols and merges.
+   */
+  private static final int START_GOLDEN = 713, END_GOLDEN = 714;
+
+  private static List<Integer> list(int... ids) {
+    return Arrays.stream(ids).boxed().collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the context that {@link ClipTokenizer#clipTokenize(String)} is expected to yield for the given token ids: The start token, the token ids, the end token and zero padding, truncated to 77 tokens.
+   */
+  private static long[] context(List<Integer> tokens) {
+    final long[] context = new long[77];
+    context[0] = START_GOLDEN;
+    for (int i = 0; i < tokens.size() && i < 76; i++) {
+      context[i + 1] = tokens.get(i);
+    }
+    if (tokens.size() < 76) {
+      context[tokens.size() + 1] = END_GOLDEN;
+    }
+    return context;
+  }
+
+  /**
+   * Yields the recorded token ids for the fixtures, and the same ids again for repeated queries that are answered from the cache.
+   */
+  @Test
+  @DisplayName("Token ids of the learned vocabulary")
+  public void testLearnedVocabulary() {
+    final ClipTokenizer tokenizer = new ClipTokenizer(vocabulary);
+    for (int repetition = 0; repetition < 2; repetition++) {
+      for (int i = 0; i < FIXTURES.length; i++) {
+        assertEquals(list(FIXTURES_GOLDEN[i]), tokenizer.encode(FIXTURES[i]), FIXTURES[i]);
+        assertArrayEquals(context(list(FIXTURES_GOLDEN[i])), tokenizer.clipTokenize(FIXTURES[i]), FIXTURES[i]);
+      }
+    }
+
+    /* Unknown words fall back to their bytes; the last one carries the end-of-word marker like the word "a". */
+    assertEquals(tokenizer.encode("a"), tokenizer.encode("zebra").subList(4, 5));
+    assertTrue(tokenizer.encode("zebra").subList(0, 4).stream().allMatch(id -> id < 256));
+  }
+
+  /**
+   * Case, whitespace and HTML entities do not change the token ids, and words are encoded independently of each other.
+   */
+  @Test
+  @DisplayName("Text is normalized before tokenization")
+  public void testNormalization() {
+    final ClipTokenizer tokenizer = new ClipTokenizer(vocabulary);
+    assertEquals(tokenizer.encode("a photo of a cat"), tokenizer.encode("A PHOTO Of A cAt"));
+    assertEquals(tokenizer.encode("a photo of a cat"), tokenizer.encode("  a\tphoto \n of   a cat "));
+    assertEquals(tokenizer.encode("tom & jerry"), tokenizer.encode("Tom &amp; Jerry"));
+    assertEquals(list(START_GOLDEN), tokenizer.encode("<|startoftext|>"));
+    assertEquals(list(END_GOLDEN), tokenizer.encode("<|endoftext|>"));
+    assertTrue(tokenizer.encode("").isEmpty());
+    assertArrayEquals(context(List.of()), tokenizer.clipTokenize(""));
+
+    final List<String> queries = queries(200, 2L);
+    final List<Integer> concatenated = new ArrayList<>();
+    for (String query : queries) {
+      concatenated.addAll(tokenizer.encode(query));
+      assertArrayEquals(context(tokenizer.encode(query)), tokenizer.clipTokenize(query), query);
+    }
+    assertEquals(concatenated, tokenizer.encode(String.join(" ", queries)));
+  }
+
+  /**
+   * Queries longer than the context are truncated and have no end token.
+   */
+  @Test
+  @DisplayName("Long queries are truncated")
+  public void testTruncation() {
+    final ClipTokenizer tokenizer = new ClipTokenizer(vocabulary);
+    final String query = String.join(" ", queries(60, 2L).subList(10, 60));
+    final List<Integer> tokens = tokenizer.encode(query);
+    assertTrue(tokens.size() > 76);
+    final long[] context = tokenizer.clipTokenize(query);
+    assertEquals(77, context.length);
+    assertEquals(START_GOLDEN, context[0]);
+    assertEquals((long) tokens.get(75), context[76]);
+  }
+
+  /**
+   * Yields the token ids of the CLIP vocabulary; runs only if the vocabulary is available.
+   */
+  @Test
+  @DisplayName("Token ids match the CLIP vocabulary")
+  public void testClipVocabulary() {
+    final Path clip = Path.of(ClipTokenizer.DEFAULT_VOCABULARY);
+    assumeTrue(Files.exists(clip), "CLIP vocabulary not available.");
+    final ClipTokenizer tokenizer = new ClipTokenizer();
+    assertArrayEquals(new long[]{49406, 320, 1125, 539, 320, 2368, 49407}, Arrays.copyOf(tokenizer.clipTokenize("a photo of a cat"), 7));
+    assertArrayEquals(new long[]{49406, 320, 1125, 539, 320, 2368, 49407}, Arrays.copyOf(tokenizer.clipTokenize("A Photo of a CAT"), 7));
+  }
+
+  /**
+   * Non-ASCII characters are encoded by their UTF-8 bytes, so characters that differ only in their accent yield different token ids.
+   */
+  @Test
+  @DisplayName("Non-ASCII characters are byte-encoded")
+  public void testNonAscii() {
+    final ClipTokenizer tokenizer = new ClipTokenizer(vocabulary);
+    assertNotEquals(tokenizer.encode("café"), tokenizer.encode("cafè"));
+    assertEquals(tokenizer.encode("café").subList(0, 3), tokenizer.encode("cafè").subList(0, 3));
+    assertEquals(2, tokenizer.encode("é").size());
+    assertEquals(3, tokenizer.encode("€").size());
+  }
+
+  /**
+   * Concurrent queries on a shared tokenizer yield the same token ids as sequential ones on a tokenizer with its own vocabulary and cache.
+   */
+  @Test
+  @DisplayName("Concurrent tokenization")
+  public void testConcurrent() throws InterruptedException, IOException {
+    final Path copy = Files.createTempFile("cineast-clip-vocabulary", ".txt");
+    Files.copy(vocabulary, copy, StandardCopyOption.REPLACE_EXISTING);
+    final ClipTokenizer tokenizer = new ClipTokenizer(vocabulary);
+    final List<String> queries = queries(1000, 4L);
+    final List<long[]> expected = new ArrayList<>();
+    try {
+      final ClipTokenizer sequential = new ClipTokenizer(copy);
+      for (String query : queries) {
+        expected.add(sequential.clipTokenize(query));
+      }
+    } finally {
+      Files.deleteIfExists(copy);
+    }
+    final List<String> errors = new CopyOnWriteArrayList<>();
+    final List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final int offset = t;
+      final Thread thread = new Thread(() -> {
+        for (int i = 0; i < queries.size(); i++) {
+          final int q = (i + offset * 250) % queries.size();
+          if (!Arrays.equals(expected.get(q), tokenizer.clipTokenize(queries.get(q)))) {
+            errors.add(queries.get(q));
+          }
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertTrue(errors.isEmpty(), String.join("\n", errors));
+  }
+}
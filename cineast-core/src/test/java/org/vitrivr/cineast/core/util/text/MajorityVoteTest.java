@@ -0,0 +1,64 @@
+package org.vitrivr.cineast.core.util.text;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class MajorityVoteTest {
+
+  @Test
+  @DisplayName("Test Early Decision Matches Full Vote")
+  public void testEarlyDecision() {
+    final SplittableRandom random = new SplittableRandom(1L);
+    final String[] recognitions = {"cineast", "clneast", "cineost", "vitrivr"};
+    for (int round = 0; round < 10_000; round++) {
+      final int total = 1 + random.nextInt(40);
+      final int alphabet = 1 + random.nextInt(recognitions.length);
+      final String[] sequence = new String[total];
+      for (int i = 0; i < total; i++) {
+        /* Skewed towards the first recognition, as for a stable text instance. */
+        sequence[i] = recognitions[random.nextInt(4) == 0 ? random.nextInt(alphabet) : 0];
+      }
+
+      final MajorityVote full = new MajorityVote(total);
+      for (String recognition : sequence) {
+        full.add(recognition);
+      }
+      assertTrue(full.isDecided());
+
+      final MajorityVote early = new MajorityVote(total);
+      int seen = 0;
+      while (!early.isDecided()) {
+        early.add(sequence[seen++]);
+      }
+      final List<String> winners = early.getWinners();
+      if (seen < total) {
+        assertEquals(1, winners.size());
+      }
+      assertEquals(full.getWinners().get(0), winners.get(0));
+      if (full.getWinners().size() > 1) {
+        assertEquals(total, seen);
+        assertEquals(full.getWinners(), winners);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Test Decision")
+  public void testDecision() {
+    final MajorityVote vote = new MajorityVote(5);
+    vote.add("a");
+    vote.add("b");
+    vote.add("a");
+    assertFalse(vote.isDecided());
+    vote.add("a");
+    assertTrue(vote.isDecided());
+    assertEquals(1, vote.remaining());
+    assertEquals(List.of("a"), vote.getWinners());
+  }
+}
@@ -0,0 +1,72 @@
+package org.vitrivr.cineast.core.util.text;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TextEmbeddingCacheTest {
+
+  /**
+   * Returns an embedder that counts its invocations and embeds a text by its length.
+   */
+  private static Function<String, float[]> embedder(AtomicInteger invocations) {
+    return text -> {
+      invocations.incrementAndGet();
+      return new float[]{text.length(), 1.0f};
+    };
+  }
+
+  /**
+   * The embedding of a text is calculated once; subsequent requests receive copies of the cached embedding.
+   */
+  @Test
+  @DisplayName("Embeddings are calculated once")
+  public void testCached() {
+    final TextEmbeddingCache cache = new TextEmbeddingCache(10);
+    final AtomicInteger invocations = new AtomicInteger();
+    final float[] first = cache.get("clip", "a dog", embedder(invocations));
+    first[0] = -1.0f;
+    final float[] second = cache.get("clip", "a dog", embedder(invocations));
+    assertEquals(1, invocations.get());
+    assertNotSame(first, second);
+    assertArrayEquals(new float[]{5.0f, 1.0f}, second);
+  }
+
+  /**
+   * The same text is embedded separately for every model.
+   */
+  @Test
+  @DisplayName("Embeddings are separated by model")
+  public void testModels() {
+    final TextEmbeddingCache cache = new TextEmbeddingCache(10);
+    final AtomicInteger invocations = new AtomicInteger();
+    cache.get("clip", "a dog", embedder(invocations));
+    cache.get("visualtextcoembedding", "a dog", embedder(invocations));
+    cache.get("clip", "a cat", embedder(invocations));
+    assertEquals(3, invocations.get());
+    assertEquals(3, cache.size());
+  }
+
+  /**
+   * The number of cached embeddings does not exceed the maximum.
+   */
+  @Test
+  @DisplayName("Cache is bounded")
+  public void testBounded() {
+    final TextEmbeddingCache cache = new TextEmbeddingCache(16);
+    final AtomicInteger invocations = new AtomicInteger();
+    for (int i = 0; i < 100; i++) {
+      cache.get("clip", "query " + i, embedder(invocations));
+    }
+    assertEquals(100, invocations.get());
+    assertTrue(cache.size() <= 16);
+    cache.invalidateAll();
+    assertEquals(0, cache.size());
+  }
+}
@@ -0,0 +1,69 @@
+package org.vitrivr.cineast.standalone.config;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Measures the contention on {@link Config#sharedConfig()} when many threads read the config, as the API does for every query and result message, compared to the former {@code static synchronized} accessor. The {@code reload} group additionally replaces the retriever configuration while the config is being read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SharedConfigBenchmark {
+
+  /**
+   * The former accessor, which synchronized every read on the class.
+   */
+  private static final class SynchronizedHolder {
+
+    private static Config sharedConfig;
+
+    private static synchronized Config sharedConfig() {
+      return sharedConfig;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final Config config = new Config();
+    config.setRetriever(new RetrievalRuntimeConfig());
+    Config.initSharedConfig(config);
+    SynchronizedHolder.sharedConfig = config;
+  }
+
+  @Benchmark
+  @Threads(8)
+  public int synchronizedRead() {
+    return SynchronizedHolder.sharedConfig().getRetriever().getMaxResults();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public int snapshotRead() {
+    return Config.sharedConfig().getRetriever().getMaxResults();
+  }
+
+  @Benchmark
+  @Group("reload")
+  @GroupThreads(7)
+  public int snapshotReadDuringReload() {
+    return Config.sharedConfig().getRetriever().getMaxResults();
+  }
+
+  @Benchmark
+  @Group("reload")
+  @GroupThreads(1)
+  public long reload() {
+    return Config.replaceRetriever(new RetrievalRuntimeConfig()).getVersion();
+  }
+}
@@ -0,0 +1,108 @@
+package org.vitrivr.cineast.standalone.run.path;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the enumeration of a synthetic media tree by the original {@link Files#walk(Path, int, FileVisitOption...)} based filter of {@link TreeWalkContainerIteratorProvider} with the {@link DirectoryCrawler}. The tree has 1000 files per leaf directory and 100 leaf directories per intermediate directory; the files are empty.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class DirectoryCrawlerBenchmark {
+
+  private static final int FILES_PER_DIRECTORY = 1000;
+
+  private static final int DIRECTORIES_PER_PARENT = 100;
+
+  @Param({"100000", "1000000"})
+  public int files;
+
+  @Param({"1", "8"})
+  public int threads;
+
+  @Param({"false", "true"})
+  public boolean ordered;
+
+  private Path root;
+
+  @Setup
+  public void setup() throws IOException {
+    this.root = Files.createTempDirectory("cineast-crawler-benchmark");
+    final int directories = (this.files + FILES_PER_DIRECTORY - 1) / FILES_PER_DIRECTORY;
+    for (int d = 0; d < directories; d++) {
+      final Path directory = Files.createDirectories(this.root.resolve("group_" + (d / DIRECTORIES_PER_PARENT)).resolve("video_" + d));
+      for (int f = 0; f < FILES_PER_DIRECTORY && d * FILES_PER_DIRECTORY + f < this.files; f++) {
+        Files.createFile(directory.resolve("frame_" + f + ".png"));
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.walkFileTree(this.root, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        Files.delete(file);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+        Files.delete(dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  @Benchmark
+  public long walk() throws IOException {
+    try (Stream<Path> paths = Files.walk(this.root, Integer.MAX_VALUE, FileVisitOption.FOLLOW_LINKS)) {
+      Stream<Path> filtered = paths.filter(p -> {
+        try {
+          return Files.exists(p) && !Files.isHidden(p) && Files.isReadable(p);
+        } catch (IOException e) {
+          return false;
+        }
+      });
+      if (this.ordered) {
+        filtered = filtered.sorted(Comparator.comparing(Path::toString));
+      }
+      return filtered.count();
+    }
+  }
+
+  @Benchmark
+  public long crawler() throws InterruptedException {
+    long count = 0;
+    try (DirectoryCrawler<Path> crawler = new DirectoryCrawler<>(this.root, Integer.MAX_VALUE, this.threads, 1024, this.ordered, false, p -> p)) {
+      while (!crawler.isExhausted()) {
+        if (crawler.poll(10, TimeUnit.MILLISECONDS) != null) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,187 @@
+package org.vitrivr.cineast.standalone.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vitrivr.cineast.core.data.LimitedQueue;
+import org.vitrivr.cineast.core.data.segments.AudioSegment;
+import org.vitrivr.cineast.core.data.segments.SegmentContainer;
+import org.vitrivr.cineast.core.db.PersistencyWriterSupplier;
+import org.vitrivr.cineast.core.db.setup.EntityCreator;
+import org.vitrivr.cineast.core.features.extractor.Extractor;
+
+/**
+ * Time to extract a batch of segments with synthetic extractors of mixed cost on four threads, by the {@link ExtractionScheduler} and by the former dispatch of {@link ExtractionPipeline}, which submitted one {@link ExtractionTask} per segment and extractor to a shared thread pool and sorted the extractors by their mean execution time after each segment. The extractors busy-wait for a fixed time per segment: many cheap colour features, two medium ones and one expensive one, like OCR or CLIP. With {@code serial}, the expensive extractor is not thread-safe; the former pipeline can only synchronize it, which blocks the threads of the pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ExtractionSchedulerBenchmark {
+
+  private static final int SEGMENTS = 200;
+
+  private static final int THREADS = 4;
+
+  private static final int QUEUE_SIZE = 10;
+
+  /**
+   * Time per segment of the synthetic extractors in microseconds; the last one is the expensive extractor.
+   */
+  private static final long[] COSTS = {20, 20, 20, 20, 50, 50, 50, 200, 800, 4000};
+
+  @Param({"false", "true"})
+  public boolean serial;
+
+  private List<Extractor> extractors;
+
+  private List<SegmentContainer> segments;
+
+  @Setup
+  public void setup() {
+    this.extractors = new ArrayList<>();
+    for (int i = 0; i < COSTS.length; i++) {
+      final boolean expensive = i == COSTS.length - 1;
+      this.extractors.add(expensive && this.serial ? new SerialExtractor(COSTS[i]) : new SyntheticExtractor(COSTS[i]));
+    }
+    this.segments = new ArrayList<>(SEGMENTS);
+    for (int i = 0; i < SEGMENTS; i++) {
+      final AudioSegment segment = new AudioSegment();
+      segment.setId("v_" + i + "_1");
+      this.segments.add(segment);
+    }
+  }
+
+  @Benchmark
+  public void scheduler() throws InterruptedException {
+    final int[] queueSizes = new int[this.extractors.size()];
+    final int[] threads = new int[this.extractors.size()];
+    Arrays.fill(queueSizes, QUEUE_SIZE);
+    for (int i = 0; i < this.extractors.size(); i++) {
+      threads[i] = this.extractors.get(i).isThreadSafe() ? THREADS : 1;
+    }
+    final ExtractionScheduler scheduler = new ExtractionScheduler(this.extractors, queueSizes, threads, THREADS, null);
+    scheduler.start();
+    for (SegmentContainer segment : this.segments) {
+      scheduler.submit(segment);
+    }
+    scheduler.shutdown(1, TimeUnit.MINUTES);
+  }
+
+  @Benchmark
+  public void reference() throws InterruptedException {
+    new Reference(this.extractors).extract(this.segments);
+  }
+
+  /**
+   * The former dispatch of {@link ExtractionPipeline}.
+   */
+  private static final class Reference implements ExecutionTimeCounter {
+
+    private final List<Extractor> extractors;
+
+    private final ConcurrentHashMap<String, SummaryStatistics> timeMap = new ConcurrentHashMap<>();
+
+    private Reference(List<Extractor> extractors) {
+      this.extractors = new ArrayList<>(extractors);
+    }
+
+    private void extract(List<SegmentContainer> segments) throws InterruptedException {
+      final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS, new LimitedQueue<>(QUEUE_SIZE));
+      for (SegmentContainer segment : segments) {
+        for (Extractor extractor : this.extractors) {
+          executor.execute(new ExtractionTask(extractor, segment, this));
+        }
+        this.extractors.sort((o1, o2) -> Long.compare(getAverageExecutionTime(o2.getClass().getSimpleName()), getAverageExecutionTime(o1.getClass().getSimpleName())));
+      }
+      executor.shutdown();
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void reportExecutionTime(String className, long milliseconds) {
+      final SummaryStatistics stat = this.timeMap.computeIfAbsent(className, k -> new SummaryStatistics());
+      synchronized (stat) {
+        stat.addValue(milliseconds);
+      }
+    }
+
+    @Override
+    public long getAverageExecutionTime(String className) {
+      final SummaryStatistics stat = this.timeMap.get(className);
+      return stat != null ? (long) stat.getMean() : 0;
+    }
+  }
+
+  /**
+   * Extractor that busy-waits for a fixed time per segment.
+   */
+  private static class SyntheticExtractor implements Extractor {
+
+    private final long nanos;
+
+    private SyntheticExtractor(long micros) {
+      this.nanos = TimeUnit.MICROSECONDS.toNanos(micros);
+    }
+
+    @Override
+    public void processSegment(SegmentContainer shot) {
+      final long end = System.nanoTime() + this.nanos;
+      while (System.nanoTime() < end) {
+        Thread.onSpinWait();
+      }
+    }
+
+    @Override
+    public void init(PersistencyWriterSupplier phandlerSupply) {
+    }
+
+    @Override
+    public void finish() {
+    }
+
+    @Override
+    public void initalizePersistentLayer(Supplier<EntityCreator> supply) {
+    }
+
+    @Override
+    public void dropPersistentLayer(Supplier<EntityCreator> supply) {
+    }
+  }
+
+  /**
+   * {@link SyntheticExtractor} that is not thread-safe and therefore synchronizes its extraction.
+   */
+  private static final class SerialExtractor extends SyntheticExtractor {
+
+    private SerialExtractor(long micros) {
+      super(micros);
+    }
+
+    @Override
+    public synchronized void processSegment(SegmentContainer shot) {
+      super.processSegment(shot);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+      return false;
+    }
+  }
+}
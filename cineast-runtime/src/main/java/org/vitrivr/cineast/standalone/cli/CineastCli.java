@@ -13,7 +13,7 @@
         CodebookCommand.class, DatabaseSetupCommand.class, ExtractionCommand.class, ImportCommand.class,
         ThreeDeeTestCommand.class, ThreeDeeTextureTestCommand.class, RetrieveCommand.class, Help.class, SingleObjRetrievalCommand.class,
         TextRetrievalCommand.class, DistinctColumnApiCommand.class,
-        PolyphenyBenchmarkCommand.class}, defaultCommand = Help.class, parserConfiguration = @Parser(errorHandler = CollectAll.class)
+        PolyphenyBenchmarkCommand.class, GenerateCorpusCommand.class, ExtractionBenchmarkCommand.class}, defaultCommand = Help.class, parserConfiguration = @Parser(errorHandler = CollectAll.class)
 )
 public class CineastCli {
 
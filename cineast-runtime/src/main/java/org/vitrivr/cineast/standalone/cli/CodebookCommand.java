@@ -6,6 +6,7 @@
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import org.vitrivr.cineast.core.features.codebook.CodebookGenerator;
+import org.vitrivr.cineast.core.features.codebook.ImageCodebookGenerator;
 import org.vitrivr.cineast.core.util.ReflectionHelper;
 
 /**
@@ -26,12 +27,18 @@ public class CodebookCommand extends AbstractCineastCommand {
   @Option(name = {"-w", "--words"}, description = "The size of the vocabulary (i.e. the size of the codebook).")
   private int words;
 
+  @Option(name = {"-b", "--batch-size"}, description = "Optional number of descriptors per mini-batch of the k-means clustering. By default, all descriptors are clustered in every iteration.")
+  private int batchSize = 0;
+
   @Override
   public void execute() {
     final CodebookGenerator generator = ReflectionHelper.newCodebookGenerator(name);
     final Path input = Paths.get(this.input);
     final Path output = Paths.get(this.output);
     if (generator != null) {
+      if (generator instanceof ImageCodebookGenerator) {
+        ((ImageCodebookGenerator) generator).setMiniBatchSize(this.batchSize);
+      }
       try {
         generator.generate(input, output, this.words);
       } catch (IOException e) {
@@ -0,0 +1,331 @@
+package org.vitrivr.cineast.standalone.cli;
+
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.restrictions.Required;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.vitrivr.cineast.core.config.DatabaseConfig;
+import org.vitrivr.cineast.core.config.IdConfig;
+import org.vitrivr.cineast.core.data.MediaType;
+import org.vitrivr.cineast.core.db.DataSource;
+import org.vitrivr.cineast.core.util.json.JacksonJsonProvider;
+import org.vitrivr.cineast.core.util.synthetic.SyntheticMedia;
+import org.vitrivr.cineast.standalone.config.ExtractionPipelineConfig;
+import org.vitrivr.cineast.standalone.config.ExtractorConfig;
+import org.vitrivr.cineast.standalone.config.IngestConfig;
+import org.vitrivr.cineast.standalone.config.InputConfig;
+import org.vitrivr.cineast.standalone.monitoring.ExtractionStageMonitor;
+import org.vitrivr.cineast.standalone.run.ExtractionContainerProvider;
+import org.vitrivr.cineast.standalone.run.ExtractionDispatcher;
+import org.vitrivr.cineast.standalone.run.path.ExtractionContainerProviderFactory;
+
+/**
+ * A CLI command that runs the full extraction on a corpus generated by {@link GenerateCorpusCommand}, one run per media type, and writes a JSON report that can be compared across versions: per-stage throughput and latency percentiles from the {@link ExtractionStageMonitor}, the bytes allocated by all threads, and the peak heap and resident set size.
+ * <p>
+ * Only the JSON and NONE backends are supported, so the results do not depend on a database. Throughput and allocation rate are computed over the time in which any stage was active, which excludes the fixed delay at the end of every extraction.
+ */
+@Command(name = "extraction-benchmark", description = "Runs the extraction on a synthetic corpus and reports per-stage throughput, latency, allocation and memory.")
+public class ExtractionBenchmarkCommand extends AbstractCineastCommand {
+
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * Media types in the order they are benchmarked.
+   */
+  private static final List<MediaType> TYPES = List.of(MediaType.IMAGE, MediaType.VIDEO, MediaType.AUDIO, MediaType.MODEL3D);
+
+  /**
+   * Extractors used per media type unless {@code --extractors} is set.
+   */
+  private static final Map<MediaType, List<String>> DEFAULT_EXTRACTORS = Map.of(
+      MediaType.IMAGE, List.of("AverageColor", "MedianColor", "AverageColorGrid8", "CLD", "EHD", "DominantEdgeGrid16", "AverageFuzzyHist"),
+      MediaType.VIDEO, List.of("AverageColor", "MedianColor", "AverageColorGrid8", "CLD", "EHD", "DominantEdgeGrid16", "AverageFuzzyHist"),
+      MediaType.AUDIO, List.of("MFCCShingle", "HPCP12Shingle", "AverageHPCP"),
+      MediaType.MODEL3D, List.of("SphericalHarmonicsLow")
+  );
+
+  /**
+   * Interval in which the allocated bytes of all threads are sampled, in milliseconds.
+   */
+  private static final long ALLOCATION_SAMPLE_INTERVAL_MS = 50;
+
+  @Required
+  @Option(name = {"-c", "--corpus"}, title = "Corpus", description = "Directory of a corpus generated by generate-corpus.")
+  private String corpus;
+
+  @Option(name = {"--backend"}, description = "The backend to extract to; either JSON or NONE.")
+  private String backend = DataSource.JSON.name();
+
+  @Option(name = {"--output"}, description = "Directory the JSON backend writes to. Defaults to a temporary directory.")
+  private String output;
+
+  @Option(name = {"-r", "--report"}, description = "File the report is written to. Defaults to standard output.")
+  private String report;
+
+  @Option(name = {"--extractors"}, description = "Comma-separated names of the extractors to use for all media types, instead of the defaults per media type.")
+  private String extractors;
+
+  @Option(name = {"--types"}, description = "Comma-separated media types to benchmark. Defaults to all types present in the corpus.")
+  private String types;
+
+  @Option(name = {"--threads"}, description = "The number of threads of the extraction pipeline.")
+  private int threads = ExtractionPipelineConfig.DEFAULT_THREADPOOL_SIZE;
+
+  @Override
+  public void execute() {
+    final DataSource source = DataSource.valueOf(this.backend.toUpperCase(Locale.ROOT));
+    if (source != DataSource.JSON && source != DataSource.NONE) {
+      System.err.printf("Backend %s is not supported; use JSON or NONE.%n", source);
+      return;
+    }
+    final Path directory = Paths.get(this.corpus).toAbsolutePath();
+    if (!Files.isDirectory(directory)) {
+      System.err.printf("Corpus directory '%s' does not exist.%n", directory);
+      return;
+    }
+    final List<MediaType> selected = this.types == null ? TYPES : Arrays.stream(this.types.split(",")).map(t -> MediaType.valueOf(t.trim().toUpperCase(Locale.ROOT))).collect(Collectors.toList());
+
+    final List<Run> runs = new ArrayList<>();
+    try {
+      final Path out = this.output != null ? Paths.get(this.output).toAbsolutePath() : Files.createTempDirectory("cineast-extraction-benchmark");
+      ExtractionStageMonitor.enable(true);
+      for (MediaType type : selected) {
+        final Path input = directory.resolve(SyntheticMedia.directory(type));
+        if (!Files.isDirectory(input)) {
+          LOGGER.info("Corpus contains no items of type {}, skipping.", type);
+          continue;
+        }
+        LOGGER.info("Benchmarking extraction of {} items.", type);
+        runs.add(this.run(type, directory, input, source, out.resolve(SyntheticMedia.directory(type))));
+      }
+    } catch (IOException e) {
+      System.err.println("Could not run extraction benchmark due to an IO error.");
+      e.printStackTrace();
+      return;
+    } finally {
+      ExtractionStageMonitor.enable(false);
+    }
+
+    final String json = new JacksonJsonProvider().toJson(new Report(source, Runtime.getRuntime().availableProcessors(), this.threads, directory.toString(), runs));
+    if (this.report == null) {
+      System.out.println(json);
+      return;
+    }
+    try {
+      Files.writeString(Paths.get(this.report), json);
+      System.out.printf("Wrote report of %d runs to '%s'.%n", runs.size(), this.report);
+    } catch (IOException e) {
+      System.err.printf("Could not write report to '%s' due to an IO error.%n", this.report);
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Extracts all items of a media type and collects the measurements of the run.
+   */
+  private Run run(MediaType type, Path corpus, Path input, DataSource source, Path output) throws IOException {
+    Files.createDirectories(output);
+    final IngestConfig context = this.ingestConfig(type, input, source, output);
+    final ExtractionContainerProvider provider = ExtractionContainerProviderFactory.tryCreatingTreeWalkPathProvider(corpus.resolve(SyntheticMedia.MANIFEST).toFile(), context);
+    final ExtractionDispatcher dispatcher = new ExtractionDispatcher();
+
+    ExtractionStageMonitor.reset();
+    resetPeaks();
+    final AllocationSampler sampler = new AllocationSampler();
+    final long start = System.nanoTime();
+    sampler.start();
+    if (!dispatcher.initialize(provider, context)) {
+      sampler.finish();
+      throw new IOException("Could not initialize extraction of " + input + ".");
+    }
+    dispatcher.start();
+    dispatcher.block();
+    final long allocated = sampler.finish();
+    final long wall = System.nanoTime() - start;
+
+    final long active = ExtractionStageMonitor.window();
+    final Map<String, ExtractionStageMonitor.Statistics> stages = ExtractionStageMonitor.snapshot();
+    final long objects = stages.containsKey("object") ? stages.get("object").count() : 0;
+    final long segments = stages.containsKey("emit") ? stages.get("emit").count() : 0;
+    final double seconds = active / 1e9;
+    return new Run(type, context.getExtractors().stream().map(ExtractorConfig::getName).collect(Collectors.toList()), objects, segments, wall, active,
+        seconds > 0 ? objects / seconds : 0.0, seconds > 0 ? segments / seconds : 0.0,
+        allocated, allocated >= 0 && seconds > 0 ? allocated / seconds : -1.0, peakHeap(), peakRss(), stages);
+  }
+
+  private IngestConfig ingestConfig(MediaType type, Path input, DataSource source, Path output) {
+    final InputConfig inputConfig = new InputConfig();
+    inputConfig.setPath(input.toString());
+    inputConfig.setId(new IdConfig("SequentialObjectIdGenerator", IdConfig.ExistenceCheck.PROCEED_IF_EXISTS, new HashMap<>()));
+
+    final DatabaseConfig database = new DatabaseConfig();
+    database.setWriter(source);
+    database.setSelector(DataSource.NONE);
+    database.setHost(output.toString());
+
+    final ExtractionPipelineConfig pipeline = new ExtractionPipelineConfig();
+    pipeline.setThreadPoolSize(this.threads);
+
+    final List<String> names = this.extractors == null ? DEFAULT_EXTRACTORS.get(type) : Arrays.stream(this.extractors.split(",")).map(String::trim).collect(Collectors.toList());
+    final List<ExtractorConfig> extractorConfigs = new ArrayList<>(names.size());
+    for (String name : names) {
+      final ExtractorConfig extractorConfig = new ExtractorConfig();
+      extractorConfig.setName(name);
+      extractorConfigs.add(extractorConfig);
+    }
+    return new IngestConfig(type, inputConfig, extractorConfigs, null, null, database, pipeline, null, null);
+  }
+
+  /**
+   * Resets the peak usage of all memory pools and, on Linux, the peak resident set size of the process.
+   */
+  private static void resetPeaks() {
+    ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+    final Path clearRefs = Paths.get("/proc/self/clear_refs");
+    if (Files.isWritable(clearRefs)) {
+      try {
+        Files.writeString(clearRefs, "5");
+      } catch (IOException e) {
+        LOGGER.debug("Could not reset peak resident set size: {}", e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Returns the sum of the peak usage of all heap memory pools since the last {@link #resetPeaks()}.
+   */
+  private static long peakHeap() {
+    return ManagementFactory.getMemoryPoolMXBeans().stream().filter(p -> p.getType() == MemoryType.HEAP).mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+  }
+
+  /**
+   * Returns the peak resident set size of the process in bytes, or -1 if it cannot be determined on this platform.
+   */
+  private static long peakRss() {
+    try {
+      for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+        if (line.startsWith("VmHWM:")) {
+          return 1024L * Long.parseLong(line.substring(6).replace("kB", "").trim());
+        }
+      }
+    } catch (IOException | NumberFormatException e) {
+      LOGGER.debug("Could not read peak resident set size: {}", e.getMessage());
+    }
+    return -1;
+  }
+
+  /**
+   * Samples the bytes allocated by every live thread. The allocations of a thread that terminates between two samples are only counted up to its last sample.
+   */
+  private static final class AllocationSampler extends Thread {
+
+    private final com.sun.management.ThreadMXBean bean;
+    private final Map<Long, Long> baseline = new HashMap<>();
+    private final Map<Long, Long> latest = new HashMap<>();
+    private volatile boolean running = true;
+
+    private AllocationSampler() {
+      super("extraction-benchmark-allocation-sampler");
+      this.setDaemon(true);
+      final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      this.bean = bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported() ? (com.sun.management.ThreadMXBean) bean : null;
+      if (this.bean != null) {
+        this.bean.setThreadAllocatedMemoryEnabled(true);
+        this.sample(this.baseline);
+      }
+    }
+
+    @Override
+    public void run() {
+      while (this.running && this.bean != null) {
+        this.sample(this.latest);
+        try {
+          Thread.sleep(ALLOCATION_SAMPLE_INTERVAL_MS);
+        } catch (InterruptedException e) {
+          return;
+        }
+      }
+    }
+
+    private void sample(Map<Long, Long> into) {
+      final long[] ids = this.bean.getAllThreadIds();
+      final long[] bytes = this.bean.getThreadAllocatedBytes(ids);
+      synchronized (this) {
+        for (int i = 0; i < ids.length; i++) {
+          if (bytes[i] >= 0) {
+            into.merge(ids[i], bytes[i], Math::max);
+          }
+        }
+      }
+    }
+
+    /**
+     * Stops sampling and returns the bytes allocated since the sampler was created, or -1 if the JVM cannot measure allocations.
+     */
+    private long finish() {
+      this.running = false;
+      this.interrupt();
+      try {
+        this.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (this.bean == null) {
+        return -1;
+      }
+      this.sample(this.latest);
+      synchronized (this) {
+        return this.latest.entrySet().stream().mapToLong(e -> e.getValue() - this.baseline.getOrDefault(e.getKey(), 0L)).sum();
+      }
+    }
+  }
+
+  /**
+   * Report of a benchmark.
+   *
+   * @param backend    Backend that was extracted to.
+   * @param processors Number of processors available to the JVM.
+   * @param threads    Number of threads of the extraction pipeline.
+   * @param corpus     Directory of the corpus.
+   * @param runs       One run per media type.
+   */
+  record Report(DataSource backend, int processors, int threads, String corpus, List<Run> runs) {
+
+  }
+
+  /**
+   * Measurements of the extraction of all items of a media type.
+   *
+   * @param type              {@link MediaType} of the items.
+   * @param extractors        Names of the extractors.
+   * @param objects           Number of extracted objects.
+   * @param segments          Number of extracted segments.
+   * @param wallNanos         Time from the start until the end of the extraction.
+   * @param activeNanos       Time in which any stage was active.
+   * @param objectsPerSecond  Objects per second of active time.
+   * @param segmentsPerSecond Segments per second of active time.
+   * @param allocatedBytes    Bytes allocated by all threads, or -1 if not supported.
+   * @param allocationRate    Bytes allocated per second of active time, or -1 if not supported.
+   * @param peakHeapBytes     Sum of the peak usage of all heap memory pools.
+   * @param peakRssBytes      Peak resident set size of the process, or -1 if not supported.
+   * @param stages            Statistics per stage.
+   */
+  record Run(MediaType type, List<String> extractors, long objects, long segments, long wallNanos, long activeNanos, double objectsPerSecond, double segmentsPerSecond, long allocatedBytes, double allocationRate, long peakHeapBytes, long peakRssBytes, Map<String, ExtractionStageMonitor.Statistics> stages) {
+
+  }
+}
@@ -0,0 +1,68 @@
+package org.vitrivr.cineast.standalone.cli;
+
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.restrictions.Required;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.vitrivr.cineast.core.util.synthetic.SyntheticMedia;
+
+/**
+ * A CLI command that generates a synthetic media corpus from a seed, see {@link SyntheticMedia}. The same seed and options always yield the same corpus, so it can be regenerated on any machine instead of being shipped, for example to compare {@link ExtractionBenchmarkCommand} reports.
+ */
+@Command(name = "generate-corpus", description = "Generates a synthetic media corpus with known ground truth from a seed.")
+public class GenerateCorpusCommand extends AbstractCineastCommand {
+
+  @Required
+  @Option(name = {"-o", "--out"}, title = "Output", description = "Directory the corpus is written to.")
+  private String out;
+
+  @Option(name = {"--seed"}, description = "The seed all media are derived from.")
+  private long seed = 42L;
+
+  @Option(name = {"--images"}, description = "The number of images.")
+  private int images = 100;
+
+  @Option(name = {"--videos"}, description = "The number of videos.")
+  private int videos = 4;
+
+  @Option(name = {"--audio"}, description = "The number of audio items.")
+  private int audio = 20;
+
+  @Option(name = {"--meshes"}, description = "The number of meshes.")
+  private int meshes = 20;
+
+  @Option(name = {"--width"}, description = "The width of images and videos in pixels.")
+  private int width = 320;
+
+  @Option(name = {"--height"}, description = "The height of images and videos in pixels.")
+  private int height = 240;
+
+  @Option(name = {"--frames"}, description = "The number of frames per video.")
+  private int frames = 750;
+
+  @Option(name = {"--frame-rate"}, description = "The frame rate of the videos.")
+  private float frameRate = 25.0f;
+
+  @Option(name = {"--sample-rate"}, description = "The sample rate of the audio items.")
+  private int sampleRate = 44100;
+
+  @Option(name = {"--duration"}, description = "The duration of the audio items in seconds.")
+  private float duration = 10.0f;
+
+  @Override
+  public void execute() {
+    final Path directory = Paths.get(this.out);
+    final SyntheticMedia.Corpus corpus = new SyntheticMedia.Corpus(this.images, this.videos, this.audio, this.meshes, this.width, this.height, this.frames, this.frameRate, this.sampleRate, this.duration);
+    try {
+      final long start = System.currentTimeMillis();
+      final List<SyntheticMedia.Item> items = new SyntheticMedia(this.seed).writeCorpus(directory, corpus);
+      System.out.printf("Generated %d items in %d ms; see '%s' for the ground truth.%n", items.size(), System.currentTimeMillis() - start, directory.resolve(SyntheticMedia.MANIFEST));
+    } catch (IOException e) {
+      System.err.printf("Could not write corpus to '%s' due to an IO error.%n", directory);
+      e.printStackTrace();
+    }
+  }
+}
@@ -9,13 +9,16 @@
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Properties;
 import java.util.SplittableRandom;
 import org.vitrivr.cineast.core.config.ReadableQueryConfig.Distance;
@@ -23,11 +26,13 @@
 
 /**
  * Runs a Polypheny DB benchmark based on a feature category.
+ * <p>
+ * By default, a traditional Cineast workload is compared to a JOIN-based one. With {@code --knn}, kNN queries with the vector inlined as SQL literal are compared to queries with the vector bound as array parameter, both with and without reusing the prepared statement. With {@code --url} and {@code --driver}, the benchmark can be run against any local JDBC database that provides Polypheny DB's {@code distance} function.
  *
  * @author Ralph Gasser
  * @version 1.0.0
  */
-@Command(name = "polypheny-benchmark", description = "Drop a specific table")
+@Command(name = "polypheny-benchmark", description = "Runs a Polypheny DB benchmark based on a feature category.")
 public class PolyphenyBenchmarkCommand extends AbstractCineastCommand {
 
 
@@ -37,12 +42,20 @@ public class PolyphenyBenchmarkCommand extends AbstractCineastCommand {
   private final SplittableRandom random = new SplittableRandom();
   @Option(name = {"--host"}, description = "The host IP or name where Polypheny DB runs.")
   private String host = "localhost";
+  @Option(name = {"--url"}, description = "The JDBC URL of the database to benchmark; overrides --host.")
+  private String url;
+  @Option(name = {"--driver"}, description = "The class name of the JDBC driver to use.")
+  private String driver = "org.polypheny.jdbc.Driver";
   @Option(name = {"--schema"}, description = "The name of the schema to run Polypheny DB tests against.")
   private String schema = "cineast";
   @Option(name = {"--limit"}, description = "The number of features to retrieve (the k in kNN).")
   private int limit = 500;
   @Option(name = {"--repeat"}, description = "The number of repetitions.")
   private int repeat = 5;
+  @Option(name = {"--knn"}, description = "Runs the kNN statement workload instead of the traditional and JOIN workloads.")
+  private boolean knn = false;
+  @Option(name = {"--batch"}, description = "The number of query vectors per repetition of the kNN statement workload.")
+  private int batch = 10;
   @Option(name = {"--table"}, description = "The feature table to benchmark.")
   @Required
   private String table;
@@ -81,10 +94,11 @@ private boolean prepare() {
     /* Try to instantiate Polypheny driver. */
     try {
       if (this.connection == null) {
-        Class.forName("org.polypheny.jdbc.Driver"); /* Make sure, driver was loaded. */
+        Class.forName(this.driver); /* Make sure, driver was loaded. */
         final Properties properties = new Properties();
         properties.put("username", "pa"); /* TODO: Could be configurable :-) */
-        this.connection = DriverManager.getConnection(String.format("jdbc:polypheny:http://%s/", this.host), properties);
+        final String url = this.url != null ? this.url : String.format("jdbc:polypheny:http://%s/", this.host);
+        this.connection = DriverManager.getConnection(url, properties);
       }
     } catch (ClassNotFoundException | SQLException e) {
       System.err.println("Preparation failed because Cineast failed to initialize JDBC connection to Polypheny DB due to an error: " + e.getMessage());
@@ -96,7 +110,7 @@ private boolean prepare() {
       final Path path = Paths.get(this.out);
       if (!Files.exists(path)) {
         try (final BufferedWriter writer = Files.newBufferedWriter(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-          writer.write("r,schema,table,d,limit,traditional_ms,join_ms");
+          writer.write(this.knn ? "r,schema,table,d,limit,batch,literal_ms,bound_ms,cached_ms" : "r,schema,table,d,limit,traditional_ms,join_ms");
           writer.newLine();
         }
       }
@@ -136,33 +150,16 @@ protected void execute() {
         return;
       }
 
-      /* Warmup. */
-      this.executeTraditional(this.randomVector());
-      this.executeJoin(this.randomVector());
-
       /* Executes workloads. */
       final Path out = Paths.get(this.out);
-
       try (final BufferedWriter writer = Files.newBufferedWriter(out, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-
-        float duration_traditional_s = 0.0f;
-        float duration_join_s = 0.0f;
-
-        for (int r = 0; r < this.repeat; r++) {
-          final float[] query = this.randomVector();
-          final long duration_traditional = this.executeTraditional(query);
-          final long duration_join = this.executeJoin(query);
-          writer.write(String.format("%d,%s,%s,%d,%d,%d,%d", r, this.schema, this.table, this.dimensionality, this.limit, duration_traditional, duration_join));
-          writer.newLine();
-          duration_traditional_s += (duration_traditional / 1000.0f);
-          duration_join_s += (duration_join / 1000.0f);
+        if (this.knn) {
+          this.executeKnnWorkloads(writer);
+        } else {
+          this.executeJoinWorkloads(writer);
         }
-        System.out.println("Traditional workload on 'cineast." + this.table + "' (d=" + this.dimensionality + ") took " + (duration_traditional_s / this.repeat) + "s on average (" + this.repeat + " repetitions).");
-        System.out.println("JOIN workload on 'cineast." + this.table + "' (d=" + this.dimensionality + ") took " + (duration_join_s / this.repeat) + "s on average (" + this.repeat + " repetitions).");
-
       } catch (IOException e) {
         System.err.println("Failed to open output file: " + e.getMessage());
-        return;
       }
 
     } finally {
@@ -176,6 +173,59 @@ protected void execute() {
     }
   }
 
+  /**
+   * Compares the traditional Cineast workload to the JOIN-based workload.
+   */
+  private void executeJoinWorkloads(BufferedWriter writer) throws IOException {
+    /* Warmup. */
+    this.executeTraditional(this.randomVector());
+    this.executeJoin(this.randomVector());
+
+    float duration_traditional_s = 0.0f;
+    float duration_join_s = 0.0f;
+
+    for (int r = 0; r < this.repeat; r++) {
+      final float[] query = this.randomVector();
+      final long duration_traditional = this.executeTraditional(query);
+      final long duration_join = this.executeJoin(query);
+      writer.write(String.format("%d,%s,%s,%d,%d,%d,%d", r, this.schema, this.table, this.dimensionality, this.limit, duration_traditional, duration_join));
+      writer.newLine();
+      duration_traditional_s += (duration_traditional / 1000.0f);
+      duration_join_s += (duration_join / 1000.0f);
+    }
+    System.out.println("Traditional workload on 'cineast." + this.table + "' (d=" + this.dimensionality + ") took " + (duration_traditional_s / this.repeat) + "s on average (" + this.repeat + " repetitions).");
+    System.out.println("JOIN workload on 'cineast." + this.table + "' (d=" + this.dimensionality + ") took " + (duration_join_s / this.repeat) + "s on average (" + this.repeat + " repetitions).");
+  }
+
+  /**
+   * Compares kNN queries with inlined vectors to kNN queries with bound vectors, with and without reusing the prepared statement.
+   */
+  private void executeKnnWorkloads(BufferedWriter writer) throws IOException {
+    /* Warmup. */
+    this.executeLiteral(this.randomVectors());
+    this.executeBound(this.randomVectors());
+    this.executeCached(this.randomVectors());
+
+    float duration_literal_s = 0.0f;
+    float duration_bound_s = 0.0f;
+    float duration_cached_s = 0.0f;
+
+    for (int r = 0; r < this.repeat; r++) {
+      final List<float[]> queries = this.randomVectors();
+      final long duration_literal = this.executeLiteral(queries);
+      final long duration_bound = this.executeBound(queries);
+      final long duration_cached = this.executeCached(queries);
+      writer.write(String.format("%d,%s,%s,%d,%d,%d,%d,%d,%d", r, this.schema, this.table, this.dimensionality, this.limit, this.batch, duration_literal, duration_bound, duration_cached));
+      writer.newLine();
+      duration_literal_s += (duration_literal / 1000.0f);
+      duration_bound_s += (duration_bound / 1000.0f);
+      duration_cached_s += (duration_cached / 1000.0f);
+    }
+    System.out.println("Literal kNN workload on 'cineast." + this.table + "' (d=" + this.dimensionality + ", batch=" + this.batch + ") took " + (duration_literal_s / this.repeat) + "s on average (" + this.repeat + " repetitions).");
+    System.out.println("Bound kNN workload on 'cineast." + this.table + "' (d=" + this.dimensionality + ", batch=" + this.batch + ") took " + (duration_bound_s / this.repeat) + "s on average (" + this.repeat + " repetitions).");
+    System.out.println("Cached kNN workload on 'cineast." + this.table + "' (d=" + this.dimensionality + ", batch=" + this.batch + ") took " + (duration_cached_s / this.repeat) + "s on average (" + this.repeat + " repetitions).");
+  }
+
   /**
    * Executes a traditional Cineast workload, which first fetches the required features using NNS and then fetches the multimedia object and segments in a second query.
    */
@@ -254,6 +304,102 @@ private long executeJoin(float[] query) {
     return System.currentTimeMillis() - start;
   }
 
+  /**
+   * Executes one kNN query per vector with the vector inlined as SQL literal, preparing a new statement for every query.
+   */
+  private long executeLiteral(List<float[]> queries) {
+    final long start = System.currentTimeMillis();
+    for (float[] query : queries) {
+      try (final PreparedStatement statement = this.connection.prepareStatement(this.knnQuery(toVectorString(query)))) {
+        this.drain(statement);
+      } catch (SQLException e) {
+        System.err.println("Error occurred during query execution in: " + e.getMessage());
+        return -1L;
+      }
+    }
+    return System.currentTimeMillis() - start;
+  }
+
+  /**
+   * Executes one kNN query per vector with the vector bound as array parameter, preparing a new statement for every query.
+   */
+  private long executeBound(List<float[]> queries) {
+    final long start = System.currentTimeMillis();
+    for (float[] query : queries) {
+      try (final PreparedStatement statement = this.connection.prepareStatement(this.knnQuery("?"))) {
+        statement.setArray(1, this.toArray(query));
+        this.drain(statement);
+      } catch (SQLException e) {
+        System.err.println("Error occurred during query execution in: " + e.getMessage());
+        return -1L;
+      }
+    }
+    return System.currentTimeMillis() - start;
+  }
+
+  /**
+   * Executes one kNN query per vector with the vector bound as array parameter, reusing a single prepared statement for all queries.
+   */
+  private long executeCached(List<float[]> queries) {
+    final long start = System.currentTimeMillis();
+    try (final PreparedStatement statement = this.connection.prepareStatement(this.knnQuery("?"))) {
+      for (float[] query : queries) {
+        statement.setArray(1, this.toArray(query));
+        this.drain(statement);
+      }
+    } catch (SQLException e) {
+      System.err.println("Error occurred during query execution in: " + e.getMessage());
+      return -1L;
+    }
+    return System.currentTimeMillis() - start;
+  }
+
+  /**
+   * Returns the kNN query on the benchmarked table.
+   *
+   * @param vector The query vector, either as literal or as placeholder.
+   * @return SQL of the query.
+   */
+  private String knnQuery(String vector) {
+    return String.format("SELECT id, distance(feature, %s, 'L2') as dist FROM %s.%s ORDER BY dist ASC LIMIT %d", vector, this.schema, this.table, this.limit);
+  }
+
+  /**
+   * Executes a query and reads all resulting ids.
+   */
+  private void drain(PreparedStatement statement) throws SQLException {
+    final LinkedList<String> segmentids = new LinkedList<>();
+    try (final ResultSet rs = statement.executeQuery()) {
+      while (rs.next()) {
+        segmentids.add(rs.getString(1));
+      }
+    }
+  }
+
+  /**
+   * Converts a query vector into a JDBC {@link Array}.
+   */
+  private Array toArray(float[] vector) throws SQLException {
+    final Float[] boxed = new Float[vector.length];
+    for (int i = 0; i < vector.length; i++) {
+      boxed[i] = vector[i];
+    }
+    return this.connection.createArrayOf("REAL", boxed);
+  }
+
+  /**
+   * Generates and returns a batch of new random queries.
+   *
+   * @return List of float arrays representing the new random queries.
+   */
+  private List<float[]> randomVectors() {
+    final List<float[]> vectors = new ArrayList<>(this.batch);
+    for (int i = 0; i < this.batch; i++) {
+      vectors.add(this.randomVector());
+    }
+    return vectors;
+  }
+
   /**
    * Generates and returns a new random query.
    *
@@ -38,6 +38,36 @@ public final class APIConfig {
   private boolean enableCLI = false;
   private int threadPoolSize = 8;
 
+  /**
+   * Whether the retriever categories and weights are reloaded whenever the config file changes.
+   */
+  private boolean enableConfigReload = false;
+
+  /**
+   * Number of threads executing WebSocket queries.
+   */
+  private int websocketQueryThreads = 8;
+  /**
+   * Maximum number of queries executed concurrently for a single WebSocket session.
+   */
+  private int websocketMaxQueriesPerSession = 2;
+  /**
+   * Maximum number of queries that may wait for admission (across all sessions). Further queries are rejected.
+   */
+  private int websocketQueryQueueSize = 64;
+  /**
+   * Time in milliseconds a query may wait for admission before it is rejected.
+   */
+  private int websocketAdmissionTimeout = 10_000;
+  /**
+   * Maximum number of messages waiting to be sent to a single WebSocket session. Producers block once it is reached.
+   */
+  private int websocketMaxPendingMessages = 64;
+  /**
+   * Time in milliseconds a producer blocks on a full outbound queue before the message is dropped.
+   */
+  private int websocketSendTimeout = 30_000;
+
   private boolean serveContent = false;
 
   /**
@@ -51,6 +81,22 @@ public final class APIConfig {
   private boolean serveUI = false;
   private String sessionExtractionConfigLocation = "extraction_config.json";
   private String thumbnailLocation = "";
+  /**
+   * If true, thumbnails are resolved against an in-memory index of {@link #thumbnailLocation} that is kept up to date by a file watcher.
+   */
+  private boolean indexThumbnails = false;
+  /**
+   * Optional file the thumbnail index is persisted to. Empty for an in-memory index only.
+   */
+  private String thumbnailIndexLocation = "";
+  /**
+   * Size of the in-memory cache for served content in MB. 0 disables the cache.
+   */
+  private int contentCacheSize = 64;
+  /**
+   * Size of the largest file that is kept in the content cache in KB.
+   */
+  private int contentCacheMaxFileSize = 256;
   private String objectLocation = "";
   private String uiLocation = "";
 
@@ -191,6 +237,15 @@ public void setEnableCLI(boolean enableCLI) {
     this.enableCLI = enableCLI;
   }
 
+  @JsonProperty
+  public boolean getEnableConfigReload() {
+    return this.enableConfigReload;
+  }
+
+  public void setEnableConfigReload(boolean enableConfigReload) {
+    this.enableConfigReload = enableConfigReload;
+  }
+
   @JsonProperty
   public int getThreadPoolSize() {
     return threadPoolSize;
@@ -200,6 +255,69 @@ public void setThreadPoolSize(int threadPoolSize) {
     this.threadPoolSize = threadPoolSize;
   }
 
+  @JsonProperty
+  public int getWebsocketQueryThreads() {
+    return websocketQueryThreads;
+  }
+
+  public void setWebsocketQueryThreads(int websocketQueryThreads) {
+    if (websocketQueryThreads < 1) {
+      throw new IllegalArgumentException("websocketQueryThreads must be > 0");
+    }
+    this.websocketQueryThreads = websocketQueryThreads;
+  }
+
+  @JsonProperty
+  public int getWebsocketMaxQueriesPerSession() {
+    return websocketMaxQueriesPerSession;
+  }
+
+  public void setWebsocketMaxQueriesPerSession(int websocketMaxQueriesPerSession) {
+    if (websocketMaxQueriesPerSession < 1) {
+      throw new IllegalArgumentException("websocketMaxQueriesPerSession must be > 0");
+    }
+    this.websocketMaxQueriesPerSession = websocketMaxQueriesPerSession;
+  }
+
+  @JsonProperty
+  public int getWebsocketQueryQueueSize() {
+    return websocketQueryQueueSize;
+  }
+
+  public void setWebsocketQueryQueueSize(int websocketQueryQueueSize) {
+    this.websocketQueryQueueSize = websocketQueryQueueSize;
+  }
+
+  @JsonProperty
+  public int getWebsocketAdmissionTimeout() {
+    return websocketAdmissionTimeout;
+  }
+
+  public void setWebsocketAdmissionTimeout(int websocketAdmissionTimeout) {
+    this.websocketAdmissionTimeout = websocketAdmissionTimeout;
+  }
+
+  @JsonProperty
+  public int getWebsocketMaxPendingMessages() {
+    return websocketMaxPendingMessages;
+  }
+
+  public void setWebsocketMaxPendingMessages(int websocketMaxPendingMessages) {
+    if (websocketMaxPendingMessages < 1) {
+      throw new IllegalArgumentException("websocketMaxPendingMessages must be > 0");
+    }
+    this.websocketMaxPendingMessages = websocketMaxPendingMessages;
+  }
+
+  @JsonProperty
+  public int getWebsocketSendTimeout() {
+    return websocketSendTimeout;
+  }
+
+  public void setWebsocketSendTimeout(int websocketSendTimeout) {
+    this.websocketSendTimeout = websocketSendTimeout;
+  }
+
   @JsonProperty
   public String getThumbnailLocation() {
     return thumbnailLocation;
@@ -209,6 +327,42 @@ public void setThumbnailLocation(String thumbnailLocation) {
     this.thumbnailLocation = thumbnailLocation;
   }
 
+  @JsonProperty
+  public boolean getIndexThumbnails() {
+    return indexThumbnails;
+  }
+
+  public void setIndexThumbnails(boolean indexThumbnails) {
+    this.indexThumbnails = indexThumbnails;
+  }
+
+  @JsonProperty
+  public String getThumbnailIndexLocation() {
+    return thumbnailIndexLocation;
+  }
+
+  public void setThumbnailIndexLocation(String thumbnailIndexLocation) {
+    this.thumbnailIndexLocation = thumbnailIndexLocation;
+  }
+
+  @JsonProperty
+  public int getContentCacheSize() {
+    return contentCacheSize;
+  }
+
+  public void setContentCacheSize(int contentCacheSize) {
+    this.contentCacheSize = contentCacheSize;
+  }
+
+  @JsonProperty
+  public int getContentCacheMaxFileSize() {
+    return contentCacheMaxFileSize;
+  }
+
+  public void setContentCacheMaxFileSize(int contentCacheMaxFileSize) {
+    this.contentCacheMaxFileSize = contentCacheMaxFileSize;
+  }
+
   @JsonProperty
   public String getObjectLocation() {
     return objectLocation;
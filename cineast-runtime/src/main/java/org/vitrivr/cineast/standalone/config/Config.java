@@ -2,10 +2,12 @@
 
 import static org.vitrivr.cineast.core.util.CineastConstants.DEFAULT_CONFIG_PATH;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.io.File;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.vitrivr.cineast.core.config.CacheConfig;
@@ -13,6 +15,8 @@
 import org.vitrivr.cineast.core.config.DecoderConfig;
 import org.vitrivr.cineast.core.data.MediaType;
 import org.vitrivr.cineast.core.data.raw.CachedDataFactory;
+import org.vitrivr.cineast.core.db.dao.reader.FeatureVectorCache;
+import org.vitrivr.cineast.core.db.dao.reader.MediaSegmentCache;
 import org.vitrivr.cineast.core.util.json.JacksonJsonProvider;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -21,9 +25,9 @@ public class Config {
   private static final Logger LOGGER = LogManager.getLogger();
 
   /**
-   * Global, shared instance of the Config object. Gets loading during application startup.
+   * Global, shared snapshot of the Config object. Gets loaded during application startup and is only ever replaced as a whole (see {@link #replaceRetriever(RetrievalRuntimeConfig)}), so reading it requires no lock.
    */
-  private volatile static Config sharedConfig;
+  private static final AtomicReference<Config> SHARED_CONFIG = new AtomicReference<>();
 
   private APIConfig api;
   private DatabaseConfig database;
@@ -34,15 +38,39 @@ public class Config {
   private MonitoringConfig monitoring = new MonitoringConfig();
 
   /**
-   * Accessor for shared (i.e. application wide) configuration.
+   * Version of this snapshot; starts at 1 for the first shared Config and is incremented whenever a new snapshot is shared.
+   */
+  @JsonIgnore
+  private long version = 0;
+
+  /**
+   * Accessor for shared (i.e. application wide) configuration. Lock-free unless the config has not been loaded yet.
+   * <p>
+   * Callers that need consistent values over a longer operation, e.g. a query, should read the snapshot once and keep it, since it may be replaced at any time.
    *
    * @return Currently shared instance of Config.
    */
-  public synchronized static Config sharedConfig() {
-    if (sharedConfig == null) {
-      loadConfig(DEFAULT_CONFIG_PATH);
+  public static Config sharedConfig() {
+    final Config config = SHARED_CONFIG.get();
+    if (config != null) {
+      return config;
+    }
+    synchronized (Config.class) {
+      if (SHARED_CONFIG.get() == null) {
+        loadConfig(DEFAULT_CONFIG_PATH);
+      }
+      return SHARED_CONFIG.get();
     }
-    return sharedConfig;
+  }
+
+  /**
+   * Reads a config file without sharing it.
+   *
+   * @param name Name of the config file.
+   * @return Config or null, if the file could not be read.
+   */
+  public static Config readConfig(String name) {
+    return (new JacksonJsonProvider()).toObject(new File(name), Config.class);
   }
 
   /**
@@ -51,7 +79,7 @@ public synchronized static Config sharedConfig() {
    * @param name Name of the config file.
    */
   public static Config loadConfig(String name) {
-    final Config config = (new JacksonJsonProvider()).toObject(new File(name), Config.class);
+    final Config config = readConfig(name);
     if (config == null) {
       LOGGER.warn("Could not read config file '{}'.", name);
       return null;
@@ -64,12 +92,50 @@ public static Config loadConfig(String name) {
   }
 
   public static void initSharedConfig(Config config) {
-    sharedConfig = config;
+    SHARED_CONFIG.getAndUpdate(previous -> {
+      config.version = previous == null ? 1 : previous.version + 1;
+      return config;
+    });
     if (config.cache != null) {
       CachedDataFactory.configureDefault(config.cache);
+      FeatureVectorCache.configureDefault(config.cache);
+      MediaSegmentCache.configureDefault(config.cache);
     }
   }
 
+  /**
+   * Atomically shares a new snapshot of the current Config, in which the {@link RetrievalRuntimeConfig} has been replaced. All other sections are taken over from the current snapshot.
+   * <p>
+   * Queries that have already obtained their retrievers and weights are not affected. The size of the retrieval thread pool and task queue are only read upon startup.
+   *
+   * @param retriever The new {@link RetrievalRuntimeConfig}.
+   * @return The new snapshot.
+   */
+  public static Config replaceRetriever(RetrievalRuntimeConfig retriever) {
+    sharedConfig();
+    return SHARED_CONFIG.updateAndGet(previous -> {
+      final Config next = new Config();
+      next.api = previous.api;
+      next.database = previous.database;
+      next.retriever = retriever;
+      next.extractor = previous.extractor;
+      next.cache = previous.cache;
+      next.decoders = previous.decoders;
+      next.monitoring = previous.monitoring;
+      next.version = previous.version + 1;
+      return next;
+    });
+  }
+
+  /**
+   * Returns the version of this snapshot.
+   *
+   * @return Version, 0 if this Config has never been shared.
+   */
+  @JsonIgnore
+  public long getVersion() {
+    return this.version;
+  }
 
   @JsonProperty
   public APIConfig getApi() {
@@ -0,0 +1,210 @@
+package org.vitrivr.cineast.standalone.config;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.vitrivr.cineast.core.util.LogHelper;
+import org.vitrivr.cineast.standalone.monitoring.ConfigMonitor;
+
+/**
+ * Watches a config file and, whenever it changes, validates it and swaps the {@link RetrievalRuntimeConfig} (i.e. the retriever categories and weights) of the shared {@link Config} for the new one, see {@link Config#replaceRetriever(RetrievalRuntimeConfig)}.
+ * <p>
+ * All other sections of the config file are only read upon startup. Queries that are running keep the retrievers and weights they started with. An invalid file is rejected as a whole and the shared config remains unchanged.
+ */
+public final class ConfigReloader implements AutoCloseable {
+
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * Time in milliseconds to wait for further changes after a change has been detected, since editors usually write a file in several steps.
+   */
+  private static final long SETTLE_TIME = 200;
+
+  /**
+   * Outcome of the last reload.
+   */
+  public enum Status {
+    /**
+     * The file has not changed since it was loaded.
+     */
+    NONE,
+    /**
+     * The new retriever config was shared.
+     */
+    RELOADED,
+    /**
+     * The file could not be parsed or failed validation.
+     */
+    INVALID,
+    /**
+     * The file could not be read.
+     */
+    FAILED
+  }
+
+  private final Path file;
+
+  private final WatchService watcher;
+
+  private final Thread thread;
+
+  /**
+   * Content of the file at the last reload, to ignore events that do not change it.
+   */
+  private byte[] content;
+
+  private volatile Status status = Status.NONE;
+
+  private volatile List<String> errors = List.of();
+
+  private ConfigReloader(Path file) throws IOException {
+    this.file = file.toAbsolutePath().normalize();
+    this.content = Files.readAllBytes(this.file);
+    this.watcher = this.file.getFileSystem().newWatchService();
+    this.file.getParent().register(this.watcher, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+    this.thread = new Thread(this::watch, "config-reloader");
+    this.thread.setDaemon(true);
+  }
+
+  /**
+   * Starts watching the provided config file.
+   *
+   * @param name Name of the config file.
+   * @return The running {@link ConfigReloader}.
+   * @throws IOException If the file cannot be read or watched.
+   */
+  public static ConfigReloader start(String name) throws IOException {
+    final ConfigReloader reloader = new ConfigReloader(Path.of(name));
+    reloader.thread.start();
+    LOGGER.info("Watching config file '{}' for changes to the retriever configuration.", reloader.file);
+    return reloader;
+  }
+
+  /**
+   * Reads and validates the config file and, if it is valid, shares its {@link RetrievalRuntimeConfig}.
+   *
+   * @return Outcome of the reload.
+   */
+  public synchronized Status reload() {
+    final byte[] current;
+    try {
+      current = Files.readAllBytes(this.file);
+    } catch (IOException e) {
+      LOGGER.warn("Could not read config file '{}': {}", this.file, LogHelper.getStackTrace(e));
+      return this.report(Status.FAILED, List.of(e.getMessage()));
+    }
+    if (Arrays.equals(current, this.content)) {
+      return this.status;
+    }
+
+    final Config config = Config.readConfig(this.file.toString());
+    final List<String> errors = validate(config);
+    if (!errors.isEmpty()) {
+      LOGGER.warn("Rejected changes to config file '{}': {}", this.file, String.join("; ", errors));
+      return this.report(Status.INVALID, errors);
+    }
+    this.content = current;
+    final Config shared = Config.replaceRetriever(config.getRetriever());
+    LOGGER.info("Reloaded retriever configuration from '{}' (version {}).", this.file, shared.getVersion());
+    return this.report(Status.RELOADED, List.of());
+  }
+
+  /**
+   * Validates the retriever configuration of a newly read {@link Config}.
+   *
+   * @param config The {@link Config}; may be null if it could not be parsed.
+   * @return List of errors, empty if the config is valid.
+   */
+  static List<String> validate(Config config) {
+    final List<String> errors = new ArrayList<>();
+    if (config == null) {
+      errors.add("The file could not be parsed.");
+      return errors;
+    }
+    if (config.getRetriever() == null) {
+      errors.add("The retriever section is missing.");
+      return errors;
+    }
+    for (Map.Entry<String, List<RetrieverConfig>> category : config.getRetriever().getRetrieverConfigs().entrySet()) {
+      if (category.getValue() == null) {
+        errors.add("Category '" + category.getKey() + "' has no retrievers.");
+        continue;
+      }
+      for (RetrieverConfig retriever : category.getValue()) {
+        if (retriever.getRetrieverClass() == null) {
+          errors.add("Unknown retriever '" + retriever.getRetrieverClassName() + "' in category '" + category.getKey() + "'.");
+        }
+        if (!Double.isFinite(retriever.getWeight()) || retriever.getWeight() < 0.0) {
+          errors.add("Invalid weight " + retriever.getWeight() + " of retriever '" + retriever.getRetrieverClassName() + "' in category '" + category.getKey() + "'.");
+        }
+      }
+    }
+    return errors;
+  }
+
+  /**
+   * @return Outcome of the last reload.
+   */
+  public Status getStatus() {
+    return this.status;
+  }
+
+  /**
+   * @return Validation errors of the last reload, empty unless {@link #getStatus()} is {@link Status#INVALID} or {@link Status#FAILED}.
+   */
+  public List<String> getErrors() {
+    return this.errors;
+  }
+
+  @Override
+  public void close() {
+    try {
+      this.watcher.close();
+    } catch (IOException e) {
+      LOGGER.warn("Could not close watch service: {}", LogHelper.getStackTrace(e));
+    }
+  }
+
+  private Status report(Status status, List<String> errors) {
+    this.status = status;
+    this.errors = errors;
+    ConfigMonitor.reportReload(status, Config.sharedConfig().getVersion());
+    return status;
+  }
+
+  private void watch() {
+    try {
+      while (true) {
+        final WatchKey key = this.watcher.take();
+        boolean changed = false;
+        do {
+          for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || this.file.getFileName().equals(event.context())) {
+              changed = true;
+            }
+          }
+          key.reset();
+          Thread.sleep(SETTLE_TIME);
+        } while (this.watcher.poll() != null);
+        if (changed) {
+          this.reload();
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      LOGGER.debug("Stopped watching config file '{}'.", this.file);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package org.vitrivr.cineast.standalone.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Configures how the input folder of an extraction is enumerated.
+ *
+ * @see org.vitrivr.cineast.standalone.run.path.DirectoryCrawler
+ */
+public final class CrawlerConfig {
+
+  /**
+   * Number of threads listing directories in parallel. Defaults to the number of available processors.
+   */
+  private int threads = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Number of items that are enumerated ahead of the extraction.
+   */
+  private int prefetch = 1024;
+
+  /**
+   * Whether the entries of every directory are handed out in lexicographic order, which makes the order of items reproducible across runs.
+   */
+  private boolean ordered = false;
+
+  /**
+   * Whether files with an unknown MIME type (by file extension) are skipped during enumeration.
+   */
+  private boolean detectMimeType = false;
+
+  @JsonCreator
+  public CrawlerConfig() {
+  }
+
+  @JsonProperty
+  public int getThreads() {
+    return threads;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  @JsonProperty
+  public int getPrefetch() {
+    return prefetch;
+  }
+
+  public void setPrefetch(int prefetch) {
+    this.prefetch = prefetch;
+  }
+
+  @JsonProperty
+  public boolean getOrdered() {
+    return ordered;
+  }
+
+  public void setOrdered(boolean ordered) {
+    this.ordered = ordered;
+  }
+
+  @JsonProperty
+  public boolean getDetectMimeType() {
+    return detectMimeType;
+  }
+
+  public void setDetectMimeType(boolean detectMimeType) {
+    this.detectMimeType = detectMimeType;
+  }
+}
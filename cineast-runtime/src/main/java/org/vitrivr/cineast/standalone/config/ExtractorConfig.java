@@ -23,6 +23,16 @@ public class ExtractorConfig {
    */
   private HashMap<String, String> properties = new HashMap<>();
 
+  /**
+   * Maximum number of segments that may wait for the Extractor. Falls back to the task queue size of the extraction pipeline if not set.
+   */
+  private Integer queueSize;
+
+  /**
+   * Maximum number of threads that may run the Extractor concurrently. Set to 1 for extractors that are not thread-safe. Falls back to the thread pool size of the extraction pipeline if not set.
+   */
+  private Integer threads;
+
   @JsonProperty(required = true)
   public String getName() {
     return name;
@@ -41,6 +51,32 @@ public void setProperties(HashMap<String, String> properties) {
     this.properties = properties;
   }
 
+  @JsonProperty
+  public Integer getQueueSize() {
+    return queueSize;
+  }
+
+  public void setQueueSize(Integer queueSize) {
+    this.queueSize = queueSize;
+  }
+
+  @JsonProperty
+  public Integer getThreads() {
+    return threads;
+  }
+
+  public void setThreads(Integer threads) {
+    this.threads = threads;
+  }
+
+  /**
+   * Checks whether this config describes the given {@link Extractor}, i.e. whether its name matches the simple-name or the FQN of the extractor's class.
+   */
+  @JsonIgnore
+  public boolean describes(Extractor extractor) {
+    return this.name != null && (this.name.equals(extractor.getClass().getSimpleName()) || this.name.equals(extractor.getClass().getName()));
+  }
+
   @JsonIgnore
   public Extractor getExtractor() {
     return ReflectionHelper.newExtractor(this.name);
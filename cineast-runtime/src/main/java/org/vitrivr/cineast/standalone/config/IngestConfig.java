@@ -10,6 +10,7 @@
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.vitrivr.cineast.core.config.CacheConfig;
 import org.vitrivr.cineast.core.config.DatabaseConfig;
 import org.vitrivr.cineast.core.config.IdConfig;
@@ -379,6 +380,36 @@ public Integer segmentQueueSize() {
     return this.pipeline.getShotQueueSize();
   }
 
+  /**
+   * Returns the maximum number of segments that may wait for the given {@link Extractor}, as configured in its {@link ExtractorConfig} or the size of the task queue.
+   *
+   * @return Maximum number of queued segments.
+   */
+  @Override
+  public int extractorQueueSize(Extractor extractor) {
+    return this.extractorConfig(extractor).map(ExtractorConfig::getQueueSize).orElse(this.taskQueueSize());
+  }
+
+  /**
+   * Returns the maximum number of threads that may run the given {@link Extractor} concurrently, as configured in its {@link ExtractorConfig} or the size of the thread pool. Extractors that are not thread-safe run on a single thread regardless of the configuration.
+   *
+   * @return Maximum number of threads.
+   */
+  @Override
+  public int extractorThreads(Extractor extractor) {
+    if (!extractor.isThreadSafe()) {
+      return 1;
+    }
+    return this.extractorConfig(extractor).map(ExtractorConfig::getThreads).orElse(this.threadPoolSize());
+  }
+
+  /**
+   * Returns the {@link ExtractorConfig} of an extractor or exporter that has been instantiated from this {@link IngestConfig}.
+   */
+  private Optional<ExtractorConfig> extractorConfig(Extractor extractor) {
+    return Stream.concat(this.extractors.stream(), this.exporters.stream()).filter(c -> c.describes(extractor)).findFirst();
+  }
+
   /**
    * Returns the instance of {@link CacheConfig}.
    *
@@ -15,6 +15,8 @@ public class InputConfig {
 
   private IdConfig id = new IdConfig();
 
+  private CrawlerConfig crawler = new CrawlerConfig();
+
   @JsonProperty
   public String getName() {
     return name;
@@ -60,6 +62,15 @@ public void setDepth(Integer depth) {
     this.depth = depth;
   }
 
+  @JsonProperty
+  public CrawlerConfig getCrawler() {
+    return crawler;
+  }
+
+  public void setCrawler(CrawlerConfig crawler) {
+    this.crawler = crawler;
+  }
+
   @JsonProperty
   public IIIFConfig getIiif() {
     return iiif;
@@ -6,6 +6,7 @@
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import org.apache.logging.log4j.LogManager;
@@ -149,6 +150,17 @@ public List<String> getRetrieverCategories() {
     return _return;
   }
 
+  @JsonProperty("features")
+  public void setRetrieverCategories(HashMap<String, List<RetrieverConfig>> retrieverCategories) {
+    this.retrieverCategories = retrieverCategories;
+  }
+
+  /**
+   * Returns the {@link RetrieverConfig}s per category, as used for validation.
+   */
+  Map<String, List<RetrieverConfig>> getRetrieverConfigs() {
+    return this.retrieverCategories;
+  }
 
   public ObjectDoubleHashMap<Retriever> getRetrieversByCategory(String category) {
     List<RetrieverConfig> list = this.retrieverCategories.get(category);
@@ -0,0 +1,48 @@
+package org.vitrivr.cineast.standalone.monitoring;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.vitrivr.cineast.standalone.config.Config;
+import org.vitrivr.cineast.standalone.config.ConfigReloader;
+
+/**
+ * Reports the version of the shared {@link Config} and the outcome of config reloads.
+ */
+public class ConfigMonitor {
+
+  private static final Logger LOGGER = LogManager.getLogger();
+  private static boolean initalized = false;
+  private static Gauge version;
+  private static Counter reloads;
+
+  public static void init() {
+    if (initalized) {
+      LOGGER.info("Already initalized, Returning");
+      return;
+    }
+    if (!Config.sharedConfig().getMonitoring().enablePrometheus) {
+      LOGGER.warn("Prometheus not enabled, returning");
+      return;
+    }
+    LOGGER.info("Initalizing Prometheus Config Monitor");
+    version = Gauge.build().name("cineast_config_version")
+        .help("Version of the shared config, incremented with every reload").register();
+    reloads = Counter.build().name("cineast_config_reloads")
+        .help("Number of config reloads by outcome")
+        .labelNames("Status").register();
+    version.set(Config.sharedConfig().getVersion());
+    initalized = true;
+  }
+
+  /**
+   * You can call this method without worrying if prometheus support is enabled
+   */
+  public static void reportReload(ConfigReloader.Status status, long configVersion) {
+    if (version != null && reloads != null) {
+      reloads.labels(status.name()).inc();
+      version.set(configVersion);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package org.vitrivr.cineast.standalone.monitoring;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the duration of every pass through a stage of the extraction, such as decoding a frame or extracting a feature from a segment. Unlike the {@link PrometheusExtractionTaskMonitor}, it keeps every sample, so exact percentiles can be reported at the end of a run; it is therefore only meant for benchmarks and disabled by default, in which case recording does nothing.
+ */
+public final class ExtractionStageMonitor {
+
+  private static final ConcurrentHashMap<String, Stage> STAGES = new ConcurrentHashMap<>();
+
+  private static volatile boolean enabled = false;
+
+  private ExtractionStageMonitor() {
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Enables or disables recording. Samples recorded so far are kept.
+   */
+  public static void enable(boolean enable) {
+    enabled = enable;
+  }
+
+  /**
+   * Discards all samples recorded so far.
+   */
+  public static void reset() {
+    STAGES.clear();
+  }
+
+  /**
+   * Records a pass through a stage, if recording is enabled.
+   *
+   * @param stage Name of the stage.
+   * @param start Start of the pass, as returned by {@link System#nanoTime()}.
+   * @param end   End of the pass, as returned by {@link System#nanoTime()}.
+   */
+  public static void record(String stage, long start, long end) {
+    if (enabled) {
+      STAGES.computeIfAbsent(stage, s -> new Stage()).add(start, end);
+    }
+  }
+
+  /**
+   * Returns the statistics of all stages recorded so far, sorted by name.
+   */
+  public static Map<String, Statistics> snapshot() {
+    final Map<String, Statistics> snapshot = new TreeMap<>();
+    STAGES.forEach((name, stage) -> snapshot.put(name, stage.statistics()));
+    return snapshot;
+  }
+
+  /**
+   * Returns the time between the start of the first and the end of the last pass through any stage, or 0 if nothing was recorded.
+   */
+  public static long window() {
+    long first = Long.MAX_VALUE;
+    long last = Long.MIN_VALUE;
+    for (Stage stage : STAGES.values()) {
+      synchronized (stage) {
+        first = Math.min(first, stage.firstStart);
+        last = Math.max(last, stage.lastEnd);
+      }
+    }
+    return last > first ? last - first : 0;
+  }
+
+  /**
+   * Statistics of a stage. Throughput is computed over the window between the start of the first and the end of the last pass, so idle time before and after the stage is not counted against it.
+   *
+   * @param count       Number of passes.
+   * @param totalNanos  Sum of the durations of all passes.
+   * @param windowNanos Time between the start of the first and the end of the last pass.
+   * @param throughput  Passes per second within the window.
+   * @param p50Nanos    Median duration.
+   * @param p90Nanos    90th percentile of the duration.
+   * @param p99Nanos    99th percentile of the duration.
+   * @param maxNanos    Maximum duration.
+   */
+  public record Statistics(long count, long totalNanos, long windowNanos, double throughput, long p50Nanos, long p90Nanos, long p99Nanos, long maxNanos) {
+
+  }
+
+  private static final class Stage {
+
+    private long[] durations = new long[1024];
+    private int count = 0;
+    private long firstStart = Long.MAX_VALUE;
+    private long lastEnd = Long.MIN_VALUE;
+
+    private synchronized void add(long start, long end) {
+      if (this.count == this.durations.length) {
+        this.durations = Arrays.copyOf(this.durations, 2 * this.count);
+      }
+      this.durations[this.count++] = end - start;
+      this.firstStart = Math.min(this.firstStart, start);
+      this.lastEnd = Math.max(this.lastEnd, end);
+    }
+
+    private synchronized Statistics statistics() {
+      final long[] sorted = Arrays.copyOf(this.durations, this.count);
+      Arrays.sort(sorted);
+      final long total = Arrays.stream(sorted).sum();
+      final long window = this.count == 0 ? 0 : this.lastEnd - this.firstStart;
+      final double throughput = window > 0 ? this.count * 1e9 / window : 0.0;
+      return new Statistics(this.count, total, window, throughput, percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99), this.count == 0 ? 0 : sorted[this.count - 1]);
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values.
+     */
+    private static long percentile(long[] sorted, double p) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+      return sorted[Math.max(0, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+  }
+}
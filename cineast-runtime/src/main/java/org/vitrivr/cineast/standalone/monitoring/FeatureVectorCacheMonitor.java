@@ -0,0 +1,48 @@
+package org.vitrivr.cineast.standalone.monitoring;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CounterMetricFamily;
+import io.prometheus.client.GaugeMetricFamily;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.vitrivr.cineast.core.db.dao.reader.FeatureVectorCache;
+import org.vitrivr.cineast.standalone.config.Config;
+
+/**
+ * Reports the hit rate and size of the shared {@link FeatureVectorCache}. The values are read from the cache whenever Prometheus scrapes the endpoint.
+ */
+public class FeatureVectorCacheMonitor extends Collector {
+
+  private static final Logger LOGGER = LogManager.getLogger();
+  private static boolean initalized = false;
+
+  public static void init() {
+    if (initalized) {
+      LOGGER.info("Already initalized, Returning");
+      return;
+    }
+    if (!Config.sharedConfig().getMonitoring().enablePrometheus) {
+      LOGGER.warn("Prometheus not enabled, returning");
+      return;
+    }
+    LOGGER.info("Initalizing Prometheus Feature Vector Cache Monitor");
+    new FeatureVectorCacheMonitor().register();
+    initalized = true;
+  }
+
+  @Override
+  public List<MetricFamilySamples> collect() {
+    final FeatureVectorCache.Statistics statistics = FeatureVectorCache.getInstance().statistics();
+    final CounterMetricFamily lookups = new CounterMetricFamily("cineast_featurevector_cache_lookups", "Number of feature vector lookups by segment id and whether they were answered from the cache", List.of("Result"));
+    lookups.addMetric(List.of("hit"), statistics.hits());
+    lookups.addMetric(List.of("miss"), statistics.misses());
+    return List.of(
+        lookups,
+        new GaugeMetricFamily("cineast_featurevector_cache_hitrate", "Ratio of feature vector lookups answered from the cache", statistics.hitRate()),
+        new CounterMetricFamily("cineast_featurevector_cache_prefetched", "Number of segments whose feature vectors were prefetched", statistics.prefetched()),
+        new CounterMetricFamily("cineast_featurevector_cache_evictions", "Number of entries evicted from the feature vector cache", statistics.evictions()),
+        new GaugeMetricFamily("cineast_featurevector_cache_bytes", "Estimated size of the cached feature vectors in bytes", statistics.bytes())
+    );
+  }
+}
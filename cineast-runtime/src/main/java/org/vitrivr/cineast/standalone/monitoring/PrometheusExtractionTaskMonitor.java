@@ -1,5 +1,6 @@
 package org.vitrivr.cineast.standalone.monitoring;
 
+import io.prometheus.client.Gauge;
 import io.prometheus.client.Summary;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -13,6 +14,10 @@ public class PrometheusExtractionTaskMonitor extends ImportTaskMonitor {
   private static final Logger LOGGER = LogManager.getLogger();
   private static boolean initalized = false;
   private static Summary extractionTime;
+  private static Gauge queueDepth;
+  private static Gauge activeWorkers;
+  private static Gauge workerShare;
+  private static Gauge utilisation;
 
   public static void init() {
     if (initalized) {
@@ -27,6 +32,18 @@ public static void init() {
     extractionTime = Summary.build().name("cineast_feature_process_time")
         .help("Time for an ExtractionTask to process the Shot")
         .labelNames("Extractor").quantile(0.5, 0.05).quantile(0.9, 0.01).register();
+    queueDepth = Gauge.build().name("cineast_extractor_queue_depth")
+        .help("Number of segments waiting for an Extractor")
+        .labelNames("Extractor").register();
+    activeWorkers = Gauge.build().name("cineast_extractor_workers")
+        .help("Number of workers currently running an Extractor")
+        .labelNames("Extractor").register();
+    workerShare = Gauge.build().name("cineast_extractor_worker_share")
+        .help("Number of workers an Extractor is entitled to by the extraction scheduler")
+        .labelNames("Extractor").register();
+    utilisation = Gauge.build().name("cineast_extractor_utilisation")
+        .help("Average number of workers busy with an Extractor")
+        .labelNames("Extractor").register();
   }
 
   /**
@@ -38,4 +55,16 @@ public static void reportExecutionTime(String name, long miliseconds) {
     }
   }
 
+  /**
+   * Reports the state of an Extractor in the extraction scheduler. You can call this method without worrying if prometheus support is enabled
+   */
+  public static void reportSchedule(String name, int depth, int workers, double share, double busy) {
+    if (queueDepth != null) {
+      queueDepth.labels(name).set(depth);
+      activeWorkers.labels(name).set(workers);
+      workerShare.labels(name).set(share);
+      utilisation.labels(name).set(busy);
+    }
+  }
+
 }
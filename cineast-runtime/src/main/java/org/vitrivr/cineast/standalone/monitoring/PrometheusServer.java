@@ -51,6 +51,9 @@ public static synchronized void initialize() {
     ImportTaskMonitor.init();
     DatabaseHealthMonitor.init();
     RetrievalTaskMonitor.init();
+    WebsocketMonitor.init();
+    ConfigMonitor.init();
+    FeatureVectorCacheMonitor.init();
     try {
       server.get().start();
     } catch (Exception e) {
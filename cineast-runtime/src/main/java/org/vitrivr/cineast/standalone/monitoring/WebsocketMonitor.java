@@ -0,0 +1,89 @@
+package org.vitrivr.cineast.standalone.monitoring;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Summary;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.vitrivr.cineast.standalone.config.Config;
+
+/**
+ * Reports the state of the WebSocket API (admission of queries and outbound message queues) to Prometheus.
+ */
+public class WebsocketMonitor {
+
+  private static final Logger LOGGER = LogManager.getLogger();
+  private static boolean initalized = false;
+  private static Gauge runningQueries;
+  private static Gauge waitingQueries;
+  private static Counter rejectedQueries;
+  private static Gauge outboundQueueDepth;
+  private static Counter droppedMessages;
+  private static Summary sendLatency;
+
+  public static void init() {
+    if (initalized) {
+      LOGGER.info("Already initalized, Returning");
+      return;
+    }
+    if (!Config.sharedConfig().getMonitoring().enablePrometheus) {
+      LOGGER.warn("Prometheus not enabled, returning");
+      return;
+    }
+    LOGGER.info("Initalizing Prometheus WebSocket Monitor");
+    runningQueries = Gauge.build().name("cineast_ws_queries_running").help("Number of WebSocket queries currently executing").register();
+    waitingQueries = Gauge.build().name("cineast_ws_queries_waiting").help("Number of WebSocket queries waiting for admission").register();
+    rejectedQueries = Counter.build().name("cineast_ws_queries_rejected").help("Number of WebSocket queries rejected by admission control").labelNames("reason").register();
+    outboundQueueDepth = Gauge.build().name("cineast_ws_outbound_queue_depth").help("Number of messages waiting to be sent over WebSockets").register();
+    droppedMessages = Counter.build().name("cineast_ws_messages_dropped").help("Number of outbound messages dropped due to backpressure or closed sessions").register();
+    sendLatency = Summary.build().name("cineast_ws_send_latency").help("Time between enqueuing and successful transmission of a message in ms")
+        .quantile(0.5, 0.05).quantile(0.9, 0.01).quantile(0.99, 0.001).register();
+    initalized = true;
+  }
+
+  /**
+   * You can call this method without worrying if prometheus support is enabled
+   */
+  public static void reportQueries(int running, int waiting) {
+    if (runningQueries != null) {
+      runningQueries.set(running);
+      waitingQueries.set(waiting);
+    }
+  }
+
+  /**
+   * You can call this method without worrying if prometheus support is enabled
+   */
+  public static void reportRejectedQuery(String reason) {
+    if (rejectedQueries != null) {
+      rejectedQueries.labels(reason).inc();
+    }
+  }
+
+  /**
+   * You can call this method without worrying if prometheus support is enabled
+   */
+  public static void reportOutboundQueueDepth(int depth) {
+    if (outboundQueueDepth != null) {
+      outboundQueueDepth.set(depth);
+    }
+  }
+
+  /**
+   * You can call this method without worrying if prometheus support is enabled
+   */
+  public static void reportDroppedMessage() {
+    if (droppedMessages != null) {
+      droppedMessages.inc();
+    }
+  }
+
+  /**
+   * You can call this method without worrying if prometheus support is enabled
+   */
+  public static void reportSendLatency(long milliseconds) {
+    if (sendLatency != null) {
+      sendLatency.observe(milliseconds);
+    }
+  }
+}
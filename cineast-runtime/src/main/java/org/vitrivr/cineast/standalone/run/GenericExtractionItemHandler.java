@@ -27,7 +27,7 @@
 import org.vitrivr.cineast.core.data.entities.MediaObjectDescriptor;
 import org.vitrivr.cineast.core.data.entities.MediaObjectMetadataDescriptor;
 import org.vitrivr.cineast.core.data.entities.MediaSegmentDescriptor;
-import org.vitrivr.cineast.core.data.m3d.Mesh;
+import org.vitrivr.cineast.core.data.m3d.ReadableMesh;
 import org.vitrivr.cineast.core.data.segments.Model3DSegment;
 import org.vitrivr.cineast.core.data.segments.SegmentContainer;
 import org.vitrivr.cineast.core.data.segments.TextureModel3DSegment;
@@ -60,6 +60,7 @@
 import org.vitrivr.cineast.core.util.MimeTypeHelper;
 import org.vitrivr.cineast.core.util.ReflectionHelper;
 import org.vitrivr.cineast.standalone.config.Config;
+import org.vitrivr.cineast.standalone.monitoring.ExtractionStageMonitor;
 import org.vitrivr.cineast.standalone.runtime.ExtractionPipeline;
 
 /**
@@ -142,9 +143,9 @@ public Set<MediaType> getMediaTypes() {
         return Sets.newHashSet(MediaType.TEXTUREMODEL3D);
       }
     }));
-    handlers.put(MediaType.MODEL3D, new ImmutablePair<>(ModularMeshDecoder::new, () -> new PassthroughSegmenter<Mesh>() {
+    handlers.put(MediaType.MODEL3D, new ImmutablePair<>(ModularMeshDecoder::new, () -> new PassthroughSegmenter<ReadableMesh>() {
       @Override
-      protected SegmentContainer getSegmentFromContent(Mesh content) {
+      protected SegmentContainer getSegmentFromContent(ReadableMesh content) {
         return new Model3DSegment(content);
       }
 
@@ -268,6 +269,7 @@ public void run() {
         Decoder decoder = handlerCache.get(pair.getRight()).getLeft();
         Segmenter segmenter = handlers.get(pair.getRight()).getRight().get();
 
+        final long objectStart = System.nanoTime();
         if (decoder.init(pair.getLeft().getPathForExtraction(), Config.sharedConfig().getDecoders().get(pair.getRight()), Config.sharedConfig().getCache())) {
           /* Create / lookup MediaObjectDescriptor for new file. */
           final MediaObjectDescriptor descriptor = this
@@ -279,13 +281,15 @@ public void run() {
           final String objectId = descriptor.getObjectId();
           int segmentNumber = 1;
 
-          segmenter.init(decoder, descriptor);
+          segmenter.init(ExtractionStageMonitor.isEnabled() ? new TimedDecoder<>(decoder) : decoder, descriptor);
           this.executorService.execute(segmenter);
 
           while (!segmenter.complete()) {
             try {
+              final long segmentStart = System.nanoTime();
               final SegmentContainer container = segmenter.getNext();
               if (container != null) {
+                ExtractionStageMonitor.record("segment", segmentStart, System.nanoTime());
                 /* Create segment-descriptor and try to persist it. */
                 MediaSegmentDescriptor mediaSegmentDescriptor;
                 if (container.getId() != null) {
@@ -295,9 +299,12 @@ public void run() {
                 }
                 container.setId(mediaSegmentDescriptor.getSegmentId());
                 container.setSuperId(mediaSegmentDescriptor.getObjectId());
+                final long persistStart = System.nanoTime();
                 if (!this.checkAndPersistSegment(mediaSegmentDescriptor)) {
                   continue;
                 }
+                final long emitStart = System.nanoTime();
+                ExtractionStageMonitor.record("persist", persistStart, emitStart);
 
                 int emissionTimeout = 1000;
 
@@ -307,6 +314,7 @@ public void run() {
                   Thread.sleep(emissionTimeout);
                   //emissionTimeout += 500;
                 }
+                ExtractionStageMonitor.record("emit", emitStart, System.nanoTime());
 
                 segmentNumber += 1;
               }
@@ -329,6 +337,7 @@ public void run() {
           this.mediaSegmentWriter.flush();
           this.objectWriter.flush();
           this.metadataWriter.flush();
+          ExtractionStageMonitor.record("object", objectStart, System.nanoTime());
         } else {
           LOGGER.error("Failed to initialize decoder. File is being skipped...");
         }
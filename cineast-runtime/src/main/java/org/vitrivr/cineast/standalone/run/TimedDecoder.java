@@ -0,0 +1,62 @@
+package org.vitrivr.cineast.standalone.run;
+
+import java.nio.file.Path;
+import java.util.Set;
+import org.vitrivr.cineast.core.config.CacheConfig;
+import org.vitrivr.cineast.core.config.DecoderConfig;
+import org.vitrivr.cineast.core.extraction.decode.general.Decoder;
+import org.vitrivr.cineast.standalone.monitoring.ExtractionStageMonitor;
+
+/**
+ * {@link Decoder} that records the time of every call to {@link #getNext()} of the decoder it wraps as the stage "decode" of the {@link ExtractionStageMonitor}.
+ */
+final class TimedDecoder<T> implements Decoder<T> {
+
+  static final String STAGE = "decode";
+
+  private final Decoder<T> decoder;
+
+  TimedDecoder(Decoder<T> decoder) {
+    this.decoder = decoder;
+  }
+
+  @Override
+  public boolean init(Path path, DecoderConfig decoderConfig, CacheConfig cacheConfig) {
+    return this.decoder.init(path, decoderConfig, cacheConfig);
+  }
+
+  @Override
+  public void close() {
+    this.decoder.close();
+  }
+
+  @Override
+  public T getNext() {
+    final long start = System.nanoTime();
+    final T next = this.decoder.getNext();
+    if (next != null) {
+      ExtractionStageMonitor.record(STAGE, start, System.nanoTime());
+    }
+    return next;
+  }
+
+  @Override
+  public int count() {
+    return this.decoder.count();
+  }
+
+  @Override
+  public boolean complete() {
+    return this.decoder.complete();
+  }
+
+  @Override
+  public Set<String> supportedFiles() {
+    return this.decoder.supportedFiles();
+  }
+
+  @Override
+  public boolean canBeReused() {
+    return this.decoder.canBeReused();
+  }
+}
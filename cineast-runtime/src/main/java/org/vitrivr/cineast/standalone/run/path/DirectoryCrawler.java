@@ -0,0 +1,367 @@
+package org.vitrivr.cineast.standalone.run.path;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.vitrivr.cineast.core.util.LogHelper;
+import org.vitrivr.cineast.core.util.MimeTypeHelper;
+
+/**
+ * Enumerates a directory tree with the same semantics as {@link Files#walk(Path, int, java.nio.file.FileVisitOption...)} with {@link java.nio.file.FileVisitOption#FOLLOW_LINKS}, but lists directories in parallel and hands out the results through a bounded queue.
+ * <p>
+ * Directories are listed by a work-stealing {@link ForkJoinPool}. Every listing reads the {@link BasicFileAttributes} of its entries once and applies the filters (hidden, readable, optionally MIME type) on the pool, and prefetches the listings of its subdirectories as long as fewer than {@link #MAX_PENDING_LISTINGS} listings are waiting to be consumed. A single emitter thread traverses the listings depth-first in pre-order and feeds the items into the queue, so the order of the items is the same as that of a sequential walk. If ordered, the entries of every directory are sorted by name, which makes the order reproducible across runs and file systems.
+ *
+ * @param <T> Type of the items handed out.
+ */
+public final class DirectoryCrawler<T> implements AutoCloseable {
+
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * Maximum number of directory listings that have been scheduled but not yet consumed by the emitter.
+   */
+  private static final int MAX_PENDING_LISTINGS = 256;
+
+  /**
+   * MIME type reported by {@link MimeTypeHelper} for unknown file extensions.
+   */
+  private static final String UNKNOWN_MIME_TYPE = "application/octet-stream";
+
+  private final Path start;
+
+  private final int depth;
+
+  private final boolean ordered;
+
+  private final boolean detectMimeType;
+
+  private final Function<Path, T> factory;
+
+  private final BlockingQueue<T> queue;
+
+  private final ForkJoinPool pool;
+
+  private final Thread emitter;
+
+  private final AtomicInteger pending = new AtomicInteger();
+
+  private volatile boolean finished = false;
+
+  private volatile boolean closed = false;
+
+  private long emitted = 0;
+
+  /**
+   * Creates a new {@link DirectoryCrawler} and starts enumerating.
+   *
+   * @param start          Path to start from; if it is a file, only that file is handed out.
+   * @param depth          Maximum depth of recursion, where the start path has depth 0.
+   * @param threads        Number of threads listing directories.
+   * @param prefetch       Capacity of the queue of items.
+   * @param ordered        Whether the entries of every directory are handed out sorted by name.
+   * @param detectMimeType Whether files with an unknown MIME type are skipped.
+   * @param factory        Creates the item for an accepted path.
+   */
+  public DirectoryCrawler(Path start, int depth, int threads, int prefetch, boolean ordered, boolean detectMimeType, Function<Path, T> factory) {
+    this.start = start;
+    this.depth = depth;
+    this.ordered = ordered;
+    this.detectMimeType = detectMimeType;
+    this.factory = factory;
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, prefetch));
+    this.pool = new ForkJoinPool(Math.max(1, threads));
+    this.emitter = new Thread(this::emit, "directory-crawler-" + start.getFileName());
+    this.emitter.setDaemon(true);
+    this.emitter.start();
+  }
+
+  /**
+   * Returns the next item if one is available. Does not block.
+   */
+  public T poll() {
+    return this.closed ? null : this.queue.poll();
+  }
+
+  /**
+   * Waits up to the given time for the next item.
+   *
+   * @return The next item or null, if none became available in time.
+   */
+  public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+    return this.closed ? null : this.queue.poll(timeout, unit);
+  }
+
+  public boolean hasNextAvailable() {
+    return !this.closed && !this.queue.isEmpty();
+  }
+
+  /**
+   * Returns true once the whole tree has been enumerated and all items have been handed out.
+   */
+  public boolean isExhausted() {
+    return this.finished && this.queue.isEmpty();
+  }
+
+  @Override
+  public void close() {
+    this.closed = true;
+    this.emitter.interrupt();
+    this.pool.shutdownNow();
+    this.queue.clear();
+  }
+
+  private void emit() {
+    try {
+      final BasicFileAttributes attributes = Files.readAttributes(this.start, BasicFileAttributes.class);
+      final Entry root = new Entry(this.start, this.accept(this.start, attributes), attributes.isDirectory() && this.depth > 0 ? new Directory(this.start, attributes.fileKey(), null) : null);
+      this.offer(root);
+
+      /* Depth-first traversal in pre-order, one frame per directory on the path from the start. */
+      final Deque<Frame> stack = new ArrayDeque<>();
+      if (root.directory != null) {
+        stack.push(new Frame(this.consume(root.directory)));
+      }
+      while (!stack.isEmpty() && !this.closed) {
+        final Frame frame = stack.peek();
+        if (frame.next >= frame.entries.size()) {
+          stack.pop();
+          continue;
+        }
+        this.prefetch(frame);
+        final Entry entry = frame.entries.get(frame.next++);
+        this.offer(entry);
+        if (entry.directory != null) {
+          stack.push(new Frame(this.consume(entry.directory)));
+        }
+      }
+    } catch (InterruptedException | RejectedExecutionException e) {
+      /* The crawler has been closed. */
+    } catch (IOException e) {
+      LOGGER.error("An IO exception occurred while scanning '{}': {}", this.start, LogHelper.getStackTrace(e));
+    } finally {
+      this.finished = true;
+      this.pool.shutdown();
+    }
+    if (this.emitted == 0 && !this.closed) {
+      LOGGER.info("{} does not seem to contain any readable files", this.start);
+    }
+  }
+
+  private void offer(Entry entry) throws InterruptedException {
+    if (!entry.accepted) {
+      return;
+    }
+    final T item = this.factory.apply(entry.path);
+    while (!this.closed) {
+      if (this.queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+        this.emitted++;
+        /* The offer may have completed after close() cleared the queue. */
+        if (this.closed) {
+          this.queue.clear();
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Waits for the listing of a directory, scheduling it if that has not happened yet.
+   */
+  private List<Entry> consume(Directory directory) throws InterruptedException {
+    final CompletableFuture<List<Entry>> listing = directory.schedule();
+    try {
+      while (true) {
+        try {
+          return listing.get(100, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+          if (this.closed) {
+            throw new InterruptedException();
+          }
+        }
+      }
+    } catch (ExecutionException e) {
+      LOGGER.error("An error occurred while listing '{}': {}", directory.path, LogHelper.getStackTrace(e.getCause()));
+      return Collections.emptyList();
+    } finally {
+      this.pending.decrementAndGet();
+    }
+  }
+
+  /**
+   * Schedules the listings of the subdirectories following the current position of a frame, as long as the prefetch budget allows.
+   */
+  private void prefetch(Frame frame) {
+    frame.prefetched = Math.max(frame.prefetched, frame.next);
+    while (frame.prefetched < frame.entries.size() && this.pending.get() < MAX_PENDING_LISTINGS) {
+      final Directory directory = frame.entries.get(frame.prefetched++).directory;
+      if (directory != null) {
+        directory.schedule();
+      }
+    }
+  }
+
+  /**
+   * Lists a directory on the pool. Entries that cannot be read (e.g. broken links) are skipped like {@link Files#exists(Path, java.nio.file.LinkOption...)} would.
+   */
+  private List<Entry> list(Directory directory) {
+    final List<Entry> entries = new ArrayList<>();
+    final boolean descend = directory.level() + 1 < this.depth;
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.path)) {
+      for (Path path : stream) {
+        if (this.closed) {
+          break;
+        }
+        final BasicFileAttributes attributes;
+        try {
+          attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+          LOGGER.debug("Skipping '{}', its attributes could not be read: {}", path, e.getMessage());
+          continue;
+        }
+        Directory subdirectory = null;
+        if (attributes.isDirectory() && descend) {
+          if (directory.isCycle(attributes.fileKey())) {
+            LOGGER.warn("Skipping '{}', it links to one of its parent directories.", path);
+            continue;
+          }
+          subdirectory = new Directory(path, attributes.fileKey(), directory);
+        }
+        entries.add(new Entry(path, this.accept(path, attributes), subdirectory));
+      }
+    } catch (IOException | DirectoryIteratorException e) {
+      LOGGER.error("An IO exception occurred while listing '{}': {}", directory.path, LogHelper.getStackTrace(e));
+    }
+    if (this.ordered) {
+      entries.sort(Comparator.comparing(e -> e.path.getFileName().toString()));
+    }
+
+    /* Prefetch the listings of the subdirectories. */
+    for (Entry entry : entries) {
+      if (this.closed || this.pending.get() >= MAX_PENDING_LISTINGS) {
+        break;
+      }
+      if (entry.directory != null) {
+        entry.directory.schedule();
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Applies the filters of the original tree walk: hidden and unreadable paths are skipped. Hidden is decided from the name (as on Unix) or the DOS attributes (as on Windows), which come with the {@link BasicFileAttributes} on Windows.
+   */
+  private boolean accept(Path path, BasicFileAttributes attributes) {
+    final Path name = path.getFileName();
+    if (name != null && name.toString().startsWith(".")) {
+      return false;
+    }
+    if (attributes instanceof DosFileAttributes && ((DosFileAttributes) attributes).isHidden()) {
+      return false;
+    }
+    if (this.detectMimeType && attributes.isRegularFile() && UNKNOWN_MIME_TYPE.equals(MimeTypeHelper.getContentType(path))) {
+      return false;
+    }
+    return Files.isReadable(path);
+  }
+
+  private final class Entry {
+
+    private final Path path;
+
+    private final boolean accepted;
+
+    /**
+     * The directory to descend into; null for files and for directories at the maximum depth.
+     */
+    private final Directory directory;
+
+    private Entry(Path path, boolean accepted, Directory directory) {
+      this.path = path;
+      this.accepted = accepted;
+      this.directory = directory;
+    }
+  }
+
+  private final class Directory {
+
+    private final Path path;
+
+    private final Object fileKey;
+
+    private final Directory parent;
+
+    private CompletableFuture<List<Entry>> listing;
+
+    private Directory(Path path, Object fileKey, Directory parent) {
+      this.path = path;
+      this.fileKey = fileKey;
+      this.parent = parent;
+    }
+
+    private int level() {
+      return this.parent == null ? 0 : this.parent.level() + 1;
+    }
+
+    private boolean isCycle(Object key) {
+      if (key == null) {
+        return false;
+      }
+      for (Directory d = this; d != null; d = d.parent) {
+        if (Objects.equals(key, d.fileKey)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private synchronized CompletableFuture<List<Entry>> schedule() {
+      if (this.listing == null) {
+        DirectoryCrawler.this.pending.incrementAndGet();
+        this.listing = CompletableFuture.supplyAsync(() -> DirectoryCrawler.this.list(this), DirectoryCrawler.this.pool);
+      }
+      return this.listing;
+    }
+  }
+
+  private final class Frame {
+
+    private final List<Entry> entries;
+
+    /**
+     * Index of the next entry to hand out.
+     */
+    private int next = 0;
+
+    /**
+     * Index of the next entry whose listing may have to be prefetched.
+     */
+    private int prefetched = 0;
+
+    private Frame(List<Entry> entries) {
+      this.entries = entries;
+    }
+  }
+}
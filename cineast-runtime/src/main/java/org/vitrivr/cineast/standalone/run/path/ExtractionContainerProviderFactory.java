@@ -7,6 +7,7 @@
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.vitrivr.cineast.core.extraction.ExtractionContextProvider;
+import org.vitrivr.cineast.standalone.config.IngestConfig;
 import org.vitrivr.cineast.standalone.run.ExtractionContainerProvider;
 
 
@@ -44,6 +45,9 @@ public static ExtractionContainerProvider tryCreatingTreeWalkPathProvider(File j
       return new NoContainerProvider();
     }
 
+    if (context instanceof IngestConfig) {
+      return new TreeWalkContainerIteratorProvider(basePath, startPath, context.depth(), ((IngestConfig) context).getInput().getCrawler());
+    }
     return new TreeWalkContainerIteratorProvider(basePath, startPath, context.depth());
   }
 
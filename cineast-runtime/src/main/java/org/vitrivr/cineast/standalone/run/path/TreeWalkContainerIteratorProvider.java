@@ -1,19 +1,14 @@
 package org.vitrivr.cineast.standalone.run.path;
 
 import io.prometheus.client.Counter;
-import java.io.IOException;
-import java.nio.file.FileVisitOption;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.vitrivr.cineast.core.data.entities.MediaObjectDescriptor;
-import org.vitrivr.cineast.core.util.LogHelper;
 import org.vitrivr.cineast.standalone.config.Config;
+import org.vitrivr.cineast.standalone.config.CrawlerConfig;
 import org.vitrivr.cineast.standalone.run.ExtractionCompleteListener;
 import org.vitrivr.cineast.standalone.run.ExtractionContainerProvider;
 import org.vitrivr.cineast.standalone.run.ExtractionItemContainer;
@@ -21,7 +16,7 @@
 /*
  * Recursively add all files under that path to the List of files that should be processed. Uses
  * the context-provider to determine the depth of recursion, skip files and limit the number of
- * files.
+ * files. The files are enumerated ahead of the extraction by a {@link DirectoryCrawler}.
  */
 public class TreeWalkContainerIteratorProvider implements ExtractionContainerProvider,
     ExtractionCompleteListener {
@@ -32,10 +27,20 @@ public class TreeWalkContainerIteratorProvider implements ExtractionContainerPro
   private final Path startPath;
   private final int depth;
   private volatile boolean open = true;
-  private Iterator<Path> pathIterator = Collections.emptyIterator();
+  private final DirectoryCrawler<ExtractionItemContainer> crawler;
   private Counter pathsCompleted;
 
   public TreeWalkContainerIteratorProvider(Path basePath, Path startPath, int depth) {
+    this(basePath, startPath, depth, new CrawlerConfig());
+  }
+
+  /**
+   * @param basePath Path the objects are stored relative to.
+   * @param startPath Path to start the walk from, relative to the base path.
+   * @param depth Maximum depth of recursion.
+   * @param crawler Configuration of the {@link DirectoryCrawler} that enumerates the files.
+   */
+  public TreeWalkContainerIteratorProvider(Path basePath, Path startPath, int depth, CrawlerConfig crawler) {
     this.basePath = basePath;
     this.startPath = startPath;
     this.depth = depth;
@@ -44,29 +49,19 @@ public TreeWalkContainerIteratorProvider(Path basePath, Path startPath, int dept
       pathsCompleted = Counter.build().name("cineast_path_completed_treewalk")
           .help("Paths completed in Tree Walk for base path " + basePath).register();
     }
-    try {
-      Path resolvedStartPath = this.basePath.resolve(this.startPath);
-      pathIterator = Files.walk(resolvedStartPath, this.depth, FileVisitOption.FOLLOW_LINKS)
-          .filter(p -> {
-            try {
-              return Files.exists(p) && !Files.isHidden(p) && Files.isReadable(p);
-            } catch (IOException e) {
-              LOGGER.error("An IO exception occurred while testing the media file at '{}': {}", p.toString(), LogHelper.getStackTrace(e));
-              return false;
-            }
-          }).iterator();
-      if (!pathIterator.hasNext()) {
-        LOGGER.info("{} does not seem to contain any readable files", resolvedStartPath.toString());
-      }
-    } catch (IOException e) {
-      LOGGER.error("An IO exception occurred while scanning '{}': {}", basePath.toString(),
-          LogHelper.getStackTrace(e));
-    }
+    boolean relative = basePath.toFile().isDirectory();
+    Path absoluteBasePath = basePath.toAbsolutePath();
+    this.crawler = new DirectoryCrawler<>(this.basePath.resolve(this.startPath), this.depth, crawler.getThreads(), crawler.getPrefetch(), crawler.getOrdered(), crawler.getDetectMimeType(), next -> {
+      Path path = relative ? absoluteBasePath.relativize(next.toAbsolutePath()) : next.getFileName();
+      LOGGER.debug("Next path: {}, base {}, res {}", next, basePath, path);
+      return new ExtractionItemContainer(new MediaObjectDescriptor(path), null, next);
+    });
   }
 
   @Override
   public void close() {
     open = false;
+    crawler.close();
   }
 
   @Override
@@ -79,22 +74,18 @@ public void addPaths(List<ExtractionItemContainer> pathList) {
    */
   @Override
   public boolean isOpen() {
-    return pathIterator.hasNext() && open;
+    return !crawler.isExhausted() && open;
   }
 
   @Override
   public boolean hasNextAvailable() {
-    return pathIterator.hasNext() && open;
+    return crawler.hasNextAvailable() && open;
   }
 
   @Override
-  public synchronized Optional<ExtractionItemContainer> next() {
-    if (pathIterator.hasNext() && open) {
-      Path next = pathIterator.next();
-      Path path = basePath.toFile().isDirectory() ? basePath.toAbsolutePath()
-          .relativize(next.toAbsolutePath()) : next.getFileName();
-      LOGGER.debug("Next path: {}, base {}, res {}", next, basePath, path);
-      return Optional.of(new ExtractionItemContainer(new MediaObjectDescriptor(path), null, next));
+  public Optional<ExtractionItemContainer> next() {
+    if (open) {
+      return Optional.ofNullable(crawler.poll());
     }
     return Optional.empty();
   }
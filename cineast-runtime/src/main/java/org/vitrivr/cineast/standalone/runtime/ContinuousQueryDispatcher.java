@@ -3,6 +3,7 @@
 import com.carrotsearch.hppc.ObjectDoubleHashMap;
 import com.carrotsearch.hppc.ObjectDoubleMap;
 import com.carrotsearch.hppc.cursors.DoubleCursor;
+import com.carrotsearch.hppc.cursors.ObjectCursor;
 import com.carrotsearch.hppc.cursors.ObjectDoubleCursor;
 import com.carrotsearch.hppc.predicates.ObjectDoublePredicate;
 import com.google.common.cache.Cache;
@@ -11,23 +12,31 @@
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.vitrivr.cineast.core.config.ReadableQueryConfig;
 import org.vitrivr.cineast.core.data.LimitedQueue;
 import org.vitrivr.cineast.core.data.Pair;
 import org.vitrivr.cineast.core.data.QueryResultCacheKey;
+import org.vitrivr.cineast.core.data.TopKCollector;
 import org.vitrivr.cineast.core.data.query.containers.AbstractQueryTermContainer;
 import org.vitrivr.cineast.core.data.score.BooleanSegmentScoreElement;
 import org.vitrivr.cineast.core.data.score.ObjectScoreElement;
 import org.vitrivr.cineast.core.data.score.ScoreElement;
 import org.vitrivr.cineast.core.data.score.SegmentScoreElement;
+import org.vitrivr.cineast.core.db.dao.reader.FeatureVectorCache;
 import org.vitrivr.cineast.core.db.dao.reader.MediaSegmentReader;
 import org.vitrivr.cineast.core.features.retriever.Retriever;
 import org.vitrivr.cineast.core.features.retriever.RetrieverInitializer;
@@ -52,8 +61,16 @@ public class ContinuousQueryDispatcher {
   private final RetrieverInitializer initializer;
   private final ObjectDoubleMap<Retriever> retrieverWeights;
   private final MediaSegmentReader mediaSegmentReader;
+  private final RetrievalListener listener;
   private final double retrieverWeightSum;
 
+  /**
+   * Number of submitted tasks that have not terminated yet. Once the retrieval is cancelled, the retrievers are finished as soon as this drops to zero.
+   */
+  private final AtomicInteger pending = new AtomicInteger();
+  private volatile boolean cancelled = false;
+  private final AtomicBoolean finished = new AtomicBoolean();
+
   private static final boolean QUERY_CACHE_ENABLED = Config.sharedConfig().getCache().isEnableQueryCaching();
   private static final int QUERY_CACHE_SIZE = QUERY_CACHE_ENABLED ? Config.sharedConfig().getCache().getQueryCacheSize() : 0;
   private static final long QUERY_CACHE_LIFE = QUERY_CACHE_ENABLED ? Config.sharedConfig().getCache().getQueryCacheDuration() : 0L;
@@ -65,11 +82,12 @@ public class ContinuousQueryDispatcher {
           .build() : null;
 
 
-  private ContinuousQueryDispatcher(Function<Retriever, RetrievalTask> taskFactory, ObjectDoubleMap<Retriever> retrieverWeights, RetrieverInitializer initializer, MediaSegmentReader mediaSegmentReader) {
+  private ContinuousQueryDispatcher(Function<Retriever, RetrievalTask> taskFactory, ObjectDoubleMap<Retriever> retrieverWeights, RetrieverInitializer initializer, MediaSegmentReader mediaSegmentReader, RetrievalListener listener) {
     this.taskFactory = taskFactory;
     this.initializer = initializer;
     this.retrieverWeights = retrieverWeights;
     this.mediaSegmentReader = mediaSegmentReader;
+    this.listener = listener;
 
     double weightSum = 0d;
     for (DoubleCursor doubleCursor : retrieverWeights.values()) {
@@ -81,6 +99,15 @@ private ContinuousQueryDispatcher(Function<Retriever, RetrievalTask> taskFactory
   }
 
   public static List<SegmentScoreElement> retrieve(AbstractQueryTermContainer query, ObjectDoubleHashMap<Retriever> retrievers, RetrieverInitializer initializer, ReadableQueryConfig config, MediaSegmentReader mediaSegmentReader) {
+    return retrieve(query, retrievers, initializer, config, mediaSegmentReader, RetrievalListener.NONE);
+  }
+
+  /**
+   * Retrieves the results for a query and reports the results of every retriever to the {@link RetrievalListener} as they become available. If the fused result is served from the query cache, the listener receives no partial results.
+   *
+   * @throws java.util.concurrent.CancellationException If the listener cancelled the retrieval.
+   */
+  public static List<SegmentScoreElement> retrieve(AbstractQueryTermContainer query, ObjectDoubleHashMap<Retriever> retrievers, RetrieverInitializer initializer, ReadableQueryConfig config, MediaSegmentReader mediaSegmentReader, RetrievalListener listener) {
 
     if (QUERY_CACHE_ENABLED) {
 
@@ -89,18 +116,25 @@ public static List<SegmentScoreElement> retrieve(AbstractQueryTermContainer quer
       List<SegmentScoreElement> result = queryCache.getIfPresent(cacheKey);
 
       if (result == null) {
-        result = new ContinuousQueryDispatcher(r -> new RetrievalTask(r, query, config), retrievers, initializer, mediaSegmentReader).doRetrieve();
+        result = new ContinuousQueryDispatcher(r -> new RetrievalTask(r, query, config), retrievers, initializer, mediaSegmentReader, listener).doRetrieve();
         queryCache.put(cacheKey, result);
       }
 
       return result;
 
     } else {
-      return new ContinuousQueryDispatcher(r -> new RetrievalTask(r, query, config), retrievers, initializer, mediaSegmentReader).doRetrieve();
+      return new ContinuousQueryDispatcher(r -> new RetrievalTask(r, query, config), retrievers, initializer, mediaSegmentReader, listener).doRetrieve();
     }
   }
 
   public static List<SegmentScoreElement> retrieve(String segmentId, ObjectDoubleHashMap<Retriever> retrievers, RetrieverInitializer initializer, ReadableQueryConfig config, MediaSegmentReader mediaSegmentReader) {
+    return retrieve(segmentId, retrievers, initializer, config, mediaSegmentReader, RetrievalListener.NONE);
+  }
+
+  /**
+   * Retrieves the results for a segment id, analogous to {@link #retrieve(AbstractQueryTermContainer, ObjectDoubleHashMap, RetrieverInitializer, ReadableQueryConfig, MediaSegmentReader, RetrievalListener)}.
+   */
+  public static List<SegmentScoreElement> retrieve(String segmentId, ObjectDoubleHashMap<Retriever> retrievers, RetrieverInitializer initializer, ReadableQueryConfig config, MediaSegmentReader mediaSegmentReader, RetrievalListener listener) {
 
     if (QUERY_CACHE_ENABLED) {
 
@@ -109,13 +143,13 @@ public static List<SegmentScoreElement> retrieve(String segmentId, ObjectDoubleH
       List<SegmentScoreElement> result = queryCache.getIfPresent(cacheKey);
 
       if (result == null) {
-        result = new ContinuousQueryDispatcher(r -> new RetrievalTask(r, segmentId, config), retrievers, initializer, mediaSegmentReader).doRetrieve();
+        result = new ContinuousQueryDispatcher(r -> new RetrievalTask(r, segmentId, config), retrievers, initializer, mediaSegmentReader, listener).doRetrieve();
         queryCache.put(cacheKey, result);
       }
 
       return result;
     } else {
-      return new ContinuousQueryDispatcher(r -> new RetrievalTask(r, segmentId, config), retrievers, initializer, mediaSegmentReader).doRetrieve();
+      return new ContinuousQueryDispatcher(r -> new RetrievalTask(r, segmentId, config), retrievers, initializer, mediaSegmentReader, listener).doRetrieve();
     }
   }
 
@@ -157,17 +191,36 @@ private List<SegmentScoreElement> doRetrieve() {
     LOGGER.trace("Extracting results with retrievers {}", retrieverWeights);
     List<SegmentScoreElement> segmentScores = this.extractResults(futures, this.mediaSegmentReader);
     LOGGER.trace("Retrieved {} results, finishing", segmentScores.size());
+    this.prefetchFeatureVectors(segmentScores);
     this.finish();
     return segmentScores;
   }
 
+  /**
+   * Registers the top results for prefetching with the {@link FeatureVectorCache}, since a query by one of them is likely to follow.
+   */
+  private void prefetchFeatureVectors(List<SegmentScoreElement> segmentScores) {
+    List<String> entities = new ArrayList<>();
+    for (ObjectCursor<Retriever> cursor : this.retrieverWeights.keys()) {
+      entities.addAll(cursor.value.getTableNames());
+    }
+    FeatureVectorCache.getInstance().prefetch(entities, segmentScores.stream().map(ScoreElement::getId).collect(Collectors.toList()));
+  }
+
   private List<Future<Pair<RetrievalTask, List<ScoreElement>>>> startTasks() {
     List<Future<Pair<RetrievalTask, List<ScoreElement>>>> futures = new LinkedList<>();
     this.retrieverWeights.forEach((ObjectDoublePredicate<? super Retriever>) (r, weight) -> {
       if (weight > 0) {
         this.initializer.initialize(r);
-        RetrievalTask task = taskFactory.apply(r);
-        futures.add(executor.submit(task));
+        TrackedTask task = new TrackedTask(taskFactory.apply(r));
+        this.pending.incrementAndGet();
+        try {
+          executor.execute(task);
+        } catch (RejectedExecutionException e) {
+          this.pending.decrementAndGet();
+          throw e;
+        }
+        futures.add(task);
       }
       return true;
     });
@@ -178,6 +231,9 @@ private List<SegmentScoreElement> extractResults(List<Future<Pair<RetrievalTask,
     ObjectDoubleMap<String> scoreByObjectId = new ObjectDoubleHashMap<>();
     ObjectDoubleMap<String> scoreBySegmentId = new ObjectDoubleHashMap<>();
     while (!futures.isEmpty()) {
+      if (this.listener.isCancelled()) {
+        throw this.cancel(futures, new CancellationException("Retrieval with retrievers " + this.retrieverWeights.keys() + " was cancelled."));
+      }
       Iterator<Future<Pair<RetrievalTask, List<ScoreElement>>>> iterator = futures.iterator();
       while (iterator.hasNext()) {
         Future<Pair<RetrievalTask, List<ScoreElement>>> future = iterator.next();
@@ -187,6 +243,13 @@ private List<SegmentScoreElement> extractResults(List<Future<Pair<RetrievalTask,
 
         try {
           Pair<RetrievalTask, List<ScoreElement>> pair = future.get();
+          if (pair.second != null) {
+            try {
+              this.listener.onPartialResult(pair.first.getRetriever(), pair.second);
+            } catch (CancellationException e) {
+              throw this.cancel(futures, e);
+            }
+          }
           this.addRetrievalResult(scoreByObjectId, scoreBySegmentId, pair.first, pair.second);
         } catch (InterruptedException | ExecutionException e) {
           LOGGER.warn(LogHelper.getStackTrace(e));
@@ -240,25 +303,63 @@ private void addScoreElement(ObjectDoubleMap<String> scoreById, ScoreElement nex
   }
 
   private List<SegmentScoreElement> normalizeSortTruncate(ObjectDoubleMap<String> scoreBySegmentId) {
-    List<SegmentScoreElement> results = new ArrayList<>(scoreBySegmentId.size());
+    final TopKCollector<SegmentScoreElement> results = TopKCollector.largest(Math.min(MAX_RESULTS, scoreBySegmentId.size()));
     scoreBySegmentId.forEach((ObjectDoublePredicate<? super String>) (segmentId, score) -> {
-      results.add(new SegmentScoreElement(segmentId, MathHelper.limit(score / this.retrieverWeightSum, 0d, 1d)));
+      final double normalized = MathHelper.limit(score / this.retrieverWeightSum, 0d, 1d);
+      if (results.accepts(normalized)) {
+        results.offer(normalized, new SegmentScoreElement(segmentId, normalized));
+      }
       return true;
     });
+    return results.sortedPayloads();
+  }
 
-    results.sort(ScoreElement.SCORE_COMPARATOR.reversed());
-    if (results.size() > MAX_RESULTS) {
-      return results.subList(0, MAX_RESULTS);
-    } else {
-      return results;
+  /**
+   * Interrupts the tasks that are still running. The retrievers may still be in use by those tasks, so they are finished once the last of them has terminated (see {@link TrackedTask}).
+   */
+  private CancellationException cancel(List<Future<Pair<RetrievalTask, List<ScoreElement>>>> futures, CancellationException e) {
+    this.cancelled = true;
+    futures.forEach(f -> f.cancel(true));
+    if (this.pending.get() == 0) {
+      this.finish();
     }
+    return e;
   }
 
+  /**
+   * Finishes all retrievers, at most once per dispatch.
+   */
   private void finish() {
-
+    if (!this.finished.compareAndSet(false, true)) {
+      return;
+    }
     for (ObjectDoubleCursor<Retriever> retrieverWeight : this.retrieverWeights) {
-      retrieverWeight.key.finish();
+      try {
+        retrieverWeight.key.finish();
+      } catch (Exception e) {
+        LOGGER.warn("Could not finish retriever {}: {}", retrieverWeight.key.getClass().getSimpleName(), e.getMessage());
+      }
     }
+  }
+
+  /**
+   * A {@link RetrievalTask} that reports its termination to the dispatcher. The pool runs cancelled tasks as well (which then return right away), so every submitted task terminates exactly once unless the pool is shut down.
+   */
+  private final class TrackedTask extends FutureTask<Pair<RetrievalTask, List<ScoreElement>>> {
 
+    private TrackedTask(RetrievalTask task) {
+      super(task);
+    }
+
+    @Override
+    public void run() {
+      try {
+        super.run();
+      } finally {
+        if (ContinuousQueryDispatcher.this.pending.decrementAndGet() == 0 && ContinuousQueryDispatcher.this.cancelled) {
+          ContinuousQueryDispatcher.this.finish();
+        }
+      }
+    }
   }
 }
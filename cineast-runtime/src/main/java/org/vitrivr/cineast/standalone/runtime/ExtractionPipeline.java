@@ -3,15 +3,11 @@
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.vitrivr.cineast.core.data.LimitedQueue;
 import org.vitrivr.cineast.core.data.segments.SegmentContainer;
 import org.vitrivr.cineast.core.extraction.ExtractionContextProvider;
 import org.vitrivr.cineast.core.features.extractor.Extractor;
@@ -41,9 +37,9 @@ public class ExtractionPipeline implements Runnable, ExecutionTimeCounter {
   private final ConcurrentHashMap<String, SummaryStatistics> timeMap = new ConcurrentHashMap<>();
 
   /**
-   * ExecutorService used do execute the ExtractionTasks.
+   * ExtractionScheduler that distributes the segments among the Extractors and runs them.
    */
-  private final ExecutorService executorService;
+  private final ExtractionScheduler scheduler;
 
   /**
    * ExtractionContextProvider used to setup the Pipeline. It contains information about the Extractors.
@@ -75,19 +71,17 @@ public ExtractionPipeline(ExtractionContextProvider context) {
     /* Initialize the segment queue. */
     this.segmentQueue = new LinkedBlockingQueue<>(segmentQueueSize);
 
-    /* Prepare and create a new ThreadPoolExecutor. */
-    LimitedQueue<Runnable> taskQueue = new LimitedQueue<>(taskQueueSize);
-    this.executorService = new ThreadPoolExecutor(threadCount, threadCount, 60, TimeUnit.SECONDS, taskQueue) {
-      @Override
-      protected void afterExecute(Runnable r, Throwable t) {
-        if (t != null) {
-          LOGGER.fatal("Decoding Error detected!");
-          LOGGER.fatal(LogHelper.getStackTrace(t));
-          //this.shutdownNow();
-        }
-        super.afterExecute(r, null);
-      }
-    };
+    /* Every Extractor gets its own queue and limit of threads; the thread count is shared by all of them. */
+    final int[] queueSizes = new int[this.extractors.size()];
+    final int[] threads = new int[this.extractors.size()];
+    for (int i = 0; i < this.extractors.size(); i++) {
+      final Extractor extractor = this.extractors.get(i);
+      final int queueSize = context.extractorQueueSize(extractor);
+      final int limit = context.extractorThreads(extractor);
+      queueSizes[i] = queueSize > 0 ? queueSize : taskQueueSize;
+      threads[i] = extractor.isThreadSafe() ? (limit > 0 ? limit : threadCount) : 1;
+    }
+    this.scheduler = new ExtractionScheduler(this.extractors, queueSizes, threads, threadCount, this);
   }
 
   /**
@@ -135,7 +129,9 @@ public void run() {
       this.running = true;
     }
 
-    /* Process SegmentContainers in Queue: For each Extractor in list dispatch an extraction task. */
+    this.scheduler.start();
+
+    /* Process SegmentContainers in Queue: Hand each one to the scheduler, which dispatches it to all Extractors. */
     while (this.isRunning() || !this.segmentQueue.isEmpty()) {
       if (!this.isRunning()) {
         LOGGER.debug("Received stop signal, still {} elements left", this.segmentQueue.size());
@@ -144,19 +140,8 @@ public void run() {
         SegmentContainer s = this.segmentQueue.poll(500, TimeUnit.MILLISECONDS);
         if (s != null) {
           LOGGER.debug("Segment {} is being handed to the extraction pipeline.", s.getId());
-          for (Extractor f : extractors) {
-            try {
-              this.executorService.execute(new ExtractionTask(f, s, this));
-              LOGGER.debug("Submitted segment {} for feature {}", s.getId(), f.getClass().getSimpleName());
-            } catch (RejectedExecutionException e) {
-              this.segmentQueue.clear();
-              LOGGER.fatal("Failed to submit segment {} for feature {}. Aborting...\n{}", s.getId(), f.getClass().getSimpleName(), LogHelper.getStackTrace(e));
-              break;
-            }
-          }
-
-          /* Sort list of extractors by execution time. */
-          (this.extractors).sort((o1, o2) -> Long.compare(getAverageExecutionTime(o2.getClass().getSimpleName()), getAverageExecutionTime(o1.getClass().getSimpleName())));
+          this.scheduler.submit(s);
+          LOGGER.debug("Submitted segment {} to {} extractors", s.getId(), this.extractors.size());
         }
       } catch (InterruptedException e) {
         LOGGER.warn("ShotDispatcher was interrupted: {}", LogHelper.getStackTrace(e));
@@ -198,14 +183,14 @@ private void startup() {
   }
 
   /**
-   * Shuts the ExtractionPipeline down. Stops the ExecutorService and finishes the extractors.
+   * Shuts the ExtractionPipeline down. Waits for the ExtractionScheduler to process all queued segments and finishes the extractors.
    */
   private void shutdown() {
     try {
-      LOGGER.debug("Shutting down executor service");
-      this.executorService.shutdown();
-      LOGGER.debug("Waiting for termination of executor");
-      this.executorService.awaitTermination(15, TimeUnit.MINUTES);
+      LOGGER.debug("Waiting for the extraction scheduler to process all queued segments");
+      if (!this.scheduler.shutdown(15, TimeUnit.MINUTES)) {
+        LOGGER.warn("Extraction scheduler did not terminate in time: {}", this.scheduler.statistics());
+      }
     } catch (InterruptedException e) {
       LOGGER.warn("Interrupted while waiting for Executor to shut down!");
     } finally {
@@ -217,7 +202,7 @@ private void shutdown() {
               extractor.getClass().getSimpleName(), LogHelper.getStackTrace(e));
         }
       }
-      LOGGER.debug("All extractors termination, executor service terminated. Exiting shutdown.");
+      LOGGER.debug("All extractors termination, extraction scheduler terminated. Exiting shutdown.");
     }
   }
 
@@ -0,0 +1,396 @@
+package org.vitrivr.cineast.standalone.runtime;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.vitrivr.cineast.core.data.segments.SegmentContainer;
+import org.vitrivr.cineast.core.features.extractor.Extractor;
+import org.vitrivr.cineast.core.util.LogHelper;
+import org.vitrivr.cineast.standalone.monitoring.ExtractionStageMonitor;
+import org.vitrivr.cineast.standalone.monitoring.PrometheusExtractionTaskMonitor;
+
+/**
+ * Schedules the extraction of segments on a fixed number of worker threads, the CPU budget of the extraction pipeline.
+ * <p>
+ * Every {@link Extractor} has its own bounded input queue. A segment that is submitted is added to all queues and processed by each extractor independently, so cheap extractors can run ahead of expensive ones until their queue is full. Workers are not bound to an extractor: Whenever a worker becomes available, it takes the next segment from the extractor that lags furthest behind its share of the workers. The shares are rebalanced periodically from the observed service time, arrival rate and queue depth of every extractor, so expensive extractors that gate the throughput receive most of the workers. No extractor ever runs on more workers than it allows, which is one for extractors that are not thread-safe.
+ */
+final class ExtractionScheduler {
+
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  /**
+   * Interval between two rebalancings of the worker shares in milliseconds.
+   */
+  static final long REBALANCE_INTERVAL_MS = 250;
+
+  /**
+   * Weight of the latest observation in the moving average of the service time.
+   */
+  private static final double SMOOTHING = 0.3;
+
+  private final List<Lane> lanes = new ArrayList<>();
+
+  private final List<Thread> workers = new ArrayList<>();
+
+  private final ExecutionTimeCounter counter;
+
+  /**
+   * Guards all lanes. Held only to pick or enqueue segments, never during extraction.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * Signalled whenever a segment is added to a lane or a lane that is limited to its number of workers frees one.
+   */
+  private final Condition workAvailable = this.lock.newCondition();
+
+  /**
+   * Signalled whenever a segment is removed from a lane.
+   */
+  private final Condition spaceAvailable = this.lock.newCondition();
+
+  private long lastRebalance = System.nanoTime();
+
+  private boolean closed = false;
+
+  /**
+   * Constructor for {@link ExtractionScheduler}. The workers are started by {@link #start()}.
+   *
+   * @param extractors The extractors to schedule.
+   * @param queueSizes Maximum number of queued segments per extractor, in the order of the extractors.
+   * @param threads    Maximum number of workers per extractor, in the order of the extractors. Extractors that are not thread-safe are limited to one worker regardless.
+   * @param budget     Total number of workers.
+   * @param counter    {@link ExecutionTimeCounter} the execution times are reported to. May be null.
+   */
+  ExtractionScheduler(List<Extractor> extractors, int[] queueSizes, int[] threads, int budget, ExecutionTimeCounter counter) {
+    this.counter = counter;
+    final Map<String, Integer> occurrences = new HashMap<>();
+    for (Extractor extractor : extractors) {
+      occurrences.merge(extractor.getClass().getName(), 1, Integer::sum);
+    }
+    final Map<String, Integer> ordinals = new HashMap<>();
+    for (int i = 0; i < extractors.size(); i++) {
+      final Extractor extractor = extractors.get(i);
+      final String className = extractor.getClass().getName();
+      final String name = occurrences.get(className) > 1 ? className + "#" + ordinals.merge(className, 1, Integer::sum) : className;
+      final int limit = extractor.isThreadSafe() ? Math.max(1, Math.min(budget, threads[i])) : 1;
+      final Lane lane = new Lane(extractor, name, Math.max(1, queueSizes[i]), limit);
+      lane.share = (double) budget / extractors.size();
+      this.lanes.add(lane);
+    }
+    for (int i = 0; i < Math.max(1, budget); i++) {
+      final Thread worker = new Thread(this::work, "extraction-worker-" + i);
+      worker.setDaemon(true);
+      this.workers.add(worker);
+    }
+  }
+
+  /**
+   * Starts the workers.
+   */
+  void start() {
+    this.workers.forEach(Thread::start);
+  }
+
+  /**
+   * Adds a segment to the queues of all extractors. Blocks until every queue has accepted it.
+   *
+   * @param segment The {@link SegmentContainer} to extract.
+   * @throws InterruptedException If the thread was interrupted while waiting for space in a queue.
+   */
+  void submit(SegmentContainer segment) throws InterruptedException {
+    this.lock.lockInterruptibly();
+    try {
+      if (this.closed) {
+        throw new IllegalStateException("ExtractionScheduler has been shut down.");
+      }
+      for (Lane lane : this.lanes) {
+        while (lane.queue.size() >= lane.capacity) {
+          this.spaceAvailable.await();
+        }
+        lane.queue.add(segment);
+        lane.arrivals++;
+        this.workAvailable.signal();
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Stops accepting segments and waits until the workers have processed all queued segments.
+   *
+   * @param timeout Maximum time to wait.
+   * @param unit    {@link TimeUnit} of the timeout.
+   * @return True if all workers have terminated, false otherwise.
+   */
+  boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+    this.lock.lock();
+    try {
+      this.closed = true;
+      this.workAvailable.signalAll();
+    } finally {
+      this.lock.unlock();
+    }
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    for (Thread worker : this.workers) {
+      worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+      if (worker.isAlive()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns a snapshot of the {@link Statistics} of all extractors.
+   */
+  List<Statistics> statistics() {
+    this.lock.lock();
+    try {
+      final List<Statistics> statistics = new ArrayList<>(this.lanes.size());
+      for (Lane lane : this.lanes) {
+        statistics.add(lane.statistics());
+      }
+      return statistics;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Loop of a worker: Takes segments from the lanes and extracts them until the scheduler is shut down and all lanes are empty.
+   */
+  private void work() {
+    while (true) {
+      final Lane lane;
+      final SegmentContainer segment;
+      final long start;
+      this.lock.lock();
+      try {
+        Lane next;
+        while ((next = this.select()) == null) {
+          if (this.closed && this.lanes.stream().allMatch(l -> l.queue.isEmpty())) {
+            this.workAvailable.signalAll();
+            return;
+          }
+          this.workAvailable.await(REBALANCE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+          this.rebalanceIfDue();
+        }
+        lane = next;
+        segment = lane.queue.poll();
+        start = System.nanoTime();
+        lane.active++;
+        lane.activeStartSum += start;
+        this.spaceAvailable.signalAll();
+        this.rebalanceIfDue();
+      } catch (InterruptedException e) {
+        LOGGER.warn("Extraction worker was interrupted; {} segments remain queued.", this.lanes.stream().mapToInt(l -> l.queue.size()).sum());
+        return;
+      } finally {
+        this.lock.unlock();
+      }
+
+      try {
+        new ExtractionTask(lane.extractor, segment, this.counter).run();
+      } catch (Throwable t) {
+        LOGGER.fatal("Extraction error detected in {}!\n{}", lane.name, LogHelper.getStackTrace(t));
+      }
+
+      final long end = System.nanoTime();
+      if (ExtractionStageMonitor.isEnabled()) {
+        ExtractionStageMonitor.record("extract/" + lane.name, start, end);
+      }
+      this.lock.lock();
+      try {
+        lane.active--;
+        lane.activeStartSum -= start;
+        lane.busyNanos += end - start;
+        lane.intervalCompleted++;
+        lane.intervalServiceNanos += end - start;
+        lane.completed++;
+        if (!lane.queue.isEmpty()) {
+          this.workAvailable.signal();
+        }
+      } finally {
+        this.lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Selects the lane the next segment is taken from: Among the lanes with queued segments and a free worker, the one with the largest difference between its share and its active workers; ties are broken by the queue depth.
+   *
+   * @return The selected {@link Lane} or null, if no lane can take a worker.
+   */
+  private Lane select() {
+    Lane best = null;
+    double bestDeficit = 0.0;
+    for (Lane lane : this.lanes) {
+      if (lane.queue.isEmpty() || lane.active >= lane.threads) {
+        continue;
+      }
+      final double deficit = lane.share - lane.active;
+      if (best == null || deficit > bestDeficit || (deficit == bestDeficit && lane.queue.size() > best.queue.size())) {
+        best = lane;
+        bestDeficit = deficit;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Recomputes the share of workers of every lane if the rebalance interval has passed. The demand of a lane is the number of workers it needs to keep up with its arrivals plus those needed to drain its queue within the next interval; lanes without an observed service time are assumed to be as expensive as the average lane. The shares divide the workers in proportion to the demand, capped by the workers each lane allows.
+   */
+  private void rebalanceIfDue() {
+    final long now = System.nanoTime();
+    final long elapsed = now - this.lastRebalance;
+    if (elapsed < TimeUnit.MILLISECONDS.toNanos(REBALANCE_INTERVAL_MS)) {
+      return;
+    }
+    this.lastRebalance = now;
+
+    double known = 0.0;
+    int observed = 0;
+    for (Lane lane : this.lanes) {
+      if (lane.intervalCompleted > 0) {
+        final double service = (double) lane.intervalServiceNanos / lane.intervalCompleted;
+        lane.serviceNanos = lane.serviceNanos == 0.0 ? service : SMOOTHING * service + (1.0 - SMOOTHING) * lane.serviceNanos;
+      }
+      if (lane.serviceNanos > 0.0) {
+        known += lane.serviceNanos;
+        observed++;
+      }
+    }
+    final double fallback = observed > 0 ? known / observed : 1.0;
+
+    double total = 0.0;
+    final double[] demand = new double[this.lanes.size()];
+    for (int i = 0; i < this.lanes.size(); i++) {
+      final Lane lane = this.lanes.get(i);
+      final double service = lane.serviceNanos > 0.0 ? lane.serviceNanos : fallback;
+      demand[i] = (lane.arrivals + lane.queue.size() + lane.active) * service / elapsed;
+      total += demand[i];
+
+      /* Utilisation is the average number of busy workers during the interval, including extractions that are still running. */
+      final long busy = lane.busyNanos + lane.active * now - lane.activeStartSum;
+      lane.utilisation = (double) (busy - lane.lastBusyNanos) / elapsed;
+      lane.lastBusyNanos = busy;
+      lane.arrivals = 0;
+      lane.intervalCompleted = 0;
+      lane.intervalServiceNanos = 0;
+    }
+
+    /* Distribute the workers in proportion to the demand; whatever a capped lane cannot use goes to the others. */
+    double remaining = this.workers.size();
+    final boolean[] capped = new boolean[this.lanes.size()];
+    boolean changed = true;
+    while (changed && remaining > 0.0 && total > 0.0) {
+      changed = false;
+      for (int i = 0; i < this.lanes.size(); i++) {
+        final Lane lane = this.lanes.get(i);
+        if (!capped[i] && remaining * demand[i] / total >= lane.threads) {
+          capped[i] = true;
+          lane.share = lane.threads;
+          remaining -= lane.threads;
+          total -= demand[i];
+          changed = true;
+        }
+      }
+    }
+    for (int i = 0; i < this.lanes.size(); i++) {
+      if (!capped[i]) {
+        this.lanes.get(i).share = total > 0.0 ? remaining * demand[i] / total : 0.0;
+      }
+    }
+
+    for (Lane lane : this.lanes) {
+      PrometheusExtractionTaskMonitor.reportSchedule(lane.name, lane.queue.size(), lane.active, lane.share, lane.utilisation);
+    }
+    if (LOGGER.isTraceEnabled()) {
+      for (Lane lane : this.lanes) {
+        LOGGER.trace("{}", lane.statistics());
+      }
+    }
+  }
+
+  /**
+   * Queue depth, workers and utilisation of an extractor.
+   *
+   * @param extractor   Name of the extractor: the fully qualified name of its class, followed by # and a running number if the class is scheduled more than once.
+   * @param queueDepth  Number of queued segments.
+   * @param capacity    Maximum number of queued segments.
+   * @param active      Number of workers currently running the extractor.
+   * @param threads     Maximum number of workers.
+   * @param share       Number of workers the extractor is currently entitled to.
+   * @param utilisation Average number of busy workers during the last rebalance interval.
+   * @param serviceTime Moving average of the time to process a segment in milliseconds.
+   * @param completed   Number of processed segments.
+   */
+  record Statistics(String extractor, int queueDepth, int capacity, int active, int threads, double share, double utilisation, double serviceTime, long completed) {
+
+  }
+
+  /**
+   * The input queue and the scheduling state of a single {@link Extractor}. Guarded by {@link #lock}.
+   */
+  private static final class Lane {
+
+    private final Extractor extractor;
+
+    private final String name;
+
+    private final ArrayDeque<SegmentContainer> queue;
+
+    private final int capacity;
+
+    private final int threads;
+
+    /**
+     * Number of workers the lane is entitled to; may be fractional.
+     */
+    private double share;
+
+    private int active;
+
+    /**
+     * Sum of the start times of the running extractions, used to account for their busy time so far.
+     */
+    private long activeStartSum;
+
+    private long busyNanos;
+
+    private long lastBusyNanos;
+
+    private double serviceNanos;
+
+    private double utilisation;
+
+    private long completed;
+
+    private int arrivals;
+
+    private int intervalCompleted;
+
+    private long intervalServiceNanos;
+
+    private Lane(Extractor extractor, String name, int capacity, int threads) {
+      this.extractor = extractor;
+      this.name = name;
+      this.queue = new ArrayDeque<>(capacity);
+      this.capacity = capacity;
+      this.threads = threads;
+    }
+
+    private Statistics statistics() {
+      return new Statistics(this.name, this.queue.size(), this.capacity, this.active, this.threads, this.share, this.utilisation, this.serviceNanos / 1_000_000.0, this.completed);
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package org.vitrivr.cineast.standalone.runtime;
+
+import java.util.List;
+import org.vitrivr.cineast.core.data.score.ScoreElement;
+import org.vitrivr.cineast.core.features.retriever.Retriever;
+
+/**
+ * Observes a retrieval run by the {@link ContinuousQueryDispatcher}: receives the results of every {@link Retriever} as soon as its {@link RetrievalTask} completes and can cancel the remaining tasks.
+ */
+public interface RetrievalListener {
+
+  /**
+   * Listener that ignores partial results and never cancels.
+   */
+  RetrievalListener NONE = (retriever, results) -> {
+  };
+
+  /**
+   * Called with the unweighted results of a single {@link Retriever}, before they are fused. Called from the thread that runs the retrieval, one retriever at a time. May block, e.g. to apply back pressure, and may throw a {@link java.util.concurrent.CancellationException} to cancel the retrieval.
+   */
+  void onPartialResult(Retriever retriever, List<ScoreElement> results);
+
+  /**
+   * Polled while the retrieval is running. Once it returns true, the tasks that are still running are interrupted and the retrieval ends with a {@link java.util.concurrent.CancellationException}.
+   */
+  default boolean isCancelled() {
+    return false;
+  }
+}
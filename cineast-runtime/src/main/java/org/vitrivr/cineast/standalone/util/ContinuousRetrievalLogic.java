@@ -17,6 +17,7 @@
 import org.vitrivr.cineast.core.features.retriever.RetrieverInitializer;
 import org.vitrivr.cineast.standalone.config.Config;
 import org.vitrivr.cineast.standalone.runtime.ContinuousQueryDispatcher;
+import org.vitrivr.cineast.standalone.runtime.RetrievalListener;
 
 public class ContinuousRetrievalLogic {
 
@@ -33,23 +34,38 @@ public ContinuousRetrievalLogic(DatabaseConfig config) {
 
   public List<SegmentScoreElement> retrieve(AbstractQueryTermContainer qc, String category,
       ReadableQueryConfig config) {
+    return retrieve(qc, category, config, RetrievalListener.NONE);
+  }
+
+  /**
+   * Performs retrieval analogous to {@link #retrieve(AbstractQueryTermContainer, String, ReadableQueryConfig)} and reports the results of the individual retrievers to the {@link RetrievalListener}.
+   */
+  public List<SegmentScoreElement> retrieve(AbstractQueryTermContainer qc, String category,
+      ReadableQueryConfig config, RetrievalListener listener) {
     ObjectDoubleHashMap<Retriever> retrievers = Config.sharedConfig().getRetriever()
         .getRetrieversByCategory(category);
     if (retrievers.isEmpty()) {
       LOGGER.warn("Empty retriever list: \n query {} \n category {} \n config {}\n returning no results", qc, category, config);
       return new ArrayList<>(0);
     }
-    return ContinuousQueryDispatcher.retrieve(qc, retrievers, initializer, config, this.segmentReader);
+    return ContinuousQueryDispatcher.retrieve(qc, retrievers, initializer, config, this.segmentReader, listener);
   }
 
   public List<SegmentScoreElement> retrieve(String segmentId, String category, ReadableQueryConfig config) {
+    return retrieve(segmentId, category, config, RetrievalListener.NONE);
+  }
+
+  /**
+   * Performs retrieval analogous to {@link #retrieve(String, String, ReadableQueryConfig)} and reports the results of the individual retrievers to the {@link RetrievalListener}.
+   */
+  public List<SegmentScoreElement> retrieve(String segmentId, String category, ReadableQueryConfig config, RetrievalListener listener) {
     ObjectDoubleHashMap<Retriever> retrievers = Config.sharedConfig().getRetriever()
         .getRetrieversByCategory(category);
     if (retrievers.isEmpty()) {
       LOGGER.warn("Empty retriever list for segmentId {}, category {} and config {}, returning no results", segmentId, category, config);
       return new ArrayList<>(0);
     }
-    return ContinuousQueryDispatcher.retrieve(segmentId, retrievers, initializer, config, this.segmentReader);
+    return ContinuousQueryDispatcher.retrieve(segmentId, retrievers, initializer, config, this.segmentReader, listener);
   }
 
   /**
@@ -0,0 +1,231 @@
+package org.vitrivr.cineast.standalone.run.path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DirectoryCrawlerTest {
+
+  /**
+   * Maximum time a crawl of one of the test trees may take.
+   */
+  private static final long TIMEOUT_MS = 10_000;
+
+  @TempDir
+  Path root;
+
+  /**
+   * Tests that the crawler hands out the same paths in the same order as the original, filtered {@link Files#walk(Path, int, FileVisitOption...)} for several depths, and in particular the same regular files.
+   */
+  @Test
+  @DisplayName("Test Walk Equivalence")
+  public void testWalkEquivalence() throws IOException, InterruptedException {
+    tree(this.root, 3, 3, 2);
+    for (int depth = 0; depth <= 5; depth++) {
+      final List<Path> actual = crawl(this.root, depth, false);
+      assertEquals(walk(this.root, depth), actual, "Depth " + depth);
+      try (Stream<Path> files = Files.walk(this.root, depth, FileVisitOption.FOLLOW_LINKS)) {
+        assertEquals(files.filter(Files::isRegularFile).collect(Collectors.toList()), actual.stream().filter(Files::isRegularFile).collect(Collectors.toList()), "Depth " + depth);
+      }
+    }
+  }
+
+  /**
+   * Tests that an ordered crawl hands out the same paths, sorted by name within every directory, and is reproducible.
+   */
+  @Test
+  @DisplayName("Test Ordered")
+  public void testOrdered() throws IOException, InterruptedException {
+    tree(this.root, 3, 3, 2);
+    final List<Path> actual = crawl(this.root, 4, true);
+    assertEquals(new HashSet<>(walk(this.root, 4)), new HashSet<>(actual));
+    assertEquals(actual, crawl(this.root, 4, true));
+    for (int i = 1; i < actual.size(); i++) {
+      final Path previous = actual.get(i - 1), next = actual.get(i);
+      if (previous.getParent().equals(next.getParent())) {
+        assertTrue(previous.getFileName().toString().compareTo(next.getFileName().toString()) < 0, previous + " was handed out before " + next);
+      }
+    }
+  }
+
+  /**
+   * Tests that hidden files and directories are skipped like {@link Files#isHidden(Path)} would, while the visible content of hidden directories is still handed out.
+   */
+  @Test
+  @DisplayName("Test Hidden Files")
+  public void testHiddenFiles() throws IOException, InterruptedException {
+    tree(this.root, 2, 2, 2);
+    Files.createFile(this.root.resolve(".hidden.txt"));
+    Files.createFile(this.root.resolve("dir0").resolve(".hidden.txt"));
+    Files.createDirectory(this.root.resolve(".cache"));
+    Files.createFile(this.root.resolve(".cache").resolve("visible.txt"));
+
+    final List<Path> actual = crawl(this.root, 3, false);
+    assertEquals(walk(this.root, 3), actual);
+    assertFalse(actual.contains(this.root.resolve(".hidden.txt")));
+    assertFalse(actual.contains(this.root.resolve("dir0").resolve(".hidden.txt")));
+    assertFalse(actual.contains(this.root.resolve(".cache")));
+    assertTrue(actual.contains(this.root.resolve(".cache").resolve("visible.txt")));
+  }
+
+  /**
+   * Tests that a link to one of the parent directories is skipped and the remaining tree is still handed out, whereas {@link Files#walk(Path, int, FileVisitOption...)} aborts.
+   */
+  @Test
+  @DisplayName("Test Symlink Loop")
+  public void testSymlinkLoop() throws IOException, InterruptedException {
+    tree(this.root, 3, 2, 2);
+    final List<Path> expected = walk(this.root, 10);
+    final Path loop = this.root.resolve("dir0").resolve("dir1").resolve("loop");
+    try {
+      Files.createSymbolicLink(loop, this.root.resolve("dir0"));
+    } catch (UnsupportedOperationException | IOException e) {
+      assumeTrue(false, "Symbolic links are not supported: " + e.getMessage());
+    }
+    assertThrows(UncheckedIOException.class, () -> walk(this.root, 10), "Files.walk is expected to abort on the loop.");
+    assertEquals(new HashSet<>(expected), new HashSet<>(crawl(this.root, 10, false)));
+  }
+
+  /**
+   * Tests that closing the crawler before the tree has been enumerated stops handing out items and terminates the emitter.
+   */
+  @Test
+  @DisplayName("Test Early Close")
+  public void testEarlyClose() throws IOException, InterruptedException {
+    tree(this.root, 2, 100, 20);
+    final DirectoryCrawler<Path> crawler = new DirectoryCrawler<>(this.root, 3, 4, 4, false, false, Function.identity());
+    for (int i = 0; i < 3; i++) {
+      assertNotNull(crawler.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+    crawler.close();
+    assertNull(crawler.poll());
+    assertFalse(crawler.hasNextAvailable());
+
+    final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    while (!crawler.isExhausted() || emitterAlive(this.root)) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("Crawler did not stop after close().");
+      }
+      Thread.sleep(10);
+    }
+    assertNull(crawler.poll());
+  }
+
+  /**
+   * Tests the contract {@link org.vitrivr.cineast.standalone.run.GenericExtractionItemHandler} relies on: an item can be polled whenever {@link DirectoryCrawler#hasNextAvailable()}, and {@link DirectoryCrawler#isExhausted()} only holds once every item has been handed out, even if the consumer is faster than the crawler.
+   */
+  @Test
+  @DisplayName("Test Exhaustion")
+  public void testExhaustion() throws IOException, InterruptedException {
+    tree(this.root, 2, 5, 3);
+    final List<Path> expected = walk(this.root, 3);
+    final DirectoryCrawler<Path> crawler = new DirectoryCrawler<>(this.root, 3, 2, 2, false, false, path -> {
+      try {
+        Thread.sleep(2);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return path;
+    });
+    final List<Path> actual = new ArrayList<>();
+    final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    while (!crawler.isExhausted()) {
+      assertTrue(System.currentTimeMillis() < deadline, "Crawler did not finish in time.");
+      if (!crawler.hasNextAvailable()) {
+        Thread.sleep(1);
+        continue;
+      }
+      final Path next = crawler.poll();
+      assertNotNull(next, "No item although one was available.");
+      actual.add(next);
+    }
+    assertEquals(expected, actual);
+    assertFalse(crawler.hasNextAvailable());
+    assertNull(crawler.poll());
+    crawler.close();
+  }
+
+  /**
+   * Tests that a file as start path yields just that file and a missing start path yields nothing.
+   */
+  @Test
+  @DisplayName("Test Start Path")
+  public void testStartPath() throws IOException, InterruptedException {
+    final Path file = Files.createFile(this.root.resolve("file.txt"));
+    assertEquals(List.of(file), crawl(file, 3, false));
+    assertEquals(List.of(), crawl(this.root.resolve("missing"), 3, false));
+  }
+
+  /**
+   * Crawls the given start path and collects all items the way the extraction does.
+   */
+  private static List<Path> crawl(Path start, int depth, boolean ordered) throws InterruptedException {
+    final List<Path> paths = new ArrayList<>();
+    try (DirectoryCrawler<Path> crawler = new DirectoryCrawler<>(start, depth, 4, 8, ordered, false, Function.identity())) {
+      final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+      while (!crawler.isExhausted()) {
+        assertTrue(System.currentTimeMillis() < deadline, "Crawler did not finish in time.");
+        final Path next = crawler.poll(10, TimeUnit.MILLISECONDS);
+        if (next != null) {
+          paths.add(next);
+        }
+      }
+    }
+    return paths;
+  }
+
+  /**
+   * The original enumeration of {@link TreeWalkContainerIteratorProvider}.
+   */
+  private static List<Path> walk(Path start, int depth) throws IOException {
+    try (Stream<Path> paths = Files.walk(start, depth, FileVisitOption.FOLLOW_LINKS)) {
+      return paths.filter(p -> {
+        try {
+          return Files.exists(p) && !Files.isHidden(p) && Files.isReadable(p);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }).collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Creates a tree of the given number of levels below the directory, with the given number of empty files and subdirectories per directory.
+   */
+  private static void tree(Path directory, int levels, int files, int directories) throws IOException {
+    for (int i = 0; i < files; i++) {
+      Files.createFile(directory.resolve("file" + i + ".txt"));
+    }
+    if (levels > 0) {
+      for (int i = 0; i < directories; i++) {
+        tree(Files.createDirectory(directory.resolve("dir" + i)), levels - 1, files, directories);
+      }
+    }
+  }
+
+  private static boolean emitterAlive(Path start) {
+    final String name = "directory-crawler-" + start.getFileName();
+    return Thread.getAllStackTraces().keySet().stream().anyMatch(t -> t.isAlive() && name.equals(t.getName()));
+  }
+}
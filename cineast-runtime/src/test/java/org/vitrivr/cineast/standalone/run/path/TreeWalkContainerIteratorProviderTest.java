@@ -0,0 +1,110 @@
+package org.vitrivr.cineast.standalone.run.path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.vitrivr.cineast.standalone.config.Config;
+import org.vitrivr.cineast.standalone.config.CrawlerConfig;
+import org.vitrivr.cineast.standalone.run.ExtractionItemContainer;
+
+public class TreeWalkContainerIteratorProviderTest {
+
+  /**
+   * Maximum time a walk of the test tree may take.
+   */
+  private static final long TIMEOUT_MS = 10_000;
+
+  @TempDir
+  Path root;
+
+  @BeforeAll
+  public static void setup() {
+    if (Config.sharedConfig() == null) {
+      Config.initSharedConfig(new Config());
+    }
+  }
+
+  /**
+   * Tests that polling the provider the way {@link org.vitrivr.cineast.standalone.run.GenericExtractionItemHandler} does yields every regular file of the tree, with object paths relative to the base path, before the provider reports to be closed.
+   */
+  @Test
+  @DisplayName("Test Next Item")
+  public void testNextItem() throws IOException, InterruptedException {
+    final Path start = Files.createDirectory(this.root.resolve("start"));
+    for (int d = 0; d < 5; d++) {
+      final Path directory = Files.createDirectory(start.resolve("dir" + d));
+      for (int f = 0; f < 20; f++) {
+        Files.createFile(directory.resolve("file" + f + ".txt"));
+      }
+    }
+    Files.createFile(start.resolve(".hidden.txt"));
+    final List<Path> expected;
+    try (Stream<Path> paths = Files.walk(start, 2, FileVisitOption.FOLLOW_LINKS)) {
+      expected = paths.filter(Files::isRegularFile).filter(p -> !p.getFileName().toString().startsWith(".")).collect(Collectors.toList());
+    }
+
+    final CrawlerConfig config = new CrawlerConfig();
+    config.setPrefetch(4);
+    final TreeWalkContainerIteratorProvider provider = new TreeWalkContainerIteratorProvider(this.root, Paths.get("start"), 2, config);
+    final List<ExtractionItemContainer> items = new ArrayList<>();
+    final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    while (provider.isOpen()) {
+      assertTrue(System.currentTimeMillis() < deadline, "Provider did not close in time.");
+      if (!provider.hasNextAvailable()) {
+        Thread.sleep(1);
+        continue;
+      }
+      final Optional<ExtractionItemContainer> next = provider.next();
+      assertTrue(next.isPresent(), "No item although one was available.");
+      items.add(next.get());
+    }
+
+    final List<ExtractionItemContainer> files = items.stream().filter(i -> Files.isRegularFile(i.getPathForExtraction())).collect(Collectors.toList());
+    assertEquals(expected, files.stream().map(ExtractionItemContainer::getPathForExtraction).collect(Collectors.toList()));
+    for (ExtractionItemContainer item : files) {
+      assertEquals(this.root.toAbsolutePath().relativize(item.getPathForExtraction().toAbsolutePath()).toString().replace('\\', '/'), item.getObject().getPath());
+    }
+    assertFalse(provider.hasNextAvailable());
+    assertFalse(provider.next().isPresent());
+    provider.close();
+  }
+
+  /**
+   * Tests that a closed provider neither reports to be open nor hands out further items.
+   */
+  @Test
+  @DisplayName("Test Close")
+  public void testClose() throws IOException, InterruptedException {
+    for (int f = 0; f < 100; f++) {
+      Files.createFile(this.root.resolve("file" + f + ".txt"));
+    }
+    final CrawlerConfig config = new CrawlerConfig();
+    config.setPrefetch(4);
+    final TreeWalkContainerIteratorProvider provider = new TreeWalkContainerIteratorProvider(this.root, Paths.get(""), 1, config);
+    final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    while (!provider.hasNextAvailable()) {
+      assertTrue(System.currentTimeMillis() < deadline, "Provider did not hand out items in time.");
+      Thread.sleep(1);
+    }
+    assertTrue(provider.isOpen());
+    provider.close();
+    assertFalse(provider.isOpen());
+    assertFalse(provider.hasNextAvailable());
+    assertFalse(provider.next().isPresent());
+  }
+}
@@ -0,0 +1,210 @@
+package org.vitrivr.cineast.standalone.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.vitrivr.cineast.core.data.segments.AudioSegment;
+import org.vitrivr.cineast.core.data.segments.SegmentContainer;
+import org.vitrivr.cineast.core.db.PersistencyWriterSupplier;
+import org.vitrivr.cineast.core.db.setup.EntityCreator;
+import org.vitrivr.cineast.core.features.extractor.Extractor;
+
+public class ExtractionSchedulerTest {
+
+  private static final int THREADS = 4;
+
+  private static SegmentContainer segment(int i) {
+    final AudioSegment segment = new AudioSegment();
+    segment.setId("v_" + i + "_1");
+    return segment;
+  }
+
+  private static ExtractionScheduler scheduler(List<Extractor> extractors, int queueSize) {
+    final int[] queueSizes = new int[extractors.size()];
+    final int[] threads = new int[extractors.size()];
+    Arrays.fill(queueSizes, queueSize);
+    Arrays.fill(threads, THREADS);
+    return new ExtractionScheduler(extractors, queueSizes, threads, THREADS, null);
+  }
+
+  /**
+   * Tests that an extractor that is not thread-safe never runs on more than one worker, even if more are allowed for it, while a thread-safe one does.
+   */
+  @Test
+  @DisplayName("Test Not Thread-Safe")
+  public void testNotThreadSafe() throws InterruptedException {
+    final RecordingExtractor serial = new RecordingExtractor(2, false);
+    final RecordingExtractor parallel = new RecordingExtractor(2, true);
+    final ExtractionScheduler scheduler = scheduler(List.of(serial, parallel), 20);
+    scheduler.start();
+    for (int i = 0; i < 100; i++) {
+      scheduler.submit(segment(i));
+    }
+    assertTrue(scheduler.shutdown(30, TimeUnit.SECONDS));
+
+    assertEquals(100, serial.processed.get());
+    assertEquals(100, parallel.processed.get());
+    assertEquals(1, serial.maxActive.get());
+    assertTrue(parallel.maxActive.get() > 1, "The thread-safe extractor never ran in parallel.");
+    assertTrue(parallel.maxActive.get() <= THREADS);
+  }
+
+  /**
+   * Tests that shutting down waits until all queued segments have been processed and rejects further segments.
+   */
+  @Test
+  @DisplayName("Test Drain On Shutdown")
+  public void testDrainOnShutdown() throws InterruptedException {
+    final List<RecordingExtractor> extractors = List.of(new RecordingExtractor(1, true), new RecordingExtractor(5, true), new RecordingExtractor(3, false));
+    final ExtractionScheduler scheduler = scheduler(new ArrayList<>(extractors), 50);
+    scheduler.start();
+    for (int i = 0; i < 40; i++) {
+      scheduler.submit(segment(i));
+    }
+    assertTrue(scheduler.shutdown(30, TimeUnit.SECONDS));
+
+    for (RecordingExtractor extractor : extractors) {
+      assertEquals(40, extractor.processed.get());
+    }
+    for (ExtractionScheduler.Statistics statistics : scheduler.statistics()) {
+      assertEquals(0, statistics.queueDepth());
+      assertEquals(0, statistics.active());
+      assertEquals(40, statistics.completed());
+    }
+    assertThrows(IllegalStateException.class, () -> scheduler.submit(segment(40)));
+  }
+
+  /**
+   * Tests that submitting blocks once the queue of an extractor is full and resumes as soon as it has space again.
+   */
+  @Test
+  @DisplayName("Test Backpressure")
+  public void testBackpressure() throws InterruptedException {
+    final CountDownLatch release = new CountDownLatch(1);
+    final RecordingExtractor blocked = new RecordingExtractor(release);
+    final RecordingExtractor fast = new RecordingExtractor(0, true);
+    final ExtractionScheduler scheduler = scheduler(List.of(blocked, fast), 2);
+    scheduler.start();
+
+    final AtomicInteger submitted = new AtomicInteger();
+    final Thread producer = new Thread(() -> {
+      try {
+        for (int i = 0; i < 10; i++) {
+          scheduler.submit(segment(i));
+          submitted.incrementAndGet();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    producer.start();
+
+    /* The blocked extractor holds one segment and has two more queued; the producer waits for space. */
+    final long deadline = System.currentTimeMillis() + 5000;
+    while ((producer.getState() != Thread.State.WAITING || submitted.get() < 3) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertEquals(Thread.State.WAITING, producer.getState());
+    assertEquals(3, submitted.get());
+    Thread.sleep(50);
+    assertEquals(3, submitted.get());
+    assertTrue(producer.isAlive());
+
+    release.countDown();
+    producer.join(5000);
+    assertFalse(producer.isAlive());
+    assertEquals(10, submitted.get());
+    assertTrue(scheduler.shutdown(30, TimeUnit.SECONDS));
+    assertEquals(10, blocked.processed.get());
+    assertEquals(10, fast.processed.get());
+  }
+
+  /**
+   * Tests that extractors of the same class are scheduled and reported separately.
+   */
+  @Test
+  @DisplayName("Test Names")
+  public void testNames() {
+    final ExtractionScheduler scheduler = scheduler(List.of(new RecordingExtractor(0, true), new RecordingExtractor(0, false)), 1);
+    final List<String> names = scheduler.statistics().stream().map(ExtractionScheduler.Statistics::extractor).collect(Collectors.toList());
+    final String name = RecordingExtractor.class.getName();
+    assertEquals(List.of(name + "#1", name + "#2"), names);
+    assertEquals(List.of(THREADS, 1), scheduler.statistics().stream().map(ExtractionScheduler.Statistics::threads).collect(Collectors.toList()));
+  }
+
+  /**
+   * Extractor that sleeps for a fixed time per segment, or until released, and records how many workers run it at the same time.
+   */
+  private static final class RecordingExtractor implements Extractor {
+
+    private final long millis;
+    private final boolean threadSafe;
+    private final CountDownLatch release;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final AtomicInteger processed = new AtomicInteger();
+
+    private RecordingExtractor(long millis, boolean threadSafe) {
+      this.millis = millis;
+      this.threadSafe = threadSafe;
+      this.release = null;
+    }
+
+    private RecordingExtractor(CountDownLatch release) {
+      this.millis = 0;
+      this.threadSafe = false;
+      this.release = release;
+    }
+
+    @Override
+    public void processSegment(SegmentContainer shot) {
+      this.maxActive.accumulateAndGet(this.active.incrementAndGet(), Math::max);
+      try {
+        if (this.release != null) {
+          this.release.await();
+        } else if (this.millis > 0) {
+          Thread.sleep(this.millis);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        this.active.decrementAndGet();
+        this.processed.incrementAndGet();
+      }
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+      return this.threadSafe;
+    }
+
+    @Override
+    public void init(PersistencyWriterSupplier phandlerSupply) {
+    }
+
+    @Override
+    public void finish() {
+    }
+
+    @Override
+    public void initalizePersistentLayer(Supplier<EntityCreator> supply) {
+    }
+
+    @Override
+    public void dropPersistentLayer(Supplier<EntityCreator> supply) {
+    }
+  }
+}